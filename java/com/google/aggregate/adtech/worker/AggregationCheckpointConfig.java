@@ -0,0 +1,62 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker;
+
+import com.google.auto.value.AutoValue;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Configuration for checkpointing the aggregation state of a job, so that a retried job resumes
+ * from the input shards it had not finished instead of starting over.
+ *
+ * <p>Checkpointing is enabled by binding an instance of this class.
+ */
+@AutoValue
+public abstract class AggregationCheckpointConfig {
+
+  public static Builder builder() {
+    return new AutoValue_AggregationCheckpointConfig.Builder();
+  }
+
+  /** Minimum time between two checkpoints of the same job. */
+  public abstract Duration interval();
+
+  /** Local directory the checkpoints are written to. */
+  public abstract Path localDirectory();
+
+  /**
+   * Bucket the checkpoints are copied to, so that a job retried on another worker can resume.
+   * Checkpoints hold unnoised partial sums, so the copies are sealed with the attested distributed
+   * aggregation key and are only written when that key is bound. When empty, checkpoints are only
+   * kept on the local disk.
+   */
+  public abstract Optional<String> bucket();
+
+  @AutoValue.Builder
+  public abstract static class Builder {
+
+    public abstract Builder setInterval(Duration interval);
+
+    public abstract Builder setLocalDirectory(Path localDirectory);
+
+    public abstract Builder setBucket(String bucket);
+
+    public abstract AggregationCheckpointConfig build();
+  }
+}
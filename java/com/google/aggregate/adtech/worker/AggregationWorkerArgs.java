@@ -76,6 +76,14 @@ public final class AggregationWorkerArgs {
   private BlobStorageClientSelector blobStorageClientSelector =
       BlobStorageClientSelector.AWS_S3_CLIENT;
 
+  @Parameter(
+      names = "--blob_storage_latency_profile",
+      description =
+          "Path to a JSON blob storage latency profile. Only used with the local file system blob"
+              + " storage client, whose reads and writes then get the latency, bandwidth and"
+              + " throttling errors of the profile, to benchmark I/O changes repeatably.")
+  private String blobStorageLatencyProfile = "";
+
   @Parameter(names = "--param_client", description = "Parameter client implementation")
   private ParameterClientSelector paramClient = ParameterClientSelector.ARGS;
 
@@ -368,6 +376,16 @@ public final class AggregationWorkerArgs {
               + " is currently not enabled for use in Aggregation Service jobs.")
   private boolean domainOptional = false;
 
+  @Parameter(
+      names = "--disable_sorted_domain_merge_join",
+      description =
+          "Set to true to conflate output domains whose shards are marked as sorted through per-key"
+              + " lookups, like unsorted domains. The merge join sorts an array of references to"
+              + " the aggregated buckets, i.e. 4 to 8 bytes per bucket on top of the aggregation,"
+              + " but needs no set of the domain buckets, which per-key lookups keep for the whole"
+              + " domain.")
+  private boolean disableSortedDomainMergeJoin = false;
+
   @Parameter(names = "--domain_file_format", description = "Format of the domain generation file.")
   private DomainFormatSelector domainFileFormat = DomainFormatSelector.AVRO;
 
@@ -438,6 +456,167 @@ public final class AggregationWorkerArgs {
       description = "Flag to enable RxJava streaming based output domain processing.")
   private boolean streamingOutputDomainProcessingEnabled = false;
 
+  @Parameter(
+      names = "--job_preflight_admission_enabled",
+      description =
+          "Flag to estimate the report count, distinct keys and peak heap of each job from its"
+              + " input before processing it. Jobs estimated to exceed the heap are run in reduced"
+              + " memory mode or, if that is not enough, released back to the job queue for another"
+              + " worker.")
+  private boolean jobPreflightAdmissionEnabled = false;
+
+  @Parameter(
+      names = "--reject_jobs_exceeding_memory_estimate",
+      description =
+          "Flag to complete jobs that are estimated to exceed the heap even in reduced memory mode"
+              + " with INSUFFICIENT_WORKER_MEMORY instead of releasing them back to the job queue."
+              + " Only used with --job_preflight_admission_enabled.")
+  private boolean rejectJobsExceedingMemoryEstimate = false;
+
+  @Parameter(
+      names = "--aggregation_checkpoint_interval_seconds",
+      description =
+          "Minimum interval between checkpoints of a job's partial aggregation, completed input"
+              + " shards, error counts and privacy budget units. A retried job resumes from its"
+              + " latest checkpoint. Checkpointing is disabled when set to 0.")
+  private long aggregationCheckpointIntervalSeconds = 0;
+
+  @Parameter(
+      names = "--aggregation_checkpoint_bucket",
+      description =
+          "Bucket that aggregation checkpoints are copied to, so that jobs retried on another"
+              + " worker can resume. Copies are sealed with the key of"
+              + " --distributed_aggregation_kms_key_arn and are not written if that key is not"
+              + " set. If empty, checkpoints are only written to the result working directory.")
+  private String aggregationCheckpointBucket = "";
+
+  @Parameter(
+      names = "--shard_read_stall_timeout_seconds",
+      description =
+          "Time a read of an input shard may block before the shard is reopened at the position"
+              + " read so far. Stalled reads are not reopened when set to 0.")
+  private long shardReadStallTimeoutSeconds = 0;
+
+  @Parameter(
+      names = "--decryption_key_prefetch_reports_per_shard",
+      description =
+          "Number of reports read from the start of each input shard to find the decryption keys"
+              + " of a job. The keys are fetched in parallel before the reports are decrypted."
+              + " Keys are not prefetched when set to 0.")
+  private int decryptionKeyPrefetchReportsPerShard = 0;
+
+  @Parameter(
+      names = "--input_sample_validation_reports_per_shard",
+      description =
+          "Number of reports read from the start of each input shard and validated before the"
+              + " reports of a job are aggregated. The job fails early when the errors projected"
+              + " from the sample exceed the report error threshold. Inputs are not validated"
+              + " before aggregation when set to 0.")
+  private int inputSampleValidationReportsPerShard = 0;
+
+  @Parameter(
+      names = "--open_window_poll_interval_seconds",
+      description =
+          "Time between two listings of the input prefix of an open window job, i.e. of a job with"
+              + " the 'window_close_time' job parameter. New shards are aggregated after each"
+              + " listing. A default of 60 seconds is used when set to 0.")
+  private long openWindowPollIntervalSeconds = 0;
+
+  @Parameter(
+      names = "--thread_confined_aggregation_max_buckets",
+      description =
+          "Maximum number of distinct buckets summed on the thread aggregating a batch of reports"
+              + " before the sums are added to the aggregation shared by all threads. Reduces"
+              + " contention on frequent buckets. Each report is added to the shared aggregation"
+              + " directly when set to 0.")
+  private int threadConfinedAggregationMaxBuckets = 0;
+
+  @Parameter(
+      names = "--stop_report_validation_at_first_error",
+      description =
+          "Set to true to skip the remaining validations of a report once one of them fails. The"
+              + " error summary then counts a single error category per invalid report instead of"
+              + " every failed validation.")
+  private boolean stopReportValidationAtFirstError = false;
+
+  @Parameter(
+      names = "--job_flight_recording_max_size_mb",
+      description =
+          "Maximum size of a Java Flight Recorder recording of the pipeline stages of each debug"
+              + " run, which is uploaded next to the debug summary reports of the job. Other jobs"
+              + " are never recorded. Jobs are not recorded when set to 0.")
+  private long jobFlightRecordingMaxSizeMb = 0;
+
+  @Parameter(
+      names = "--distributed_aggregation_shards_per_subtask",
+      description =
+          "Number of input shards per sub-task when the reports of a job are aggregated by several"
+              + " workers. Jobs with more input shards are split into sub-tasks, which are put on"
+              + " the job queue for other workers. Jobs are aggregated by a single worker when set"
+              + " to 0.")
+  private int distributedAggregationShardsPerSubtask = 0;
+
+  @Parameter(
+      names = "--distributed_aggregation_bucket",
+      description =
+          "Bucket that the sub-tasks of distributed jobs write their partial aggregates to. Must be"
+              + " set for jobs to be distributed.")
+  private String distributedAggregationBucket = "";
+
+  @Parameter(
+      names = "--distributed_aggregation_partitions",
+      description =
+          "Number of key-range partitions that the partial aggregate of a sub-task is split into,"
+              + " which are merged in parallel.")
+  private int distributedAggregationPartitions = 16;
+
+  @Parameter(
+      names = "--distributed_aggregation_subtask_timeout_seconds",
+      description =
+          "Time a distributed job waits for its sub-tasks. Sub-tasks that are not done by then are"
+              + " aggregated by the worker that split the job.")
+  private long distributedAggregationSubtaskTimeoutSeconds = 21600;
+
+  @Parameter(
+      names = "--distributed_aggregation_kms_key_arn",
+      description =
+          "ARN of the symmetric KMS key that wraps the keys sealing the sub-tasks of distributed"
+              + " jobs. Sub-tasks are only unsealed with attested decryption from inside the"
+              + " enclave, so the key policy must only allow kms:Decrypt under the"
+              + " kms:RecipientAttestation:ImageSha384 condition for the worker image. Must be set"
+              + " for jobs to be distributed and for checkpoints to be copied to"
+              + " --aggregation_checkpoint_bucket.")
+  private String distributedAggregationKmsKeyArn = "";
+
+  @Parameter(
+      names = "--distributed_aggregation_kmstool_path",
+      description =
+          "Path of the kmstool_enclave_cli in the enclave, which decrypts the sub-task keys with"
+              + " the attestation document of the enclave.")
+  private String distributedAggregationKmsToolPath = "/kmstool_enclave_cli";
+
+  @Parameter(
+      names = "--distributed_aggregation_kms_proxy_port",
+      description = "Vsock port of the proxy to the KMS endpoint on the parent instance.")
+  private int distributedAggregationKmsProxyPort = 8000;
+
+  @Parameter(
+      names = "--worker_warm_up_enabled",
+      description =
+          "Flag to run synthetic jobs with a locally generated key through report decryption,"
+              + " validation, aggregation and result serialization before the first job is"
+              + " pulled, so that the first job does not pay for crypto initialization and JIT"
+              + " compilation.")
+  private boolean workerWarmUpEnabled = false;
+
+  @Parameter(
+      names = "--worker_warm_up_decryption_key_ids",
+      description =
+          "Comma separated IDs of the decryption keys, e.g. the currently active keys, fetched"
+              + " during worker warm-up so that they are cached before the first job. Only used"
+              + " if worker warm-up is enabled.")
+  private String workerWarmUpDecryptionKeyIds = "";
+
   @Parameter(
       names = "--local_job_params_input_filtering_ids",
       description =
@@ -445,6 +624,14 @@ public final class AggregationWorkerArgs {
               + " be used only in Local mode.")
   private String filteringIds = null;
 
+  @Parameter(
+      names = "--local_job_params_input_filtering_id_sets",
+      description =
+          "Semicolon separated sets of comma separated filtering IDs, e.g. \"1,2;3\", to be"
+              + " added in Job Params. Each set is aggregated in the same pass over the reports"
+              + " and written to its own output file. To be used only in Local mode.")
+  private String filteringIdSets = null;
+
   @Parameter(
       names = "--attribution_reporting_debug_api_enabled",
       description = "Flag to enable support for Attribution Reporting Debug API.")
@@ -654,6 +841,10 @@ public final class AggregationWorkerArgs {
     return blobStorageClientSelector;
   }
 
+  String getBlobStorageLatencyProfile() {
+    return blobStorageLatencyProfile;
+  }
+
   public URI getS3EndpointOverride() {
     return URI.create(s3EndpointOverride);
   }
@@ -722,6 +913,10 @@ public final class AggregationWorkerArgs {
     return domainOptional;
   }
 
+  boolean isSortedDomainMergeJoinDisabled() {
+    return disableSortedDomainMergeJoin;
+  }
+
   public boolean isEnableThresholding() {
     // Enable thresholding when domain input is optional, i.e. all report keys are considered for
     // aggregated result.
@@ -780,10 +975,94 @@ public final class AggregationWorkerArgs {
     return streamingOutputDomainProcessingEnabled;
   }
 
+  boolean isJobPreflightAdmissionEnabled() {
+    return jobPreflightAdmissionEnabled;
+  }
+
+  boolean isRejectJobsExceedingMemoryEstimate() {
+    return rejectJobsExceedingMemoryEstimate;
+  }
+
+  long getAggregationCheckpointIntervalSeconds() {
+    return aggregationCheckpointIntervalSeconds;
+  }
+
+  String getAggregationCheckpointBucket() {
+    return aggregationCheckpointBucket;
+  }
+
+  long getShardReadStallTimeoutSeconds() {
+    return shardReadStallTimeoutSeconds;
+  }
+
+  int getDecryptionKeyPrefetchReportsPerShard() {
+    return decryptionKeyPrefetchReportsPerShard;
+  }
+
+  int getInputSampleValidationReportsPerShard() {
+    return inputSampleValidationReportsPerShard;
+  }
+
+  long getOpenWindowPollIntervalSeconds() {
+    return openWindowPollIntervalSeconds;
+  }
+
+  int getThreadConfinedAggregationMaxBuckets() {
+    return threadConfinedAggregationMaxBuckets;
+  }
+
+  boolean isStopReportValidationAtFirstError() {
+    return stopReportValidationAtFirstError;
+  }
+
+  long getJobFlightRecordingMaxSizeMb() {
+    return jobFlightRecordingMaxSizeMb;
+  }
+
+  int getDistributedAggregationShardsPerSubtask() {
+    return distributedAggregationShardsPerSubtask;
+  }
+
+  String getDistributedAggregationBucket() {
+    return distributedAggregationBucket;
+  }
+
+  int getDistributedAggregationPartitions() {
+    return distributedAggregationPartitions;
+  }
+
+  long getDistributedAggregationSubtaskTimeoutSeconds() {
+    return distributedAggregationSubtaskTimeoutSeconds;
+  }
+
+  String getDistributedAggregationKmsKeyArn() {
+    return distributedAggregationKmsKeyArn;
+  }
+
+  String getDistributedAggregationKmsToolPath() {
+    return distributedAggregationKmsToolPath;
+  }
+
+  int getDistributedAggregationKmsProxyPort() {
+    return distributedAggregationKmsProxyPort;
+  }
+
+  boolean isWorkerWarmUpEnabled() {
+    return workerWarmUpEnabled;
+  }
+
+  String getWorkerWarmUpDecryptionKeyIds() {
+    return workerWarmUpDecryptionKeyIds;
+  }
+
   String getFilteringIds() {
     return filteringIds;
   }
 
+  String getFilteringIdSets() {
+    return filteringIdSets;
+  }
+
   boolean isAttributionReportingDebugApiEnabled() {
     return attributionReportingDebugApiEnabled;
   }
@@ -25,21 +25,33 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.aggregate.adtech.worker.Annotations.BenchmarkMode;
 import com.google.aggregate.adtech.worker.Annotations.BlockingThreadPool;
 import com.google.aggregate.adtech.worker.Annotations.CustomForkJoinThreadPool;
+import com.google.aggregate.adtech.worker.Annotations.DecryptionKeyPrefetchReportsPerShard;
+import com.google.aggregate.adtech.worker.Annotations.DisableSortedDomainMergeJoin;
+import com.google.aggregate.adtech.worker.Annotations.DistributedAggregationKeyAead;
 import com.google.aggregate.adtech.worker.Annotations.DomainOptional;
 import com.google.aggregate.adtech.worker.Annotations.DontConsumeBudgetInDebugRunEnabled;
 import com.google.aggregate.adtech.worker.Annotations.EnableParallelSummaryUpload;
 import com.google.aggregate.adtech.worker.Annotations.EnableStackTraceInResponse;
 import com.google.aggregate.adtech.worker.Annotations.EnableThresholding;
+import com.google.aggregate.adtech.worker.Annotations.InputSampleValidationReportsPerShard;
 import com.google.aggregate.adtech.worker.Annotations.InstanceId;
 import com.google.aggregate.adtech.worker.Annotations.MaxDepthOfStackTrace;
 import com.google.aggregate.adtech.worker.Annotations.NonBlockingThreadPool;
+import com.google.aggregate.adtech.worker.Annotations.OpenWindowPollInterval;
 import com.google.aggregate.adtech.worker.Annotations.OutputShardFileSizeBytes;
 import com.google.aggregate.adtech.worker.Annotations.ParallelAggregatedFactNoising;
+import com.google.aggregate.adtech.worker.Annotations.RejectJobsExceedingMemoryEstimate;
 import com.google.aggregate.adtech.worker.Annotations.ReportErrorThresholdPercentage;
+import com.google.aggregate.adtech.worker.Annotations.ShardReadStallTimeout;
+import com.google.aggregate.adtech.worker.Annotations.StopReportValidationAtFirstError;
 import com.google.aggregate.adtech.worker.Annotations.StreamingOutputDomainProcessing;
 import com.google.aggregate.adtech.worker.Annotations.SupportedApis;
+import com.google.aggregate.adtech.worker.Annotations.ThreadConfinedAggregationMaxBuckets;
+import com.google.aggregate.adtech.worker.Annotations.WarmUpDecryptionKeyIds;
 import com.google.aggregate.adtech.worker.LocalFileToCloudStorageLogger.ResultWorkingDirectory;
 import com.google.aggregate.adtech.worker.aggregation.concurrent.ConcurrentAggregationProcessor;
+import com.google.aggregate.adtech.worker.aggregation.concurrent.InputSizeJobCostEstimator;
+import com.google.aggregate.adtech.worker.aggregation.concurrent.SyntheticJobWorkerWarmup;
 import com.google.aggregate.adtech.worker.aggregation.domain.OutputDomainProcessor;
 import com.google.aggregate.adtech.worker.configs.PrivacyParametersSupplier.NoisingDelta;
 import com.google.aggregate.adtech.worker.configs.PrivacyParametersSupplier.NoisingDistribution;
@@ -47,10 +59,16 @@ import com.google.aggregate.adtech.worker.configs.PrivacyParametersSupplier.Nois
 import com.google.aggregate.adtech.worker.configs.PrivacyParametersSupplier.NoisingL1Sensitivity;
 import com.google.aggregate.adtech.worker.decryption.DeserializingReportDecrypter;
 import com.google.aggregate.adtech.worker.decryption.RecordDecrypter;
+import com.google.aggregate.adtech.worker.encryption.kms.AwsKmsAead;
+import com.google.aggregate.adtech.worker.encryption.kms.KmsToolEnclaveCliDecrypter;
+import com.google.aggregate.adtech.worker.local.BlobStorageLatencyProfile;
+import com.google.aggregate.adtech.worker.local.LatencyInjectingBlobStorageClientModule;
 import com.google.aggregate.adtech.worker.model.serdes.PayloadSerdes;
 import com.google.aggregate.adtech.worker.model.serdes.cbor.CborPayloadSerdes;
 import com.google.aggregate.adtech.worker.selector.ClientConfigSelector;
 import com.google.aggregate.adtech.worker.util.JobUtils;
+import com.google.aggregate.adtech.worker.selector.BlobStorageClientSelector;
+import com.google.aggregate.adtech.worker.selector.JobClientSelector;
 import com.google.aggregate.adtech.worker.validation.SimulationValidationModule;
 import com.google.aggregate.adtech.worker.validation.ValidationModule;
 import com.google.aggregate.perf.StopwatchExporter;
@@ -62,11 +80,14 @@ import com.google.aggregate.privacy.budgeting.budgetkeygenerator.PrivacyBudgetKe
 import com.google.aggregate.privacy.noise.proto.Params.NoiseParameters.Distribution;
 import com.google.aggregate.shared.mapper.TimeObjectMapper;
 import com.google.aggregate.util.ClientVersionUtils;
+import com.google.common.base.Splitter;
 import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.google.crypto.tink.Aead;
 import com.google.inject.AbstractModule;
 import com.google.inject.Key;
 import com.google.inject.Provides;
@@ -101,6 +122,8 @@ import com.google.scp.operator.cpio.distributedprivacybudgetclient.DistributedPr
 import com.google.scp.operator.cpio.distributedprivacybudgetclient.DistributedPrivacyBudgetClientModule.CoordinatorBPrivacyBudgetServiceBaseUrl;
 import com.google.scp.operator.cpio.distributedprivacybudgetclient.aws.AwsPbsClientModule;
 import com.google.scp.operator.cpio.distributedprivacybudgetclient.external2gcp.External2GcpPbsClientModule;
+import com.google.aggregate.adtech.worker.jobclient.JobQueueSubtaskDispatcher;
+import com.google.aggregate.adtech.worker.jobclient.SubtaskDispatcher;
 import com.google.aggregate.adtech.worker.jobclient.aws.AwsJobHandlerModule.DdbEndpointOverrideBinding;
 import com.google.aggregate.adtech.worker.jobclient.aws.AwsJobHandlerModule.SqsEndpointOverrideBinding;
 import com.google.aggregate.adtech.worker.jobclient.local.LocalFileJobHandlerModule.LocalFileJobHandlerPath;
@@ -108,6 +131,7 @@ import com.google.aggregate.adtech.worker.jobclient.local.LocalFileJobHandlerMod
 import com.google.aggregate.adtech.worker.jobclient.local.LocalFileJobHandlerModule.LocalFileJobParameters;
 import com.google.aggregate.adtech.worker.lifecycleclient.aws.AwsLifecycleModule.AutoScalingEndpointOverrideBinding;
 import com.google.scp.operator.cpio.metricclient.aws.AwsMetricModule.CloudwatchEndpointOverrideBinding;
+import com.google.scp.shared.clients.configclient.Annotations.ApplicationRegionBinding;
 import com.google.scp.shared.clients.configclient.Annotations.ApplicationRegionBindingOverride;
 import com.google.scp.shared.clients.configclient.aws.AwsClientConfigModule.AwsCredentialAccessKey;
 import com.google.scp.shared.clients.configclient.aws.AwsClientConfigModule.AwsCredentialSecretKey;
@@ -122,16 +146,25 @@ import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.Optional;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ForkJoinPool;
 import java.util.function.Supplier;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.http.SdkHttpClient;
 import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.regions.internal.util.EC2MetadataUtils;
+import software.amazon.awssdk.services.kms.KmsClient;
+import software.amazon.awssdk.services.kms.KmsClientBuilder;
 
 public final class AggregationWorkerModule extends AbstractModule {
 
+  // Subdirectory of the result working directory holding aggregation checkpoints.
+  private static final String CHECKPOINT_DIRECTORY = "aggregation_checkpoints";
+  private static final String FLIGHT_RECORDING_DIRECTORY = "flight_recordings";
+
   private final AggregationWorkerArgs args;
 
   public AggregationWorkerModule(AggregationWorkerArgs args) {
@@ -178,7 +211,15 @@ public final class AggregationWorkerModule extends AbstractModule {
       case LOCAL_FS_CLIENT:
         bind(FileSystem.class).toInstance(FileSystems.getDefault());
     }
-    install(args.getBlobStorageClientSelector().getBlobStorageClientSelectorModule());
+    if (args.getBlobStorageClientSelector() == BlobStorageClientSelector.LOCAL_FS_CLIENT
+        && !args.getBlobStorageLatencyProfile().isBlank()) {
+      install(
+          new LatencyInjectingBlobStorageClientModule(
+              BlobStorageLatencyProfile.fromFile(Path.of(args.getBlobStorageLatencyProfile())),
+              /* listSingleBlob= */ false));
+    } else {
+      install(args.getBlobStorageClientSelector().getBlobStorageClientSelectorModule());
+    }
     // Binding/installing puller-specific classes and objects, mainly based on the CLI arguments.
     // Ideally this would happen in the relevant modules, but since they cannot have access to the
     // CLI args, it is done here.
@@ -311,6 +352,123 @@ public final class AggregationWorkerModule extends AbstractModule {
 
     // Dependency for the aggregation processor.
     bind(JobProcessor.class).to(ConcurrentAggregationProcessor.class);
+    if (args.isJobPreflightAdmissionEnabled()) {
+      OptionalBinder.newOptionalBinder(binder(), JobCostEstimator.class)
+          .setBinding()
+          .to(InputSizeJobCostEstimator.class);
+    }
+    if (args.isRejectJobsExceedingMemoryEstimate()) {
+      OptionalBinder.newOptionalBinder(
+              binder(), Key.get(Boolean.class, RejectJobsExceedingMemoryEstimate.class))
+          .setBinding()
+          .toInstance(true);
+    }
+    if (args.getAggregationCheckpointIntervalSeconds() > 0) {
+      AggregationCheckpointConfig.Builder checkpointConfig =
+          AggregationCheckpointConfig.builder()
+              .setInterval(Duration.ofSeconds(args.getAggregationCheckpointIntervalSeconds()))
+              .setLocalDirectory(
+                  Paths.get(args.getResultWorkingDirectoryPathString(), CHECKPOINT_DIRECTORY));
+      if (!args.getAggregationCheckpointBucket().isEmpty()) {
+        checkpointConfig.setBucket(args.getAggregationCheckpointBucket());
+      }
+      OptionalBinder.newOptionalBinder(binder(), AggregationCheckpointConfig.class)
+          .setBinding()
+          .toInstance(checkpointConfig.build());
+    }
+    if (args.getShardReadStallTimeoutSeconds() > 0) {
+      OptionalBinder.newOptionalBinder(
+              binder(), Key.get(Duration.class, ShardReadStallTimeout.class))
+          .setBinding()
+          .toInstance(Duration.ofSeconds(args.getShardReadStallTimeoutSeconds()));
+    }
+    if (args.getDecryptionKeyPrefetchReportsPerShard() > 0) {
+      OptionalBinder.newOptionalBinder(
+              binder(), Key.get(Integer.class, DecryptionKeyPrefetchReportsPerShard.class))
+          .setBinding()
+          .toInstance(args.getDecryptionKeyPrefetchReportsPerShard());
+    }
+    if (args.getInputSampleValidationReportsPerShard() > 0) {
+      OptionalBinder.newOptionalBinder(
+              binder(), Key.get(Integer.class, InputSampleValidationReportsPerShard.class))
+          .setBinding()
+          .toInstance(args.getInputSampleValidationReportsPerShard());
+    }
+    if (args.getOpenWindowPollIntervalSeconds() > 0) {
+      OptionalBinder.newOptionalBinder(
+              binder(), Key.get(Duration.class, OpenWindowPollInterval.class))
+          .setBinding()
+          .toInstance(Duration.ofSeconds(args.getOpenWindowPollIntervalSeconds()));
+    }
+    if (args.getThreadConfinedAggregationMaxBuckets() > 0) {
+      OptionalBinder.newOptionalBinder(
+              binder(), Key.get(Integer.class, ThreadConfinedAggregationMaxBuckets.class))
+          .setBinding()
+          .toInstance(args.getThreadConfinedAggregationMaxBuckets());
+    }
+    if (args.isSortedDomainMergeJoinDisabled()) {
+      OptionalBinder.newOptionalBinder(
+              binder(), Key.get(Boolean.class, DisableSortedDomainMergeJoin.class))
+          .setBinding()
+          .toInstance(true);
+    }
+    if (args.isStopReportValidationAtFirstError()) {
+      OptionalBinder.newOptionalBinder(
+              binder(), Key.get(Boolean.class, StopReportValidationAtFirstError.class))
+          .setBinding()
+          .toInstance(true);
+    }
+    if (args.getJobFlightRecordingMaxSizeMb() > 0) {
+      OptionalBinder.newOptionalBinder(binder(), JobFlightRecordingConfig.class)
+          .setBinding()
+          .toInstance(
+              JobFlightRecordingConfig.builder()
+                  .setMaxSizeBytes(args.getJobFlightRecordingMaxSizeMb() * 1024 * 1024)
+                  .setLocalDirectory(
+                      Paths.get(
+                          args.getResultWorkingDirectoryPathString(), FLIGHT_RECORDING_DIRECTORY))
+                  .build());
+    }
+    // The attested key seals both the sub-tasks of distributed jobs and the checkpoint copies.
+    if (!args.getDistributedAggregationKmsKeyArn().isEmpty()) {
+      OptionalBinder.newOptionalBinder(
+              binder(), Key.get(Aead.class, DistributedAggregationKeyAead.class))
+          .setBinding()
+          .to(AwsKmsAead.class);
+    }
+    if (args.getDistributedAggregationShardsPerSubtask() > 0
+        && !args.getDistributedAggregationBucket().isEmpty()
+        && !args.getDistributedAggregationKmsKeyArn().isEmpty()) {
+      OptionalBinder.newOptionalBinder(binder(), DistributedAggregationConfig.class)
+          .setBinding()
+          .toInstance(
+              DistributedAggregationConfig.builder()
+                  .setShardsPerSubtask(args.getDistributedAggregationShardsPerSubtask())
+                  .setWorkBucket(args.getDistributedAggregationBucket())
+                  .setPartitionCount(args.getDistributedAggregationPartitions())
+                  .setSubtaskTimeout(
+                      Duration.ofSeconds(args.getDistributedAggregationSubtaskTimeoutSeconds()))
+                  .build());
+      // Jobs pulled from a local file can't be split, since there is no queue to put sub-tasks on.
+      if (args.getJobClient() != JobClientSelector.LOCAL_FILE) {
+        OptionalBinder.newOptionalBinder(binder(), SubtaskDispatcher.class)
+            .setBinding()
+            .to(JobQueueSubtaskDispatcher.class);
+      }
+    }
+    if (args.isWorkerWarmUpEnabled()) {
+      OptionalBinder.newOptionalBinder(binder(), WorkerWarmup.class)
+          .setBinding()
+          .to(SyntheticJobWorkerWarmup.class);
+      bind(new TypeLiteral<ImmutableList<String>>() {})
+          .annotatedWith(WarmUpDecryptionKeyIds.class)
+          .toInstance(
+              ImmutableList.copyOf(
+                  Splitter.on(',')
+                      .trimResults()
+                      .omitEmptyStrings()
+                      .split(args.getWorkerWarmUpDecryptionKeyIds())));
+    }
 
     // Noising module.
     install(args.getNoisingSelector().getNoisingModule());
@@ -481,6 +639,9 @@ public final class AggregationWorkerModule extends AbstractModule {
     if (!Strings.isNullOrEmpty(args.getFilteringIds())) {
       jobParametersBuilder.put(JobUtils.JOB_PARAM_FILTERING_IDS, args.getFilteringIds());
     }
+    if (!Strings.isNullOrEmpty(args.getFilteringIdSets())) {
+      jobParametersBuilder.put(JobUtils.JOB_PARAM_FILTERING_ID_SETS, args.getFilteringIdSets());
+    }
     return jobParametersBuilder::build;
   }
 
@@ -507,6 +668,34 @@ public final class AggregationWorkerModule extends AbstractModule {
     return MoreExecutors.listeningDecorator(new ForkJoinPool(args.getNonBlockingThreadPoolSize()));
   }
 
+  /**
+   * Provides the AEAD that seals the sub-tasks of distributed jobs. Its data keys are wrapped with
+   * the KMS key and unwrapped with the attestation document of the enclave.
+   */
+  @Provides
+  @Singleton
+  AwsKmsAead provideDistributedAggregationKmsAead(
+      AwsCredentialsProvider credentialsProvider,
+      SdkHttpClient httpClient,
+      @ApplicationRegionBinding String region) {
+    KmsClientBuilder kmsClientBuilder =
+        KmsClient.builder()
+            .credentialsProvider(credentialsProvider)
+            .httpClient(httpClient)
+            .region(Region.of(region));
+    if (!args.getKmsEndpointOverride().toString().isEmpty()) {
+      kmsClientBuilder.endpointOverride(args.getKmsEndpointOverride());
+    }
+    return new AwsKmsAead(
+        kmsClientBuilder.build(),
+        args.getDistributedAggregationKmsKeyArn(),
+        new KmsToolEnclaveCliDecrypter(
+            Paths.get(args.getDistributedAggregationKmsToolPath()),
+            region,
+            args.getDistributedAggregationKmsProxyPort(),
+            credentialsProvider));
+  }
+
   @Provides
   @InstanceId
   String provideInstanceID() {
@@ -108,7 +108,14 @@ public enum AggregationWorkerReturnCode {
    * required to aggregate this version reports. This error is not transient and the job cannot be
    * retried.
    */
-  UNSUPPORTED_REPORT_VERSION;
+  UNSUPPORTED_REPORT_VERSION,
+
+  /**
+   * Aggregation Job was not processed because it is estimated to need more memory than the worker
+   * instance has, even in reduced memory mode. No privacy budget was consumed. The job can be
+   * retried after splitting it into smaller batches or on an instance with more memory.
+   */
+  INSUFFICIENT_WORKER_MEMORY;
 
   /**
    * Convert the parameter failure code into the equivalent code for debug mode. Namely for privacy
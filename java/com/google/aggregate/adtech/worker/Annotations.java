@@ -141,5 +141,80 @@ public final class Annotations {
   @Retention(RUNTIME)
   public @interface InstanceId {}
 
+  /** Annotation for the time a read of an input shard may block before the shard is reopened. */
+  @BindingAnnotation
+  @Target({FIELD, PARAMETER, METHOD})
+  @Retention(RUNTIME)
+  public @interface ShardReadStallTimeout {}
+
+  /**
+   * Annotation for the number of reports read from the start of each input shard to find the
+   * decryption keys to fetch before the reports are decrypted.
+   */
+  @BindingAnnotation
+  @Target({FIELD, PARAMETER, METHOD})
+  @Retention(RUNTIME)
+  public @interface DecryptionKeyPrefetchReportsPerShard {}
+
+  /**
+   * Annotation for the number of reports read from the start of each input shard to validate a
+   * sample of the reports before the job is aggregated.
+   */
+  @BindingAnnotation
+  @Target({FIELD, PARAMETER, METHOD})
+  @Retention(RUNTIME)
+  public @interface InputSampleValidationReportsPerShard {}
+
+  /**
+   * Annotation for the maximum number of distinct buckets summed on the thread aggregating a batch
+   * of reports before the sums are added to the shared aggregation.
+   */
+  @BindingAnnotation
+  @Target({FIELD, PARAMETER, METHOD})
+  @Retention(RUNTIME)
+  public @interface ThreadConfinedAggregationMaxBuckets {}
+
+  /** Annotation for the time between two listings of the input prefix of an open window job. */
+  @BindingAnnotation
+  @Target({FIELD, PARAMETER, METHOD})
+  @Retention(RUNTIME)
+  public @interface OpenWindowPollInterval {}
+
+  /** Annotation for skipping the remaining validations of a report after its first error. */
+  @BindingAnnotation
+  @Target({FIELD, PARAMETER, METHOD})
+  @Retention(RUNTIME)
+  public @interface StopReportValidationAtFirstError {}
+
+  /**
+   * Annotation for completing jobs estimated to exceed the heap with INSUFFICIENT_WORKER_MEMORY
+   * instead of releasing them back to the job queue.
+   */
+  @BindingAnnotation
+  @Target({FIELD, PARAMETER, METHOD})
+  @Retention(RUNTIME)
+  public @interface RejectJobsExceedingMemoryEstimate {}
+
+  /** Annotation for always conflating the output domain through per-key lookups. */
+  @BindingAnnotation
+  @Target({FIELD, PARAMETER, METHOD})
+  @Retention(RUNTIME)
+  public @interface DisableSortedDomainMergeJoin {}
+
+  /**
+   * Annotation for the AEAD that seals the sub-tasks of distributed jobs. Its key must only be
+   * usable by workers running in the trusted execution environment.
+   */
+  @BindingAnnotation
+  @Target({FIELD, PARAMETER, METHOD})
+  @Retention(RUNTIME)
+  public @interface DistributedAggregationKeyAead {}
+
+  /** Annotation for the decryption key IDs fetched before the worker pulls its first job. */
+  @BindingAnnotation
+  @Target({FIELD, PARAMETER, METHOD})
+  @Retention(RUNTIME)
+  public @interface WarmUpDecryptionKeyIds {}
+
   private Annotations() {}
 }
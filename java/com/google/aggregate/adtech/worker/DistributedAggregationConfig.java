@@ -0,0 +1,73 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker;
+
+import com.google.auto.value.AutoValue;
+import java.time.Duration;
+
+/**
+ * Configuration for running jobs with many input shards across several workers. The worker that
+ * pulls such a job coordinates it: it dispatches sub-tasks that aggregate subsets of the input
+ * shards on peer workers, merges their partial aggregates and noises the results and consumes the
+ * privacy budget once.
+ *
+ * <p>Distributed aggregation is enabled by binding an instance of this class along with a {@code
+ * SubtaskDispatcher}. Every worker that may process sub-tasks needs the same configuration.
+ */
+@AutoValue
+public abstract class DistributedAggregationConfig {
+
+  public static Builder builder() {
+    return new AutoValue_DistributedAggregationConfig.Builder();
+  }
+
+  /**
+   * Number of input shards aggregated by each sub-task. Jobs with at most this many input shards
+   * are not distributed.
+   */
+  public abstract int shardsPerSubtask();
+
+  /**
+   * Operator bucket the sub-task manifests and partial aggregates are written to. Partial
+   * aggregates are not noised, so the bucket must not be readable by ad-techs. Workers don't delete
+   * them; a lifecycle rule on the bucket should expire them.
+   */
+  public abstract String workBucket();
+
+  /** Number of key ranges the partial aggregates are split into, so that they merge in parallel. */
+  public abstract int partitionCount();
+
+  /**
+   * Time the coordinator waits for the sub-tasks of a job. Sub-tasks that haven't finished by then
+   * are aggregated by the coordinator itself.
+   */
+  public abstract Duration subtaskTimeout();
+
+  @AutoValue.Builder
+  public abstract static class Builder {
+
+    public abstract Builder setShardsPerSubtask(int shardsPerSubtask);
+
+    public abstract Builder setWorkBucket(String workBucket);
+
+    public abstract Builder setPartitionCount(int partitionCount);
+
+    public abstract Builder setSubtaskTimeout(Duration subtaskTimeout);
+
+    public abstract DistributedAggregationConfig build();
+  }
+}
@@ -84,6 +84,23 @@ public final class ErrorSummaryAggregator {
     totalErrorCounts.getAndAdd(1L);
   }
 
+  /**
+   * Adds the counts of an error summary created by an earlier attempt of the same job, e.g. when
+   * resuming the job from a checkpoint.
+   */
+  public void restore(ErrorSummary errorSummary) {
+    for (ErrorCount errorCount : errorSummary.getErrorCountsList()) {
+      if (errorCount.getCategory().equals(NUM_REPORTS_WITH_ERRORS.name())) {
+        totalErrorCounts.getAndAdd(errorCount.getCount());
+      } else {
+        errorMap
+            .computeIfAbsent(
+                ErrorCounter.valueOf(errorCount.getCategory()), p -> new AtomicLong(0L))
+            .getAndAdd(errorCount.getCount());
+      }
+    }
+  }
+
   /** Finds if the error counts have exceeded the set threshold. */
   public boolean countsAboveThreshold() {
     return errorThresholdValue.isPresent() && (totalErrorCounts.get() > errorThresholdValue.get());
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker;
+
+import static com.google.aggregate.adtech.worker.shared.model.BackendModelUtil.toJobKeyString;
+
+import com.google.aggregate.adtech.worker.JobCostEstimator.JobCostEstimationException;
+import com.google.aggregate.adtech.worker.jobclient.model.Job;
+import com.google.aggregate.adtech.worker.model.JobCostEstimate;
+import com.google.auto.value.AutoValue;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.privacysandbox.otel.OTelConfiguration;
+import io.opentelemetry.api.logs.Severity;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import javax.inject.Inject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decides, before a job is processed, whether it fits in the heap of this worker.
+ *
+ * <p>Jobs are accepted unless a {@link JobCostEstimator} is bound. Otherwise the estimate is
+ * published, and jobs predicted to exceed the heap are switched to the reduced memory execution
+ * mode of the {@link JobProcessor} or rejected if that is not enough. Jobs are accepted when the
+ * estimate cannot be computed, so a failing estimator never blocks processing.
+ */
+public final class JobAdmissionController {
+
+  private static final Logger logger = LoggerFactory.getLogger(JobAdmissionController.class);
+
+  // Share of the maximum heap a job is allowed to use, leaving room for the rest of the worker
+  // and for estimation error.
+  private static final double HEAP_BUDGET_FRACTION = 0.8;
+  private static final long BYTES_PER_MIB = 1024 * 1024;
+
+  private final Optional<JobCostEstimator> jobCostEstimator;
+  private final OTelConfiguration oTelConfiguration;
+  private final LongSupplier maxHeapBytes;
+  private final AtomicReference<JobCostEstimate> lastEstimate = new AtomicReference<>();
+  private final AtomicBoolean gaugesCreated = new AtomicBoolean();
+
+  @Inject
+  JobAdmissionController(
+      Optional<JobCostEstimator> jobCostEstimator, OTelConfiguration oTelConfiguration) {
+    this(jobCostEstimator, oTelConfiguration, Runtime.getRuntime()::maxMemory);
+  }
+
+  @VisibleForTesting
+  JobAdmissionController(
+      Optional<JobCostEstimator> jobCostEstimator,
+      OTelConfiguration oTelConfiguration,
+      LongSupplier maxHeapBytes) {
+    this.jobCostEstimator = jobCostEstimator;
+    this.oTelConfiguration = oTelConfiguration;
+    this.maxHeapBytes = maxHeapBytes;
+  }
+
+  /** Estimates the cost of the job and decides how it should be processed. */
+  public JobAdmission admit(Job job) {
+    if (jobCostEstimator.isEmpty()) {
+      return JobAdmission.create(Decision.ACCEPT, "Job cost estimation is disabled.");
+    }
+
+    String jobId = toJobKeyString(job.jobKey());
+    JobCostEstimate estimate;
+    try {
+      estimate = jobCostEstimator.get().estimate(job);
+    } catch (JobCostEstimationException | RuntimeException e) {
+      logger.warn(String.format("Could not estimate the cost of job %s, accepting it.", jobId), e);
+      return JobAdmission.create(Decision.ACCEPT, "Job cost could not be estimated.");
+    }
+    publish(jobId, estimate);
+
+    long heapBudgetBytes = (long) (maxHeapBytes.getAsLong() * HEAP_BUDGET_FRACTION);
+    if (estimate.estimatedPeakHeapBytes() <= heapBudgetBytes) {
+      return JobAdmission.create(Decision.ACCEPT, "Job is estimated to fit in the heap.");
+    }
+    if (estimate.estimatedReducedMemoryPeakHeapBytes().isPresent()
+        && estimate.estimatedReducedMemoryPeakHeapBytes().get() <= heapBudgetBytes) {
+      logger.info(String.format("Processing job %s in reduced memory mode.", jobId));
+      return JobAdmission.create(
+          Decision.ACCEPT_REDUCED_MEMORY,
+          "Job is estimated to fit in the heap only in reduced memory mode.");
+    }
+    return JobAdmission.create(
+        Decision.REJECT,
+        String.format(
+            "Job is estimated to need %d MiB of heap for about %d reports and %d distinct keys, but"
+                + " the worker allows %d MiB. Split the job into smaller batches or run it on an"
+                + " instance with more memory.",
+            estimate
+                    .estimatedReducedMemoryPeakHeapBytes()
+                    .orElse(estimate.estimatedPeakHeapBytes())
+                / BYTES_PER_MIB,
+            estimate.estimatedReportCount(),
+            estimate.estimatedDistinctKeys(),
+            heapBudgetBytes / BYTES_PER_MIB));
+  }
+
+  private void publish(String jobId, JobCostEstimate estimate) {
+    lastEstimate.set(estimate);
+    if (gaugesCreated.compareAndSet(false, true)) {
+      oTelConfiguration.createProdGauge(
+          "job_estimated_peak_heap",
+          "MiB",
+          () -> (double) lastEstimate.get().estimatedPeakHeapBytes() / BYTES_PER_MIB);
+      oTelConfiguration.createProdGauge(
+          "job_estimated_report_count",
+          "1",
+          () -> (double) lastEstimate.get().estimatedReportCount());
+      oTelConfiguration.createProdGauge(
+          "job_estimated_distinct_keys",
+          "1",
+          () -> (double) lastEstimate.get().estimatedDistinctKeys());
+    }
+    String message =
+        String.format(
+            "Job %s cost estimate: %d input shards (%d bytes), ~%d reports, %d domain shards (%d"
+                + " bytes), ~%d distinct keys, peak heap ~%d MiB",
+            jobId,
+            estimate.inputShardCount(),
+            estimate.inputBytes(),
+            estimate.estimatedReportCount(),
+            estimate.domainShardCount(),
+            estimate.domainBytes(),
+            estimate.estimatedDistinctKeys(),
+            estimate.estimatedPeakHeapBytes() / BYTES_PER_MIB);
+    logger.info(message);
+    oTelConfiguration.writeProdLog(message, Severity.INFO);
+  }
+
+  /** How a job should be processed. */
+  public enum Decision {
+    /** Process the job normally. */
+    ACCEPT,
+    /** Process the job with {@link JobProcessor#processWithReducedMemory}. */
+    ACCEPT_REDUCED_MEMORY,
+    /** Do not process the job on this worker. */
+    REJECT
+  }
+
+  /** Admission decision for a job along with a human readable reason. */
+  @AutoValue
+  public abstract static class JobAdmission {
+
+    public abstract Decision decision();
+
+    public abstract String message();
+
+    static JobAdmission create(Decision decision, String message) {
+      return new AutoValue_JobAdmissionController_JobAdmission(decision, message);
+    }
+  }
+}
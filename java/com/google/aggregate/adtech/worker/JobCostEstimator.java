@@ -0,0 +1,39 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker;
+
+import com.google.aggregate.adtech.worker.jobclient.model.Job;
+import com.google.aggregate.adtech.worker.model.JobCostEstimate;
+
+/** Predicts the resources a job needs before it is processed. */
+public interface JobCostEstimator {
+
+  /**
+   * Estimates the cost of the job from its input metadata.
+   *
+   * @throws JobCostEstimationException if the input could not be inspected.
+   */
+  JobCostEstimate estimate(Job job) throws JobCostEstimationException;
+
+  /** Thrown when the cost of a job cannot be estimated. */
+  final class JobCostEstimationException extends Exception {
+
+    public JobCostEstimationException(Throwable cause) {
+      super(cause);
+    }
+  }
+}
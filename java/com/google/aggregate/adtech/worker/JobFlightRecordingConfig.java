@@ -0,0 +1,50 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker;
+
+import com.google.auto.value.AutoValue;
+import java.nio.file.Path;
+
+/**
+ * Configuration for recording debug runs with Java Flight Recorder. The recording of a job is
+ * uploaded next to its debug summary reports.
+ *
+ * <p>Recording is enabled by binding an instance of this class.
+ */
+@AutoValue
+public abstract class JobFlightRecordingConfig {
+
+  public static Builder builder() {
+    return new AutoValue_JobFlightRecordingConfig.Builder();
+  }
+
+  /** Size above which the oldest events of a recording are dropped. */
+  public abstract long maxSizeBytes();
+
+  /** Local directory the recordings are written to before they are uploaded. */
+  public abstract Path localDirectory();
+
+  @AutoValue.Builder
+  public abstract static class Builder {
+
+    public abstract Builder setMaxSizeBytes(long maxSizeBytes);
+
+    public abstract Builder setLocalDirectory(Path localDirectory);
+
+    public abstract JobFlightRecordingConfig build();
+  }
+}
@@ -26,4 +26,13 @@ public interface JobProcessor {
 
   JobResult process(Job Job)
       throws ExecutionException, InterruptedException, AggregationJobProcessException;
+
+  /**
+   * Processes the job in a mode that lowers peak heap usage at the cost of throughput. Processors
+   * without such a mode process the job normally.
+   */
+  default JobResult processWithReducedMemory(Job job)
+      throws ExecutionException, InterruptedException, AggregationJobProcessException {
+    return process(job);
+  }
 }
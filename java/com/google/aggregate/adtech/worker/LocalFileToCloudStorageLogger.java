@@ -35,6 +35,9 @@ import com.google.aggregate.adtech.worker.util.OutputShardFileHelper;
 import com.google.aggregate.adtech.worker.writer.LocalResultFileWriter;
 import com.google.aggregate.adtech.worker.writer.PrivacyBudgetExhaustedInfoWriter.FileWriteException;
 import com.google.aggregate.adtech.worker.writer.json.LocalPrivacyBudgetExhaustedInfoWriter;
+import com.google.aggregate.perf.PipelineEvents.UploadEvent;
+import com.google.aggregate.perf.PipelineStage;
+import com.google.aggregate.perf.StageMetricsRegistry;
 import com.google.aggregate.privacy.noise.model.SummaryReportAvro;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.Futures;
@@ -72,6 +75,7 @@ public final class LocalFileToCloudStorageLogger implements ResultLogger {
   private final Path workingDirectory;
   private final ListeningExecutorService blockingThreadPool;
   private final LocalPrivacyBudgetExhaustedInfoWriter localPrivacyBudgetExhaustedInfoWriter;
+  private final StageMetricsRegistry stageMetrics;
   public static final String AVRO_EXTENSION = ".avro";
 
   @Inject
@@ -82,7 +86,8 @@ public final class LocalFileToCloudStorageLogger implements ResultLogger {
       @BlockingThreadPool ListeningExecutorService blockingThreadPool,
       BlobStorageClient blobStorageClient,
       @ResultWorkingDirectory Path workingDirectory,
-      @EnableParallelSummaryUpload boolean enableParallelUpload) {
+      @EnableParallelSummaryUpload boolean enableParallelUpload,
+      StageMetricsRegistry stageMetrics) {
     this.localResultFileWriter = localResultFileWriter;
     this.localDebugResultFileWriter = localDebugResultFileWriter;
     this.blobStorageClient = blobStorageClient;
@@ -94,45 +99,68 @@ public final class LocalFileToCloudStorageLogger implements ResultLogger {
           MoreExecutors.listeningDecorator(Executors.newSingleThreadExecutor());
     }
     this.localPrivacyBudgetExhaustedInfoWriter = localPrivacyBudgetExhaustedInfoWriter;
+    this.stageMetrics = stageMetrics;
   }
 
   @Override
   public void logResultsAvros(
       ImmutableList<SummaryReportAvro> summaryReportAvros, Job ctx, boolean isDebugRun)
       throws ResultLogException {
+    awaitFileLogResults(Futures.allAsList(writeFilesBytes(summaryReportAvros, ctx, isDebugRun)));
+  }
+
+  /**
+   * Writes and uploads the summary and debug summary reports of a debug run together, so that the
+   * uploads of both outputs share the blocking thread pool instead of running one after the other.
+   */
+  @Override
+  public void logSummaryAndDebugResultsAvros(
+      ImmutableList<SummaryReportAvro> summaryReportAvros,
+      ImmutableList<SummaryReportAvro> debugSummaryReportAvros,
+      Job ctx)
+      throws ResultLogException {
+    awaitFileLogResults(
+        Futures.allAsList(
+            ImmutableList.<ListenableFuture<Void>>builder()
+                .addAll(writeFilesBytes(debugSummaryReportAvros, ctx, /* isDebugRun= */ true))
+                .addAll(writeFilesBytes(summaryReportAvros, ctx, /* isDebugRun= */ false))
+                .build()));
+  }
+
+  private ImmutableList<ListenableFuture<Void>> writeFilesBytes(
+      ImmutableList<SummaryReportAvro> summaryReportAvros, Job ctx, boolean isDebugRun) {
     String fileExtension =
         isDebugRun
             ? localDebugResultFileWriter.getFileExtension()
             : localResultFileWriter.getFileExtension();
     int totalShards = summaryReportAvros.size();
 
-    ListenableFuture<List<Void>> fileLogResults =
-        Futures.allAsList(
-            summaryReportAvros.stream()
-                .map(
-                    summaryReportAvro -> {
-                      String localFileName =
-                          isDebugRun
-                              ? getLocalDebugFileName(
-                                  ctx, summaryReportAvro.shardId(), fileExtension)
-                              : getLocalFileName(ctx, summaryReportAvro.shardId(), fileExtension);
-                      Path localResultsFilePath =
-                          workingDirectory
-                              .getFileSystem()
-                              .getPath(
-                                  Paths.get(workingDirectory.toString(), localFileName).toString());
-
-                      return writeFileBytes(
-                          summaryReportAvro.reportBytes(),
-                          ctx,
-                          localResultsFilePath,
-                          isDebugRun ? localDebugResultFileWriter : localResultFileWriter,
-                          isDebugRun,
-                          summaryReportAvro.shardId(),
-                          totalShards);
-                    })
-                .collect(ImmutableList.toImmutableList()));
+    return summaryReportAvros.stream()
+        .map(
+            summaryReportAvro -> {
+              String localFileName =
+                  isDebugRun
+                      ? getLocalDebugFileName(ctx, summaryReportAvro.shardId(), fileExtension)
+                      : getLocalFileName(ctx, summaryReportAvro.shardId(), fileExtension);
+              Path localResultsFilePath =
+                  workingDirectory
+                      .getFileSystem()
+                      .getPath(Paths.get(workingDirectory.toString(), localFileName).toString());
+
+              return writeFileBytes(
+                  summaryReportAvro.reportBytes(),
+                  ctx,
+                  localResultsFilePath,
+                  isDebugRun ? localDebugResultFileWriter : localResultFileWriter,
+                  isDebugRun,
+                  summaryReportAvro.shardId(),
+                  totalShards);
+            })
+        .collect(ImmutableList.toImmutableList());
+  }
 
+  private static void awaitFileLogResults(ListenableFuture<List<Void>> fileLogResults)
+      throws ResultLogException {
     try {
       fileLogResults.get();
     } catch (InterruptedException | CancellationException e) {
@@ -207,13 +235,7 @@ public final class LocalFileToCloudStorageLogger implements ResultLogger {
                     })
                 .collect(ImmutableList.toImmutableList()));
 
-    try {
-      fileLogResults.get();
-    } catch (InterruptedException | CancellationException e) {
-      throw new ResultLogException(e);
-    } catch (ExecutionException e) {
-      throw new ResultLogException(e.getCause());
-    }
+    awaitFileLogResults(fileLogResults);
   }
 
   /*
@@ -275,7 +297,7 @@ public final class LocalFileToCloudStorageLogger implements ResultLogger {
             resultLocation = getDataLocation(outputDataBlobBucket, outputDataBlobPrefix);
           }
 
-          blobStorageClient.putBlob(resultLocation, localFilepath);
+          uploadFile(resultLocation, localFilepath);
           Files.deleteIfExists(localFilepath);
 
           return Futures.immediateVoidFuture();
@@ -310,7 +332,7 @@ public final class LocalFileToCloudStorageLogger implements ResultLogger {
             resultLocation = getDataLocation(outputDataBlobBucket, outputDataBlobPrefix);
           }
 
-          blobStorageClient.putBlob(resultLocation, localFilepath);
+          uploadFile(resultLocation, localFilepath);
           Files.deleteIfExists(localFilepath);
 
           return Futures.immediateVoidFuture();
@@ -318,6 +340,21 @@ public final class LocalFileToCloudStorageLogger implements ResultLogger {
         blockingThreadPool);
   }
 
+  private void uploadFile(DataLocation resultLocation, Path localFilepath)
+      throws BlobStorageClientException {
+    long startNanos = stageMetrics.startNanos();
+    UploadEvent uploadEvent = new UploadEvent();
+    uploadEvent.begin();
+    blobStorageClient.putBlob(resultLocation, localFilepath);
+    stageMetrics.recordSince(PipelineStage.UPLOAD, startNanos);
+    stageMetrics.addItems(PipelineStage.UPLOAD, 1);
+    if (uploadEvent.shouldCommit()) {
+      uploadEvent.setBlob(
+          resultLocation.blobStoreDataLocation().key(), localFilepath.toFile().length());
+      uploadEvent.commit();
+    }
+  }
+
   /**
    * The local file name has a random UUID in it to prevent cases where an item is processed twice
    * by the same worker and clobbers other files being written.
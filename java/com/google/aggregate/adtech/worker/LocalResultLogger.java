@@ -18,6 +18,7 @@ package com.google.aggregate.adtech.worker;
 
 import static com.google.scp.operator.cpio.blobstorageclient.BlobStorageClient.getDataLocation;
 
+import com.google.aggregate.adtech.worker.Annotations.BlockingThreadPool;
 import com.google.aggregate.adtech.worker.Annotations.DebugWriter;
 import com.google.aggregate.adtech.worker.Annotations.ResultWriter;
 import com.google.aggregate.adtech.worker.LibraryAnnotations.LocalOutputDirectory;
@@ -30,6 +31,9 @@ import com.google.aggregate.adtech.worker.writer.PrivacyBudgetExhaustedInfoWrite
 import com.google.aggregate.adtech.worker.writer.json.LocalPrivacyBudgetExhaustedInfoWriter;
 import com.google.aggregate.privacy.noise.model.SummaryReportAvro;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.inject.Inject;
 import com.google.scp.operator.cpio.blobstorageclient.model.DataLocation;
 import com.google.aggregate.adtech.worker.jobclient.model.Job;
@@ -37,6 +41,9 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 import java.util.stream.Stream;
 
 final class LocalResultLogger implements ResultLogger {
@@ -45,17 +52,20 @@ final class LocalResultLogger implements ResultLogger {
   private final LocalResultFileWriter localDebugResultFileWriter;
   private final LocalPrivacyBudgetExhaustedInfoWriter localPrivacyBudgetExhaustedInfoWriter;
   private final Path workingDirectory;
+  private final ListeningExecutorService blockingThreadPool;
 
   @Inject
   public LocalResultLogger(
       @ResultWriter LocalResultFileWriter localResultFileWriter,
       @DebugWriter LocalResultFileWriter localDebugFileWriter,
       LocalPrivacyBudgetExhaustedInfoWriter localPrivacyBudgetExhaustedInfoWriter,
-      @LocalOutputDirectory Path localOutputDirectory) {
+      @LocalOutputDirectory Path localOutputDirectory,
+      @BlockingThreadPool ListeningExecutorService blockingThreadPool) {
     this.localResultFileWriter = localResultFileWriter;
     this.localDebugResultFileWriter = localDebugFileWriter;
     this.localPrivacyBudgetExhaustedInfoWriter = localPrivacyBudgetExhaustedInfoWriter;
     this.workingDirectory = localOutputDirectory;
+    this.blockingThreadPool = blockingThreadPool;
   }
 
   @Override
@@ -73,27 +83,25 @@ final class LocalResultLogger implements ResultLogger {
         isDebugRun ? localDebugResultFileWriter : localResultFileWriter);
   }
 
+  /** Writes the shards in parallel on the blocking thread pool. */
   @Override
   public void logResultsAvros(
       ImmutableList<SummaryReportAvro> summaryReportAvros, Job ctx, boolean isDebugRun) {
+    awaitFileWrites(Futures.allAsList(writeFilesBytes(summaryReportAvros, ctx, isDebugRun)));
+  }
 
-    summaryReportAvros.forEach(
-        summaryReportAvro -> {
-          String localFileName =
-              isDebugRun
-                  ? getLocalDebugFilename(ctx, summaryReportAvro.shardId())
-                  : getLocalFilename(ctx, summaryReportAvro.shardId());
-          Path localResultsFilePath =
-              workingDirectory
-                  .getFileSystem()
-                  .getPath(Paths.get(workingDirectory.toString(), localFileName).toString());
-
-          writeFileBytes(
-              summaryReportAvro.reportBytes(),
-              ctx,
-              localResultsFilePath,
-              isDebugRun ? localDebugResultFileWriter : localResultFileWriter);
-        });
+  /** Writes the shards of the summary and debug summary reports together in parallel. */
+  @Override
+  public void logSummaryAndDebugResultsAvros(
+      ImmutableList<SummaryReportAvro> summaryReportAvros,
+      ImmutableList<SummaryReportAvro> debugSummaryReportAvros,
+      Job ctx) {
+    awaitFileWrites(
+        Futures.allAsList(
+            ImmutableList.<ListenableFuture<Void>>builder()
+                .addAll(writeFilesBytes(debugSummaryReportAvros, ctx, /* isDebugRun= */ true))
+                .addAll(writeFilesBytes(summaryReportAvros, ctx, /* isDebugRun= */ false))
+                .build()));
   }
 
   @Override
@@ -110,6 +118,42 @@ final class LocalResultLogger implements ResultLogger {
     }
   }
 
+  private ImmutableList<ListenableFuture<Void>> writeFilesBytes(
+      ImmutableList<SummaryReportAvro> summaryReportAvros, Job ctx, boolean isDebugRun) {
+    return summaryReportAvros.stream()
+        .map(
+            summaryReportAvro -> {
+              String localFileName =
+                  isDebugRun
+                      ? getLocalDebugFilename(ctx, summaryReportAvro.shardId())
+                      : getLocalFilename(ctx, summaryReportAvro.shardId());
+              Path localResultsFilePath =
+                  workingDirectory
+                      .getFileSystem()
+                      .getPath(Paths.get(workingDirectory.toString(), localFileName).toString());
+              LocalResultFileWriter writer =
+                  isDebugRun ? localDebugResultFileWriter : localResultFileWriter;
+
+              return Futures.submit(
+                  () ->
+                      writeFileBytes(
+                          summaryReportAvro.reportBytes(), ctx, localResultsFilePath, writer),
+                  blockingThreadPool);
+            })
+        .collect(ImmutableList.toImmutableList());
+  }
+
+  private static void awaitFileWrites(ListenableFuture<List<Void>> fileWrites)
+      throws ResultLogException {
+    try {
+      fileWrites.get();
+    } catch (InterruptedException | CancellationException e) {
+      throw new ResultLogException(e);
+    } catch (ExecutionException e) {
+      throw new ResultLogException(e.getCause());
+    }
+  }
+
   private DataLocation writeFileBytes(
       byte[] avroBytes, Job ctx, Path filePath, LocalResultFileWriter writer) {
     try {
@@ -150,6 +150,14 @@ public class LocalWorkerArgs {
           "Filtering Id to be added in Job Params to filter the labeled payload contributions.")
   private String filteringIds = null;
 
+  @Parameter(
+      names = "--local_job_params_input_filtering_id_sets",
+      description =
+          "Semicolon separated sets of comma separated filtering IDs, e.g. \"1,2;3\", to be"
+              + " added in Job Params. Each set is aggregated in the same pass over the reports"
+              + " and written to its own output file.")
+  private String filteringIdSets = null;
+
   @Parameter(
       names = "--attribution_reporting_debug_api_enabled",
       description = "Flag to enable support for Attribution Reporting Debug API.")
@@ -177,6 +185,38 @@ public class LocalWorkerArgs {
       description = "Flag to enable the logic that skips budget consumption in debug runs.")
   private boolean dontConsumeBudgetInDebugRunEnabled = false;
 
+  @Parameter(
+      names = "--blob_storage_latency_profile",
+      description =
+          "Path to a JSON blob storage latency profile. When set, local files are read and written"
+              + " with the latency, bandwidth and throttling errors of the profile, to benchmark"
+              + " I/O changes repeatably.")
+  private String blobStorageLatencyProfile = "";
+
+  @Parameter(
+      names = "--distributed_work_directory",
+      description =
+          "Directory shared by local workers that aggregate a job together. Holds the queue of"
+              + " sub-tasks and their partial aggregates. Input shards are listed from the input"
+              + " directory instead of reading a single input file. Jobs are aggregated by one"
+              + " worker if empty.")
+  private String distributedWorkDirectory = "";
+
+  @Parameter(
+      names = "--distributed_shards_per_subtask",
+      description =
+          "Number of input shards per sub-task of a job split across local workers. Only used"
+              + " with a distributed work directory.")
+  private int distributedShardsPerSubtask = 1;
+
+  @Parameter(
+      names = "--distributed_peer",
+      description =
+          "Flag to run a worker that aggregates the sub-tasks queued in the distributed work"
+              + " directory, instead of the job of the input file. The worker stops once the queue"
+              + " is empty and a file named 'shutdown' is in the queue directory.")
+  private boolean distributedPeer = false;
+
   public String getInputDataAvroFile() {
     return inputDataAvroFile;
   }
@@ -253,6 +293,10 @@ public class LocalWorkerArgs {
     return filteringIds;
   }
 
+  String getFilteringIdSets() {
+    return filteringIdSets;
+  }
+
   boolean isAttributionReportingDebugApiEnabled() {
     return attributionReportingDebugApiEnabled;
   }
@@ -273,6 +317,22 @@ public class LocalWorkerArgs {
     return dontConsumeBudgetInDebugRunEnabled;
   }
 
+  public String getBlobStorageLatencyProfile() {
+    return blobStorageLatencyProfile;
+  }
+
+  public String getDistributedWorkDirectory() {
+    return distributedWorkDirectory;
+  }
+
+  public int getDistributedShardsPerSubtask() {
+    return distributedShardsPerSubtask;
+  }
+
+  public boolean isDistributedPeer() {
+    return distributedPeer;
+  }
+
   public void validate() {
     if (inputDataAvroFile == null || inputDataAvroFile.isBlank()) {
       throw new ParameterException(
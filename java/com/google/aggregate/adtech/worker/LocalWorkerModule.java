@@ -25,6 +25,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.aggregate.adtech.worker.Annotations.BenchmarkMode;
 import com.google.aggregate.adtech.worker.Annotations.BlockingThreadPool;
 import com.google.aggregate.adtech.worker.Annotations.CustomForkJoinThreadPool;
+import com.google.aggregate.adtech.worker.Annotations.DistributedAggregationKeyAead;
 import com.google.aggregate.adtech.worker.Annotations.DomainOptional;
 import com.google.aggregate.adtech.worker.Annotations.DontConsumeBudgetInDebugRunEnabled;
 import com.google.aggregate.adtech.worker.Annotations.EnableStackTraceInResponse;
@@ -46,9 +47,12 @@ import com.google.aggregate.adtech.worker.configs.PrivacyParametersSupplier.Nois
 import com.google.aggregate.adtech.worker.configs.PrivacyParametersSupplier.NoisingL1Sensitivity;
 import com.google.aggregate.adtech.worker.decryption.DeserializingReportDecrypter;
 import com.google.aggregate.adtech.worker.decryption.RecordDecrypter;
+import com.google.aggregate.adtech.worker.local.BlobStorageLatencyProfile;
+import com.google.aggregate.adtech.worker.local.LatencyInjectingBlobStorageClientModule;
 import com.google.aggregate.adtech.worker.local.LocalBlobStorageClientModule;
 import com.google.aggregate.adtech.worker.model.serdes.PayloadSerdes;
 import com.google.aggregate.adtech.worker.model.serdes.cbor.CborPayloadSerdes;
+import com.google.aggregate.adtech.worker.selector.BlobStorageClientSelector;
 import com.google.aggregate.adtech.worker.util.JobUtils;
 import com.google.aggregate.adtech.worker.validation.SimulationValidationModule;
 import com.google.aggregate.perf.StopwatchExporter;
@@ -64,21 +68,39 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.google.crypto.tink.Aead;
+import com.google.crypto.tink.InsecureSecretKeyAccess;
+import com.google.crypto.tink.KeysetHandle;
+import com.google.crypto.tink.TinkJsonProtoKeysetFormat;
+import com.google.crypto.tink.aead.AeadConfig;
+import com.google.crypto.tink.aead.PredefinedAeadParameters;
 import com.google.inject.AbstractModule;
+import com.google.inject.Key;
 import com.google.inject.Provides;
 import com.google.inject.Singleton;
 import com.google.inject.TypeLiteral;
+import com.google.inject.multibindings.OptionalBinder;
 import com.google.privacysandbox.otel.Annotations.EnableOTelLogs;
 import com.google.privacysandbox.otel.OtlpJsonLoggingOTelConfigurationModule;
+import com.google.aggregate.adtech.worker.jobclient.SubtaskDispatcher;
+import com.google.aggregate.adtech.worker.jobclient.local.LocalDirectoryJobHandlerModule;
+import com.google.aggregate.adtech.worker.jobclient.local.LocalDirectoryJobHandlerModule.LocalJobQueueDirectory;
+import com.google.aggregate.adtech.worker.jobclient.local.LocalDirectorySubtaskDispatcher;
 import com.google.aggregate.adtech.worker.jobclient.local.LocalFileJobHandlerModule;
 import com.google.aggregate.adtech.worker.jobclient.local.LocalFileJobHandlerModule.LocalFileJobHandlerPath;
 import com.google.aggregate.adtech.worker.jobclient.local.LocalFileJobHandlerModule.LocalFileJobHandlerResultPath;
 import com.google.aggregate.adtech.worker.jobclient.local.LocalFileJobHandlerModule.LocalFileJobParameters;
 import com.google.scp.operator.cpio.metricclient.local.LocalMetricModule;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
 import java.util.Optional;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ForkJoinPool;
@@ -86,6 +108,11 @@ import java.util.function.Supplier;
 
 public final class LocalWorkerModule extends AbstractModule {
 
+  private static final String DISTRIBUTED_QUEUE_DIRECTORY = "queue";
+  private static final int DISTRIBUTED_PARTITION_COUNT = 16;
+  private static final Duration DISTRIBUTED_SUBTASK_TIMEOUT = Duration.ofHours(1);
+  private static final String DISTRIBUTED_KEY_FILE = "subtask_key.json";
+
   private final LocalWorkerArgs localWorkerArgs;
 
   public LocalWorkerModule(LocalWorkerArgs localWorkerArgs) {
@@ -103,8 +130,48 @@ public final class LocalWorkerModule extends AbstractModule {
         .to(localWorkerArgs.getDomainFileFormat().getDomainProcessorClass());
 
     bind(FileSystem.class).toInstance(FileSystems.getDefault());
-    install(new LocalFileJobHandlerModule());
-    install(new LocalBlobStorageClientModule());
+    boolean distributed = !localWorkerArgs.getDistributedWorkDirectory().isBlank();
+    if (localWorkerArgs.isDistributedPeer()) {
+      install(new LocalDirectoryJobHandlerModule());
+    } else {
+      install(new LocalFileJobHandlerModule());
+    }
+    // Distributed jobs read a directory of input shards, which only the file system client lists.
+    if (!localWorkerArgs.getBlobStorageLatencyProfile().isBlank()) {
+      install(
+          new LatencyInjectingBlobStorageClientModule(
+              BlobStorageLatencyProfile.fromFile(
+                  Path.of(localWorkerArgs.getBlobStorageLatencyProfile())),
+              /* listSingleBlob= */ !distributed));
+    } else if (distributed) {
+      install(BlobStorageClientSelector.LOCAL_FS_CLIENT.getBlobStorageClientSelectorModule());
+    } else {
+      install(new LocalBlobStorageClientModule());
+    }
+    if (distributed) {
+      Path workDirectory = Path.of(localWorkerArgs.getDistributedWorkDirectory()).toAbsolutePath();
+      bind(Path.class)
+          .annotatedWith(LocalJobQueueDirectory.class)
+          .toInstance(workDirectory.resolve(DISTRIBUTED_QUEUE_DIRECTORY));
+      OptionalBinder.newOptionalBinder(binder(), DistributedAggregationConfig.class)
+          .setBinding()
+          .toInstance(
+              DistributedAggregationConfig.builder()
+                  .setShardsPerSubtask(localWorkerArgs.getDistributedShardsPerSubtask())
+                  .setWorkBucket(workDirectory.toString())
+                  .setPartitionCount(DISTRIBUTED_PARTITION_COUNT)
+                  .setSubtaskTimeout(DISTRIBUTED_SUBTASK_TIMEOUT)
+                  .build());
+      OptionalBinder.newOptionalBinder(
+              binder(), Key.get(Aead.class, DistributedAggregationKeyAead.class))
+          .setBinding()
+          .toInstance(readOrCreateSubtaskKey(workDirectory));
+      if (!localWorkerArgs.isDistributedPeer()) {
+        OptionalBinder.newOptionalBinder(binder(), SubtaskDispatcher.class)
+            .setBinding()
+            .to(LocalDirectorySubtaskDispatcher.class);
+      }
+    }
     install(new SimulationValidationModule());
     install(new LocalMetricModule());
     install(DecryptionModuleSelector.NOOP.getDecryptionModule());
@@ -178,6 +245,42 @@ public final class LocalWorkerModule extends AbstractModule {
         .toInstance(localWorkerArgs.getOutputShardFileSizeBytes());
   }
 
+  /**
+   * Returns the AEAD that seals the sub-tasks of local distributed runs. The local runner doesn't
+   * run in a trusted execution environment, so the key is shared through the work directory. The
+   * first run creates it, and the runs started along with it read it.
+   */
+  private static Aead readOrCreateSubtaskKey(Path workDirectory) {
+    Path keyFile = workDirectory.resolve(DISTRIBUTED_KEY_FILE);
+    try {
+      AeadConfig.register();
+      Files.createDirectories(workDirectory);
+      if (Files.notExists(keyFile)) {
+        Path newKeyFile = Files.createTempFile(workDirectory, DISTRIBUTED_KEY_FILE, ".tmp");
+        Files.writeString(
+            newKeyFile,
+            TinkJsonProtoKeysetFormat.serializeKeyset(
+                KeysetHandle.generateNew(PredefinedAeadParameters.AES256_GCM),
+                InsecureSecretKeyAccess.get()));
+        try {
+          // Linking fails if another run created the key in the meantime.
+          Files.createLink(keyFile, newKeyFile);
+        } catch (FileAlreadyExistsException e) {
+          // The key of the other run is used.
+        } finally {
+          Files.delete(newKeyFile);
+        }
+      }
+      return TinkJsonProtoKeysetFormat.parseKeyset(
+              Files.readString(keyFile), InsecureSecretKeyAccess.get())
+          .getPrimitive(Aead.class);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Failed to create the sub-task key.", e);
+    }
+  }
+
   @Provides
   @SupportedApis
   ImmutableSet<String> providesSupportedApis() {
@@ -212,6 +315,10 @@ public final class LocalWorkerModule extends AbstractModule {
     if (!Strings.isNullOrEmpty(localWorkerArgs.getFilteringIds())) {
       jobParametersBuilder.put(JobUtils.JOB_PARAM_FILTERING_IDS, localWorkerArgs.getFilteringIds());
     }
+    if (!Strings.isNullOrEmpty(localWorkerArgs.getFilteringIdSets())) {
+      jobParametersBuilder.put(
+          JobUtils.JOB_PARAM_FILTERING_ID_SETS, localWorkerArgs.getFilteringIdSets());
+    }
     return () -> (jobParametersBuilder.build());
   }
 
@@ -16,8 +16,7 @@
 
 package com.google.aggregate.adtech.worker;
 
-import static com.google.common.collect.ImmutableList.toImmutableList;
-
+import com.google.aggregate.adtech.worker.Annotations.StopReportValidationAtFirstError;
 import com.google.aggregate.adtech.worker.decryption.DecryptionCipher.PayloadParsingException;
 import com.google.aggregate.adtech.worker.decryption.DecryptionCipherFactory.CipherCreationException;
 import com.google.aggregate.adtech.worker.decryption.RecordDecrypter;
@@ -27,7 +26,10 @@ import com.google.aggregate.adtech.worker.model.EncryptedReport;
 import com.google.aggregate.adtech.worker.model.ErrorCounter;
 import com.google.aggregate.adtech.worker.model.ErrorMessage;
 import com.google.aggregate.adtech.worker.model.Report;
+import com.google.aggregate.adtech.worker.validation.ReportValidationPlan;
 import com.google.aggregate.adtech.worker.validation.ReportValidator;
+import com.google.aggregate.perf.PipelineStage;
+import com.google.aggregate.perf.StageMetricsRegistry;
 import com.google.common.collect.ImmutableList;
 import com.google.scp.operator.cpio.cryptoclient.model.ErrorReason;
 import com.google.aggregate.adtech.worker.jobclient.model.Job;
@@ -42,6 +44,11 @@ public final class ReportDecrypterAndValidator {
 
   private final RecordDecrypter recordDecrypter;
   private final Set<ReportValidator> reportValidators;
+  private final StageMetricsRegistry stageMetrics;
+  private final boolean stopValidationAtFirstError;
+  // Validators bound to the job of the last validated report. The reports of a job are validated
+  // with the same Job instance, so the plan is compiled once per job.
+  private volatile ReportValidationPlan validationPlan;
 
   private static final Logger logger = LoggerFactory.getLogger(ReportDecrypterAndValidator.class);
 
@@ -53,9 +60,14 @@ public final class ReportDecrypterAndValidator {
    */
   @Inject
   public ReportDecrypterAndValidator(
-      RecordDecrypter recordDecrypter, Set<ReportValidator> reportValidators) {
+      RecordDecrypter recordDecrypter,
+      Set<ReportValidator> reportValidators,
+      StageMetricsRegistry stageMetrics,
+      @StopReportValidationAtFirstError Optional<Boolean> stopValidationAtFirstError) {
     this.recordDecrypter = recordDecrypter;
     this.reportValidators = reportValidators;
+    this.stageMetrics = stageMetrics;
+    this.stopValidationAtFirstError = stopValidationAtFirstError.orElse(false);
   }
 
   /**
@@ -66,17 +78,16 @@ public final class ReportDecrypterAndValidator {
    * decryption/validation which can be summarized and provided to requestors as debug information.
    */
   public DecryptionValidationResult decryptAndValidate(EncryptedReport encryptedReport, Job ctx) {
+    long decryptStartNanos = stageMetrics.startNanos();
     try {
       // Decrypt the report
       Report report = recordDecrypter.decryptSingleReport(encryptedReport);
+      long validateStartNanos = stageMetrics.startNanos();
+      stageMetrics.record(PipelineStage.DECRYPT, validateStartNanos - decryptStartNanos);
 
       // Perform validations
-      ImmutableList<ErrorMessage> validationErrors =
-          reportValidators.stream()
-              .map(reportValidator -> reportValidator.validate(report, ctx))
-              .filter(Optional::isPresent)
-              .map(Optional::get)
-              .collect(toImmutableList());
+      ImmutableList<ErrorMessage> validationErrors = getValidationPlan(ctx).validate(report);
+      stageMetrics.recordSince(PipelineStage.VALIDATE, validateStartNanos);
 
       if (validationErrors.isEmpty()) {
         return DecryptionValidationResult.builder().setReport(report).build();
@@ -84,6 +95,7 @@ public final class ReportDecrypterAndValidator {
 
       return DecryptionValidationResult.builder().addAllErrorMessage(validationErrors).build();
     } catch (DecryptionException e) {
+      stageMetrics.recordSince(PipelineStage.DECRYPT, decryptStartNanos);
       logger.error("Report Decryption Failure", e);
       String detailedErrorMessage = String.format("Report Decryption Failure, cause: %s", e);
       ErrorMessage.Builder errorMessageBuilder = ErrorMessage.builder();
@@ -104,6 +116,17 @@ public final class ReportDecrypterAndValidator {
     }
   }
 
+  private ReportValidationPlan getValidationPlan(Job job) {
+    ReportValidationPlan plan = validationPlan;
+    if (plan != null && plan.job() == job) {
+      return plan;
+    }
+    ReportValidationPlan jobPlan =
+        ReportValidationPlan.compile(reportValidators, job, stopValidationAtFirstError);
+    validationPlan = jobPlan;
+    return jobPlan;
+  }
+
   private static ErrorCounter errorCounterFromCipherCreationException(ErrorReason reason) {
     switch (reason) {
       case KEY_DECRYPTION_ERROR:
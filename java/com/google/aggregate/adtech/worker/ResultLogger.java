@@ -33,6 +33,18 @@ public interface ResultLogger {
   void logResultsAvros(
       ImmutableList<SummaryReportAvro> summaryReportAvros, Job ctx, boolean isDebugRun);
 
+  /**
+   * Logs the summary and debug summary reports of a debug run. Implementations may pipeline the
+   * writes of both outputs; by default the debug results are logged before the summary results.
+   */
+  default void logSummaryAndDebugResultsAvros(
+      ImmutableList<SummaryReportAvro> summaryReportAvros,
+      ImmutableList<SummaryReportAvro> debugSummaryReportAvros,
+      Job ctx) {
+    logResultsAvros(debugSummaryReportAvros, ctx, /* isDebugRun= */ true);
+    logResultsAvros(summaryReportAvros, ctx, /* isDebugRun= */ false);
+  }
+
   /**
    * Writes PrivacyBudgetExhaustedInfo to persistent storage.
    *
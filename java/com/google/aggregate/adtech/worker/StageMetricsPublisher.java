@@ -0,0 +1,121 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker;
+
+import com.google.aggregate.perf.LatencyHistogram;
+import com.google.aggregate.perf.PipelineStage;
+import com.google.aggregate.perf.StageMetricsRegistry;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.privacysandbox.otel.OTelConfiguration;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Periodically flushes the {@link StageMetricsRegistry} so that per-stage latency percentiles are
+ * observable while a job is running.
+ *
+ * <p>Each flush computes the histograms of the samples recorded since the previous flush and
+ * exposes their p50 and p99 through OTel gauges. The gauges report zero for stages that had no
+ * samples in the last interval.
+ */
+public final class StageMetricsPublisher {
+
+  private static final Logger logger = LoggerFactory.getLogger(StageMetricsPublisher.class);
+
+  private static final Duration FLUSH_INTERVAL = Duration.ofSeconds(30);
+
+  private final StageMetricsRegistry stageMetrics;
+  private final OTelConfiguration oTelConfiguration;
+
+  private ScheduledExecutorService flushExecutor;
+  private ImmutableMap<PipelineStage, LatencyHistogram> previousSnapshot = ImmutableMap.of();
+  private volatile ImmutableMap<PipelineStage, LatencyHistogram> lastInterval = ImmutableMap.of();
+
+  @Inject
+  StageMetricsPublisher(StageMetricsRegistry stageMetrics, OTelConfiguration oTelConfiguration) {
+    this.stageMetrics = stageMetrics;
+    this.oTelConfiguration = oTelConfiguration;
+  }
+
+  /** Registers the per-stage gauges and starts flushing in the background. */
+  public synchronized void start() {
+    if (flushExecutor != null) {
+      return;
+    }
+    for (PipelineStage stage : PipelineStage.values()) {
+      oTelConfiguration.createProdGauge(
+          "pipeline_stage." + stage.metricName() + ".p50", "ms", () -> percentileMillis(stage, 50));
+      oTelConfiguration.createProdGauge(
+          "pipeline_stage." + stage.metricName() + ".p99", "ms", () -> percentileMillis(stage, 99));
+    }
+    flushExecutor =
+        Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("stage-metrics-publisher-%d")
+                .build());
+    flushExecutor.scheduleAtFixedRate(
+        this::flush, FLUSH_INTERVAL.toMillis(), FLUSH_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /** Stops the background flushing after flushing once more. */
+  public synchronized void stop() {
+    if (flushExecutor == null) {
+      return;
+    }
+    flushExecutor.shutdownNow();
+    flushExecutor = null;
+    flush();
+  }
+
+  /** Computes the per-stage histograms of the samples recorded since the previous flush. */
+  @VisibleForTesting
+  synchronized void flush() {
+    try {
+      ImmutableMap<PipelineStage, LatencyHistogram> snapshot = stageMetrics.snapshotLatencies();
+      ImmutableMap.Builder<PipelineStage, LatencyHistogram> interval = ImmutableMap.builder();
+      snapshot.forEach(
+          (stage, histogram) ->
+              interval.put(
+                  stage,
+                  histogram.minus(
+                      previousSnapshot.getOrDefault(stage, LatencyHistogram.empty()))));
+      previousSnapshot = snapshot;
+      lastInterval = interval.build();
+      logger.debug("Pipeline stage item counts: {}", stageMetrics.snapshotItemCounts());
+    } catch (RuntimeException e) {
+      // Metrics must never fail the job, and an exception would cancel the scheduled flushes.
+      logger.warn("Could not flush pipeline stage metrics.", e);
+    }
+  }
+
+  @VisibleForTesting
+  double percentileMillis(PipelineStage stage, double percentile) {
+    LatencyHistogram histogram = lastInterval.get(stage);
+    if (histogram == null || histogram.count() == 0) {
+      return 0;
+    }
+    return histogram.percentile(percentile).toNanos() / 1_000_000.0;
+  }
+}
@@ -16,18 +16,32 @@
 
 package com.google.aggregate.adtech.worker;
 
+import com.google.aggregate.adtech.worker.Annotations.DecryptionKeyPrefetchReportsPerShard;
+import com.google.aggregate.adtech.worker.Annotations.DisableSortedDomainMergeJoin;
+import com.google.aggregate.adtech.worker.Annotations.DistributedAggregationKeyAead;
+import com.google.aggregate.adtech.worker.Annotations.InputSampleValidationReportsPerShard;
+import com.google.aggregate.adtech.worker.Annotations.OpenWindowPollInterval;
 import com.google.aggregate.adtech.worker.Annotations.PullWorkService;
+import com.google.aggregate.adtech.worker.Annotations.RejectJobsExceedingMemoryEstimate;
+import com.google.aggregate.adtech.worker.Annotations.ShardReadStallTimeout;
+import com.google.aggregate.adtech.worker.Annotations.StopReportValidationAtFirstError;
+import com.google.aggregate.adtech.worker.Annotations.ThreadConfinedAggregationMaxBuckets;
 import com.google.aggregate.adtech.worker.Annotations.WorkerServiceManager;
 import com.google.aggregate.adtech.worker.configs.PrivacyParametersSupplier;
+import com.google.aggregate.adtech.worker.jobclient.SubtaskDispatcher;
 import com.google.aggregate.perf.StopwatchRegistry;
 import com.google.aggregate.privacy.noise.proto.Params.PrivacyParameters;
 import com.google.common.base.Ticker;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.Service;
 import com.google.common.util.concurrent.ServiceManager;
+import com.google.crypto.tink.Aead;
 import com.google.inject.AbstractModule;
+import com.google.inject.Key;
 import com.google.inject.Provides;
+import com.google.inject.multibindings.OptionalBinder;
 import java.time.Clock;
+import java.time.Duration;
 import java.util.function.Supplier;
 import javax.inject.Singleton;
 
@@ -62,5 +76,44 @@ public final class WorkerModule extends AbstractModule {
     bind(Service.class).annotatedWith(PullWorkService.class).to(WorkerPullWorkService.class);
 
     bind(StopwatchRegistry.class).in(Singleton.class);
+
+    // Job cost estimation is only performed when an estimator is bound.
+    OptionalBinder.newOptionalBinder(binder(), JobCostEstimator.class);
+    // Jobs estimated to exceed the heap are released back to the queue, unless bound to true.
+    OptionalBinder.newOptionalBinder(
+        binder(), Key.get(Boolean.class, RejectJobsExceedingMemoryEstimate.class));
+    // The worker is only warmed up before pulling its first job when a warm-up is bound.
+    OptionalBinder.newOptionalBinder(binder(), WorkerWarmup.class);
+    // Aggregation state is only checkpointed when a checkpoint config is bound.
+    OptionalBinder.newOptionalBinder(binder(), AggregationCheckpointConfig.class);
+    // Jobs are only distributed across workers when a config and a sub-task dispatcher are bound.
+    OptionalBinder.newOptionalBinder(binder(), DistributedAggregationConfig.class);
+    OptionalBinder.newOptionalBinder(binder(), SubtaskDispatcher.class);
+    // Sub-tasks are sealed with this AEAD, which is bound along with the distributed config.
+    OptionalBinder.newOptionalBinder(
+        binder(), Key.get(Aead.class, DistributedAggregationKeyAead.class));
+    // Jobs are only recorded with Java Flight Recorder when a recording config is bound.
+    OptionalBinder.newOptionalBinder(binder(), JobFlightRecordingConfig.class);
+    // Stalled input shard reads are only reopened when a stall timeout is bound.
+    OptionalBinder.newOptionalBinder(
+        binder(), Key.get(Duration.class, ShardReadStallTimeout.class));
+    // Decryption keys are only prefetched at job start when a sample size is bound.
+    OptionalBinder.newOptionalBinder(
+        binder(), Key.get(Integer.class, DecryptionKeyPrefetchReportsPerShard.class));
+    // Input samples are only validated before aggregation when a sample size is bound.
+    OptionalBinder.newOptionalBinder(
+        binder(), Key.get(Integer.class, InputSampleValidationReportsPerShard.class));
+    // The input prefix of open window jobs is listed at a default interval unless one is bound.
+    OptionalBinder.newOptionalBinder(
+        binder(), Key.get(Duration.class, OpenWindowPollInterval.class));
+    // Report batches are only summed on the aggregating thread when a buffer size is bound.
+    OptionalBinder.newOptionalBinder(
+        binder(), Key.get(Integer.class, ThreadConfinedAggregationMaxBuckets.class));
+    // All validations of a report are run, so that each error is counted, unless bound to true.
+    OptionalBinder.newOptionalBinder(
+        binder(), Key.get(Boolean.class, StopReportValidationAtFirstError.class));
+    // Sorted output domains are merge-joined with the aggregation unless bound to true.
+    OptionalBinder.newOptionalBinder(
+        binder(), Key.get(Boolean.class, DisableSortedDomainMergeJoin.class));
   }
 }
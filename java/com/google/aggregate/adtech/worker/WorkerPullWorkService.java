@@ -25,12 +25,17 @@ import com.google.aggregate.adtech.worker.Annotations.DomainOptional;
 import com.google.aggregate.adtech.worker.Annotations.InstanceId;
 import com.google.aggregate.adtech.worker.Annotations.NonBlockingThreadPool;
 import com.google.aggregate.adtech.worker.Annotations.OutputShardFileSizeBytes;
+import com.google.aggregate.adtech.worker.Annotations.RejectJobsExceedingMemoryEstimate;
+import com.google.aggregate.adtech.worker.JobAdmissionController.Decision;
+import com.google.aggregate.adtech.worker.JobAdmissionController.JobAdmission;
+import com.google.aggregate.adtech.worker.WorkerWarmup.WorkerWarmupException;
 import com.google.aggregate.adtech.worker.exceptions.AggregationJobProcessException;
 import com.google.aggregate.adtech.worker.util.JobResultHelper;
 import com.google.aggregate.adtech.worker.validation.JobValidator;
 import com.google.aggregate.perf.StopwatchExporter;
 import com.google.aggregate.perf.StopwatchExporter.StopwatchExportException;
 import com.google.aggregate.perf.StopwatchRegistry;
+import com.google.common.base.Stopwatch;
 import com.google.common.util.concurrent.AbstractExecutionThreadService;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.privacysandbox.otel.OTelConfiguration;
@@ -39,13 +44,16 @@ import com.google.privacysandbox.otel.TimerUnit;
 import com.google.aggregate.adtech.worker.jobclient.JobClient;
 import com.google.aggregate.adtech.worker.jobclient.model.Job;
 import com.google.aggregate.adtech.worker.jobclient.model.JobResult;
+import com.google.aggregate.adtech.worker.jobclient.model.JobRetryRequest;
 import com.google.scp.operator.cpio.metricclient.MetricClient;
 import com.google.scp.operator.cpio.metricclient.MetricClient.MetricClientException;
 import com.google.scp.operator.cpio.metricclient.model.CustomMetric;
 import com.google.aggregate.protos.shared.backend.ErrorSummaryProto.ErrorSummary;
 import io.opentelemetry.api.logs.Severity;
 import io.opentelemetry.api.metrics.LongCounter;
+import java.time.Duration;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import javax.inject.Inject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -57,12 +65,19 @@ public final class WorkerPullWorkService extends AbstractExecutionThreadService
 
   private final JobClient jobClient;
   private final JobProcessor jobProcessor;
+  private final JobAdmissionController jobAdmissionController;
   private final JobResultHelper jobResultHelper;
   private final MetricClient metricClient;
   private final StopwatchRegistry stopwatchRegistry;
   private final StopwatchExporter stopwatchExporter;
+  private final StageMetricsPublisher stageMetricsPublisher;
+  private final Optional<WorkerWarmup> workerWarmup;
   private final boolean domainOptional;
+  // Only workers that process sub-tasks of distributed jobs accept the sub-task manifest.
+  private final boolean subtasksAllowed;
   private final boolean benchmarkMode;
+  // Jobs that don't fit in the heap are completed with an error instead of released if true.
+  private final boolean rejectJobsExceedingMemoryEstimate;
 
   private final ListeningExecutorService nonBlockingThreadPool;
   private final ListeningExecutorService blockingThreadPool;
@@ -77,44 +92,63 @@ public final class WorkerPullWorkService extends AbstractExecutionThreadService
   private final String instanceID;
   private static final String METRIC_NAMESPACE = "scp/worker";
   private static final String JOB_ERROR_METRIC_NAME = "WorkerJobError";
+  // Number of jobs after startup whose processing time is recorded, to compare the first job of a
+  // worker with the following ones.
+  private static final int STARTUP_JOBS_TIMED = 2;
+  // Delay before a job that doesn't fit in the heap of this worker can be pulled again.
+  private static final Duration MEMORY_REJECTED_JOB_RETRY_DELAY = Duration.ofMinutes(1);
+  private int jobsProcessed = 0;
 
   @Inject
   WorkerPullWorkService(
       JobClient jobClient,
       JobProcessor jobProcessor,
+      JobAdmissionController jobAdmissionController,
       JobResultHelper jobResultHelper,
       MetricClient metricClient,
       StopwatchRegistry stopwatchRegistry,
       StopwatchExporter stopwatchExporter,
+      StageMetricsPublisher stageMetricsPublisher,
+      Optional<WorkerWarmup> workerWarmup,
+      Optional<DistributedAggregationConfig> distributedAggregationConfig,
       OTelConfiguration oTelConfiguration,
       @NonBlockingThreadPool ListeningExecutorService nonBlockingThreadPool,
       @BlockingThreadPool ListeningExecutorService blockingThreadPool,
       @BenchmarkMode boolean benchmarkMode,
+      @RejectJobsExceedingMemoryEstimate Optional<Boolean> rejectJobsExceedingMemoryEstimate,
       @DomainOptional Boolean domainOptional,
       @OutputShardFileSizeBytes long outputShardFileSizeBytes,
       @InstanceId String instanceID) {
     this.jobClient = jobClient;
     this.jobProcessor = jobProcessor;
+    this.jobAdmissionController = jobAdmissionController;
     this.jobResultHelper = jobResultHelper;
     this.metricClient = metricClient;
     this.moreNewRequests = true;
     this.stopwatchRegistry = stopwatchRegistry;
     this.stopwatchExporter = stopwatchExporter;
+    this.stageMetricsPublisher = stageMetricsPublisher;
+    this.workerWarmup = workerWarmup;
     this.oTelConfiguration = oTelConfiguration;
     this.nonBlockingThreadPool = nonBlockingThreadPool;
     this.blockingThreadPool = blockingThreadPool;
     this.benchmarkMode = benchmarkMode;
+    this.rejectJobsExceedingMemoryEstimate = rejectJobsExceedingMemoryEstimate.orElse(false);
     this.domainOptional = domainOptional;
+    this.subtasksAllowed = distributedAggregationConfig.isPresent();
     this.outputShardFileSizeBytes = outputShardFileSizeBytes;
     this.instanceID = instanceID;
   }
 
   @Override
   protected void run() throws InterruptedException {
+    Stopwatch timeToFirstJobReady =
+        stopwatchRegistry.createStopwatch("worker-time-to-first-job-ready").start();
     logger.info("Aggregation worker started");
     logger.info("Worker Max Heap Size (MiB): " + Runtime.getRuntime().maxMemory() / (1024 * 1024));
     oTelConfiguration.createProdMemoryUtilizationRatioGauge();
     oTelConfiguration.createProdCPUUtilizationGauge();
+    stageMetricsPublisher.start();
     LongCounter jobSuccessCounter = oTelConfiguration.createProdCounter("job_success_counter");
     LongCounter jobFailCounter = oTelConfiguration.createProdCounter("job_fail_counter");
     setOutputShardFileSizeBytes(outputShardFileSizeBytes);
@@ -125,6 +159,11 @@ public final class WorkerPullWorkService extends AbstractExecutionThreadService
             + "-AggregationWorker: Worker Max Heap Size (MiB):"
             + Runtime.getRuntime().maxMemory() / (1024 * 1024),
         Severity.INFO);
+    warmUp();
+    timeToFirstJobReady.stop();
+    logger.info(
+        "Worker ready to pull jobs after {} ms.",
+        timeToFirstJobReady.elapsed(TimeUnit.MILLISECONDS));
 
     while (moreNewRequests) {
       Optional<Job> job = Optional.empty();
@@ -142,7 +181,7 @@ public final class WorkerPullWorkService extends AbstractExecutionThreadService
         logger.info("Item pulled");
 
         try {
-          JobValidator.validate(job, domainOptional);
+          JobValidator.validate(job, domainOptional, subtasksAllowed);
         } catch (IllegalArgumentException iae) {
           handleJobProcessingException(iae, jobClient, job.get(), jobFailCounter);
           continue;
@@ -153,11 +192,56 @@ public final class WorkerPullWorkService extends AbstractExecutionThreadService
         String jobID = toJobKeyString(currentJob.jobKey());
         oTelConfiguration.writeProdLog(
             instanceID + "-AggregationWorker: Successfully pull a job: " + jobID, Severity.INFO);
+
+        JobAdmission admission = jobAdmissionController.admit(currentJob);
+        if (admission.decision() == Decision.REJECT) {
+          if (rejectJobsExceedingMemoryEstimate) {
+            logger.warn(String.format("Job %s rejected: %s", jobID, admission.message()));
+            jobFailCounter.add(1L);
+            jobClient.markJobCompleted(
+                jobResultHelper.createJobResult(
+                    currentJob,
+                    ErrorSummary.getDefaultInstance(),
+                    AggregationWorkerReturnCode.INSUFFICIENT_WORKER_MEMORY,
+                    Optional.of(admission.message())));
+          } else {
+            // The estimate may be wrong and other workers may have more memory, so the job is
+            // only delayed. The job client fails it once it reaches the retry limit.
+            logger.warn(
+                String.format(
+                    "Job %s released back to the job queue: %s", jobID, admission.message()));
+            jobClient.returnJobForRetry(
+                JobRetryRequest.builder()
+                    .setJobKey(currentJob.jobKey())
+                    .setDelay(MEMORY_REJECTED_JOB_RETRY_DELAY)
+                    .build());
+          }
+          continue;
+        }
+
+        jobsProcessed++;
+        Optional<Stopwatch> startupJobStopwatch =
+            jobsProcessed <= STARTUP_JOBS_TIMED
+                ? Optional.of(
+                    stopwatchRegistry.createStopwatch("worker-job-" + jobsProcessed).start())
+                : Optional.empty();
         try (Timer t =
             oTelConfiguration.createProdTimerStarted(
                 "total_execution_time", jobID, TimerUnit.SECONDS)) {
-          jobResult = jobProcessor.process(currentJob);
+          jobResult =
+              admission.decision() == Decision.ACCEPT_REDUCED_MEMORY
+                  ? jobProcessor.processWithReducedMemory(currentJob)
+                  : jobProcessor.process(currentJob);
+        } finally {
+          startupJobStopwatch.ifPresent(Stopwatch::stop);
         }
+        startupJobStopwatch.ifPresent(
+            stopwatch ->
+                logger.info(
+                    "Job {} was job {} of the worker and took {} ms.",
+                    jobID,
+                    jobsProcessed,
+                    stopwatch.elapsed(TimeUnit.MILLISECONDS)));
         if (jobResult
             .resultInfo()
             .getReturnCode()
@@ -179,6 +263,7 @@ public final class WorkerPullWorkService extends AbstractExecutionThreadService
       }
     }
 
+    stageMetricsPublisher.stop();
     try {
       stopwatchExporter.export(stopwatchRegistry);
     } catch (StopwatchExportException e) {
@@ -189,6 +274,25 @@ public final class WorkerPullWorkService extends AbstractExecutionThreadService
     blockingThreadPool.shutdownNow();
   }
 
+  /**
+   * Runs the bound {@link WorkerWarmup}, if any. A failed warm-up is logged and the worker pulls
+   * jobs regardless.
+   */
+  private void warmUp() {
+    if (workerWarmup.isEmpty()) {
+      return;
+    }
+    Stopwatch warmupStopwatch = stopwatchRegistry.createStopwatch("worker-warm-up").start();
+    try {
+      workerWarmup.get().warmUp();
+      logger.info("Worker warm-up took {} ms.", warmupStopwatch.elapsed(TimeUnit.MILLISECONDS));
+    } catch (WorkerWarmupException | RuntimeException e) {
+      logger.warn("Worker warm-up failed, pulling jobs without it.", e);
+    } finally {
+      warmupStopwatch.stop();
+    }
+  }
+
   /**
    * Handles exceptions that occur during job processing, routing them to specific handlers and
    * updating the job failure metric. This acts as a central point for managing exceptions related
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker;
+
+/**
+ * Prepares a freshly started worker for its first job, e.g. by initializing crypto primitives,
+ * fetching decryption keys and compiling the report processing path.
+ */
+public interface WorkerWarmup {
+
+  /**
+   * Runs the warm-up. It is called once before the worker starts pulling jobs.
+   *
+   * @throws WorkerWarmupException if the warm-up could not be completed. The worker still pulls
+   *     jobs, which then pay for the remaining initialization.
+   */
+  void warmUp() throws WorkerWarmupException;
+
+  /** Thrown when the warm-up of the worker fails. */
+  final class WorkerWarmupException extends Exception {
+
+    public WorkerWarmupException(Throwable cause) {
+      super(cause);
+    }
+  }
+}
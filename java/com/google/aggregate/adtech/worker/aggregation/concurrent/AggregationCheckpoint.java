@@ -0,0 +1,43 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.aggregation.concurrent;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Progress of a job recorded in an aggregation checkpoint. The aggregation engine and error summary
+ * state that goes with it are restored in place by {@link AggregationCheckpointStore}.
+ */
+@AutoValue
+abstract class AggregationCheckpoint {
+
+  /** Blob keys of the input shards whose reports are all included in the checkpoint. */
+  abstract ImmutableSet<String> completedShards();
+
+  /** Number of reports read from the completed shards. */
+  abstract long reportCount();
+
+  static AggregationCheckpoint create(ImmutableSet<String> completedShards, long reportCount) {
+    return new AutoValue_AggregationCheckpoint(completedShards, reportCount);
+  }
+
+  /** Progress of a job that starts from scratch. */
+  static AggregationCheckpoint empty() {
+    return create(ImmutableSet.of(), /* reportCount= */ 0);
+  }
+}
@@ -0,0 +1,399 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.aggregation.concurrent;
+
+import static com.google.aggregate.adtech.worker.shared.model.BackendModelUtil.toJobKeyString;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import com.google.aggregate.adtech.worker.AggregationCheckpointConfig;
+import com.google.aggregate.adtech.worker.Annotations.DistributedAggregationKeyAead;
+import com.google.aggregate.adtech.worker.ErrorSummaryAggregator;
+import com.google.aggregate.adtech.worker.aggregation.engine.AggregationEngine;
+import com.google.aggregate.adtech.worker.jobclient.model.Job;
+import com.google.aggregate.adtech.worker.model.serdes.SharedInfoSerdes;
+import com.google.aggregate.protos.shared.backend.ErrorSummaryProto.ErrorSummary;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.Hashing;
+import com.google.crypto.tink.Aead;
+import com.google.crypto.tink.InsecureSecretKeyAccess;
+import com.google.crypto.tink.KeysetHandle;
+import com.google.crypto.tink.StreamingAead;
+import com.google.crypto.tink.TinkProtoKeysetFormat;
+import com.google.crypto.tink.streamingaead.PredefinedStreamingAeadParameters;
+import com.google.crypto.tink.streamingaead.StreamingAeadConfig;
+import com.google.scp.operator.cpio.blobstorageclient.BlobStorageClient;
+import com.google.scp.operator.cpio.blobstorageclient.BlobStorageClient.BlobStorageClientException;
+import com.google.scp.operator.cpio.blobstorageclient.model.DataLocation;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.inject.Inject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Saves and restores checkpoints of the aggregation state of a job: the partial sums, the IDs of
+ * the accepted reports, the privacy budget units, the error counts and the completed input shards.
+ *
+ * <p>Checkpoints are written to the local checkpoint directory and, if configured, copied to the
+ * checkpoint bucket so that a retry on another worker can resume. Checkpoints hold unnoised partial
+ * sums and report IDs, so a copy is encrypted with a fresh key that is sealed with the attested
+ * distributed aggregation key, and no copy is written without that key. The copy is bound to the
+ * job key, the create time and the attempt that wrote it, and is only restored by a later attempt
+ * of the same job request. Failing to write a checkpoint never fails the job.
+ */
+public final class AggregationCheckpointStore {
+
+  private static final Logger logger = LoggerFactory.getLogger(AggregationCheckpointStore.class);
+
+  private static final int FORMAT_VERSION = 1;
+  private static final String CHECKPOINT_FILE_EXTENSION = ".checkpoint";
+  private static final String SEALED_FILE_EXTENSION = ".sealed";
+  private static final String CHECKPOINT_BLOB_PREFIX = "aggregation_checkpoints/";
+
+  private final Optional<AggregationCheckpointConfig> config;
+  private final BlobStorageClient blobStorageClient;
+  private final Optional<Aead> keyAead;
+  private final AggregationStateCodec codec;
+
+  @Inject
+  AggregationCheckpointStore(
+      Optional<AggregationCheckpointConfig> config,
+      BlobStorageClient blobStorageClient,
+      @DistributedAggregationKeyAead Optional<Aead> keyAead,
+      SharedInfoSerdes sharedInfoSerdes) {
+    this.config = config;
+    this.blobStorageClient = blobStorageClient;
+    this.keyAead = keyAead;
+    this.codec = new AggregationStateCodec(sharedInfoSerdes);
+    if (config.flatMap(AggregationCheckpointConfig::bucket).isPresent() && keyAead.isEmpty()) {
+      logger.warn(
+          "Aggregation checkpoints are not copied to the checkpoint bucket, since no distributed"
+              + " aggregation key is configured to seal them.");
+    }
+  }
+
+  /** Returns true if checkpointing is configured. */
+  boolean isEnabled() {
+    return config.isPresent();
+  }
+
+  /** Minimum time between two checkpoints of the same job. */
+  Duration interval() {
+    return config.get().interval();
+  }
+
+  /**
+   * Restores the latest checkpoint of the job into the given, empty, engines and error aggregator.
+   *
+   * @param aggregationEngines the engines of the job, one per filtering ID set, in the same order
+   *     as when the checkpoint was saved.
+   * @return the progress recorded in the checkpoint, or empty if the job has no checkpoint.
+   * @throws IOException if the checkpoint is unreadable. The engines may then be partially restored
+   *     and must be discarded.
+   */
+  Optional<AggregationCheckpoint> restore(
+      Job job,
+      ImmutableList<AggregationEngine> aggregationEngines,
+      ErrorSummaryAggregator errorAggregator)
+      throws IOException {
+    if (config.isEmpty()) {
+      return Optional.empty();
+    }
+    Optional<InputStream> checkpointStream = openCheckpoint(job);
+    if (checkpointStream.isEmpty()) {
+      return Optional.empty();
+    }
+
+    try (DataInputStream in =
+        new DataInputStream(
+            new GZIPInputStream(new BufferedInputStream(checkpointStream.get())))) {
+      if (in.readInt() != FORMAT_VERSION) {
+        logger.warn("Ignoring checkpoint with unsupported format version.");
+        return Optional.empty();
+      }
+      String jobKey = in.readUTF();
+      Instant createTime = AggregationStateCodec.readInstant(in);
+      if (!jobKey.equals(toJobKeyString(job.jobKey())) || !createTime.equals(job.createTime())) {
+        logger.info("Ignoring checkpoint of job {} created at {}.", jobKey, createTime);
+        return Optional.empty();
+      }
+
+      long reportCount = in.readLong();
+      int completedShardCount = in.readInt();
+      ImmutableSet.Builder<String> completedShards = ImmutableSet.builder();
+      for (int i = 0; i < completedShardCount; i++) {
+        completedShards.add(in.readUTF());
+      }
+      ErrorSummary errorSummary = ErrorSummary.parseFrom(AggregationStateCodec.readBytes(in));
+
+      // All engines of a job see the same reports, so their report IDs are stored once.
+      AggregationStateCodec.readReportIds(
+          in,
+          reportId -> {
+            for (AggregationEngine aggregationEngine : aggregationEngines) {
+              aggregationEngine.restoreReportId(reportId);
+            }
+          });
+      int engineCount = in.readInt();
+      if (engineCount != aggregationEngines.size()) {
+        throw new IOException(
+            String.format(
+                "Checkpoint has %d aggregation engines, but the job has %d.",
+                engineCount, aggregationEngines.size()));
+      }
+      for (AggregationEngine aggregationEngine : aggregationEngines) {
+        readAggregationEngine(in, aggregationEngine);
+      }
+
+      errorAggregator.restore(errorSummary);
+      return Optional.of(AggregationCheckpoint.create(completedShards.build(), reportCount));
+    }
+  }
+
+  /**
+   * Writes a checkpoint of the job. Must only be called while no reports are being aggregated, so
+   * that the engine state matches the completed shards.
+   */
+  void save(
+      Job job,
+      ImmutableList<AggregationEngine> aggregationEngines,
+      ErrorSummaryAggregator errorAggregator,
+      AggregationCheckpoint checkpoint) {
+    String jobKey = toJobKeyString(job.jobKey());
+    Path checkpointFile = getLocalCheckpointFile(job);
+    Path temporaryFile = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+    try {
+      Files.createDirectories(checkpointFile.getParent());
+      try (DataOutputStream out =
+          new DataOutputStream(
+              new GZIPOutputStream(
+                  new BufferedOutputStream(Files.newOutputStream(temporaryFile))))) {
+        out.writeInt(FORMAT_VERSION);
+        out.writeUTF(jobKey);
+        AggregationStateCodec.writeInstant(out, job.createTime());
+        out.writeLong(checkpoint.reportCount());
+        out.writeInt(checkpoint.completedShards().size());
+        for (String completedShard : checkpoint.completedShards()) {
+          out.writeUTF(completedShard);
+        }
+        AggregationStateCodec.writeBytes(out, errorAggregator.createErrorSummary().toByteArray());
+
+        AggregationStateCodec.writeReportIds(
+            out, aggregationEngines.get(0).getReportIds().iterator());
+
+        out.writeInt(aggregationEngines.size());
+        for (AggregationEngine aggregationEngine : aggregationEngines) {
+          writeAggregationEngine(out, aggregationEngine);
+        }
+      }
+      Files.move(temporaryFile, checkpointFile, REPLACE_EXISTING, ATOMIC_MOVE);
+
+      if (isBlobCopyEnabled()) {
+        copyToBlobStorage(job, checkpointFile);
+      }
+      logger.info(
+          "Checkpointed job {} after {} input shards and {} reports.",
+          jobKey,
+          checkpoint.completedShards().size(),
+          checkpoint.reportCount());
+    } catch (IOException
+        | UncheckedIOException
+        | BlobStorageClientException
+        | GeneralSecurityException e) {
+      logger.warn(
+          String.format(
+              "Failed to checkpoint job %s, a retry would resume from its previous checkpoint.",
+              jobKey),
+          e);
+    }
+  }
+
+  /**
+   * Deletes the local checkpoint of a job that no longer needs to be resumed. Copies in the
+   * checkpoint bucket are left in place; they are ignored by later jobs since those have a
+   * different create time.
+   */
+  void delete(Job job) {
+    if (config.isEmpty()) {
+      return;
+    }
+    try {
+      Files.deleteIfExists(getLocalCheckpointFile(job));
+    } catch (IOException e) {
+      logger.warn("Failed to delete checkpoint of job " + toJobKeyString(job.jobKey()), e);
+    }
+  }
+
+  /** Writes the partial sums and privacy budget units of an engine. */
+  private void writeAggregationEngine(DataOutputStream out, AggregationEngine aggregationEngine)
+      throws IOException {
+    AggregationStateCodec.writeAggregatedValues(out, aggregationEngine.getEntries().iterator());
+    codec.writePrivacyBudgetUnits(out, aggregationEngine);
+  }
+
+  /** Reads the partial sums and privacy budget units written by {@link #writeAggregationEngine}. */
+  private void readAggregationEngine(DataInputStream in, AggregationEngine aggregationEngine)
+      throws IOException {
+    AggregationStateCodec.readAggregatedValues(in, aggregationEngine);
+    codec.readPrivacyBudgetUnits(in, aggregationEngine);
+  }
+
+  /**
+   * Copies a written checkpoint to the checkpoint bucket. The copy starts with the attempt that
+   * wrote it and a fresh streaming key sealed with the attested key, followed by the checkpoint
+   * encrypted with the streaming key. Both are bound to the job and the attempt, so that a copy
+   * can't be restored for another job nor passed off as written by another attempt.
+   */
+  private void copyToBlobStorage(Job job, Path checkpointFile)
+      throws IOException, BlobStorageClientException, GeneralSecurityException {
+    int attempt = job.numAttempts();
+    byte[] associatedData = getBlobAssociatedData(job, attempt);
+    StreamingAeadConfig.register();
+    KeysetHandle blobKeyset =
+        KeysetHandle.generateNew(PredefinedStreamingAeadParameters.AES256_GCM_HKDF_1MB);
+    byte[] sealedBlobKeyset =
+        keyAead
+            .get()
+            .encrypt(
+                TinkProtoKeysetFormat.serializeKeyset(blobKeyset, InsecureSecretKeyAccess.get()),
+                associatedData);
+
+    Path sealedFile =
+        checkpointFile.resolveSibling(checkpointFile.getFileName() + SEALED_FILE_EXTENSION);
+    try {
+      try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(sealedFile))) {
+        DataOutputStream header = new DataOutputStream(out);
+        header.writeInt(FORMAT_VERSION);
+        header.writeInt(attempt);
+        AggregationStateCodec.writeBytes(header, sealedBlobKeyset);
+        header.flush();
+        try (OutputStream ciphertext =
+            blobKeyset.getPrimitive(StreamingAead.class).newEncryptingStream(out, associatedData)) {
+          Files.copy(checkpointFile, ciphertext);
+        }
+      }
+      blobStorageClient.putBlob(getCheckpointBlobLocation(job), sealedFile);
+    } finally {
+      Files.deleteIfExists(sealedFile);
+    }
+  }
+
+  private Optional<InputStream> openCheckpoint(Job job) throws IOException {
+    Path checkpointFile = getLocalCheckpointFile(job);
+    if (Files.exists(checkpointFile)) {
+      return Optional.of(Files.newInputStream(checkpointFile));
+    }
+    if (!isBlobCopyEnabled()) {
+      return Optional.empty();
+    }
+    DataLocation checkpointBlob = getCheckpointBlobLocation(job);
+    try {
+      if (!blobStorageClient
+          .listBlobs(checkpointBlob)
+          .contains(checkpointBlob.blobStoreDataLocation().key())) {
+        return Optional.empty();
+      }
+      DataInputStream in =
+          new DataInputStream(new BufferedInputStream(blobStorageClient.getBlob(checkpointBlob)));
+      try {
+        Optional<InputStream> checkpointStream = openBlobCopy(job, in);
+        if (checkpointStream.isEmpty()) {
+          in.close();
+        }
+        return checkpointStream;
+      } catch (IOException | GeneralSecurityException | RuntimeException e) {
+        in.close();
+        throw e;
+      }
+    } catch (BlobStorageClientException | GeneralSecurityException e) {
+      throw new IOException(e);
+    }
+  }
+
+  /**
+   * Unseals a copy written by {@link #copyToBlobStorage}. Only copies written by an earlier attempt
+   * of the job are restored; the attempt is authenticated when the streaming key is unsealed.
+   */
+  private Optional<InputStream> openBlobCopy(Job job, DataInputStream in)
+      throws IOException, GeneralSecurityException {
+    if (in.readInt() != FORMAT_VERSION) {
+      logger.warn("Ignoring checkpoint copy with unsupported format version.");
+      return Optional.empty();
+    }
+    int attempt = in.readInt();
+    if (attempt < 0 || attempt >= job.numAttempts()) {
+      logger.warn(
+          "Ignoring checkpoint copy of job {} written by attempt {}, which is not earlier than the"
+              + " current attempt {}.",
+          toJobKeyString(job.jobKey()),
+          attempt,
+          job.numAttempts());
+      return Optional.empty();
+    }
+    byte[] associatedData = getBlobAssociatedData(job, attempt);
+    byte[] serializedBlobKeyset =
+        keyAead.get().decrypt(AggregationStateCodec.readBytes(in), associatedData);
+    StreamingAeadConfig.register();
+    StreamingAead blobAead =
+        TinkProtoKeysetFormat.parseKeyset(serializedBlobKeyset, InsecureSecretKeyAccess.get())
+            .getPrimitive(StreamingAead.class);
+    return Optional.of(blobAead.newDecryptingStream(in, associatedData));
+  }
+
+  /** Checkpoints are only copied to blob storage if they can be sealed with the attested key. */
+  private boolean isBlobCopyEnabled() {
+    return config.get().bucket().isPresent() && keyAead.isPresent();
+  }
+
+  private Path getLocalCheckpointFile(Job job) {
+    return config.get().localDirectory().resolve(getCheckpointName(job));
+  }
+
+  private DataLocation getCheckpointBlobLocation(Job job) {
+    return BlobStorageClient.getDataLocation(
+        config.get().bucket().get(), CHECKPOINT_BLOB_PREFIX + getCheckpointName(job));
+  }
+
+  private static byte[] getBlobAssociatedData(Job job, int attempt) {
+    return (toJobKeyString(job.jobKey()) + "@" + job.createTime() + "#" + attempt).getBytes(UTF_8);
+  }
+
+  /** Job keys may contain characters that are not valid in file names, so their hash is used. */
+  private static String getCheckpointName(Job job) {
+    return Hashing.sha256()
+            .hashString(toJobKeyString(job.jobKey()) + "@" + job.createTime(), UTF_8)
+            .toString()
+        + CHECKPOINT_FILE_EXTENSION;
+  }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.aggregation.concurrent;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.aggregate.adtech.worker.aggregation.engine.AggregationEngine;
+import com.google.aggregate.adtech.worker.aggregation.engine.AggregationEngine.AggregationKey;
+import com.google.aggregate.adtech.worker.model.PrivacyBudgetUnit;
+import com.google.aggregate.adtech.worker.model.SharedInfo;
+import com.google.aggregate.adtech.worker.model.serdes.SharedInfoSerdes;
+import com.google.aggregate.privacy.budgeting.budgetkeygenerator.PrivacyBudgetKeyGenerator.PrivacyBudgetKeyInput;
+import com.google.common.primitives.UnsignedLong;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Writes and reads the aggregation state of an engine, i.e. its partial sums, accepted report IDs
+ * and privacy budget units, as a sequence of entries each preceded by {@code true} and terminated
+ * by {@code false}.
+ *
+ * <p>Shared by the aggregation checkpoints and the partial aggregates of distributed jobs.
+ */
+final class AggregationStateCodec {
+
+  private final SharedInfoSerdes sharedInfoSerdes;
+
+  AggregationStateCodec(SharedInfoSerdes sharedInfoSerdes) {
+    this.sharedInfoSerdes = sharedInfoSerdes;
+  }
+
+  /** Writes partial sums, followed by the end marker. */
+  static void writeAggregatedValues(
+      DataOutputStream out, Iterator<Entry<AggregationKey, LongAdder>> entries)
+      throws IOException {
+    while (entries.hasNext()) {
+      Entry<AggregationKey, LongAdder> entry = entries.next();
+      writeAggregatedValue(out, entry.getKey(), entry.getValue().sum());
+    }
+    writeEnd(out);
+  }
+
+  /** Writes a single partial sum. The sums must be followed by {@link #writeEnd}. */
+  static void writeAggregatedValue(DataOutputStream out, AggregationKey key, long value)
+      throws IOException {
+    out.writeBoolean(true);
+    writeBytes(out, key.bucket().toByteArray());
+    out.writeLong(value);
+  }
+
+  /** Adds the partial sums written by {@link #writeAggregatedValues} to the engine. */
+  static void readAggregatedValues(DataInputStream in, AggregationEngine aggregationEngine)
+      throws IOException {
+    while (in.readBoolean()) {
+      BigInteger bucket = new BigInteger(readBytes(in));
+      aggregationEngine.restoreAggregatedValue(AggregationKey.create(bucket), in.readLong());
+    }
+  }
+
+  /** Writes report IDs, followed by the end marker. */
+  static void writeReportIds(DataOutputStream out, Iterator<UUID> reportIds) throws IOException {
+    while (reportIds.hasNext()) {
+      UUID reportId = reportIds.next();
+      out.writeBoolean(true);
+      out.writeLong(reportId.getMostSignificantBits());
+      out.writeLong(reportId.getLeastSignificantBits());
+    }
+    writeEnd(out);
+  }
+
+  /** Passes each report ID written by {@link #writeReportIds} to {@code reportIdConsumer}. */
+  static void readReportIds(DataInputStream in, Consumer<UUID> reportIdConsumer)
+      throws IOException {
+    while (in.readBoolean()) {
+      reportIdConsumer.accept(new UUID(in.readLong(), in.readLong()));
+    }
+  }
+
+  /** Writes the privacy budget units of an engine, followed by the end marker. */
+  void writePrivacyBudgetUnits(DataOutputStream out, AggregationEngine aggregationEngine)
+      throws IOException {
+    for (Entry<PrivacyBudgetUnit, PrivacyBudgetKeyInput> unit :
+        aggregationEngine.getPrivacyBudgetKeyInputs().entrySet()) {
+      out.writeBoolean(true);
+      out.writeUTF(unit.getKey().privacyBudgetKey());
+      writeInstant(out, unit.getKey().scheduledReportTime());
+      out.writeUTF(unit.getKey().reportingOrigin());
+      writeBytes(
+          out,
+          sharedInfoSerdes.reverse().convert(Optional.of(unit.getValue().sharedInfo()))
+              .getBytes(UTF_8));
+      Optional<UnsignedLong> filteringId = unit.getValue().filteringId();
+      out.writeBoolean(filteringId.isPresent());
+      if (filteringId.isPresent()) {
+        out.writeLong(filteringId.get().longValue());
+      }
+    }
+    writeEnd(out);
+  }
+
+  /** Adds the privacy budget units written by {@link #writePrivacyBudgetUnits} to the engine. */
+  void readPrivacyBudgetUnits(DataInputStream in, AggregationEngine aggregationEngine)
+      throws IOException {
+    while (in.readBoolean()) {
+      PrivacyBudgetUnit privacyBudgetUnit =
+          PrivacyBudgetUnit.createHourTruncatedUnit(
+              /* privacyBudgetKey= */ in.readUTF(),
+              /* scheduledReportTime= */ readInstant(in),
+              /* reportingOrigin= */ in.readUTF());
+      String sharedInfoJson = new String(readBytes(in), UTF_8);
+      SharedInfo sharedInfo =
+          sharedInfoSerdes
+              .convert(sharedInfoJson)
+              .orElseThrow(() -> new IOException("Malformed shared_info in aggregation state."));
+      PrivacyBudgetKeyInput.Builder privacyBudgetKeyInput =
+          PrivacyBudgetKeyInput.builder().setSharedInfo(sharedInfo);
+      if (in.readBoolean()) {
+        privacyBudgetKeyInput.setFilteringId(UnsignedLong.fromLongBits(in.readLong()));
+      }
+      aggregationEngine.restorePrivacyBudgetUnit(privacyBudgetUnit, privacyBudgetKeyInput.build());
+    }
+  }
+
+  /** Terminates a sequence of entries. */
+  static void writeEnd(DataOutputStream out) throws IOException {
+    out.writeBoolean(false);
+  }
+
+  static void writeInstant(DataOutputStream out, Instant instant) throws IOException {
+    out.writeLong(instant.getEpochSecond());
+    out.writeInt(instant.getNano());
+  }
+
+  static Instant readInstant(DataInputStream in) throws IOException {
+    return Instant.ofEpochSecond(in.readLong(), in.readInt());
+  }
+
+  static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  static byte[] readBytes(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return bytes;
+  }
+}
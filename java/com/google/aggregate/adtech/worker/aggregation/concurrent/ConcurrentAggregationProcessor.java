@@ -26,6 +26,7 @@ import static com.google.aggregate.adtech.worker.util.JobResultHelper.RESULT_REP
 import static com.google.aggregate.adtech.worker.util.JobUtils.JOB_PARAM_OUTPUT_DOMAIN_BLOB_PREFIX;
 import static com.google.aggregate.adtech.worker.util.JobUtils.JOB_PARAM_OUTPUT_DOMAIN_BUCKET_NAME;
 import static com.google.aggregate.adtech.worker.shared.model.BackendModelUtil.toJobKeyString;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 
 import com.google.aggregate.adtech.worker.AggregationWorkerReturnCode;
 import com.google.aggregate.adtech.worker.Annotations.DontConsumeBudgetInDebugRunEnabled;
@@ -34,6 +35,9 @@ import com.google.aggregate.adtech.worker.Annotations.StreamingOutputDomainProce
 import com.google.aggregate.adtech.worker.ErrorSummaryAggregator;
 import com.google.aggregate.adtech.worker.JobProcessor;
 import com.google.aggregate.adtech.worker.ResultLogger;
+import com.google.aggregate.adtech.worker.aggregation.concurrent.InputSampleValidator.InputSample;
+import com.google.aggregate.adtech.worker.aggregation.concurrent.JobFlightRecorder.JobProfile;
+import com.google.aggregate.adtech.worker.aggregation.concurrent.ScatterGatherAggregator.SubtaskManifest;
 import com.google.aggregate.adtech.worker.aggregation.domain.OutputDomainProcessor;
 import com.google.aggregate.adtech.worker.aggregation.engine.AggregationEngine;
 import com.google.aggregate.adtech.worker.aggregation.engine.AggregationEngineFactory;
@@ -48,6 +52,9 @@ import com.google.aggregate.adtech.worker.util.JobResultHelper;
 import com.google.aggregate.adtech.worker.util.JobUtils;
 import com.google.aggregate.adtech.worker.util.ReportingOriginUtils;
 import com.google.aggregate.adtech.worker.util.ReportingOriginUtils.InvalidReportingOriginException;
+import com.google.aggregate.perf.PipelineEvents.PbsCallEvent;
+import com.google.aggregate.perf.PipelineStage;
+import com.google.aggregate.perf.StageMetricsRegistry;
 import com.google.aggregate.perf.StopwatchRegistry;
 import com.google.aggregate.privacy.budgeting.bridge.PrivacyBudgetingServiceBridge;
 import com.google.aggregate.privacy.budgeting.bridge.PrivacyBudgetingServiceBridge.PrivacyBudgetingServiceBridgeException;
@@ -57,6 +64,7 @@ import com.google.aggregate.privacy.noise.JobScopedPrivacyParamsFactory;
 import com.google.aggregate.privacy.noise.NoisedAggregationRunner;
 import com.google.aggregate.privacy.noise.model.AggregatedResults;
 import com.google.aggregate.privacy.noise.model.SummaryReportAvro;
+import com.google.aggregate.privacy.noise.model.SummaryReportAvroSet;
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
@@ -68,6 +76,7 @@ import com.google.scp.operator.cpio.blobstorageclient.model.DataLocation;
 import com.google.aggregate.adtech.worker.jobclient.model.Job;
 import com.google.aggregate.adtech.worker.jobclient.model.JobResult;
 import com.google.aggregate.protos.shared.backend.ErrorSummaryProto.ErrorSummary;
+import java.io.IOException;
 import java.nio.file.Paths;
 import java.util.Map;
 import java.util.Optional;
@@ -94,6 +103,14 @@ public final class ConcurrentAggregationProcessor implements JobProcessor {
           + " File path: %s \n"
           + " Filename: %s \n";
 
+  public static final String RESULT_PROJECTED_REPORTS_WITH_ERRORS_EXCEEDED_THRESHOLD_MESSAGE =
+      "Aggregation job failed early because the number of reports excluded from aggregation,"
+          + " projected from %d of an estimated %d reports, exceeded threshold.";
+
+  public static final String RESULT_VALIDATION_ONLY_MESSAGE =
+      "Validated %d of an estimated %d reports without aggregating them. The error counts are"
+          + " projected to all reports.";
+
   public static final String PRIVACY_BUDGET_EXHAUSTED_DEBUGGING_INFO_FILENAME_PREFIX =
       "privacy_budget_exhausted_debugging_information_";
   private static final Logger logger =
@@ -107,11 +124,17 @@ public final class ConcurrentAggregationProcessor implements JobProcessor {
   private final JobScopedPrivacyParamsFactory privacyParamsFactory;
   private final BlobStorageClient blobStorageClient;
   private final StopwatchRegistry stopwatches;
+  private final StageMetricsRegistry stageMetrics;
   private final PrivacyBudgetingServiceBridge privacyBudgetingServiceBridge;
   private final OTelConfiguration oTelConfiguration;
   private final Boolean streamingOutputDomainProcessing;
   private final boolean dontConsumeBudgetInDebugRunEnabled;
   private final ReportAggregator reportAggregator;
+  private final AggregationCheckpointStore checkpointStore;
+  private final JobFlightRecorder jobFlightRecorder;
+  private final InputSampleValidator inputSampleValidator;
+  private final ScatterGatherAggregator scatterGatherAggregator;
+  private final OpenWindowIngester openWindowIngester;
   private final double defaultReportErrorThresholdPercentage;
 
   @Inject
@@ -122,6 +145,7 @@ public final class ConcurrentAggregationProcessor implements JobProcessor {
       ResultLogger resultLogger,
       BlobStorageClient blobStorageClient,
       StopwatchRegistry stopwatches,
+      StageMetricsRegistry stageMetrics,
       PrivacyBudgetingServiceBridge privacyBudgetingServiceBridge,
       OTelConfiguration oTelConfiguration,
       JobResultHelper jobResultHelper,
@@ -129,13 +153,19 @@ public final class ConcurrentAggregationProcessor implements JobProcessor {
       @ReportErrorThresholdPercentage double defaultReportErrorThresholdPercentage,
       @StreamingOutputDomainProcessing Boolean streamingOutputDomainProcessing,
       @DontConsumeBudgetInDebugRunEnabled boolean dontConsumeBudgetInDebugRunEnabled,
-      ReportAggregator reportAggregator) {
+      ReportAggregator reportAggregator,
+      AggregationCheckpointStore checkpointStore,
+      JobFlightRecorder jobFlightRecorder,
+      InputSampleValidator inputSampleValidator,
+      ScatterGatherAggregator scatterGatherAggregator,
+      OpenWindowIngester openWindowIngester) {
     this.aggregationEngineFactory = aggregationEngineFactory;
     this.outputDomainProcessor = outputDomainProcessor;
     this.noisedAggregationRunner = noisedAggregationRunner;
     this.resultLogger = resultLogger;
     this.blobStorageClient = blobStorageClient;
     this.stopwatches = stopwatches;
+    this.stageMetrics = stageMetrics;
     this.privacyBudgetingServiceBridge = privacyBudgetingServiceBridge;
     this.jobResultHelper = jobResultHelper;
     this.privacyParamsFactory = privacyParamsFactory;
@@ -144,12 +174,50 @@ public final class ConcurrentAggregationProcessor implements JobProcessor {
     this.streamingOutputDomainProcessing = streamingOutputDomainProcessing;
     this.dontConsumeBudgetInDebugRunEnabled = dontConsumeBudgetInDebugRunEnabled;
     this.reportAggregator = reportAggregator;
+    this.checkpointStore = checkpointStore;
+    this.jobFlightRecorder = jobFlightRecorder;
+    this.inputSampleValidator = inputSampleValidator;
+    this.scatterGatherAggregator = scatterGatherAggregator;
+    this.openWindowIngester = openWindowIngester;
   }
 
   /** Processor responsible for performing aggregation. */
   @Override
   public JobResult process(Job job)
       throws ExecutionException, InterruptedException, AggregationJobProcessException {
+    return process(job, streamingOutputDomainProcessing);
+  }
+
+  /**
+   * Processes the job with streaming output domain processing, which does not materialize all
+   * aggregated facts at once.
+   */
+  @Override
+  public JobResult processWithReducedMemory(Job job)
+      throws ExecutionException, InterruptedException, AggregationJobProcessException {
+    return process(job, /* streamingOutputDomainProcessing= */ true);
+  }
+
+  private JobResult process(Job job, boolean streamingOutputDomainProcessing)
+      throws ExecutionException, InterruptedException, AggregationJobProcessException {
+    JobResult jobResult;
+    try (JobProfile jobProfile = jobFlightRecorder.start(job)) {
+      jobResult = processJob(job, streamingOutputDomainProcessing);
+    } catch (AggregationJobProcessException e) {
+      // The job is finished either way, so it won't be resumed from its checkpoint.
+      checkpointStore.delete(job);
+      if (scatterGatherAggregator.isSubtask(job)) {
+        // Otherwise the coordinator waits for the sub-task until the sub-task timeout.
+        scatterGatherAggregator.writeSubtaskFailure(job, e);
+      }
+      throw e;
+    }
+    checkpointStore.delete(job);
+    return jobResult;
+  }
+
+  private JobResult processJob(Job job, boolean streamingOutputDomainProcessing)
+      throws ExecutionException, InterruptedException, AggregationJobProcessException {
     Stopwatch processingStopwatch =
         stopwatches.createStopwatch("concurrent-" + toJobKeyString(job.jobKey()));
     processingStopwatch.start();
@@ -158,19 +226,8 @@ public final class ConcurrentAggregationProcessor implements JobProcessor {
     JobScopedPrivacyParams privacyParams = privacyParamsFactory.fromRequestInfo(job.requestInfo());
     final String jobKey = toJobKeyString(job.jobKey());
 
-    Optional<DataLocation> outputDomainLocation = Optional.empty();
     Map<String, String> jobParams = job.requestInfo().getJobParametersMap();
-
-    if (jobParams.containsKey(JOB_PARAM_OUTPUT_DOMAIN_BUCKET_NAME)
-        && jobParams.containsKey(JOB_PARAM_OUTPUT_DOMAIN_BLOB_PREFIX)
-        && (!jobParams.get(JOB_PARAM_OUTPUT_DOMAIN_BUCKET_NAME).isEmpty()
-            || !jobParams.get(JOB_PARAM_OUTPUT_DOMAIN_BLOB_PREFIX).isEmpty())) {
-      outputDomainLocation =
-          Optional.of(
-              BlobStorageClient.getDataLocation(
-                  jobParams.get(JOB_PARAM_OUTPUT_DOMAIN_BUCKET_NAME),
-                  jobParams.get(JOB_PARAM_OUTPUT_DOMAIN_BLOB_PREFIX)));
-    }
+    Optional<DataLocation> outputDomainLocation = getOutputDomainLocation(job);
 
     try {
       // Reading the output domain early before report processing so that we can fail early if there
@@ -183,22 +240,126 @@ public final class ConcurrentAggregationProcessor implements JobProcessor {
             new IllegalArgumentException(
                 "No output domain shards found for location: " + outputDomainLocation));
       }
-      ImmutableSet<UnsignedLong> filteringIds = JobUtils.getFilteringIdsFromJobOrDefault(job);
-
-      AggregationEngine aggregationEngine =
-          aggregationEngineFactory.createKeyAggregationEngine(filteringIds);
+      // Multi-query jobs aggregate several filtering ID sets in one pass over the reports, with one
+      // engine per set.
+      ImmutableList<ImmutableSet<UnsignedLong>> filteringIdSets =
+          JobUtils.getFilteringIdSetsFromJobOrDefault(job);
+      ImmutableList<AggregationEngine> aggregationEngines =
+          createAggregationEngines(filteringIdSets);
       double reportErrorThresholdPercentage =
           JobUtils.getReportErrorThresholdPercentage(
               jobParams, defaultReportErrorThresholdPercentage);
+
+      // A sample of the inputs is validated first, so that jobs whose reports conclusively have
+      // too many errors fail before all reports are decrypted. Sub-tasks were validated by their
+      // coordinator, and the inputs of open window jobs may not have landed yet.
+      if (inputSampleValidator.isEnabled(job)
+          && !scatterGatherAggregator.isSubtask(job)
+          && !OpenWindowIngester.isOpenWindowJob(job)) {
+        Stopwatch validationStopwatch =
+            stopwatches.createStopwatch("input-sample-validation-" + jobKey).start();
+        InputSample inputSample = inputSampleValidator.validate(job, outputDomainShards);
+        validationStopwatch.stop();
+        if (inputSample.errorsAboveThreshold(reportErrorThresholdPercentage)) {
+          processingStopwatch.stop();
+          return jobResultHelper.createJobResult(
+              job,
+              inputSample.projectedErrorSummary(),
+              AggregationWorkerReturnCode.REPORTS_WITH_ERRORS_EXCEEDED_THRESHOLD,
+              Optional.of(
+                  String.format(
+                      RESULT_PROJECTED_REPORTS_WITH_ERRORS_EXCEEDED_THRESHOLD_MESSAGE,
+                      inputSample.sampledReportCount(),
+                      inputSample.estimatedReportCount())));
+        }
+        if (inputSample.projectedErrorsAboveThreshold(reportErrorThresholdPercentage)) {
+          logger.info(
+              "Job {}: {} reports with errors projected from {} of an estimated {} reports exceed"
+                  + " the threshold, but the sample is not conclusive. Aggregating all reports.",
+              jobKey,
+              inputSample.projectedErrorCount(),
+              inputSample.sampledReportCount(),
+              inputSample.estimatedReportCount());
+        }
+        if (JobUtils.isValidationOnlyJob(job)) {
+          processingStopwatch.stop();
+          return jobResultHelper.createJobResult(
+              job,
+              inputSample.projectedErrorSummary(),
+              SUCCESS,
+              Optional.of(
+                  String.format(
+                      RESULT_VALIDATION_ONLY_MESSAGE,
+                      inputSample.sampledReportCount(),
+                      inputSample.estimatedReportCount())));
+        }
+      }
+
       ErrorSummaryAggregator errorAggregator =
           ErrorSummaryAggregator.createErrorSummaryAggregator(
               JobUtils.getInputReportCountFromJobParams(jobParams), reportErrorThresholdPercentage);
 
-      AtomicLong totalReportCount = new AtomicLong(0);
+      AggregationCheckpoint checkpoint = AggregationCheckpoint.empty();
+      try {
+        checkpoint =
+            checkpointStore
+                .restore(job, aggregationEngines, errorAggregator)
+                .orElse(AggregationCheckpoint.empty());
+      } catch (IOException e) {
+        logger.warn("Failed to restore checkpoint, processing job " + jobKey + " from scratch.", e);
+        // The checkpoint may have been partially restored.
+        aggregationEngines = createAggregationEngines(filteringIdSets);
+        errorAggregator =
+            ErrorSummaryAggregator.createErrorSummaryAggregator(
+                JobUtils.getInputReportCountFromJobParams(jobParams),
+                reportErrorThresholdPercentage);
+      }
+
+      AtomicLong totalReportCount = new AtomicLong(checkpoint.reportCount());
+      if (scatterGatherAggregator.isSubtask(job)) {
+        JobResult subtaskResult =
+            processSubtask(job, totalReportCount, aggregationEngines, errorAggregator, checkpoint);
+        processingStopwatch.stop();
+        return subtaskResult;
+      }
+      // Open window jobs aggregate the shards that land while the window is open, and the
+      // remaining shards below once it is closed.
+      AggregationCheckpoint progress =
+          OpenWindowIngester.isOpenWindowJob(job)
+              ? openWindowIngester.ingestUntilClosed(
+                  job, totalReportCount, aggregationEngines, errorAggregator, checkpoint)
+              : checkpoint;
+      // Jobs resumed from a checkpoint are finished by this worker alone.
+      Optional<ImmutableList<ImmutableList<DataLocation>>> subtaskShards =
+          progress.completedShards().isEmpty()
+              ? scatterGatherAggregator.planSubtasks(job)
+              : Optional.empty();
       try (Timer reportsProcessTimer =
           oTelConfiguration.createDebugTimerStarted("reports_process_time", jobKey)) {
-        // This function would add reports to aggregationEngine or errorAggregator.
-        reportAggregator.processReports(totalReportCount, job, aggregationEngine, errorAggregator);
+        boolean distributed =
+            subtaskShards.isPresent()
+                && scatterGatherAggregator.aggregate(
+                    job,
+                    subtaskShards.get(),
+                    totalReportCount,
+                    aggregationEngines,
+                    errorAggregator);
+        if (subtaskShards.isPresent() && !distributed) {
+          logger.warn("Reports of job {} are in several sub-tasks, aggregating alone.", jobKey);
+          aggregationEngines = createAggregationEngines(filteringIdSets);
+          errorAggregator =
+              ErrorSummaryAggregator.createErrorSummaryAggregator(
+                  JobUtils.getInputReportCountFromJobParams(jobParams),
+                  reportErrorThresholdPercentage);
+          totalReportCount.set(0);
+        }
+        // Open window jobs whose report errors exceeded the threshold while the window was open
+        // are not read any further.
+        if (!distributed && !errorAggregator.countsAboveThreshold()) {
+          // This function would add reports to aggregationEngines or errorAggregator.
+          reportAggregator.processReports(
+              totalReportCount, job, aggregationEngines, errorAggregator, progress);
+        }
       }
 
       ErrorSummary errorSummary = errorAggregator.createErrorSummary();
@@ -212,40 +373,51 @@ public final class ConcurrentAggregationProcessor implements JobProcessor {
             Optional.of(RESULT_REPORTS_WITH_ERRORS_EXCEEDED_THRESHOLD_MESSAGE));
       }
 
-      AggregatedResults aggregatedResults;
+      ImmutableList.Builder<AggregatedResults> aggregatedResultsBuilder = ImmutableList.builder();
       try {
-        aggregatedResults =
-            conflateWithDomainAndAddNoiseStreaming(
-                outputDomainLocation,
-                outputDomainShards,
-                aggregationEngine,
-                privacyParams,
-                debugRun);
+        for (AggregationEngine aggregationEngine : aggregationEngines) {
+          aggregatedResultsBuilder.add(
+              conflateWithDomainAndAddNoiseStreaming(
+                  outputDomainLocation,
+                  outputDomainShards,
+                  aggregationEngine,
+                  privacyParams,
+                  debugRun,
+                  streamingOutputDomainProcessing));
+        }
       } catch (DomainReadException e) {
         throw new AggregationJobProcessException(
             INPUT_DATA_READ_FAILED, "Exception while reading domain input data.", e.getCause());
       }
+      ImmutableList<AggregatedResults> aggregatedResults = aggregatedResultsBuilder.build();
 
       processingStopwatch.stop();
 
+      // The budget of all filtering ID sets is consumed at once, so that either all or none of the
+      // summary reports of a multi-query job are written.
       AggregationWorkerReturnCode jobCode = SUCCESS;
       if (debugRun) {
         if (!dontConsumeBudgetInDebugRunEnabled) {
           try {
-            consumePrivacyBudgetUnits(aggregationEngine, job);
+            consumePrivacyBudgetUnits(aggregationEngines, job);
           } catch (AggregationJobProcessException e) {
             jobCode = AggregationWorkerReturnCode.getDebugEquivalent(e.getCode());
           }
         }
-
-        logResults(aggregatedResults, job, /* isDebugRun= */ true);
       } else {
-        consumePrivacyBudgetUnits(aggregationEngine, job);
+        consumePrivacyBudgetUnits(aggregationEngines, job);
       }
 
-      // Log summary results
+      // Log summary results, along with the debug results for debug runs.
       try (Timer t = oTelConfiguration.createDebugTimerStarted("summary_write_time", jobKey)) {
-        logResults(aggregatedResults, job, /* isDebugRun= */ false);
+        for (int i = 0; i < aggregatedResults.size(); i++) {
+          Job resultJob = JobUtils.isMultiQueryJob(job) ? createFilteringIdSetJob(job, i) : job;
+          if (debugRun) {
+            logDebugRunResults(aggregatedResults.get(i), resultJob);
+          } else {
+            logResults(aggregatedResults.get(i), resultJob, /* isDebugRun= */ false);
+          }
+        }
       }
 
       return jobResultHelper.createJobResult(
@@ -255,6 +427,63 @@ public final class ConcurrentAggregationProcessor implements JobProcessor {
     }
   }
 
+  /**
+   * Aggregates the input shards of a sub-task of a distributed job and writes the partial aggregate
+   * for its coordinator. Nothing is noised, charged to the privacy budget or written as results.
+   */
+  private JobResult processSubtask(
+      Job job,
+      AtomicLong totalReportCount,
+      ImmutableList<AggregationEngine> aggregationEngines,
+      ErrorSummaryAggregator errorAggregator,
+      AggregationCheckpoint checkpoint)
+      throws AggregationJobProcessException {
+    SubtaskManifest manifest = scatterGatherAggregator.readManifest(job);
+    reportAggregator.processReports(
+        totalReportCount, job, manifest.shards(), aggregationEngines, errorAggregator, checkpoint);
+    scatterGatherAggregator.writeSubtaskResult(
+        job, manifest, totalReportCount.get(), aggregationEngines, errorAggregator);
+    return jobResultHelper.createJobResult(
+        job, errorAggregator.createErrorSummary(), SUCCESS, /* message= */ Optional.empty());
+  }
+
+  private ImmutableList<AggregationEngine> createAggregationEngines(
+      ImmutableList<ImmutableSet<UnsignedLong>> filteringIdSets) {
+    return filteringIdSets.stream()
+        .map(aggregationEngineFactory::createKeyAggregationEngine)
+        .collect(toImmutableList());
+  }
+
+  /**
+   * Returns a copy of a multi-query job with the output data blob prefix of the filtering ID set at
+   * {@code filteringIdSetIndex}, to write the results of that set.
+   */
+  private static Job createFilteringIdSetJob(Job job, int filteringIdSetIndex) {
+    return job.toBuilder()
+        .setRequestInfo(
+            job.requestInfo().toBuilder()
+                .setOutputDataBlobPrefix(
+                    JobUtils.getOutputDataBlobPrefixForFilteringIdSet(
+                        job.requestInfo().getOutputDataBlobPrefix(), filteringIdSetIndex))
+                .build())
+        .build();
+  }
+
+  /** Returns the location of the output domain given in the job parameters, if any. */
+  static Optional<DataLocation> getOutputDomainLocation(Job job) {
+    Map<String, String> jobParams = job.requestInfo().getJobParametersMap();
+    if (jobParams.containsKey(JOB_PARAM_OUTPUT_DOMAIN_BUCKET_NAME)
+        && jobParams.containsKey(JOB_PARAM_OUTPUT_DOMAIN_BLOB_PREFIX)
+        && (!jobParams.get(JOB_PARAM_OUTPUT_DOMAIN_BUCKET_NAME).isEmpty()
+            || !jobParams.get(JOB_PARAM_OUTPUT_DOMAIN_BLOB_PREFIX).isEmpty())) {
+      return Optional.of(
+          BlobStorageClient.getDataLocation(
+              jobParams.get(JOB_PARAM_OUTPUT_DOMAIN_BUCKET_NAME),
+              jobParams.get(JOB_PARAM_OUTPUT_DOMAIN_BLOB_PREFIX)));
+    }
+    return Optional.empty();
+  }
+
   private void logResults(AggregatedResults aggregatedResults, Job ctx, boolean isDebugRun) {
     // Only one of noisedAggregationResultSet (partial RxJava-based stream domain processing) or
     // summaryReportAvroSet(full RxJava-based stream domain processing) will be present, with the
@@ -284,12 +513,28 @@ public final class ConcurrentAggregationProcessor implements JobProcessor {
             });
   }
 
+  private void logDebugRunResults(AggregatedResults aggregatedResults, Job ctx) {
+    if (aggregatedResults.summaryReportAvroSet().isPresent()) {
+      // Summary and debug reports are uploaded together rather than one after the other.
+      SummaryReportAvroSet summaryReportAvroSet = aggregatedResults.summaryReportAvroSet().get();
+      resultLogger.logSummaryAndDebugResultsAvros(
+          summaryReportAvroSet.summaryReports(),
+          summaryReportAvroSet.debugSummaryReport().get(),
+          ctx);
+      return;
+    }
+
+    logResults(aggregatedResults, ctx, /* isDebugRun= */ true);
+    logResults(aggregatedResults, ctx, /* isDebugRun= */ false);
+  }
+
   private AggregatedResults conflateWithDomainAndAddNoiseStreaming(
       Optional<DataLocation> outputDomainLocation,
       ImmutableList<DataLocation> outputDomainShards,
       AggregationEngine engine,
       JobScopedPrivacyParams privacyParams,
-      Boolean debugRun)
+      Boolean debugRun,
+      boolean streamingOutputDomainProcessing)
       throws DomainReadException {
     if (streamingOutputDomainProcessing) {
       return outputDomainProcessor.adjustAggregationWithDomainAndNoiseStreaming(
@@ -310,9 +555,17 @@ public final class ConcurrentAggregationProcessor implements JobProcessor {
         debugRun);
   }
 
-  private void consumePrivacyBudgetUnits(AggregationEngine aggregationEngine, Job job)
+  private void consumePrivacyBudgetUnits(
+      ImmutableList<AggregationEngine> aggregationEngines, Job job)
       throws AggregationJobProcessException {
-    ImmutableList<PrivacyBudgetUnit> budgetsToConsume = aggregationEngine.getPrivacyBudgetUnits();
+    // Units of a single engine are already distinct, so they are passed on without another copy.
+    ImmutableList<PrivacyBudgetUnit> budgetsToConsume =
+        aggregationEngines.size() == 1
+            ? aggregationEngines.get(0).getPrivacyBudgetUnits()
+            : aggregationEngines.stream()
+                .flatMap(aggregationEngine -> aggregationEngine.getPrivacyBudgetUnits().stream())
+                .distinct()
+                .collect(toImmutableList());
 
     // Only send request to PBS if there are units to consume budget for; the list of units
     // can be empty if all reports failed decryption.
@@ -341,10 +594,17 @@ public final class ConcurrentAggregationProcessor implements JobProcessor {
 
     ImmutableList<PrivacyBudgetUnit> missingPrivacyBudgetUnits;
     try {
+      long pbsStartNanos = stageMetrics.startNanos();
+      PbsCallEvent pbsCallEvent = new PbsCallEvent();
+      pbsCallEvent.begin();
       try (Timer t =
           oTelConfiguration.createDebugTimerStarted("pbs_latency", toJobKeyString(job.jobKey()))) {
         missingPrivacyBudgetUnits =
             privacyBudgetingServiceBridge.consumePrivacyBudget(budgetsToConsume, claimedIdentity);
+      } finally {
+        stageMetrics.recordSince(PipelineStage.PBS, pbsStartNanos);
+        stageMetrics.addItems(PipelineStage.PBS, budgetsToConsume.size());
+        pbsCallEvent.commit();
       }
     } catch (PrivacyBudgetingServiceBridgeException e) {
       if (e.getStatusCode() != null) {
@@ -379,8 +639,14 @@ public final class ConcurrentAggregationProcessor implements JobProcessor {
 
     if (!missingPrivacyBudgetUnits.isEmpty()) {
       ImmutableList<PrivacyBudgetKeyInput> exhaustedPrivacyBudgetKeyInputs =
-          aggregationEngine.getPrivacyBudgetKeyInputsFromPrivacyBudgetUnits(
-              missingPrivacyBudgetUnits);
+          aggregationEngines.stream()
+              .flatMap(
+                  aggregationEngine ->
+                      aggregationEngine
+                          .getPrivacyBudgetKeyInputsFromPrivacyBudgetUnits(
+                              missingPrivacyBudgetUnits)
+                          .stream())
+              .collect(toImmutableList());
       ImmutableSet<AggregatableInputBudgetConsumptionInfo>
           aggregatableInputBudgetConsumptionInfoSet =
               exhaustedPrivacyBudgetKeyInputs.stream()
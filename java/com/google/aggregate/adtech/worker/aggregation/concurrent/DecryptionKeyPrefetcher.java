@@ -0,0 +1,170 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.aggregation.concurrent;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+
+import com.google.aggregate.adtech.worker.Annotations.BlockingThreadPool;
+import com.google.aggregate.adtech.worker.Annotations.DecryptionKeyPrefetchReportsPerShard;
+import com.google.aggregate.adtech.worker.exceptions.ConcurrentShardReadException;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.scp.operator.cpio.blobstorageclient.model.DataLocation;
+import com.google.scp.operator.cpio.cryptoclient.DecryptionKeyService;
+import com.google.scp.operator.cpio.cryptoclient.DecryptionKeyService.KeyFetchException;
+import com.google.scp.operator.cpio.cryptoclient.model.ErrorReason;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import javax.inject.Inject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Fetches the decryption keys of a job before its reports are decrypted.
+ *
+ * <p>Without prefetching, every decryption thread requests the key of its first report at the same
+ * time when the job starts and waits for the coordinators. Instead, the key IDs of the first
+ * reports of each input shard are read and the distinct keys are fetched in parallel, so that they
+ * are cached by the {@link DecryptionKeyService} when decryption starts. Keys that can't be fetched
+ * are logged up front; the reports encrypted with them fail decryption with the same errors as
+ * without prefetching.
+ *
+ * <p>Keys are only prefetched if the number of reports to read per shard is configured.
+ */
+final class DecryptionKeyPrefetcher {
+
+  private static final Logger logger = LoggerFactory.getLogger(DecryptionKeyPrefetcher.class);
+
+  private final ReportReader reportReader;
+  private final DecryptionKeyService decryptionKeyService;
+  private final ListeningExecutorService blockingThreadPool;
+  private final Optional<Integer> reportsPerShard;
+
+  @Inject
+  DecryptionKeyPrefetcher(
+      ReportReader reportReader,
+      DecryptionKeyService decryptionKeyService,
+      @BlockingThreadPool ListeningExecutorService blockingThreadPool,
+      @DecryptionKeyPrefetchReportsPerShard Optional<Integer> reportsPerShard) {
+    this.reportReader = reportReader;
+    this.decryptionKeyService = decryptionKeyService;
+    this.blockingThreadPool = blockingThreadPool;
+    this.reportsPerShard = reportsPerShard;
+  }
+
+  boolean isEnabled() {
+    return reportsPerShard.isPresent();
+  }
+
+  /**
+   * Fetches the decryption keys of the reports read from the start of the shards.
+   *
+   * @return the IDs of the keys that could not be fetched, with the reason.
+   */
+  ImmutableMap<String, ErrorReason> prefetch(
+      List<DataLocation> shards, Map<DataLocation, Long> shardSizes) {
+    ImmutableSet<String> keyIds = sampleKeyIds(shards, shardSizes);
+    ImmutableList<ListenableFuture<Optional<ErrorReason>>> fetches =
+        keyIds.stream()
+            .map(keyId -> blockingThreadPool.submit(() -> fetchKey(keyId)))
+            .collect(toImmutableList());
+    ImmutableList<Optional<ErrorReason>> fetchResults = getAll(fetches);
+    if (fetchResults.size() < keyIds.size()) {
+      return ImmutableMap.of();
+    }
+
+    ImmutableMap.Builder<String, ErrorReason> failedKeys = ImmutableMap.builder();
+    ImmutableList<String> keyIdList = keyIds.asList();
+    for (int i = 0; i < keyIdList.size(); i++) {
+      Optional<ErrorReason> failure = fetchResults.get(i);
+      if (failure.isPresent()) {
+        failedKeys.put(keyIdList.get(i), failure.get());
+      }
+    }
+    ImmutableMap<String, ErrorReason> failures = failedKeys.build();
+    logger.info(
+        "Prefetched {} decryption keys found in {} input shards.",
+        keyIds.size() - failures.size(),
+        shards.size());
+    if (!failures.isEmpty()) {
+      logger.warn("Decryption keys could not be fetched at job start: {}", failures);
+    }
+    return failures;
+  }
+
+  /** Returns the distinct key IDs of the reports read from the start of the non-empty shards. */
+  ImmutableSet<String> sampleKeyIds(List<DataLocation> shards, Map<DataLocation, Long> shardSizes) {
+    ImmutableList<ListenableFuture<ImmutableSet<String>>> samples =
+        shards.stream()
+            .filter(shard -> shardSizes.getOrDefault(shard, 0L) > 0)
+            .map(shard -> blockingThreadPool.submit(() -> readKeyIds(shard)))
+            .collect(toImmutableList());
+    return getAll(samples).stream().flatMap(ImmutableSet::stream).collect(toImmutableSet());
+  }
+
+  private ImmutableSet<String> readKeyIds(DataLocation shard) {
+    try {
+      return reportReader.readKeyIds(shard, reportsPerShard.orElse(0));
+    } catch (ConcurrentShardReadException e) {
+      // The error is reported when the shard is read for aggregation.
+      logger.warn(
+          String.format(
+              "Could not read key IDs of shard %s.", shard.blobStoreDataLocation().key()),
+          e);
+      return ImmutableSet.of();
+    }
+  }
+
+  private Optional<ErrorReason> fetchKey(String keyId) {
+    try {
+      decryptionKeyService.getDecrypter(keyId);
+      return Optional.empty();
+    } catch (KeyFetchException e) {
+      return Optional.of(e.getReason());
+    } catch (RuntimeException e) {
+      logger.warn(String.format("Unexpected error fetching decryption key %s.", keyId), e);
+      return Optional.of(ErrorReason.INTERNAL);
+    }
+  }
+
+  /**
+   * Waits for all futures and returns their results. Prefetching is best effort, so an interrupted
+   * wait returns fewer results than futures instead of failing the job.
+   */
+  private static <T> ImmutableList<T> getAll(List<ListenableFuture<T>> futures) {
+    try {
+      return Futures.successfulAsList(futures).get().stream()
+          .filter(Objects::nonNull)
+          .collect(toImmutableList());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      futures.forEach(future -> future.cancel(true));
+      return ImmutableList.of();
+    } catch (ExecutionException e) {
+      // Not thrown by successfulAsList.
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.aggregation.concurrent;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+import com.google.aggregate.adtech.worker.Annotations.InputSampleValidationReportsPerShard;
+import com.google.aggregate.adtech.worker.ErrorSummaryAggregator;
+import com.google.aggregate.adtech.worker.ReportDecrypterAndValidator;
+import com.google.aggregate.adtech.worker.aggregation.domain.OutputDomainProcessor;
+import com.google.aggregate.adtech.worker.exceptions.AggregationJobProcessException;
+import com.google.aggregate.adtech.worker.jobclient.model.Job;
+import com.google.aggregate.adtech.worker.model.DecryptionValidationResult;
+import com.google.aggregate.adtech.worker.model.EncryptedReport;
+import com.google.aggregate.adtech.worker.util.JobUtils;
+import com.google.aggregate.protos.shared.backend.ErrorSummaryProto.ErrorSummary;
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.scp.operator.cpio.blobstorageclient.model.DataLocation;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.inject.Inject;
+import javax.inject.Provider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Validates a sample of the inputs of a job before its reports are aggregated.
+ *
+ * <p>The first reports of each input shard are decrypted and validated, and the first buckets of
+ * each output domain shard are read. The errors of the sample are projected to the estimated number
+ * of reports of the job, so that a job whose reports mostly fail, e.g. because they are encrypted
+ * with unknown keys or belong to another reporting origin, fails after reading a few blocks of each
+ * shard instead of after decrypting all reports. Nothing is aggregated, noised or charged to the
+ * privacy budget.
+ *
+ * <p>The sample is not random, so its projection is only conclusive when the errors are far above
+ * the threshold: see {@link InputSample#errorsAboveThreshold(double)}.
+ *
+ * <p>Jobs with the {@value JobUtils#JOB_PARAM_VALIDATION_ONLY} job parameter are always validated
+ * and are not aggregated afterwards. Other jobs are only validated if the number of reports to
+ * sample per shard is configured.
+ */
+final class InputSampleValidator {
+
+  /** Number of reports sampled per shard by validation-only jobs without a configured size. */
+  static final int DEFAULT_VALIDATION_ONLY_REPORTS_PER_SHARD = 1000;
+
+  // Bytes taken by a report in an input shard besides its fields, i.e. the lengths of the fields.
+  private static final int REPORT_OVERHEAD_BYTES = 6;
+
+  /** Smallest number of sampled reports from which a job can fail before it is aggregated. */
+  static final long MIN_SAMPLED_REPORTS_TO_FAIL_EARLY = 1000;
+
+  // Standard score of the one-sided 99.5% confidence bound on the error rate of the sample.
+  private static final double ERROR_RATE_CONFIDENCE_Z = 2.576;
+
+  private static final Logger logger = LoggerFactory.getLogger(InputSampleValidator.class);
+
+  private final ReportReader reportReader;
+  private final OutputDomainProcessor outputDomainProcessor;
+  private final Provider<ReportDecrypterAndValidator> reportDecrypterAndValidatorProvider;
+  private final Optional<Integer> reportsPerShard;
+
+  @Inject
+  InputSampleValidator(
+      ReportReader reportReader,
+      OutputDomainProcessor outputDomainProcessor,
+      Provider<ReportDecrypterAndValidator> reportDecrypterAndValidatorProvider,
+      @InputSampleValidationReportsPerShard Optional<Integer> reportsPerShard) {
+    this.reportReader = reportReader;
+    this.outputDomainProcessor = outputDomainProcessor;
+    this.reportDecrypterAndValidatorProvider = reportDecrypterAndValidatorProvider;
+    this.reportsPerShard = reportsPerShard;
+  }
+
+  /** Returns true if the inputs of the job are validated before its reports are aggregated. */
+  boolean isEnabled(Job job) {
+    return reportsPerShard.isPresent() || JobUtils.isValidationOnlyJob(job);
+  }
+
+  /**
+   * Decrypts and validates the first reports of each input shard of the job and reads the first
+   * buckets of each output domain shard.
+   *
+   * <p>Input shards that can't be read throw a {@code ConcurrentShardReadException}, and output
+   * domain shards that can't be read or parsed a {@code DomainReadException}.
+   *
+   * @throws AggregationJobProcessException if the job has no input shards.
+   */
+  InputSample validate(Job job, ImmutableList<DataLocation> outputDomainShards)
+      throws AggregationJobProcessException {
+    int sampleSize = reportsPerShard.orElse(DEFAULT_VALIDATION_ONLY_REPORTS_PER_SHARD);
+    ImmutableList<DataLocation> shards = reportReader.getInputReportsShards(job.requestInfo());
+    ImmutableMap<DataLocation, Long> shardSizes = reportReader.getShardSizes(shards);
+
+    ReportDecrypterAndValidator reportDecrypterAndValidator =
+        reportDecrypterAndValidatorProvider.get();
+    ErrorSummaryAggregator sampleErrors =
+        ErrorSummaryAggregator.createErrorSummaryAggregator(
+            /* totalReportCountsOptional= */ Optional.empty(),
+            /* errorThresholdPercentage= */ 100);
+    AtomicLong sampledReportCount = new AtomicLong();
+    AtomicLong sampledErrorCount = new AtomicLong();
+    long estimatedShardReportCount =
+        shards.parallelStream()
+            .filter(shard -> shardSizes.getOrDefault(shard, 0L) > 0)
+            .mapToLong(
+                shard -> {
+                  ImmutableList<EncryptedReport> reports =
+                      reportReader.readLeadingReports(shard, sampleSize);
+                  for (EncryptedReport report : reports) {
+                    DecryptionValidationResult result =
+                        reportDecrypterAndValidator.decryptAndValidate(report, job);
+                    if (result.report().isEmpty()) {
+                      sampleErrors.add(result);
+                      sampledErrorCount.incrementAndGet();
+                    }
+                  }
+                  sampledReportCount.addAndGet(reports.size());
+                  return estimateReportCount(reports, sampleSize, shardSizes.get(shard));
+                })
+            .sum();
+    // The report count declared in the job request is more accurate than the estimate.
+    long estimatedReportCount =
+        JobUtils.getInputReportCountFromJobParams(job.requestInfo().getJobParametersMap())
+            .orElse(estimatedShardReportCount);
+
+    long sampledDomainKeyCount =
+        outputDomainShards.parallelStream()
+            .mapToLong(shard -> outputDomainProcessor.readLeadingKeys(shard, sampleSize))
+            .sum();
+
+    InputSample inputSample =
+        InputSample.create(
+            sampledReportCount.get(),
+            sampledErrorCount.get(),
+            estimatedReportCount,
+            sampledDomainKeyCount,
+            sampleErrors.createErrorSummary());
+    logger.info(
+        "Validated {} of an estimated {} reports in {} input shards, {} reports have errors. Read"
+            + " {} output domain buckets from {} shards.",
+        inputSample.sampledReportCount(),
+        inputSample.estimatedReportCount(),
+        shards.size(),
+        inputSample.sampledErrorCount(),
+        sampledDomainKeyCount,
+        outputDomainShards.size());
+    return inputSample;
+  }
+
+  /**
+   * Estimates the number of reports of a shard from the reports read from its start. The reports
+   * are counted exactly if the whole shard was read, and extrapolated from their size otherwise.
+   */
+  static long estimateReportCount(
+      ImmutableList<EncryptedReport> leadingReports, int sampleSize, long shardSizeBytes) {
+    if (leadingReports.size() < sampleSize) {
+      return leadingReports.size();
+    }
+    long sampledBytes =
+        leadingReports.stream().mapToLong(InputSampleValidator::estimateSizeBytes).sum();
+    return Math.max(
+        leadingReports.size(),
+        Math.round((double) shardSizeBytes * leadingReports.size() / sampledBytes));
+  }
+
+  private static long estimateSizeBytes(EncryptedReport report) {
+    return report.payload().sizeIfKnown().or(0L)
+        + report.keyId().length()
+        + report.sharedInfo().length()
+        + REPORT_OVERHEAD_BYTES;
+  }
+
+  /** Reports and output domain buckets validated before the reports of a job are aggregated. */
+  @AutoValue
+  abstract static class InputSample {
+
+    /** Number of reports read from the start of the input shards. */
+    abstract long sampledReportCount();
+
+    /** Number of sampled reports that failed decryption or validation. */
+    abstract long sampledErrorCount();
+
+    /** Number of reports of the job, as declared in the job request or estimated by sampling. */
+    abstract long estimatedReportCount();
+
+    /** Number of buckets read from the start of the output domain shards. */
+    abstract long sampledDomainKeyCount();
+
+    /** Error summary of the sampled reports. */
+    abstract ErrorSummary sampleErrorSummary();
+
+    static InputSample create(
+        long sampledReportCount,
+        long sampledErrorCount,
+        long estimatedReportCount,
+        long sampledDomainKeyCount,
+        ErrorSummary sampleErrorSummary) {
+      return new AutoValue_InputSampleValidator_InputSample(
+          sampledReportCount,
+          sampledErrorCount,
+          estimatedReportCount,
+          sampledDomainKeyCount,
+          sampleErrorSummary);
+    }
+
+    /** Error summary of the sample with the counts projected to all reports of the job. */
+    ErrorSummary projectedErrorSummary() {
+      return ErrorSummary.newBuilder()
+          .addAllErrorCounts(
+              sampleErrorSummary().getErrorCountsList().stream()
+                  .map(
+                      errorCount ->
+                          errorCount.toBuilder().setCount(project(errorCount.getCount())).build())
+                  .collect(toImmutableList()))
+          .build();
+    }
+
+    /** Number of reports of the job projected to fail decryption or validation. */
+    long projectedErrorCount() {
+      return project(sampledErrorCount());
+    }
+
+    /**
+     * Returns true if the errors of the sample conclusively exceed the percentage of the reports,
+     * like {@link ErrorSummaryAggregator#countsAboveThreshold(long)} does for all reports.
+     *
+     * <p>The sample is made of the first reports of each shard, so a projection above the threshold
+     * only fails the job when at least {@value #MIN_SAMPLED_REPORTS_TO_FAIL_EARLY} reports were
+     * sampled and the lower bound of the Wilson score interval of the sampled error rate is above
+     * the threshold. Otherwise the full run decides.
+     */
+    boolean errorsAboveThreshold(double errorThresholdPercentage) {
+      return sampledReportCount() >= MIN_SAMPLED_REPORTS_TO_FAIL_EARLY
+          && errorRateLowerBound() * 100 > errorThresholdPercentage;
+    }
+
+    /**
+     * Returns true if the projected errors exceed the percentage of the reports, whether or not the
+     * sample is large enough to be conclusive.
+     */
+    boolean projectedErrorsAboveThreshold(double errorThresholdPercentage) {
+      return sampledReportCount() > 0
+          && projectedErrorCount() > estimatedReportCount() * errorThresholdPercentage / 100;
+    }
+
+    /** Lower bound of the Wilson score interval of the error rate of the sampled reports. */
+    double errorRateLowerBound() {
+      if (sampledReportCount() == 0) {
+        return 0;
+      }
+      double n = sampledReportCount();
+      double errorRate = sampledErrorCount() / n;
+      double z2 = ERROR_RATE_CONFIDENCE_Z * ERROR_RATE_CONFIDENCE_Z;
+      double center = errorRate + z2 / (2 * n);
+      double margin =
+          ERROR_RATE_CONFIDENCE_Z
+              * Math.sqrt(errorRate * (1 - errorRate) / n + z2 / (4 * n * n));
+      return Math.max(0, (center - margin) / (1 + z2 / n));
+    }
+
+    private long project(long sampledCount) {
+      if (sampledReportCount() == 0) {
+        return 0;
+      }
+      return Math.round((double) sampledCount * estimatedReportCount() / sampledReportCount());
+    }
+  }
+}
@@ -0,0 +1,355 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.aggregation.concurrent;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+import com.google.aggregate.adtech.worker.Annotations.StreamingOutputDomainProcessing;
+import com.google.aggregate.adtech.worker.JobCostEstimator;
+import com.google.aggregate.adtech.worker.ReportDecrypterAndValidator;
+import com.google.aggregate.adtech.worker.aggregation.domain.OutputDomainProcessor;
+import com.google.aggregate.adtech.worker.exceptions.AggregationJobProcessException;
+import com.google.aggregate.adtech.worker.exceptions.ConcurrentShardReadException;
+import com.google.aggregate.adtech.worker.jobclient.model.Job;
+import com.google.aggregate.adtech.worker.model.EncryptedReport;
+import com.google.aggregate.adtech.worker.model.Fact;
+import com.google.aggregate.adtech.worker.model.JobCostEstimate;
+import com.google.aggregate.adtech.worker.model.Report;
+import com.google.aggregate.adtech.worker.model.SharedInfo;
+import com.google.aggregate.protocol.avro.AvroReportsReader;
+import com.google.aggregate.protocol.avro.AvroReportsReaderFactory;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingInputStream;
+import com.google.common.primitives.UnsignedLong;
+import com.google.scp.operator.cpio.blobstorageclient.BlobStorageClient;
+import com.google.scp.operator.cpio.blobstorageclient.BlobStorageClient.BlobStorageClientException;
+import com.google.scp.operator.cpio.blobstorageclient.model.DataLocation;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.stream.Stream;
+import javax.inject.Inject;
+import javax.inject.Provider;
+
+/**
+ * Estimates the cost of a job from the sizes of its input report and output domain shards.
+ *
+ * <p>The number of reports and domain keys is extrapolated from the average record size of a
+ * sample read from the first non-empty shard of each. The first reports of the sampled input shard
+ * are also decrypted, and the numbers of distinct buckets and privacy budget units of the job are
+ * estimated from how often the buckets and shared_info tuples of the sample repeat. Peak heap is
+ * then modelled from the distinct keys the aggregation engine holds, which dominate the memory of a
+ * job, the distinct privacy budget units and the report IDs kept to deduplicate reports.
+ */
+public final class InputSizeJobCostEstimator implements JobCostEstimator {
+
+  // Heap used independently of the job size: decryption key caches, thread stacks and buffers.
+  private static final long BASE_HEAP_BYTES = 512L * 1024 * 1024;
+  // Aggregation engine entry per distinct key: map node, key, bucket, filtering ID and adder.
+  private static final long BYTES_PER_AGGREGATION_KEY = 256;
+  // Privacy budget unit per distinct shared_info tuple and filtering ID: compact unit and fields.
+  private static final long BYTES_PER_PRIVACY_BUDGET_UNIT = 96;
+  // Report ID deduplication set entry per report: set node and UUID.
+  private static final long BYTES_PER_REPORT_ID = 80;
+  // Conflation without streaming copies every key into intermediate maps and fact lists.
+  private static final double NON_STREAMING_KEY_FACTOR = 3.0;
+  // Streaming conflation holds the engine and the facts of one output shard at a time.
+  private static final double STREAMING_KEY_FACTOR = 1.5;
+  // Number of possible 128-bit buckets.
+  private static final double BUCKET_SPACE = Math.pow(2, 128);
+
+  private static final double DEFAULT_BYTES_PER_REPORT = 1024;
+  private static final double DEFAULT_BYTES_PER_DOMAIN_KEY = 24;
+  private static final int MAX_SAMPLE_RECORDS = 10_000;
+  private static final long MAX_SAMPLE_BYTES = 8L * 1024 * 1024;
+  private static final int MAX_DECRYPTED_SAMPLE_REPORTS = 1000;
+  private static final long SECONDS_PER_HOUR = Duration.ofHours(1).toSeconds();
+
+  private final ReportReader reportReader;
+  private final OutputDomainProcessor outputDomainProcessor;
+  private final BlobStorageClient blobStorageClient;
+  private final AvroReportsReaderFactory readerFactory;
+  private final Provider<ReportDecrypterAndValidator> reportDecrypterAndValidatorProvider;
+  private final boolean streamingOutputDomainProcessing;
+
+  @Inject
+  InputSizeJobCostEstimator(
+      ReportReader reportReader,
+      OutputDomainProcessor outputDomainProcessor,
+      BlobStorageClient blobStorageClient,
+      AvroReportsReaderFactory readerFactory,
+      Provider<ReportDecrypterAndValidator> reportDecrypterAndValidatorProvider,
+      @StreamingOutputDomainProcessing Boolean streamingOutputDomainProcessing) {
+    this.reportReader = reportReader;
+    this.outputDomainProcessor = outputDomainProcessor;
+    this.blobStorageClient = blobStorageClient;
+    this.readerFactory = readerFactory;
+    this.reportDecrypterAndValidatorProvider = reportDecrypterAndValidatorProvider;
+    this.streamingOutputDomainProcessing = streamingOutputDomainProcessing;
+  }
+
+  @Override
+  public JobCostEstimate estimate(Job job) throws JobCostEstimationException {
+    try {
+      ImmutableList<DataLocation> inputShards =
+          reportReader.getInputReportsShards(job.requestInfo());
+      ImmutableList<Long> inputShardSizes = getShardSizes(inputShards);
+      long inputBytes = inputShardSizes.stream().mapToLong(Long::longValue).sum();
+      double bytesPerReport =
+          sampleBytesPerRecord(inputShards, inputShardSizes, this::readReports)
+              .orElse(DEFAULT_BYTES_PER_REPORT);
+      long reportCount = (long) Math.ceil(inputBytes / bytesPerReport);
+
+      ImmutableList<DataLocation> domainShards =
+          ConcurrentAggregationProcessor.getOutputDomainLocation(job)
+              .map(outputDomainProcessor::listShards)
+              .orElse(ImmutableList.of());
+      ImmutableList<Long> domainShardSizes = getShardSizes(domainShards);
+      long domainBytes = domainShardSizes.stream().mapToLong(Long::longValue).sum();
+      double bytesPerDomainKey =
+          sampleBytesPerRecord(
+                  domainShards, domainShardSizes, outputDomainProcessor::readInputStream)
+              .orElse(DEFAULT_BYTES_PER_DOMAIN_KEY);
+      long domainKeyCount = (long) Math.ceil(domainBytes / bytesPerDomainKey);
+
+      DecryptedSample sample = decryptSample(job, inputShards, inputShardSizes);
+      long reportKeys = sample.estimateDistinctBuckets(reportCount);
+      // Report buckets are assumed to fall in the output domain, so they only add keys to the
+      // domain keys when they outnumber them.
+      long distinctKeys = Math.max(domainKeyCount, reportKeys);
+      long budgetUnits = sample.estimateDistinctBudgetUnits(reportCount);
+      JobCostEstimate.Builder estimate =
+          JobCostEstimate.builder()
+              .setInputShardCount(inputShards.size())
+              .setInputBytes(inputBytes)
+              .setEstimatedReportCount(reportCount)
+              .setDomainShardCount(domainShards.size())
+              .setDomainBytes(domainBytes)
+              .setEstimatedDistinctKeys(distinctKeys);
+      if (streamingOutputDomainProcessing) {
+        estimate.setEstimatedPeakHeapBytes(
+            peakHeapBytes(reportCount, budgetUnits, distinctKeys, STREAMING_KEY_FACTOR));
+      } else {
+        estimate
+            .setEstimatedPeakHeapBytes(
+                peakHeapBytes(reportCount, budgetUnits, distinctKeys, NON_STREAMING_KEY_FACTOR))
+            .setEstimatedReducedMemoryPeakHeapBytes(
+                peakHeapBytes(reportCount, budgetUnits, distinctKeys, STREAMING_KEY_FACTOR));
+      }
+      return estimate.build();
+    } catch (AggregationJobProcessException | RuntimeException e) {
+      throw new JobCostEstimationException(e);
+    }
+  }
+
+  private static long peakHeapBytes(
+      long reportCount, long budgetUnits, long distinctKeys, double keyFactor) {
+    return BASE_HEAP_BYTES
+        + reportCount * BYTES_PER_REPORT_ID
+        + budgetUnits * BYTES_PER_PRIVACY_BUDGET_UNIT
+        + (long) (distinctKeys * BYTES_PER_AGGREGATION_KEY * keyFactor);
+  }
+
+  /**
+   * Decrypts up to {@link #MAX_DECRYPTED_SAMPLE_REPORTS} reports from the start of the first
+   * non-empty input shard and counts their buckets and privacy budget units. Reports that fail
+   * decryption or validation are not aggregated and are left out of the sample.
+   */
+  private DecryptedSample decryptSample(
+      Job job, ImmutableList<DataLocation> shards, ImmutableList<Long> shardSizes) {
+    DecryptedSample sample = new DecryptedSample();
+    Optional<DataLocation> sampleShard = firstNonEmptyShard(shards, shardSizes);
+    if (sampleShard.isEmpty()) {
+      return sample;
+    }
+    ReportDecrypterAndValidator reportDecrypterAndValidator =
+        reportDecrypterAndValidatorProvider.get();
+    for (EncryptedReport encryptedReport :
+        reportReader.readLeadingReports(sampleShard.get(), MAX_DECRYPTED_SAMPLE_REPORTS)) {
+      reportDecrypterAndValidator
+          .decryptAndValidate(encryptedReport, job)
+          .report()
+          .ifPresent(sample::add);
+    }
+    return sample;
+  }
+
+  /**
+   * Estimates the number of distinct values among {@code populationCount} values from the number of
+   * times each value occurs in a sample of {@code sampleCount} of them, with the guaranteed-error
+   * estimator of Charikar et al.: values seen once in the sample are scaled by the square root of
+   * the sampling ratio, values seen more often are assumed to be all there is. The estimate never
+   * exceeds the population.
+   */
+  static long estimateDistinctCount(
+      Collection<Long> sampledOccurrences, long sampleCount, long populationCount) {
+    if (sampleCount == 0) {
+      return populationCount;
+    }
+    long sampledDistinct = sampledOccurrences.size();
+    if (sampleCount >= populationCount) {
+      return sampledDistinct;
+    }
+    long singletons = sampledOccurrences.stream().filter(count -> count == 1).count();
+    double estimate =
+        Math.sqrt((double) populationCount / sampleCount) * singletons
+            + (sampledDistinct - singletons);
+    return Math.min(populationCount, (long) Math.ceil(estimate));
+  }
+
+  private ImmutableList<Long> getShardSizes(ImmutableList<DataLocation> shards) {
+    return shards.parallelStream()
+        .map(
+            shard -> {
+              try {
+                return blobStorageClient.getBlobSize(shard);
+              } catch (BlobStorageClientException e) {
+                throw new ConcurrentShardReadException(e);
+              }
+            })
+        .collect(toImmutableList());
+  }
+
+  private Stream<?> readReports(InputStream inputStream) {
+    try {
+      AvroReportsReader reader = readerFactory.create(inputStream);
+      return reader.streamRecords();
+    } catch (IOException e) {
+      throw new ConcurrentShardReadException(e);
+    }
+  }
+
+  /**
+   * Reads up to {@link #MAX_SAMPLE_RECORDS} records from the first non-empty shard and returns the
+   * average number of bytes consumed per record. The sample may end in the middle of a record; the
+   * records read until then are still used.
+   */
+  private OptionalDouble sampleBytesPerRecord(
+      ImmutableList<DataLocation> shards,
+      ImmutableList<Long> shardSizes,
+      RecordStreamReader recordStreamReader) {
+    Optional<DataLocation> sampleShard = firstNonEmptyShard(shards, shardSizes);
+    if (sampleShard.isEmpty()) {
+      return OptionalDouble.empty();
+    }
+
+    long records = 0;
+    try (CountingInputStream countingInputStream =
+        new CountingInputStream(
+            ByteStreams.limit(blobStorageClient.getBlob(sampleShard.get()), MAX_SAMPLE_BYTES))) {
+      try {
+        Iterator<?> iterator = recordStreamReader.read(countingInputStream).iterator();
+        while (records < MAX_SAMPLE_RECORDS && iterator.hasNext()) {
+          iterator.next();
+          records++;
+        }
+      } catch (RuntimeException e) {
+        // The sample was cut off in the middle of a record.
+      }
+      return records > 0
+          ? OptionalDouble.of((double) countingInputStream.getCount() / records)
+          : OptionalDouble.empty();
+    } catch (BlobStorageClientException | IOException e) {
+      throw new ConcurrentShardReadException(e);
+    }
+  }
+
+  private static Optional<DataLocation> firstNonEmptyShard(
+      ImmutableList<DataLocation> shards, ImmutableList<Long> shardSizes) {
+    for (int i = 0; i < shards.size(); i++) {
+      if (shardSizes.get(i) > 0) {
+        return Optional.of(shards.get(i));
+      }
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Buckets and privacy budget units of the reports decrypted from the start of an input shard,
+   * with the number of times each occurs.
+   */
+  private static final class DecryptedSample {
+    private final Map<BigInteger, Long> buckets = new HashMap<>();
+    private final Map<ImmutableList<Object>, Long> budgetUnits = new HashMap<>();
+    private long reportCount = 0;
+    private long contributionCount = 0;
+
+    void add(Report report) {
+      reportCount++;
+      SharedInfo sharedInfo = report.sharedInfo();
+      for (Fact fact : report.payload().data()) {
+        contributionCount++;
+        buckets.merge(fact.bucket(), 1L, Long::sum);
+        // The fields a privacy budget key is generated from, with the report time in hours.
+        budgetUnits.merge(
+            ImmutableList.of(
+                sharedInfo.reportingOrigin(),
+                Math.floorDiv(sharedInfo.scheduledReportTime().getEpochSecond(), SECONDS_PER_HOUR),
+                sharedInfo.version(),
+                sharedInfo.api().orElse(""),
+                sharedInfo.destination().orElse(""),
+                sharedInfo.sourceRegistrationTime().map(Instant::toString).orElse(""),
+                fact.id().map(UnsignedLong::toString).orElse("")),
+            1L,
+            Long::sum);
+      }
+    }
+
+    /**
+     * Estimates the distinct buckets of the job, capped by its contributions and by the bucket
+     * space. Without a decrypted sample, every report is assumed to add a bucket.
+     */
+    long estimateDistinctBuckets(long jobReportCount) {
+      if (reportCount == 0) {
+        return jobReportCount;
+      }
+      long jobContributionCount =
+          (long) Math.ceil((double) contributionCount * jobReportCount / reportCount);
+      return (long)
+          Math.min(
+              BUCKET_SPACE,
+              estimateDistinctCount(buckets.values(), contributionCount, jobContributionCount));
+    }
+
+    /**
+     * Estimates the distinct privacy budget units of the job, i.e. its distinct shared_info tuples
+     * and filtering IDs. Without a decrypted sample, every report is assumed to be its own unit.
+     */
+    long estimateDistinctBudgetUnits(long jobReportCount) {
+      if (reportCount == 0) {
+        return jobReportCount;
+      }
+      long jobContributionCount =
+          (long) Math.ceil((double) contributionCount * jobReportCount / reportCount);
+      return estimateDistinctCount(budgetUnits.values(), contributionCount, jobContributionCount);
+    }
+  }
+
+  /** Reads records of any type from a shard. */
+  private interface RecordStreamReader {
+    Stream<?> read(InputStream inputStream);
+  }
+}
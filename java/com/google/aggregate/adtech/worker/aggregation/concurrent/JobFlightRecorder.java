@@ -0,0 +1,169 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.aggregation.concurrent;
+
+import static com.google.aggregate.adtech.worker.shared.model.BackendModelUtil.toJobKeyString;
+
+import com.google.aggregate.adtech.worker.JobFlightRecordingConfig;
+import com.google.aggregate.adtech.worker.jobclient.model.Job;
+import com.google.aggregate.adtech.worker.util.DebugSupportHelper;
+import com.google.aggregate.perf.JobAllocationTracker;
+import com.google.aggregate.perf.PipelineEvents;
+import com.google.aggregate.perf.PipelineEvents.JobAllocationEvent;
+import com.google.scp.operator.cpio.blobstorageclient.BlobStorageClient;
+import com.google.scp.operator.cpio.blobstorageclient.BlobStorageClient.BlobStorageClientException;
+import com.google.scp.operator.cpio.blobstorageclient.model.DataLocation;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import javax.inject.Inject;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Profiles the jobs processed by the worker. While a job runs, the {@link PipelineEvents} are
+ * tagged with its key, and the heap allocated by the worker threads is logged and recorded as a
+ * {@link JobAllocationEvent} when the job finishes.
+ *
+ * <p>When a {@link JobFlightRecordingConfig} is bound, debug runs are also recorded with Java
+ * Flight Recorder and the recording is uploaded next to the debug summary reports of the job. Other
+ * jobs are never recorded, as the recording leaves the worker. Recordings are bounded in size and
+ * only hold the pipeline events, which carry timings and public sizes, and low overhead JVM events;
+ * events that may carry job data or secrets, such as exception messages and environment variables,
+ * are not recorded.
+ */
+final class JobFlightRecorder {
+
+  private static final Logger logger = LoggerFactory.getLogger(JobFlightRecorder.class);
+
+  private static final String RECORDING_EXTENSION = ".jfr";
+  private static final String AVRO_EXTENSION = ".avro";
+  private static final Duration EXECUTION_SAMPLE_PERIOD = Duration.ofMillis(20);
+  private static final Duration BLOCKING_THRESHOLD = Duration.ofMillis(20);
+
+  private final Optional<JobFlightRecordingConfig> config;
+  private final BlobStorageClient blobStorageClient;
+
+  @Inject
+  JobFlightRecorder(
+      Optional<JobFlightRecordingConfig> config, BlobStorageClient blobStorageClient) {
+    this.config = config;
+    this.blobStorageClient = blobStorageClient;
+  }
+
+  /** Starts profiling the job. The returned profile must be closed when the job is finished. */
+  JobProfile start(Job job) {
+    String jobKey = toJobKeyString(job.jobKey());
+    PipelineEvents.setCurrentJobKey(jobKey);
+    Optional<Recording> recording =
+        DebugSupportHelper.isDebugRun(job)
+            ? config.map(JobFlightRecorder::startRecording)
+            : Optional.empty();
+    return new JobProfile(job, jobKey, recording);
+  }
+
+  private static Recording startRecording(JobFlightRecordingConfig recordingConfig) {
+    Recording recording = new Recording();
+    recording.setName("aggregation-job");
+    recording.setMaxSize(recordingConfig.maxSizeBytes());
+    recording.setToDisk(true);
+    PipelineEvents.eventClasses().forEach(recording::enable);
+    recording.enable("jdk.ExecutionSample").withPeriod(EXECUTION_SAMPLE_PERIOD);
+    recording.enable("jdk.ThreadPark").withThreshold(BLOCKING_THRESHOLD).withStackTrace();
+    recording.enable("jdk.JavaMonitorEnter").withThreshold(BLOCKING_THRESHOLD).withStackTrace();
+    recording.enable("jdk.GarbageCollection");
+    recording.enable("jdk.GCHeapSummary");
+    recording.enable("jdk.CPULoad").withPeriod(Duration.ofSeconds(1));
+    // Only available from JDK 16; settings of unknown events are ignored.
+    recording.enable("jdk.ObjectAllocationSample").withStackTrace();
+    recording.start();
+    return recording;
+  }
+
+  /** Dumps the recording of a finished job and uploads it next to its debug summary reports. */
+  private void uploadRecording(Job job, String jobKey, Recording recording) {
+    Path localDirectory = config.get().localDirectory();
+    Path localFile =
+        localDirectory.resolve("job-" + jobKey + "-" + UUID.randomUUID() + RECORDING_EXTENSION);
+    try (recording) {
+      recording.stop();
+      Files.createDirectories(localDirectory);
+      recording.dump(localFile);
+      blobStorageClient.putBlob(getRecordingLocation(job), localFile);
+    } catch (IOException | BlobStorageClientException | IllegalStateException e) {
+      // Profiling must not fail the job.
+      logger.warn("Failed to upload the flight recording of job " + jobKey, e);
+    } finally {
+      try {
+        Files.deleteIfExists(localFile);
+      } catch (IOException e) {
+        logger.warn("Failed to delete the flight recording " + localFile, e);
+      }
+    }
+  }
+
+  /** Returns e.g. {@code output/debug/summary.jfr} for the output prefix {@code output/summary}. */
+  private static DataLocation getRecordingLocation(Job job) {
+    String outputDataBlobPrefix = job.requestInfo().getOutputDataBlobPrefix();
+    String recordingPrefix =
+        outputDataBlobPrefix.endsWith(AVRO_EXTENSION)
+            ? outputDataBlobPrefix.substring(
+                0, outputDataBlobPrefix.length() - AVRO_EXTENSION.length())
+            : outputDataBlobPrefix;
+    return BlobStorageClient.getDataLocation(
+        job.requestInfo().getOutputDataBucketName(),
+        DebugSupportHelper.getDebugFilePrefix(recordingPrefix) + RECORDING_EXTENSION);
+  }
+
+  /** Profile of a running job. */
+  final class JobProfile implements AutoCloseable {
+    private final Job job;
+    private final String jobKey;
+    private final Optional<Recording> recording;
+    private final JobAllocationTracker allocationTracker;
+    private final JobAllocationEvent allocationEvent;
+
+    private JobProfile(Job job, String jobKey, Optional<Recording> recording) {
+      this.job = job;
+      this.jobKey = jobKey;
+      this.recording = recording;
+      this.allocationTracker = JobAllocationTracker.start();
+      this.allocationEvent = new JobAllocationEvent();
+      allocationEvent.begin();
+    }
+
+    /** Records the allocation of the job and uploads its recording, if any. */
+    @Override
+    public void close() {
+      long allocatedBytes = allocationTracker.allocatedBytes();
+      long peakHeapBytes = allocationTracker.peakHeapBytes();
+      allocationEvent.setAllocation(allocatedBytes, peakHeapBytes);
+      allocationEvent.commit();
+      PipelineEvents.clearCurrentJobKey();
+      logger.info(
+          "Job {} allocated {} MiB, peak heap usage {} MiB.",
+          jobKey,
+          allocatedBytes / (1024 * 1024),
+          peakHeapBytes / (1024 * 1024));
+      recording.ifPresent(jobRecording -> uploadRecording(job, jobKey, jobRecording));
+    }
+  }
+}
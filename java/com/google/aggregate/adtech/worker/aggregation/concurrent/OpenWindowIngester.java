@@ -0,0 +1,170 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.aggregation.concurrent;
+
+import static com.google.aggregate.adtech.worker.shared.model.BackendModelUtil.toJobKeyString;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+import com.google.aggregate.adtech.worker.Annotations.OpenWindowPollInterval;
+import com.google.aggregate.adtech.worker.ErrorSummaryAggregator;
+import com.google.aggregate.adtech.worker.aggregation.engine.AggregationEngine;
+import com.google.aggregate.adtech.worker.exceptions.AggregationJobProcessException;
+import com.google.aggregate.adtech.worker.jobclient.model.Job;
+import com.google.aggregate.adtech.worker.util.JobUtils;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.errorprone.annotations.Var;
+import com.google.scp.operator.cpio.blobstorageclient.model.DataLocation;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.inject.Inject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Aggregates the reports of an open window job while its window is open, i.e. before the time in
+ * its {@value JobUtils#JOB_PARAM_WINDOW_CLOSE_TIME} job parameter. The window is closed no later
+ * than {@link JobUtils#getMaxWindowCloseTime}, so that the job finishes within its processing
+ * timeout even if the worker didn't validate the close time.
+ *
+ * <p>The input prefixes of the job are listed periodically, and the shards that landed since the
+ * previous listing are decrypted and aggregated into the aggregation state of the job. The state
+ * is checkpointed after each listing if checkpointing is configured, so that a retry of the job
+ * resumes from the shards aggregated so far. Shards must be written atomically, e.g. uploaded as
+ * a whole, since a shard is not read again once it was aggregated.
+ *
+ * <p>Nothing is noised, charged to the privacy budget or written as results here; the job
+ * continues like any other job once the window is closed, with the shards not yet aggregated.
+ */
+final class OpenWindowIngester {
+
+  /** Time between two listings of the input prefixes when no interval is configured. */
+  static final Duration DEFAULT_POLL_INTERVAL = Duration.ofMinutes(1);
+
+  private static final Logger logger = LoggerFactory.getLogger(OpenWindowIngester.class);
+
+  private final ReportReader reportReader;
+  private final ReportAggregator reportAggregator;
+  private final AggregationCheckpointStore checkpointStore;
+  private final Clock clock;
+  private final Duration pollInterval;
+
+  @Inject
+  OpenWindowIngester(
+      ReportReader reportReader,
+      ReportAggregator reportAggregator,
+      AggregationCheckpointStore checkpointStore,
+      Clock clock,
+      @OpenWindowPollInterval Optional<Duration> pollInterval) {
+    this.reportReader = reportReader;
+    this.reportAggregator = reportAggregator;
+    this.checkpointStore = checkpointStore;
+    this.clock = clock;
+    this.pollInterval = pollInterval.orElse(DEFAULT_POLL_INTERVAL);
+  }
+
+  /** Returns true if the job has a window close time. */
+  static boolean isOpenWindowJob(Job job) {
+    return JobUtils.getWindowCloseTime(job).isPresent();
+  }
+
+  /**
+   * Aggregates the shards of the job as they land until its window is closed or the report errors
+   * exceed the threshold of the job. Returns immediately if the window is already closed.
+   *
+   * @param checkpoint progress restored from a previous attempt of the job, whose aggregation state
+   *     has already been restored into {@code aggregationEngines} and {@code errorAggregator}.
+   * @return the progress of the job once the window is closed, to be passed on to {@link
+   *     ReportAggregator#processReports} so that only the shards that landed last are read.
+   */
+  AggregationCheckpoint ingestUntilClosed(
+      Job job,
+      AtomicLong totalReportCount,
+      ImmutableList<AggregationEngine> aggregationEngines,
+      ErrorSummaryAggregator errorAggregator,
+      AggregationCheckpoint checkpoint)
+      throws AggregationJobProcessException, InterruptedException {
+    String jobKey = toJobKeyString(job.jobKey());
+    @Var Instant windowCloseTime = JobUtils.getWindowCloseTime(job).get();
+    Instant maxWindowCloseTime = JobUtils.getMaxWindowCloseTime(job);
+    if (windowCloseTime.isAfter(maxWindowCloseTime)) {
+      logger.warn(
+          "Window of job {} closes at {}, after the latest close time {}, closing it then.",
+          jobKey,
+          windowCloseTime,
+          maxWindowCloseTime);
+      windowCloseTime = maxWindowCloseTime;
+    }
+    logger.info(
+        "Aggregating shards of job {} until its window closes at {}.", jobKey, windowCloseTime);
+    @Var AggregationCheckpoint progress = checkpoint;
+    while (clock.instant().isBefore(windowCloseTime)) {
+      progress =
+          ingestNewShards(job, totalReportCount, aggregationEngines, errorAggregator, progress);
+      if (errorAggregator.countsAboveThreshold()) {
+        logger.info("Report errors of job {} exceed the threshold, closing its window.", jobKey);
+        break;
+      }
+      long untilCloseMillis = Duration.between(clock.instant(), windowCloseTime).toMillis();
+      Thread.sleep(Math.max(1, Math.min(untilCloseMillis, pollInterval.toMillis())));
+    }
+    logger.info(
+        "Window of job {} is closed after {} input shards and {} reports.",
+        jobKey,
+        progress.completedShards().size(),
+        progress.reportCount());
+    return progress;
+  }
+
+  /** Aggregates the shards of the job that are not part of {@code progress} yet. */
+  private AggregationCheckpoint ingestNewShards(
+      Job job,
+      AtomicLong totalReportCount,
+      ImmutableList<AggregationEngine> aggregationEngines,
+      ErrorSummaryAggregator errorAggregator,
+      AggregationCheckpoint progress)
+      throws AggregationJobProcessException {
+    ImmutableList<DataLocation> newShards =
+        reportReader.listInputReportsShards(job.requestInfo()).stream()
+            .filter(
+                shard ->
+                    !progress.completedShards().contains(shard.blobStoreDataLocation().key()))
+            .collect(toImmutableList());
+    if (newShards.isEmpty()) {
+      return progress;
+    }
+    reportAggregator.processReports(
+        totalReportCount, job, newShards, aggregationEngines, errorAggregator, progress);
+    AggregationCheckpoint newProgress =
+        AggregationCheckpoint.create(
+            ImmutableSet.<String>builder()
+                .addAll(progress.completedShards())
+                .addAll(
+                    newShards.stream()
+                        .map(shard -> shard.blobStoreDataLocation().key())
+                        .collect(toImmutableList()))
+                .build(),
+            totalReportCount.get());
+    if (checkpointStore.isEnabled() && !errorAggregator.countsAboveThreshold()) {
+      checkpointStore.save(job, aggregationEngines, errorAggregator, newProgress);
+    }
+    return newProgress;
+  }
+}
@@ -17,8 +17,10 @@
 package com.google.aggregate.adtech.worker.aggregation.concurrent;
 
 import static com.google.aggregate.adtech.worker.shared.model.BackendModelUtil.toJobKeyString;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 
 import com.google.aggregate.adtech.worker.Annotations;
+import com.google.aggregate.adtech.worker.Annotations.ThreadConfinedAggregationMaxBuckets;
 import com.google.aggregate.adtech.worker.ErrorSummaryAggregator;
 import com.google.aggregate.adtech.worker.ReportDecrypterAndValidator;
 import com.google.aggregate.adtech.worker.aggregation.engine.AggregationEngine;
@@ -26,18 +28,35 @@ import com.google.aggregate.adtech.worker.exceptions.AggregationJobProcessExcept
 import com.google.aggregate.adtech.worker.model.AvroRecordEncryptedReportConverter;
 import com.google.aggregate.adtech.worker.model.DecryptionValidationResult;
 import com.google.aggregate.adtech.worker.model.EncryptedReport;
+import com.google.aggregate.adtech.worker.model.Report;
+import com.google.aggregate.perf.PipelineEvents.AggregateBatchEvent;
+import com.google.aggregate.perf.PipelineEvents.DecryptBatchEvent;
+import com.google.aggregate.perf.PipelineEvents.ShardReadEvent;
+import com.google.aggregate.perf.PipelineStage;
+import com.google.aggregate.perf.StageMetricsRegistry;
+import com.google.aggregate.perf.StopwatchRegistry;
 import com.google.aggregate.protocol.avro.AvroReportsReaderFactory;
+import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.privacysandbox.otel.OTelConfiguration;
-import com.google.privacysandbox.otel.Timer;
 import com.google.scp.operator.cpio.blobstorageclient.model.DataLocation;
+import com.google.scp.operator.cpio.cryptoclient.model.ErrorReason;
 import com.google.aggregate.adtech.worker.jobclient.model.Job;
-import com.google.aggregate.protos.shared.backend.RequestInfoProto.RequestInfo;
+import io.opentelemetry.api.logs.Severity;
+import io.opentelemetry.api.metrics.LongCounter;
 import io.reactivex.rxjava3.core.Flowable;
 import io.reactivex.rxjava3.core.Observable;
 import io.reactivex.rxjava3.schedulers.Schedulers;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
 import javax.inject.Inject;
 import javax.inject.Provider;
@@ -56,14 +75,22 @@ final class ReportAggregator {
   private final int MAX_REPORTS_READ_BUFFER_SIZE = 1000;
   // Buffer size for decrypting and aggregating data on the same thread
   private final int MAX_REPORTS_PROCESS_BUFFER_SIZE = 1000;
+  // Number of input shards processed between two possible checkpoints.
+  private static final int SHARDS_PER_SEGMENT = NUM_READ_THREADS * 4;
 
   private final Provider<ReportDecrypterAndValidator> reportDecrypterAndValidatorProvider;
   private final ListeningExecutorService blockingThreadPool;
   private final ListeningExecutorService nonBlockingThreadPool;
   private final AvroReportsReaderFactory readerFactory;
   private final AvroRecordEncryptedReportConverter encryptedReportConverter;
-  private final OTelConfiguration oTelConfiguration;
   private final ReportReader reportReader;
+  private final StageMetricsRegistry stageMetrics;
+  private final AggregationCheckpointStore checkpointStore;
+  private final DecryptionKeyPrefetcher decryptionKeyPrefetcher;
+  private final StopwatchRegistry stopwatches;
+  private final Optional<Integer> threadConfinedAggregationMaxBuckets;
+  private final OTelConfiguration oTelConfiguration;
+  private final LongCounter keyPrefetchFailureCounter;
 
   @Inject
   ReportAggregator(
@@ -72,15 +99,27 @@ final class ReportAggregator {
       @Annotations.NonBlockingThreadPool ListeningExecutorService nonBlockingThreadPool,
       AvroReportsReaderFactory readerFactory,
       AvroRecordEncryptedReportConverter encryptedReportConverter,
-      OTelConfiguration oTelConfiguration,
-      ReportReader reportReader) {
+      ReportReader reportReader,
+      StageMetricsRegistry stageMetrics,
+      AggregationCheckpointStore checkpointStore,
+      DecryptionKeyPrefetcher decryptionKeyPrefetcher,
+      StopwatchRegistry stopwatches,
+      @ThreadConfinedAggregationMaxBuckets Optional<Integer> threadConfinedAggregationMaxBuckets,
+      OTelConfiguration oTelConfiguration) {
     this.reportDecrypterAndValidatorProvider = reportDecrypterAndValidatorProvider;
     this.blockingThreadPool = blockingThreadPool;
     this.nonBlockingThreadPool = nonBlockingThreadPool;
     this.readerFactory = readerFactory;
     this.encryptedReportConverter = encryptedReportConverter;
-    this.oTelConfiguration = oTelConfiguration;
     this.reportReader = reportReader;
+    this.stageMetrics = stageMetrics;
+    this.checkpointStore = checkpointStore;
+    this.decryptionKeyPrefetcher = decryptionKeyPrefetcher;
+    this.stopwatches = stopwatches;
+    this.threadConfinedAggregationMaxBuckets = threadConfinedAggregationMaxBuckets;
+    this.oTelConfiguration = oTelConfiguration;
+    this.keyPrefetchFailureCounter =
+        oTelConfiguration.createProdCounter("decryption_key_prefetch_failure_counter");
   }
 
   /**
@@ -98,19 +137,179 @@ final class ReportAggregator {
       AggregationEngine aggregationEngine,
       ErrorSummaryAggregator errorAggregator)
       throws AggregationJobProcessException {
-    RequestInfo requestInfo = job.requestInfo();
-    ImmutableList<DataLocation> dataShards = reportReader.getInputReportsShards(requestInfo);
+    processReports(
+        totalReportCount,
+        job,
+        ImmutableList.of(aggregationEngine),
+        errorAggregator,
+        AggregationCheckpoint.empty());
+  }
+
+  /**
+   * Processes the reports of the input shards not yet completed in {@code checkpoint}. If
+   * checkpointing is enabled, the shards are processed in segments and the aggregation state is
+   * checkpointed between segments at most once per checkpoint interval.
+   *
+   * @param aggregationEngines one engine per filtering ID set of the job. Each report is decrypted
+   *     and validated once and then aggregated by every engine.
+   * @param checkpoint progress restored from a previous attempt of the job, whose aggregation state
+   *     has already been restored into {@code aggregationEngines} and {@code errorAggregator}.
+   */
+  void processReports(
+      AtomicLong totalReportCount,
+      Job job,
+      ImmutableList<AggregationEngine> aggregationEngines,
+      ErrorSummaryAggregator errorAggregator,
+      AggregationCheckpoint checkpoint)
+      throws AggregationJobProcessException {
+    processReports(
+        totalReportCount,
+        job,
+        reportReader.getInputReportsShards(job.requestInfo()),
+        aggregationEngines,
+        errorAggregator,
+        checkpoint);
+  }
+
+  /**
+   * Reports the decryption keys that could not be fetched at job start as a metric and in the
+   * production log, before the reports encrypted with them fail decryption.
+   */
+  private void reportFailedKeys(Job job, ImmutableMap<String, ErrorReason> failedKeys) {
+    if (failedKeys.isEmpty()) {
+      return;
+    }
+    keyPrefetchFailureCounter.add(failedKeys.size());
+    oTelConfiguration.writeProdLog(
+        String.format(
+            "Job %s: %d decryption keys could not be fetched at job start: %s",
+            toJobKeyString(job.jobKey()), failedKeys.size(), failedKeys),
+        Severity.WARN);
+  }
+
+  /**
+   * Processes the reports of the given input shards not yet completed in {@code checkpoint}, e.g.
+   * the shards of a sub-task of a distributed job, like {@link #processReports(AtomicLong, Job,
+   * ImmutableList, ErrorSummaryAggregator, AggregationCheckpoint)}.
+   */
+  void processReports(
+      AtomicLong totalReportCount,
+      Job job,
+      ImmutableList<DataLocation> inputShards,
+      ImmutableList<AggregationEngine> aggregationEngines,
+      ErrorSummaryAggregator errorAggregator,
+      AggregationCheckpoint checkpoint)
+      throws AggregationJobProcessException {
+    ImmutableList<DataLocation> remainingShards =
+        inputShards.stream()
+            .filter(
+                dataShard ->
+                    !checkpoint
+                        .completedShards()
+                        .contains(dataShard.blobStoreDataLocation().key()))
+            .collect(toImmutableList());
+    if (!checkpoint.completedShards().isEmpty()) {
+      logger.info(
+          "Resuming job from checkpoint, skipping {} completed input shards.",
+          checkpoint.completedShards().size());
+    }
+    // The shard sizes are looked up once and reused when the shards are opened.
+    ImmutableMap<DataLocation, Long> shardSizes = reportReader.getShardSizes(remainingShards);
+    ImmutableList<DataLocation> dataShards =
+        ReportReader.sortLargestFirst(remainingShards, shardSizes);
+    if (decryptionKeyPrefetcher.isEnabled()) {
+      Stopwatch prefetchStopwatch =
+          stopwatches.createStopwatch("key-prefetch-" + toJobKeyString(job.jobKey())).start();
+      ImmutableMap<String, ErrorReason> failedKeys =
+          decryptionKeyPrefetcher.prefetch(dataShards, shardSizes);
+      prefetchStopwatch.stop();
+      reportFailedKeys(job, failedKeys);
+    }
     // Initialize reportDecrypterAndValidator once per job here for all threads in the flowable
     // block below.
     ReportDecrypterAndValidator reportDecrypterAndValidator =
         reportDecrypterAndValidatorProvider.get();
-    Flowable.fromStream(dataShards.stream())
+    if (!checkpointStore.isEnabled()) {
+      processShards(
+          dataShards,
+          shardSizes,
+          totalReportCount,
+          job,
+          aggregationEngines,
+          errorAggregator,
+          reportDecrypterAndValidator);
+      return;
+    }
+
+    Set<String> completedShards = new LinkedHashSet<>(checkpoint.completedShards());
+    Stopwatch sinceLastCheckpoint = Stopwatch.createStarted();
+    // Each segment is processed to completion before the next one starts, so the aggregation state
+    // between segments only holds contributions of completed shards.
+    List<List<DataLocation>> segments = Lists.partition(dataShards, SHARDS_PER_SEGMENT);
+    for (int i = 0; i < segments.size(); i++) {
+      List<DataLocation> segment = segments.get(i);
+      processShards(
+          segment,
+          shardSizes,
+          totalReportCount,
+          job,
+          aggregationEngines,
+          errorAggregator,
+          reportDecrypterAndValidator);
+      if (errorAggregator.countsAboveThreshold()) {
+        return;
+      }
+      segment.forEach(dataShard -> completedShards.add(dataShard.blobStoreDataLocation().key()));
+      boolean hasRemainingSegments = i < segments.size() - 1;
+      if (hasRemainingSegments
+          && sinceLastCheckpoint.elapsed().compareTo(checkpointStore.interval()) >= 0) {
+        checkpointStore.save(
+            job,
+            aggregationEngines,
+            errorAggregator,
+            AggregationCheckpoint.create(
+                ImmutableSet.copyOf(completedShards), totalReportCount.get()));
+        sinceLastCheckpoint.reset().start();
+      }
+    }
+  }
+
+  private void processShards(
+      List<DataLocation> dataShards,
+      Map<DataLocation, Long> shardSizes,
+      AtomicLong totalReportCount,
+      Job job,
+      ImmutableList<AggregationEngine> aggregationEngines,
+      ErrorSummaryAggregator errorAggregator,
+      ReportDecrypterAndValidator reportDecrypterAndValidator) {
+    String jobKey = toJobKeyString(job.jobKey());
+    Flowable.fromIterable(dataShards)
         // This would open connections with data and max concurrency is NUM_READ_THREADS.
         .flatMap(
-            dataLocation ->
-                reportReader
-                    .getEncryptedReports(dataLocation)
-                    .subscribeOn(Schedulers.from(blockingThreadPool)),
+            dataLocation -> {
+              Stopwatch shardStopwatch =
+                  stopwatches.createStopwatch(
+                      "shard-read-" + jobKey + "-" + dataLocation.blobStoreDataLocation().key());
+              ShardReadEvent shardReadEvent = new ShardReadEvent();
+              return reportReader
+                  .getEncryptedReports(dataLocation, shardSizes.get(dataLocation))
+                  .doOnSubscribe(
+                      unused -> {
+                        shardStopwatch.start();
+                        shardReadEvent.begin();
+                      })
+                  .doFinally(
+                      () -> {
+                        if (shardStopwatch.isRunning()) {
+                          shardStopwatch.stop();
+                        }
+                        shardReadEvent.setShard(
+                            dataLocation.blobStoreDataLocation().key(),
+                            shardSizes.get(dataLocation));
+                        shardReadEvent.commit();
+                      })
+                  .subscribeOn(Schedulers.from(blockingThreadPool));
+            },
             false,
             NUM_READ_THREADS,
             MAX_REPORTS_READ_BUFFER_SIZE)
@@ -126,7 +325,7 @@ final class ReportAggregator {
                             decryptAndAggregateReports(
                                 encryptedReports,
                                 job,
-                                aggregationEngine,
+                                aggregationEngines,
                                 errorAggregator,
                                 reportDecrypterAndValidator)),
             NUM_PROCESS_THREADS)
@@ -144,23 +343,47 @@ final class ReportAggregator {
   private Observable decryptAndAggregateReports(
       List<EncryptedReport> reports,
       Job job,
-      AggregationEngine aggregationEngine,
+      ImmutableList<AggregationEngine> aggregationEngines,
       ErrorSummaryAggregator errorAggregator,
       ReportDecrypterAndValidator reportDecrypterAndValidator) {
-    reports.forEach(
-        report -> {
-          DecryptionValidationResult result;
-          try (Timer t =
-              oTelConfiguration.createDebugTimerStarted(
-                  "decryption_time_per_report", toJobKeyString(job.jobKey()))) {
-            result = reportDecrypterAndValidator.decryptAndValidate(report, job);
-          }
-          if (result.report().isPresent()) {
-            aggregationEngine.accept(result.report().get());
-          } else {
-            errorAggregator.add(result);
-          }
-        });
+    // The batch is decrypted before it is aggregated, so that both stages can be profiled as a
+    // whole.
+    DecryptBatchEvent decryptBatchEvent = new DecryptBatchEvent();
+    decryptBatchEvent.begin();
+    List<Report> decryptedReports = new ArrayList<>(reports.size());
+    for (EncryptedReport report : reports) {
+      DecryptionValidationResult result =
+          reportDecrypterAndValidator.decryptAndValidate(report, job);
+      if (result.report().isPresent()) {
+        decryptedReports.add(result.report().get());
+      } else {
+        errorAggregator.add(result);
+      }
+    }
+    stageMetrics.addItems(PipelineStage.DECRYPT, reports.size());
+    decryptBatchEvent.setReports(reports.size(), reports.size() - decryptedReports.size());
+    decryptBatchEvent.commit();
+
+    AggregateBatchEvent aggregateBatchEvent = new AggregateBatchEvent();
+    aggregateBatchEvent.begin();
+    if (threadConfinedAggregationMaxBuckets.isPresent()) {
+      // The batch is summed on this thread, so the shared aggregation is updated once per bucket
+      // of the batch instead of once per report. The aggregation latency is sampled per batch.
+      long aggregateStartNanos = stageMetrics.startNanos();
+      for (AggregationEngine aggregationEngine : aggregationEngines) {
+        aggregationEngine.accept(decryptedReports, threadConfinedAggregationMaxBuckets.get());
+      }
+      stageMetrics.recordSince(PipelineStage.AGGREGATE, aggregateStartNanos);
+    } else {
+      for (Report report : decryptedReports) {
+        long aggregateStartNanos = stageMetrics.startNanos();
+        for (AggregationEngine aggregationEngine : aggregationEngines) {
+          aggregationEngine.accept(report);
+        }
+        stageMetrics.recordSince(PipelineStage.AGGREGATE, aggregateStartNanos);
+      }
+    }
+    aggregateBatchEvent.commit();
     return Observable.empty();
   }
 }
@@ -18,13 +18,20 @@ package com.google.aggregate.adtech.worker.aggregation.concurrent;
 
 import static com.google.aggregate.adtech.worker.AggregationWorkerReturnCode.INPUT_DATA_READ_FAILED;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
 
 import com.google.aggregate.adtech.worker.exceptions.AggregationJobProcessException;
 import com.google.aggregate.adtech.worker.exceptions.ConcurrentShardReadException;
 import com.google.aggregate.adtech.worker.model.AvroRecordEncryptedReportConverter;
 import com.google.aggregate.adtech.worker.model.EncryptedReport;
+import com.google.aggregate.perf.PipelineStage;
+import com.google.aggregate.perf.StageMetricsRegistry;
+import com.google.aggregate.protocol.avro.AvroReportRecord;
+import com.google.aggregate.protocol.avro.AvroReportsReader;
 import com.google.aggregate.protocol.avro.AvroReportsReaderFactory;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.scp.operator.cpio.blobstorageclient.BlobStorageClient;
 import com.google.scp.operator.cpio.blobstorageclient.BlobStorageClient.BlobStorageClientException;
 import com.google.scp.operator.cpio.blobstorageclient.model.DataLocation;
@@ -35,7 +42,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 import javax.inject.Inject;
 import org.apache.avro.AvroRuntimeException;
@@ -49,15 +60,21 @@ final class ReportReader {
   private final AvroReportsReaderFactory readerFactory;
   private final AvroRecordEncryptedReportConverter encryptedReportConverter;
   private final BlobStorageClient blobStorageClient;
+  private final StageMetricsRegistry stageMetrics;
+  private final ShardReadWatchdog shardReadWatchdog;
 
   @Inject
   ReportReader(
       AvroReportsReaderFactory readerFactory,
       AvroRecordEncryptedReportConverter encryptedReportConverter,
-      BlobStorageClient blobStorageClient) {
+      BlobStorageClient blobStorageClient,
+      StageMetricsRegistry stageMetrics,
+      ShardReadWatchdog shardReadWatchdog) {
     this.readerFactory = readerFactory;
     this.encryptedReportConverter = encryptedReportConverter;
     this.blobStorageClient = blobStorageClient;
+    this.stageMetrics = stageMetrics;
+    this.shardReadWatchdog = shardReadWatchdog;
   }
 
   /**
@@ -67,12 +84,97 @@ final class ReportReader {
    * manage resources by closing inputStream immediately after use.
    */
   Flowable<EncryptedReport> getEncryptedReports(DataLocation shard) {
+    return getEncryptedReports(shard, OptionalLong.empty());
+  }
+
+  /**
+   * Returns a reactive stream of {@code EncryptedReport} from the given shard, whose size was
+   * already looked up with {@link #getShardSizes}.
+   */
+  Flowable<EncryptedReport> getEncryptedReports(DataLocation shard, long shardSizeBytes) {
+    return getEncryptedReports(shard, OptionalLong.of(shardSizeBytes));
+  }
+
+  private Flowable<EncryptedReport> getEncryptedReports(
+      DataLocation shard, OptionalLong shardSizeBytes) {
     return Flowable.using(
-        () -> getInputStream(shard),
+        () -> getInputStream(shard, shardSizeBytes),
         inputStream -> Flowable.fromStream(readReportsFromInputStream(inputStream)),
         InputStream::close);
   }
 
+  /**
+   * Returns the distinct key IDs of the first {@code maxReports} reports of the shard. Only the
+   * leading blocks of the shard are read, and the read is not recorded in the stage metrics.
+   *
+   * @throws ConcurrentShardReadException when there is an error reading the shard.
+   */
+  ImmutableSet<String> readKeyIds(DataLocation shard, int maxReports) {
+    try (InputStream inputStream = blobStorageClient.getBlob(shard);
+        AvroReportsReader reader = readerFactory.create(inputStream)) {
+      return reader
+          .streamRecords()
+          .limit(maxReports)
+          .map(AvroReportRecord::keyId)
+          .collect(toImmutableSet());
+    } catch (BlobStorageClientException | IOException | AvroRuntimeException e) {
+      throw new ConcurrentShardReadException(e);
+    }
+  }
+
+  /**
+   * Returns the first {@code maxReports} reports of the shard. Like {@link #readKeyIds}, only the
+   * leading blocks of the shard are read, and the read is not recorded in the stage metrics.
+   *
+   * @throws ConcurrentShardReadException when there is an error reading the shard.
+   */
+  ImmutableList<EncryptedReport> readLeadingReports(DataLocation shard, int maxReports) {
+    try (InputStream inputStream = blobStorageClient.getBlob(shard);
+        AvroReportsReader reader = readerFactory.create(inputStream)) {
+      return reader
+          .streamRecords()
+          .limit(maxReports)
+          .map(encryptedReportConverter::convert)
+          .collect(toImmutableList());
+    } catch (BlobStorageClientException | IOException | AvroRuntimeException e) {
+      throw new ConcurrentShardReadException(e);
+    }
+  }
+
+  /**
+   * Returns the sizes of the shards.
+   *
+   * @throws ConcurrentShardReadException when there is an error getting the size of a shard.
+   */
+  ImmutableMap<DataLocation, Long> getShardSizes(List<DataLocation> shards) {
+    Map<DataLocation, Long> shardSizes = new ConcurrentHashMap<>();
+    shards.parallelStream()
+        .distinct()
+        .forEach(
+            shard -> {
+              try {
+                shardSizes.put(shard, blobStorageClient.getBlobSize(shard));
+              } catch (BlobStorageClientException e) {
+                throw new ConcurrentShardReadException(e);
+              }
+            });
+    return ImmutableMap.copyOf(shardSizes);
+  }
+
+  /**
+   * Orders the shards from the largest to the smallest one. Shards of the same size keep their
+   * relative order, so the order is the same when a job is retried.
+   *
+   * <p>Reading the largest shards first keeps a large shard from being read alone at the end of
+   * the job, after all other shards are done.
+   */
+  static ImmutableList<DataLocation> sortLargestFirst(
+      List<DataLocation> shards, Map<DataLocation, Long> shardSizes) {
+    return shards.stream()
+        .sorted(Comparator.comparing(shardSizes::get, Comparator.reverseOrder()))
+        .collect(toImmutableList());
+  }
+
   /**
    * Gets the input report shards.
    *
@@ -81,22 +183,33 @@ final class ReportReader {
    */
   ImmutableList<DataLocation> getInputReportsShards(RequestInfo requestInfo)
       throws AggregationJobProcessException {
-    List<String> inputDataBlobPrefixes;
-    if (!requestInfo.getInputDataBlobPrefixesList().isEmpty()) {
-      inputDataBlobPrefixes = requestInfo.getInputDataBlobPrefixesList();
-    } else {
-      inputDataBlobPrefixes = ImmutableList.of(requestInfo.getInputDataBlobPrefix());
-    }
-    ImmutableList<DataLocation> dataShards =
-        findShards(requestInfo.getInputDataBucketName(), inputDataBlobPrefixes);
+    ImmutableList<DataLocation> dataShards = listInputReportsShards(requestInfo);
 
     if (dataShards.isEmpty()) {
       throw new AggregationJobProcessException(
-          INPUT_DATA_READ_FAILED, "No report shards found for location: " + inputDataBlobPrefixes);
+          INPUT_DATA_READ_FAILED,
+          "No report shards found for location: " + getInputDataBlobPrefixes(requestInfo));
     }
     return dataShards;
   }
 
+  /**
+   * Lists the input report shards that exist so far, e.g. while the shards of an open window job
+   * are still landing. Unlike {@link #getInputReportsShards}, an empty input is not an error.
+   *
+   * @throws ConcurrentShardReadException when there is an error listing the report shards.
+   */
+  ImmutableList<DataLocation> listInputReportsShards(RequestInfo requestInfo) {
+    return findShards(requestInfo.getInputDataBucketName(), getInputDataBlobPrefixes(requestInfo));
+  }
+
+  private static List<String> getInputDataBlobPrefixes(RequestInfo requestInfo) {
+    if (!requestInfo.getInputDataBlobPrefixesList().isEmpty()) {
+      return requestInfo.getInputDataBlobPrefixesList();
+    }
+    return ImmutableList.of(requestInfo.getInputDataBlobPrefix());
+  }
+
   /** Gets all the shards from the given bucket and all the prefixes. */
   private ImmutableList<DataLocation> findShards(String bucket, List<String> inputPrefixes) {
     List<String> shardBlobs = Collections.synchronizedList(new ArrayList<>(inputPrefixes.size()));
@@ -130,14 +243,30 @@ final class ReportReader {
    *
    * @throws ConcurrentShardReadException when there is an error reading the shard.
    */
-  private InputStream getInputStream(DataLocation shard) {
+  private InputStream getInputStream(DataLocation shard, OptionalLong shardSizeBytes) {
+    long startNanos = stageMetrics.startNanos();
     try {
-      if (blobStorageClient.getBlobSize(shard) <= 0) {
+      long sizeBytes =
+          shardSizeBytes.isPresent()
+              ? shardSizeBytes.getAsLong()
+              : blobStorageClient.getBlobSize(shard);
+      if (sizeBytes <= 0) {
         return InputStream.nullInputStream();
       }
-      return blobStorageClient.getBlob(shard);
-    } catch (BlobStorageClient.BlobStorageClientException e) {
+      return shardReadWatchdog.open(
+          shard.blobStoreDataLocation().key(),
+          () -> {
+            try {
+              return blobStorageClient.getBlob(shard);
+            } catch (BlobStorageClientException e) {
+              throw new IOException(e);
+            }
+          });
+    } catch (BlobStorageClientException | IOException e) {
       throw new ConcurrentShardReadException(e);
+    } finally {
+      stageMetrics.recordSince(PipelineStage.READ, startNanos);
+      stageMetrics.addItems(PipelineStage.READ, 1);
     }
   }
 
@@ -148,9 +277,17 @@ final class ReportReader {
    */
   private Stream<EncryptedReport> readReportsFromInputStream(InputStream shardInputStream) {
     try {
-      return readerFactory.create(shardInputStream).streamRecords().map(encryptedReportConverter);
+      return readerFactory.create(shardInputStream).streamRecords().map(this::convertRecord);
     } catch (IOException | AvroRuntimeException e) {
       throw new ConcurrentShardReadException(e);
     }
   }
+
+  private EncryptedReport convertRecord(AvroReportRecord record) {
+    long startNanos = stageMetrics.startNanos();
+    EncryptedReport encryptedReport = encryptedReportConverter.apply(record);
+    stageMetrics.recordSince(PipelineStage.PARSE, startNanos);
+    stageMetrics.addItems(PipelineStage.PARSE, 1);
+    return encryptedReport;
+  }
 }
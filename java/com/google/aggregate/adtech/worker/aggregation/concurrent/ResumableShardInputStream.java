@@ -0,0 +1,215 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.aggregation.concurrent;
+
+import com.google.common.base.Ticker;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.http.Abortable;
+
+/**
+ * Input stream of a report shard that is reopened at its current position if a read fails or is
+ * closed by {@link ShardReadWatchdog} because it stalled.
+ *
+ * <p>Blob storage streams can't be opened at an offset, so a reopened stream skips the bytes that
+ * were already read. This downloads the head of the shard again, but the reports that were already
+ * read are neither re-parsed nor aggregated twice.
+ *
+ * <p>Closing an HTTP response stream may drain the rest of its body, which blocks as long as the
+ * stalled read does. Stalled and failed streams are therefore aborted if they support it, and
+ * otherwise closed on the given executor, so that the watchdog thread never blocks.
+ */
+final class ResumableShardInputStream extends InputStream {
+
+  private static final Logger logger = LoggerFactory.getLogger(ResumableShardInputStream.class);
+
+  private static final int MAX_REOPENS = 3;
+
+  /** Opens a new stream of the shard from its start. */
+  interface ShardOpener {
+    InputStream open() throws IOException;
+  }
+
+  private final String shardName;
+  private final ShardOpener shardOpener;
+  private final Ticker ticker;
+  private final long openNanos;
+  private final Consumer<ResumableShardInputStream> onClose;
+  private final Executor releaseExecutor;
+
+  private volatile InputStream delegate;
+  // Number of bytes returned to the reader, i.e. the position to resume from.
+  private volatile long position = 0;
+  // Start of the read in progress, or -1 if no read is in progress.
+  private volatile long readStartNanos = -1;
+  private volatile boolean stalled = false;
+  private volatile boolean closed = false;
+  private int reopens = 0;
+
+  ResumableShardInputStream(
+      String shardName,
+      ShardOpener shardOpener,
+      Ticker ticker,
+      Consumer<ResumableShardInputStream> onClose,
+      Executor releaseExecutor)
+      throws IOException {
+    this.shardName = shardName;
+    this.shardOpener = shardOpener;
+    this.ticker = ticker;
+    this.onClose = onClose;
+    this.releaseExecutor = releaseExecutor;
+    this.openNanos = ticker.read();
+    this.delegate = shardOpener.open();
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] buffer = new byte[1];
+    int bytesRead = read(buffer, 0, 1);
+    return bytesRead < 0 ? -1 : buffer[0] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] buffer, int offset, int length) throws IOException {
+    while (true) {
+      readStartNanos = ticker.read();
+      try {
+        int bytesRead = delegate.read(buffer, offset, length);
+        // Some streams signal the end of the stream rather than failing when they're closed.
+        if (bytesRead < 0 && stalled) {
+          throw new IOException("Read stalled.");
+        }
+        if (bytesRead > 0) {
+          position += bytesRead;
+        }
+        return bytesRead;
+      } catch (IOException e) {
+        reopen(e);
+      } finally {
+        readStartNanos = -1;
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    onClose.accept(this);
+    long elapsedMillis = Math.max(TimeUnit.NANOSECONDS.toMillis(ticker.read() - openNanos), 1);
+    logger.info(
+        "Read {} bytes of shard {} in {} ms ({} KB/s) with {} reopens.",
+        position,
+        shardName,
+        elapsedMillis,
+        position / elapsedMillis,
+        reopens);
+    delegate.close();
+  }
+
+  /**
+   * Aborts the current stream if a read has been in progress for more than {@code
+   * stallTimeoutNanos}, so that the blocked read fails and the shard is reopened. Streams that
+   * can't be aborted are closed on the release executor.
+   *
+   * @return true if the stream was released.
+   */
+  boolean closeIfStalled(long nowNanos, long stallTimeoutNanos) {
+    long startNanos = readStartNanos;
+    if (closed || stalled || startNanos < 0 || nowNanos - startNanos < stallTimeoutNanos) {
+      return false;
+    }
+    stalled = true;
+    release(delegate);
+    return true;
+  }
+
+  long position() {
+    return position;
+  }
+
+  private void reopen(IOException cause) throws IOException {
+    IOException lastFailure = cause;
+    while (!closed && reopens < MAX_REOPENS) {
+      reopens++;
+      logger.warn(
+          String.format(
+              "Reopening shard %s at byte %d (attempt %d of %d).",
+              shardName, position, reopens, MAX_REOPENS),
+          lastFailure);
+      stalled = false;
+      release(delegate);
+      try {
+        delegate = shardOpener.open();
+        skipFully(delegate, position);
+        return;
+      } catch (IOException e) {
+        lastFailure = e;
+      }
+    }
+    throw lastFailure;
+  }
+
+  /** Skips {@code count} bytes, counting the time spent as a read in progress. */
+  private void skipFully(InputStream inputStream, long count) throws IOException {
+    long remaining = count;
+    while (remaining > 0) {
+      readStartNanos = ticker.read();
+      long skipped = inputStream.skip(remaining);
+      if (skipped <= 0) {
+        if (inputStream.read() < 0) {
+          throw new EOFException(
+              String.format("Shard %s ended before byte %d when reopened.", shardName, count));
+        }
+        skipped = 1;
+      }
+      remaining -= skipped;
+    }
+  }
+
+  /**
+   * Aborts the stream so that the connection is dropped without reading the rest of the body, or
+   * closes it on the release executor if it can't be aborted.
+   */
+  private void release(InputStream inputStream) {
+    if (inputStream instanceof Abortable) {
+      try {
+        ((Abortable) inputStream).abort();
+      } catch (RuntimeException e) {
+        logger.debug("Failed to abort shard stream.", e);
+      }
+      return;
+    }
+    releaseExecutor.execute(() -> closeQuietly(inputStream));
+  }
+
+  private static void closeQuietly(InputStream inputStream) {
+    try {
+      inputStream.close();
+    } catch (IOException e) {
+      logger.debug("Failed to close shard stream.", e);
+    }
+  }
+}
@@ -0,0 +1,822 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.aggregation.concurrent;
+
+import static com.google.aggregate.adtech.worker.AggregationWorkerReturnCode.INPUT_DATA_READ_FAILED;
+import static com.google.aggregate.adtech.worker.AggregationWorkerReturnCode.INTERNAL_ERROR;
+import static com.google.aggregate.adtech.worker.AggregationWorkerReturnCode.INVALID_JOB;
+import static com.google.aggregate.adtech.worker.AggregationWorkerReturnCode.RESULT_WRITE_ERROR;
+import static com.google.aggregate.adtech.worker.shared.model.BackendModelUtil.toJobKeyString;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.aggregate.adtech.worker.AggregationWorkerReturnCode;
+import com.google.aggregate.adtech.worker.Annotations.DistributedAggregationKeyAead;
+import com.google.aggregate.adtech.worker.DistributedAggregationConfig;
+import com.google.aggregate.adtech.worker.ErrorSummaryAggregator;
+import com.google.aggregate.adtech.worker.aggregation.engine.AggregationEngine;
+import com.google.aggregate.adtech.worker.aggregation.engine.AggregationEngine.AggregationKey;
+import com.google.aggregate.adtech.worker.exceptions.AggregationJobProcessException;
+import com.google.aggregate.adtech.worker.jobclient.SubtaskDispatcher;
+import com.google.aggregate.adtech.worker.jobclient.SubtaskDispatcher.SubtaskDispatchException;
+import com.google.aggregate.adtech.worker.jobclient.model.Job;
+import com.google.aggregate.adtech.worker.model.serdes.SharedInfoSerdes;
+import com.google.aggregate.adtech.worker.util.JobUtils;
+import com.google.aggregate.protos.shared.backend.ErrorSummaryProto.ErrorSummary;
+import com.google.aggregate.protos.shared.backend.JobKeyProto.JobKey;
+import com.google.aggregate.protos.shared.backend.RequestInfoProto.RequestInfo;
+import com.google.auto.value.AutoValue;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.Hashing;
+import com.google.common.io.BaseEncoding;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import com.google.crypto.tink.Aead;
+import com.google.crypto.tink.InsecureSecretKeyAccess;
+import com.google.crypto.tink.KeysetHandle;
+import com.google.crypto.tink.StreamingAead;
+import com.google.crypto.tink.TinkProtoKeysetFormat;
+import com.google.crypto.tink.streamingaead.PredefinedStreamingAeadParameters;
+import com.google.crypto.tink.streamingaead.StreamingAeadConfig;
+import com.google.scp.operator.cpio.blobstorageclient.BlobStorageClient;
+import com.google.scp.operator.cpio.blobstorageclient.BlobStorageClient.BlobStorageClientException;
+import com.google.scp.operator.cpio.blobstorageclient.model.DataLocation;
+import com.google.scp.operator.cpio.blobstorageclient.model.DataLocation.BlobStoreDataLocation;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.inject.Inject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Aggregates the reports of a job with many input shards across several workers.
+ *
+ * <p>The worker that pulls the job, the coordinator, splits the input shards into sub-tasks of
+ * about equal size and writes a manifest of the shards of each sub-task to the work bucket. All but
+ * the first sub-task are dispatched to peer workers, and the coordinator aggregates the first one
+ * itself in the meantime. A sub-task writes its partial sums split into key-range partitions,
+ * followed by a summary of its report count, errors, report IDs and privacy budget units. The
+ * coordinator merges the partitions in parallel into its own engines. The merged job is then
+ * noised, charged to the privacy budget and written by the coordinator only, exactly like a job
+ * aggregated by a single worker.
+ *
+ * <p>The manifest key is passed to a sub-task in a token sealed with an AEAD whose key is only
+ * usable by workers in the trusted execution environment, bound to the request ID of the sub-task.
+ * A job parameter set by anyone else is rejected, so only the coordinator can make a worker skip
+ * the noise and the privacy budget of a job. The token also holds a streaming AEAD key generated
+ * for the attempt of the job, which encrypts and authenticates every blob of its sub-tasks, so
+ * that the unnoised partial aggregates never leave the trusted execution environment in plaintext
+ * and blobs written by anyone else are rejected.
+ *
+ * <p>Sub-tasks that haven't finished within the sub-task timeout are aggregated by the coordinator.
+ * A report that is in the shards of two sub-tasks can't be deduplicated once its contributions are
+ * summed, so such jobs are aggregated again by the coordinator alone.
+ */
+final class ScatterGatherAggregator {
+
+  private static final Logger logger = LoggerFactory.getLogger(ScatterGatherAggregator.class);
+
+  private static final int FORMAT_VERSION = 1;
+  private static final String WORK_PREFIX = "scatter_gather/";
+  private static final String SUBTASK_PREFIX = "subtask-";
+  private static final String MANIFEST_BLOB = "manifest";
+  private static final String PARTITION_BLOB_PREFIX = "partition-";
+  private static final String SUMMARY_BLOB = "summary";
+  private static final String DONE_BLOB = "done";
+  private static final String FAILURE_BLOB = "failure";
+  private static final long POLL_INTERVAL_MILLIS = 1000;
+
+  private final Optional<DistributedAggregationConfig> config;
+  private final Optional<SubtaskDispatcher> subtaskDispatcher;
+  private final Optional<Aead> keyAead;
+  private final ReportAggregator reportAggregator;
+  private final ReportReader reportReader;
+  private final BlobStorageClient blobStorageClient;
+  private final AggregationStateCodec codec;
+
+  @Inject
+  ScatterGatherAggregator(
+      Optional<DistributedAggregationConfig> config,
+      Optional<SubtaskDispatcher> subtaskDispatcher,
+      @DistributedAggregationKeyAead Optional<Aead> keyAead,
+      ReportAggregator reportAggregator,
+      ReportReader reportReader,
+      BlobStorageClient blobStorageClient,
+      SharedInfoSerdes sharedInfoSerdes) {
+    this.config = config;
+    this.subtaskDispatcher = subtaskDispatcher;
+    this.keyAead = keyAead;
+    this.reportAggregator = reportAggregator;
+    this.reportReader = reportReader;
+    this.blobStorageClient = blobStorageClient;
+    this.codec = new AggregationStateCodec(sharedInfoSerdes);
+  }
+
+  /** Returns true if the job is a sub-task dispatched by the coordinator of a distributed job. */
+  boolean isSubtask(Job job) {
+    return config.isPresent()
+        && keyAead.isPresent()
+        && JobUtils.getDistributedSubtaskManifest(job).isPresent();
+  }
+
+  /**
+   * Splits the input shards of the job into sub-tasks, or returns empty if the job is aggregated by
+   * this worker alone.
+   */
+  Optional<ImmutableList<ImmutableList<DataLocation>>> planSubtasks(Job job)
+      throws AggregationJobProcessException {
+    if (config.isEmpty()
+        || subtaskDispatcher.isEmpty()
+        || keyAead.isEmpty()
+        || JobUtils.getDistributedSubtaskManifest(job).isPresent()) {
+      return Optional.empty();
+    }
+    ImmutableList<DataLocation> shards = reportReader.getInputReportsShards(job.requestInfo());
+    int shardsPerSubtask = config.get().shardsPerSubtask();
+    if (shards.size() <= shardsPerSubtask) {
+      return Optional.empty();
+    }
+    ImmutableMap<DataLocation, Long> shardSizes = reportReader.getShardSizes(shards);
+    int subtaskCount = (shards.size() + shardsPerSubtask - 1) / shardsPerSubtask;
+    return Optional.of(
+        splitShards(ReportReader.sortLargestFirst(shards, shardSizes), shardSizes, subtaskCount));
+  }
+
+  /**
+   * Assigns each shard, from the largest to the smallest one, to the sub-task with the fewest bytes
+   * so far, so that the sub-tasks read about the same number of bytes.
+   */
+  static ImmutableList<ImmutableList<DataLocation>> splitShards(
+      List<DataLocation> shardsLargestFirst, Map<DataLocation, Long> shardSizes, int subtaskCount) {
+    List<ImmutableList.Builder<DataLocation>> subtasks = new ArrayList<>(subtaskCount);
+    long[] subtaskBytes = new long[subtaskCount];
+    for (int i = 0; i < subtaskCount; i++) {
+      subtasks.add(ImmutableList.builder());
+    }
+    for (DataLocation shard : shardsLargestFirst) {
+      int smallest = 0;
+      for (int i = 1; i < subtaskCount; i++) {
+        if (subtaskBytes[i] < subtaskBytes[smallest]) {
+          smallest = i;
+        }
+      }
+      subtasks.get(smallest).add(shard);
+      subtaskBytes[smallest] += shardSizes.getOrDefault(shard, 0L);
+    }
+    return subtasks.stream().map(ImmutableList.Builder::build).collect(toImmutableList());
+  }
+
+  /**
+   * Aggregates the reports of the sub-tasks of the job into the given engines and error
+   * aggregator, which must be empty.
+   *
+   * @return false if a report is in the input shards of more than one sub-task. The engines and the
+   *     error aggregator must then be discarded and the job aggregated by this worker alone.
+   * @throws AggregationJobProcessException if a sub-task failed or its result couldn't be read.
+   */
+  boolean aggregate(
+      Job job,
+      ImmutableList<ImmutableList<DataLocation>> subtaskShards,
+      AtomicLong totalReportCount,
+      ImmutableList<AggregationEngine> aggregationEngines,
+      ErrorSummaryAggregator errorAggregator)
+      throws AggregationJobProcessException, InterruptedException {
+    String jobKey = toJobKeyString(job.jobKey());
+    // Each attempt of the job writes to its own prefix, so that results of sub-tasks dispatched by
+    // an earlier attempt are never merged.
+    String attemptId = UUID.randomUUID().toString();
+    String workPrefix = WORK_PREFIX + getJobHash(job) + "/" + attemptId + "/";
+    int partitionCount = config.get().partitionCount();
+
+    Set<String> completedShards = new LinkedHashSet<>();
+    StreamingAead blobAead;
+    try {
+      KeysetHandle blobKeyset = generateBlobKeyset();
+      blobAead = blobKeyset.getPrimitive(StreamingAead.class);
+      byte[] serializedBlobKeyset =
+          TinkProtoKeysetFormat.serializeKeyset(blobKeyset, InsecureSecretKeyAccess.get());
+      ImmutableMap.Builder<JobKey, RequestInfo> remoteSubtasks = ImmutableMap.builder();
+      for (int i = 1; i < subtaskShards.size(); i++) {
+        String manifestKey = workPrefix + SUBTASK_PREFIX + i + "/" + MANIFEST_BLOB;
+        writeManifest(manifestKey, blobAead, subtaskShards.get(i), partitionCount);
+        String subtaskRequestId = job.jobKey().getJobRequestId() + "-" + attemptId + "-" + i;
+        RequestInfo requestInfo =
+            job.requestInfo().toBuilder().setJobRequestId(subtaskRequestId).build();
+        remoteSubtasks.put(
+            JobKey.newBuilder().setJobRequestId(subtaskRequestId).build(),
+            requestInfo.toBuilder()
+                .putJobParameters(
+                    JobUtils.JOB_PARAM_DISTRIBUTED_SUBTASK_MANIFEST,
+                    sealToken(
+                        manifestKey, serializedBlobKeyset, subtaskRequestId, requestInfo))
+                .build());
+      }
+      subtaskDispatcher.get().dispatch(remoteSubtasks.build());
+    } catch (SubtaskDispatchException | GeneralSecurityException e) {
+      logger.warn("Failed to dispatch the sub-tasks of job " + jobKey + ", aggregating alone.", e);
+      for (ImmutableList<DataLocation> shards : subtaskShards) {
+        aggregateLocally(
+            job, shards, completedShards, totalReportCount, aggregationEngines, errorAggregator);
+      }
+      return true;
+    }
+    logger.info(
+        "Dispatched {} sub-tasks of job {} to {}.", subtaskShards.size() - 1, jobKey, workPrefix);
+
+    aggregateLocally(
+        job,
+        subtaskShards.get(0),
+        completedShards,
+        totalReportCount,
+        aggregationEngines,
+        errorAggregator);
+    ImmutableSet<Integer> finishedSubtasks =
+        awaitSubtasks(workPrefix, blobAead, subtaskShards.size());
+    for (int i = 1; i < subtaskShards.size(); i++) {
+      if (!finishedSubtasks.contains(i)) {
+        logger.warn("Sub-task {} of job {} timed out, aggregating it locally.", i, jobKey);
+        aggregateLocally(
+            job,
+            subtaskShards.get(i),
+            completedShards,
+            totalReportCount,
+            aggregationEngines,
+            errorAggregator);
+      }
+    }
+    return mergeSubtasks(
+        workPrefix,
+        blobAead,
+        finishedSubtasks,
+        partitionCount,
+        totalReportCount,
+        aggregationEngines,
+        errorAggregator);
+  }
+
+  /**
+   * Reads the manifest of a sub-task.
+   *
+   * @throws AggregationJobProcessException if the manifest can't be read, or is not a manifest
+   *     written by a coordinator.
+   */
+  SubtaskManifest readManifest(Job job) throws AggregationJobProcessException {
+    SubtaskToken token = openToken(job);
+    try (DataInputStream in = openInput(token.manifestKey(), token.blobAead())) {
+      checkFormatVersion(in);
+      int partitionCount = in.readInt();
+      int shardCount = in.readInt();
+      // Shards are always read from the input bucket of the job.
+      String inputBucket = job.requestInfo().getInputDataBucketName();
+      ImmutableList.Builder<DataLocation> shards = ImmutableList.builder();
+      for (int i = 0; i < shardCount; i++) {
+        shards.add(
+            DataLocation.ofBlobStoreDataLocation(
+                BlobStoreDataLocation.create(inputBucket, in.readUTF())));
+      }
+      return SubtaskManifest.create(shards.build(), partitionCount);
+    } catch (IOException e) {
+      throw new AggregationJobProcessException(
+          INPUT_DATA_READ_FAILED, "Failed to read the manifest of the sub-task.", e);
+    }
+  }
+
+  /**
+   * Writes the partial aggregate of a sub-task for its coordinator: the partial sums split into
+   * key-range partitions, and a summary of the reports, errors and privacy budget units.
+   */
+  void writeSubtaskResult(
+      Job job,
+      SubtaskManifest manifest,
+      long reportCount,
+      ImmutableList<AggregationEngine> aggregationEngines,
+      ErrorSummaryAggregator errorAggregator)
+      throws AggregationJobProcessException {
+    SubtaskToken token = openToken(job);
+    String subtaskPrefix = getSubtaskPrefix(token.manifestKey());
+    Path directory = null;
+    try {
+      directory = Files.createTempDirectory("subtask");
+      ImmutableList<Path> partitionFiles =
+          writePartitions(
+              directory,
+              subtaskPrefix,
+              token.blobAead(),
+              manifest.partitionCount(),
+              aggregationEngines);
+      for (int partition = 0; partition < partitionFiles.size(); partition++) {
+        blobStorageClient.putBlob(
+            getLocation(subtaskPrefix + PARTITION_BLOB_PREFIX + partition),
+            partitionFiles.get(partition));
+      }
+
+      Path summaryFile = directory.resolve(SUMMARY_BLOB);
+      try (DataOutputStream out =
+          openOutput(summaryFile, subtaskPrefix + SUMMARY_BLOB, token.blobAead())) {
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(reportCount);
+        AggregationStateCodec.writeBytes(out, errorAggregator.createErrorSummary().toByteArray());
+        AggregationStateCodec.writeReportIds(
+            out, aggregationEngines.get(0).getReportIds().iterator());
+        out.writeInt(aggregationEngines.size());
+        for (AggregationEngine aggregationEngine : aggregationEngines) {
+          codec.writePrivacyBudgetUnits(out, aggregationEngine);
+        }
+      }
+      blobStorageClient.putBlob(getLocation(subtaskPrefix + SUMMARY_BLOB), summaryFile);
+      // The coordinator only reads the result once it is complete, which the done blob signals.
+      Path doneFile = directory.resolve(DONE_BLOB);
+      try (DataOutputStream out =
+          openOutput(doneFile, subtaskPrefix + DONE_BLOB, token.blobAead())) {
+        out.writeInt(FORMAT_VERSION);
+      }
+      blobStorageClient.putBlob(getLocation(subtaskPrefix + DONE_BLOB), doneFile);
+    } catch (IOException | UncheckedIOException | BlobStorageClientException e) {
+      throw new AggregationJobProcessException(
+          RESULT_WRITE_ERROR, "Failed to write the partial aggregate of the sub-task.", e);
+    } finally {
+      deleteDirectory(directory);
+    }
+  }
+
+  /** Tells the coordinator of a sub-task that the sub-task failed, so that it stops waiting. */
+  void writeSubtaskFailure(Job job, AggregationJobProcessException exception) {
+    Path failureFile = null;
+    try {
+      SubtaskToken token = openToken(job);
+      String subtaskPrefix = getSubtaskPrefix(token.manifestKey());
+      failureFile = Files.createTempFile("subtask", FAILURE_BLOB);
+      try (DataOutputStream out =
+          openOutput(failureFile, subtaskPrefix + FAILURE_BLOB, token.blobAead())) {
+        out.writeUTF(exception.getCode().name());
+        out.writeUTF(String.valueOf(exception.getMessage()));
+      }
+      blobStorageClient.putBlob(getLocation(subtaskPrefix + FAILURE_BLOB), failureFile);
+    } catch (AggregationJobProcessException | IOException | BlobStorageClientException e) {
+      logger.warn(
+          "Failed to report the failure of sub-task " + toJobKeyString(job.jobKey()), e);
+    } finally {
+      deleteDirectory(failureFile);
+    }
+  }
+
+  /**
+   * Returns the key-range partition of a bucket. Buckets are 128-bit, so each partition holds an
+   * equal share of the bucket space.
+   */
+  static int getPartition(BigInteger bucket, int partitionCount) {
+    int partition = bucket.multiply(BigInteger.valueOf(partitionCount)).shiftRight(128).intValue();
+    return Math.min(partition, partitionCount - 1);
+  }
+
+  private void aggregateLocally(
+      Job job,
+      ImmutableList<DataLocation> shards,
+      Set<String> completedShards,
+      AtomicLong totalReportCount,
+      ImmutableList<AggregationEngine> aggregationEngines,
+      ErrorSummaryAggregator errorAggregator)
+      throws AggregationJobProcessException {
+    // Shards aggregated earlier are passed as the checkpoint, so that a checkpoint taken while the
+    // shards are aggregated covers all of them.
+    reportAggregator.processReports(
+        totalReportCount,
+        job,
+        shards,
+        aggregationEngines,
+        errorAggregator,
+        AggregationCheckpoint.create(
+            ImmutableSet.copyOf(completedShards), totalReportCount.get()));
+    shards.forEach(shard -> completedShards.add(shard.blobStoreDataLocation().key()));
+  }
+
+  /**
+   * Waits until the remote sub-tasks are done or the sub-task timeout elapses.
+   *
+   * @return the indices of the sub-tasks that are done.
+   * @throws AggregationJobProcessException if a sub-task failed.
+   */
+  private ImmutableSet<Integer> awaitSubtasks(
+      String workPrefix, StreamingAead blobAead, int subtaskCount)
+      throws AggregationJobProcessException, InterruptedException {
+    Set<Integer> pendingSubtasks = new LinkedHashSet<>();
+    for (int i = 1; i < subtaskCount; i++) {
+      pendingSubtasks.add(i);
+    }
+    ImmutableSet.Builder<Integer> finishedSubtasks = ImmutableSet.builder();
+    Stopwatch waited = Stopwatch.createStarted();
+    while (!pendingSubtasks.isEmpty()
+        && waited.elapsed().compareTo(config.get().subtaskTimeout()) < 0) {
+      Iterator<Integer> pending = pendingSubtasks.iterator();
+      while (pending.hasNext()) {
+        int subtask = pending.next();
+        String subtaskPrefix = workPrefix + SUBTASK_PREFIX + subtask + "/";
+        Optional<AggregationJobProcessException> failure =
+            readFailure(subtask, subtaskPrefix + FAILURE_BLOB, blobAead);
+        if (failure.isPresent()) {
+          throw failure.get();
+        }
+        if (isDone(subtaskPrefix + DONE_BLOB, blobAead)) {
+          finishedSubtasks.add(subtask);
+          pending.remove();
+        }
+      }
+      if (!pendingSubtasks.isEmpty()) {
+        Thread.sleep(POLL_INTERVAL_MILLIS);
+      }
+    }
+    return finishedSubtasks.build();
+  }
+
+  /**
+   * Merges the results of the finished sub-tasks. The summaries are merged first, so that reports
+   * in more than one sub-task are found before any sums are merged.
+   */
+  private boolean mergeSubtasks(
+      String workPrefix,
+      StreamingAead blobAead,
+      ImmutableSet<Integer> subtasks,
+      int partitionCount,
+      AtomicLong totalReportCount,
+      ImmutableList<AggregationEngine> aggregationEngines,
+      ErrorSummaryAggregator errorAggregator)
+      throws AggregationJobProcessException {
+    try {
+      for (int subtask : subtasks) {
+        String summaryKey = workPrefix + SUBTASK_PREFIX + subtask + "/" + SUMMARY_BLOB;
+        try (DataInputStream in = openInput(summaryKey, blobAead)) {
+          checkFormatVersion(in);
+          long reportCount = in.readLong();
+          ErrorSummary errorSummary = ErrorSummary.parseFrom(AggregationStateCodec.readBytes(in));
+          AtomicLong duplicateReportCount = new AtomicLong();
+          AggregationStateCodec.readReportIds(
+              in,
+              reportId -> {
+                if (!aggregationEngines.get(0).restoreReportId(reportId)) {
+                  duplicateReportCount.incrementAndGet();
+                }
+                for (int i = 1; i < aggregationEngines.size(); i++) {
+                  aggregationEngines.get(i).restoreReportId(reportId);
+                }
+              });
+          if (duplicateReportCount.get() > 0) {
+            logger.warn(
+                "Sub-task {} has {} reports that are also in other sub-tasks.",
+                subtask,
+                duplicateReportCount.get());
+            return false;
+          }
+          readEngineCount(in, aggregationEngines);
+          for (AggregationEngine aggregationEngine : aggregationEngines) {
+            codec.readPrivacyBudgetUnits(in, aggregationEngine);
+          }
+          totalReportCount.addAndGet(reportCount);
+          errorAggregator.restore(errorSummary);
+        }
+      }
+
+      // Each partition holds a distinct range of keys, so the partitions are merged in parallel
+      // without updating the same sums.
+      IntStream.range(0, partitionCount)
+          .parallel()
+          .forEach(
+              partition -> {
+                for (int subtask : subtasks) {
+                  String subtaskPrefix = workPrefix + SUBTASK_PREFIX + subtask + "/";
+                  mergePartition(
+                      subtaskPrefix + PARTITION_BLOB_PREFIX + partition,
+                      blobAead,
+                      aggregationEngines);
+                }
+              });
+    } catch (IOException | UncheckedIOException e) {
+      throw new AggregationJobProcessException(
+          INTERNAL_ERROR, "Failed to merge the partial aggregates of the sub-tasks.", e);
+    }
+    return true;
+  }
+
+  private void mergePartition(
+      String partitionKey, StreamingAead blobAead, ImmutableList<AggregationEngine> engines) {
+    try (DataInputStream in = openInput(partitionKey, blobAead)) {
+      checkFormatVersion(in);
+      readEngineCount(in, engines);
+      for (AggregationEngine aggregationEngine : engines) {
+        AggregationStateCodec.readAggregatedValues(in, aggregationEngine);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /** Writes the partial sums of the engines to one file per key-range partition. */
+  private static ImmutableList<Path> writePartitions(
+      Path directory,
+      String subtaskPrefix,
+      StreamingAead blobAead,
+      int partitionCount,
+      ImmutableList<AggregationEngine> aggregationEngines)
+      throws IOException {
+    ImmutableList.Builder<Path> partitionFiles = ImmutableList.builder();
+    List<DataOutputStream> outputs = new ArrayList<>(partitionCount);
+    try {
+      for (int partition = 0; partition < partitionCount; partition++) {
+        Path partitionFile = directory.resolve(PARTITION_BLOB_PREFIX + partition);
+        partitionFiles.add(partitionFile);
+        DataOutputStream out =
+            openOutput(partitionFile, subtaskPrefix + PARTITION_BLOB_PREFIX + partition, blobAead);
+        outputs.add(out);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(aggregationEngines.size());
+      }
+      for (AggregationEngine aggregationEngine : aggregationEngines) {
+        Iterator<Entry<AggregationKey, LongAdder>> entries =
+            aggregationEngine.getEntries().iterator();
+        while (entries.hasNext()) {
+          Entry<AggregationKey, LongAdder> entry = entries.next();
+          AggregationStateCodec.writeAggregatedValue(
+              outputs.get(getPartition(entry.getKey().bucket(), partitionCount)),
+              entry.getKey(),
+              entry.getValue().sum());
+        }
+        for (DataOutputStream out : outputs) {
+          AggregationStateCodec.writeEnd(out);
+        }
+      }
+    } finally {
+      for (DataOutputStream out : outputs) {
+        out.close();
+      }
+    }
+    return partitionFiles.build();
+  }
+
+  private void writeManifest(
+      String manifestKey, StreamingAead blobAead, List<DataLocation> shards, int partitionCount)
+      throws AggregationJobProcessException {
+    Path manifestFile = null;
+    try {
+      manifestFile = Files.createTempFile("subtask", MANIFEST_BLOB);
+      try (DataOutputStream out = openOutput(manifestFile, manifestKey, blobAead)) {
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(partitionCount);
+        out.writeInt(shards.size());
+        for (DataLocation shard : shards) {
+          out.writeUTF(shard.blobStoreDataLocation().key());
+        }
+      }
+      blobStorageClient.putBlob(getLocation(manifestKey), manifestFile);
+    } catch (IOException | BlobStorageClientException e) {
+      throw new AggregationJobProcessException(
+          INTERNAL_ERROR, "Failed to write the manifest of a sub-task.", e);
+    } finally {
+      deleteDirectory(manifestFile);
+    }
+  }
+
+  /** Returns the failure reported by a sub-task, if any. */
+  private Optional<AggregationJobProcessException> readFailure(
+      int subtask, String failureKey, StreamingAead blobAead) {
+    try (DataInputStream in = openInput(failureKey, blobAead)) {
+      AggregationWorkerReturnCode code = AggregationWorkerReturnCode.valueOf(in.readUTF());
+      return Optional.of(
+          new AggregationJobProcessException(
+              code, String.format("Sub-task %d of the job failed: %s", subtask, in.readUTF())));
+    } catch (IOException | IllegalArgumentException e) {
+      // The sub-task hasn't failed, or is still writing its failure. A failure that wasn't
+      // written by the sub-task doesn't decrypt and is ignored too.
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Returns true if the done blob of a sub-task was written by the sub-task. The blob is opened
+   * rather than listed, since local blob storage lists any key.
+   */
+  private boolean isDone(String doneKey, StreamingAead blobAead) {
+    try (DataInputStream in = openInput(doneKey, blobAead)) {
+      checkFormatVersion(in);
+      return true;
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Opens a blob of a sub-task. The blob key is the associated data of the blob, so that a blob
+   * moved to another key doesn't decrypt.
+   */
+  private DataInputStream openInput(String key, StreamingAead blobAead) throws IOException {
+    try {
+      return new DataInputStream(
+          new GZIPInputStream(
+              new BufferedInputStream(
+                  blobAead.newDecryptingStream(
+                      blobStorageClient.getBlob(getLocation(key)), key.getBytes(UTF_8)))));
+    } catch (BlobStorageClientException | GeneralSecurityException e) {
+      throw new IOException(e);
+    }
+  }
+
+  /** Opens a local file that is uploaded to the given key of the work bucket once written. */
+  private static DataOutputStream openOutput(Path file, String key, StreamingAead blobAead)
+      throws IOException {
+    try {
+      return new DataOutputStream(
+          new GZIPOutputStream(
+              new BufferedOutputStream(
+                  blobAead.newEncryptingStream(
+                      Files.newOutputStream(file), key.getBytes(UTF_8)))));
+    } catch (GeneralSecurityException e) {
+      throw new IOException(e);
+    }
+  }
+
+  private DataLocation getLocation(String key) {
+    return BlobStorageClient.getDataLocation(config.get().workBucket(), key);
+  }
+
+  /**
+   * Generates the key of the blobs of an attempt of a job. It only leaves the coordinator sealed in
+   * the tokens of the sub-tasks.
+   */
+  private static KeysetHandle generateBlobKeyset() throws GeneralSecurityException {
+    StreamingAeadConfig.register();
+    return KeysetHandle.generateNew(PredefinedStreamingAeadParameters.AES256_GCM_HKDF_1MB);
+  }
+
+  /**
+   * Seals the manifest key of a sub-task and the key of its blobs into the token passed in its job
+   * parameters.
+   */
+  private String sealToken(
+      String manifestKey,
+      byte[] serializedBlobKeyset,
+      String subtaskRequestId,
+      RequestInfo requestInfo)
+      throws GeneralSecurityException {
+    ByteArrayOutputStream payload = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(payload)) {
+      out.writeInt(FORMAT_VERSION);
+      out.writeUTF(manifestKey);
+      AggregationStateCodec.writeBytes(out, serializedBlobKeyset);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return BaseEncoding.base64Url()
+        .encode(
+            keyAead
+                .get()
+                .encrypt(
+                    payload.toByteArray(), getTokenAssociatedData(subtaskRequestId, requestInfo)));
+  }
+
+  /**
+   * Opens the token of a sub-task. A token that wasn't sealed by a coordinator for this sub-task is
+   * rejected, and so is a manifest key outside the work prefix.
+   */
+  private SubtaskToken openToken(Job job) throws AggregationJobProcessException {
+    String manifestKey;
+    StreamingAead blobAead;
+    try {
+      byte[] token =
+          BaseEncoding.base64Url().decode(JobUtils.getDistributedSubtaskManifest(job).get());
+      byte[] payload =
+          keyAead
+              .get()
+              .decrypt(
+                  token, getTokenAssociatedData(job.jobKey().getJobRequestId(), job.requestInfo()));
+      try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+        checkFormatVersion(in);
+        manifestKey = in.readUTF();
+        StreamingAeadConfig.register();
+        blobAead =
+            TinkProtoKeysetFormat.parseKeyset(
+                    AggregationStateCodec.readBytes(in), InsecureSecretKeyAccess.get())
+                .getPrimitive(StreamingAead.class);
+      }
+    } catch (IllegalArgumentException | GeneralSecurityException | IOException e) {
+      throw new AggregationJobProcessException(
+          INVALID_JOB, "The sub-task manifest was not sealed by the coordinator of the job.", e);
+    }
+    if (!manifestKey.startsWith(WORK_PREFIX)
+        || !manifestKey.endsWith("/" + MANIFEST_BLOB)
+        || manifestKey.contains("..")) {
+      throw new AggregationJobProcessException(
+          INVALID_JOB, "Invalid sub-task manifest: " + manifestKey);
+    }
+    return SubtaskToken.create(manifestKey, blobAead);
+  }
+
+  /** Binds a token to its sub-task, so that it can't be replayed on a job reading other input. */
+  private static byte[] getTokenAssociatedData(String subtaskRequestId, RequestInfo requestInfo) {
+    return (subtaskRequestId + "/" + requestInfo.getInputDataBucketName()).getBytes(UTF_8);
+  }
+
+  private static String getSubtaskPrefix(String manifestKey) {
+    return manifestKey.substring(0, manifestKey.length() - MANIFEST_BLOB.length());
+  }
+
+  /** Job keys may contain characters that are not valid in blob keys, so their hash is used. */
+  private static String getJobHash(Job job) {
+    return Hashing.sha256()
+        .hashString(toJobKeyString(job.jobKey()) + "@" + job.createTime(), UTF_8)
+        .toString();
+  }
+
+  private static void checkFormatVersion(DataInputStream in) throws IOException {
+    int formatVersion = in.readInt();
+    if (formatVersion != FORMAT_VERSION) {
+      throw new IOException("Unsupported sub-task format version " + formatVersion);
+    }
+  }
+
+  private static void readEngineCount(
+      DataInputStream in, ImmutableList<AggregationEngine> aggregationEngines) throws IOException {
+    int engineCount = in.readInt();
+    if (engineCount != aggregationEngines.size()) {
+      throw new IOException(
+          String.format(
+              "Sub-task has %d aggregation engines, but the job has %d.",
+              engineCount, aggregationEngines.size()));
+    }
+  }
+
+  private static void deleteDirectory(Path path) {
+    if (path == null) {
+      return;
+    }
+    try {
+      MoreFiles.deleteRecursively(path, RecursiveDeleteOption.ALLOW_INSECURE);
+    } catch (IOException e) {
+      logger.warn("Failed to delete " + path, e);
+    }
+  }
+
+  /** Manifest key of a sub-task and the key of the blobs of the attempt of its job. */
+  @AutoValue
+  abstract static class SubtaskToken {
+
+    abstract String manifestKey();
+
+    abstract StreamingAead blobAead();
+
+    static SubtaskToken create(String manifestKey, StreamingAead blobAead) {
+      return new AutoValue_ScatterGatherAggregator_SubtaskToken(manifestKey, blobAead);
+    }
+  }
+
+  /** Input shards of a sub-task and the number of partitions its partial sums are split into. */
+  @AutoValue
+  abstract static class SubtaskManifest {
+
+    abstract ImmutableList<DataLocation> shards();
+
+    abstract int partitionCount();
+
+    static SubtaskManifest create(ImmutableList<DataLocation> shards, int partitionCount) {
+      return new AutoValue_ScatterGatherAggregator_SubtaskManifest(shards, partitionCount);
+    }
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.aggregation.concurrent;
+
+import com.google.aggregate.adtech.worker.Annotations.ShardReadStallTimeout;
+import com.google.aggregate.adtech.worker.aggregation.concurrent.ResumableShardInputStream.ShardOpener;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reopens input shard streams whose reads stall, e.g. on a degraded connection to blob storage, so
+ * that a single slow stream doesn't hold up the end of the job.
+ *
+ * <p>Streams are only watched if a stall timeout is configured.
+ */
+@Singleton
+final class ShardReadWatchdog {
+
+  private static final Logger logger = LoggerFactory.getLogger(ShardReadWatchdog.class);
+
+  // Stalls are detected within a quarter of the timeout.
+  private static final int CHECKS_PER_STALL_TIMEOUT = 4;
+
+  private final Optional<Duration> stallTimeout;
+  private final Ticker ticker;
+  private final Set<ResumableShardInputStream> openStreams = ConcurrentHashMap.newKeySet();
+  // Closes streams that can't be aborted, since closing may block until the stalled read ends.
+  // Threads are only started when a stream is released.
+  private final Executor releaseExecutor =
+      Executors.newCachedThreadPool(
+          new ThreadFactoryBuilder()
+              .setNameFormat("shard-read-release-%d")
+              .setDaemon(true)
+              .build());
+  private ScheduledExecutorService scheduler;
+
+  @Inject
+  ShardReadWatchdog(@ShardReadStallTimeout Optional<Duration> stallTimeout) {
+    this(stallTimeout, Ticker.systemTicker());
+  }
+
+  @VisibleForTesting
+  ShardReadWatchdog(Optional<Duration> stallTimeout, Ticker ticker) {
+    this.stallTimeout = stallTimeout;
+    this.ticker = ticker;
+  }
+
+  /**
+   * Opens a stream of the shard that is reopened at its current position if it stalls, or a plain
+   * stream of the shard if no stall timeout is configured.
+   */
+  InputStream open(String shardName, ShardOpener shardOpener) throws IOException {
+    if (stallTimeout.isEmpty()) {
+      return shardOpener.open();
+    }
+    startScheduler();
+    ResumableShardInputStream stream =
+        new ResumableShardInputStream(
+            shardName, shardOpener, ticker, openStreams::remove, releaseExecutor);
+    openStreams.add(stream);
+    return stream;
+  }
+
+  /** Closes the streams whose reads have stalled for longer than the stall timeout. */
+  @VisibleForTesting
+  void closeStalledStreams() {
+    long nowNanos = ticker.read();
+    long stallTimeoutNanos = stallTimeout.get().toNanos();
+    for (ResumableShardInputStream stream : openStreams) {
+      if (stream.closeIfStalled(nowNanos, stallTimeoutNanos)) {
+        logger.warn(
+            "Read of input shard stalled for more than {} at byte {}, reopening it.",
+            stallTimeout.get(),
+            stream.position());
+      }
+    }
+  }
+
+  private synchronized void startScheduler() {
+    if (scheduler != null) {
+      return;
+    }
+    scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder()
+                .setNameFormat("shard-read-watchdog")
+                .setDaemon(true)
+                .build());
+    long checkIntervalMillis =
+        Math.max(stallTimeout.get().toMillis() / CHECKS_PER_STALL_TIMEOUT, 1);
+    scheduler.scheduleWithFixedDelay(
+        this::closeStalledStreams, checkIntervalMillis, checkIntervalMillis, TimeUnit.MILLISECONDS);
+  }
+}
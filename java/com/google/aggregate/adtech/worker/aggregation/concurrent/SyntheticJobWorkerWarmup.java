@@ -0,0 +1,254 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.aggregation.concurrent;
+
+import static com.google.aggregate.adtech.worker.decryption.hybrid.HybridDecryptionCipher.ASSOCIATED_DATA_PREFIX;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.aggregate.adtech.worker.Annotations.WarmUpDecryptionKeyIds;
+import com.google.aggregate.adtech.worker.ReportDecrypterAndValidator;
+import com.google.aggregate.adtech.worker.WorkerWarmup;
+import com.google.aggregate.adtech.worker.aggregation.engine.AggregationEngine;
+import com.google.aggregate.adtech.worker.aggregation.engine.AggregationEngineFactory;
+import com.google.aggregate.adtech.worker.decryption.DeserializingReportDecrypter;
+import com.google.aggregate.adtech.worker.decryption.hybrid.HybridDecryptionCipherFactory;
+import com.google.aggregate.adtech.worker.jobclient.model.Job;
+import com.google.aggregate.adtech.worker.model.DecryptionValidationResult;
+import com.google.aggregate.adtech.worker.model.EncryptedReport;
+import com.google.aggregate.adtech.worker.model.Fact;
+import com.google.aggregate.adtech.worker.model.Payload;
+import com.google.aggregate.adtech.worker.model.SharedInfo;
+import com.google.aggregate.adtech.worker.model.serdes.AvroResultsSerdes;
+import com.google.aggregate.adtech.worker.model.serdes.PayloadSerdes;
+import com.google.aggregate.adtech.worker.model.serdes.SharedInfoSerdes;
+import com.google.aggregate.adtech.worker.util.JobUtils;
+import com.google.aggregate.adtech.worker.validation.ReportValidator;
+import com.google.aggregate.perf.StageMetricsRegistry;
+import com.google.aggregate.protos.shared.backend.JobKeyProto.JobKey;
+import com.google.aggregate.protos.shared.backend.JobStatusProto.JobStatus;
+import com.google.aggregate.protos.shared.backend.RequestInfoProto.RequestInfo;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteSource;
+import com.google.crypto.tink.HybridDecrypt;
+import com.google.crypto.tink.HybridEncrypt;
+import com.google.crypto.tink.KeysetHandle;
+import com.google.crypto.tink.hybrid.EciesAeadHkdfPrivateKeyManager;
+import com.google.crypto.tink.hybrid.HybridConfig;
+import com.google.errorprone.annotations.Var;
+import com.google.scp.operator.cpio.cryptoclient.DecryptionKeyService;
+import com.google.scp.operator.cpio.cryptoclient.DecryptionKeyService.KeyFetchException;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import javax.inject.Inject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Warms up the worker by running synthetic jobs through the report processing path of real jobs.
+ *
+ * <p>Reports encrypted with a locally generated key are decrypted, validated and aggregated with
+ * the same {@link ReportDecrypterAndValidator}, validators and aggregation engine as real reports,
+ * and the aggregation is serialized to a summary report. This initializes the crypto primitives and
+ * lets the JIT compile the hot path before the first job is pulled. The decryption keys configured
+ * for warm-up are fetched from the real {@link DecryptionKeyService}, which caches them for the
+ * first jobs.
+ */
+public final class SyntheticJobWorkerWarmup implements WorkerWarmup {
+
+  private static final Logger logger = LoggerFactory.getLogger(SyntheticJobWorkerWarmup.class);
+
+  // Reports of each synthetic job. The reports are encrypted once and decrypted by every job.
+  static final int REPORTS_PER_JOB = 1000;
+  // Number of synthetic jobs, chosen so that the hot methods are invoked often enough to be
+  // compiled by the optimizing JIT compiler.
+  static final int JOB_COUNT = 10;
+  private static final int FACTS_PER_REPORT = 4;
+  private static final int BUCKET_COUNT = 512;
+  private static final String KEY_ID = "worker-warm-up";
+  private static final String REPORTING_ORIGIN = "https://warm-up.example";
+
+  private final PayloadSerdes payloadSerdes;
+  private final SharedInfoSerdes sharedInfoSerdes;
+  private final Set<ReportValidator> reportValidators;
+  private final AggregationEngineFactory aggregationEngineFactory;
+  private final AvroResultsSerdes resultsSerdes;
+  private final DecryptionKeyService decryptionKeyService;
+  private final ImmutableList<String> warmUpDecryptionKeyIds;
+  private final Clock clock;
+
+  @Inject
+  SyntheticJobWorkerWarmup(
+      PayloadSerdes payloadSerdes,
+      SharedInfoSerdes sharedInfoSerdes,
+      Set<ReportValidator> reportValidators,
+      AggregationEngineFactory aggregationEngineFactory,
+      AvroResultsSerdes resultsSerdes,
+      DecryptionKeyService decryptionKeyService,
+      @WarmUpDecryptionKeyIds ImmutableList<String> warmUpDecryptionKeyIds,
+      Clock clock) {
+    this.payloadSerdes = payloadSerdes;
+    this.sharedInfoSerdes = sharedInfoSerdes;
+    this.reportValidators = reportValidators;
+    this.aggregationEngineFactory = aggregationEngineFactory;
+    this.resultsSerdes = resultsSerdes;
+    this.decryptionKeyService = decryptionKeyService;
+    this.warmUpDecryptionKeyIds = warmUpDecryptionKeyIds;
+    this.clock = clock;
+  }
+
+  @Override
+  public void warmUp() throws WorkerWarmupException {
+    prefetchDecryptionKeys();
+
+    KeysetHandle keysetHandle;
+    ImmutableList<EncryptedReport> encryptedReports;
+    try {
+      HybridConfig.register();
+      keysetHandle =
+          KeysetHandle.generateNew(
+              EciesAeadHkdfPrivateKeyManager.eciesP256HkdfHmacSha256Aes128GcmTemplate());
+      encryptedReports = createEncryptedReports(keysetHandle.getPublicKeysetHandle());
+    } catch (GeneralSecurityException | IOException e) {
+      throw new WorkerWarmupException(e);
+    }
+
+    HybridDecrypt hybridDecrypt;
+    try {
+      hybridDecrypt = keysetHandle.getPrimitive(HybridDecrypt.class);
+    } catch (GeneralSecurityException e) {
+      throw new WorkerWarmupException(e);
+    }
+    // Stage metrics of the synthetic jobs are kept apart from those of real jobs.
+    ReportDecrypterAndValidator reportDecrypterAndValidator =
+        new ReportDecrypterAndValidator(
+            new DeserializingReportDecrypter(
+                new HybridDecryptionCipherFactory(keyId -> hybridDecrypt),
+                payloadSerdes,
+                sharedInfoSerdes),
+            reportValidators,
+            new StageMetricsRegistry(),
+            /* stopValidationAtFirstError= */ Optional.empty());
+    Job job = createJob();
+
+    for (int i = 0; i < JOB_COUNT; i++) {
+      AggregationEngine aggregationEngine =
+          aggregationEngineFactory.createKeyAggregationEngine(
+              JobUtils.getAllFilteringIdsFromJobOrDefault(job));
+      @Var long invalidReports = 0;
+      for (EncryptedReport encryptedReport : encryptedReports) {
+        DecryptionValidationResult result =
+            reportDecrypterAndValidator.decryptAndValidate(encryptedReport, job);
+        if (result.report().isPresent()) {
+          aggregationEngine.accept(result.report().get());
+        } else {
+          invalidReports++;
+        }
+      }
+      if (invalidReports > 0) {
+        // The decryption path is still warm, but the aggregation path is not.
+        throw new WorkerWarmupException(
+            new IllegalStateException(
+                String.format("%d of the synthetic reports were invalid.", invalidReports)));
+      }
+      resultsSerdes.convert(
+          ImmutableList.copyOf(aggregationEngine.makeAggregation().values()));
+    }
+  }
+
+  /** Fetches the configured decryption keys so that they are cached before the first job. */
+  private void prefetchDecryptionKeys() {
+    for (String keyId : warmUpDecryptionKeyIds) {
+      try {
+        decryptionKeyService.getDecrypter(keyId);
+      } catch (KeyFetchException | RuntimeException e) {
+        logger.warn(String.format("Could not fetch decryption key %s during warm-up.", keyId), e);
+      }
+    }
+  }
+
+  private ImmutableList<EncryptedReport> createEncryptedReports(KeysetHandle publicKeysetHandle)
+      throws GeneralSecurityException, IOException {
+    HybridEncrypt hybridEncrypt = publicKeysetHandle.getPrimitive(HybridEncrypt.class);
+    // Reports are scheduled shortly before now so that they pass the report age validation.
+    Instant scheduledReportTime = Instant.now(clock).minus(Duration.ofHours(1));
+    ImmutableList.Builder<EncryptedReport> encryptedReports = ImmutableList.builder();
+    for (int i = 0; i < REPORTS_PER_JOB; i++) {
+      int reportIndex = i;
+      Payload payload =
+          Payload.builder()
+              .addAllFact(
+                  IntStream.range(0, FACTS_PER_REPORT)
+                      .mapToObj(
+                          j ->
+                              Fact.builder()
+                                  .setBucket(
+                                      BigInteger.valueOf(
+                                          (reportIndex * FACTS_PER_REPORT + j) % BUCKET_COUNT))
+                                  .setValue(1)
+                                  .build())
+                      .collect(toImmutableList()))
+              .build();
+      SharedInfo sharedInfo =
+          SharedInfo.builder()
+              .setVersion(SharedInfo.LATEST_VERSION)
+              .setApi(SharedInfo.ATTRIBUTION_REPORTING_API)
+              .setScheduledReportTime(scheduledReportTime)
+              .setSourceRegistrationTime(scheduledReportTime)
+              .setReportingOrigin(REPORTING_ORIGIN)
+              .setDestination(REPORTING_ORIGIN)
+              .setReportId(UUID.randomUUID().toString())
+              .build();
+      String serializedSharedInfo = sharedInfoSerdes.reverse().convert(Optional.of(sharedInfo));
+      byte[] serializedPayload = payloadSerdes.reverse().convert(Optional.of(payload)).read();
+      byte[] contextInfo = (ASSOCIATED_DATA_PREFIX + serializedSharedInfo).getBytes(UTF_8);
+      encryptedReports.add(
+          EncryptedReport.builder()
+              .setPayload(ByteSource.wrap(hybridEncrypt.encrypt(serializedPayload, contextInfo)))
+              .setKeyId(KEY_ID)
+              .setSharedInfo(serializedSharedInfo)
+              .build());
+    }
+    return encryptedReports.build();
+  }
+
+  private Job createJob() {
+    Instant now = Instant.now(clock);
+    return Job.builder()
+        .setJobKey(JobKey.newBuilder().setJobRequestId(KEY_ID).build())
+        .setJobStatus(JobStatus.IN_PROGRESS)
+        .setJobProcessingTimeout(Duration.ofHours(1))
+        .setRequestInfo(
+            RequestInfo.newBuilder()
+                .setJobRequestId(KEY_ID)
+                .putJobParameters(JobUtils.JOB_PARAM_ATTRIBUTION_REPORT_TO, REPORTING_ORIGIN)
+                .build())
+        .setCreateTime(now)
+        .setUpdateTime(now)
+        .setProcessingStartTime(Optional.of(now))
+        .setNumAttempts(0)
+        .build();
+  }
+}
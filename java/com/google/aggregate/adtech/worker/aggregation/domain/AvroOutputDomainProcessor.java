@@ -17,12 +17,14 @@
 package com.google.aggregate.adtech.worker.aggregation.domain;
 
 import com.google.aggregate.adtech.worker.Annotations.BlockingThreadPool;
+import com.google.aggregate.adtech.worker.Annotations.DisableSortedDomainMergeJoin;
 import com.google.aggregate.adtech.worker.Annotations.DomainOptional;
 import com.google.aggregate.adtech.worker.Annotations.EnableThresholding;
 import com.google.aggregate.adtech.worker.Annotations.NonBlockingThreadPool;
 import com.google.aggregate.adtech.worker.exceptions.DomainReadException;
-import com.google.aggregate.adtech.worker.model.serdes.AvroDebugResultsSerdes;
-import com.google.aggregate.adtech.worker.model.serdes.AvroResultsSerdes;
+import com.google.aggregate.adtech.worker.model.serdes.AvroSummaryAndDebugResultsEncoder;
+import com.google.aggregate.perf.StageMetricsRegistry;
+import com.google.aggregate.protocol.avro.AvroOutputDomainReader;
 import com.google.aggregate.protocol.avro.AvroOutputDomainReaderFactory;
 import com.google.aggregate.protocol.avro.AvroOutputDomainRecord;
 import com.google.common.util.concurrent.ListeningExecutorService;
@@ -30,6 +32,7 @@ import com.google.scp.operator.cpio.blobstorageclient.BlobStorageClient;
 import java.io.IOException;
 import java.io.InputStream;
 import java.math.BigInteger;
+import java.util.Optional;
 import java.util.stream.Stream;
 import javax.inject.Inject;
 import org.apache.avro.AvroRuntimeException;
@@ -44,18 +47,20 @@ public final class AvroOutputDomainProcessor extends OutputDomainProcessor {
       @NonBlockingThreadPool ListeningExecutorService nonBlockingThreadPool,
       BlobStorageClient blobStorageClient,
       AvroOutputDomainReaderFactory avroReaderFactory,
-      AvroResultsSerdes resultsSerdes,
-      AvroDebugResultsSerdes debugResultsSerdes,
+      AvroSummaryAndDebugResultsEncoder summaryAndDebugResultsEncoder,
+      StageMetricsRegistry stageMetrics,
       @DomainOptional Boolean domainOptional,
-      @EnableThresholding Boolean enableThresholding) {
+      @EnableThresholding Boolean enableThresholding,
+      @DisableSortedDomainMergeJoin Optional<Boolean> disableSortedDomainMergeJoin) {
     super(
         blockingThreadPool,
         nonBlockingThreadPool,
         blobStorageClient,
-        resultsSerdes,
-        debugResultsSerdes,
+        summaryAndDebugResultsEncoder,
+        stageMetrics,
         domainOptional,
-        enableThresholding);
+        enableThresholding,
+        /* sortedDomainMergeJoinEnabled= */ !disableSortedDomainMergeJoin.orElse(false));
     this.avroReaderFactory = avroReaderFactory;
   }
 
@@ -70,4 +75,17 @@ public final class AvroOutputDomainProcessor extends OutputDomainProcessor {
       throw new DomainReadException(e);
     }
   }
+
+  @Override
+  public Optional<Stream<BigInteger>> readSortedInputStream(InputStream shardInputStream) {
+    try {
+      AvroOutputDomainReader avroReader = avroReaderFactory.create(shardInputStream);
+      if (!avroReader.hasSortedBuckets()) {
+        return Optional.empty();
+      }
+      return Optional.of(avroReader.streamRecords().map(AvroOutputDomainRecord::bucket));
+    } catch (IOException | AvroRuntimeException e) {
+      throw new DomainReadException(e);
+    }
+  }
 }
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.aggregation.domain;
+
+import com.google.aggregate.adtech.worker.Annotations.BlockingThreadPool;
+import com.google.aggregate.adtech.worker.Annotations.DisableSortedDomainMergeJoin;
+import com.google.aggregate.adtech.worker.Annotations.DomainOptional;
+import com.google.aggregate.adtech.worker.Annotations.EnableThresholding;
+import com.google.aggregate.adtech.worker.Annotations.NonBlockingThreadPool;
+import com.google.aggregate.adtech.worker.exceptions.DomainReadException;
+import com.google.aggregate.adtech.worker.model.serdes.AvroSummaryAndDebugResultsEncoder;
+import com.google.aggregate.perf.StageMetricsRegistry;
+import com.google.aggregate.protocol.binary.BinaryOutputDomainReader;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.scp.operator.cpio.blobstorageclient.BlobStorageClient;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.util.Optional;
+import java.util.stream.Stream;
+import javax.inject.Inject;
+
+/**
+ * Reads output domain from files of fixed-width 16 byte buckets written by {@link
+ * com.google.aggregate.protocol.binary.BinaryOutputDomainWriter}. Files marked as sorted are
+ * conflated with the aggregation through a merge join, which needs no dedup set.
+ */
+public final class BinaryOutputDomainProcessor extends OutputDomainProcessor {
+  @Inject
+  public BinaryOutputDomainProcessor(
+      @BlockingThreadPool ListeningExecutorService blockingThreadPool,
+      @NonBlockingThreadPool ListeningExecutorService nonBlockingThreadPool,
+      BlobStorageClient blobStorageClient,
+      AvroSummaryAndDebugResultsEncoder summaryAndDebugResultsEncoder,
+      StageMetricsRegistry stageMetrics,
+      @DomainOptional Boolean domainOptional,
+      @EnableThresholding Boolean enableThresholding,
+      @DisableSortedDomainMergeJoin Optional<Boolean> disableSortedDomainMergeJoin) {
+    super(
+        blockingThreadPool,
+        nonBlockingThreadPool,
+        blobStorageClient,
+        summaryAndDebugResultsEncoder,
+        stageMetrics,
+        domainOptional,
+        enableThresholding,
+        /* sortedDomainMergeJoinEnabled= */ !disableSortedDomainMergeJoin.orElse(false));
+  }
+
+  @Override
+  public Stream<BigInteger> readInputStream(InputStream shardInputStream) {
+    try {
+      return BinaryOutputDomainReader.fromInputStream(shardInputStream).streamBuckets();
+    } catch (IOException e) {
+      throw new DomainReadException(e);
+    }
+  }
+
+  @Override
+  public Stream<BigInteger> readInputStream(InputStream shardInputStream, long shardSizeBytes) {
+    try {
+      return BinaryOutputDomainReader.fromInputStream(shardInputStream, shardSizeBytes)
+          .streamBuckets();
+    } catch (IOException e) {
+      throw new DomainReadException(e);
+    }
+  }
+
+  @Override
+  public Optional<Stream<BigInteger>> readSortedInputStream(InputStream shardInputStream) {
+    try {
+      return BinaryOutputDomainReader.streamSortedBuckets(shardInputStream);
+    } catch (IOException e) {
+      throw new DomainReadException(e);
+    }
+  }
+}
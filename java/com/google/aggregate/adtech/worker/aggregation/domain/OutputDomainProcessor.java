@@ -23,9 +23,14 @@ import com.google.aggregate.adtech.worker.aggregation.engine.AggregationEngine.A
 import com.google.aggregate.adtech.worker.exceptions.DomainReadException;
 import com.google.aggregate.adtech.worker.model.AggregatedFact;
 import com.google.aggregate.adtech.worker.model.DebugBucketAnnotation;
-import com.google.aggregate.adtech.worker.model.serdes.AvroDebugResultsSerdes;
-import com.google.aggregate.adtech.worker.model.serdes.AvroResultsSerdes;
+import com.google.aggregate.adtech.worker.model.FactBatch;
+import com.google.aggregate.adtech.worker.model.serdes.AvroSummaryAndDebugResultsEncoder;
+import com.google.aggregate.adtech.worker.model.serdes.AvroSummaryAndDebugResultsEncoder.EncodedResults;
 import com.google.aggregate.adtech.worker.util.OutputShardFileHelper;
+import com.google.aggregate.perf.PipelineEvents.DomainConflationEvent;
+import com.google.aggregate.perf.PipelineEvents.EncodeEvent;
+import com.google.aggregate.perf.PipelineStage;
+import com.google.aggregate.perf.StageMetricsRegistry;
 import com.google.aggregate.privacy.noise.JobScopedPrivacyParams;
 import com.google.aggregate.privacy.noise.NoisedAggregationRunner;
 import com.google.aggregate.privacy.noise.model.AggregatedResults;
@@ -33,11 +38,17 @@ import com.google.aggregate.privacy.noise.model.NoisedAggregatedResultSet;
 import com.google.aggregate.privacy.noise.model.NoisedAggregationResult;
 import com.google.aggregate.privacy.noise.model.SummaryReportAvro;
 import com.google.aggregate.privacy.noise.model.SummaryReportAvroSet;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.errorprone.annotations.Var;
 import com.google.scp.operator.cpio.blobstorageclient.BlobStorageClient;
 import com.google.scp.operator.cpio.blobstorageclient.BlobStorageClient.BlobStorageClientException;
 import com.google.scp.operator.cpio.blobstorageclient.model.DataLocation;
@@ -45,17 +56,25 @@ import com.google.scp.operator.cpio.blobstorageclient.model.DataLocation.BlobSto
 import io.reactivex.rxjava3.core.Flowable;
 import io.reactivex.rxjava3.core.Observable;
 import io.reactivex.rxjava3.schedulers.Schedulers;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.slf4j.Logger;
@@ -73,29 +92,56 @@ public abstract class OutputDomainProcessor {
   private final int MAX_DOMAIN_PROCESS_BUFFER_SIZE =
       (MAX_DOMAIN_READ_BUFFER_SIZE * NUM_READ_THREADS) / NUM_PROCESS_THREADS;
 
+  private static final int IN_REPORTS = FactBatch.annotationMask(DebugBucketAnnotation.IN_REPORTS);
+  private static final int IN_DOMAIN = FactBatch.annotationMask(DebugBucketAnnotation.IN_DOMAIN);
+  private static final int IN_REPORTS_AND_DOMAIN =
+      FactBatch.annotationMask(DebugBucketAnnotation.IN_REPORTS, DebugBucketAnnotation.IN_DOMAIN);
+
   private final ListeningExecutorService blockingThreadPool; // for blocking I/O operations
   private final ListeningExecutorService nonBlockingThreadPool; // for other processing operations
   private final BlobStorageClient blobStorageClient;
   private final Boolean domainOptional;
   private final Boolean enableThresholding;
-  private final AvroResultsSerdes resultsSerdes;
-  private final AvroDebugResultsSerdes debugResultsSerdes;
+  private final AvroSummaryAndDebugResultsEncoder summaryAndDebugResultsEncoder;
+  private final StageMetricsRegistry stageMetrics;
+  private final boolean sortedDomainMergeJoinEnabled;
 
   OutputDomainProcessor(
       ListeningExecutorService blockingThreadPool,
       ListeningExecutorService nonBlockingThreadPool,
       BlobStorageClient blobStorageClient,
-      AvroResultsSerdes resultsSerdes,
-      AvroDebugResultsSerdes debugResultsSerdes,
+      AvroSummaryAndDebugResultsEncoder summaryAndDebugResultsEncoder,
+      StageMetricsRegistry stageMetrics,
       Boolean domainOptional,
       Boolean enableThresholding) {
+    this(
+        blockingThreadPool,
+        nonBlockingThreadPool,
+        blobStorageClient,
+        summaryAndDebugResultsEncoder,
+        stageMetrics,
+        domainOptional,
+        enableThresholding,
+        /* sortedDomainMergeJoinEnabled= */ false);
+  }
+
+  OutputDomainProcessor(
+      ListeningExecutorService blockingThreadPool,
+      ListeningExecutorService nonBlockingThreadPool,
+      BlobStorageClient blobStorageClient,
+      AvroSummaryAndDebugResultsEncoder summaryAndDebugResultsEncoder,
+      StageMetricsRegistry stageMetrics,
+      Boolean domainOptional,
+      Boolean enableThresholding,
+      boolean sortedDomainMergeJoinEnabled) {
     this.blockingThreadPool = blockingThreadPool;
     this.nonBlockingThreadPool = nonBlockingThreadPool;
     this.blobStorageClient = blobStorageClient;
     this.domainOptional = domainOptional;
     this.enableThresholding = enableThresholding;
-    this.resultsSerdes = resultsSerdes;
-    this.debugResultsSerdes = debugResultsSerdes;
+    this.summaryAndDebugResultsEncoder = summaryAndDebugResultsEncoder;
+    this.stageMetrics = stageMetrics;
+    this.sortedDomainMergeJoinEnabled = sortedDomainMergeJoinEnabled;
   }
 
   /**
@@ -126,6 +172,29 @@ public abstract class OutputDomainProcessor {
     }
   }
 
+  /**
+   * Reads the first {@code maxKeys} buckets of the shard, to find malformed shards before reports
+   * are processed. The read is not recorded in the stage metrics.
+   *
+   * @return the number of buckets read, which is less than {@code maxKeys} only if the shard has
+   *     fewer buckets.
+   * @throws DomainReadException (unchecked) if the shard can't be read or parsed.
+   */
+  public long readLeadingKeys(DataLocation shard, int maxKeys) {
+    try {
+      long shardSizeBytes = blobStorageClient.getBlobSize(shard);
+      if (shardSizeBytes <= 0) {
+        return 0;
+      }
+      try (InputStream shardInputStream = blobStorageClient.getBlob(shard);
+          Stream<BigInteger> buckets = readInputStream(shardInputStream, shardSizeBytes)) {
+        return buckets.limit(maxKeys).count();
+      }
+    } catch (BlobStorageClientException | IOException e) {
+      throw new DomainReadException(e);
+    }
+  }
+
   /**
    * Process output domains using RxJava streaming API to read the domains, conflate with report
    * facts, noise, and buffer for summary report. When domainOptional is set, aggregatable
@@ -135,6 +204,9 @@ public abstract class OutputDomainProcessor {
    * separately from report-only keys, enabling debug run or domain optional results in separate
    * files.
    *
+   * <p>When every domain shard is marked as sorted and the aggregation engine can emit its keys in
+   * sorted order, the domain is conflated with a linear merge join instead of per-key lookups.
+   *
    * @return NoisedAggregatedResultSet containing the combined and noised Aggregatable reports and
    *     output domain buckets.
    */
@@ -146,6 +218,18 @@ public abstract class OutputDomainProcessor {
       JobScopedPrivacyParams privacyParams,
       Boolean debugRun)
       throws DomainReadException {
+    Optional<AggregatedResults> mergeJoinResults =
+        tryAdjustAggregationWithSortedDomain(
+            aggregationEngine,
+            domainLocation,
+            domainShards,
+            noisedAggregationRunner,
+            privacyParams,
+            debugRun);
+    if (mergeJoinResults.isPresent()) {
+      return mergeJoinResults.get();
+    }
+
     Set<BigInteger> domainKeySet = Sets.newConcurrentHashSet();
     AtomicLong outputDomainTotalCount = new AtomicLong(0);
     AtomicInteger shardCounter = new AtomicInteger(0);
@@ -159,13 +243,8 @@ public abstract class OutputDomainProcessor {
     Flowable.fromStream(domainShards.stream())
         .flatMap(
             dataLocation ->
-                processOutputDomainShard(
-                        dataLocation,
-                        aggregationEngine,
-                        noisedAggregationRunner,
-                        privacyParams,
-                        domainKeySet,
-                        debugRun)
+                readShardData(dataLocation)
+                    .filter(domainKeySet::add)
                     .subscribeOn(Schedulers.from(nonBlockingThreadPool)),
             /* delayErrors= */ false,
             NUM_READ_THREADS,
@@ -173,13 +252,18 @@ public abstract class OutputDomainProcessor {
         .buffer(OutputShardFileHelper.getMaxRecordsPerShard())
         .doOnNext(domains -> outputDomainTotalCount.addAndGet(domains.size()))
         .flatMap(
-            summaryFacts ->
-                processDomainSummaryFacts(
-                        ImmutableList.copyOf(summaryFacts),
-                        shardCounter.addAndGet(1),
-                        debugRun,
-                        summaryReportAvros,
-                        debugSummaryReportAvros)
+            domainKeys ->
+                Flowable.defer(
+                        () ->
+                            processDomainKeys(
+                                domainKeys,
+                                aggregationEngine,
+                                shardCounter.addAndGet(1),
+                                noisedAggregationRunner,
+                                privacyParams,
+                                debugRun,
+                                summaryReportAvros,
+                                debugSummaryReportAvros))
                     .subscribeOn(Schedulers.from(blockingThreadPool)),
             NUM_PROCESS_THREADS)
         .blockingSubscribe();
@@ -196,30 +280,25 @@ public abstract class OutputDomainProcessor {
 
     if (debugRun || domainOptional) {
       Flowable.fromStream(aggregationEngine.getEntries())
-          .map(
-              reportOnlyEntry -> {
-                BigInteger reportOnlyKey = reportOnlyEntry.getKey().bucket();
-                AggregatedFact reportOnlyFact =
-                    AggregatedFact.create(reportOnlyKey, reportOnlyEntry.getValue().longValue());
-                noisedAggregationRunner.noiseSingleFact(reportOnlyFact, privacyParams);
-
-                if (debugRun) {
-                  reportOnlyFact.setDebugAnnotations(List.of(DebugBucketAnnotation.IN_REPORTS));
-                }
-                return reportOnlyFact;
-              })
           .subscribeOn(Schedulers.from(nonBlockingThreadPool))
           .buffer(OutputShardFileHelper.getMaxRecordsPerShard())
           .flatMap(
-              summaryFacts ->
-                  processReportOnlyFacts(
-                          ImmutableList.copyOf(summaryFacts),
-                          shardCounter.addAndGet(1),
-                          debugRun,
-                          privacyParams,
-                          noisedAggregationRunner,
-                          summaryReportAvros,
-                          debugSummaryReportAvros)
+              reportOnlyEntries ->
+                  Flowable.defer(
+                          () -> {
+                            FactBatch reportOnlyFacts = new FactBatch(reportOnlyEntries.size());
+                            reportOnlyEntries.forEach(
+                                entry -> addReportOnlyFact(reportOnlyFacts, entry, debugRun));
+                            noiseBatch(noisedAggregationRunner, reportOnlyFacts, privacyParams);
+                            return processReportOnlyFacts(
+                                reportOnlyFacts,
+                                shardCounter.addAndGet(1),
+                                debugRun,
+                                privacyParams,
+                                noisedAggregationRunner,
+                                summaryReportAvros,
+                                debugSummaryReportAvros);
+                          })
                       .subscribeOn(Schedulers.from(blockingThreadPool)))
           .blockingSubscribe();
     }
@@ -235,7 +314,36 @@ public abstract class OutputDomainProcessor {
   }
 
   private Flowable<Object> processReportOnlyFacts(
-      ImmutableList<AggregatedFact> summaryFacts,
+      FactBatch summaryFacts,
+      Integer shardId,
+      boolean debugRun,
+      JobScopedPrivacyParams privacyParams,
+      NoisedAggregationRunner noisedAggregationRunner,
+      List<SummaryReportAvro> summaryReportAvros,
+      List<SummaryReportAvro> debugSummaryReportAvros) {
+    long startNanos = stageMetrics.startNanos();
+    EncodeEvent encodeEvent = new EncodeEvent();
+    encodeEvent.begin();
+    try {
+      encodeReportOnlyFacts(
+          summaryFacts,
+          shardId,
+          debugRun,
+          privacyParams,
+          noisedAggregationRunner,
+          summaryReportAvros,
+          debugSummaryReportAvros);
+    } finally {
+      stageMetrics.recordSince(PipelineStage.ENCODE, startNanos);
+      stageMetrics.addItems(PipelineStage.ENCODE, summaryFacts.size());
+      encodeEvent.setShardId(shardId);
+      encodeEvent.commit();
+    }
+    return Flowable.empty();
+  }
+
+  private void encodeReportOnlyFacts(
+      FactBatch summaryFacts,
       Integer shardId,
       boolean debugRun,
       JobScopedPrivacyParams privacyParams,
@@ -243,72 +351,417 @@ public abstract class OutputDomainProcessor {
       List<SummaryReportAvro> summaryReportAvros,
       List<SummaryReportAvro> debugSummaryReportAvros) {
     if (domainOptional) {
-      ImmutableList<AggregatedFact> thresholdedFacts =
+      BitSet thresholdedRows =
           enableThresholding
-              ? noisedAggregationRunner.thresholdAggregatedFacts(summaryFacts, privacyParams)
-              : summaryFacts;
-
-      byte[] avroBytes = resultsSerdes.convert(thresholdedFacts);
+              ? noisedAggregationRunner.thresholdBatch(summaryFacts, privacyParams)
+              : allRows(summaryFacts);
+
+      if (debugRun) {
+        EncodedResults encodedResults =
+            summaryAndDebugResultsEncoder.encode(summaryFacts, thresholdedRows);
+        summaryReportAvros.add(SummaryReportAvro.create(shardId, encodedResults.summaryBytes()));
+        debugSummaryReportAvros.add(
+            SummaryReportAvro.create(shardId, encodedResults.debugBytes()));
+        return;
+      }
+
+      byte[] avroBytes = summaryAndDebugResultsEncoder.encodeSummary(summaryFacts, thresholdedRows);
       summaryReportAvros.add(SummaryReportAvro.create(shardId, avroBytes));
     }
 
     if (debugRun) {
-      byte[] debugAvroBytes = debugResultsSerdes.convert(summaryFacts);
+      byte[] debugAvroBytes = summaryAndDebugResultsEncoder.encodeDebug(summaryFacts);
       debugSummaryReportAvros.add(SummaryReportAvro.create(shardId, debugAvroBytes));
     }
+  }
 
-    return Flowable.empty();
+  /**
+   * Conflates a buffer of domain keys with the aggregation, then noises and encodes them as one
+   * summary report shard.
+   */
+  private Flowable<Object> processDomainKeys(
+      List<BigInteger> domainKeys,
+      AggregationEngine aggregationEngine,
+      int shardId,
+      NoisedAggregationRunner noisedAggregationRunner,
+      JobScopedPrivacyParams privacyParams,
+      boolean debugRun,
+      List<SummaryReportAvro> summaryReportAvros,
+      List<SummaryReportAvro> debugSummaryReportAvros) {
+    DomainConflationEvent conflationEvent = new DomainConflationEvent();
+    conflationEvent.begin();
+    FactBatch domainFacts = new FactBatch(domainKeys.size());
+    for (BigInteger domainKey : domainKeys) {
+      AggregationKey aggregationKey = AggregationKey.create(domainKey);
+      domainFacts.add(
+          domainKey,
+          aggregationEngine.getAggregatedValueOrDefault(aggregationKey, 0),
+          debugRun ? domainAnnotations(aggregationEngine.containsKey(aggregationKey)) : 0);
+      aggregationEngine.remove(aggregationKey);
+    }
+    conflationEvent.commit();
+    noiseBatch(noisedAggregationRunner, domainFacts, privacyParams);
+    return processDomainSummaryFacts(
+        domainFacts, shardId, debugRun, summaryReportAvros, debugSummaryReportAvros);
   }
 
   private Flowable<Object> processDomainSummaryFacts(
-      ImmutableList<AggregatedFact> summaryFacts,
+      FactBatch summaryFacts,
       int shardId,
       Boolean debugRun,
       List<SummaryReportAvro> summaryReportAvros,
       List<SummaryReportAvro> debugSummaryReportAvros) {
+    long startNanos = stageMetrics.startNanos();
+    EncodeEvent encodeEvent = new EncodeEvent();
+    encodeEvent.begin();
+    try {
+      if (debugRun) {
+        EncodedResults encodedResults =
+            summaryAndDebugResultsEncoder.encode(summaryFacts, allRows(summaryFacts));
+        summaryReportAvros.add(SummaryReportAvro.create(shardId, encodedResults.summaryBytes()));
+        debugSummaryReportAvros.add(
+            SummaryReportAvro.create(shardId, encodedResults.debugBytes()));
+      } else {
+        byte[] avroBytes =
+            summaryAndDebugResultsEncoder.encodeSummary(summaryFacts, allRows(summaryFacts));
+        summaryReportAvros.add(SummaryReportAvro.create(shardId, avroBytes));
+      }
+    } finally {
+      stageMetrics.recordSince(PipelineStage.ENCODE, startNanos);
+      stageMetrics.addItems(PipelineStage.ENCODE, summaryFacts.size());
+      encodeEvent.setShardId(shardId);
+      encodeEvent.commit();
+    }
+    return Flowable.empty();
+  }
 
-    byte[] avroBytes = resultsSerdes.convert(summaryFacts);
-    summaryReportAvros.add(SummaryReportAvro.create(shardId, avroBytes));
+  private void noiseBatch(
+      NoisedAggregationRunner noisedAggregationRunner,
+      FactBatch facts,
+      JobScopedPrivacyParams privacyParams) {
+    long startNanos = stageMetrics.startNanos();
+    noisedAggregationRunner.noiseBatch(facts, privacyParams);
+    stageMetrics.recordSince(PipelineStage.NOISE, startNanos);
+  }
 
-    if (debugRun) {
-      byte[] debugAvroBytes = debugResultsSerdes.convert(summaryFacts);
-      debugSummaryReportAvros.add(SummaryReportAvro.create(shardId, debugAvroBytes));
-    }
+  private static BitSet allRows(FactBatch facts) {
+    BitSet rows = new BitSet(facts.size());
+    rows.set(0, facts.size());
+    return rows;
+  }
 
-    return Flowable.empty();
+  private static int domainAnnotations(boolean inReports) {
+    return inReports ? IN_REPORTS_AND_DOMAIN : IN_DOMAIN;
   }
 
-  private Flowable<AggregatedFact> processOutputDomainShard(
-      DataLocation dataLocation,
+  /**
+   * Conflates the aggregation with the output domain using a merge join, if every domain shard
+   * advertises ascending buckets and the aggregation engine can emit its entries in ascending
+   * order. This replaces the lookup and removal on the engine and the insert into the dedup set
+   * done for every domain key by the streaming path. Facts are noised, annotated, thresholded and
+   * encoded the same way as in the streaming path.
+   *
+   * <p>Only the shard headers are read to decide whether the domain is sorted, so falling back to
+   * the streaming path doesn't read any domain bucket twice. The engine sorts references to its
+   * keys, so the merge join costs one reference per aggregated key instead of the set of domain
+   * keys kept by the streaming path.
+   *
+   * @return the results, or empty if the merge join is disabled or either side is not sorted.
+   */
+  private Optional<AggregatedResults> tryAdjustAggregationWithSortedDomain(
       AggregationEngine aggregationEngine,
+      Optional<DataLocation> domainLocation,
+      ImmutableList<DataLocation> domainShards,
+      NoisedAggregationRunner noisedAggregationRunner,
+      JobScopedPrivacyParams privacyParams,
+      Boolean debugRun)
+      throws DomainReadException {
+    if (!sortedDomainMergeJoinEnabled || domainShards.isEmpty()) {
+      return Optional.empty();
+    }
+
+    List<InputStream> openedShards = new ArrayList<>();
+    try {
+      ImmutableList.Builder<Iterator<BigInteger>> sortedShards = ImmutableList.builder();
+      for (DataLocation domainShard : domainShards) {
+        Optional<Stream<BigInteger>> sortedShard = openSortedShard(domainShard, openedShards);
+        if (sortedShard.isEmpty()) {
+          return Optional.empty();
+        }
+        sortedShards.add(sortedShard.get().iterator());
+      }
+
+      Optional<Stream<Entry<AggregationKey, LongAdder>>> sortedEntries =
+          aggregationEngine.getSortedEntries();
+      if (sortedEntries.isEmpty()) {
+        return Optional.empty();
+      }
+
+      logger.info("Output domain and aggregation are sorted, conflating them with a merge join.");
+      return Optional.of(
+          mergeJoinSortedDomain(
+              new SortedBucketMergeIterator(sortedShards.build()),
+              Iterators.peekingIterator(sortedEntries.get().iterator()),
+              domainLocation,
+              noisedAggregationRunner,
+              privacyParams,
+              debugRun));
+    } catch (UncheckedIOException e) {
+      // Sorted shards are read lazily, while they are merged.
+      throw new DomainReadException(e);
+    } finally {
+      for (InputStream openedShard : openedShards) {
+        try {
+          openedShard.close();
+        } catch (IOException e) {
+          logger.warn("Failed to close output domain shard.", e);
+        }
+      }
+    }
+  }
+
+  private AggregatedResults mergeJoinSortedDomain(
+      Iterator<BigInteger> domainKeys,
+      PeekingIterator<Entry<AggregationKey, LongAdder>> sortedEntries,
+      Optional<DataLocation> domainLocation,
       NoisedAggregationRunner noisedAggregationRunner,
       JobScopedPrivacyParams privacyParams,
-      Set<BigInteger> domainKeySet,
       Boolean debugRun) {
-    return readShardData(dataLocation)
-        .filter(domainKeySet::add)
-        .map(
-            domainKey -> {
-              AggregationKey aggregationkey = AggregationKey.create(domainKey);
-              AggregatedFact aggregatedFact =
-                  AggregatedFact.create(
-                      domainKey, aggregationEngine.getAggregatedValueOrDefault(aggregationkey, 0));
-              noisedAggregationRunner.noiseSingleFact(aggregatedFact, privacyParams);
-
-              if (debugRun) {
-                List<DebugBucketAnnotation> debugAnnotations = new ArrayList<>();
-                if (aggregationEngine.containsKey(aggregationkey)) {
-                  debugAnnotations.add(DebugBucketAnnotation.IN_REPORTS);
-                }
-                debugAnnotations.add(DebugBucketAnnotation.IN_DOMAIN);
+    boolean includeReportOnlyFacts = debugRun || domainOptional;
+    int maxRecordsPerShard = OutputShardFileHelper.getMaxRecordsPerShard();
+    List<SummaryReportAvro> summaryReportAvros = Collections.synchronizedList(new ArrayList<>());
+    List<SummaryReportAvro> debugSummaryReportAvros =
+        Collections.synchronizedList(new ArrayList<>());
+    AtomicInteger shardCounter = new AtomicInteger(0);
+    // Bounds the number of facts buffered in memory when encoding is slower than the merge.
+    Semaphore pendingBatches = new Semaphore(NUM_PROCESS_THREADS * 2);
+    List<ListenableFuture<?>> batchFutures = new ArrayList<>();
+    @Var FactBatch domainFacts = new FactBatch();
+    @Var FactBatch reportOnlyFacts = new FactBatch();
+    @Var long outputDomainTotalCount = 0;
+    // Spans the merge of the domain keys of one summary report shard.
+    @Var DomainConflationEvent conflationEvent = new DomainConflationEvent();
+    conflationEvent.begin();
+
+    while (domainKeys.hasNext()) {
+      BigInteger domainKey = domainKeys.next();
+      outputDomainTotalCount++;
+
+      // Entries ordered before the domain key are only present in the reports.
+      while (sortedEntries.hasNext()
+          && sortedEntries.peek().getKey().bucket().compareTo(domainKey) < 0) {
+        Entry<AggregationKey, LongAdder> reportOnlyEntry = sortedEntries.next();
+        if (includeReportOnlyFacts) {
+          addReportOnlyFact(reportOnlyFacts, reportOnlyEntry, debugRun);
+        }
+      }
+
+      boolean inReports =
+          sortedEntries.hasNext() && sortedEntries.peek().getKey().bucket().equals(domainKey);
+      domainFacts.add(
+          domainKey,
+          inReports ? sortedEntries.next().getValue().sum() : 0,
+          debugRun ? domainAnnotations(inReports) : 0);
+
+      if (domainFacts.size() >= maxRecordsPerShard) {
+        conflationEvent.commit();
+        batchFutures.add(
+            submitDomainBatch(
+                domainFacts,
+                pendingBatches,
+                shardCounter,
+                debugRun,
+                noisedAggregationRunner,
+                privacyParams,
+                summaryReportAvros,
+                debugSummaryReportAvros));
+        domainFacts = new FactBatch();
+        conflationEvent = new DomainConflationEvent();
+        conflationEvent.begin();
+      }
+      if (reportOnlyFacts.size() >= maxRecordsPerShard) {
+        batchFutures.add(
+            submitReportOnlyBatch(
+                reportOnlyFacts,
+                pendingBatches,
+                shardCounter,
+                debugRun,
+                noisedAggregationRunner,
+                privacyParams,
+                summaryReportAvros,
+                debugSummaryReportAvros));
+        reportOnlyFacts = new FactBatch();
+      }
+    }
+
+    if (domainLocation.isPresent() && outputDomainTotalCount < 1) {
+      throw new DomainReadException(
+          new IllegalArgumentException(
+              String.format(
+                  "No output domain provided in the location: %s. Please refer to the API"
+                      + " documentation for output domain parameters at"
+                      + " https://github.com/privacysandbox/aggregation-service/blob/main/docs/api.md",
+                  domainLocation)));
+    }
+
+    if (!domainFacts.isEmpty()) {
+      conflationEvent.commit();
+      batchFutures.add(
+          submitDomainBatch(
+              domainFacts,
+              pendingBatches,
+              shardCounter,
+              debugRun,
+              noisedAggregationRunner,
+              privacyParams,
+              summaryReportAvros,
+              debugSummaryReportAvros));
+    }
 
-                aggregatedFact.setDebugAnnotations(debugAnnotations);
-              }
+    // Entries after the last domain key are only present in the reports.
+    while (includeReportOnlyFacts && sortedEntries.hasNext()) {
+      addReportOnlyFact(reportOnlyFacts, sortedEntries.next(), debugRun);
+      if (reportOnlyFacts.size() >= maxRecordsPerShard) {
+        batchFutures.add(
+            submitReportOnlyBatch(
+                reportOnlyFacts,
+                pendingBatches,
+                shardCounter,
+                debugRun,
+                noisedAggregationRunner,
+                privacyParams,
+                summaryReportAvros,
+                debugSummaryReportAvros));
+        reportOnlyFacts = new FactBatch();
+      }
+    }
+    if (!reportOnlyFacts.isEmpty()) {
+      batchFutures.add(
+          submitReportOnlyBatch(
+              reportOnlyFacts,
+              pendingBatches,
+              shardCounter,
+              debugRun,
+              noisedAggregationRunner,
+              privacyParams,
+              summaryReportAvros,
+              debugSummaryReportAvros));
+    }
 
-              aggregationEngine.remove(aggregationkey);
+    try {
+      Futures.allAsList(batchFutures).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while encoding the summary reports.", e);
+    } catch (ExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new IllegalStateException(e.getCause());
+    }
+
+    return AggregatedResults.create(
+        SummaryReportAvroSet.create(
+            ImmutableList.copyOf(summaryReportAvros),
+            debugRun
+                ? Optional.of(ImmutableList.copyOf(debugSummaryReportAvros))
+                : Optional.empty()));
+  }
 
-              return aggregatedFact;
-            });
+  private static void addReportOnlyFact(
+      FactBatch reportOnlyFacts,
+      Entry<AggregationKey, LongAdder> reportOnlyEntry,
+      boolean debugRun) {
+    reportOnlyFacts.add(
+        reportOnlyEntry.getKey().bucket(),
+        reportOnlyEntry.getValue().sum(),
+        debugRun ? IN_REPORTS : 0);
+  }
+
+  /**
+   * Submits the buffered domain facts for noising and encoding. The buffer must not be modified
+   * afterwards.
+   */
+  private ListenableFuture<?> submitDomainBatch(
+      FactBatch domainFacts,
+      Semaphore pendingBatches,
+      AtomicInteger shardCounter,
+      boolean debugRun,
+      NoisedAggregationRunner noisedAggregationRunner,
+      JobScopedPrivacyParams privacyParams,
+      List<SummaryReportAvro> summaryReportAvros,
+      List<SummaryReportAvro> debugSummaryReportAvros) {
+    return submitBatch(
+        pendingBatches,
+        () -> {
+          noiseBatch(noisedAggregationRunner, domainFacts, privacyParams);
+          processDomainSummaryFacts(
+              domainFacts,
+              shardCounter.addAndGet(1),
+              debugRun,
+              summaryReportAvros,
+              debugSummaryReportAvros);
+        });
+  }
+
+  /**
+   * Submits the buffered report-only facts for noising, thresholding and encoding. The buffer must
+   * not be modified afterwards.
+   */
+  private ListenableFuture<?> submitReportOnlyBatch(
+      FactBatch reportOnlyFacts,
+      Semaphore pendingBatches,
+      AtomicInteger shardCounter,
+      boolean debugRun,
+      NoisedAggregationRunner noisedAggregationRunner,
+      JobScopedPrivacyParams privacyParams,
+      List<SummaryReportAvro> summaryReportAvros,
+      List<SummaryReportAvro> debugSummaryReportAvros) {
+    return submitBatch(
+        pendingBatches,
+        () -> {
+          noiseBatch(noisedAggregationRunner, reportOnlyFacts, privacyParams);
+          processReportOnlyFacts(
+              reportOnlyFacts,
+              shardCounter.addAndGet(1),
+              debugRun,
+              privacyParams,
+              noisedAggregationRunner,
+              summaryReportAvros,
+              debugSummaryReportAvros);
+        });
+  }
+
+  private ListenableFuture<?> submitBatch(Semaphore pendingBatches, Runnable batchProcessor) {
+    pendingBatches.acquireUninterruptibly();
+    return blockingThreadPool.submit(
+        () -> {
+          try {
+            batchProcessor.run();
+          } finally {
+            pendingBatches.release();
+          }
+        });
+  }
+
+  /**
+   * Opens the shard and returns its buckets if the shard advertises that they are in ascending
+   * order. Empty shards are trivially sorted.
+   */
+  private Optional<Stream<BigInteger>> openSortedShard(
+      DataLocation shard, List<InputStream> openedShards) {
+    long startNanos = stageMetrics.startNanos();
+    try {
+      if (blobStorageClient.getBlobSize(shard) <= 0) {
+        return Optional.of(Stream.empty());
+      }
+      InputStream shardInputStream = blobStorageClient.getBlob(shard);
+      openedShards.add(shardInputStream);
+      return readSortedInputStream(shardInputStream);
+    } catch (BlobStorageClientException e) {
+      throw new DomainReadException(e);
+    } finally {
+      stageMetrics.recordSince(PipelineStage.DOMAIN_READ, startNanos);
+      stageMetrics.addItems(PipelineStage.DOMAIN_READ, 1);
+    }
   }
 
   /**
@@ -388,8 +841,10 @@ public abstract class OutputDomainProcessor {
     List<AggregatedFact> reportOnlyFacts =
         reportsOnlyKeys.stream().map(aggregatedResults::remove).collect(Collectors.toList());
 
+    long noiseStartNanos = stageMetrics.startNanos();
     NoisedAggregationResult noisedOverlappingAndDomainResults =
         noisedAggregationRunner.noise(aggregatedResults.values(), privacyParams);
+    stageMetrics.recordSince(PipelineStage.NOISE, noiseStartNanos);
 
     NoisedAggregatedResultSet.Builder noisedResultSetBuilder =
         NoisedAggregatedResultSet.builder().setNoisedResult(noisedOverlappingAndDomainResults);
@@ -399,8 +854,10 @@ public abstract class OutputDomainProcessor {
     }
 
     // ReportOnly facts are included only if debug run or domain optional are set.
+    noiseStartNanos = stageMetrics.startNanos();
     NoisedAggregationResult noisedReportOnlyResults =
         noisedAggregationRunner.noise(reportOnlyFacts, privacyParams);
+    stageMetrics.recordSince(PipelineStage.NOISE, noiseStartNanos);
 
     if (domainOptional) {
       NoisedAggregationResult noisedReportsDomainOptional =
@@ -468,20 +925,44 @@ public abstract class OutputDomainProcessor {
   }
 
   private Flowable<BigInteger> readShardData(DataLocation shard) {
+    AtomicLong shardSizeBytes = new AtomicLong();
     return Flowable.using(
         () -> {
+          long startNanos = stageMetrics.startNanos();
           try {
-            if (blobStorageClient.getBlobSize(shard) <= 0) {
+            shardSizeBytes.set(blobStorageClient.getBlobSize(shard));
+            if (shardSizeBytes.get() <= 0) {
               return InputStream.nullInputStream();
             }
             return blobStorageClient.getBlob(shard);
           } catch (BlobStorageClientException e) {
             throw new DomainReadException(e);
+          } finally {
+            stageMetrics.recordSince(PipelineStage.DOMAIN_READ, startNanos);
+            stageMetrics.addItems(PipelineStage.DOMAIN_READ, 1);
           }
         },
-        inputStream -> Flowable.fromStream(readInputStream(inputStream)),
+        inputStream -> Flowable.fromStream(readInputStream(inputStream, shardSizeBytes.get())),
         InputStream::close);
   }
 
   public abstract Stream<BigInteger> readInputStream(InputStream shardInputStream);
+
+  /**
+   * Reads the shard, whose blob is {@code shardSizeBytes} long. Formats whose header declares the
+   * size of the shard check it against the blob size before allocating for it.
+   */
+  public Stream<BigInteger> readInputStream(InputStream shardInputStream, long shardSizeBytes) {
+    return readInputStream(shardInputStream);
+  }
+
+  /**
+   * Reads the shard if it advertises that its buckets are in ascending order. Implementations
+   * decide from the shard header and read the buckets lazily, as the stream is consumed.
+   *
+   * @return the buckets of the shard, or empty if the shard format doesn't guarantee an order.
+   */
+  public Optional<Stream<BigInteger>> readSortedInputStream(InputStream shardInputStream) {
+    return Optional.empty();
+  }
 }
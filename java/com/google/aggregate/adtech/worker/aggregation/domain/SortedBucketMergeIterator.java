@@ -0,0 +1,90 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.aggregation.domain;
+
+import com.google.aggregate.adtech.worker.exceptions.DomainReadException;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import java.math.BigInteger;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+
+/**
+ * Merges output domain shards whose buckets are each in ascending order into a single iterator of
+ * distinct buckets in ascending order.
+ *
+ * <p>Throws {@link DomainReadException} if a shard turns out not to be sorted, since the merge join
+ * would otherwise silently produce wrong results.
+ */
+final class SortedBucketMergeIterator extends AbstractIterator<BigInteger> {
+
+  private final PriorityQueue<ShardCursor> cursors =
+      new PriorityQueue<>(Comparator.comparing((ShardCursor cursor) -> cursor.head));
+  private BigInteger lastBucket;
+
+  SortedBucketMergeIterator(ImmutableList<Iterator<BigInteger>> sortedShards) {
+    sortedShards.stream()
+        .filter(Iterator::hasNext)
+        .map(shard -> new ShardCursor(shard, shard.next()))
+        .forEach(cursors::add);
+  }
+
+  @Override
+  protected BigInteger computeNext() {
+    while (!cursors.isEmpty()) {
+      ShardCursor cursor = cursors.poll();
+      BigInteger bucket = cursor.head;
+      if (cursor.advance()) {
+        cursors.add(cursor);
+      }
+      // Buckets present in several shards are emitted once.
+      if (lastBucket == null || bucket.compareTo(lastBucket) > 0) {
+        lastBucket = bucket;
+        return bucket;
+      }
+    }
+    return endOfData();
+  }
+
+  /** Current position in one shard. */
+  private static final class ShardCursor {
+    private final Iterator<BigInteger> shard;
+    private BigInteger head;
+
+    ShardCursor(Iterator<BigInteger> shard, BigInteger head) {
+      this.shard = shard;
+      this.head = head;
+    }
+
+    /** Moves to the next bucket of the shard, returning false if the shard is exhausted. */
+    boolean advance() {
+      if (!shard.hasNext()) {
+        return false;
+      }
+      BigInteger next = shard.next();
+      if (next.compareTo(head) < 0) {
+        throw new DomainReadException(
+            new IllegalStateException(
+                "Output domain shard is marked as sorted but its buckets are not in ascending"
+                    + " order."));
+      }
+      head = next;
+      return true;
+    }
+  }
+}
@@ -23,9 +23,9 @@ import com.google.aggregate.adtech.worker.Annotations.DomainOptional;
 import com.google.aggregate.adtech.worker.Annotations.EnableThresholding;
 import com.google.aggregate.adtech.worker.Annotations.NonBlockingThreadPool;
 import com.google.aggregate.adtech.worker.exceptions.DomainReadException;
-import com.google.aggregate.adtech.worker.model.serdes.AvroDebugResultsSerdes;
-import com.google.aggregate.adtech.worker.model.serdes.AvroResultsSerdes;
+import com.google.aggregate.adtech.worker.model.serdes.AvroSummaryAndDebugResultsEncoder;
 import com.google.aggregate.adtech.worker.util.NumericConversions;
+import com.google.aggregate.perf.StageMetricsRegistry;
 import com.google.common.collect.ImmutableList;
 import com.google.common.io.ByteStreams;
 import com.google.common.util.concurrent.ListeningExecutorService;
@@ -43,16 +43,16 @@ public final class TextOutputDomainProcessor extends OutputDomainProcessor {
       @BlockingThreadPool ListeningExecutorService blockingThreadPool,
       @NonBlockingThreadPool ListeningExecutorService nonBlockingThreadPool,
       BlobStorageClient blobStorageClient,
-      AvroResultsSerdes resultsSerdes,
-      AvroDebugResultsSerdes debugResultsSerdes,
+      AvroSummaryAndDebugResultsEncoder summaryAndDebugResultsEncoder,
+      StageMetricsRegistry stageMetrics,
       @DomainOptional Boolean domainOptional,
       @EnableThresholding Boolean enableThresholding) {
     super(
         blockingThreadPool,
         nonBlockingThreadPool,
         blobStorageClient,
-        resultsSerdes,
-        debugResultsSerdes,
+        summaryAndDebugResultsEncoder,
+        stageMetrics,
         domainOptional,
         enableThresholding);
   }
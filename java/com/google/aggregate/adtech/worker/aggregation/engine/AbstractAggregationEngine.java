@@ -25,9 +25,11 @@ import com.google.aggregate.privacy.budgeting.budgetkeygenerator.PrivacyBudgetKe
 import com.google.common.collect.ImmutableSet;
 import com.google.common.primitives.UnsignedLong;
 import java.math.BigInteger;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * A skeletal implementation of {@code AggregationEngine}. This class handles report deduping,
@@ -60,8 +62,7 @@ public abstract class AbstractAggregationEngine implements AggregationEngine {
    */
   @Override
   public void accept(Report report) {
-    if (report.sharedInfo().reportId().isPresent()
-        && reportIdSet.add(UUID.fromString(report.sharedInfo().reportId().get()))) {
+    if (addReportId(report)) {
       addPrivacyBudgetUnitForAggregatableReport(report.sharedInfo(), filteringIds);
       report.payload().data().stream()
           .filter(fact -> !isNullFact(fact))
@@ -75,12 +76,62 @@ public abstract class AbstractAggregationEngine implements AggregationEngine {
     }
   }
 
+  /**
+   * Updates aggregation and privacy budget tracker for the given reports like {@link
+   * #accept(Report)}, but sums the contributions of the batch per bucket in a buffer confined to
+   * the calling thread. The buffered sums are added to the aggregation when the buffer holds {@code
+   * maxBufferedBuckets} buckets and at the end of the batch, so that a bucket contributed by many
+   * reports is updated once per flush instead of once per report.
+   */
+  @Override
+  public void accept(List<Report> reports, int maxBufferedBuckets) {
+    BucketSumBuffer buffer = new BucketSumBuffer(maxBufferedBuckets);
+    for (Report report : reports) {
+      if (!addReportId(report)) {
+        continue;
+      }
+      addPrivacyBudgetUnitForAggregatableReport(report.sharedInfo(), filteringIds);
+      for (Fact fact : report.payload().data()) {
+        if (!isNullFact(fact) && containsFilteringId(fact, filteringIds)) {
+          buffer.add(fact.bucket(), fact.value());
+          if (buffer.size() >= maxBufferedBuckets) {
+            flush(buffer);
+          }
+        }
+      }
+    }
+    flush(buffer);
+  }
+
+  @Override
+  public Stream<UUID> getReportIds() {
+    return reportIdSet.stream();
+  }
+
+  @Override
+  public boolean restoreReportId(UUID reportId) {
+    return reportIdSet.add(reportId);
+  }
+
   abstract void addPrivacyBudgetUnit(
       SharedInfo sharedInfo, UnsignedLong filteringId, PrivacyBudgetUnit privacyBudgetUnit);
 
   abstract void upsertAggregationForFact(
       ImmutableSet<UnsignedLong> filteringIds, BigInteger bucket, long value);
 
+  /**
+   * Returns true if the report has an ID that was not seen before. The ID parsed during validation
+   * is reused.
+   */
+  private boolean addReportId(Report report) {
+    Optional<UUID> reportId = report.sharedInfo().parsedReportId();
+    return reportId.isPresent() && reportIdSet.add(reportId.get());
+  }
+
+  private void flush(BucketSumBuffer buffer) {
+    buffer.drainTo((bucket, sum) -> upsertAggregationForFact(ImmutableSet.of(), bucket, sum));
+  }
+
   /** Generates and adds a Privacy Budget Unit for the aggregatable report and each filtering Id. */
   private void addPrivacyBudgetUnitForAggregatableReport(
       SharedInfo sharedInfo, ImmutableSet<UnsignedLong> filteringIds) {
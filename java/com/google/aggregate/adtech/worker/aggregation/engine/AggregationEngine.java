@@ -24,8 +24,11 @@ import com.google.auto.value.AutoValue;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import java.math.BigInteger;
+import java.util.List;
 import java.util.Map.Entry;
+import java.util.Optional;
 import java.util.OptionalLong;
+import java.util.UUID;
 import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Stream;
 
@@ -37,6 +40,19 @@ public interface AggregationEngine {
    */
   void accept(Report report);
 
+  /**
+   * Consumes a batch of reports like {@link #accept(Report)}. Engines may sum the contributions of
+   * the batch per bucket on the calling thread before adding them to the aggregation, holding at
+   * most {@code maxBufferedBuckets} buckets at a time.
+   *
+   * <p>The contributions of the batch may only be visible to other threads once the call returns.
+   */
+  default void accept(List<Report> reports, int maxBufferedBuckets) {
+    for (Report report : reports) {
+      accept(report);
+    }
+  }
+
   /**
    * Insert a new key with an empty fact. PBKs are not calculated for keys added using this method.
    */
@@ -54,6 +70,15 @@ public interface AggregationEngine {
 
   Stream<Entry<AggregationKey, LongAdder>> getEntries();
 
+  /**
+   * Gets the entries in ascending order of their buckets, or empty if the engine can't emit its
+   * keys in sorted order. Callers can use the order to merge-join the aggregation with other sorted
+   * key sources.
+   */
+  default Optional<Stream<Entry<AggregationKey, LongAdder>>> getSortedEntries() {
+    return Optional.empty();
+  }
+
   boolean containsKey(AggregationKey key);
 
   Stream<AggregationKey> getKeySet();
@@ -71,6 +96,30 @@ public interface AggregationEngine {
   ImmutableList<PrivacyBudgetKeyInput> getPrivacyBudgetKeyInputsFromPrivacyBudgetUnits(
       ImmutableList<PrivacyBudgetUnit> privacyBudgetUnits);
 
+  /** Gets the IDs of the reports that were accepted so far. */
+  Stream<UUID> getReportIds();
+
+  /** Gets the distinct privacy budget units observed so far and the inputs they were made from. */
+  ImmutableMap<PrivacyBudgetUnit, PrivacyBudgetKeyInput> getPrivacyBudgetKeyInputs();
+
+  /**
+   * Restores a partial sum captured from an engine of an earlier attempt of the same job. Used to
+   * resume a job from a checkpoint.
+   */
+  void restoreAggregatedValue(AggregationKey key, long value);
+
+  /**
+   * Restores the ID of a report accepted by an earlier attempt or another worker, so that it is
+   * deduped.
+   *
+   * @return false if the engine already knew the report ID.
+   */
+  boolean restoreReportId(UUID reportId);
+
+  /** Restores a privacy budget unit observed by an earlier attempt of the same job. */
+  void restorePrivacyBudgetUnit(
+      PrivacyBudgetUnit privacyBudgetUnit, PrivacyBudgetKeyInput privacyBudgetKeyInput);
+
   /** Holds the keys to group by in aggregation. */
   @AutoValue
   abstract class AggregationKey {
@@ -18,8 +18,6 @@ package com.google.aggregate.adtech.worker.aggregation.engine;
 
 import static com.google.common.collect.Sets.newConcurrentHashSet;
 
-import com.google.aggregate.adtech.worker.model.PrivacyBudgetUnit;
-import com.google.aggregate.privacy.budgeting.budgetkeygenerator.PrivacyBudgetKeyGenerator.PrivacyBudgetKeyInput;
 import com.google.aggregate.privacy.budgeting.budgetkeygenerator.PrivacyBudgetKeyGeneratorFactory;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.MapMaker;
@@ -54,10 +52,9 @@ public class AggregationEngineFactory {
 
     ConcurrentMap<BigInteger, LongAdder> aggregationMap =
         new MapMaker().concurrencyLevel(concurrentMapConcurrencyHint).makeMap();
-    ConcurrentMap<PrivacyBudgetUnit, PrivacyBudgetKeyInput>
-        privacyBudgetUnitToPrivacyBudgetKeyInput =
-            new MapMaker().concurrencyLevel(concurrentMapConcurrencyHint).makeMap();
-    Set<PrivacyBudgetUnit> privacyBudgetUnits = newConcurrentHashSet();
+    PrivacyBudgetUnitStore privacyBudgetUnitStore =
+        new PrivacyBudgetUnitStore(
+            new MapMaker().concurrencyLevel(concurrentMapConcurrencyHint).makeMap());
     Set<UUID> reportIdSet = newConcurrentHashSet();
 
     if (filteringIds.isEmpty()) {
@@ -67,9 +64,8 @@ public class AggregationEngineFactory {
     return new KeyAggregationEngine(
         privacyBudgetKeyGeneratorFactory,
         aggregationMap,
-        privacyBudgetUnitToPrivacyBudgetKeyInput,
+        privacyBudgetUnitStore,
         reportIdSet,
-        filteringIds,
-        privacyBudgetUnits);
+        filteringIds);
   }
 }
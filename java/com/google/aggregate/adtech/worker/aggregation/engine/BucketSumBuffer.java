@@ -0,0 +1,113 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.aggregation.engine;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Sums the contributions of a batch of reports per bucket before they are added to the shared
+ * aggregation of an engine.
+ *
+ * <p>The sums are held in open-addressed primitive arrays, so that adding a contribution to a
+ * bucket that is already buffered allocates nothing. A bucket contributed by many reports of the
+ * batch is then added to the shared aggregation once instead of once per report.
+ *
+ * <p>This class is not thread-safe; each buffer is confined to the thread aggregating its batch.
+ */
+final class BucketSumBuffer {
+
+  private static final int MIN_CAPACITY = 16;
+
+  private BigInteger[] buckets;
+  private long[] sums;
+  private int size;
+
+  /** Creates a buffer pre-sized for {@code expectedBuckets} distinct buckets. */
+  BucketSumBuffer(int expectedBuckets) {
+    checkArgument(expectedBuckets > 0, "Expected buckets must be positive: %s", expectedBuckets);
+    int capacity = Math.max(MIN_CAPACITY, Integer.highestOneBit(expectedBuckets - 1) << 2);
+    this.buckets = new BigInteger[capacity];
+    this.sums = new long[capacity];
+  }
+
+  /** Adds {@code value} to the sum of {@code bucket}. */
+  void add(BigInteger bucket, long value) {
+    int mask = buckets.length - 1;
+    int slot = hash(bucket) & mask;
+    while (buckets[slot] != null) {
+      if (buckets[slot].equals(bucket)) {
+        sums[slot] += value;
+        return;
+      }
+      slot = (slot + 1) & mask;
+    }
+    buckets[slot] = bucket;
+    sums[slot] = value;
+    size++;
+    // Keeps the load factor at or below one half.
+    if (size * 2 > buckets.length) {
+      resize(buckets.length * 2);
+    }
+  }
+
+  /** Returns the number of distinct buckets buffered. */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Passes each buffered bucket and its sum to {@code consumer}, in no particular order, and
+   * empties the buffer.
+   */
+  void drainTo(ObjLongConsumer<BigInteger> consumer) {
+    for (int slot = 0; slot < buckets.length; slot++) {
+      if (buckets[slot] != null) {
+        consumer.accept(buckets[slot], sums[slot]);
+      }
+    }
+    Arrays.fill(buckets, null);
+    size = 0;
+  }
+
+  private void resize(int capacity) {
+    BigInteger[] oldBuckets = buckets;
+    long[] oldSums = sums;
+    buckets = new BigInteger[capacity];
+    sums = new long[capacity];
+    int mask = capacity - 1;
+    for (int oldSlot = 0; oldSlot < oldBuckets.length; oldSlot++) {
+      if (oldBuckets[oldSlot] != null) {
+        int slot = hash(oldBuckets[oldSlot]) & mask;
+        while (buckets[slot] != null) {
+          slot = (slot + 1) & mask;
+        }
+        buckets[slot] = oldBuckets[oldSlot];
+        sums[slot] = oldSums[oldSlot];
+      }
+    }
+  }
+
+  /** Spreads the bits of the bucket hash code, which are often clustered in the low bits. */
+  private static int hash(BigInteger bucket) {
+    int hash = bucket.hashCode() * 0x9E3779B9;
+    return hash ^ (hash >>> 16);
+  }
+}
@@ -28,6 +28,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.primitives.UnsignedLong;
 import java.math.BigInteger;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
@@ -50,15 +51,12 @@ import java.util.stream.Stream;
  */
 public final class KeyAggregationEngine extends AbstractAggregationEngine {
 
-  // Tracks distinct privacy budget unit identifiers for the reports aggregated and the
-  // corresponding PrivacyBudgetKeyInput.
-  private final ConcurrentMap<PrivacyBudgetUnit, PrivacyBudgetKeyInput>
-      privacyBudgetUnitToPrivacyBudgetKeyInput;
+  // Tracks distinct privacy budget unit identifiers for the reports aggregated and the fields
+  // needed to rebuild the corresponding PrivacyBudgetKeyInput.
+  private final PrivacyBudgetUnitStore privacyBudgetUnitStore;
 
   // Track aggregations for individual facts, keyed by fact buckets that are 128-bit integers.
   private final ConcurrentMap<BigInteger, LongAdder> aggregationMap;
-  // Tracks distinct privacy budget unit identifiers for the reports aggregated.
-  private final Set<PrivacyBudgetUnit> privacyBudgetUnits;
 
   /**
    * Insert a new key with an empty fact. PBKs are not calculated for keys added using this method.
@@ -92,6 +90,30 @@ public final class KeyAggregationEngine extends AbstractAggregationEngine {
         .map(entry -> Map.entry(AggregationKey.create(entry.getKey()), entry.getValue()));
   }
 
+  /**
+   * Sorts a snapshot of the buckets and streams their entries in ascending order. Keys that are
+   * removed concurrently are skipped.
+   *
+   * <p>The snapshot is an array of references to the buckets held by the aggregation, so it costs
+   * 4 to 8 bytes per aggregated key for as long as the stream is open, plus a map entry for each
+   * key as it is streamed. The merge join can be disabled with
+   * --disable_sorted_domain_merge_join.
+   */
+  @Override
+  public Optional<Stream<Entry<AggregationKey, LongAdder>>> getSortedEntries() {
+    BigInteger[] sortedBuckets = aggregationMap.keySet().toArray(new BigInteger[0]);
+    Arrays.parallelSort(sortedBuckets);
+    return Optional.of(
+        Arrays.stream(sortedBuckets)
+            .flatMap(
+                bucket -> {
+                  LongAdder aggregatedValue = aggregationMap.get(bucket);
+                  return aggregatedValue == null
+                      ? Stream.empty()
+                      : Stream.of(Map.entry(AggregationKey.create(bucket), aggregatedValue));
+                }));
+  }
+
   @Override
   public boolean containsKey(AggregationKey key) {
     return aggregationMap.containsKey(key.bucket());
@@ -116,7 +138,26 @@ public final class KeyAggregationEngine extends AbstractAggregationEngine {
   /** Gets a set of distinct privacy budget units observed during the aggregation */
   @Override
   public ImmutableList<PrivacyBudgetUnit> getPrivacyBudgetUnits() {
-    return ImmutableList.copyOf(privacyBudgetUnitToPrivacyBudgetKeyInput.keySet());
+    return privacyBudgetUnitStore.getPrivacyBudgetUnits();
+  }
+
+  @Override
+  public ImmutableMap<PrivacyBudgetUnit, PrivacyBudgetKeyInput> getPrivacyBudgetKeyInputs() {
+    return privacyBudgetUnitStore.getPrivacyBudgetKeyInputs();
+  }
+
+  @Override
+  public void restoreAggregatedValue(AggregationKey key, long value) {
+    upsertAggregationForFact(ImmutableSet.of(), key.bucket(), value);
+  }
+
+  @Override
+  public void restorePrivacyBudgetUnit(
+      PrivacyBudgetUnit privacyBudgetUnit, PrivacyBudgetKeyInput privacyBudgetKeyInput) {
+    privacyBudgetUnitStore.add(
+        privacyBudgetUnit,
+        privacyBudgetKeyInput.sharedInfo(),
+        privacyBudgetKeyInput.filteringId());
   }
 
   /** Upserts (updates or inserts) an aggregation. */
@@ -134,8 +175,7 @@ public final class KeyAggregationEngine extends AbstractAggregationEngine {
   @Override
   void addPrivacyBudgetUnit(
       SharedInfo sharedInfo, UnsignedLong filteringId, PrivacyBudgetUnit privacyBudgetUnit) {
-    privacyBudgetUnits.add(privacyBudgetUnit);
-    addPrivacyBudgetUnitToPrivacyBudgetKeyInput(privacyBudgetUnit, sharedInfo, filteringId);
+    privacyBudgetUnitStore.add(privacyBudgetUnit, sharedInfo, Optional.of(filteringId));
   }
 
   /**
@@ -144,35 +184,17 @@ public final class KeyAggregationEngine extends AbstractAggregationEngine {
   @Override
   public ImmutableList<PrivacyBudgetKeyInput> getPrivacyBudgetKeyInputsFromPrivacyBudgetUnits(
       ImmutableList<PrivacyBudgetUnit> privacyBudgetUnits) {
-    return privacyBudgetUnits.stream()
-        .filter(privacyBudgetUnitToPrivacyBudgetKeyInput::containsKey)
-        .map(privacyBudgetUnitToPrivacyBudgetKeyInput::get)
-        .collect(ImmutableList.toImmutableList());
-  }
-
-  /** Calculates Privacy Budget Keys for the report for the filteringId. */
-  private void addPrivacyBudgetUnitToPrivacyBudgetKeyInput(
-      PrivacyBudgetUnit privacyBudgetUnit, SharedInfo sharedInfo, UnsignedLong filteringId) {
-    PrivacyBudgetKeyInput privacyBudgetKeyInput =
-        PrivacyBudgetKeyInput.builder()
-            .setSharedInfo(sharedInfo)
-            .setFilteringId(filteringId)
-            .build();
-
-    privacyBudgetUnitToPrivacyBudgetKeyInput.putIfAbsent(privacyBudgetUnit, privacyBudgetKeyInput);
+    return privacyBudgetUnitStore.getPrivacyBudgetKeyInputs(privacyBudgetUnits);
   }
 
   KeyAggregationEngine(
       PrivacyBudgetKeyGeneratorFactory privacyBudgetKeyGeneratorFactory,
       ConcurrentMap<BigInteger, LongAdder> aggregationMap,
-      ConcurrentMap<PrivacyBudgetUnit, PrivacyBudgetKeyInput>
-          privacyBudgetUnitToPrivacyBudgetKeyInput,
+      PrivacyBudgetUnitStore privacyBudgetUnitStore,
       Set<UUID> reportIdSet,
-      ImmutableSet<UnsignedLong> filteringIds,
-      Set<PrivacyBudgetUnit> privacyBudgetUnits) {
+      ImmutableSet<UnsignedLong> filteringIds) {
     super(reportIdSet, filteringIds, privacyBudgetKeyGeneratorFactory);
     this.aggregationMap = aggregationMap;
-    this.privacyBudgetUnitToPrivacyBudgetKeyInput = privacyBudgetUnitToPrivacyBudgetKeyInput;
-    this.privacyBudgetUnits = privacyBudgetUnits;
+    this.privacyBudgetUnitStore = privacyBudgetUnitStore;
   }
 }
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.aggregation.engine;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+import com.google.aggregate.adtech.worker.model.PrivacyBudgetUnit;
+import com.google.aggregate.adtech.worker.model.SharedInfo;
+import com.google.aggregate.privacy.budgeting.budgetkeygenerator.PrivacyBudgetKeyGenerator.PrivacyBudgetKeyInput;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.google.common.io.BaseEncoding;
+import com.google.common.primitives.UnsignedLong;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.Nullable;
+
+/**
+ * Thread-safe store of the distinct privacy budget units observed during an aggregation.
+ *
+ * <p>Budget keys are SHA-256 hex strings and are held as their 32 raw bytes, report times as hour
+ * indexes, and reporting origins and other repeated strings are interned per store. Instead of the
+ * whole {@link SharedInfo} of the first report of a unit, only the fields that make up its budget
+ * key are kept, and {@link PrivacyBudgetKeyInput}s are rebuilt from them on demand, i.e. when the
+ * unit is reported as exhausted or the engine is checkpointed.
+ */
+final class PrivacyBudgetUnitStore {
+
+  private static final BaseEncoding HEX = BaseEncoding.base16().lowerCase();
+  private static final int BUDGET_KEY_HEX_LENGTH = 64;
+  private static final long SECONDS_PER_HOUR = Duration.ofHours(1).toSeconds();
+
+  private final ConcurrentMap<CompactPrivacyBudgetUnit, BudgetKeyFields> units;
+  private final Interner<String> interner = Interners.newStrongInterner();
+
+  PrivacyBudgetUnitStore(ConcurrentMap<CompactPrivacyBudgetUnit, BudgetKeyFields> units) {
+    this.units = units;
+  }
+
+  /**
+   * Adds the unit if it was not observed yet, remembering the budget key fields of {@code
+   * sharedInfo} and {@code filteringId}.
+   */
+  void add(
+      PrivacyBudgetUnit privacyBudgetUnit,
+      SharedInfo sharedInfo,
+      Optional<UnsignedLong> filteringId) {
+    if (!units.containsKey(toCompactUnit(privacyBudgetUnit, /* intern= */ false))) {
+      units.putIfAbsent(
+          toCompactUnit(privacyBudgetUnit, /* intern= */ true),
+          toBudgetKeyFields(sharedInfo, filteringId));
+    }
+  }
+
+  /** Gets the distinct units observed so far. */
+  ImmutableList<PrivacyBudgetUnit> getPrivacyBudgetUnits() {
+    return units.keySet().stream()
+        .map(PrivacyBudgetUnitStore::toPrivacyBudgetUnit)
+        .collect(toImmutableList());
+  }
+
+  /** Rebuilds the key inputs of the given units. Units that were not observed are skipped. */
+  ImmutableList<PrivacyBudgetKeyInput> getPrivacyBudgetKeyInputs(
+      ImmutableList<PrivacyBudgetUnit> privacyBudgetUnits) {
+    ImmutableList.Builder<PrivacyBudgetKeyInput> privacyBudgetKeyInputs = ImmutableList.builder();
+    for (PrivacyBudgetUnit privacyBudgetUnit : privacyBudgetUnits) {
+      BudgetKeyFields fields = units.get(toCompactUnit(privacyBudgetUnit, /* intern= */ false));
+      if (fields != null) {
+        privacyBudgetKeyInputs.add(fields.toPrivacyBudgetKeyInput(privacyBudgetUnit));
+      }
+    }
+    return privacyBudgetKeyInputs.build();
+  }
+
+  /** Gets all units observed so far with their rebuilt key inputs. */
+  ImmutableMap<PrivacyBudgetUnit, PrivacyBudgetKeyInput> getPrivacyBudgetKeyInputs() {
+    ImmutableMap.Builder<PrivacyBudgetUnit, PrivacyBudgetKeyInput> privacyBudgetKeyInputs =
+        ImmutableMap.builderWithExpectedSize(units.size());
+    units.forEach(
+        (unit, fields) -> {
+          PrivacyBudgetUnit privacyBudgetUnit = toPrivacyBudgetUnit(unit);
+          privacyBudgetKeyInputs.put(
+              privacyBudgetUnit, fields.toPrivacyBudgetKeyInput(privacyBudgetUnit));
+        });
+    return privacyBudgetKeyInputs.build();
+  }
+
+  /**
+   * Converts the unit to its compact form. Strings are only interned for units that are stored, not
+   * for lookups.
+   */
+  private CompactPrivacyBudgetUnit toCompactUnit(
+      PrivacyBudgetUnit privacyBudgetUnit, boolean intern) {
+    String privacyBudgetKey = privacyBudgetUnit.privacyBudgetKey();
+    int hourIndex =
+        Math.toIntExact(
+            Math.floorDiv(
+                privacyBudgetUnit.scheduledReportTime().getEpochSecond(), SECONDS_PER_HOUR));
+    String reportingOrigin =
+        intern
+            ? interner.intern(privacyBudgetUnit.reportingOrigin())
+            : privacyBudgetUnit.reportingOrigin();
+    if (privacyBudgetKey.length() == BUDGET_KEY_HEX_LENGTH && HEX.canDecode(privacyBudgetKey)) {
+      return new CompactPrivacyBudgetUnit(
+          HEX.decode(privacyBudgetKey), /* hexKey= */ null, hourIndex, reportingOrigin);
+    }
+    // Keys that are not SHA-256 hex strings are kept as they are.
+    return new CompactPrivacyBudgetUnit(
+        /* rawKey= */ null,
+        intern ? interner.intern(privacyBudgetKey) : privacyBudgetKey,
+        hourIndex,
+        reportingOrigin);
+  }
+
+  private static PrivacyBudgetUnit toPrivacyBudgetUnit(CompactPrivacyBudgetUnit unit) {
+    return PrivacyBudgetUnit.createHourTruncatedUnit(
+        unit.rawKey != null ? HEX.encode(unit.rawKey) : unit.key,
+        Instant.ofEpochSecond(unit.hourIndex * SECONDS_PER_HOUR),
+        unit.reportingOrigin);
+  }
+
+  private BudgetKeyFields toBudgetKeyFields(
+      SharedInfo sharedInfo, Optional<UnsignedLong> filteringId) {
+    return new BudgetKeyFields(
+        sharedInfo.api().map(interner::intern).orElse(null),
+        interner.intern(sharedInfo.version()),
+        sharedInfo.scheduledReportTime(),
+        sharedInfo.destination().map(interner::intern).orElse(null),
+        sharedInfo.sourceRegistrationTime().orElse(null),
+        filteringId.orElse(null));
+  }
+
+  /** Privacy budget unit holding the budget key as raw bytes and the report time as an hour. */
+  static final class CompactPrivacyBudgetUnit {
+    @Nullable private final byte[] rawKey;
+    @Nullable private final String key;
+    private final int hourIndex;
+    private final String reportingOrigin;
+    private final int hashCode;
+
+    private CompactPrivacyBudgetUnit(
+        @Nullable byte[] rawKey, @Nullable String key, int hourIndex, String reportingOrigin) {
+      this.rawKey = rawKey;
+      this.key = key;
+      this.hourIndex = hourIndex;
+      this.reportingOrigin = reportingOrigin;
+      this.hashCode =
+          31 * (31 * (rawKey != null ? Arrays.hashCode(rawKey) : key.hashCode()) + hourIndex)
+              + reportingOrigin.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof CompactPrivacyBudgetUnit)) {
+        return false;
+      }
+      CompactPrivacyBudgetUnit that = (CompactPrivacyBudgetUnit) o;
+      return hashCode == that.hashCode
+          && hourIndex == that.hourIndex
+          && Arrays.equals(rawKey, that.rawKey)
+          && (key == null ? that.key == null : key.equals(that.key))
+          && reportingOrigin.equals(that.reportingOrigin);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  /**
+   * The shared_info fields and filtering ID a privacy budget key is generated from, i.e. the fields
+   * of {@link PrivacyBudgetKeyInput} that are used for privacy budgeting. The reporting origin is
+   * part of the unit itself.
+   */
+  static final class BudgetKeyFields {
+    @Nullable private final String api;
+    private final String version;
+    private final Instant scheduledReportTime;
+    @Nullable private final String destination;
+    @Nullable private final Instant sourceRegistrationTime;
+    @Nullable private final UnsignedLong filteringId;
+
+    private BudgetKeyFields(
+        @Nullable String api,
+        String version,
+        Instant scheduledReportTime,
+        @Nullable String destination,
+        @Nullable Instant sourceRegistrationTime,
+        @Nullable UnsignedLong filteringId) {
+      this.api = api;
+      this.version = version;
+      this.scheduledReportTime = scheduledReportTime;
+      this.destination = destination;
+      this.sourceRegistrationTime = sourceRegistrationTime;
+      this.filteringId = filteringId;
+    }
+
+    private PrivacyBudgetKeyInput toPrivacyBudgetKeyInput(PrivacyBudgetUnit privacyBudgetUnit) {
+      SharedInfo.Builder sharedInfo =
+          SharedInfo.builder()
+              .setVersion(version)
+              .setScheduledReportTime(scheduledReportTime)
+              .setReportingOrigin(privacyBudgetUnit.reportingOrigin());
+      if (api != null) {
+        sharedInfo.setApi(api);
+      }
+      if (destination != null) {
+        sharedInfo.setDestination(destination);
+      }
+      if (sourceRegistrationTime != null) {
+        sharedInfo.setSourceRegistrationTime(sourceRegistrationTime);
+      }
+      PrivacyBudgetKeyInput.Builder privacyBudgetKeyInput =
+          PrivacyBudgetKeyInput.builder().setSharedInfo(sharedInfo.build());
+      if (filteringId != null) {
+        privacyBudgetKeyInput.setFilteringId(filteringId);
+      }
+      return privacyBudgetKeyInput.build();
+    }
+  }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.encryption.kms;
+
+import java.security.GeneralSecurityException;
+
+/**
+ * Decrypts AWS KMS ciphertexts from inside a Nitro enclave.
+ *
+ * <p>The decrypt request carries the attestation document of the enclave as its recipient, so KMS
+ * returns the plaintext encrypted for the enclave only and the key policy can require the enclave
+ * image with the {@code kms:RecipientAttestation:ImageSha384} condition key. Callers without an
+ * attestation document can't decrypt with a key whose policy has that condition.
+ */
+public interface AttestedKmsDecrypter {
+
+  /** Returns the plaintext of a ciphertext returned by KMS Encrypt. */
+  byte[] decrypt(byte[] ciphertextBlob) throws GeneralSecurityException;
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.encryption.kms;
+
+import com.google.crypto.tink.Aead;
+import com.google.crypto.tink.InsecureSecretKeyAccess;
+import com.google.crypto.tink.KeysetHandle;
+import com.google.crypto.tink.TinkProtoKeysetFormat;
+import com.google.crypto.tink.aead.AeadConfig;
+import com.google.crypto.tink.aead.PredefinedAeadParameters;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.kms.KmsClient;
+import software.amazon.awssdk.services.kms.model.EncryptRequest;
+
+/**
+ * {@link Aead} that encrypts with a fresh data key wrapped by a symmetric AWS KMS key.
+ *
+ * <p>Each ciphertext holds the length of the wrapped data key, the wrapped data key and the
+ * plaintext encrypted with the data key and the associated data. The data key is wrapped with KMS
+ * Encrypt and only unwrapped through an {@link AttestedKmsDecrypter}, never with a plain KMS
+ * Decrypt, so a key policy that conditions decryption on {@code
+ * kms:RecipientAttestation:ImageSha384} limits decryption to enclaves running the worker image.
+ */
+public final class AwsKmsAead implements Aead {
+
+  private static final int WRAPPED_KEY_LENGTH_BYTES = Integer.BYTES;
+
+  private final KmsClient kmsClient;
+  private final String keyArn;
+  private final AttestedKmsDecrypter attestedKmsDecrypter;
+
+  public AwsKmsAead(
+      KmsClient kmsClient, String keyArn, AttestedKmsDecrypter attestedKmsDecrypter) {
+    this.kmsClient = kmsClient;
+    this.keyArn = keyArn;
+    this.attestedKmsDecrypter = attestedKmsDecrypter;
+  }
+
+  @Override
+  public byte[] encrypt(byte[] plaintext, byte[] associatedData) throws GeneralSecurityException {
+    AeadConfig.register();
+    KeysetHandle dataKey = KeysetHandle.generateNew(PredefinedAeadParameters.AES256_GCM);
+    byte[] wrappedKey;
+    try {
+      wrappedKey =
+          kmsClient
+              .encrypt(
+                  EncryptRequest.builder()
+                      .keyId(keyArn)
+                      .plaintext(
+                          SdkBytes.fromByteArray(
+                              TinkProtoKeysetFormat.serializeKeyset(
+                                  dataKey, InsecureSecretKeyAccess.get())))
+                      .build())
+              .ciphertextBlob()
+              .asByteArray();
+    } catch (SdkException e) {
+      throw new GeneralSecurityException("Failed to encrypt with KMS key " + keyArn, e);
+    }
+    byte[] ciphertext = dataKey.getPrimitive(Aead.class).encrypt(plaintext, associatedData);
+    return ByteBuffer.allocate(WRAPPED_KEY_LENGTH_BYTES + wrappedKey.length + ciphertext.length)
+        .putInt(wrappedKey.length)
+        .put(wrappedKey)
+        .put(ciphertext)
+        .array();
+  }
+
+  @Override
+  public byte[] decrypt(byte[] ciphertext, byte[] associatedData)
+      throws GeneralSecurityException {
+    AeadConfig.register();
+    byte[] wrappedKey;
+    byte[] encryptedPlaintext;
+    try {
+      ByteBuffer buffer = ByteBuffer.wrap(ciphertext);
+      int wrappedKeyLength = buffer.getInt();
+      if (wrappedKeyLength <= 0 || wrappedKeyLength > buffer.remaining()) {
+        throw new GeneralSecurityException("Invalid wrapped key length " + wrappedKeyLength);
+      }
+      wrappedKey = new byte[wrappedKeyLength];
+      buffer.get(wrappedKey);
+      encryptedPlaintext = new byte[buffer.remaining()];
+      buffer.get(encryptedPlaintext);
+    } catch (BufferUnderflowException e) {
+      throw new GeneralSecurityException("Ciphertext is too short.", e);
+    }
+    KeysetHandle dataKey =
+        TinkProtoKeysetFormat.parseKeyset(
+            attestedKmsDecrypter.decrypt(wrappedKey), InsecureSecretKeyAccess.get());
+    return dataKey.getPrimitive(Aead.class).decrypt(encryptedPlaintext, associatedData);
+  }
+}
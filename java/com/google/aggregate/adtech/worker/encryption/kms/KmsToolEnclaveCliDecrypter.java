@@ -0,0 +1,109 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.encryption.kms;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.BaseEncoding;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import software.amazon.awssdk.auth.credentials.AwsCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.AwsSessionCredentials;
+
+/**
+ * {@link AttestedKmsDecrypter} that runs the {@code kmstool_enclave_cli} of the enclave image, the
+ * tool the coordinator keys are decrypted with. The tool requests an attestation document from the
+ * Nitro Security Module for an ephemeral RSA key, sends it as the recipient of the KMS decrypt
+ * request and decrypts the returned {@code CiphertextForRecipient} with that key.
+ */
+public final class KmsToolEnclaveCliDecrypter implements AttestedKmsDecrypter {
+
+  private static final String PLAINTEXT_PREFIX = "PLAINTEXT: ";
+
+  private final Path kmsToolPath;
+  private final String region;
+  private final int proxyPort;
+  private final AwsCredentialsProvider credentialsProvider;
+
+  /**
+   * @param kmsToolPath path of {@code kmstool_enclave_cli} in the enclave
+   * @param region region of the KMS key
+   * @param proxyPort vsock port of the proxy to the KMS endpoint on the parent instance
+   * @param credentialsProvider credentials the KMS request is signed with
+   */
+  public KmsToolEnclaveCliDecrypter(
+      Path kmsToolPath, String region, int proxyPort, AwsCredentialsProvider credentialsProvider) {
+    this.kmsToolPath = kmsToolPath;
+    this.region = region;
+    this.proxyPort = proxyPort;
+    this.credentialsProvider = credentialsProvider;
+  }
+
+  @Override
+  public byte[] decrypt(byte[] ciphertextBlob) throws GeneralSecurityException {
+    Process process;
+    try {
+      process = new ProcessBuilder(command(ciphertextBlob)).redirectErrorStream(true).start();
+    } catch (IOException e) {
+      throw new GeneralSecurityException("Failed to start " + kmsToolPath, e);
+    }
+    try {
+      String output;
+      try (InputStream outputStream = process.getInputStream()) {
+        output = new String(outputStream.readAllBytes(), UTF_8);
+      }
+      int exitCode = process.waitFor();
+      if (exitCode != 0) {
+        throw new GeneralSecurityException(
+            String.format("%s failed with exit code %d: %s", kmsToolPath, exitCode, output));
+      }
+      return output
+          .lines()
+          .filter(line -> line.startsWith(PLAINTEXT_PREFIX))
+          .findFirst()
+          .map(line -> BaseEncoding.base64().decode(line.substring(PLAINTEXT_PREFIX.length())))
+          .orElseThrow(
+              () -> new GeneralSecurityException(kmsToolPath + " returned no plaintext."));
+    } catch (IOException e) {
+      throw new GeneralSecurityException("Failed to read the output of " + kmsToolPath, e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new GeneralSecurityException("Interrupted while decrypting with KMS.", e);
+    } finally {
+      process.destroyForcibly();
+    }
+  }
+
+  private ImmutableList<String> command(byte[] ciphertextBlob) {
+    AwsCredentials credentials = credentialsProvider.resolveCredentials();
+    ImmutableList.Builder<String> command =
+        ImmutableList.<String>builder()
+            .add(kmsToolPath.toString(), "decrypt")
+            .add("--region", region)
+            .add("--proxy-port", String.valueOf(proxyPort))
+            .add("--aws-access-key-id", credentials.accessKeyId())
+            .add("--aws-secret-access-key", credentials.secretAccessKey());
+    if (credentials instanceof AwsSessionCredentials) {
+      command.add("--aws-session-token", ((AwsSessionCredentials) credentials).sessionToken());
+    }
+    return command.add("--ciphertext", BaseEncoding.base64().encode(ciphertextBlob)).build();
+  }
+}
@@ -18,6 +18,8 @@ package com.google.aggregate.adtech.worker.frontend.injection.modules;
 
 import com.google.auto.service.AutoService;
 import com.google.common.collect.ImmutableList;
+import com.google.inject.Provides;
+import com.google.inject.Singleton;
 import com.google.aggregate.adtech.worker.frontend.service.aws.changehandler.JobMetadataChangeHandler;
 import com.google.aggregate.adtech.worker.frontend.service.aws.changehandler.JobQueueWriteHandler;
 import com.google.aggregate.adtech.worker.shared.dao.jobqueue.aws.SqsJobQueue;
@@ -25,8 +27,10 @@ import com.google.aggregate.adtech.worker.shared.dao.jobqueue.aws.SqsJobQueue.Jo
 import com.google.aggregate.adtech.worker.shared.dao.jobqueue.aws.SqsJobQueue.JobQueueSqsQueueUrl;
 import com.google.aggregate.adtech.worker.shared.dao.jobqueue.common.JobQueue;
 import com.google.aggregate.adtech.worker.shared.dao.jobqueue.common.JobQueue.JobQueueMessageLeaseSeconds;
+import com.google.aggregate.adtech.worker.shared.dao.jobqueue.common.JobQueueLaneConfig;
 import com.google.aggregate.adtech.worker.shared.injection.factories.ModuleFactory;
 import com.google.aggregate.adtech.worker.shared.injection.modules.BaseAwsClientsModule;
+import java.util.Optional;
 
 /** Module for the change handler lambda that monitors changes to the DynamoDb Metadata table. */
 @AutoService(BaseAwsChangeHandlerModule.class)
@@ -37,9 +41,6 @@ public final class AwsChangeHandlerModule extends BaseAwsChangeHandlerModule {
 
   @Override
   protected void configureModule() {
-    // JobQueueWriteHandler dependencies
-    bind(JobQueue.class).to(SqsJobQueue.class);
-
     // JobQueue dependencies
     install(ModuleFactory.getModule(BaseAwsClientsModule.class));
     bind(String.class)
@@ -51,6 +52,20 @@ public final class AwsChangeHandlerModule extends BaseAwsChangeHandlerModule {
     bind(Integer.class).annotatedWith(JobQueueMessageLeaseSeconds.class).toInstance(10);
   }
 
+  /**
+   * Provider for the job queue of JobQueueWriteHandler, with a queue per priority lane if the queue
+   * URLs of the lanes are set in the environment variables named after the {@link
+   * JobQueueLaneConfig} parameters.
+   */
+  @Provides
+  @Singleton
+  JobQueue provideJobQueue(SqsJobQueue sqsJobQueue) {
+    Optional<JobQueueLaneConfig> laneConfig =
+        JobQueueLaneConfig.fromParameters(
+            parameter -> Optional.ofNullable(System.getenv(parameter)));
+    return laneConfig.isPresent() ? sqsJobQueue.createLaned(laneConfig.get()) : sqsJobQueue;
+  }
+
   @Override
   public ImmutableList<Class<? extends JobMetadataChangeHandler>> getChangeHandlerImpls() {
     return ImmutableList.of(JobQueueWriteHandler.class);
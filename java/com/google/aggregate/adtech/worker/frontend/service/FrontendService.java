@@ -19,6 +19,8 @@ package com.google.aggregate.adtech.worker.frontend.service;
 import com.google.aggregate.protos.frontend.api.v1.CreateJobRequestProto.CreateJobRequest;
 import com.google.aggregate.protos.frontend.api.v1.CreateJobResponseProto.CreateJobResponse;
 import com.google.aggregate.protos.frontend.api.v1.GetJobResponseProto.GetJobResponse;
+import com.google.aggregate.protos.frontend.api.v1.GetJobsRequestProto.GetJobsRequest;
+import com.google.aggregate.protos.frontend.api.v1.GetJobsResponseProto.GetJobsResponse;
 import com.google.scp.shared.api.exception.ServiceException;
 
 /** Interface for service that handles business logic for front end. */
@@ -41,4 +43,15 @@ public interface FrontendService {
    *     input (e.g non-existent job).
    */
   GetJobResponse getJob(String jobRequestId) throws ServiceException;
+
+  /**
+   * Retrieves the status of several jobs with a single read of the metadata DB. If the request has
+   * a wait time, the request is held until the status of one of the jobs changes or the wait time
+   * has passed.
+   *
+   * @param getJobsRequest the deserialized request body
+   * @throws ServiceException if any errors occur, either due to system issues or from invalid user
+   *     input (e.g. too many jobs).
+   */
+  GetJobsResponse getJobs(GetJobsRequest getJobsRequest) throws ServiceException;
 }
@@ -16,22 +16,37 @@
 
 package com.google.aggregate.adtech.worker.frontend.service;
 
+import static com.google.aggregate.adtech.worker.frontend.service.model.Constants.GET_JOBS_MAX_JOB_COUNT;
+import static com.google.aggregate.adtech.worker.frontend.service.model.Constants.GET_JOBS_MAX_WAIT_SECONDS;
+
 import com.google.common.base.Converter;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
 import com.google.inject.Inject;
 import com.google.aggregate.adtech.worker.frontend.tasks.CreateJobTask;
+import com.google.aggregate.adtech.worker.frontend.tasks.ErrorReasons;
 import com.google.aggregate.adtech.worker.frontend.tasks.GetJobTask;
 import com.google.aggregate.protos.frontend.api.v1.CreateJobRequestProto.CreateJobRequest;
 import com.google.aggregate.protos.frontend.api.v1.CreateJobResponseProto.CreateJobResponse;
 import com.google.aggregate.protos.frontend.api.v1.GetJobResponseProto.GetJobResponse;
+import com.google.aggregate.protos.frontend.api.v1.GetJobsRequestProto.GetJobsRequest;
+import com.google.aggregate.protos.frontend.api.v1.GetJobsResponseProto.GetJobsResponse;
+import com.google.aggregate.protos.frontend.api.v1.JobStatusProto.JobStatus;
 import com.google.aggregate.protos.shared.backend.RequestInfoProto.RequestInfo;
 import com.google.aggregate.protos.shared.backend.metadatadb.JobMetadataProto.JobMetadata;
 import com.google.scp.shared.api.exception.ServiceException;
+import com.google.scp.shared.api.model.Code;
+import java.time.Duration;
 
 /** Handles business logic for the frontend service */
 public final class FrontendServiceImpl implements FrontendService {
 
   private final Converter<CreateJobRequest, RequestInfo> createJobRequestToRequestInfoConverter;
   private final Converter<JobMetadata, GetJobResponse> getJobResponseConverter;
+  private final Converter<
+          com.google.aggregate.protos.shared.backend.JobStatusProto.JobStatus, JobStatus>
+      jobStatusConverter;
   private final CreateJobTask createJobTask;
   private final GetJobTask getJobTask;
 
@@ -41,11 +56,14 @@ public final class FrontendServiceImpl implements FrontendService {
       CreateJobTask createJobTask,
       GetJobTask getJobTask,
       Converter<JobMetadata, GetJobResponse> getJobResponseConverter,
-      Converter<CreateJobRequest, RequestInfo> createJobRequestToRequestInfoConverter) {
+      Converter<CreateJobRequest, RequestInfo> createJobRequestToRequestInfoConverter,
+      Converter<com.google.aggregate.protos.shared.backend.JobStatusProto.JobStatus, JobStatus>
+          jobStatusConverter) {
     this.createJobTask = createJobTask;
     this.getJobTask = getJobTask;
     this.getJobResponseConverter = getJobResponseConverter;
     this.createJobRequestToRequestInfoConverter = createJobRequestToRequestInfoConverter;
+    this.jobStatusConverter = jobStatusConverter;
   }
 
   /** Creates the job from the request, then returns the response. */
@@ -58,4 +76,62 @@ public final class FrontendServiceImpl implements FrontendService {
   public GetJobResponse getJob(String jobRequestId) throws ServiceException {
     return this.getJobResponseConverter.convert(getJobTask.getJob(jobRequestId));
   }
+
+  /** Gets the jobs with the provided IDs, waiting for a status change if requested. */
+  public GetJobsResponse getJobs(GetJobsRequest getJobsRequest) throws ServiceException {
+    validateGetJobsRequest(getJobsRequest);
+    ImmutableSet<String> jobRequestIds = ImmutableSet.copyOf(getJobsRequest.getJobRequestIdsList());
+    ImmutableMap<String, JobMetadata> jobs;
+    if (getJobsRequest.getWaitSeconds() == 0) {
+      jobs = getJobTask.getJobs(jobRequestIds);
+    } else {
+      jobs =
+          getJobTask.watchJobs(
+              jobRequestIds,
+              Maps.transformValues(
+                  getJobsRequest.getLastKnownJobStatusesMap(), jobStatusConverter.reverse()),
+              Duration.ofSeconds(getJobsRequest.getWaitSeconds()));
+    }
+
+    GetJobsResponse.Builder response = GetJobsResponse.newBuilder();
+    for (String jobRequestId : jobRequestIds) {
+      if (jobs.containsKey(jobRequestId)) {
+        response.addJobs(getJobResponseConverter.convert(jobs.get(jobRequestId)));
+      } else {
+        response.addNotFoundJobRequestIds(jobRequestId);
+      }
+    }
+    return response.build();
+  }
+
+  private static void validateGetJobsRequest(GetJobsRequest getJobsRequest)
+      throws ServiceException {
+    if (getJobsRequest.getJobRequestIdsCount() == 0) {
+      throw new ServiceException(
+          Code.INVALID_ARGUMENT,
+          ErrorReasons.ARGUMENT_MISSING.toString(),
+          "At least one job_request_id must be specified");
+    }
+    if (getJobsRequest.getJobRequestIdsCount() > GET_JOBS_MAX_JOB_COUNT) {
+      throw new ServiceException(
+          Code.INVALID_ARGUMENT,
+          ErrorReasons.VALIDATION_FAILED.toString(),
+          String.format("At most %d job_request_ids can be specified", GET_JOBS_MAX_JOB_COUNT));
+    }
+    if (getJobsRequest.getWaitSeconds() < 0
+        || getJobsRequest.getWaitSeconds() > GET_JOBS_MAX_WAIT_SECONDS) {
+      throw new ServiceException(
+          Code.INVALID_ARGUMENT,
+          ErrorReasons.VALIDATION_FAILED.toString(),
+          String.format("wait_seconds must be between 0 and %d", GET_JOBS_MAX_WAIT_SECONDS));
+    }
+    if (!getJobsRequest
+        .getJobRequestIdsList()
+        .containsAll(getJobsRequest.getLastKnownJobStatusesMap().keySet())) {
+      throw new ServiceException(
+          Code.INVALID_ARGUMENT,
+          ErrorReasons.VALIDATION_FAILED.toString(),
+          "last_known_job_statuses must only have statuses of requested jobs");
+    }
+  }
 }
@@ -16,11 +16,17 @@
 
 package com.google.aggregate.adtech.worker.frontend.service.aws;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
 import com.google.aggregate.adtech.worker.frontend.injection.factories.AwsChangeHandlerFactory;
 import com.google.aggregate.adtech.worker.frontend.service.aws.changehandler.JobMetadataChangeHandler;
+import com.google.aggregate.adtech.worker.frontend.service.aws.changehandler.JobMetadataChangeHandler.BatchChangeHandlerException;
+import com.google.aggregate.protos.shared.backend.JobKeyProto.JobKey;
+import com.google.aggregate.protos.shared.backend.metadatadb.JobMetadataProto.JobMetadata;
+import com.google.common.collect.ImmutableList;
 import java.util.Optional;
 import java.util.Set;
 
@@ -43,20 +49,44 @@ public final class DynamoStreamsJobMetadataHandler
     this.changeHandlers = AwsChangeHandlerFactory.getJobMetadataChangeHandlers();
   }
 
-  /** Called when a Dynamo stream event is triggered for the JobMetadata table. */
+  /**
+   * Called when a Dynamo stream event is triggered for the JobMetadata table.
+   *
+   * <p>Each change handler handles all the records of the stream batch it can handle together. If
+   * any record fails, the function fails after every handler has run, with the failed job keys in
+   * the error. The stream mapping then bisects the batch and retries, so only the records that keep
+   * failing reach the dead letter queue and have their jobs marked as failed.
+   */
   @Override
   public String handleRequest(DynamodbEvent dynamodbEvent, Context context) {
     // Filter out any events not associated with inserts or updates or don't have new images
     // configured
-    dynamodbEvent.getRecords().stream()
-        .map(jobMetadataUpdateChecker::checkForUpdatedMetadata)
-        .filter(Optional::isPresent)
-        .map(Optional::get)
-        .forEach(
-            jobMetadata ->
-                changeHandlers.stream()
-                    .filter(i -> i.canHandle(jobMetadata))
-                    .forEach(i -> i.handle(jobMetadata)));
+    ImmutableList<JobMetadata> jobMetadataBatch =
+        dynamodbEvent.getRecords().stream()
+            .map(jobMetadataUpdateChecker::checkForUpdatedMetadata)
+            .filter(Optional::isPresent)
+            .map(Optional::get)
+            .collect(toImmutableList());
+
+    ImmutableList.Builder<JobKey> failedJobKeys = ImmutableList.builder();
+    BatchChangeHandlerException lastFailure = null;
+    for (JobMetadataChangeHandler changeHandler : changeHandlers) {
+      ImmutableList<JobMetadata> handledBatch =
+          jobMetadataBatch.stream().filter(changeHandler::canHandle).collect(toImmutableList());
+      if (handledBatch.isEmpty()) {
+        continue;
+      }
+      try {
+        changeHandler.handleAll(handledBatch);
+      } catch (BatchChangeHandlerException e) {
+        failedJobKeys.addAll(e.getFailedJobKeys());
+        lastFailure = e;
+      }
+    }
+    if (lastFailure != null) {
+      throw new IllegalStateException(
+          "Failed to handle stream records of jobs: " + failedJobKeys.build(), lastFailure);
+    }
     // Just return empty string since there is no output
     return "";
   }
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.frontend.service.aws;
+
+import static com.google.scp.shared.api.model.Code.OK;
+import static com.google.scp.shared.aws.util.LambdaHandlerUtil.createApiGatewayResponseFromProtoPreservingFieldNames;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.aggregate.adtech.worker.frontend.injection.factories.FrontendServicesFactory;
+import com.google.aggregate.adtech.worker.frontend.service.FrontendService;
+import com.google.aggregate.adtech.worker.frontend.tasks.ErrorReasons;
+import com.google.aggregate.protos.frontend.api.v1.GetJobsRequestProto.GetJobsRequest;
+import com.google.aggregate.protos.frontend.api.v1.GetJobsResponseProto.GetJobsResponse;
+import com.google.scp.shared.api.exception.ServiceException;
+import com.google.scp.shared.api.model.Code;
+import com.google.scp.shared.aws.util.ApiGatewayHandler;
+
+/**
+ * The API Gateway handler for the GetJobs method of the front end REST api service, which looks up
+ * several jobs at once and optionally waits for one of them to change status.
+ */
+public final class GetJobsApiGatewayHandler
+    extends ApiGatewayHandler<GetJobsRequest, GetJobsResponse> {
+
+  private final FrontendService frontendService;
+
+  /** Creates a new instance of the {@code GetJobsApiGatewayHandler} class. */
+  public GetJobsApiGatewayHandler() {
+    frontendService = FrontendServicesFactory.getFrontendService();
+  }
+
+  @Override
+  protected GetJobsRequest toRequest(
+      APIGatewayProxyRequestEvent apiGatewayProxyRequestEvent, Context context)
+      throws ServiceException {
+    GetJobsRequest.Builder protoBuilder = GetJobsRequest.newBuilder();
+    try {
+      parser.merge(apiGatewayProxyRequestEvent.getBody(), protoBuilder);
+      return protoBuilder.build();
+    } catch (InvalidProtocolBufferException e) {
+      throw new ServiceException(
+          Code.INVALID_ARGUMENT, ErrorReasons.JSON_ERROR.toString(), e.getMessage());
+    }
+  }
+
+  @Override
+  protected GetJobsResponse processRequest(GetJobsRequest getJobsRequest)
+      throws ServiceException {
+    return frontendService.getJobs(getJobsRequest);
+  }
+
+  @Override
+  protected APIGatewayProxyResponseEvent toApiGatewayResponse(GetJobsResponse response) {
+    // Preserve field names so that the embedded jobs match the GetJob response format.
+    return createApiGatewayResponseFromProtoPreservingFieldNames(
+        response, OK.getHttpStatusCode(), allHeaders());
+  }
+}
@@ -16,7 +16,9 @@
 
 package com.google.aggregate.adtech.worker.frontend.service.aws.changehandler;
 
+import com.google.aggregate.protos.shared.backend.JobKeyProto.JobKey;
 import com.google.aggregate.protos.shared.backend.metadatadb.JobMetadataProto.JobMetadata;
+import com.google.common.collect.ImmutableList;
 
 /**
  * JobMetadataChangeHandler processes changes to the JobMetadata objects. This can be made generic
@@ -34,6 +36,30 @@ public interface JobMetadataChangeHandler {
    */
   void handle(JobMetadata data);
 
+  /**
+   * Handles a batch of data that this handler can handle. Every item is attempted even if others
+   * fail. By default the items are handled one at a time; implementations may handle the batch
+   * together.
+   *
+   * @throws BatchChangeHandlerException (unchecked) with the keys of the jobs that could not be
+   *     handled
+   */
+  default void handleAll(ImmutableList<JobMetadata> batch) {
+    ImmutableList.Builder<JobKey> failedJobKeys = ImmutableList.builder();
+    RuntimeException lastFailure = null;
+    for (JobMetadata data : batch) {
+      try {
+        handle(data);
+      } catch (ChangeHandlerException e) {
+        failedJobKeys.add(data.getJobKey());
+        lastFailure = e;
+      }
+    }
+    if (lastFailure != null) {
+      throw new BatchChangeHandlerException(failedJobKeys.build(), lastFailure);
+    }
+  }
+
   /**
    * Exception to be thrown by handler implementations. Extends {@link RuntimeException} since
    * handler failure should be fatal and the caller will be restarted to try the request again.
@@ -42,5 +68,25 @@ public interface JobMetadataChangeHandler {
     ChangeHandlerException(Throwable e) {
       super(e);
     }
+
+    ChangeHandlerException(String message, Throwable e) {
+      super(message, e);
+    }
+  }
+
+  /** Exception thrown when some of the items of a batch could not be handled. */
+  final class BatchChangeHandlerException extends ChangeHandlerException {
+
+    private final ImmutableList<JobKey> failedJobKeys;
+
+    BatchChangeHandlerException(ImmutableList<JobKey> failedJobKeys, Throwable e) {
+      super("Failed to handle jobs: " + failedJobKeys, e);
+      this.failedJobKeys = failedJobKeys;
+    }
+
+    /** Returns the keys of the jobs that could not be handled. */
+    public ImmutableList<JobKey> getFailedJobKeys() {
+      return failedJobKeys;
+    }
   }
 }
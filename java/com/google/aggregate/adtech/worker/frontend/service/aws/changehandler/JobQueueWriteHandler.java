@@ -18,14 +18,24 @@ package com.google.aggregate.adtech.worker.frontend.service.aws.changehandler;
 
 import static com.google.aggregate.protos.shared.backend.JobStatusProto.JobStatus.RECEIVED;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.inject.Inject;
+import com.google.aggregate.protos.shared.backend.JobKeyProto.JobKey;
 import com.google.aggregate.protos.shared.backend.metadatadb.JobMetadataProto.JobMetadata;
 import com.google.aggregate.adtech.worker.shared.dao.jobqueue.common.JobQueue;
 import com.google.aggregate.adtech.worker.shared.dao.jobqueue.common.JobQueue.JobQueueException;
+import com.google.aggregate.adtech.worker.shared.model.BackendModelUtil;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /** Places recently inserted items on to the JobQueue. */
 public final class JobQueueWriteHandler implements JobMetadataChangeHandler {
 
+  private static final Logger logger = LoggerFactory.getLogger(JobQueueWriteHandler.class);
+
   private final JobQueue jobQueue;
 
   /** Creates a new instance of the {@code JobQueueWriteHandler} class. */
@@ -42,9 +52,40 @@ public final class JobQueueWriteHandler implements JobMetadataChangeHandler {
   @Override
   public void handle(JobMetadata jobMetadata) {
     try {
-      jobQueue.sendJob(jobMetadata.getJobKey(), jobMetadata.getServerJobId());
+      jobQueue
+          .selectLane(jobMetadata.getRequestInfo())
+          .sendJob(jobMetadata.getJobKey(), jobMetadata.getServerJobId());
     } catch (JobQueueException e) {
       throw new ChangeHandlerException(e);
     }
   }
+
+  /**
+   * Places the whole batch on the queue with a single {@link JobQueue#sendJobs} call per lane of
+   * the queue.
+   */
+  @Override
+  public void handleAll(ImmutableList<JobMetadata> batch) {
+    // Lane queues don't override equals, so jobs are grouped by lane queue instance.
+    Map<JobQueue, Map<JobKey, String>> serverJobIdsByLane = new LinkedHashMap<>();
+    for (JobMetadata jobMetadata : batch) {
+      serverJobIdsByLane
+          .computeIfAbsent(
+              jobQueue.selectLane(jobMetadata.getRequestInfo()), lane -> new LinkedHashMap<>())
+          .put(jobMetadata.getJobKey(), jobMetadata.getServerJobId());
+    }
+    Map<JobKey, JobQueueException> failures = new LinkedHashMap<>();
+    serverJobIdsByLane.forEach(
+        (lane, serverJobIds) -> failures.putAll(lane.sendJobs(ImmutableMap.copyOf(serverJobIds))));
+    if (failures.isEmpty()) {
+      return;
+    }
+
+    failures.forEach(
+        (jobKey, e) ->
+            logger.error(
+                "Failed to place job " + BackendModelUtil.toJobKeyString(jobKey) + " on queue", e));
+    throw new BatchChangeHandlerException(
+        ImmutableList.copyOf(failures.keySet()), failures.values().iterator().next());
+  }
 }
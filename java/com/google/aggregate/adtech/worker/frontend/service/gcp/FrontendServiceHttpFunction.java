@@ -39,25 +39,28 @@ public final class FrontendServiceHttpFunction extends FrontendServiceHttpFuncti
         injector.getInstance(GetJobRequestHandler.class),
         injector.getInstance(PutJobRequestHandler.class),
         injector.getInstance(GetJobByIdRequestHandler.class),
+        injector.getInstance(GetJobsRequestHandler.class),
         injector.getInstance(Key.get(Integer.class, FrontendServiceVersionBinding.class)));
   }
 
   /**
    * Creates a new instance of the {@code FrontendServiceHttpFunction} class with the given {@link
    * CreateJobRequestHandler}, {@link GetJobRequestHandler}, {@link PutJobRequestHandler}, {@link
-   * GetJobByIdRequestHandler} and version.
+   * GetJobByIdRequestHandler}, {@link GetJobsRequestHandler} and version.
    */
   public FrontendServiceHttpFunction(
       CreateJobRequestHandler createJobRequestHandler,
       GetJobRequestHandler getJobRequestHandler,
       PutJobRequestHandler putJobRequestHandler,
       GetJobByIdRequestHandler getJobByIdRequestHandler,
+      GetJobsRequestHandler getJobsRequestHandler,
       int version) {
     super(
         createJobRequestHandler,
         getJobRequestHandler,
         putJobRequestHandler,
         getJobByIdRequestHandler,
+        getJobsRequestHandler,
         version);
   }
 }
@@ -33,34 +33,40 @@ public class FrontendServiceHttpFunctionBase extends CloudFunctionServiceBase {
       Pattern.compile("/v1alpha/createJob", Pattern.CASE_INSENSITIVE);
   private static final Pattern getJobUrlPattern =
       Pattern.compile("/v1alpha/getJob", Pattern.CASE_INSENSITIVE);
+  private static final Pattern getJobsUrlPattern =
+      Pattern.compile("/v1alpha/getJobs", Pattern.CASE_INSENSITIVE);
 
   protected final CreateJobRequestHandler createJobRequestHandler;
   protected final GetJobRequestHandler getJobRequestHandler;
   protected final PutJobRequestHandler putJobRequestHandler;
   protected final GetJobByIdRequestHandler getJobByIdRequestHandler;
+  protected final GetJobsRequestHandler getJobsRequestHandler;
   protected final int version;
 
   /**
    * Creates a new instance of the {@code FrontendServiceHttpFunction} class with the given {@link
    * CreateJobRequestHandler}, {@link GetJobRequestHandler}, {@link PutJobRequestHandler}, {@link
-   * GetJobByIdRequestHandler} and version.
+   * GetJobByIdRequestHandler}, {@link GetJobsRequestHandler} and version.
    */
   public FrontendServiceHttpFunctionBase(
       CreateJobRequestHandler createJobRequestHandler,
       GetJobRequestHandler getJobRequestHandler,
       PutJobRequestHandler putJobRequestHandler,
       GetJobByIdRequestHandler getJobByIdRequestHandler,
+      GetJobsRequestHandler getJobsRequestHandler,
       int version) {
     this.createJobRequestHandler = createJobRequestHandler;
     this.getJobRequestHandler = getJobRequestHandler;
     this.putJobRequestHandler = putJobRequestHandler;
     this.getJobByIdRequestHandler = getJobByIdRequestHandler;
+    this.getJobsRequestHandler = getJobsRequestHandler;
     this.version = version;
   }
 
   /**
    * {@link CreateJobRequestHandler} and {@link GetJobRequestHandler are for JOB_V1 and
-   * {@link PutJobRequestHandler}, {@link GetJobByIdRequestHandler} are for JOB_V2.
+   * {@link PutJobRequestHandler}, {@link GetJobByIdRequestHandler} are for JOB_V2. {@link
+   * GetJobsRequestHandler} serves both versions.
    */
   @Override
   protected ImmutableMap<HttpMethod, ImmutableMap<Pattern, CloudFunctionRequestHandler>>
@@ -68,13 +74,21 @@ public class FrontendServiceHttpFunctionBase extends CloudFunctionServiceBase {
     if (this.version == JOB_V1) {
       return ImmutableMap.of(
           POST,
-          ImmutableMap.of(createJobUrlPattern, this.createJobRequestHandler),
+          ImmutableMap.of(
+              createJobUrlPattern,
+              this.createJobRequestHandler,
+              getJobsUrlPattern,
+              this.getJobsRequestHandler),
           GET,
           ImmutableMap.of(getJobUrlPattern, this.getJobRequestHandler));
     }
     return ImmutableMap.of(
         POST,
-        ImmutableMap.of(createJobUrlPattern, this.putJobRequestHandler),
+        ImmutableMap.of(
+            createJobUrlPattern,
+            this.putJobRequestHandler,
+            getJobsUrlPattern,
+            this.getJobsRequestHandler),
         GET,
         ImmutableMap.of(getJobUrlPattern, this.getJobByIdRequestHandler));
   }
@@ -40,6 +40,7 @@ import com.google.aggregate.protos.frontend.api.v1.JobStatusProto;
 import com.google.aggregate.protos.frontend.api.v1.ResultInfoProto;
 import com.google.aggregate.protos.shared.backend.RequestInfoProto.RequestInfo;
 import com.google.aggregate.protos.shared.backend.metadatadb.JobMetadataProto.JobMetadata;
+import com.google.aggregate.adtech.worker.shared.dao.jobqueue.common.JobQueueLaneConfig;
 import com.google.aggregate.adtech.worker.shared.dao.jobqueue.gcp.PubSubJobQueueConfig;
 import com.google.aggregate.adtech.worker.shared.dao.jobqueue.gcp.PubSubJobQueueModule;
 import com.google.aggregate.adtech.worker.shared.dao.metadatadb.gcp.SpannerMetadataDb.MetadataDbSpannerTtlDays;
@@ -51,6 +52,7 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 import java.util.Map;
+import java.util.Optional;
 
 /** Defines dependencies for GCP implementation of FrontendService. */
 public final class GcpFrontendServiceModule extends AbstractModule {
@@ -123,6 +125,9 @@ public final class GcpFrontendServiceModule extends AbstractModule {
                 .setPubSubSubscriptionId(pubsubSubscriptionId)
                 .setPubSubMaxMessageSizeBytes(1000)
                 .setPubSubMessageLeaseSeconds(600)
+                .setLaneConfig(
+                    JobQueueLaneConfig.fromParameters(
+                        parameter -> Optional.ofNullable(System.getenv(parameter))))
                 .build());
     install(new PubSubJobQueueModule());
     bind(Integer.class).annotatedWith(MetadataDbSpannerTtlDays.class).toInstance(metadataTtlDays);
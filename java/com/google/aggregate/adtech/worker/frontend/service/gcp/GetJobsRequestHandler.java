@@ -0,0 +1,76 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.frontend.service.gcp;
+
+import static com.google.scp.shared.api.model.Code.INVALID_ARGUMENT;
+import static com.google.scp.shared.api.model.Code.OK;
+import static com.google.scp.shared.api.model.HttpMethod.POST;
+import static com.google.scp.shared.api.util.RequestUtil.validateHttpMethod;
+import static com.google.scp.shared.gcp.util.CloudFunctionUtil.createCloudFunctionResponseFromProtoPreservingFieldNames;
+
+import com.google.cloud.functions.HttpRequest;
+import com.google.cloud.functions.HttpResponse;
+import com.google.inject.Inject;
+import com.google.protobuf.util.JsonFormat;
+import com.google.aggregate.adtech.worker.frontend.service.FrontendService;
+import com.google.aggregate.adtech.worker.frontend.tasks.ErrorReasons;
+import com.google.aggregate.protos.frontend.api.v1.GetJobsRequestProto.GetJobsRequest;
+import com.google.aggregate.protos.frontend.api.v1.GetJobsResponseProto.GetJobsResponse;
+import com.google.scp.shared.api.exception.ServiceException;
+import com.google.scp.shared.gcp.util.CloudFunctionRequestHandlerBase;
+import java.io.IOException;
+import java.util.stream.Collectors;
+
+/** Handles requests to GetJobs Http Cloud Function and returns HTTP Response. */
+public class GetJobsRequestHandler
+    extends CloudFunctionRequestHandlerBase<GetJobsRequest, GetJobsResponse> {
+
+  private final FrontendService frontendService;
+
+  /** Creates a new instance of the {@code GetJobsRequestHandler} class. */
+  @Inject
+  public GetJobsRequestHandler(FrontendService frontendService) {
+    this.frontendService = frontendService;
+  }
+
+  @Override
+  protected GetJobsRequest toRequest(HttpRequest httpRequest) throws ServiceException {
+    try {
+      validateHttpMethod(httpRequest.getMethod(), POST);
+      String json = httpRequest.getReader().lines().collect(Collectors.joining());
+      GetJobsRequest.Builder protoBuilder = GetJobsRequest.newBuilder();
+      JsonFormat.parser().ignoringUnknownFields().merge(json, protoBuilder);
+      return protoBuilder.build();
+    } catch (IOException exception) {
+      throw new ServiceException(INVALID_ARGUMENT, ErrorReasons.JSON_ERROR.name(), exception);
+    }
+  }
+
+  @Override
+  protected GetJobsResponse processRequest(GetJobsRequest getJobsRequest)
+      throws ServiceException {
+    return frontendService.getJobs(getJobsRequest);
+  }
+
+  @Override
+  protected void toCloudFunctionResponse(HttpResponse httpResponse, GetJobsResponse response)
+      throws IOException {
+    // Preserve field names so that the embedded jobs match the GetJob response format.
+    createCloudFunctionResponseFromProtoPreservingFieldNames(
+        httpResponse, response, OK.getHttpStatusCode(), allHeaders());
+  }
+}
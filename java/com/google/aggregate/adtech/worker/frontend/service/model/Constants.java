@@ -26,4 +26,12 @@ public final class Constants {
   public static final String JOB_PARAM_OUTPUT_DOMAIN_BLOB_PREFIX = "output_domain_blob_prefix";
   public static final String JOB_PARAM_OUTPUT_DOMAIN_BUCKET_NAME = "output_domain_bucket_name";
   public static final String JOB_PARAM_DEBUG_PRIVACY_BUDGET_LIMIT = "debug_privacy_budget_limit";
+  /** Only set by workers on the sub-tasks they dispatch, so it is rejected in job requests. */
+  public static final String JOB_PARAM_DISTRIBUTED_SUBTASK_MANIFEST =
+      "distributed_subtask_manifest";
+
+  /** Maximum number of jobs of a single GetJobs request. */
+  public static final int GET_JOBS_MAX_JOB_COUNT = 100;
+  /** Maximum wait time of a GetJobs request, below the 29 second limit of AWS API Gateway. */
+  public static final int GET_JOBS_MAX_WAIT_SECONDS = 20;
 }
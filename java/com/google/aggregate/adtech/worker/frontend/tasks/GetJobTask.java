@@ -18,17 +18,28 @@ package com.google.aggregate.adtech.worker.frontend.tasks;
 
 import static com.google.aggregate.adtech.worker.frontend.tasks.ErrorMessages.DB_ERROR_MESSAGE;
 import static com.google.aggregate.adtech.worker.frontend.tasks.ErrorMessages.JOB_NOT_FOUND_MESSAGE;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
 
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.inject.Inject;
+import com.google.aggregate.protos.shared.backend.JobStatusProto.JobStatus;
 import com.google.aggregate.protos.shared.backend.metadatadb.JobMetadataProto.JobMetadata;
 import com.google.aggregate.adtech.worker.shared.dao.metadatadb.common.JobMetadataDb;
 import com.google.aggregate.adtech.worker.shared.dao.metadatadb.common.JobMetadataDb.JobMetadataDbException;
 import com.google.scp.shared.api.exception.ServiceException;
 import com.google.scp.shared.api.model.Code;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
 
 /** Task to get a Job. */
 public final class GetJobTask {
 
+  /** Interval between reads of the metadata DB while jobs are watched. */
+  static final Duration WATCH_POLL_INTERVAL = Duration.ofSeconds(1);
+
   private final JobMetadataDb jobMetadataDb;
 
   /** Creates a new instance of the {@code GetJobTask} class. */
@@ -53,4 +64,76 @@ public final class GetJobTask {
           Code.INTERNAL, ErrorReasons.SERVER_ERROR.toString(), DB_ERROR_MESSAGE, e);
     }
   }
+
+  /**
+   * Gets the existing jobs among {@code jobRequestIds} with a single read of the metadata DB.
+   *
+   * @return the jobs that were found, keyed by job request ID.
+   */
+  public ImmutableMap<String, JobMetadata> getJobs(ImmutableSet<String> jobRequestIds)
+      throws ServiceException {
+    try {
+      return jobMetadataDb.batchGetJobMetadata(jobRequestIds);
+    } catch (JobMetadataDbException e) {
+      throw new ServiceException(
+          Code.INTERNAL, ErrorReasons.SERVER_ERROR.toString(), DB_ERROR_MESSAGE, e);
+    }
+  }
+
+  /**
+   * Gets the existing jobs among {@code jobRequestIds} once the status of one of them changes, or
+   * once {@code maxWaitTime} has passed. The jobs are read with a single read of the metadata DB
+   * every {@link #WATCH_POLL_INTERVAL}.
+   *
+   * @param lastKnownJobStatuses statuses of the jobs last seen by the caller. The status of other
+   *     jobs is compared to their status when the watch starts. A job that is not found has no
+   *     status.
+   * @return the jobs that were found, keyed by job request ID.
+   */
+  public ImmutableMap<String, JobMetadata> watchJobs(
+      ImmutableSet<String> jobRequestIds,
+      Map<String, JobStatus> lastKnownJobStatuses,
+      Duration maxWaitTime)
+      throws ServiceException {
+    Stopwatch watchTime = Stopwatch.createStarted();
+    ImmutableMap<String, JobMetadata> initialJobs = getJobs(jobRequestIds);
+    ImmutableMap<String, Optional<JobStatus>> watchedJobStatuses =
+        jobRequestIds.stream()
+            .collect(
+                toImmutableMap(
+                    jobRequestId -> jobRequestId,
+                    jobRequestId ->
+                        lastKnownJobStatuses.containsKey(jobRequestId)
+                            ? Optional.of(lastKnownJobStatuses.get(jobRequestId))
+                            : getJobStatus(initialJobs, jobRequestId)));
+
+    ImmutableMap<String, JobMetadata> jobs = initialJobs;
+    while (!hasStatusChange(jobs, watchedJobStatuses)) {
+      Duration remainingTime = maxWaitTime.minus(watchTime.elapsed());
+      if (remainingTime.isNegative() || remainingTime.isZero()) {
+        break;
+      }
+      try {
+        Thread.sleep(
+            Math.min(WATCH_POLL_INTERVAL.toMillis(), Math.max(remainingTime.toMillis(), 1)));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+      jobs = getJobs(jobRequestIds);
+    }
+    return jobs;
+  }
+
+  private static boolean hasStatusChange(
+      ImmutableMap<String, JobMetadata> jobs,
+      ImmutableMap<String, Optional<JobStatus>> watchedJobStatuses) {
+    return watchedJobStatuses.entrySet().stream()
+        .anyMatch(watched -> !getJobStatus(jobs, watched.getKey()).equals(watched.getValue()));
+  }
+
+  private static Optional<JobStatus> getJobStatus(
+      ImmutableMap<String, JobMetadata> jobs, String jobRequestId) {
+    return Optional.ofNullable(jobs.get(jobRequestId)).map(JobMetadata::getJobStatus);
+  }
 }
@@ -95,7 +95,7 @@ public final class GcpCreateJobTask extends CreateJobTaskBase {
         throw new JobKeyExistsException("Job already exists.");
       }
       // It's important to enqueue the job first to make sure the job is processed
-      jobQueue.sendJob(key, serverJobId);
+      jobQueue.selectLane(requestInfo).sendJob(key, serverJobId);
       jobMetadataDb.insertJobMetadata(jobMetadata);
     } catch (JobMetadataDbException | JobQueueException e) {
       throw new ServiceException(
@@ -23,6 +23,7 @@ import com.google.inject.multibindings.Multibinder;
 import com.google.aggregate.adtech.worker.frontend.tasks.CreateJobTask;
 import com.google.aggregate.adtech.worker.frontend.tasks.validation.JobRequestIdCharactersValidator;
 import com.google.aggregate.adtech.worker.frontend.tasks.validation.JobRequestIdLengthValidator;
+import com.google.aggregate.adtech.worker.frontend.tasks.validation.ReservedJobParametersValidator;
 import com.google.aggregate.adtech.worker.frontend.tasks.validation.RequestInfoValidator;
 import java.time.Clock;
 
@@ -49,5 +50,6 @@ public final class GcpTasksModule extends AbstractModule {
 
     requestInfoValidatorMultibinder.addBinding().to(JobRequestIdCharactersValidator.class);
     requestInfoValidatorMultibinder.addBinding().to(JobRequestIdLengthValidator.class);
+    requestInfoValidatorMultibinder.addBinding().to(ReservedJobParametersValidator.class);
   }
 }
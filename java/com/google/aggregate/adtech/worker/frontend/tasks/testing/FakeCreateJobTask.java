@@ -81,7 +81,7 @@ public final class FakeCreateJobTask extends CreateJobTaskBase {
             .build();
 
     try {
-      jobQueue.sendJob(key, serverJobId);
+      jobQueue.selectLane(requestInfo).sendJob(key, serverJobId);
       jobMetadataDb.insertJobMetadata(jobMetadata);
     } catch (JobMetadataDbException | JobQueueException e) {
       throw new ServiceException(
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.frontend.tasks.validation;
+
+import static com.google.aggregate.adtech.worker.frontend.service.model.Constants.JOB_PARAM_DISTRIBUTED_SUBTASK_MANIFEST;
+
+import com.google.aggregate.protos.shared.backend.RequestInfoProto.RequestInfo;
+import com.google.common.collect.ImmutableSet;
+import java.util.Optional;
+
+/**
+ * Validates that the job parameters don't set parameters reserved for workers, such as the
+ * manifest of a sub-task of a distributed job.
+ */
+public final class ReservedJobParametersValidator implements RequestInfoValidator {
+
+  private static final ImmutableSet<String> RESERVED_JOB_PARAMETERS =
+      ImmutableSet.of(JOB_PARAM_DISTRIBUTED_SUBTASK_MANIFEST);
+
+  @Override
+  public Optional<String> validate(RequestInfo requestInfo) {
+    return RESERVED_JOB_PARAMETERS.stream()
+        .filter(requestInfo.getJobParametersMap()::containsKey)
+        .findFirst()
+        .map(ReservedJobParametersValidator::errorMessage);
+  }
+
+  private static String errorMessage(String jobParameter) {
+    return String.format("Job parameter '%s' is reserved and can't be set.", jobParameter);
+  }
+}
@@ -82,6 +82,14 @@ public class AggregationWorkerArgs {
   private BlobStorageClientSelector blobStorageClientSelector =
       BlobStorageClientSelector.LOCAL_FS_CLIENT;
 
+  @Parameter(
+      names = "--blob_storage_latency_profile",
+      description =
+          "Path to a JSON blob storage latency profile. Only used with the local file system blob"
+              + " storage client, whose reads and writes then get the latency, bandwidth and"
+              + " throttling errors of the profile, to benchmark I/O changes repeatably.")
+  private String blobStorageLatencyProfile = "";
+
   @Parameter(names = "--decryption_key_service", description = "How to read the decryption keys")
   private DecryptionKeyClientSelector decryptionKeyClientSelector =
       DecryptionKeyClientSelector.LOCAL_FILE_DECRYPTION_KEY_SERVICE;
@@ -402,6 +410,14 @@ public class AggregationWorkerArgs {
       description = "Flag to enable the logic that skips budget consumption in debug runs.")
   private boolean dontConsumeBudgetInDebugRunEnabled = false;
 
+  @Parameter(
+      names = "--job_flight_recording_max_size_mb",
+      description =
+          "Maximum size of a Java Flight Recorder recording of the pipeline stages of each debug"
+              + " run, which is uploaded next to the debug summary reports of the job. Other jobs"
+              + " are never recorded. Jobs are not recorded when set to 0.")
+  private long jobFlightRecordingMaxSizeMb = 0;
+
   ResultLoggerModuleSelector resultLoggerModuleSelector() {
     return resultLoggerModuleSelector;
   }
@@ -508,6 +524,10 @@ public class AggregationWorkerArgs {
     return blobStorageClientSelector;
   }
 
+  String getBlobStorageLatencyProfile() {
+    return blobStorageLatencyProfile;
+  }
+
   String getCoordinatorAPrivacyBudgetingServiceUrl() {
     return coordinatorAPrivacyBudgetingServiceUrl;
   }
@@ -673,4 +693,8 @@ public class AggregationWorkerArgs {
   public boolean isDontConsumeBudgetInDebugRunEnabled() {
     return dontConsumeBudgetInDebugRunEnabled;
   }
+
+  long getJobFlightRecordingMaxSizeMb() {
+    return jobFlightRecordingMaxSizeMb;
+  }
 }
@@ -38,6 +38,7 @@ import com.google.aggregate.adtech.worker.Annotations.ParallelAggregatedFactNois
 import com.google.aggregate.adtech.worker.Annotations.ReportErrorThresholdPercentage;
 import com.google.aggregate.adtech.worker.Annotations.StreamingOutputDomainProcessing;
 import com.google.aggregate.adtech.worker.Annotations.SupportedApis;
+import com.google.aggregate.adtech.worker.JobFlightRecordingConfig;
 import com.google.aggregate.adtech.worker.JobProcessor;
 import com.google.aggregate.adtech.worker.LocalFileToCloudStorageLogger.ResultWorkingDirectory;
 import com.google.aggregate.adtech.worker.PrivacyBudgetingSelector;
@@ -51,8 +52,11 @@ import com.google.aggregate.adtech.worker.configs.PrivacyParametersSupplier.Nois
 import com.google.aggregate.adtech.worker.configs.PrivacyParametersSupplier.NoisingL1Sensitivity;
 import com.google.aggregate.adtech.worker.decryption.DeserializingReportDecrypter;
 import com.google.aggregate.adtech.worker.decryption.RecordDecrypter;
+import com.google.aggregate.adtech.worker.local.BlobStorageLatencyProfile;
+import com.google.aggregate.adtech.worker.local.LatencyInjectingBlobStorageClientModule;
 import com.google.aggregate.adtech.worker.model.serdes.PayloadSerdes;
 import com.google.aggregate.adtech.worker.model.serdes.cbor.CborPayloadSerdes;
+import com.google.aggregate.adtech.worker.selector.BlobStorageClientSelector;
 import com.google.aggregate.adtech.worker.validation.SimulationValidationModule;
 import com.google.aggregate.adtech.worker.validation.ValidationModule;
 import com.google.aggregate.perf.StopwatchExporter;
@@ -70,6 +74,7 @@ import com.google.common.util.concurrent.MoreExecutors;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
 import com.google.inject.TypeLiteral;
+import com.google.inject.multibindings.OptionalBinder;
 import com.google.privacysandbox.otel.Annotations.EnableOTelLogs;
 import com.google.privacysandbox.otel.Annotations.GrpcOtelCollectorEndpoint;
 import com.google.scp.operator.cpio.blobstorageclient.gcp.Annotations.GcsEndpointUrl;
@@ -119,6 +124,8 @@ import javax.inject.Singleton;
 
 public final class AggregationWorkerModule extends AbstractModule {
 
+  private static final String FLIGHT_RECORDING_DIRECTORY = "flight_recordings";
+
   private final AggregationWorkerArgs args;
 
   public AggregationWorkerModule(AggregationWorkerArgs args) {
@@ -143,7 +150,15 @@ public final class AggregationWorkerModule extends AbstractModule {
       case LOCAL_FS_CLIENT:
         bind(FileSystem.class).toInstance(FileSystems.getDefault());
     }
-    install(args.getBlobStorageClientSelector().getBlobStorageClientSelectorModule());
+    if (args.getBlobStorageClientSelector() == BlobStorageClientSelector.LOCAL_FS_CLIENT
+        && !args.getBlobStorageLatencyProfile().isBlank()) {
+      install(
+          new LatencyInjectingBlobStorageClientModule(
+              BlobStorageLatencyProfile.fromFile(Path.of(args.getBlobStorageLatencyProfile())),
+              /* listSingleBlob= */ false));
+    } else {
+      install(args.getBlobStorageClientSelector().getBlobStorageClientSelectorModule());
+    }
 
     switch (args.getJobClientSelector()) {
       case LOCAL_FILE:
@@ -333,6 +348,17 @@ public final class AggregationWorkerModule extends AbstractModule {
     bind(boolean.class)
         .annotatedWith(DontConsumeBudgetInDebugRunEnabled.class)
         .toInstance(args.isDontConsumeBudgetInDebugRunEnabled());
+    if (args.getJobFlightRecordingMaxSizeMb() > 0) {
+      OptionalBinder.newOptionalBinder(binder(), JobFlightRecordingConfig.class)
+          .setBinding()
+          .toInstance(
+              JobFlightRecordingConfig.builder()
+                  .setMaxSizeBytes(args.getJobFlightRecordingMaxSizeMb() * 1024 * 1024)
+                  .setLocalDirectory(
+                      Paths.get(
+                          args.getResultWorkingDirectoryPathString(), FLIGHT_RECORDING_DIRECTORY))
+                  .build());
+    }
 
     // Parameter to set key cache. This is a test only flag.
     bind(Long.class)
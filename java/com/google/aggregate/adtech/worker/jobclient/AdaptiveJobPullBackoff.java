@@ -0,0 +1,63 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.jobclient;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.time.Duration;
+
+/**
+ * Backoff that waits longer after each consecutive empty pull, from {@link #MIN_DELAY} up to {@link
+ * #MAX_DELAY}, and starts over from {@link #MIN_DELAY} once a job is pulled.
+ *
+ * <p>Job queues are long-polled, i.e. an empty pull has already waited for a job on the server
+ * side, so the polling cost of an idle worker is bounded by the queue's wait time rather than by
+ * this backoff. Keeping the delays short means that a job sent while the worker backs off waits at
+ * most {@link #MAX_DELAY} instead of the 5 seconds of {@link JobPullBackoffImpl}.
+ */
+public final class AdaptiveJobPullBackoff implements JobPullBackoff {
+
+  static final Duration MIN_DELAY = Duration.ofMillis(50);
+  static final Duration MAX_DELAY = Duration.ofSeconds(1);
+
+  private Duration nextDelay = MIN_DELAY;
+
+  /** Blocks the main thread for the current delay, then signals a retry. */
+  @Override
+  public Boolean get() {
+    try {
+      Thread.sleep(nextDelay().toMillis());
+    } catch (InterruptedException e) {
+      throw new BackoffException(e);
+    }
+
+    return true;
+  }
+
+  @Override
+  public synchronized void reset() {
+    nextDelay = MIN_DELAY;
+  }
+
+  /** Returns the delay before the next pull and doubles the delay for the pull after it. */
+  @VisibleForTesting
+  synchronized Duration nextDelay() {
+    Duration delay = nextDelay;
+    Duration doubledDelay = nextDelay.multipliedBy(2);
+    nextDelay = doubledDelay.compareTo(MAX_DELAY) < 0 ? doubledDelay : MAX_DELAY;
+    return delay;
+  }
+}
@@ -138,6 +138,7 @@ public final class JobClientImpl implements JobClient {
           pollForJob = pullBackoff.get();
           continue;
         }
+        pullBackoff.reset();
 
         metadata = getJobMetadata(queueItem.get());
         job =
@@ -28,6 +28,12 @@ import java.util.function.Supplier;
  */
 public interface JobPullBackoff extends Supplier<Boolean> {
 
+  /**
+   * Signals that a job was pulled from the job queue, so that backoffs adapting to how busy the
+   * queue is can start over from their shortest wait.
+   */
+  default void reset() {}
+
   /** Represents an exception thrown by the {@code JobPullBackoff} class. */
   final class BackoffException extends RuntimeException {
 
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.jobclient;
+
+import static com.google.aggregate.adtech.worker.shared.model.BackendModelUtil.toJobKeyString;
+import static com.google.aggregate.protos.shared.backend.JobStatusProto.JobStatus.FINISHED;
+import static com.google.aggregate.protos.shared.backend.JobStatusProto.JobStatus.RECEIVED;
+
+import com.google.aggregate.adtech.worker.shared.dao.jobqueue.common.JobQueue;
+import com.google.aggregate.adtech.worker.shared.dao.jobqueue.common.JobQueue.JobQueueException;
+import com.google.aggregate.adtech.worker.shared.dao.metadatadb.common.JobMetadataDb;
+import com.google.aggregate.adtech.worker.shared.dao.metadatadb.common.JobMetadataDb.JobKeyExistsException;
+import com.google.aggregate.adtech.worker.shared.dao.metadatadb.common.JobMetadataDb.JobMetadataConflictException;
+import com.google.aggregate.adtech.worker.shared.dao.metadatadb.common.JobMetadataDb.JobMetadataDbException;
+import com.google.aggregate.protos.shared.backend.JobKeyProto.JobKey;
+import com.google.aggregate.protos.shared.backend.RequestInfoProto.RequestInfo;
+import com.google.aggregate.protos.shared.backend.ResultInfoProto.ResultInfo;
+import com.google.aggregate.protos.shared.backend.ReturnCodeProto.ReturnCode;
+import com.google.aggregate.protos.shared.backend.metadatadb.JobMetadataProto.JobMetadata;
+import com.google.common.collect.ImmutableMap;
+import com.google.protobuf.Timestamp;
+import com.google.scp.shared.proto.ProtoUtil;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.inject.Inject;
+
+/**
+ * Dispatches the sub-tasks of a distributed job like the frontend creates jobs: a metadata entry is
+ * inserted for each sub-task and the sub-task is placed on the job queue.
+ *
+ * <p>Sub-tasks are placed on the default lane of the queue, and their results are only read by the
+ * worker that dispatched them. If a sub-task can't be dispatched, the worker aggregates all of them
+ * itself, so the sub-tasks dispatched so far are marked finished and workers that pull them skip
+ * them.
+ */
+public final class JobQueueSubtaskDispatcher implements SubtaskDispatcher {
+
+  private static final Logger logger = Logger.getLogger(JobQueueSubtaskDispatcher.class.getName());
+
+  // Metadata DBs that don't set the TTL of an entry themselves keep sub-tasks for this long.
+  private static final Duration SUBTASK_METADATA_TTL = Duration.ofDays(7);
+  private static final String SUPERSEDED_MESSAGE =
+      "Superseded: the sub-task is aggregated by the worker that dispatched it.";
+
+  private final JobQueue jobQueue;
+  private final JobMetadataDb jobMetadataDb;
+  private final Clock clock;
+
+  @Inject
+  JobQueueSubtaskDispatcher(JobQueue jobQueue, JobMetadataDb jobMetadataDb, Clock clock) {
+    this.jobQueue = jobQueue;
+    this.jobMetadataDb = jobMetadataDb;
+    this.clock = clock;
+  }
+
+  @Override
+  public void dispatch(ImmutableMap<JobKey, RequestInfo> subtasks)
+      throws SubtaskDispatchException {
+    Instant now = clock.instant();
+    Timestamp currentTime = ProtoUtil.toProtoTimestamp(now);
+    ImmutableMap.Builder<JobKey, String> serverJobIds = ImmutableMap.builder();
+    for (Entry<JobKey, RequestInfo> subtask : subtasks.entrySet()) {
+      String serverJobId = UUID.randomUUID().toString();
+      JobMetadata jobMetadata =
+          JobMetadata.newBuilder()
+              .setJobKey(subtask.getKey())
+              .setRequestReceivedAt(currentTime)
+              .setRequestUpdatedAt(currentTime)
+              .setNumAttempts(0)
+              .setJobStatus(RECEIVED)
+              .setServerJobId(serverJobId)
+              .setRequestInfo(subtask.getValue())
+              .setTtl(now.plus(SUBTASK_METADATA_TTL).getEpochSecond())
+              .build();
+      // Unlike the frontend, the metadata is inserted first, so that a worker never pulls a
+      // sub-task before its metadata exists.
+      try {
+        jobMetadataDb.insertJobMetadata(jobMetadata);
+      } catch (JobKeyExistsException e) {
+        logger.info(
+            String.format(
+                "Sub-task %s was already dispatched.", toJobKeyString(subtask.getKey())));
+        continue;
+      } catch (JobMetadataDbException e) {
+        supersede(serverJobIds.build().keySet());
+        throw new SubtaskDispatchException(e);
+      }
+      serverJobIds.put(subtask.getKey(), serverJobId);
+    }
+
+    ImmutableMap<JobKey, JobQueueException> failures =
+        jobQueue.sendJobs(serverJobIds.build());
+    if (!failures.isEmpty()) {
+      supersede(serverJobIds.build().keySet());
+      throw new SubtaskDispatchException(failures.values().iterator().next());
+    }
+  }
+
+  /**
+   * Marks sub-tasks finished, so that workers that pull them later skip them. A sub-task that was
+   * pulled already still runs, but its result is never read.
+   */
+  private void supersede(Iterable<JobKey> jobKeys) {
+    Timestamp currentTime = ProtoUtil.toProtoTimestamp(clock.instant());
+    for (JobKey jobKey : jobKeys) {
+      String jobKeyString = toJobKeyString(jobKey);
+      try {
+        Optional<JobMetadata> jobMetadata = jobMetadataDb.getJobMetadata(jobKeyString);
+        if (jobMetadata.isEmpty() || jobMetadata.get().getJobStatus() == FINISHED) {
+          continue;
+        }
+        jobMetadataDb.updateJobMetadata(
+            jobMetadata.get().toBuilder()
+                .setJobStatus(FINISHED)
+                .setRequestUpdatedAt(currentTime)
+                .setResultInfo(
+                    ResultInfo.newBuilder()
+                        .setReturnCode(ReturnCode.UNSPECIFIED_ERROR.name())
+                        .setReturnMessage(SUPERSEDED_MESSAGE)
+                        .setFinishedAt(currentTime))
+                .build());
+      } catch (JobMetadataDbException | JobMetadataConflictException e) {
+        logger.log(
+            Level.WARNING, String.format("Failed to supersede sub-task %s.", jobKeyString), e);
+      }
+    }
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.jobclient;
+
+import com.google.aggregate.protos.shared.backend.JobKeyProto.JobKey;
+import com.google.aggregate.protos.shared.backend.RequestInfoProto.RequestInfo;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Places the sub-tasks of a distributed job where peer workers pull their jobs from, e.g. on the
+ * job queue.
+ */
+public interface SubtaskDispatcher {
+
+  /**
+   * Dispatches sub-tasks, each of which is pulled and processed by a worker like any other job.
+   *
+   * @param subtasks the request of each sub-task, by job key
+   * @throws SubtaskDispatchException if a sub-task could not be dispatched. The sub-tasks
+   *     dispatched before are withdrawn or marked finished, so that workers don't process them.
+   */
+  void dispatch(ImmutableMap<JobKey, RequestInfo> subtasks) throws SubtaskDispatchException;
+
+  /** Represents an exception thrown by the {@code SubtaskDispatcher} class. */
+  class SubtaskDispatchException extends Exception {
+
+    /** Creates a new instance of the {@code SubtaskDispatchException} class. */
+    public SubtaskDispatchException(Throwable cause) {
+      super(cause);
+    }
+
+    /** Creates a new instance of the {@code SubtaskDispatchException} class with a message. */
+    public SubtaskDispatchException(String message) {
+      super(message);
+    }
+  }
+}
@@ -16,15 +16,16 @@
 
 package com.google.aggregate.adtech.worker.jobclient.aws;
 
+import com.google.aggregate.adtech.worker.jobclient.AdaptiveJobPullBackoff;
 import com.google.aggregate.adtech.worker.jobclient.JobClient;
 import com.google.aggregate.adtech.worker.jobclient.JobClientImpl;
 import com.google.aggregate.adtech.worker.jobclient.JobHandlerModule;
 import com.google.aggregate.adtech.worker.jobclient.JobPullBackoff;
-import com.google.aggregate.adtech.worker.jobclient.JobPullBackoffImpl;
 import com.google.aggregate.adtech.worker.jobclient.JobValidatorModule;
 import com.google.inject.BindingAnnotation;
 import com.google.inject.Key;
 import com.google.inject.Provides;
+import com.google.inject.Singleton;
 import com.google.inject.multibindings.OptionalBinder;
 import com.google.scp.operator.cpio.notificationclient.NotificationClient;
 import com.google.aggregate.adtech.worker.shared.dao.jobqueue.aws.SqsJobQueue;
@@ -32,6 +33,7 @@ import com.google.aggregate.adtech.worker.shared.dao.jobqueue.aws.SqsJobQueue.Jo
 import com.google.aggregate.adtech.worker.shared.dao.jobqueue.aws.SqsJobQueue.JobQueueSqsQueueUrl;
 import com.google.aggregate.adtech.worker.shared.dao.jobqueue.common.JobQueue;
 import com.google.aggregate.adtech.worker.shared.dao.jobqueue.common.JobQueue.JobQueueMessageLeaseSeconds;
+import com.google.aggregate.adtech.worker.shared.dao.jobqueue.common.JobQueueLaneConfig;
 import com.google.aggregate.adtech.worker.shared.dao.metadatadb.aws.DynamoMetadataDb;
 import com.google.aggregate.adtech.worker.shared.dao.metadatadb.aws.DynamoMetadataDb.MetadataDbDynamoClient;
 import com.google.aggregate.adtech.worker.shared.dao.metadatadb.aws.DynamoMetadataDb.MetadataDbDynamoTableName;
@@ -58,10 +60,14 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 import java.net.URI;
+import java.util.Optional;
 
 /** Guice module for binding the AWS job client functionality */
 public final class AwsJobHandlerModule extends JobHandlerModule {
 
+  // Maximum wait time of an SQS receive request.
+  private static final int SQS_MAX_WAIT_TIME_SECONDS = 20;
+
   @Override
   public Class<? extends JobClient> getJobClientImpl() {
     return JobClientImpl.class;
@@ -69,15 +75,30 @@ public final class AwsJobHandlerModule extends JobHandlerModule {
 
   @Override
   public void customConfigure() {
-    bind(Integer.class).annotatedWith(JobQueueSqsMaxWaitTimeSeconds.class).toInstance(5);
-    bind(JobQueue.class).to(SqsJobQueue.class);
+    // Long-poll for the longest wait SQS allows, so that a job is received as soon as it is sent.
+    bind(Integer.class)
+        .annotatedWith(JobQueueSqsMaxWaitTimeSeconds.class)
+        .toInstance(SQS_MAX_WAIT_TIME_SECONDS);
     bind(JobMetadataDb.class).to(DynamoMetadataDb.class);
-    bind(JobPullBackoff.class).to(JobPullBackoffImpl.class);
+    bind(JobPullBackoff.class).to(AdaptiveJobPullBackoff.class);
     bind(Integer.class).annotatedWith(MetadataDbDynamoTtlDays.class).toInstance(365);
     OptionalBinder.newOptionalBinder(binder(), Key.get(NotificationClient.class));
     install(new JobValidatorModule());
   }
 
+  /**
+   * Provider for the job queue, with a queue per priority lane if the queues of the lanes are set
+   * in the {@link JobQueueLaneConfig} parameters.
+   */
+  @Provides
+  @Singleton
+  JobQueue provideJobQueue(SqsJobQueue sqsJobQueue, ParameterClient paramClient)
+      throws ParameterClientException {
+    Optional<JobQueueLaneConfig> laneConfig =
+        JobQueueLaneConfig.fromParameters(paramClient::getParameter);
+    return laneConfig.isPresent() ? sqsJobQueue.createLaned(laneConfig.get()) : sqsJobQueue;
+  }
+
   /** Provider for an instance of the {@code SqsClient} class. */
   @Provides
   SqsClient provideSqsClient(
@@ -16,16 +16,17 @@
 
 package com.google.aggregate.adtech.worker.jobclient.gcp;
 
+import com.google.aggregate.adtech.worker.jobclient.AdaptiveJobPullBackoff;
 import com.google.aggregate.adtech.worker.jobclient.JobClient;
 import com.google.aggregate.adtech.worker.jobclient.JobClientImpl;
 import com.google.aggregate.adtech.worker.jobclient.JobHandlerModule;
 import com.google.aggregate.adtech.worker.jobclient.JobPullBackoff;
-import com.google.aggregate.adtech.worker.jobclient.JobPullBackoffImpl;
 import com.google.aggregate.adtech.worker.jobclient.JobValidatorModule;
 import com.google.inject.Key;
 import com.google.inject.Provides;
 import com.google.inject.multibindings.OptionalBinder;
 import com.google.scp.operator.cpio.notificationclient.NotificationClient;
+import com.google.aggregate.adtech.worker.shared.dao.jobqueue.common.JobQueueLaneConfig;
 import com.google.aggregate.adtech.worker.shared.dao.jobqueue.gcp.PubSubJobQueueConfig;
 import com.google.aggregate.adtech.worker.shared.dao.jobqueue.gcp.PubSubJobQueueModule;
 import com.google.aggregate.adtech.worker.shared.dao.metadatadb.gcp.SpannerMetadataDbConfig;
@@ -50,7 +51,7 @@ public final class GcpJobHandlerModule extends JobHandlerModule {
   public void customConfigure() {
     install(new PubSubJobQueueModule());
     install(new SpannerMetadataDbModule());
-    bind(JobPullBackoff.class).to(JobPullBackoffImpl.class);
+    bind(JobPullBackoff.class).to(AdaptiveJobPullBackoff.class);
     install(new JobValidatorModule());
     OptionalBinder.newOptionalBinder(binder(), Key.get(NotificationClient.class));
   }
@@ -80,6 +81,7 @@ public final class GcpJobHandlerModule extends JobHandlerModule {
         .setPubSubMaxMessageSizeBytes(1000)
         .setPubSubMessageLeaseSeconds(Integer.parseInt(messageLeaseSeconds))
         .setEndpointUrl(config.pubSubEndpoint())
+        .setLaneConfig(JobQueueLaneConfig.fromParameters(parameterClient::getParameter))
         .build();
   }
 
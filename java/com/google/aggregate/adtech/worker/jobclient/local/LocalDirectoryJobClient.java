@@ -0,0 +1,201 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.jobclient.local;
+
+import static com.google.aggregate.adtech.worker.shared.model.BackendModelUtil.toJobKeyString;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+
+import com.google.aggregate.adtech.worker.jobclient.JobClient;
+import com.google.aggregate.adtech.worker.jobclient.local.LocalDirectoryJobHandlerModule.LocalJobQueueDirectory;
+import com.google.aggregate.adtech.worker.jobclient.model.ErrorReason;
+import com.google.aggregate.adtech.worker.jobclient.model.Job;
+import com.google.aggregate.adtech.worker.jobclient.model.JobResult;
+import com.google.aggregate.adtech.worker.jobclient.model.JobRetryRequest;
+import com.google.aggregate.protos.shared.backend.JobKeyProto.JobKey;
+import com.google.aggregate.protos.shared.backend.JobStatusProto.JobStatus;
+import com.google.aggregate.protos.shared.backend.metadatadb.JobMetadataProto.JobMetadata;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hashing;
+import com.google.protobuf.util.JsonFormat;
+import com.google.scp.shared.proto.ProtoUtil;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.stream.Stream;
+import javax.inject.Inject;
+
+/**
+ * Job client that pulls jobs from a directory of the local filesystem, so that several local
+ * worker processes can share a queue of jobs, e.g. the sub-tasks of a distributed job.
+ *
+ * <p>Jobs are written to the {@code pending} subdirectory as JSON {@link JobMetadata} by {@link
+ * #enqueue}. A worker claims a job by moving its file to the {@code claimed} subdirectory, which
+ * only one worker can do, and writes the result of the job to the {@code completed} subdirectory.
+ * Once the queue is empty and the {@value #SHUTDOWN_FILE} file exists, no more jobs are pulled.
+ */
+public final class LocalDirectoryJobClient implements JobClient {
+
+  /** File that tells the workers to stop pulling jobs once the queue is empty. */
+  public static final String SHUTDOWN_FILE = "shutdown";
+
+  private static final String PENDING_DIRECTORY = "pending";
+  private static final String CLAIMED_DIRECTORY = "claimed";
+  private static final String COMPLETED_DIRECTORY = "completed";
+  private static final String JOB_FILE_EXTENSION = ".json";
+  private static final Duration POLL_INTERVAL = Duration.ofMillis(200);
+  private static final Duration JOB_PROCESSING_TIMEOUT = Duration.ofHours(1);
+
+  private static final JsonFormat.Printer JSON_PRINTER = JsonFormat.printer();
+  private static final JsonFormat.Parser JSON_PARSER = JsonFormat.parser().ignoringUnknownFields();
+
+  private final Path queueDirectory;
+  private final Clock clock;
+
+  @Inject
+  LocalDirectoryJobClient(@LocalJobQueueDirectory Path queueDirectory, Clock clock) {
+    this.queueDirectory = queueDirectory;
+    this.clock = clock;
+  }
+
+  /**
+   * Writes a job to the queue in {@code queueDirectory}. The job file appears atomically, so it is
+   * never pulled half-written.
+   */
+  public static void enqueue(Path queueDirectory, JobMetadata jobMetadata) throws IOException {
+    Path pendingDirectory = queueDirectory.resolve(PENDING_DIRECTORY);
+    Files.createDirectories(pendingDirectory);
+    String jobFileName = getJobFileName(jobMetadata.getJobKey());
+    Path temporaryFile = Files.createTempFile(queueDirectory, jobFileName, ".tmp");
+    Files.writeString(temporaryFile, JSON_PRINTER.print(jobMetadata), UTF_8);
+    Files.move(temporaryFile, pendingDirectory.resolve(jobFileName), ATOMIC_MOVE);
+  }
+
+  /**
+   * Removes a job from the queue in {@code queueDirectory} unless a worker has pulled it already.
+   */
+  public static void withdraw(Path queueDirectory, JobKey jobKey) throws IOException {
+    Files.deleteIfExists(
+        queueDirectory.resolve(PENDING_DIRECTORY).resolve(getJobFileName(jobKey)));
+  }
+
+  /** Returns true if the job was completed by a worker pulling from {@code queueDirectory}. */
+  public static boolean isCompleted(Path queueDirectory, JobKey jobKey) {
+    return Files.exists(
+        queueDirectory.resolve(COMPLETED_DIRECTORY).resolve(getJobFileName(jobKey)));
+  }
+
+  @Override
+  public Optional<Job> getJob() throws JobClientException {
+    try {
+      while (true) {
+        for (Path pendingJob : listPendingJobs()) {
+          Optional<Job> job = claim(pendingJob);
+          if (job.isPresent()) {
+            return job;
+          }
+        }
+        if (Files.exists(queueDirectory.resolve(SHUTDOWN_FILE))) {
+          return Optional.empty();
+        }
+        Thread.sleep(POLL_INTERVAL.toMillis());
+      }
+    } catch (IOException e) {
+      throw new JobClientException(e, ErrorReason.JOB_PULL_FAILED);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new JobClientException(e, ErrorReason.JOB_PULL_FAILED);
+    }
+  }
+
+  @Override
+  public void returnJobForRetry(JobRetryRequest jobRetryRequest) throws JobClientException {
+    String jobFileName = getJobFileName(jobRetryRequest.getJobKey());
+    try {
+      Files.move(
+          queueDirectory.resolve(CLAIMED_DIRECTORY).resolve(jobFileName),
+          queueDirectory.resolve(PENDING_DIRECTORY).resolve(jobFileName),
+          ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new JobClientException(e, ErrorReason.RETURN_JOB_FOR_RETRY_FAILED);
+    }
+  }
+
+  @Override
+  public void markJobCompleted(JobResult jobResult) throws JobClientException {
+    Path completedDirectory = queueDirectory.resolve(COMPLETED_DIRECTORY);
+    try {
+      Files.createDirectories(completedDirectory);
+      Files.writeString(
+          completedDirectory.resolve(getJobFileName(jobResult.jobKey())),
+          JSON_PRINTER.print(jobResult.resultInfo()),
+          UTF_8);
+    } catch (IOException e) {
+      throw new JobClientException(e, ErrorReason.JOB_MARK_COMPLETION_FAILED);
+    }
+  }
+
+  @Override
+  public void appendJobErrorMessage(JobKey jobKey, String error) {
+    // The error is part of the result written when the job is marked completed.
+  }
+
+  private ImmutableList<Path> listPendingJobs() throws IOException {
+    Path pendingDirectory = queueDirectory.resolve(PENDING_DIRECTORY);
+    if (!Files.isDirectory(pendingDirectory)) {
+      return ImmutableList.of();
+    }
+    try (Stream<Path> pendingJobs = Files.list(pendingDirectory)) {
+      return pendingJobs.sorted().collect(ImmutableList.toImmutableList());
+    }
+  }
+
+  /** Moves the job to the claimed jobs, or returns empty if another worker claimed it first. */
+  private Optional<Job> claim(Path pendingJob) throws IOException {
+    Path claimedDirectory = queueDirectory.resolve(CLAIMED_DIRECTORY);
+    Files.createDirectories(claimedDirectory);
+    Path claimedJob = claimedDirectory.resolve(pendingJob.getFileName());
+    try {
+      Files.move(pendingJob, claimedJob, ATOMIC_MOVE);
+    } catch (NoSuchFileException e) {
+      return Optional.empty();
+    }
+
+    JobMetadata.Builder jobMetadata = JobMetadata.newBuilder();
+    JSON_PARSER.merge(Files.readString(claimedJob, UTF_8), jobMetadata);
+    return Optional.of(
+        Job.builder()
+            .setJobKey(jobMetadata.getJobKey())
+            .setJobStatus(JobStatus.IN_PROGRESS)
+            .setRequestInfo(jobMetadata.getRequestInfo())
+            .setCreateTime(ProtoUtil.toJavaInstant(jobMetadata.getRequestReceivedAt()))
+            .setUpdateTime(clock.instant())
+            .setProcessingStartTime(Optional.of(clock.instant()))
+            .setNumAttempts(jobMetadata.getNumAttempts())
+            .setJobProcessingTimeout(JOB_PROCESSING_TIMEOUT)
+            .build());
+  }
+
+  /** Job keys may contain characters that are not valid in file names, so their hash is used. */
+  private static String getJobFileName(JobKey jobKey) {
+    return Hashing.sha256().hashString(toJobKeyString(jobKey), UTF_8) + JOB_FILE_EXTENSION;
+  }
+}
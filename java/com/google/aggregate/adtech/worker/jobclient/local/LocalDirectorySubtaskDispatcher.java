@@ -0,0 +1,88 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.jobclient.local;
+
+import static com.google.aggregate.protos.shared.backend.JobStatusProto.JobStatus.RECEIVED;
+
+import com.google.aggregate.adtech.worker.jobclient.SubtaskDispatcher;
+import com.google.aggregate.adtech.worker.jobclient.local.LocalDirectoryJobHandlerModule.LocalJobQueueDirectory;
+import com.google.aggregate.protos.shared.backend.JobKeyProto.JobKey;
+import com.google.aggregate.protos.shared.backend.RequestInfoProto.RequestInfo;
+import com.google.aggregate.protos.shared.backend.metadatadb.JobMetadataProto.JobMetadata;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.protobuf.Timestamp;
+import com.google.scp.shared.proto.ProtoUtil;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.Map.Entry;
+import java.util.UUID;
+import javax.inject.Inject;
+
+/**
+ * Dispatches the sub-tasks of a distributed job to a local directory, from which local worker
+ * processes pull them with a {@link LocalDirectoryJobClient}. If a sub-task can't be dispatched,
+ * the sub-tasks dispatched so far are withdrawn from the directory.
+ */
+public final class LocalDirectorySubtaskDispatcher implements SubtaskDispatcher {
+
+  private final Path queueDirectory;
+  private final Clock clock;
+
+  @Inject
+  LocalDirectorySubtaskDispatcher(@LocalJobQueueDirectory Path queueDirectory, Clock clock) {
+    this.queueDirectory = queueDirectory;
+    this.clock = clock;
+  }
+
+  @Override
+  public void dispatch(ImmutableMap<JobKey, RequestInfo> subtasks)
+      throws SubtaskDispatchException {
+    Timestamp currentTime = ProtoUtil.toProtoTimestamp(clock.instant());
+    ImmutableList.Builder<JobKey> dispatched = ImmutableList.builder();
+    for (Entry<JobKey, RequestInfo> subtask : subtasks.entrySet()) {
+      JobMetadata jobMetadata =
+          JobMetadata.newBuilder()
+              .setJobKey(subtask.getKey())
+              .setRequestReceivedAt(currentTime)
+              .setRequestUpdatedAt(currentTime)
+              .setNumAttempts(0)
+              .setJobStatus(RECEIVED)
+              .setServerJobId(UUID.randomUUID().toString())
+              .setRequestInfo(subtask.getValue())
+              .build();
+      try {
+        LocalDirectoryJobClient.enqueue(queueDirectory, jobMetadata);
+      } catch (IOException e) {
+        withdraw(dispatched.build(), e);
+        throw new SubtaskDispatchException(e);
+      }
+      dispatched.add(subtask.getKey());
+    }
+  }
+
+  private void withdraw(ImmutableList<JobKey> jobKeys, IOException dispatchException) {
+    for (JobKey jobKey : jobKeys) {
+      try {
+        LocalDirectoryJobClient.withdraw(queueDirectory, jobKey);
+      } catch (IOException e) {
+        dispatchException.addSuppressed(e);
+      }
+    }
+  }
+}
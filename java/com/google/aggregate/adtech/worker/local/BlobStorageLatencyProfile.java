@@ -0,0 +1,173 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.local;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.google.auto.value.AutoValue;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Describes the latency, bandwidth and errors simulated by {@link
+ * LatencyInjectingBlobStorageClient}.
+ *
+ * <p>Example profile of a cloud bucket read from a single VM:
+ *
+ * <pre>{@code
+ * {
+ *   "first_byte_latency_millis": 40,
+ *   "first_byte_jitter_millis": 20,
+ *   "per_stream_bytes_per_second": 100000000,
+ *   "aggregate_bytes_per_second": 1000000000,
+ *   "throttling_error_rate": 0.001,
+ *   "tail_latency_rate": 0.01,
+ *   "tail_latency_multiplier": 20
+ * }
+ * }</pre>
+ */
+@AutoValue
+@JsonDeserialize(builder = BlobStorageLatencyProfile.Builder.class)
+@JsonSerialize(as = BlobStorageLatencyProfile.class)
+public abstract class BlobStorageLatencyProfile {
+
+  public static Builder builder() {
+    return Builder.builder();
+  }
+
+  /**
+   * Reads a profile from a JSON file.
+   *
+   * @throws UncheckedIOException if the file can't be read or parsed.
+   */
+  public static BlobStorageLatencyProfile fromFile(Path profilePath) {
+    try {
+      return new ObjectMapper()
+          .readValue(Files.readAllBytes(profilePath), BlobStorageLatencyProfile.class);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read blob storage profile " + profilePath, e);
+    }
+  }
+
+  /** Latency added before every request returns, such as the first byte of a read. */
+  @JsonProperty("first_byte_latency_millis")
+  public abstract long firstByteLatencyMillis();
+
+  /** Upper bound of the uniformly distributed latency added to the first byte latency. */
+  @JsonProperty("first_byte_jitter_millis")
+  public abstract long firstByteJitterMillis();
+
+  /** Bandwidth of each read or upload, or 0 for no limit. */
+  @JsonProperty("per_stream_bytes_per_second")
+  public abstract long perStreamBytesPerSecond();
+
+  /** Bandwidth shared by all reads and uploads, or 0 for no limit. */
+  @JsonProperty("aggregate_bytes_per_second")
+  public abstract long aggregateBytesPerSecond();
+
+  /** Fraction of requests that fail as if they were throttled by the storage service. */
+  @JsonProperty("throttling_error_rate")
+  public abstract double throttlingErrorRate();
+
+  /** Fraction of requests whose latency is multiplied by the tail latency multiplier. */
+  @JsonProperty("tail_latency_rate")
+  public abstract double tailLatencyRate();
+
+  @JsonProperty("tail_latency_multiplier")
+  public abstract double tailLatencyMultiplier();
+
+  /** Seed of the simulated latencies and errors. */
+  @JsonProperty("seed")
+  public abstract long seed();
+
+  @AutoValue.Builder
+  @JsonIgnoreProperties(ignoreUnknown = true)
+  public abstract static class Builder {
+
+    @JsonCreator
+    public static Builder builder() {
+      return new AutoValue_BlobStorageLatencyProfile.Builder()
+          .setFirstByteLatencyMillis(0)
+          .setFirstByteJitterMillis(0)
+          .setPerStreamBytesPerSecond(0)
+          .setAggregateBytesPerSecond(0)
+          .setThrottlingErrorRate(0)
+          .setTailLatencyRate(0)
+          .setTailLatencyMultiplier(10)
+          .setSeed(0);
+    }
+
+    @JsonProperty("first_byte_latency_millis")
+    public abstract Builder setFirstByteLatencyMillis(long value);
+
+    @JsonProperty("first_byte_jitter_millis")
+    public abstract Builder setFirstByteJitterMillis(long value);
+
+    @JsonProperty("per_stream_bytes_per_second")
+    public abstract Builder setPerStreamBytesPerSecond(long value);
+
+    @JsonProperty("aggregate_bytes_per_second")
+    public abstract Builder setAggregateBytesPerSecond(long value);
+
+    @JsonProperty("throttling_error_rate")
+    public abstract Builder setThrottlingErrorRate(double value);
+
+    @JsonProperty("tail_latency_rate")
+    public abstract Builder setTailLatencyRate(double value);
+
+    @JsonProperty("tail_latency_multiplier")
+    public abstract Builder setTailLatencyMultiplier(double value);
+
+    @JsonProperty("seed")
+    public abstract Builder setSeed(long value);
+
+    abstract BlobStorageLatencyProfile autoBuild();
+
+    /**
+     * Builds the profile.
+     *
+     * @throws IllegalArgumentException if a value is negative or a rate is above 1.
+     */
+    public BlobStorageLatencyProfile build() {
+      BlobStorageLatencyProfile profile = autoBuild();
+      if (profile.firstByteLatencyMillis() < 0
+          || profile.firstByteJitterMillis() < 0
+          || profile.perStreamBytesPerSecond() < 0
+          || profile.aggregateBytesPerSecond() < 0
+          || profile.tailLatencyMultiplier() < 1) {
+        throw new IllegalArgumentException(
+            "Latencies and bandwidths must not be negative, and the tail latency multiplier must be"
+                + " at least 1.");
+      }
+      checkRate(profile.throttlingErrorRate(), "throttling_error_rate");
+      checkRate(profile.tailLatencyRate(), "tail_latency_rate");
+      return profile;
+    }
+
+    private static void checkRate(double rate, String name) {
+      if (rate < 0 || rate > 1) {
+        throw new IllegalArgumentException(name + " must be between 0 and 1.");
+      }
+    }
+  }
+}
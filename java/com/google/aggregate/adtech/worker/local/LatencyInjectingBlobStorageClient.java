@@ -0,0 +1,186 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.local;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.scp.operator.cpio.blobstorageclient.model.DataLocation;
+import com.google.scp.operator.cpio.blobstorageclient.testing.FSBlobStorageClient;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Random;
+
+/**
+ * BlobStorageClient over a local directory that behaves like a remote blob store, so that changes
+ * to read concurrency, prefetching or upload parallelism can be benchmarked repeatably on one
+ * machine.
+ *
+ * <p>Every request waits for the first byte latency of the {@link BlobStorageLatencyProfile},
+ * occasionally multiplied for tail latency outliers, and may fail with a simulated throttling
+ * error. Reads and uploads are limited to the per-stream bandwidth and share the aggregate
+ * bandwidth. The simulated latencies and errors are drawn from a seeded generator, so runs with
+ * the same request order see the same delays.
+ */
+public final class LatencyInjectingBlobStorageClient extends FSBlobStorageClient {
+
+  // Reads are throttled in chunks of at most this size so that concurrent streams interleave.
+  private static final int MAX_READ_CHUNK_BYTES = 64 * 1024;
+
+  private final FSBlobStorageClient delegate;
+  private final BlobStorageLatencyProfile profile;
+  private final Optional<RateLimiter> aggregateBandwidth;
+  // Guarded by itself.
+  private final Random random;
+
+  /**
+   * Creates a new instance of the {@code LatencyInjectingBlobStorageClient} class.
+   *
+   * @param fileSystem file system of the blobs.
+   * @param delegate client that reads and writes the blobs, e.g. a {@link LocalBlobStorageClient}.
+   * @param profile latency, bandwidth and errors to simulate.
+   */
+  public LatencyInjectingBlobStorageClient(
+      FileSystem fileSystem, FSBlobStorageClient delegate, BlobStorageLatencyProfile profile) {
+    super(fileSystem);
+    this.delegate = delegate;
+    this.profile = profile;
+    this.aggregateBandwidth = createBandwidthLimit(profile.aggregateBytesPerSecond());
+    this.random = new Random(profile.seed());
+  }
+
+  @Override
+  public ImmutableList<String> listBlobs(DataLocation location) throws BlobStorageClientException {
+    simulateRequest(location);
+    return delegate.listBlobs(location);
+  }
+
+  @Override
+  public long getBlobSize(DataLocation location) throws BlobStorageClientException {
+    simulateRequest(location);
+    return delegate.getBlobSize(location);
+  }
+
+  @Override
+  public InputStream getBlob(DataLocation location) throws BlobStorageClientException {
+    simulateRequest(location);
+    return new BandwidthLimitedInputStream(
+        delegate.getBlob(location), createBandwidthLimit(profile.perStreamBytesPerSecond()));
+  }
+
+  @Override
+  public void putBlob(DataLocation location, Path filePath) throws BlobStorageClientException {
+    simulateRequest(location);
+    try {
+      long size = Files.size(filePath);
+      Optional<RateLimiter> streamBandwidth =
+          createBandwidthLimit(profile.perStreamBytesPerSecond());
+      for (long uploaded = 0; uploaded < size; uploaded += MAX_READ_CHUNK_BYTES) {
+        acquireBandwidth(streamBandwidth, (int) Math.min(MAX_READ_CHUNK_BYTES, size - uploaded));
+      }
+    } catch (IOException e) {
+      throw new BlobStorageClientException("Failed to read the size of " + filePath);
+    }
+    delegate.putBlob(location, filePath);
+  }
+
+  /** Waits for the first byte latency of a request and fails it if it is throttled. */
+  private void simulateRequest(DataLocation location) throws BlobStorageClientException {
+    boolean throttled;
+    long latencyMillis;
+    synchronized (random) {
+      throttled = random.nextDouble() < profile.throttlingErrorRate();
+      long jitterMillis =
+          profile.firstByteJitterMillis() > 0
+              ? (long) (random.nextDouble() * profile.firstByteJitterMillis())
+              : 0;
+      boolean tailLatency = random.nextDouble() < profile.tailLatencyRate();
+      latencyMillis =
+          (long)
+              ((profile.firstByteLatencyMillis() + jitterMillis)
+                  * (tailLatency ? profile.tailLatencyMultiplier() : 1));
+    }
+
+    try {
+      Thread.sleep(latencyMillis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new BlobStorageClientException("Interrupted while simulating blob storage latency.");
+    }
+    if (throttled) {
+      throw new BlobStorageClientException(
+          "Simulated throttling error (SlowDown) for " + location.blobStoreDataLocation().key());
+    }
+  }
+
+  private void acquireBandwidth(Optional<RateLimiter> streamBandwidth, int bytes) {
+    if (bytes <= 0) {
+      return;
+    }
+    streamBandwidth.ifPresent(limiter -> limiter.acquire(bytes));
+    aggregateBandwidth.ifPresent(limiter -> limiter.acquire(bytes));
+  }
+
+  private static Optional<RateLimiter> createBandwidthLimit(long bytesPerSecond) {
+    return bytesPerSecond > 0 ? Optional.of(RateLimiter.create(bytesPerSecond)) : Optional.empty();
+  }
+
+  /** Limits the reads of a blob to the per-stream and aggregate bandwidth. */
+  private final class BandwidthLimitedInputStream extends FilterInputStream {
+    private final Optional<RateLimiter> streamBandwidth;
+
+    BandwidthLimitedInputStream(InputStream in, Optional<RateLimiter> streamBandwidth) {
+      super(in);
+      this.streamBandwidth = streamBandwidth;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int value = super.read();
+      if (value >= 0) {
+        acquire(1);
+      }
+      return value;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      int bytesRead = super.read(buffer, offset, Math.min(length, MAX_READ_CHUNK_BYTES));
+      acquire(bytesRead);
+      return bytesRead;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = super.skip(Math.min(n, MAX_READ_CHUNK_BYTES));
+      acquire((int) skipped);
+      return skipped;
+    }
+
+    private void acquire(int bytes) throws IOException {
+      acquireBandwidth(streamBandwidth, bytes);
+      if (Thread.currentThread().isInterrupted()) {
+        throw new InterruptedIOException("Interrupted while simulating blob storage bandwidth.");
+      }
+    }
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.local;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
+import com.google.inject.Singleton;
+import com.google.scp.operator.cpio.blobstorageclient.BlobStorageClient;
+import com.google.scp.operator.cpio.blobstorageclient.testing.FSBlobStorageClient;
+import java.nio.file.FileSystem;
+
+/** Guice module for {@code LatencyInjectingBlobStorageClient} */
+public final class LatencyInjectingBlobStorageClientModule extends AbstractModule {
+
+  private final BlobStorageLatencyProfile profile;
+  private final boolean listSingleBlob;
+
+  /**
+   * @param profile latency, bandwidth and errors to simulate.
+   * @param listSingleBlob whether blobs are listed like {@link LocalBlobStorageClient}, which lists
+   *     the blob at the location itself rather than the files under it.
+   */
+  public LatencyInjectingBlobStorageClientModule(
+      BlobStorageLatencyProfile profile, boolean listSingleBlob) {
+    this.profile = profile;
+    this.listSingleBlob = listSingleBlob;
+  }
+
+  @Provides
+  @Singleton
+  BlobStorageClient provideBlobStorageClient(FileSystem fileSystem) {
+    FSBlobStorageClient delegate =
+        listSingleBlob
+            ? new LocalBlobStorageClient(fileSystem)
+            : new FSBlobStorageClient(fileSystem);
+    return new LatencyInjectingBlobStorageClient(fileSystem, delegate, profile);
+  }
+}
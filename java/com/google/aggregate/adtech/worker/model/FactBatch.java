@@ -0,0 +1,206 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.model;
+
+import com.google.common.collect.ImmutableList;
+import com.google.errorprone.annotations.Var;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Columnar batch of aggregated facts, used between the aggregation engine and the encoded summary
+ * reports instead of one {@link AggregatedFact} per bucket.
+ *
+ * <p>Each row holds the 128-bit bucket as two longs, the metric, the unnoised metric and a bitmask
+ * of {@link DebugBucketAnnotation}s. The unnoised metric is the metric the row was added with, and
+ * the metric is replaced when the row is noised. Batches are not thread-safe.
+ */
+public final class FactBatch {
+
+  private static final int DEFAULT_CAPACITY = 1024;
+  private static final BigInteger UNSIGNED_LONG_MASK =
+      BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+
+  private long[] bucketHis;
+  private long[] bucketLos;
+  private long[] metrics;
+  private long[] unnoisedMetrics;
+  private byte[] annotations;
+  private int size;
+
+  /** Creates an empty batch. */
+  public FactBatch() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /** Creates an empty batch with room for {@code initialCapacity} rows. */
+  public FactBatch(int initialCapacity) {
+    int capacity = Math.max(initialCapacity, 1);
+    bucketHis = new long[capacity];
+    bucketLos = new long[capacity];
+    metrics = new long[capacity];
+    unnoisedMetrics = new long[capacity];
+    annotations = new byte[capacity];
+  }
+
+  /**
+   * Creates a batch holding the buckets, metrics and annotations of {@code facts}. The metrics of
+   * the facts are taken as unnoised metrics.
+   */
+  public static FactBatch fromAggregatedFacts(List<AggregatedFact> facts) {
+    FactBatch batch = new FactBatch(facts.size());
+    for (AggregatedFact fact : facts) {
+      List<?> factAnnotations = fact.getDebugAnnotations().orElse(List.of());
+      batch.add(
+          fact.getBucket(),
+          fact.getMetric(),
+          annotationMask(factAnnotations.toArray(new DebugBucketAnnotation[0])));
+    }
+    return batch;
+  }
+
+  /** Returns the bitmask of {@code annotations}, to be passed to {@link #add}. */
+  public static int annotationMask(DebugBucketAnnotation... annotations) {
+    @Var int mask = 0;
+    for (DebugBucketAnnotation annotation : annotations) {
+      mask |= 1 << annotation.ordinal();
+    }
+    return mask;
+  }
+
+  /** Returns whether {@code annotation} is set in the annotation bitmask {@code mask}. */
+  public static boolean hasAnnotation(int mask, DebugBucketAnnotation annotation) {
+    return (mask & (1 << annotation.ordinal())) != 0;
+  }
+
+  /**
+   * Appends a row for {@code bucket}.
+   *
+   * @throws IllegalArgumentException if the bucket is not in the range of 0 to 2^128-1.
+   */
+  public void add(BigInteger bucket, long metric, int annotationMask) {
+    if (bucket.signum() < 0 || bucket.bitLength() > 128) {
+      throw new IllegalArgumentException(
+          "Provided value must be in the range of 0 to 2^128-1 inclusive. Value was " + bucket);
+    }
+    add(
+        bucket.bitLength() > 64 ? bucket.shiftRight(64).longValue() : 0L,
+        bucket.longValue(),
+        metric,
+        annotationMask);
+  }
+
+  /** Appends a row for the bucket made of the upper and lower 64 bits {@code bucketHi:bucketLo}. */
+  public void add(long bucketHi, long bucketLo, long metric, int annotationMask) {
+    if (size == metrics.length) {
+      grow();
+    }
+    bucketHis[size] = bucketHi;
+    bucketLos[size] = bucketLo;
+    metrics[size] = metric;
+    unnoisedMetrics[size] = metric;
+    annotations[size] = (byte) annotationMask;
+    size++;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /** Returns the upper 64 bits of the bucket of {@code row}. */
+  public long getBucketHi(int row) {
+    return bucketHis[checkRow(row)];
+  }
+
+  /** Returns the lower 64 bits of the bucket of {@code row}. */
+  public long getBucketLo(int row) {
+    return bucketLos[checkRow(row)];
+  }
+
+  /** Returns the bucket of {@code row}. Allocates, so only meant for tests and error messages. */
+  public BigInteger getBucket(int row) {
+    checkRow(row);
+    return BigInteger.valueOf(bucketHis[row])
+        .and(UNSIGNED_LONG_MASK)
+        .shiftLeft(64)
+        .or(BigInteger.valueOf(bucketLos[row]).and(UNSIGNED_LONG_MASK));
+  }
+
+  public long getMetric(int row) {
+    return metrics[checkRow(row)];
+  }
+
+  public long getUnnoisedMetric(int row) {
+    return unnoisedMetrics[checkRow(row)];
+  }
+
+  /** Replaces the metric of {@code row}; the unnoised metric is kept. */
+  public void setNoisedMetric(int row, long noisedMetric) {
+    metrics[checkRow(row)] = noisedMetric;
+  }
+
+  /** Returns the annotation bitmask of {@code row}. */
+  public int getAnnotationMask(int row) {
+    return annotations[checkRow(row)];
+  }
+
+  /**
+   * Returns the rows as {@link AggregatedFact}s with their unnoised metrics, and with their debug
+   * annotations if any are set. Allocates one object per row, so only meant for tests.
+   */
+  public ImmutableList<AggregatedFact> toAggregatedFacts() {
+    ImmutableList.Builder<AggregatedFact> facts = ImmutableList.builderWithExpectedSize(size);
+    for (int row = 0; row < size; row++) {
+      if (annotations[row] == 0) {
+        facts.add(AggregatedFact.create(getBucket(row), metrics[row], unnoisedMetrics[row]));
+        continue;
+      }
+      List<DebugBucketAnnotation> rowAnnotations = new ArrayList<>();
+      for (DebugBucketAnnotation annotation : DebugBucketAnnotation.values()) {
+        if (hasAnnotation(annotations[row], annotation)) {
+          rowAnnotations.add(annotation);
+        }
+      }
+      facts.add(
+          AggregatedFact.create(
+              getBucket(row), metrics[row], unnoisedMetrics[row], rowAnnotations));
+    }
+    return facts.build();
+  }
+
+  private int checkRow(int row) {
+    if (row < 0 || row >= size) {
+      throw new IndexOutOfBoundsException("Row " + row + " out of " + size + " rows.");
+    }
+    return row;
+  }
+
+  private void grow() {
+    int capacity = metrics.length * 2;
+    bucketHis = Arrays.copyOf(bucketHis, capacity);
+    bucketLos = Arrays.copyOf(bucketLos, capacity);
+    metrics = Arrays.copyOf(metrics, capacity);
+    unnoisedMetrics = Arrays.copyOf(unnoisedMetrics, capacity);
+    annotations = Arrays.copyOf(annotations, capacity);
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.model;
+
+import com.google.auto.value.AutoValue;
+import java.util.Optional;
+
+/**
+ * Resources a job is predicted to need, computed before any report is decrypted.
+ *
+ * <p>Counts are derived from blob sizes and a sample of the input, so they are estimates rather
+ * than bounds.
+ */
+@AutoValue
+public abstract class JobCostEstimate {
+
+  public static Builder builder() {
+    return new AutoValue_JobCostEstimate.Builder();
+  }
+
+  /** Number of input report shards. */
+  public abstract long inputShardCount();
+
+  /** Total size of the input report shards. */
+  public abstract long inputBytes();
+
+  /** Predicted number of input reports. */
+  public abstract long estimatedReportCount();
+
+  /** Number of output domain shards, zero if the job has no output domain. */
+  public abstract long domainShardCount();
+
+  /** Total size of the output domain shards. */
+  public abstract long domainBytes();
+
+  /** Predicted number of distinct aggregation keys held in memory. */
+  public abstract long estimatedDistinctKeys();
+
+  /** Predicted peak heap usage when the job is processed normally. */
+  public abstract long estimatedPeakHeapBytes();
+
+  /**
+   * Predicted peak heap usage in the reduced memory execution mode, if the job processor has one
+   * that is not already in use.
+   */
+  public abstract Optional<Long> estimatedReducedMemoryPeakHeapBytes();
+
+  @AutoValue.Builder
+  public abstract static class Builder {
+
+    public abstract Builder setInputShardCount(long inputShardCount);
+
+    public abstract Builder setInputBytes(long inputBytes);
+
+    public abstract Builder setEstimatedReportCount(long estimatedReportCount);
+
+    public abstract Builder setDomainShardCount(long domainShardCount);
+
+    public abstract Builder setDomainBytes(long domainBytes);
+
+    public abstract Builder setEstimatedDistinctKeys(long estimatedDistinctKeys);
+
+    public abstract Builder setEstimatedPeakHeapBytes(long estimatedPeakHeapBytes);
+
+    public abstract Builder setEstimatedReducedMemoryPeakHeapBytes(
+        long estimatedReducedMemoryPeakHeapBytes);
+
+    public abstract JobCostEstimate build();
+  }
+}
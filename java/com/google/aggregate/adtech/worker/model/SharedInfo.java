@@ -27,10 +27,12 @@ import com.fasterxml.jackson.annotation.JsonView;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.google.auto.value.AutoValue;
+import com.google.auto.value.extension.memoized.Memoized;
 import com.google.common.collect.ImmutableSet;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Optional;
+import java.util.UUID;
 
 /**
  * Plaintext shared_info from the report. Contains information the ad-tech can view but must also be
@@ -112,6 +114,23 @@ public abstract class SharedInfo {
   @JsonProperty("report_id")
   public abstract Optional<String> reportId();
 
+  /**
+   * The report ID parsed as a UUID, or empty if it is missing or not a valid UUID. Parsed once per
+   * report, so that validation and deduplication don't parse the same ID again.
+   */
+  @Memoized
+  @JsonIgnore
+  public Optional<UUID> parsedReportId() {
+    if (reportId().isEmpty() || reportId().get().isEmpty()) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(UUID.fromString(reportId().get()));
+    } catch (IllegalArgumentException e) {
+      return Optional.empty();
+    }
+  }
+
   // String Debug mode value for writing json.
   @JsonInclude(JsonInclude.Include.NON_EMPTY)
   @JsonProperty("debug_mode")
@@ -0,0 +1,268 @@
+/*
+ * Copyright 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.model.serdes;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+import com.google.aggregate.adtech.worker.exceptions.ResultLogException;
+import com.google.aggregate.adtech.worker.model.AggregatedFact;
+import com.google.aggregate.adtech.worker.model.DebugBucketAnnotation;
+import com.google.aggregate.adtech.worker.model.FactBatch;
+import com.google.aggregate.adtech.worker.util.NumericConversions;
+import com.google.aggregate.protocol.avro.AvroDebugResultsSchemaSupplier;
+import com.google.aggregate.protocol.avro.AvroResultsSchemaSupplier;
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import javax.inject.Inject;
+import org.apache.avro.Schema;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.Encoder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericData.EnumSymbol;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+
+/***
+ * Encodes {@link AggregatedFact} to summary and debug AVRO file bytes in a single pass.
+ *
+ * <p>Produces the same bytes as {@link AvroResultsSerdes} and {@link AvroDebugResultsSerdes}, but
+ * converts each bucket to bytes only once and reuses one record per output, which halves the
+ * serialization work of debug runs.
+ *
+ * <p>{@link FactBatch}es are encoded straight from their columns, without creating a record, a
+ * bucket array or a boxed metric per fact.
+ */
+public final class AvroSummaryAndDebugResultsEncoder {
+  private final AvroResultsSchemaSupplier schemaSupplier;
+  private final AvroDebugResultsSchemaSupplier debugSchemaSupplier;
+
+  @Inject
+  AvroSummaryAndDebugResultsEncoder(
+      AvroResultsSchemaSupplier schemaSupplier,
+      AvroDebugResultsSchemaSupplier debugSchemaSupplier) {
+    this.schemaSupplier = schemaSupplier;
+    this.debugSchemaSupplier = debugSchemaSupplier;
+  }
+
+  /**
+   * Encodes all of {@code debugFacts} to debug AVRO bytes and {@code summaryFacts} to summary AVRO
+   * bytes.
+   *
+   * @param debugFacts facts to be written to the debug summary report.
+   * @param summaryFacts facts to be written to the summary report. Must be an order-preserving
+   *     subsequence of {@code debugFacts} holding the same instances, e.g. {@code debugFacts}
+   *     itself or the result of thresholding it.
+   * @throws IllegalArgumentException if {@code summaryFacts} is not a subsequence of {@code
+   *     debugFacts}.
+   * @throws ResultLogException if the facts can't be encoded, which fails the job with {@code
+   *     RESULT_WRITE_ERROR}.
+   */
+  public EncodedResults encode(List<AggregatedFact> debugFacts, List<AggregatedFact> summaryFacts) {
+    Schema schema = schemaSupplier.get();
+    Schema debugSchema = debugSchemaSupplier.get();
+    Map<DebugBucketAnnotation, EnumSymbol> annotationSymbols =
+        new EnumMap<>(DebugBucketAnnotation.class);
+    for (DebugBucketAnnotation annotation : DebugBucketAnnotation.values()) {
+      annotationSymbols.put(annotation, new EnumSymbol(debugSchema, annotation.toString()));
+    }
+
+    ByteArrayOutputStream summaryByteOutputStream = new ByteArrayOutputStream();
+    ByteArrayOutputStream debugByteOutputStream = new ByteArrayOutputStream();
+    // DataFileWriter#append serializes the record before returning, so a single record per output
+    // can be safely reused for every fact.
+    GenericRecord summaryRecord = new GenericData.Record(schema);
+    GenericRecord debugRecord = new GenericData.Record(debugSchema);
+    Iterator<AggregatedFact> summaryFactsIterator = summaryFacts.iterator();
+    AggregatedFact nextSummaryFact =
+        summaryFactsIterator.hasNext() ? summaryFactsIterator.next() : null;
+
+    try (DataFileWriter<GenericRecord> summaryWriter =
+            new DataFileWriter<>(new GenericDatumWriter<>(schema));
+        DataFileWriter<GenericRecord> debugWriter =
+            new DataFileWriter<>(new GenericDatumWriter<>(debugSchema))) {
+      summaryWriter.create(schema, summaryByteOutputStream);
+      debugWriter.create(debugSchema, debugByteOutputStream);
+
+      for (AggregatedFact aggregatedFact : debugFacts) {
+        byte[] bucketBytes = NumericConversions.toUnsignedByteArray(aggregatedFact.getBucket());
+
+        if (aggregatedFact == nextSummaryFact) {
+          summaryRecord.put("bucket", ByteBuffer.wrap(bucketBytes));
+          summaryRecord.put("metric", aggregatedFact.getMetric());
+          summaryWriter.append(summaryRecord);
+          nextSummaryFact = summaryFactsIterator.hasNext() ? summaryFactsIterator.next() : null;
+        }
+
+        long unnoisedMetric = aggregatedFact.getUnnoisedMetric().orElse(0L);
+        ImmutableList<EnumSymbol> annotations =
+            ((List<DebugBucketAnnotation>) aggregatedFact.getDebugAnnotations().orElse(List.of()))
+                .stream().map(annotationSymbols::get).collect(toImmutableList());
+        debugRecord.put("bucket", ByteBuffer.wrap(bucketBytes));
+        debugRecord.put("unnoised_metric", unnoisedMetric);
+        debugRecord.put("noise", aggregatedFact.getMetric() - unnoisedMetric);
+        debugRecord.put("annotations", annotations);
+        debugWriter.append(debugRecord);
+      }
+    } catch (IOException e) {
+      throw new ResultLogException(e);
+    }
+
+    if (nextSummaryFact != null) {
+      throw new IllegalArgumentException(
+          "Summary facts must be an order-preserving subsequence of the debug facts.");
+    }
+
+    return EncodedResults.create(
+        summaryByteOutputStream.toByteArray(), debugByteOutputStream.toByteArray());
+  }
+
+  /**
+   * Encodes all rows of {@code facts} to debug AVRO bytes and the rows in {@code summaryRows} to
+   * summary AVRO bytes.
+   */
+  public EncodedResults encode(FactBatch facts, BitSet summaryRows) {
+    return EncodedResults.create(encodeSummary(facts, summaryRows), encodeDebug(facts));
+  }
+
+  /** Encodes the rows of {@code facts} in {@code summaryRows} to summary AVRO bytes. */
+  public byte[] encodeSummary(FactBatch facts, BitSet summaryRows) {
+    return encodeRows(schemaSupplier.get(), facts, summaryRows);
+  }
+
+  /** Encodes all rows of {@code facts} to debug AVRO bytes. */
+  public byte[] encodeDebug(FactBatch facts) {
+    BitSet allRows = new BitSet(facts.size());
+    allRows.set(0, facts.size());
+    return encodeRows(debugSchemaSupplier.get(), facts, allRows);
+  }
+
+  private static byte[] encodeRows(Schema schema, FactBatch facts, BitSet rows) {
+    ByteArrayOutputStream byteOutputStream = new ByteArrayOutputStream();
+    FactRowDatumWriter rowWriter = new FactRowDatumWriter(schema);
+    try (DataFileWriter<FactBatch> writer = new DataFileWriter<>(rowWriter)) {
+      writer.create(schema, byteOutputStream);
+      for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+        rowWriter.row = row;
+        writer.append(facts);
+      }
+    } catch (IOException e) {
+      throw new ResultLogException(e);
+    }
+    return byteOutputStream.toByteArray();
+  }
+
+  /**
+   * Writes the current row of a {@link FactBatch} as a summary or debug record, field by field in
+   * schema order.
+   */
+  private static final class FactRowDatumWriter implements DatumWriter<FactBatch> {
+    private final ImmutableList<String> fieldNames;
+    private final Map<DebugBucketAnnotation, Integer> annotationSymbols =
+        new EnumMap<>(DebugBucketAnnotation.class);
+    // Holds the bucket of the current row as 16 big-endian bytes.
+    private final ByteBuffer bucketBuffer = ByteBuffer.allocate(16);
+    private int row;
+
+    FactRowDatumWriter(Schema schema) {
+      this.fieldNames =
+          schema.getFields().stream().map(Schema.Field::name).collect(toImmutableList());
+      Schema.Field annotationsField = schema.getField("annotations");
+      if (annotationsField != null) {
+        Schema annotationSchema = annotationsField.schema().getElementType();
+        for (DebugBucketAnnotation annotation : DebugBucketAnnotation.values()) {
+          annotationSymbols.put(annotation, annotationSchema.getEnumOrdinal(annotation.toString()));
+        }
+      }
+    }
+
+    @Override
+    public void setSchema(Schema schema) {}
+
+    @Override
+    public void write(FactBatch facts, Encoder out) throws IOException {
+      for (String fieldName : fieldNames) {
+        switch (fieldName) {
+          case "bucket":
+            writeBucket(facts.getBucketHi(row), facts.getBucketLo(row), out);
+            break;
+          case "metric":
+            out.writeLong(facts.getMetric(row));
+            break;
+          case "unnoised_metric":
+            out.writeLong(facts.getUnnoisedMetric(row));
+            break;
+          case "noise":
+            out.writeLong(facts.getMetric(row) - facts.getUnnoisedMetric(row));
+            break;
+          case "annotations":
+            writeAnnotations(facts.getAnnotationMask(row), out);
+            break;
+          default:
+            throw new IllegalStateException("Unsupported result field: " + fieldName);
+        }
+      }
+    }
+
+    /**
+     * Writes the bucket like {@link NumericConversions#toUnsignedByteArray}: big-endian, without
+     * leading zero bytes.
+     */
+    private void writeBucket(long bucketHi, long bucketLo, Encoder out) throws IOException {
+      bucketBuffer.putLong(0, bucketHi).putLong(8, bucketLo);
+      int length =
+          bucketHi != 0
+              ? 16 - Long.numberOfLeadingZeros(bucketHi) / 8
+              : 8 - Long.numberOfLeadingZeros(bucketLo) / 8;
+      out.writeBytes(bucketBuffer.array(), 16 - length, length);
+    }
+
+    /** Writes the annotations in declaration order, like the annotation lists of the facts. */
+    private void writeAnnotations(int annotationMask, Encoder out) throws IOException {
+      out.writeArrayStart();
+      out.setItemCount(Integer.bitCount(annotationMask));
+      for (DebugBucketAnnotation annotation : DebugBucketAnnotation.values()) {
+        if (FactBatch.hasAnnotation(annotationMask, annotation)) {
+          out.startItem();
+          out.writeEnum(annotationSymbols.get(annotation));
+        }
+      }
+      out.writeArrayEnd();
+    }
+  }
+
+  /** Summary and debug AVRO file bytes encoded from the same facts. */
+  @AutoValue
+  public abstract static class EncodedResults {
+    public abstract byte[] summaryBytes();
+
+    public abstract byte[] debugBytes();
+
+    public static EncodedResults create(byte[] summaryBytes, byte[] debugBytes) {
+      return new AutoValue_AvroSummaryAndDebugResultsEncoder_EncodedResults(
+          summaryBytes, debugBytes);
+    }
+  }
+}
@@ -24,6 +24,9 @@ import static java.lang.annotation.ElementType.METHOD;
 import static java.lang.annotation.ElementType.PARAMETER;
 import static java.lang.annotation.RetentionPolicy.RUNTIME;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
 import com.google.inject.BindingAnnotation;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
@@ -34,22 +37,28 @@ import com.google.aggregate.protos.shared.backend.JobKeyProto.JobKey;
 import com.google.aggregate.protos.shared.backend.JobMessageProto.JobMessage;
 import com.google.aggregate.protos.shared.backend.jobqueue.JobQueueProto.JobQueueItem;
 import com.google.aggregate.adtech.worker.shared.dao.jobqueue.common.JobQueue;
+import com.google.aggregate.adtech.worker.shared.dao.jobqueue.common.JobQueueLaneConfig;
+import com.google.aggregate.adtech.worker.shared.dao.jobqueue.common.LanedJobQueue;
 import com.google.scp.shared.proto.ProtoUtil;
 import java.lang.annotation.Retention;
 import java.lang.annotation.Target;
 import java.time.Duration;
 import java.time.Instant;
-import java.util.Map;
+import java.util.List;
 import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.core.exception.SdkException;
 import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
 import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityRequest;
 import software.amazon.awssdk.services.sqs.model.DeleteMessageRequest;
 import software.amazon.awssdk.services.sqs.model.Message;
 import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
 import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
 import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
 
 /** SQS-Backed implementation of the {@code JobQueue}. */
@@ -58,6 +67,15 @@ public final class SqsJobQueue implements JobQueue {
   // SQS allows for batch receipt of messages, the worker should only receive single messages so
   // this is set to 1.
   private static final int MAX_NUMBER_OF_MESSAGES_RECEIVED = 1;
+  // Maximum number of messages SQS accepts in a single SendMessageBatch request.
+  private static final int MAX_BATCH_SIZE = 10;
+  // Wait of the receive requests of a lane queue. Lanes are polled in turn, so a long poll of an
+  // empty lane would hold up the jobs of the other lanes.
+  private static final int LANE_MAX_WAIT_TIME_SECONDS = 1;
+  private static final ImmutableMap<String, MessageAttributeValue> MESSAGE_ATTRIBUTES =
+      ImmutableMap.of(
+          MESSAGE_BODY_TYPE,
+          MessageAttributeValue.builder().dataType("String").stringValue(JSON_BODY_TYPE).build());
 
   private static final Logger logger = LoggerFactory.getLogger(SqsJobQueue.class);
   private static final JsonFormat.Printer JSON_PRINTER = JsonFormat.printer();
@@ -85,27 +103,28 @@ public final class SqsJobQueue implements JobQueue {
     this.visibilityTimeoutSeconds = visibilityTimeoutSeconds;
   }
 
+  /**
+   * Creates a {@link LanedJobQueue} whose normal lane is the queue of this instance and whose other
+   * lanes are the configured SQS queues. Every lane waits at most {@value
+   * #LANE_MAX_WAIT_TIME_SECONDS} second for a job, instead of the wait of this instance.
+   */
+  public LanedJobQueue createLaned(JobQueueLaneConfig laneConfig) {
+    return LanedJobQueue.create(forQueueUrl(queueUrl.get()), laneConfig, this::forQueueUrl);
+  }
+
+  private SqsJobQueue forQueueUrl(String laneQueueUrl) {
+    return new SqsJobQueue(
+        sqsClient, () -> laneQueueUrl, LANE_MAX_WAIT_TIME_SECONDS, visibilityTimeoutSeconds);
+  }
+
   @Override
   public void sendJob(JobKey jobKey, String serverJobId) throws JobQueueException {
     try {
-      JobMessage jobMessage =
-          JobMessage.newBuilder()
-              .setJobRequestId(jobKey.getJobRequestId())
-              .setServerJobId(serverJobId)
-              .build();
-
-      String messageBody = JSON_PRINTER.print(jobMessage);
       SendMessageRequest sendMessageRequest =
           SendMessageRequest.builder()
               .queueUrl(queueUrl.get())
-              .messageBody(messageBody)
-              .messageAttributes(
-                  Map.of(
-                      MESSAGE_BODY_TYPE,
-                      MessageAttributeValue.builder()
-                          .dataType("String")
-                          .stringValue(JSON_BODY_TYPE)
-                          .build()))
+              .messageBody(getMessageBody(jobKey, serverJobId))
+              .messageAttributes(MESSAGE_ATTRIBUTES)
               .build();
 
       sqsClient.sendMessage(sendMessageRequest);
@@ -115,6 +134,63 @@ public final class SqsJobQueue implements JobQueue {
     }
   }
 
+  /** Sends the jobs with SendMessageBatch requests of up to {@value MAX_BATCH_SIZE} messages. */
+  @Override
+  public ImmutableMap<JobKey, JobQueueException> sendJobs(
+      ImmutableMap<JobKey, String> serverJobIds) {
+    ImmutableMap.Builder<JobKey, JobQueueException> failures = ImmutableMap.builder();
+    for (List<JobKey> batch : Iterables.partition(serverJobIds.keySet(), MAX_BATCH_SIZE)) {
+      // Entries are identified by their index in the batch.
+      ImmutableList.Builder<SendMessageBatchRequestEntry> entries = ImmutableList.builder();
+      for (int i = 0; i < batch.size(); i++) {
+        JobKey jobKey = batch.get(i);
+        try {
+          entries.add(
+              SendMessageBatchRequestEntry.builder()
+                  .id(String.valueOf(i))
+                  .messageBody(getMessageBody(jobKey, serverJobIds.get(jobKey)))
+                  .messageAttributes(MESSAGE_ATTRIBUTES)
+                  .build());
+        } catch (InvalidProtocolBufferException e) {
+          failures.put(jobKey, new JobQueueException(e));
+        }
+      }
+      ImmutableList<SendMessageBatchRequestEntry> batchEntries = entries.build();
+      if (batchEntries.isEmpty()) {
+        continue;
+      }
+
+      try {
+        SendMessageBatchResponse response =
+            sqsClient.sendMessageBatch(
+                SendMessageBatchRequest.builder()
+                    .queueUrl(queueUrl.get())
+                    .entries(batchEntries)
+                    .build());
+        response
+            .successful()
+            .forEach(
+                entry ->
+                    logger.info(
+                        "Placed job on queue: "
+                            + batch.get(Integer.parseInt(entry.id())).getJobRequestId()));
+        for (BatchResultErrorEntry entry : response.failed()) {
+          failures.put(
+              batch.get(Integer.parseInt(entry.id())),
+              new JobQueueException(
+                  String.format(
+                      "Failed to place job on queue with code '%s': %s",
+                      entry.code(), entry.message())));
+        }
+      } catch (SdkException e) {
+        for (SendMessageBatchRequestEntry entry : batchEntries) {
+          failures.put(batch.get(Integer.parseInt(entry.id())), new JobQueueException(e));
+        }
+      }
+    }
+    return failures.build();
+  }
+
   @Override
   public Optional<JobQueueItem> receiveJob() throws JobQueueException {
     ReceiveMessageRequest receiveMessageRequest =
@@ -183,6 +259,15 @@ public final class SqsJobQueue implements JobQueue {
     }
   }
 
+  private static String getMessageBody(JobKey jobKey, String serverJobId)
+      throws InvalidProtocolBufferException {
+    return JSON_PRINTER.print(
+        JobMessage.newBuilder()
+            .setJobRequestId(jobKey.getJobRequestId())
+            .setServerJobId(serverJobId)
+            .build());
+  }
+
   /**
    * Builds the JobQueueItem from the message received from the SQS Job Queue. The BodyType message
    * attribute is checked for backwards compatibility where older versions only had the job request
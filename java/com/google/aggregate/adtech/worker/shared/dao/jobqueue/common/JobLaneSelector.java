@@ -0,0 +1,81 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.shared.dao.jobqueue.common;
+
+import com.google.aggregate.protos.shared.backend.RequestInfoProto.RequestInfo;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Selects the {@link JobQueueLane} of a job when it is created.
+ *
+ * <p>The lane is set explicitly by the {@value #JOB_PARAM_PRIORITY_LANE} job parameter. Otherwise
+ * it is chosen from the input report count declared in the {@value #JOB_PARAM_INPUT_REPORT_COUNT}
+ * job parameter: small jobs go to the high lane and large ones to the low lane. Jobs without a
+ * valid lane or count go to the normal lane.
+ */
+public final class JobLaneSelector {
+
+  /** Job parameter setting the lane of a job, e.g. "low" for a backfill. */
+  public static final String JOB_PARAM_PRIORITY_LANE = "priority_lane";
+
+  /** Job parameter declaring the number of input reports, as read by the worker. */
+  public static final String JOB_PARAM_INPUT_REPORT_COUNT = "input_report_count";
+
+  private final long highLaneMaxReports;
+  private final long lowLaneMinReports;
+
+  /**
+   * @param highLaneMaxReports largest declared report count of a job in the high lane.
+   * @param lowLaneMinReports smallest declared report count of a job in the low lane.
+   */
+  public JobLaneSelector(long highLaneMaxReports, long lowLaneMinReports) {
+    if (highLaneMaxReports >= lowLaneMinReports) {
+      throw new IllegalArgumentException(
+          "The high lane report limit must be smaller than the low lane report limit.");
+    }
+    this.highLaneMaxReports = highLaneMaxReports;
+    this.lowLaneMinReports = lowLaneMinReports;
+  }
+
+  /** Returns the lane of the job requested by {@code requestInfo}. */
+  public JobQueueLane selectLane(RequestInfo requestInfo) {
+    Map<String, String> jobParameters = requestInfo.getJobParametersMap();
+    if (jobParameters.containsKey(JOB_PARAM_PRIORITY_LANE)) {
+      try {
+        return JobQueueLane.valueOf(
+            jobParameters.get(JOB_PARAM_PRIORITY_LANE).trim().toUpperCase(Locale.ROOT));
+      } catch (IllegalArgumentException e) {
+        // Unknown lanes are ignored in favor of the declared size.
+      }
+    }
+    if (jobParameters.containsKey(JOB_PARAM_INPUT_REPORT_COUNT)) {
+      try {
+        long reportCount = Long.parseLong(jobParameters.get(JOB_PARAM_INPUT_REPORT_COUNT).trim());
+        if (reportCount <= highLaneMaxReports) {
+          return JobQueueLane.HIGH;
+        }
+        if (reportCount >= lowLaneMinReports) {
+          return JobQueueLane.LOW;
+        }
+      } catch (NumberFormatException e) {
+        // Invalid counts are rejected by the worker; the job is queued in the normal lane.
+      }
+    }
+    return JobQueueLane.NORMAL;
+  }
+}
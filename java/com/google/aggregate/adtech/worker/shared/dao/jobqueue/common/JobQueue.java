@@ -21,8 +21,10 @@ import static java.lang.annotation.ElementType.METHOD;
 import static java.lang.annotation.ElementType.PARAMETER;
 import static java.lang.annotation.RetentionPolicy.RUNTIME;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.inject.BindingAnnotation;
 import com.google.aggregate.protos.shared.backend.JobKeyProto.JobKey;
+import com.google.aggregate.protos.shared.backend.RequestInfoProto.RequestInfo;
 import com.google.aggregate.protos.shared.backend.jobqueue.JobQueueProto.JobQueueItem;
 import java.lang.annotation.Retention;
 import java.lang.annotation.Target;
@@ -39,6 +41,38 @@ public interface JobQueue {
    */
   void sendJob(JobKey jobKey, String serverJobId) throws JobQueueException;
 
+  /**
+   * Places a batch of items on the queue. Every item is attempted even if others fail.
+   *
+   * <p>Implementations should send the batch in as few requests as the queue allows; by default the
+   * items are sent one at a time.
+   *
+   * @param serverJobIds the server job IDs of the jobs to be placed on the queue, by job key
+   * @return the failure of each job that could not be placed on the queue, by job key. Empty if
+   *     all jobs were placed on the queue.
+   */
+  default ImmutableMap<JobKey, JobQueueException> sendJobs(
+      ImmutableMap<JobKey, String> serverJobIds) {
+    ImmutableMap.Builder<JobKey, JobQueueException> failures = ImmutableMap.builder();
+    serverJobIds.forEach(
+        (jobKey, serverJobId) -> {
+          try {
+            sendJob(jobKey, serverJobId);
+          } catch (JobQueueException e) {
+            failures.put(jobKey, e);
+          }
+        });
+    return failures.build();
+  }
+
+  /**
+   * Returns the queue that the job requested by {@code requestInfo} should be placed on. Queues
+   * with priority lanes return the queue of the job's lane; other queues return themselves.
+   */
+  default JobQueue selectLane(RequestInfo requestInfo) {
+    return this;
+  }
+
   /**
    * Blocking call to receive a message.
    *
@@ -0,0 +1,27 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.shared.dao.jobqueue.common;
+
+/** Priority lanes of a {@link LanedJobQueue}, from the most to the least latency-sensitive. */
+public enum JobQueueLane {
+  /** Small jobs, such as hourly summary reports, that should start as soon as possible. */
+  HIGH,
+  /** Jobs without a declared size or lane. */
+  NORMAL,
+  /** Large jobs, such as backfills, that may wait behind the other lanes. */
+  LOW
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.shared.dao.jobqueue.common;
+
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Configuration of the priority lanes of a {@link LanedJobQueue}.
+ *
+ * <p>The normal lane is the job queue of the environment. The other lanes are enabled by setting
+ * the queue of the lane in the {@value #HIGH_LANE_QUEUE_PARAMETER} and {@value
+ * #LOW_LANE_QUEUE_PARAMETER} parameters: an SQS queue URL on AWS, and on GCP the Pub/Sub topic ID
+ * for the frontend, which only sends jobs, and the subscription ID for the worker, which only
+ * receives them.
+ */
+@AutoValue
+public abstract class JobQueueLaneConfig {
+
+  /** Parameter holding the queue of the high lane. */
+  public static final String HIGH_LANE_QUEUE_PARAMETER = "JOB_QUEUE_HIGH_LANE";
+
+  /** Parameter holding the queue of the low lane. */
+  public static final String LOW_LANE_QUEUE_PARAMETER = "JOB_QUEUE_LOW_LANE";
+
+  /** Parameter holding the largest declared report count of a job in the high lane. */
+  public static final String HIGH_LANE_MAX_REPORTS_PARAMETER = "JOB_QUEUE_HIGH_LANE_MAX_REPORTS";
+
+  /** Parameter holding the smallest declared report count of a job in the low lane. */
+  public static final String LOW_LANE_MIN_REPORTS_PARAMETER = "JOB_QUEUE_LOW_LANE_MIN_REPORTS";
+
+  private static final ImmutableMap<JobQueueLane, Integer> DEFAULT_WEIGHTS =
+      ImmutableMap.of(JobQueueLane.HIGH, 6, JobQueueLane.NORMAL, 3, JobQueueLane.LOW, 1);
+  private static final long DEFAULT_HIGH_LANE_MAX_REPORTS = 1_000_000;
+  private static final long DEFAULT_LOW_LANE_MIN_REPORTS = 100_000_000;
+
+  /** Reads a parameter, returning empty if it is not set. */
+  public interface ParameterReader<E extends Exception> {
+    Optional<String> read(String parameter) throws E;
+  }
+
+  public static Builder builder() {
+    return new AutoValue_JobQueueLaneConfig.Builder()
+        .setHighLaneMaxReports(DEFAULT_HIGH_LANE_MAX_REPORTS)
+        .setLowLaneMinReports(DEFAULT_LOW_LANE_MIN_REPORTS);
+  }
+
+  /**
+   * Reads the lane configuration from the parameters of the environment.
+   *
+   * @return the configuration, or empty if no lane other than the normal one has a queue.
+   */
+  public static <E extends Exception> Optional<JobQueueLaneConfig> fromParameters(
+      ParameterReader<E> parameters) throws E {
+    Builder builder = builder();
+    Optional<String> highLaneQueue = parameters.read(HIGH_LANE_QUEUE_PARAMETER);
+    Optional<String> lowLaneQueue = parameters.read(LOW_LANE_QUEUE_PARAMETER);
+    highLaneQueue
+        .filter(queue -> !queue.isBlank())
+        .ifPresent(queue -> builder.laneQueuesBuilder().put(JobQueueLane.HIGH, queue));
+    lowLaneQueue
+        .filter(queue -> !queue.isBlank())
+        .ifPresent(queue -> builder.laneQueuesBuilder().put(JobQueueLane.LOW, queue));
+    Optional<String> highLaneMaxReports = parameters.read(HIGH_LANE_MAX_REPORTS_PARAMETER);
+    if (highLaneMaxReports.isPresent()) {
+      builder.setHighLaneMaxReports(Long.parseLong(highLaneMaxReports.get().trim()));
+    }
+    Optional<String> lowLaneMinReports = parameters.read(LOW_LANE_MIN_REPORTS_PARAMETER);
+    if (lowLaneMinReports.isPresent()) {
+      builder.setLowLaneMinReports(Long.parseLong(lowLaneMinReports.get().trim()));
+    }
+    JobQueueLaneConfig config = builder.build();
+    return config.laneQueues().isEmpty() ? Optional.empty() : Optional.of(config);
+  }
+
+  /** Queue of each lane other than the normal lane. */
+  public abstract ImmutableMap<JobQueueLane, String> laneQueues();
+
+  /** Largest declared report count of a job in the high lane. */
+  public abstract long highLaneMaxReports();
+
+  /** Smallest declared report count of a job in the low lane. */
+  public abstract long lowLaneMinReports();
+
+  /** Returns the selector placing new jobs in the lanes. */
+  public JobLaneSelector laneSelector() {
+    return new JobLaneSelector(highLaneMaxReports(), lowLaneMinReports());
+  }
+
+  /** Returns the weight of the normal lane and of each lane that has a queue. */
+  public ImmutableMap<JobQueueLane, Integer> weights() {
+    return DEFAULT_WEIGHTS.entrySet().stream()
+        .filter(
+            weight ->
+                weight.getKey() == JobQueueLane.NORMAL || laneQueues().containsKey(weight.getKey()))
+        .collect(toImmutableMap(Map.Entry::getKey, Map.Entry::getValue));
+  }
+
+  @AutoValue.Builder
+  public abstract static class Builder {
+
+    public abstract ImmutableMap.Builder<JobQueueLane, String> laneQueuesBuilder();
+
+    public abstract Builder setHighLaneMaxReports(long highLaneMaxReports);
+
+    public abstract Builder setLowLaneMinReports(long lowLaneMinReports);
+
+    public abstract JobQueueLaneConfig build();
+  }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.shared.dao.jobqueue.common;
+
+import com.google.aggregate.protos.shared.backend.JobKeyProto.JobKey;
+import com.google.aggregate.protos.shared.backend.RequestInfoProto.RequestInfo;
+import com.google.aggregate.protos.shared.backend.jobqueue.JobQueueProto.JobQueueItem;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * {@link JobQueue} made of one queue per {@link JobQueueLane}, so that small jobs are not stuck
+ * behind large ones.
+ *
+ * <p>Jobs are placed on the queue of the lane chosen by a {@link JobLaneSelector} through {@link
+ * #selectLane}, and on the normal lane when sent directly. Jobs are received with smooth weighted
+ * round-robin over the lanes: while every lane has jobs, each lane gets a share of the received
+ * jobs proportional to its weight, and the share of an empty lane goes to the others. Since lanes
+ * are polled in turn, the lane queues should use short receive wait times.
+ *
+ * <p>The lane of a received job is prefixed to its receipt info, so that acknowledgements and
+ * processing time changes are routed back to the lane queue.
+ */
+public final class LanedJobQueue implements JobQueue {
+
+  private static final String RECEIPT_SEPARATOR = "|";
+
+  private final ImmutableMap<JobQueueLane, JobQueue> lanes;
+  private final ImmutableMap<JobQueueLane, Integer> weights;
+  private final JobLaneSelector laneSelector;
+  private final int totalWeight;
+  // Smooth weighted round-robin credit of each lane, guarded by this.
+  private final Map<JobQueueLane, Long> credits = new EnumMap<>(JobQueueLane.class);
+
+  /**
+   * Creates a new instance of the {@code LanedJobQueue} class.
+   *
+   * @param lanes queue of each lane. Must include the normal lane, which takes the jobs of lanes
+   *     that are not configured.
+   * @param weights positive weight of each lane in {@code lanes}.
+   * @param laneSelector selects the lane of new jobs.
+   */
+  public LanedJobQueue(
+      ImmutableMap<JobQueueLane, JobQueue> lanes,
+      ImmutableMap<JobQueueLane, Integer> weights,
+      JobLaneSelector laneSelector) {
+    if (!lanes.containsKey(JobQueueLane.NORMAL)) {
+      throw new IllegalArgumentException("The normal lane must have a queue.");
+    }
+    if (!weights.keySet().equals(lanes.keySet())
+        || weights.values().stream().anyMatch(weight -> weight <= 0)) {
+      throw new IllegalArgumentException("Every lane must have a positive weight.");
+    }
+    this.lanes = lanes;
+    this.weights = weights;
+    this.laneSelector = laneSelector;
+    this.totalWeight = weights.values().stream().mapToInt(Integer::intValue).sum();
+    lanes.keySet().forEach(lane -> credits.put(lane, 0L));
+  }
+
+  /**
+   * Creates a laned queue from the configured lanes.
+   *
+   * @param normalQueue queue of the normal lane.
+   * @param config queues, weights and selector of the lanes.
+   * @param laneQueueFactory creates the queue of a lane from its configured name. Lane queues
+   *     should return promptly when empty, see {@link LanedJobQueue}.
+   */
+  public static LanedJobQueue create(
+      JobQueue normalQueue,
+      JobQueueLaneConfig config,
+      Function<String, JobQueue> laneQueueFactory) {
+    ImmutableMap.Builder<JobQueueLane, JobQueue> lanes = ImmutableMap.builder();
+    lanes.put(JobQueueLane.NORMAL, normalQueue);
+    config.laneQueues().forEach((lane, queue) -> lanes.put(lane, laneQueueFactory.apply(queue)));
+    return new LanedJobQueue(lanes.build(), config.weights(), config.laneSelector());
+  }
+
+  @Override
+  public void sendJob(JobKey jobKey, String serverJobId) throws JobQueueException {
+    lanes.get(JobQueueLane.NORMAL).sendJob(jobKey, serverJobId);
+  }
+
+  @Override
+  public ImmutableMap<JobKey, JobQueueException> sendJobs(
+      ImmutableMap<JobKey, String> serverJobIds) {
+    return lanes.get(JobQueueLane.NORMAL).sendJobs(serverJobIds);
+  }
+
+  @Override
+  public JobQueue selectLane(RequestInfo requestInfo) {
+    return lanes.getOrDefault(
+        laneSelector.selectLane(requestInfo), lanes.get(JobQueueLane.NORMAL));
+  }
+
+  @Override
+  public Optional<JobQueueItem> receiveJob() throws JobQueueException {
+    for (JobQueueLane lane : nextLaneOrder()) {
+      Optional<JobQueueItem> item = lanes.get(lane).receiveJob();
+      if (item.isPresent()) {
+        chargeLane(lane);
+        return Optional.of(
+            item.get().toBuilder()
+                .setReceiptInfo(lane.name() + RECEIPT_SEPARATOR + item.get().getReceiptInfo())
+                .build());
+      }
+      resetLane(lane);
+    }
+    return Optional.empty();
+  }
+
+  @Override
+  public void acknowledgeJobCompletion(JobQueueItem jobQueueItem) throws JobQueueException {
+    lanes.get(getLane(jobQueueItem)).acknowledgeJobCompletion(stripLane(jobQueueItem));
+  }
+
+  @Override
+  public void modifyJobProcessingTime(JobQueueItem jobQueueItem, Duration processingTime)
+      throws JobQueueException {
+    lanes
+        .get(getLane(jobQueueItem))
+        .modifyJobProcessingTime(stripLane(jobQueueItem), processingTime);
+  }
+
+  /** Credits every lane with its weight and returns the lanes by decreasing credit. */
+  private synchronized ImmutableList<JobQueueLane> nextLaneOrder() {
+    weights.forEach((lane, weight) -> credits.merge(lane, (long) weight, Long::sum));
+    return credits.keySet().stream()
+        .sorted(
+            Comparator.comparing((JobQueueLane lane) -> credits.get(lane))
+                .reversed()
+                .thenComparing(Comparator.naturalOrder()))
+        .collect(ImmutableList.toImmutableList());
+  }
+
+  private synchronized void chargeLane(JobQueueLane lane) {
+    credits.merge(lane, (long) -totalWeight, Long::sum);
+  }
+
+  /** Empty lanes don't accumulate credit, so that they can't take over once jobs arrive. */
+  private synchronized void resetLane(JobQueueLane lane) {
+    credits.put(lane, Math.min(credits.get(lane), 0L));
+  }
+
+  private JobQueueLane getLane(JobQueueItem jobQueueItem) throws JobQueueException {
+    String receiptInfo = jobQueueItem.getReceiptInfo();
+    int separator = receiptInfo.indexOf(RECEIPT_SEPARATOR);
+    try {
+      JobQueueLane lane = JobQueueLane.valueOf(receiptInfo.substring(0, Math.max(separator, 0)));
+      if (lanes.containsKey(lane)) {
+        return lane;
+      }
+    } catch (IllegalArgumentException e) {
+      // Reported below.
+    }
+    throw new JobQueueException(
+        "Job queue item has no lane in its receipt info: " + jobQueueItem.getJobKeyString());
+  }
+
+  private static JobQueueItem stripLane(JobQueueItem jobQueueItem) {
+    String receiptInfo = jobQueueItem.getReceiptInfo();
+    return jobQueueItem.toBuilder()
+        .setReceiptInfo(receiptInfo.substring(receiptInfo.indexOf(RECEIPT_SEPARATOR) + 1))
+        .build();
+  }
+}
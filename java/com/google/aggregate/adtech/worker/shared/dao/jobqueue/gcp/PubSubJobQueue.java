@@ -27,6 +27,7 @@ import com.google.api.core.ApiFuture;
 import com.google.api.gax.rpc.ApiException;
 import com.google.cloud.pubsub.v1.Publisher;
 import com.google.cloud.pubsub.v1.stub.SubscriberStub;
+import com.google.common.collect.ImmutableMap;
 import com.google.inject.BindingAnnotation;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
@@ -50,6 +51,8 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.Target;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
 import org.slf4j.Logger;
@@ -73,6 +76,9 @@ public final class PubSubJobQueue implements JobQueue {
   // this time window it will be visible on the queue again for another worker to pick up. See GCP
   // docs for more detail.
   private final int messageLeaseSeconds;
+  // Whether pulls return at once when the subscription has no message, as for the lanes of a
+  // laned queue, which are polled in turn.
+  private final boolean returnImmediately;
 
   /** Creates a new instance of the {@code PubSubJobQueue} class. */
   @Inject
@@ -81,31 +87,33 @@ public final class PubSubJobQueue implements JobQueue {
       SubscriberStub subscriber,
       @JobQueuePubSubSubscriptionName Provider<String> subscriptionName,
       @JobQueueMessageLeaseSeconds int messageLeaseSeconds) {
+    this(
+        publisher,
+        subscriber,
+        subscriptionName,
+        messageLeaseSeconds,
+        /* returnImmediately= */ false);
+  }
+
+  PubSubJobQueue(
+      Publisher publisher,
+      SubscriberStub subscriber,
+      Provider<String> subscriptionName,
+      int messageLeaseSeconds,
+      boolean returnImmediately) {
     this.publisher = publisher;
     this.subscriber = subscriber;
     this.subscriptionName = subscriptionName;
     this.messageLeaseSeconds = messageLeaseSeconds;
+    this.returnImmediately = returnImmediately;
   }
 
   @Override
   public void sendJob(JobKey jobKey, String serverJobId) throws JobQueueException {
     Optional<String> messageId;
-    ByteString data;
 
     try {
-      JobMessage jobMessage =
-          JobMessage.newBuilder()
-              .setJobRequestId(jobKey.getJobRequestId())
-              .setServerJobId(serverJobId)
-              .build();
-      data = ByteString.copyFromUtf8(JSON_PRINTER.print(jobMessage));
-      PubsubMessage pubsubMessage =
-          PubsubMessage.newBuilder()
-              .setData(data)
-              .putAttributes(MESSAGE_BODY_TYPE, JSON_BODY_TYPE)
-              .build();
-
-      ApiFuture<String> publisherFuture = publisher.publish(pubsubMessage);
+      ApiFuture<String> publisherFuture = publisher.publish(buildMessage(jobKey, serverJobId));
 
       messageId = Optional.of(publisherFuture.get());
     } catch (ApiException
@@ -115,6 +123,54 @@ public final class PubSubJobQueue implements JobQueue {
       throw new JobQueueException(e);
     }
 
+    logPublished(jobKey, messageId);
+  }
+
+  /**
+   * Publishes all the jobs before waiting for any of them, so that the publisher can batch the
+   * messages into as few requests as its batching settings allow.
+   */
+  @Override
+  public ImmutableMap<JobKey, JobQueueException> sendJobs(
+      ImmutableMap<JobKey, String> serverJobIds) {
+    ImmutableMap.Builder<JobKey, JobQueueException> failures = ImmutableMap.builder();
+    Map<JobKey, ApiFuture<String>> publisherFutures = new LinkedHashMap<>();
+    serverJobIds.forEach(
+        (jobKey, serverJobId) -> {
+          try {
+            publisherFutures.put(jobKey, publisher.publish(buildMessage(jobKey, serverJobId)));
+          } catch (ApiException | InvalidProtocolBufferException e) {
+            failures.put(jobKey, new JobQueueException(e));
+          }
+        });
+
+    for (Map.Entry<JobKey, ApiFuture<String>> publisherFuture : publisherFutures.entrySet()) {
+      try {
+        logPublished(publisherFuture.getKey(), Optional.of(publisherFuture.getValue().get()));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        failures.put(publisherFuture.getKey(), new JobQueueException(e));
+      } catch (ApiException | ExecutionException e) {
+        failures.put(publisherFuture.getKey(), new JobQueueException(e));
+      }
+    }
+    return failures.build();
+  }
+
+  private static PubsubMessage buildMessage(JobKey jobKey, String serverJobId)
+      throws InvalidProtocolBufferException {
+    JobMessage jobMessage =
+        JobMessage.newBuilder()
+            .setJobRequestId(jobKey.getJobRequestId())
+            .setServerJobId(serverJobId)
+            .build();
+    return PubsubMessage.newBuilder()
+        .setData(ByteString.copyFromUtf8(JSON_PRINTER.print(jobMessage)))
+        .putAttributes(MESSAGE_BODY_TYPE, JSON_BODY_TYPE)
+        .build();
+  }
+
+  private static void logPublished(JobKey jobKey, Optional<String> messageId) {
     logger.info(
         String.format(
             "Job '%s' was successfully added to job queue with message ID '%s'.",
@@ -124,18 +180,22 @@ public final class PubSubJobQueue implements JobQueue {
   /**
    * Synchronously pulls a job from Pub/Sub job queue.
    *
-   * <p>Pulls a job from job queue, and sets the lease time-out of the job.
+   * <p>Pulls a job from job queue, and sets the lease time-out of the job. Unless the queue is a
+   * lane of a laned queue, the pull is held on the server side until a message is available or the
+   * pull times out, so a job is received as soon as it is published.
    *
    * @return an {@code Optional} of a {@code JobQueueItem} that will be empty if there are no jobs
    *     on the queue.
    */
   @Override
+  @SuppressWarnings("deprecation") // Lanes must not hold the pull until a message arrives.
   public Optional<JobQueueItem> receiveJob() throws JobQueueException {
     try {
       PullRequest pullRequest =
           PullRequest.newBuilder()
               .setMaxMessages(MAX_NUMBER_OF_MESSAGES_RECEIVED)
               .setSubscription(subscriptionName.get())
+              .setReturnImmediately(returnImmediately)
               .build();
 
       PullResponse pullResponse = subscriber.pullCallable().call(pullRequest);
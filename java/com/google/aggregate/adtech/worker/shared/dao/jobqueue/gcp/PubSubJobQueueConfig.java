@@ -16,6 +16,7 @@
 
 package com.google.aggregate.adtech.worker.shared.dao.jobqueue.gcp;
 
+import com.google.aggregate.adtech.worker.shared.dao.jobqueue.common.JobQueueLaneConfig;
 import com.google.auto.value.AutoValue;
 import java.util.Optional;
 
@@ -46,6 +47,12 @@ public abstract class PubSubJobQueueConfig {
   /** Get the pubsub endpoint url. */
   public abstract Optional<String> endpointUrl();
 
+  /**
+   * Get the priority lanes of the job queue. The queue of each lane is a topic ID when jobs are
+   * sent and a subscription ID when they are received.
+   */
+  public abstract Optional<JobQueueLaneConfig> laneConfig();
+
   /** Builder class for the {@code PubSubJobQueueConfig} class. */
   @AutoValue.Builder
   public abstract static class Builder {
@@ -68,6 +75,9 @@ public abstract class PubSubJobQueueConfig {
     /** Set the pubsub endpoint url. */
     public abstract Builder setEndpointUrl(Optional<String> endpointUrl);
 
+    /** Set the priority lanes of the job queue. */
+    public abstract Builder setLaneConfig(Optional<JobQueueLaneConfig> laneConfig);
+
     /** Creates a new instance of the {@code PubSubJobQueueConfig} class from the builder. */
     public abstract PubSubJobQueueConfig build();
   }
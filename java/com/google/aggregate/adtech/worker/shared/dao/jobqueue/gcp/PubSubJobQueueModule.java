@@ -25,17 +25,21 @@ import com.google.cloud.pubsub.v1.stub.GrpcSubscriberStub;
 import com.google.cloud.pubsub.v1.stub.SubscriberStub;
 import com.google.cloud.pubsub.v1.stub.SubscriberStubSettings;
 import com.google.inject.AbstractModule;
+import com.google.inject.Provider;
 import com.google.inject.Provides;
+import com.google.inject.Singleton;
 import com.google.pubsub.v1.ProjectSubscriptionName;
 import com.google.pubsub.v1.TopicName;
 import com.google.aggregate.adtech.worker.shared.dao.jobqueue.common.JobQueue;
 import com.google.aggregate.adtech.worker.shared.dao.jobqueue.common.JobQueue.JobQueueMessageLeaseSeconds;
+import com.google.aggregate.adtech.worker.shared.dao.jobqueue.common.LanedJobQueue;
 import com.google.aggregate.adtech.worker.shared.dao.jobqueue.gcp.PubSubJobQueue.JobQueuePubSubMaxMessageSizeBytes;
 import com.google.aggregate.adtech.worker.shared.dao.jobqueue.gcp.PubSubJobQueue.JobQueuePubSubSubscriptionName;
 import com.google.aggregate.adtech.worker.shared.dao.jobqueue.gcp.PubSubJobQueue.JobQueuePubSubTopicId;
 import io.grpc.ManagedChannel;
 import io.grpc.ManagedChannelBuilder;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 
 /** Module for Pub/Sub job queue. */
 public final class PubSubJobQueueModule extends AbstractModule {
@@ -47,13 +51,45 @@ public final class PubSubJobQueueModule extends AbstractModule {
    */
   public PubSubJobQueueModule() {}
 
+  @Override
+  protected void configure() {}
+
   /**
-   * Configures injected dependencies for this module. Includes a binding for the {@code JobQueue}
-   * class.
+   * Provides the job queue, with a Pub/Sub topic and subscription per priority lane if lanes are
+   * configured. Lanes are polled in turn, so their pulls return at once when they have no job.
    */
-  @Override
-  protected void configure() {
-    bind(JobQueue.class).to(PubSubJobQueue.class);
+  @Provides
+  @Singleton
+  JobQueue provideJobQueue(
+      PubSubJobQueueConfig config,
+      Publisher publisher,
+      SubscriberStub subscriber,
+      @JobQueuePubSubSubscriptionName Provider<String> subscriptionName,
+      @JobQueueMessageLeaseSeconds int messageLeaseSeconds) {
+    if (config.laneConfig().isEmpty()) {
+      return new PubSubJobQueue(publisher, subscriber, subscriptionName, messageLeaseSeconds);
+    }
+    return LanedJobQueue.create(
+        new PubSubJobQueue(
+            publisher,
+            subscriber,
+            subscriptionName,
+            messageLeaseSeconds,
+            /* returnImmediately= */ true),
+        config.laneConfig().get(),
+        // The topic of a lane is only used to send jobs, and its subscription to receive them.
+        laneQueue -> {
+          try {
+            return new PubSubJobQueue(
+                createPublisher(config, TopicName.of(config.gcpProjectId(), laneQueue)),
+                subscriber,
+                () -> ProjectSubscriptionName.format(config.gcpProjectId(), laneQueue),
+                messageLeaseSeconds,
+                /* returnImmediately= */ true);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
   }
 
   /** Provides an instance of the {@code SubscriberStub} class. */
@@ -82,8 +118,12 @@ public final class PubSubJobQueueModule extends AbstractModule {
   /** Provides an instance of the {@code Publisher} class. */
   @Provides
   Publisher providePublisher(PubSubJobQueueConfig config) throws IOException {
-    Publisher.Builder publisherBuilder =
-        Publisher.newBuilder(TopicName.of(config.gcpProjectId(), config.pubSubTopicId()));
+    return createPublisher(config, TopicName.of(config.gcpProjectId(), config.pubSubTopicId()));
+  }
+
+  private static Publisher createPublisher(PubSubJobQueueConfig config, TopicName topicName)
+      throws IOException {
+    Publisher.Builder publisherBuilder = Publisher.newBuilder(topicName);
     config
         .endpointUrl()
         .ifPresent(
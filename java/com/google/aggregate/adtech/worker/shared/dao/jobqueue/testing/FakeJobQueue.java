@@ -16,10 +16,15 @@
 
 package com.google.aggregate.adtech.worker.shared.dao.jobqueue.testing;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.aggregate.protos.shared.backend.JobKeyProto.JobKey;
 import com.google.aggregate.protos.shared.backend.jobqueue.JobQueueProto.JobQueueItem;
 import com.google.aggregate.adtech.worker.shared.dao.jobqueue.common.JobQueue;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 /** Fake implementation of {@link JobQueue} for use in tests. */
@@ -29,6 +34,10 @@ public final class FakeJobQueue implements JobQueue {
   private JobKey lastJobKeySent;
   private String lastServerJobIdSent;
   private JobQueueItem lastJobQueueItemSent;
+  private List<ImmutableList<JobKey>> jobKeyBatchesSent;
+
+  // Jobs that fail to be sent by sendJobs
+  private ImmutableSet<JobKey> jobKeysToFail;
 
   // Item to be returned by receiveJob
   private Optional<JobQueueItem> jobQueueItemToBeReceived;
@@ -41,6 +50,8 @@ public final class FakeJobQueue implements JobQueue {
     lastJobKeySent = null;
     lastServerJobIdSent = null;
     lastJobQueueItemSent = null;
+    jobKeyBatchesSent = new ArrayList<>();
+    jobKeysToFail = ImmutableSet.of();
     jobQueueItemToBeReceived = Optional.empty();
     shouldThrowException = false;
   }
@@ -55,6 +66,28 @@ public final class FakeJobQueue implements JobQueue {
     lastServerJobIdSent = serverJobId;
   }
 
+  /**
+   * Records the batch of jobs sent. Fails every job if set to throw, otherwise only the jobs set to
+   * fail.
+   */
+  @Override
+  public ImmutableMap<JobKey, JobQueueException> sendJobs(
+      ImmutableMap<JobKey, String> serverJobIds) {
+    jobKeyBatchesSent.add(serverJobIds.keySet().asList());
+    ImmutableMap.Builder<JobKey, JobQueueException> failures = ImmutableMap.builder();
+    serverJobIds.forEach(
+        (jobKey, serverJobId) -> {
+          if (shouldThrowException || jobKeysToFail.contains(jobKey)) {
+            failures.put(
+                jobKey, new JobQueueException(new IllegalStateException("was set to fail")));
+          } else {
+            lastJobKeySent = jobKey;
+            lastServerJobIdSent = serverJobId;
+          }
+        });
+    return failures.build();
+  }
+
   @Override
   public Optional<JobQueueItem> receiveJob() throws JobQueueException {
     if (shouldThrowException) {
@@ -92,6 +125,16 @@ public final class FakeJobQueue implements JobQueue {
     return lastServerJobIdSent;
   }
 
+  /** Get the job keys of each call to the {@code sendJobs} method. */
+  public ImmutableList<ImmutableList<JobKey>> getJobKeyBatchesSent() {
+    return ImmutableList.copyOf(jobKeyBatchesSent);
+  }
+
+  /** Set the jobs that fail to be sent by the {@code sendJobs} method. */
+  public void setJobKeysToFail(ImmutableSet<JobKey> jobKeysToFail) {
+    this.jobKeysToFail = jobKeysToFail;
+  }
+
   /**
    * Get the job queue item used in the last call to the {@code acknowledgeJobCompletion} method.
    */
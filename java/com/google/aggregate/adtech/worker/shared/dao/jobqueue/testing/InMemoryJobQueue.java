@@ -0,0 +1,160 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.shared.dao.jobqueue.testing;
+
+import com.google.aggregate.adtech.worker.shared.dao.jobqueue.common.JobLaneSelector;
+import com.google.aggregate.adtech.worker.shared.dao.jobqueue.common.JobQueue;
+import com.google.aggregate.adtech.worker.shared.dao.jobqueue.common.JobQueueLane;
+import com.google.aggregate.adtech.worker.shared.dao.jobqueue.common.LanedJobQueue;
+import com.google.aggregate.protos.shared.backend.JobKeyProto.JobKey;
+import com.google.aggregate.protos.shared.backend.jobqueue.JobQueueProto.JobQueueItem;
+import com.google.common.collect.ImmutableMap;
+import com.google.protobuf.util.Durations;
+import com.google.scp.shared.proto.ProtoUtil;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory implementation of {@link JobQueue} that long-polls like the SQS and Pub/Sub job queues.
+ *
+ * <p>{@code receiveJob} returns as soon as a job is sent, or empty after waiting for the max wait
+ * time. Received jobs are held until they are acknowledged, or returned to the queue when their
+ * processing time is set to zero. Leases don't expire.
+ */
+public final class InMemoryJobQueue implements JobQueue {
+
+  private final Duration maxWaitTime;
+  private final Duration messageLease;
+  private final BlockingQueue<JobQueueItem> queuedJobs = new LinkedBlockingQueue<>();
+  // Received jobs by receipt.
+  private final Map<String, JobQueueItem> receivedJobs = new ConcurrentHashMap<>();
+
+  /**
+   * Creates a new instance of the {@code InMemoryJobQueue} class.
+   *
+   * @param maxWaitTime time {@code receiveJob} waits for a job before returning empty.
+   * @param messageLease processing timeout set on received jobs.
+   */
+  public InMemoryJobQueue(Duration maxWaitTime, Duration messageLease) {
+    this.maxWaitTime = maxWaitTime;
+    this.messageLease = messageLease;
+  }
+
+  /**
+   * Creates an in-memory {@link LanedJobQueue} with an {@code InMemoryJobQueue} for each weighted
+   * lane.
+   *
+   * @param maxWaitTime time each lane's {@code receiveJob} waits for a job before returning empty.
+   * @param messageLease processing timeout set on received jobs.
+   * @param weights weight of each lane.
+   * @param laneSelector selects the lane of new jobs.
+   */
+  public static LanedJobQueue createLaned(
+      Duration maxWaitTime,
+      Duration messageLease,
+      ImmutableMap<JobQueueLane, Integer> weights,
+      JobLaneSelector laneSelector) {
+    ImmutableMap.Builder<JobQueueLane, JobQueue> lanes = ImmutableMap.builder();
+    weights
+        .keySet()
+        .forEach(lane -> lanes.put(lane, new InMemoryJobQueue(maxWaitTime, messageLease)));
+    return new LanedJobQueue(lanes.build(), weights, laneSelector);
+  }
+
+  @Override
+  public void sendJob(JobKey jobKey, String serverJobId) {
+    queuedJobs.add(
+        JobQueueItem.newBuilder()
+            .setJobKeyString(jobKey.getJobRequestId())
+            .setServerJobId(serverJobId)
+            .build());
+  }
+
+  @Override
+  public ImmutableMap<JobKey, JobQueueException> sendJobs(
+      ImmutableMap<JobKey, String> serverJobIds) {
+    serverJobIds.forEach(this::sendJob);
+    return ImmutableMap.of();
+  }
+
+  @Override
+  public Optional<JobQueueItem> receiveJob() throws JobQueueException {
+    JobQueueItem queuedJob;
+    try {
+      queuedJob = queuedJobs.poll(maxWaitTime.toNanos(), TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new JobQueueException(e);
+    }
+    if (queuedJob == null) {
+      return Optional.empty();
+    }
+
+    JobQueueItem receivedJob =
+        queuedJob.toBuilder()
+            .setJobProcessingTimeout(Durations.fromNanos(messageLease.toNanos()))
+            .setJobProcessingStartTime(ProtoUtil.toProtoTimestamp(Instant.now()))
+            .setReceiptInfo(UUID.randomUUID().toString())
+            .build();
+    receivedJobs.put(receivedJob.getReceiptInfo(), receivedJob);
+    return Optional.of(receivedJob);
+  }
+
+  @Override
+  public void acknowledgeJobCompletion(JobQueueItem jobQueueItem) throws JobQueueException {
+    if (receivedJobs.remove(jobQueueItem.getReceiptInfo()) == null) {
+      throw new JobQueueException("Unknown receipt: " + jobQueueItem.getReceiptInfo());
+    }
+  }
+
+  @Override
+  public void modifyJobProcessingTime(JobQueueItem jobQueueItem, Duration processingTime)
+      throws JobQueueException {
+    if (!processingTime.isZero()) {
+      if (!receivedJobs.containsKey(jobQueueItem.getReceiptInfo())) {
+        throw new JobQueueException("Unknown receipt: " + jobQueueItem.getReceiptInfo());
+      }
+      return;
+    }
+    JobQueueItem receivedJob = receivedJobs.remove(jobQueueItem.getReceiptInfo());
+    if (receivedJob == null) {
+      throw new JobQueueException("Unknown receipt: " + jobQueueItem.getReceiptInfo());
+    }
+    queuedJobs.add(
+        JobQueueItem.newBuilder()
+            .setJobKeyString(receivedJob.getJobKeyString())
+            .setServerJobId(receivedJob.getServerJobId())
+            .build());
+  }
+
+  /** Returns the number of jobs waiting to be received. */
+  public int getQueuedJobCount() {
+    return queuedJobs.size();
+  }
+
+  /** Returns the number of jobs received and not yet acknowledged or returned to the queue. */
+  public int getReceivedJobCount() {
+    return receivedJobs.size();
+  }
+}
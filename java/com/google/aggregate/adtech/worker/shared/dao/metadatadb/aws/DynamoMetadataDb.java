@@ -23,6 +23,9 @@ import static java.lang.annotation.RetentionPolicy.RUNTIME;
 
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 import com.google.inject.BindingAnnotation;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
@@ -35,6 +38,7 @@ import java.lang.annotation.Target;
 import java.time.Clock;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.logging.Level;
@@ -44,7 +48,9 @@ import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
 import software.amazon.awssdk.enhanced.dynamodb.Expression;
 import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.BatchGetItemEnhancedRequest;
 import software.amazon.awssdk.enhanced.dynamodb.model.PutItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.ReadBatch;
 import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
 
 /** DynamoDB implementation of the {@code JobMetadataDb} interface. */
@@ -52,6 +58,8 @@ public final class DynamoMetadataDb implements JobMetadataDb {
 
   private static final String JOB_KEY_DOES_NOT_EXIST_EXPRESSION = "attribute_not_exists(JobKey)";
   private static final String JOB_KEY_EXISTS_EXPRESSION = "attribute_exists(JobKey)";
+  // Maximum number of items of a DynamoDB BatchGetItem request.
+  private static final int MAX_BATCH_GET_ITEMS = 100;
 
   private final DynamoDbEnhancedClient ddb;
   private final Provider<String> tableName;
@@ -101,6 +109,30 @@ public final class DynamoMetadataDb implements JobMetadataDb {
     }
   }
 
+  @Override
+  public ImmutableMap<String, JobMetadata> batchGetJobMetadata(ImmutableSet<String> jobKeyStrings)
+      throws JobMetadataDbException {
+    ImmutableMap.Builder<String, JobMetadata> jobMetadata = ImmutableMap.builder();
+    try {
+      for (List<String> batch : Iterables.partition(jobKeyStrings, MAX_BATCH_GET_ITEMS)) {
+        ReadBatch.Builder<JobMetadata> readBatch =
+            ReadBatch.builder(JobMetadata.class).mappedTableResource(jobMetadataTable.get());
+        batch.forEach(
+            jobKeyString ->
+                readBatch.addGetItem(Key.builder().partitionValue(jobKeyString).build()));
+        // Keys that are not processed by a request are requested again by the next page.
+        ddb.batchGetItem(
+                BatchGetItemEnhancedRequest.builder().readBatches(readBatch.build()).build())
+            .resultsForTable(jobMetadataTable.get())
+            .forEach(metadata -> jobMetadata.put(metadata.getJobKey().getJobRequestId(), metadata));
+      }
+    } catch (SdkException e) {
+      logger.log(Level.INFO, "SDK exception batch getting from JobMetadata table: ", e);
+      throw new JobMetadataDbException(e);
+    }
+    return jobMetadata.build();
+  }
+
   @Override
   public void insertJobMetadata(JobMetadata jobMetadata)
       throws JobMetadataDbException, JobKeyExistsException {
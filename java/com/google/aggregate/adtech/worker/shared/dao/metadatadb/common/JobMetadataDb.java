@@ -21,6 +21,8 @@ import static java.lang.annotation.ElementType.METHOD;
 import static java.lang.annotation.ElementType.PARAMETER;
 import static java.lang.annotation.RetentionPolicy.RUNTIME;
 
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.inject.BindingAnnotation;
 import com.google.aggregate.protos.shared.backend.metadatadb.JobMetadataProto.JobMetadata;
 import java.lang.annotation.Retention;
@@ -39,6 +41,26 @@ public interface JobMetadataDb {
    */
   Optional<JobMetadata> getJobMetadata(String jobKeyString) throws JobMetadataDbException;
 
+  /**
+   * Retrieve metadata for several jobs, in a single read where the DB supports it. Jobs without a
+   * record are absent from the returned map.
+   *
+   * @param jobKeyStrings the string representations of the job keys
+   * @return the metadata of the jobs keyed by the job key string
+   * @throws JobMetadataDbException for failures to read
+   */
+  default ImmutableMap<String, JobMetadata> batchGetJobMetadata(ImmutableSet<String> jobKeyStrings)
+      throws JobMetadataDbException {
+    ImmutableMap.Builder<String, JobMetadata> jobMetadata = ImmutableMap.builder();
+    for (String jobKeyString : jobKeyStrings) {
+      Optional<JobMetadata> metadata = getJobMetadata(jobKeyString);
+      if (metadata.isPresent()) {
+        jobMetadata.put(jobKeyString, metadata.get());
+      }
+    }
+    return jobMetadata.build();
+  }
+
   /**
    * Insert a metadata entry for a job, throwing an exception if the job-key is already in use. This
    * method is intended to be used to ensure insertions are safe and prevent conflicting writes.
@@ -32,6 +32,8 @@ import com.google.cloud.spanner.SpannerException;
 import com.google.cloud.spanner.Statement;
 import com.google.cloud.spanner.Value;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.inject.BindingAnnotation;
 import com.google.inject.Inject;
 import com.google.protobuf.InvalidProtocolBufferException;
@@ -102,6 +104,36 @@ public final class SpannerMetadataDb implements JobMetadataDb {
     return jobMetadata;
   }
 
+  @Override
+  public ImmutableMap<String, JobMetadata> batchGetJobMetadata(ImmutableSet<String> jobKeyStrings)
+      throws JobMetadataDbException {
+    if (jobKeyStrings.isEmpty()) {
+      return ImmutableMap.of();
+    }
+    Statement statement =
+        Statement.newBuilder(
+                "SELECT * FROM "
+                    + TABLE_NAME
+                    + " WHERE "
+                    + SpannerJobMetadataTableColumn.JOB_KEY_COLUMN.label
+                    + " IN UNNEST(@jobKeyStrings)")
+            .bind("jobKeyStrings")
+            .toStringArray(jobKeyStrings)
+            .build();
+    logger.debug("executing spanner statement: " + statement);
+
+    ImmutableMap.Builder<String, JobMetadata> jobMetadata = ImmutableMap.builder();
+    try (ResultSet resultSet = dbClient.singleUse().executeQuery(statement)) {
+      while (resultSet.next()) {
+        JobMetadata metadata = convertResultSetToJobMetadata(resultSet);
+        jobMetadata.put(toJobKeyString(metadata.getJobKey()), metadata);
+      }
+    } catch (SpannerException | InvalidProtocolBufferException e) {
+      throw new JobMetadataDbException(e);
+    }
+    return jobMetadata.build();
+  }
+
   @Override
   public void insertJobMetadata(JobMetadata jobMetadata)
       throws JobMetadataDbException, JobKeyExistsException {
@@ -17,14 +17,24 @@
 package com.google.aggregate.adtech.worker.shared.dao.metadatadb.testing;
 
 import com.google.aggregate.protos.shared.backend.metadatadb.JobMetadataProto.JobMetadata;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.aggregate.adtech.worker.shared.dao.metadatadb.common.JobMetadataDb;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /** Fake implementation of the {@link JobMetadataDb} for use in tests. */
 public final class FakeMetadataDb implements JobMetadataDb {
 
   // Values to return
   private Optional<JobMetadata> jobMetadataToReturn;
+  // Values to return by job key string, may be updated while other threads are reading.
+  private final Map<String, JobMetadata> jobMetadataByKey = new ConcurrentHashMap<>();
+
+  // Number of calls to batchGetJobMetadata
+  private final AtomicInteger batchLookupCount = new AtomicInteger();
 
   // Last values requested with
   private String lastJobKeyStringLookedUp;
@@ -66,10 +76,31 @@ public final class FakeMetadataDb implements JobMetadataDb {
       return Optional.empty();
     } else {
       lastJobKeyStringLookedUp = jobKeyString;
+      if (jobMetadataByKey.containsKey(jobKeyString)) {
+        return Optional.of(jobMetadataByKey.get(jobKeyString));
+      }
       return jobMetadataToReturn;
     }
   }
 
+  @Override
+  public ImmutableMap<String, JobMetadata> batchGetJobMetadata(ImmutableSet<String> jobKeyStrings)
+      throws JobMetadataDbException {
+    if (shouldThrowJobMetadataDbException) {
+      throw new JobMetadataDbException(
+          new IllegalStateException("Was set to throw (shouldThrowJobMetadataDbException)"));
+    }
+    batchLookupCount.incrementAndGet();
+    ImmutableMap.Builder<String, JobMetadata> jobMetadata = ImmutableMap.builder();
+    for (String jobKeyString : jobKeyStrings) {
+      JobMetadata metadata = jobMetadataByKey.get(jobKeyString);
+      if (metadata != null) {
+        jobMetadata.put(jobKeyString, metadata);
+      }
+    }
+    return jobMetadata.build();
+  }
+
   @Override
   public void insertJobMetadata(JobMetadata jobMetadata)
       throws JobMetadataDbException, JobKeyExistsException {
@@ -108,6 +139,19 @@ public final class FakeMetadataDb implements JobMetadataDb {
     this.jobMetadataToReturn = jobMetadataToReturn;
   }
 
+  /**
+   * Set the job metadata to be returned for its job key by the {@code getJobMetadata} and {@code
+   * batchGetJobMetadata} methods. Replaces the job metadata previously set for the same job key.
+   */
+  public void putJobMetadataToReturn(JobMetadata jobMetadata) {
+    jobMetadataByKey.put(jobMetadata.getJobKey().getJobRequestId(), jobMetadata);
+  }
+
+  /** Get the number of calls to the {@code batchGetJobMetadata} method. */
+  public int getBatchLookupCount() {
+    return batchLookupCount.get();
+  }
+
   /** Set the number of job metadata lookups that have failed. */
   public void setInitialLookupFailureCount(int initialLookupFailureCount) {
     this.initialLookupFailureCount = initialLookupFailureCount;
@@ -153,6 +197,8 @@ public final class FakeMetadataDb implements JobMetadataDb {
   /** Sets all internal fields to their default values. */
   public void reset() {
     jobMetadataToReturn = Optional.empty();
+    jobMetadataByKey.clear();
+    batchLookupCount.set(0);
     lastJobKeyStringLookedUp = null;
     lastJobMetadataInserted = null;
     lastJobMetadataUpdated = null;
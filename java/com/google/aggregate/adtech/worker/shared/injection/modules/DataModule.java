@@ -22,6 +22,7 @@ import com.google.inject.Singleton;
 import com.google.inject.multibindings.Multibinder;
 import com.google.aggregate.adtech.worker.frontend.tasks.validation.JobRequestIdCharactersValidator;
 import com.google.aggregate.adtech.worker.frontend.tasks.validation.JobRequestIdLengthValidator;
+import com.google.aggregate.adtech.worker.frontend.tasks.validation.ReservedJobParametersValidator;
 import com.google.aggregate.adtech.worker.frontend.tasks.validation.RequestInfoValidator;
 import com.google.aggregate.adtech.worker.shared.dao.metadatadb.aws.DynamoMetadataDb;
 import com.google.aggregate.adtech.worker.shared.dao.metadatadb.common.JobMetadataDb;
@@ -64,5 +65,6 @@ public final class DataModule extends BaseDataModule {
 
     requestInfoValidatorMultibinder.addBinding().to(JobRequestIdCharactersValidator.class);
     requestInfoValidatorMultibinder.addBinding().to(JobRequestIdLengthValidator.class);
+    requestInfoValidatorMultibinder.addBinding().to(ReservedJobParametersValidator.class);
   }
 }
@@ -27,6 +27,8 @@ import com.google.aggregate.adtech.worker.model.serdes.PrivacyBudgetExhaustedInf
 import com.google.aggregate.privacy.noise.model.SummaryReportAvro;
 import com.google.common.collect.ImmutableList;
 import com.google.aggregate.adtech.worker.jobclient.model.Job;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 import javax.inject.Inject;
 
@@ -38,6 +40,8 @@ public final class InMemoryResultLogger implements ResultLogger {
 
   private MaterializedAggregationResults materializedAggregations;
   private MaterializedAggregationResults materializedDebugAggregations;
+  private final Map<String, MaterializedAggregationResults> materializedAggregationsByOutputPrefix =
+      new HashMap<>();
   private PrivacyBudgetExhaustedInfo privacyBudgetExhaustedInfo;
   private boolean shouldThrow;
   private volatile boolean hasLogged;
@@ -93,12 +97,14 @@ public final class InMemoryResultLogger implements ResultLogger {
                               .reverse()
                               .convert(summaryReportAvro.reportBytes())
                               .stream()));
+      materializedAggregationsByOutputPrefix.put(
+          ctx.requestInfo().getOutputDataBlobPrefix(), materializedAggregations);
       System.out.println("Materialized results: " + materializedAggregations);
     }
   }
 
   @Override
-  public void logResults(ImmutableList<AggregatedFact> results, Job unused, boolean isDebugRun)
+  public void logResults(ImmutableList<AggregatedFact> results, Job ctx, boolean isDebugRun)
       throws ResultLogException {
     hasLogged = true;
 
@@ -111,6 +117,8 @@ public final class InMemoryResultLogger implements ResultLogger {
       System.out.println("Materialized debug results: " + materializedDebugAggregations);
     } else {
       materializedAggregations = MaterializedAggregationResults.of(results.stream());
+      materializedAggregationsByOutputPrefix.put(
+          ctx.requestInfo().getOutputDataBlobPrefix(), materializedAggregations);
       System.out.println("Materialized results: " + materializedAggregations);
     }
   }
@@ -151,6 +159,22 @@ public final class InMemoryResultLogger implements ResultLogger {
     return materializedAggregations;
   }
 
+  /**
+   * Gets the materialized aggregation results last logged for the given output data blob prefix.
+   *
+   * @throws ResultLogException if no results were logged for the prefix.
+   */
+  public MaterializedAggregationResults getMaterializedAggregationResults(
+      String outputDataBlobPrefix) throws ResultLogException {
+    if (!materializedAggregationsByOutputPrefix.containsKey(outputDataBlobPrefix)) {
+      throw new ResultLogException(
+          new IllegalStateException(
+              "No results were logged for output data blob prefix " + outputDataBlobPrefix));
+    }
+
+    return materializedAggregationsByOutputPrefix.get(outputDataBlobPrefix);
+  }
+
   /**
    * Gets materialized debug aggregation results as an ImmutableList of {@link AggregatedFact}
    *
@@ -16,10 +16,18 @@
 
 package com.google.aggregate.adtech.worker.util;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.primitives.UnsignedLong;
 import com.google.errorprone.annotations.Var;
 import com.google.aggregate.adtech.worker.jobclient.model.Job;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Optional;
 import org.slf4j.Logger;
@@ -43,14 +51,56 @@ public final class JobUtils {
 
   public static final String JOB_PARAM_FILTERING_IDS_DELIMITER = ",";
 
+  /**
+   * Filtering ID sets of a multi-query job, e.g. "1,2;3". Each set is aggregated separately in the
+   * same pass over the reports.
+   */
+  public static final String JOB_PARAM_FILTERING_ID_SETS = "filtering_id_sets";
+
+  public static final String JOB_PARAM_FILTERING_ID_SETS_DELIMITER = ";";
+
   public static final String JOB_PARAM_ATTRIBUTION_REPORT_TO = "attribution_report_to";
 
   public static final String JOB_PARAM_REPORTING_SITE = "reporting_site";
 
   public static final String JOB_PARAM_DEBUG_PRIVACY_EPSILON = "debug_privacy_epsilon";
 
+  /**
+   * Whether the job only validates a sample of its inputs and returns the projected error summary,
+   * without aggregating the reports or consuming privacy budget.
+   */
+  public static final String JOB_PARAM_VALIDATION_ONLY = "validation_only";
+
+  /**
+   * Sealed manifest of a sub-task of a distributed job. Only set by the worker that dispatches the
+   * sub-task, and rejected in job requests.
+   */
+  public static final String JOB_PARAM_DISTRIBUTED_SUBTASK_MANIFEST =
+      "distributed_subtask_manifest";
+
+  /**
+   * End of the window of an open window job, as an RFC 3339 UTC timestamp, e.g.
+   * "2025-01-01T01:00:00Z". The reports of an open window job are aggregated as their shards land
+   * under the input prefix, and the results are only written once the window is closed. The window
+   * must close no later than {@link #getMaxWindowCloseTime}.
+   */
+  public static final String JOB_PARAM_WINDOW_CLOSE_TIME = "window_close_time";
+
+  /** Longest window of an open window job, counted from the creation of the job. */
+  public static final Duration MAX_WINDOW_LENGTH = Duration.ofHours(24);
+
+  /**
+   * Part of the processing timeout of an open window job that is kept for aggregating the shards
+   * that landed last, and for noising and writing the results once the window is closed.
+   */
+  public static final Duration WINDOW_CLOSE_MARGIN = Duration.ofMinutes(15);
+
   private static final UnsignedLong FILTERING_ID_DEFAULT = UnsignedLong.ZERO;
 
+  private static final String FILTERING_ID_SET_OUTPUT_SUFFIX = "-filtering_id_set_";
+
+  private static final String AVRO_EXTENSION = ".avro";
+
   /**
    * Returns the filtering IDs from the job.
    *
@@ -70,6 +120,113 @@ public final class JobUtils {
     return filteringIds;
   }
 
+  /** Returns true if the job aggregates several filtering ID sets in a single pass. */
+  public static boolean isMultiQueryJob(Job job) {
+    String filteringIdSets =
+        job.requestInfo().getJobParametersMap().get(JOB_PARAM_FILTERING_ID_SETS);
+    return filteringIdSets != null && !filteringIdSets.trim().isEmpty();
+  }
+
+  /** Returns true if the job only validates a sample of its inputs. */
+  public static boolean isValidationOnlyJob(Job job) {
+    return Boolean.parseBoolean(
+        job.requestInfo().getJobParametersMap().get(JOB_PARAM_VALIDATION_ONLY));
+  }
+
+  /**
+   * Returns the end of the window of the job if it is an open window job.
+   *
+   * @throws DateTimeParseException if the window close time is not a valid timestamp.
+   */
+  public static Optional<Instant> getWindowCloseTime(Job job) {
+    return Optional.ofNullable(
+            job.requestInfo().getJobParametersMap().get(JOB_PARAM_WINDOW_CLOSE_TIME))
+        .map(String::trim)
+        .filter(windowCloseTime -> !windowCloseTime.isEmpty())
+        .map(Instant::parse);
+  }
+
+  /**
+   * Returns the latest window close time allowed for the job. The window must close within {@link
+   * #MAX_WINDOW_LENGTH} of the creation of the job, and at least {@link #WINDOW_CLOSE_MARGIN}
+   * before its processing timeout elapses, so that the worker holding the job finishes it before
+   * its lease on the job expires.
+   */
+  public static Instant getMaxWindowCloseTime(Job job) {
+    Duration maxWindowLength = job.jobProcessingTimeout().minus(WINDOW_CLOSE_MARGIN);
+    return job.createTime()
+        .plus(
+            maxWindowLength.compareTo(MAX_WINDOW_LENGTH) < 0 ? maxWindowLength : MAX_WINDOW_LENGTH);
+  }
+
+  /** Returns the manifest of the job if it is a sub-task of a distributed job. */
+  public static Optional<String> getDistributedSubtaskManifest(Job job) {
+    return Optional.ofNullable(
+            job.requestInfo().getJobParametersMap().get(JOB_PARAM_DISTRIBUTED_SUBTASK_MANIFEST))
+        .filter(manifest -> !manifest.isEmpty());
+  }
+
+  /**
+   * Returns the filtering ID sets to aggregate in the job, in the order given in the job
+   * parameters.
+   *
+   * <p>For jobs that are not multi-query jobs, returns the single set of {@link
+   * #getFilteringIdsFromJobOrDefault}. An empty set in a multi-query job stands for the default
+   * filtering ID.
+   */
+  public static ImmutableList<ImmutableSet<UnsignedLong>> getFilteringIdSetsFromJobOrDefault(
+      Job job) {
+    if (!isMultiQueryJob(job)) {
+      return ImmutableList.of(getFilteringIdsFromJobOrDefault(job));
+    }
+    return parseFilteringIdSets(
+            job.requestInfo().getJobParametersMap().get(JOB_PARAM_FILTERING_ID_SETS))
+        .stream()
+        .map(
+            filteringIds ->
+                filteringIds.isEmpty() ? ImmutableSet.of(FILTERING_ID_DEFAULT) : filteringIds)
+        .collect(toImmutableList());
+  }
+
+  /** Returns the filtering IDs of all filtering ID sets of the job. */
+  public static ImmutableSet<UnsignedLong> getAllFilteringIdsFromJobOrDefault(Job job) {
+    return getFilteringIdSetsFromJobOrDefault(job).stream()
+        .flatMap(ImmutableSet::stream)
+        .collect(toImmutableSet());
+  }
+
+  /**
+   * Parses the filtering ID sets of a multi-query job.
+   *
+   * @throws IllegalArgumentException if any of the filtering IDs is not an unsigned long.
+   */
+  public static ImmutableList<ImmutableSet<UnsignedLong>> parseFilteringIdSets(
+      String filteringIdSets) {
+    return Arrays.stream(filteringIdSets.trim().split(JOB_PARAM_FILTERING_ID_SETS_DELIMITER))
+        .map(
+            filteringIds ->
+                NumericConversions.getUnsignedLongsFromString(
+                    filteringIds.trim(), JOB_PARAM_FILTERING_IDS_DELIMITER))
+        .collect(toImmutableList());
+  }
+
+  /**
+   * Returns the output blob prefix of the results of the filtering ID set at {@code
+   * filteringIdSetIndex} in a multi-query job, e.g. "summary-filtering_id_set_1.avro" for
+   * "summary.avro".
+   */
+  public static String getOutputDataBlobPrefixForFilteringIdSet(
+      String outputDataBlobPrefix, int filteringIdSetIndex) {
+    String suffix = FILTERING_ID_SET_OUTPUT_SUFFIX + filteringIdSetIndex;
+    if (outputDataBlobPrefix.endsWith(AVRO_EXTENSION)) {
+      return outputDataBlobPrefix.substring(
+              0, outputDataBlobPrefix.length() - AVRO_EXTENSION.length())
+          + suffix
+          + AVRO_EXTENSION;
+    }
+    return outputDataBlobPrefix + suffix;
+  }
+
   /** Gets the input report count from the job request if provided. */
   public static Optional<Long> getInputReportCountFromJobParams(Map<String, String> jobParams) {
     String inputReportCount = jobParams.get(JobUtils.JOB_PARAM_INPUT_REPORT_COUNT);
@@ -17,6 +17,7 @@
 package com.google.aggregate.adtech.worker.validation;
 
 import static com.google.aggregate.adtech.worker.util.JobUtils.JOB_PARAM_ATTRIBUTION_REPORT_TO;
+import static com.google.aggregate.adtech.worker.util.JobUtils.JOB_PARAM_DISTRIBUTED_SUBTASK_MANIFEST;
 import static com.google.aggregate.adtech.worker.util.JobUtils.JOB_PARAM_FILTERING_IDS;
 import static com.google.aggregate.adtech.worker.util.JobUtils.JOB_PARAM_FILTERING_IDS_DELIMITER;
 import static com.google.aggregate.adtech.worker.util.JobUtils.JOB_PARAM_INPUT_REPORT_COUNT;
@@ -27,11 +28,18 @@ import static com.google.aggregate.adtech.worker.util.JobUtils.JOB_PARAM_REPORT_
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.aggregate.adtech.worker.shared.model.BackendModelUtil.toJobKeyString;
 
+import com.google.aggregate.adtech.worker.util.JobUtils;
 import com.google.aggregate.adtech.worker.util.NumericConversions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.primitives.Longs;
+import com.google.common.primitives.UnsignedLong;
 import com.google.aggregate.adtech.worker.jobclient.model.Job;
+import java.time.format.DateTimeParseException;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /** Validates the job parameters are valid. */
 public final class JobValidator {
@@ -43,10 +51,29 @@ public final class JobValidator {
    *     should be set.
    */
   public static void validate(Optional<Job> job, boolean domainOptional) {
+    validate(job, domainOptional, /* subtasksAllowed= */ false);
+  }
+
+  /**
+   * validates the job parameters are valid.
+   *
+   * @param domainOptional if the output domain is optional. If not set, then output_domain path
+   *     should be set.
+   * @param subtasksAllowed if the worker processes sub-tasks of distributed jobs. The sub-task
+   *     manifest parameter is rejected otherwise. Sub-tasks are still only aggregated as such once
+   *     the worker has authenticated their sealed manifest.
+   */
+  public static void validate(Optional<Job> job, boolean domainOptional, boolean subtasksAllowed) {
     checkArgument(job.isPresent(), "Job metadata not found.");
     String jobKey = toJobKeyString(job.get().jobKey());
     validateReportingOriginAndSite(job.get());
     Map<String, String> jobParams = job.get().requestInfo().getJobParametersMap();
+    checkArgument(
+        subtasksAllowed || !jobParams.containsKey(JOB_PARAM_DISTRIBUTED_SUBTASK_MANIFEST),
+        String.format(
+            "Job parameters for the job '%s' should not have the reserved"
+                + " 'distributed_subtask_manifest' parameter.",
+            jobKey));
     checkArgument(
         domainOptional
             || (jobParams.containsKey(JOB_PARAM_OUTPUT_DOMAIN_BUCKET_NAME)
@@ -81,6 +108,62 @@ public final class JobValidator {
             "Job parameters for the job '%s' should have comma separated integers for"
                 + " 'filtering_ids' parameter.",
             jobKey));
+
+    if (JobUtils.isMultiQueryJob(job.get())) {
+      validateFilteringIdSets(job.get(), jobKey);
+    }
+
+    checkArgument(
+        validWindowCloseTime(job.get()),
+        String.format(
+            "Job parameters for the job '%s' should have an RFC 3339 UTC timestamp, e.g."
+                + " '2025-01-01T01:00:00Z', for 'window_close_time' parameter.",
+            jobKey));
+    checkArgument(
+        windowCloseTimeInRange(job.get()),
+        String.format(
+            "Job parameters for the job '%s' should have a 'window_close_time' parameter no later"
+                + " than %s, i.e. at most %s after the job was created and at least %s before its"
+                + " processing timeout elapses.",
+            jobKey,
+            JobUtils.getMaxWindowCloseTime(job.get()),
+            JobUtils.MAX_WINDOW_LENGTH,
+            JobUtils.WINDOW_CLOSE_MARGIN));
+  }
+
+  /**
+   * Validates the filtering ID sets of a multi-query job. The sets must be disjoint, so that every
+   * privacy budget unit is consumed by a single set, as if each set had been submitted as its own
+   * job.
+   */
+  private static void validateFilteringIdSets(Job job, String jobKey) {
+    checkArgument(
+        !job.requestInfo().getJobParametersMap().containsKey(JOB_PARAM_FILTERING_IDS),
+        String.format(
+            "Job parameters for the job '%s' should not have both 'filtering_ids' and"
+                + " 'filtering_id_sets' parameters.",
+            jobKey));
+    ImmutableList<ImmutableSet<UnsignedLong>> filteringIdSets;
+    try {
+      filteringIdSets = JobUtils.getFilteringIdSetsFromJobOrDefault(job);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException(
+          String.format(
+              "Job parameters for the job '%s' should have semicolon separated sets of comma"
+                  + " separated integers for 'filtering_id_sets' parameter.",
+              jobKey));
+    }
+    Set<UnsignedLong> seenFilteringIds = new HashSet<>();
+    for (ImmutableSet<UnsignedLong> filteringIds : filteringIdSets) {
+      for (UnsignedLong filteringId : filteringIds) {
+        checkArgument(
+            seenFilteringIds.add(filteringId),
+            String.format(
+                "Job parameters for the job '%s' should have disjoint sets for"
+                    + " 'filtering_id_sets' parameter, but filtering ID %s is in several sets.",
+                jobKey, filteringId));
+      }
+    }
   }
 
   /**
@@ -144,6 +227,27 @@ public final class JobValidator {
     }
   }
 
+  /** Checks if the window close time of the job is empty or a valid timestamp. */
+  private static boolean validWindowCloseTime(Job job) {
+    try {
+      JobUtils.getWindowCloseTime(job);
+      return true;
+    } catch (DateTimeParseException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Checks if the window of the job, if any, closes early enough for the job to finish within its
+   * processing timeout. A window that closes too late would hold the worker past its lease on the
+   * job.
+   */
+  private static boolean windowCloseTimeInRange(Job job) {
+    return JobUtils.getWindowCloseTime(job)
+        .map(windowCloseTime -> !windowCloseTime.isAfter(JobUtils.getMaxWindowCloseTime(job)))
+        .orElse(true);
+  }
+
   /** Validates that the string representation has a valid percentage value. */
   private static boolean validPercentValue(String percentageInString) {
     try {
@@ -36,7 +36,19 @@ public final class ReportForDebugValidator implements ReportValidator {
    */
   @Override
   public Optional<ErrorMessage> validate(Report report, Job job) {
-    boolean debugRun = DebugSupportHelper.isDebugRun(job);
+    return validate(report, DebugSupportHelper.isDebugRun(job));
+  }
+
+  /** Reads the debug run job parameter once for all reports of the job. */
+  @Override
+  public JobReportValidator forJob(Job job) {
+    if (!DebugSupportHelper.isDebugRun(job)) {
+      return report -> Optional.empty();
+    }
+    return report -> validate(report, /* debugRun= */ true);
+  }
+
+  private static Optional<ErrorMessage> validate(Report report, boolean debugRun) {
     boolean reportDebugMode = report.sharedInfo().getReportDebugMode();
 
     if (!debugRun || reportDebugMode) {
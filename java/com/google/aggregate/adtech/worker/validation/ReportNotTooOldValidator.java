@@ -42,7 +42,24 @@ public final class ReportNotTooOldValidator implements ReportValidator {
 
   @Override
   public Optional<ErrorMessage> validate(Report report, Job unused) {
-    Instant oldestAllowedTime = Instant.now(clock).minus(SharedInfo.MAX_REPORT_AGE);
+    return validate(report, getOldestAllowedTime());
+  }
+
+  /**
+   * Reads the clock once when the validator is bound to the job, so all reports of the job are
+   * compared to the same oldest allowed time.
+   */
+  @Override
+  public JobReportValidator forJob(Job unused) {
+    Instant oldestAllowedTime = getOldestAllowedTime();
+    return report -> validate(report, oldestAllowedTime);
+  }
+
+  private Instant getOldestAllowedTime() {
+    return Instant.now(clock).minus(SharedInfo.MAX_REPORT_AGE);
+  }
+
+  private static Optional<ErrorMessage> validate(Report report, Instant oldestAllowedTime) {
     if (report.sharedInfo().scheduledReportTime().isAfter(oldestAllowedTime)) {
       return Optional.empty();
     }
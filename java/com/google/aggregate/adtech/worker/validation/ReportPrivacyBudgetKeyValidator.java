@@ -17,7 +17,7 @@
 package com.google.aggregate.adtech.worker.validation;
 
 import static com.google.aggregate.adtech.worker.model.ErrorCounter.REQUIRED_SHAREDINFO_FIELD_INVALID;
-import static com.google.aggregate.adtech.worker.util.JobUtils.getFilteringIdsFromJobOrDefault;
+import static com.google.aggregate.adtech.worker.util.JobUtils.getAllFilteringIdsFromJobOrDefault;
 import static com.google.aggregate.adtech.worker.validation.ValidatorHelper.createErrorMessage;
 import static com.google.aggregate.adtech.worker.validation.ValidatorHelper.isFieldNonEmpty;
 
@@ -39,9 +39,18 @@ public final class ReportPrivacyBudgetKeyValidator implements ReportValidator {
 
   @Override
   public Optional<ErrorMessage> validate(Report report, Job job) {
-    if (isFieldNonEmpty(report.sharedInfo().api())) {
-      ImmutableSet<UnsignedLong> filteringIds = getFilteringIdsFromJobOrDefault(job);
+    return validate(report, getAllFilteringIdsFromJobOrDefault(job));
+  }
+
+  /** Parses the filtering IDs of the job once for all reports. */
+  @Override
+  public JobReportValidator forJob(Job job) {
+    ImmutableSet<UnsignedLong> filteringIds = getAllFilteringIdsFromJobOrDefault(job);
+    return report -> validate(report, filteringIds);
+  }
 
+  private Optional<ErrorMessage> validate(Report report, ImmutableSet<UnsignedLong> filteringIds) {
+    if (isFieldNonEmpty(report.sharedInfo().api())) {
       for (UnsignedLong filteringId : filteringIds) {
         @Var Optional<PrivacyBudgetKeyGenerator> privacyBudgetKeyGenerator;
         try {
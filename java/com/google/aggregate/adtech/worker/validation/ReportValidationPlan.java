@@ -0,0 +1,85 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.validation;
+
+import com.google.aggregate.adtech.worker.jobclient.model.Job;
+import com.google.aggregate.adtech.worker.model.ErrorMessage;
+import com.google.aggregate.adtech.worker.model.Report;
+import com.google.aggregate.adtech.worker.validation.ReportValidator.JobReportValidator;
+import com.google.common.collect.ImmutableList;
+import com.google.errorprone.annotations.Var;
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * The report validators of a job, each bound to the job with {@link ReportValidator#forJob}, so
+ * that the values the validations derive from the job are derived once instead of for every
+ * report.
+ *
+ * <p>Reports are validated in a single pass over the validators, in the order of the validator
+ * set, without allocating for reports that pass. If the plan stops at the first error, the
+ * remaining validators are skipped for a report that fails, and only the category of the first
+ * failed validation is counted in the error summary.
+ */
+public final class ReportValidationPlan {
+
+  private final Job job;
+  private final JobReportValidator[] validators;
+  private final boolean stopAtFirstError;
+
+  private ReportValidationPlan(
+      Job job, JobReportValidator[] validators, boolean stopAtFirstError) {
+    this.job = job;
+    this.validators = validators;
+    this.stopAtFirstError = stopAtFirstError;
+  }
+
+  /** Binds the validators to the job. */
+  public static ReportValidationPlan compile(
+      Collection<? extends ReportValidator> reportValidators, Job job, boolean stopAtFirstError) {
+    return new ReportValidationPlan(
+        job,
+        reportValidators.stream()
+            .map(reportValidator -> reportValidator.forJob(job))
+            .toArray(JobReportValidator[]::new),
+        stopAtFirstError);
+  }
+
+  /** The job the validators are bound to. */
+  public Job job() {
+    return job;
+  }
+
+  /** Returns the errors of the validations the report fails, or an empty list if it is valid. */
+  public ImmutableList<ErrorMessage> validate(Report report) {
+    @Var ImmutableList.Builder<ErrorMessage> errors = null;
+    for (JobReportValidator validator : validators) {
+      Optional<ErrorMessage> error = validator.validate(report);
+      if (error.isEmpty()) {
+        continue;
+      }
+      if (stopAtFirstError) {
+        return ImmutableList.of(error.get());
+      }
+      if (errors == null) {
+        errors = ImmutableList.builder();
+      }
+      errors.add(error.get());
+    }
+    return errors == null ? ImmutableList.of() : errors.build();
+  }
+}
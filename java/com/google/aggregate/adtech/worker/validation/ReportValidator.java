@@ -29,4 +29,20 @@ public interface ReportValidator {
    * present when a validation fails, if validation passes the Optional will be absent.
    */
   Optional<ErrorMessage> validate(Report report, Job ctx);
+
+  /**
+   * Returns this validation bound to the given job. Validators that depend on the job override this
+   * to derive the job-level values, e.g. job parameters, once per job instead of once per report.
+   */
+  default JobReportValidator forJob(Job job) {
+    return report -> validate(report, job);
+  }
+
+  /** Validation operation on the reports of a single job, see {@link ReportValidator#forJob}. */
+  @FunctionalInterface
+  interface JobReportValidator {
+
+    /** Like {@link ReportValidator#validate}, for the job the validator is bound to. */
+    Optional<ErrorMessage> validate(Report report);
+  }
 }
@@ -57,27 +57,42 @@ public final class ReportingOriginMatchesRequestValidator implements ReportValid
 
   @Override
   public Optional<ErrorMessage> validate(Report report, Job ctx) {
+    return forJob(ctx).validate(report);
+  }
+
+  /** Looks up the reporting site or origin of the job request once for all reports. */
+  @Override
+  public JobReportValidator forJob(Job job) {
     Optional<String> optionalSiteValue =
-        Optional.ofNullable(ctx.requestInfo().getJobParametersMap().get("reporting_site"));
+        Optional.ofNullable(job.requestInfo().getJobParametersMap().get("reporting_site"));
     if (optionalSiteValue.isPresent()) {
-      try {
-        String reportingSiteParameterValue = optionalSiteValue.get();
-        String siteForReportingOrigin = originToSiteMap.get(report.sharedInfo().reportingOrigin());
-        if (!reportingSiteParameterValue.equals(siteForReportingOrigin)) {
-          return createErrorMessage(REPORTING_SITE_MISMATCH);
-        }
-        return Optional.empty();
-      } catch (ExecutionException e) {
-        return createErrorMessage(ATTRIBUTION_REPORT_TO_MALFORMED);
-      }
-    } else {
-      String attributionReportTo =
-          ctx.requestInfo().getJobParametersMap().get("attribution_report_to");
-      if (report.sharedInfo().reportingOrigin().equals(attributionReportTo)) {
-        return Optional.empty();
+      String reportingSiteParameterValue = optionalSiteValue.get();
+      return report -> validateReportingSite(report, reportingSiteParameterValue);
+    }
+    String attributionReportTo =
+        job.requestInfo().getJobParametersMap().get("attribution_report_to");
+    return report -> validateAttributionReportTo(report, attributionReportTo);
+  }
+
+  private Optional<ErrorMessage> validateReportingSite(
+      Report report, String reportingSiteParameterValue) {
+    try {
+      String siteForReportingOrigin = originToSiteMap.get(report.sharedInfo().reportingOrigin());
+      if (!reportingSiteParameterValue.equals(siteForReportingOrigin)) {
+        return createErrorMessage(REPORTING_SITE_MISMATCH);
       }
+      return Optional.empty();
+    } catch (ExecutionException e) {
+      return createErrorMessage(ATTRIBUTION_REPORT_TO_MALFORMED);
+    }
+  }
 
-      return createErrorMessage(ATTRIBUTION_REPORT_TO_MISMATCH);
+  private static Optional<ErrorMessage> validateAttributionReportTo(
+      Report report, String attributionReportTo) {
+    if (report.sharedInfo().reportingOrigin().equals(attributionReportTo)) {
+      return Optional.empty();
     }
+
+    return createErrorMessage(ATTRIBUTION_REPORT_TO_MISMATCH);
   }
 }
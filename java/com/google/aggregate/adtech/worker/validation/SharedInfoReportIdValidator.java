@@ -18,26 +18,20 @@ package com.google.aggregate.adtech.worker.validation;
 
 import static com.google.aggregate.adtech.worker.model.ErrorCounter.INVALID_REPORT_ID;
 import static com.google.aggregate.adtech.worker.validation.ValidatorHelper.createErrorMessage;
-import static com.google.aggregate.adtech.worker.validation.ValidatorHelper.isFieldNonEmpty;
 
 import com.google.aggregate.adtech.worker.model.ErrorMessage;
 import com.google.aggregate.adtech.worker.model.Report;
 import com.google.aggregate.adtech.worker.jobclient.model.Job;
 import java.util.Optional;
-import java.util.UUID;
 
 /** Validates that the report ID in SharedInfo is a valid UUID. */
 public final class SharedInfoReportIdValidator implements ReportValidator {
 
   @Override
   public Optional<ErrorMessage> validate(Report report, Job unused) {
-    if (isFieldNonEmpty(report.sharedInfo().reportId())) {
-      try {
-        UUID.fromString(report.sharedInfo().reportId().get());
-        return Optional.empty();
-      } catch (IllegalArgumentException exception) {
-        return createErrorMessage(INVALID_REPORT_ID);
-      }
+    // The parsed ID is kept with the report and reused for deduplication.
+    if (report.sharedInfo().parsedReportId().isPresent()) {
+      return Optional.empty();
     }
     return createErrorMessage(INVALID_REPORT_ID);
   }
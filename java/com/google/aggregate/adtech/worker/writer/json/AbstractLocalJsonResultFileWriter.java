@@ -16,68 +16,44 @@
 
 package com.google.aggregate.adtech.worker.writer.json;
 
-import static java.nio.file.StandardOpenOption.CREATE;
-import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
-
 import com.google.aggregate.adtech.worker.model.AggregatedFact;
 import com.google.aggregate.adtech.worker.writer.LocalResultFileWriter;
-import com.google.common.base.Converter;
-import com.google.common.collect.ImmutableList;
+import com.google.errorprone.annotations.Var;
 import java.io.IOException;
-import java.io.OutputStream;
-import java.io.PrintWriter;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Iterator;
 import java.util.stream.Stream;
 import org.apache.avro.Schema;
-import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.file.DataFileReader;
+import org.apache.avro.file.SeekableByteArrayInput;
+import org.apache.avro.generic.GenericDatumReader;
 import org.apache.avro.generic.GenericRecord;
-import org.apache.avro.io.DatumWriter;
-import org.apache.avro.io.EncoderFactory;
-import org.apache.avro.io.JsonEncoder;
 
 /**
  * Local writer result implementation in json format. This helps standalone library to be in
  * human-readable format.
+ *
+ * <p>Output is buffered in memory and written to the file in blocks: every {@link
+ * #RECORDS_PER_BLOCK} records for streamed results, and at the Avro block boundaries for Avro file
+ * bytes, which are transcoded to JSON without being converted to {@link AggregatedFact}s.
  */
 public abstract class AbstractLocalJsonResultFileWriter implements LocalResultFileWriter {
 
-  private final Converter<ImmutableList<AggregatedFact>, byte[]> avroResultsSerdes;
-
-  protected AbstractLocalJsonResultFileWriter(
-      Converter<ImmutableList<AggregatedFact>, byte[]> resultsSerdes) {
-    this.avroResultsSerdes = resultsSerdes;
-  }
+  static final int RECORDS_PER_BLOCK = 4096;
 
   @Override
   public void writeLocalFile(Stream<AggregatedFact> results, Path resultFilePath)
       throws FileWriteException {
-    Schema schema = getSchema();
-
-    DatumWriter<Object> writer = new GenericDatumWriter<>(schema);
-    try {
-      OutputStream outStream = Files.newOutputStream(resultFilePath, CREATE, TRUNCATE_EXISTING);
-      PrintWriter printWriter = new PrintWriter(outStream);
-      JsonEncoder jsonEncoder = EncoderFactory.get().jsonEncoder(schema, outStream, true);
-
+    try (JsonArrayFileWriter jsonWriter = new JsonArrayFileWriter(getSchema(), resultFilePath)) {
       Iterator<AggregatedFact> resultsIterator = results.iterator();
-      printWriter.print('[');
-      printWriter.flush();
+      @Var int recordsInBlock = 0;
       while (resultsIterator.hasNext()) {
-        AggregatedFact aggregatedFact = resultsIterator.next();
-        GenericRecord aggregatedFactRecord = aggregatedFactToGenericRecord(aggregatedFact);
-        writer.write(aggregatedFactRecord, jsonEncoder);
-        jsonEncoder.flush();
-        outStream.flush();
-        if (resultsIterator.hasNext()) {
-          printWriter.print(',');
-          printWriter.flush();
+        jsonWriter.write(aggregatedFactToGenericRecord(resultsIterator.next()));
+        if (++recordsInBlock == RECORDS_PER_BLOCK) {
+          jsonWriter.endBlock();
+          recordsInBlock = 0;
         }
       }
-      printWriter.print(']');
-      printWriter.flush();
-      printWriter.close();
     } catch (IOException e) {
       throw new FileWriteException("Failed to write local JSON file", e);
     }
@@ -85,9 +61,25 @@ public abstract class AbstractLocalJsonResultFileWriter implements LocalResultFi
 
   @Override
   public void writeLocalFile(byte[] avroFileBytes, Path resultFilePath) throws FileWriteException {
-    ImmutableList<AggregatedFact> aggregatedFacts =
-        avroResultsSerdes.reverse().convert(avroFileBytes);
-    this.writeLocalFile(aggregatedFacts.stream(), resultFilePath);
+    try (DataFileReader<GenericRecord> avroReader =
+            new DataFileReader<>(
+                new SeekableByteArrayInput(avroFileBytes), new GenericDatumReader<>());
+        JsonArrayFileWriter jsonWriter =
+            new JsonArrayFileWriter(avroReader.getSchema(), resultFilePath)) {
+      @Var long blockStart = avroReader.previousSync();
+      @Var GenericRecord record = null;
+      while (avroReader.hasNext()) {
+        record = avroReader.next(record);
+        jsonWriter.write(record);
+        // Reading the last record of an Avro block moves the sync position to the next block.
+        if (avroReader.previousSync() != blockStart) {
+          jsonWriter.endBlock();
+          blockStart = avroReader.previousSync();
+        }
+      }
+    } catch (IOException e) {
+      throw new FileWriteException("Failed to write local JSON file", e);
+    }
   }
 
   @Override
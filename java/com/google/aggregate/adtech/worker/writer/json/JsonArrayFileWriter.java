@@ -0,0 +1,90 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.writer.json;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.io.JsonEncoder;
+
+/**
+ * Writes Avro records to a local file as the elements of a JSON array.
+ *
+ * <p>Records are encoded into an in-memory block, which is written to the file only when {@link
+ * #endBlock()} is called. The file therefore sees one write per block instead of several per
+ * record. Not thread-safe.
+ */
+final class JsonArrayFileWriter implements Closeable {
+
+  private static final int INITIAL_BLOCK_BYTES = 1 << 16;
+
+  private final FileChannel fileChannel;
+  private final OutputStream fileStream;
+  private final ByteArrayOutputStream block = new ByteArrayOutputStream(INITIAL_BLOCK_BYTES);
+  private final DatumWriter<Object> datumWriter;
+  private final JsonEncoder jsonEncoder;
+  private boolean isFirstRecord = true;
+
+  JsonArrayFileWriter(Schema schema, Path filePath) throws IOException {
+    fileChannel = FileChannel.open(filePath, CREATE, TRUNCATE_EXISTING, WRITE);
+    fileStream = Channels.newOutputStream(fileChannel);
+    datumWriter = new GenericDatumWriter<>(schema);
+    jsonEncoder = EncoderFactory.get().jsonEncoder(schema, block, true);
+    block.write('[');
+  }
+
+  /** Appends a record to the current block. */
+  void write(GenericRecord record) throws IOException {
+    if (!isFirstRecord) {
+      block.write(',');
+    }
+    datumWriter.write(record, jsonEncoder);
+    // Flushes the encoder into the in-memory block only.
+    jsonEncoder.flush();
+    isFirstRecord = false;
+  }
+
+  /** Writes the current block to the file. */
+  void endBlock() throws IOException {
+    block.writeTo(fileStream);
+    block.reset();
+  }
+
+  /** Closes the JSON array, writes the last block and closes the file. */
+  @Override
+  public void close() throws IOException {
+    try {
+      block.write(']');
+      endBlock();
+    } finally {
+      fileChannel.close();
+    }
+  }
+}
@@ -20,7 +20,6 @@ import static com.google.common.collect.ImmutableList.toImmutableList;
 
 import com.google.aggregate.adtech.worker.model.AggregatedFact;
 import com.google.aggregate.adtech.worker.model.DebugBucketAnnotation;
-import com.google.aggregate.adtech.worker.model.serdes.AvroDebugResultsSerdes;
 import com.google.aggregate.adtech.worker.util.NumericConversions;
 import com.google.aggregate.protocol.avro.AvroDebugResultsSchemaSupplier;
 import com.google.common.collect.ImmutableList;
@@ -41,9 +40,7 @@ public final class LocalJsonDebugResultFileWriter extends AbstractLocalJsonResul
   private final AvroDebugResultsSchemaSupplier schemaSupplier;
 
   @Inject
-  LocalJsonDebugResultFileWriter(
-      AvroDebugResultsSchemaSupplier schemaSupplier, AvroDebugResultsSerdes debugResultsSerdes) {
-    super(debugResultsSerdes);
+  LocalJsonDebugResultFileWriter(AvroDebugResultsSchemaSupplier schemaSupplier) {
     this.schemaSupplier = schemaSupplier;
   }
 
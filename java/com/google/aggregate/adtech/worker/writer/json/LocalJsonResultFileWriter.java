@@ -17,7 +17,6 @@
 package com.google.aggregate.adtech.worker.writer.json;
 
 import com.google.aggregate.adtech.worker.model.AggregatedFact;
-import com.google.aggregate.adtech.worker.model.serdes.AvroResultsSerdes;
 import com.google.aggregate.adtech.worker.util.NumericConversions;
 import com.google.aggregate.protocol.avro.AvroResultsSchemaSupplier;
 import java.nio.ByteBuffer;
@@ -35,9 +34,7 @@ public final class LocalJsonResultFileWriter extends AbstractLocalJsonResultFile
   private final AvroResultsSchemaSupplier schemaSupplier;
 
   @Inject
-  LocalJsonResultFileWriter(
-      AvroResultsSchemaSupplier schemaSupplier, AvroResultsSerdes resultsSerdes) {
-    super(resultsSerdes);
+  LocalJsonResultFileWriter(AvroResultsSchemaSupplier schemaSupplier) {
     this.schemaSupplier = schemaSupplier;
   }
 
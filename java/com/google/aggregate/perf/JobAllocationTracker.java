@@ -0,0 +1,113 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.perf;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.errorprone.annotations.Var;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Measures the heap allocated by all threads and the peak heap usage of the JVM from the time it
+ * is started, e.g. while a job is processed.
+ *
+ * <p>Allocations are read from the allocation counters of the threads, which the JVM maintains
+ * anyway, so tracking a job costs two snapshots of the counters. Allocations of threads that
+ * terminate before the measurement are lost, which is fine for the long-lived pool threads that
+ * process jobs.
+ */
+public final class JobAllocationTracker {
+
+  private final Optional<com.sun.management.ThreadMXBean> threadBean;
+  private final ImmutableList<MemoryPoolMXBean> heapPools;
+  private final ImmutableMap<Long, Long> startAllocatedBytes;
+
+  private JobAllocationTracker(
+      Optional<com.sun.management.ThreadMXBean> threadBean,
+      ImmutableList<MemoryPoolMXBean> heapPools) {
+    this.threadBean = threadBean;
+    this.heapPools = heapPools;
+    this.startAllocatedBytes =
+        threadBean.map(JobAllocationTracker::readAllocatedBytes).orElse(ImmutableMap.of());
+  }
+
+  /** Starts measuring. Resets the peak usage of the heap memory pools. */
+  public static JobAllocationTracker start() {
+    ImmutableList<MemoryPoolMXBean> heapPools =
+        ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP && pool.isValid())
+            .collect(ImmutableList.toImmutableList());
+    heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+    return new JobAllocationTracker(allocationCountingThreadBean(), heapPools);
+  }
+
+  /**
+   * Returns the bytes allocated by all live threads since the start, or 0 if the JVM does not count
+   * thread allocations.
+   */
+  public long allocatedBytes() {
+    if (threadBean.isEmpty()) {
+      return 0;
+    }
+    @Var long allocatedBytes = 0;
+    for (Map.Entry<Long, Long> thread : readAllocatedBytes(threadBean.get()).entrySet()) {
+      allocatedBytes += thread.getValue() - startAllocatedBytes.getOrDefault(thread.getKey(), 0L);
+    }
+    return allocatedBytes;
+  }
+
+  /**
+   * Returns the sum of the peak usage of the heap memory pools since the start. The pools may peak
+   * at different times, so this is an upper bound of the peak heap usage.
+   */
+  public long peakHeapBytes() {
+    return heapPools.stream()
+        .filter(MemoryPoolMXBean::isValid)
+        .mapToLong(pool -> pool.getPeakUsage().getUsed())
+        .sum();
+  }
+
+  private static Optional<com.sun.management.ThreadMXBean> allocationCountingThreadBean() {
+    if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) {
+      return Optional.empty();
+    }
+    com.sun.management.ThreadMXBean threadBean =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    return threadBean.isThreadAllocatedMemorySupported()
+            && threadBean.isThreadAllocatedMemoryEnabled()
+        ? Optional.of(threadBean)
+        : Optional.empty();
+  }
+
+  private static ImmutableMap<Long, Long> readAllocatedBytes(
+      com.sun.management.ThreadMXBean threadBean) {
+    long[] threadIds = threadBean.getAllThreadIds();
+    long[] allocatedBytes = threadBean.getThreadAllocatedBytes(threadIds);
+    ImmutableMap.Builder<Long, Long> allocatedBytesByThread = ImmutableMap.builder();
+    for (int i = 0; i < threadIds.length; i++) {
+      // Threads that terminated since their IDs were read report -1.
+      if (allocatedBytes[i] >= 0) {
+        allocatedBytesByThread.put(threadIds[i], allocatedBytes[i]);
+      }
+    }
+    return allocatedBytesByThread.build();
+  }
+}
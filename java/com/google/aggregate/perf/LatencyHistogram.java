@@ -0,0 +1,173 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.perf;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Immutable snapshot of a log-linear latency histogram.
+ *
+ * <p>Latencies below {@code 2^SUB_BUCKET_BITS} nanoseconds get a bucket each. Larger latencies are
+ * grouped by their highest set bit, and each power of two is split into {@code 2^SUB_BUCKET_BITS}
+ * linear sub-buckets, so a percentile is off by at most 12.5% of the recorded value. Histograms
+ * have a fixed bucket layout, which makes them cheap to merge across threads and to subtract for
+ * interval deltas.
+ */
+public final class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+  /** Number of buckets needed to cover every non-negative {@code long} nanosecond value. */
+  static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+  private static final LatencyHistogram EMPTY =
+      new LatencyHistogram(new long[BUCKET_COUNT], /* totalNanos= */ 0, /* maxNanos= */ 0);
+
+  private final long[] counts;
+  private final long totalCount;
+  private final long totalNanos;
+  private final long maxNanos;
+
+  private LatencyHistogram(long[] counts, long totalNanos, long maxNanos) {
+    this.counts = counts;
+    this.totalCount = Arrays.stream(counts).sum();
+    this.totalNanos = totalNanos;
+    this.maxNanos = maxNanos;
+  }
+
+  public static LatencyHistogram empty() {
+    return EMPTY;
+  }
+
+  /**
+   * Creates a histogram from raw bucket counts.
+   *
+   * @param counts bucket counts indexed by {@link #bucketIndex(long)}; copied.
+   */
+  static LatencyHistogram fromCounts(long[] counts, long totalNanos, long maxNanos) {
+    checkArgument(counts.length == BUCKET_COUNT, "Expected %s buckets", BUCKET_COUNT);
+    return new LatencyHistogram(counts.clone(), totalNanos, maxNanos);
+  }
+
+  /** Creates a histogram holding the given latencies. Intended for tests and tooling. */
+  public static LatencyHistogram of(Duration... latencies) {
+    long[] counts = new long[BUCKET_COUNT];
+    long totalNanos = 0;
+    long maxNanos = 0;
+    for (Duration latency : latencies) {
+      long nanos = Math.max(0, latency.toNanos());
+      counts[bucketIndex(nanos)]++;
+      totalNanos += nanos;
+      maxNanos = Math.max(maxNanos, nanos);
+    }
+    return new LatencyHistogram(counts, totalNanos, maxNanos);
+  }
+
+  /** Returns the bucket a non-negative nanosecond value is counted in. */
+  static int bucketIndex(long nanos) {
+    if (nanos < SUB_BUCKET_COUNT) {
+      return (int) Math.max(0, nanos);
+    }
+    int highestBit = Long.SIZE - 1 - Long.numberOfLeadingZeros(nanos);
+    int subBucket = (int) (nanos >>> (highestBit - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+    return (highestBit - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+  }
+
+  /** Returns the smallest nanosecond value counted in the bucket. */
+  private static long bucketLowerBound(int index) {
+    if (index < SUB_BUCKET_COUNT) {
+      return index;
+    }
+    int highestBit = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+    long subBucket = index % SUB_BUCKET_COUNT;
+    return (SUB_BUCKET_COUNT + subBucket) << (highestBit - SUB_BUCKET_BITS);
+  }
+
+  /** Returns the number of nanosecond values counted in the bucket. */
+  private static long bucketWidth(int index) {
+    if (index < SUB_BUCKET_COUNT) {
+      return 1;
+    }
+    int highestBit = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+    return 1L << (highestBit - SUB_BUCKET_BITS);
+  }
+
+  /** Number of recorded latencies. */
+  public long count() {
+    return totalCount;
+  }
+
+  /** Sum of all recorded latencies. */
+  public Duration total() {
+    return Duration.ofNanos(totalNanos);
+  }
+
+  /** Largest recorded latency. Not meaningful for histograms produced by {@link #minus}. */
+  public Duration max() {
+    return Duration.ofNanos(maxNanos);
+  }
+
+  /**
+   * Returns the latency at the given percentile, or zero if the histogram is empty.
+   *
+   * @param percentile value in (0, 100].
+   */
+  public Duration percentile(double percentile) {
+    checkArgument(percentile > 0 && percentile <= 100, "Percentile must be in (0, 100]");
+    if (totalCount == 0) {
+      return Duration.ZERO;
+    }
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * totalCount));
+    long seen = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        // Report the middle of the bucket, capped by the largest value actually recorded.
+        long midpoint = bucketLowerBound(i) + (bucketWidth(i) - 1) / 2;
+        return Duration.ofNanos(maxNanos > 0 ? Math.min(midpoint, maxNanos) : midpoint);
+      }
+    }
+    return Duration.ofNanos(maxNanos);
+  }
+
+  /** Returns a histogram holding the latencies of both histograms. */
+  public LatencyHistogram merge(LatencyHistogram other) {
+    long[] merged = counts.clone();
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      merged[i] += other.counts[i];
+    }
+    return new LatencyHistogram(
+        merged, totalNanos + other.totalNanos, Math.max(maxNanos, other.maxNanos));
+  }
+
+  /**
+   * Returns the latencies recorded since {@code earlier}, a previous snapshot of the same
+   * recorder. The maximum of the result is unknown and reported as zero.
+   */
+  public LatencyHistogram minus(LatencyHistogram earlier) {
+    long[] delta = counts.clone();
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      delta[i] = Math.max(0, delta[i] - earlier.counts[i]);
+    }
+    return new LatencyHistogram(
+        delta, Math.max(0, totalNanos - earlier.totalNanos), /* maxNanos= */ 0);
+  }
+}
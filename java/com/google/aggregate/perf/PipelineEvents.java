@@ -0,0 +1,179 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.perf;
+
+import com.google.common.collect.ImmutableList;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events of the aggregation pipeline stages, tagged with the key of the job
+ * being processed.
+ *
+ * <p>Events are only written while a recording that enables them is running, e.g. a per-job
+ * recording of the worker or one started with {@code -XX:StartFlightRecording}. Otherwise, creating
+ * and committing an event only checks whether it is enabled, so events can be emitted for every
+ * batch of the pipeline. The worker processes one job at a time, so the job key is set once per job
+ * instead of being passed down to every stage.
+ *
+ * <p>Recordings of a job may leave the worker, so events only carry timings and sizes that are
+ * already known to the requester of the job, such as the input shards, the batch sizes and the
+ * errors reported in the job result. Counts that depend on the unnoised aggregation, e.g. the
+ * number of facts of a summary report shard or of budget units, must not be added to events.
+ */
+public final class PipelineEvents {
+
+  private static final String CATEGORY = "Aggregation Service";
+
+  private static volatile String currentJobKey = "";
+
+  private PipelineEvents() {}
+
+  /** Sets the key of the job that events created from now on are tagged with. */
+  public static void setCurrentJobKey(String jobKey) {
+    currentJobKey = jobKey;
+  }
+
+  /** Stops tagging new events with the key of the finished job. */
+  public static void clearCurrentJobKey() {
+    currentJobKey = "";
+  }
+
+  /** Returns all pipeline event classes, e.g. to enable them in a recording. */
+  public static ImmutableList<Class<? extends Event>> eventClasses() {
+    return ImmutableList.of(
+        ShardReadEvent.class,
+        DecryptBatchEvent.class,
+        AggregateBatchEvent.class,
+        DomainConflationEvent.class,
+        EncodeEvent.class,
+        UploadEvent.class,
+        PbsCallEvent.class,
+        JobAllocationEvent.class);
+  }
+
+  /** Base class of events tagged with the key of the current job. */
+  @Category({CATEGORY, "Pipeline"})
+  @StackTrace(false)
+  public abstract static class JobEvent extends Event {
+    @Label("Job Key")
+    String jobKey = currentJobKey;
+  }
+
+  /** Reading an input report shard, from opening it until it is closed. */
+  @Name("com.google.aggregate.ShardRead")
+  @Label("Input Shard Read")
+  public static final class ShardReadEvent extends JobEvent {
+    @Label("Shard")
+    String shard;
+
+    @Label("Shard Size")
+    @DataAmount
+    long shardBytes;
+
+    public void setShard(String shard, long shardBytes) {
+      this.shard = shard;
+      this.shardBytes = shardBytes;
+    }
+  }
+
+  /** Decrypting and validating a batch of reports. */
+  @Name("com.google.aggregate.DecryptBatch")
+  @Label("Decrypt Batch")
+  public static final class DecryptBatchEvent extends JobEvent {
+    @Label("Reports")
+    int reports;
+
+    @Label("Failed Reports")
+    @Description("Reports that failed decryption or validation.")
+    int failedReports;
+
+    public void setReports(int reports, int failedReports) {
+      this.reports = reports;
+      this.failedReports = failedReports;
+    }
+  }
+
+  /** Adding the contributions of a batch of decrypted reports to the aggregation. */
+  @Name("com.google.aggregate.AggregateBatch")
+  @Label("Aggregate Batch")
+  public static final class AggregateBatchEvent extends JobEvent {}
+
+  /** Conflating the output domain keys of one summary report shard with the aggregation. */
+  @Name("com.google.aggregate.DomainConflation")
+  @Label("Domain Shard Conflation")
+  public static final class DomainConflationEvent extends JobEvent {}
+
+  /** Encoding the facts of one summary report shard, and its debug shard for debug runs. */
+  @Name("com.google.aggregate.Encode")
+  @Label("Shard Encode")
+  public static final class EncodeEvent extends JobEvent {
+    @Label("Shard ID")
+    int shardId;
+
+    public void setShardId(int shardId) {
+      this.shardId = shardId;
+    }
+  }
+
+  /** Uploading a summary report shard. */
+  @Name("com.google.aggregate.Upload")
+  @Label("Upload")
+  public static final class UploadEvent extends JobEvent {
+    @Label("Blob")
+    String blob;
+
+    @Label("Size")
+    @DataAmount
+    long bytes;
+
+    public void setBlob(String blob, long bytes) {
+      this.blob = blob;
+      this.bytes = bytes;
+    }
+  }
+
+  /** Consuming the privacy budget of a job. */
+  @Name("com.google.aggregate.PbsCall")
+  @Label("Privacy Budget Service Call")
+  public static final class PbsCallEvent extends JobEvent {}
+
+  /** Processing a job, with the heap allocated by the worker threads while it ran. */
+  @Name("com.google.aggregate.JobAllocation")
+  @Label("Job Allocation")
+  @Category({CATEGORY, "Jobs"})
+  public static final class JobAllocationEvent extends JobEvent {
+    @Label("Allocated")
+    @DataAmount
+    long allocatedBytes;
+
+    @Label("Peak Heap")
+    @Description("Sum of the peak usage of the heap memory pools while the job ran.")
+    @DataAmount
+    long peakHeapBytes;
+
+    public void setAllocation(long allocatedBytes, long peakHeapBytes) {
+      this.allocatedBytes = allocatedBytes;
+      this.peakHeapBytes = peakHeapBytes;
+    }
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.perf;
+
+import java.util.Locale;
+
+/**
+ * Stages of the aggregation pipeline whose latencies are tracked by {@link StageMetricsRegistry}.
+ */
+public enum PipelineStage {
+  /** Opening an input report shard until its first byte is available. */
+  READ,
+  /** Converting an Avro record to an encrypted report. */
+  PARSE,
+  /** Decrypting and deserializing a single report. */
+  DECRYPT,
+  /** Running all report validators on a decrypted report. */
+  VALIDATE,
+  /** Adding a validated report's contributions to the aggregation engine. */
+  AGGREGATE,
+  /** Opening an output domain shard until its first byte is available. */
+  DOMAIN_READ,
+  /** Noising a single aggregated fact. */
+  NOISE,
+  /** Encoding a batch of facts to summary report bytes. */
+  ENCODE,
+  /** Writing and uploading a single summary report shard. */
+  UPLOAD,
+  /** Consuming privacy budget for a job. */
+  PBS;
+
+  /** Returns the lower case name of the stage used in exported metric names. */
+  public String metricName() {
+    return name().toLowerCase(Locale.ROOT);
+  }
+}
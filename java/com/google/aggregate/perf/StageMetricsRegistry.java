@@ -0,0 +1,158 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.perf;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableMap;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Registry of per-stage latency histograms and item counters for the aggregation pipeline.
+ *
+ * <p>Recording is cheap enough to be done for every report: latencies are written to a buffer
+ * owned by the recording thread without locks or allocation, and item counts go to striped {@link
+ * LongAdder}s. Snapshots merge the buffers of all threads that have recorded so far and can be
+ * taken at any time while a job is running.
+ */
+@Singleton
+public final class StageMetricsRegistry {
+
+  private static final int STAGE_COUNT = PipelineStage.values().length;
+
+  private final Ticker ticker;
+  private final Queue<ThreadBuffer> threadBuffers = new ConcurrentLinkedQueue<>();
+  private final ThreadLocal<ThreadBuffer> localBuffer =
+      ThreadLocal.withInitial(this::registerThreadBuffer);
+  private final ImmutableMap<PipelineStage, LongAdder> itemCounters;
+
+  @Inject
+  public StageMetricsRegistry() {
+    this(Ticker.systemTicker());
+  }
+
+  @VisibleForTesting
+  public StageMetricsRegistry(Ticker ticker) {
+    this.ticker = ticker;
+    Map<PipelineStage, LongAdder> counters = new EnumMap<>(PipelineStage.class);
+    for (PipelineStage stage : PipelineStage.values()) {
+      counters.put(stage, new LongAdder());
+    }
+    this.itemCounters = ImmutableMap.copyOf(counters);
+  }
+
+  /** Returns the current ticker reading, to be passed to {@link #recordSince}. */
+  public long startNanos() {
+    return ticker.read();
+  }
+
+  /** Records the time elapsed since {@code startNanos} as one latency sample of the stage. */
+  public void recordSince(PipelineStage stage, long startNanos) {
+    record(stage, ticker.read() - startNanos);
+  }
+
+  /** Records one latency sample of the stage. */
+  public void record(PipelineStage stage, long elapsedNanos) {
+    localBuffer.get().record(stage.ordinal(), Math.max(0, elapsedNanos));
+  }
+
+  /** Adds to the number of items, e.g. reports or facts, processed by the stage. */
+  public void addItems(PipelineStage stage, long count) {
+    itemCounters.get(stage).add(count);
+  }
+
+  /** Snapshots the latency histograms of all stages, merged across threads. */
+  public ImmutableMap<PipelineStage, LatencyHistogram> snapshotLatencies() {
+    Map<PipelineStage, LatencyHistogram> histograms = new EnumMap<>(PipelineStage.class);
+    for (PipelineStage stage : PipelineStage.values()) {
+      LatencyHistogram merged = LatencyHistogram.empty();
+      for (ThreadBuffer buffer : threadBuffers) {
+        merged = merged.merge(buffer.snapshot(stage.ordinal()));
+      }
+      histograms.put(stage, merged);
+    }
+    return ImmutableMap.copyOf(histograms);
+  }
+
+  /** Snapshots the item counts of all stages. */
+  public ImmutableMap<PipelineStage, Long> snapshotItemCounts() {
+    Map<PipelineStage, Long> counts = new EnumMap<>(PipelineStage.class);
+    itemCounters.forEach((stage, counter) -> counts.put(stage, counter.sum()));
+    return ImmutableMap.copyOf(counts);
+  }
+
+  /**
+   * Snapshots the p50 and p99 latency of every stage that has recorded samples, keyed as {@code
+   * stage_<stage>_p50} and {@code stage_<stage>_p99} for stopwatch-style exports.
+   */
+  public ImmutableMap<String, Duration> collectStagePercentiles() {
+    ImmutableMap.Builder<String, Duration> percentiles = ImmutableMap.builder();
+    snapshotLatencies()
+        .forEach(
+            (stage, histogram) -> {
+              if (histogram.count() > 0) {
+                percentiles.put("stage_" + stage.metricName() + "_p50", histogram.percentile(50));
+                percentiles.put("stage_" + stage.metricName() + "_p99", histogram.percentile(99));
+              }
+            });
+    return percentiles.build();
+  }
+
+  private ThreadBuffer registerThreadBuffer() {
+    ThreadBuffer buffer = new ThreadBuffer();
+    threadBuffers.add(buffer);
+    return buffer;
+  }
+
+  /**
+   * Histogram buckets of all stages for a single recording thread. Only the owning thread writes,
+   * so increments are plain read-then-release-write pairs; snapshots read with volatile semantics
+   * and may miss samples being recorded concurrently.
+   */
+  private static final class ThreadBuffer {
+    private final AtomicLongArray counts =
+        new AtomicLongArray(STAGE_COUNT * LatencyHistogram.BUCKET_COUNT);
+    private final AtomicLongArray totalNanos = new AtomicLongArray(STAGE_COUNT);
+    private final AtomicLongArray maxNanos = new AtomicLongArray(STAGE_COUNT);
+
+    void record(int stage, long nanos) {
+      int index = stage * LatencyHistogram.BUCKET_COUNT + LatencyHistogram.bucketIndex(nanos);
+      counts.setRelease(index, counts.getPlain(index) + 1);
+      totalNanos.setRelease(stage, totalNanos.getPlain(stage) + nanos);
+      if (nanos > maxNanos.getPlain(stage)) {
+        maxNanos.setRelease(stage, nanos);
+      }
+    }
+
+    LatencyHistogram snapshot(int stage) {
+      long[] stageCounts = new long[LatencyHistogram.BUCKET_COUNT];
+      int offset = stage * LatencyHistogram.BUCKET_COUNT;
+      for (int i = 0; i < stageCounts.length; i++) {
+        stageCounts[i] = counts.get(offset + i);
+      }
+      return LatencyHistogram.fromCounts(stageCounts, totalNanos.get(stage), maxNanos.get(stage));
+    }
+  }
+}
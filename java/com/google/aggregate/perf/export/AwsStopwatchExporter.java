@@ -22,6 +22,7 @@ import static java.lang.annotation.ElementType.METHOD;
 import static java.lang.annotation.ElementType.PARAMETER;
 import static java.lang.annotation.RetentionPolicy.RUNTIME;
 
+import com.google.aggregate.perf.StageMetricsRegistry;
 import com.google.aggregate.perf.StopwatchExporter;
 import com.google.aggregate.perf.StopwatchExporter.StopwatchExportException;
 import com.google.aggregate.perf.StopwatchRegistry;
@@ -37,6 +38,7 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.Target;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.stream.Stream;
 
 /** Stopwatch exporter that exports to a plaintext file in an S3 bucket. */
 public final class AwsStopwatchExporter implements StopwatchExporter {
@@ -44,24 +46,30 @@ public final class AwsStopwatchExporter implements StopwatchExporter {
   private final String exportBucketName;
   private final String keyName;
   private final BlobStorageClient blobStorageClient;
+  private final StageMetricsRegistry stageMetrics;
   private Path stopwatchFile;
 
   @Inject
   AwsStopwatchExporter(
       @StopwatchBucketName String exportBucketName,
       @StopwatchKeyName String keyName,
-      BlobStorageClient blobStorageClient) {
+      BlobStorageClient blobStorageClient,
+      StageMetricsRegistry stageMetrics) {
     this.exportBucketName = exportBucketName;
     this.keyName = keyName;
     this.blobStorageClient = blobStorageClient;
+    this.stageMetrics = stageMetrics;
   }
 
   @Override
   public void export(StopwatchRegistry stopwatches) throws StopwatchExportException {
     // Forms the file lines as just comma separated key/value pairs, key being the stopwatch name,
-    // and the value being the recorded millisecond duration.
+    // and the value being the recorded millisecond duration. Per-stage latency percentiles are
+    // appended in the same format.
     ImmutableList<String> fileLines =
-        stopwatches.collectStopwatchTimes().entrySet().stream()
+        Stream.concat(
+                stopwatches.collectStopwatchTimes().entrySet().stream(),
+                stageMetrics.collectStagePercentiles().entrySet().stream())
             .map(
                 stopwatchEntry ->
                     String.format(
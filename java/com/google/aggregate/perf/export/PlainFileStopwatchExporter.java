@@ -22,6 +22,7 @@ import static java.lang.annotation.ElementType.METHOD;
 import static java.lang.annotation.ElementType.PARAMETER;
 import static java.lang.annotation.RetentionPolicy.RUNTIME;
 
+import com.google.aggregate.perf.StageMetricsRegistry;
 import com.google.aggregate.perf.StopwatchExporter;
 import com.google.aggregate.perf.StopwatchRegistry;
 import com.google.common.collect.ImmutableList;
@@ -31,24 +32,31 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.Target;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.stream.Stream;
 import javax.inject.Inject;
 
 /** Stopwatch exporter that exports to a plaintext local file */
 public final class PlainFileStopwatchExporter implements StopwatchExporter {
 
   private final Path exportLocation;
+  private final StageMetricsRegistry stageMetrics;
 
   @Inject
-  public PlainFileStopwatchExporter(@StopwatchExporterFileLocation Path exportLocation) {
+  public PlainFileStopwatchExporter(
+      @StopwatchExporterFileLocation Path exportLocation, StageMetricsRegistry stageMetrics) {
     this.exportLocation = exportLocation;
+    this.stageMetrics = stageMetrics;
   }
 
   @Override
   public void export(StopwatchRegistry stopwatches) throws StopwatchExportException {
     // Forms the file lines as just comma separated key/value pairs, key being the stopwatch name,
-    // and the value being the recorded millisecond duration.
+    // and the value being the recorded millisecond duration. Per-stage latency percentiles are
+    // appended in the same format.
     ImmutableList<String> fileLines =
-        stopwatches.collectStopwatchTimes().entrySet().stream()
+        Stream.concat(
+                stopwatches.collectStopwatchTimes().entrySet().stream(),
+                stageMetrics.collectStagePercentiles().entrySet().stream())
             .map(
                 stopwatchEntry ->
                     String.format(
@@ -88,18 +88,15 @@ public final class HttpPrivacyBudgetingServiceBridge implements PrivacyBudgeting
       PrivacyBudgetUnit workerBudgetUnit,
       Map<String, Set<com.google.scp.coordinator.privacy.budgeting.model.PrivacyBudgetUnit>>
           originToApiBudgetUnits) {
-    String reportingOrigin = workerBudgetUnit.reportingOrigin();
     // The ordering does not matter from code logic point of view. It simply makes it easier to
-    // assert on during unit tests.
-    Set<com.google.scp.coordinator.privacy.budgeting.model.PrivacyBudgetUnit> apiBudgetUnits =
-        originToApiBudgetUnits.getOrDefault(reportingOrigin, new LinkedHashSet<>());
-    com.google.scp.coordinator.privacy.budgeting.model.PrivacyBudgetUnit apiBudgetUnit =
-        com.google.scp.coordinator.privacy.budgeting.model.PrivacyBudgetUnit.builder()
-            .privacyBudgetKey(workerBudgetUnit.privacyBudgetKey())
-            .reportingWindow(workerBudgetUnit.scheduledReportTime())
-            .build();
-    apiBudgetUnits.add(apiBudgetUnit);
-    originToApiBudgetUnits.put(reportingOrigin, apiBudgetUnits);
+    // assert on during unit tests. Only one set is allocated per origin.
+    originToApiBudgetUnits
+        .computeIfAbsent(workerBudgetUnit.reportingOrigin(), unused -> new LinkedHashSet<>())
+        .add(
+            com.google.scp.coordinator.privacy.budgeting.model.PrivacyBudgetUnit.builder()
+                .privacyBudgetKey(workerBudgetUnit.privacyBudgetKey())
+                .reportingWindow(workerBudgetUnit.scheduledReportTime())
+                .build());
   }
 
   /** Converts coordinator's privacy budget unit ID to worker's representation */
@@ -17,8 +17,10 @@
 package com.google.aggregate.privacy.noise;
 
 import com.google.aggregate.adtech.worker.model.AggregatedFact;
+import com.google.aggregate.adtech.worker.model.FactBatch;
 import com.google.aggregate.privacy.noise.model.NoisedAggregationResult;
 import com.google.common.collect.ImmutableList;
+import java.util.BitSet;
 import java.util.List;
 
 /** Interface to apply Differential Private Noising to {@code AggregateFact}. */
@@ -68,4 +70,18 @@ public interface NoisedAggregationRunner {
    */
   ImmutableList<AggregatedFact> thresholdAggregatedFacts(
       List<AggregatedFact> aggregatedFacts, JobScopedPrivacyParams privacyParams);
+
+  /**
+   * Applies noise in place to the metric of every row of {@code facts}. The unnoised metrics are
+   * kept in the batch.
+   */
+  void noiseBatch(FactBatch facts, JobScopedPrivacyParams privacyParams);
+
+  /**
+   * Thresholds a batch of noised facts. The Threshold value is determined by the privacy
+   * parameters.
+   *
+   * @return the rows of {@code facts} with noised metrics greater than the threshold.
+   */
+  BitSet thresholdBatch(FactBatch facts, JobScopedPrivacyParams privacyParams);
 }
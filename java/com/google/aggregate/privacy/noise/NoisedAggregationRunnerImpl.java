@@ -21,12 +21,14 @@ import static com.google.common.collect.ImmutableList.toImmutableList;
 import com.google.aggregate.adtech.worker.Annotations.CustomForkJoinThreadPool;
 import com.google.aggregate.adtech.worker.Annotations.ParallelAggregatedFactNoising;
 import com.google.aggregate.adtech.worker.model.AggregatedFact;
+import com.google.aggregate.adtech.worker.model.FactBatch;
 import com.google.aggregate.privacy.noise.model.NoisedAggregationResult;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Streams;
 import com.google.common.math.DoubleMath;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.inject.Inject;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
@@ -129,4 +131,28 @@ public final class NoisedAggregationRunnerImpl implements NoisedAggregationRunne
     aggregatedFact.setMetric(noiseApplierSupplier.get().noiseMetric(unnoisedMetric, privacyParams));
     return aggregatedFact;
   }
+
+  /*
+   * Noises the batch on the calling thread; batches are already noised concurrently by the callers,
+   * so the fork join pool of parallel noising is not used.
+   */
+  @Override
+  public void noiseBatch(FactBatch facts, JobScopedPrivacyParams privacyParams) {
+    NoiseApplier noiseApplier = noiseApplierSupplier.get();
+    for (int row = 0; row < facts.size(); row++) {
+      facts.setNoisedMetric(row, noiseApplier.noiseMetric(facts.getMetric(row), privacyParams));
+    }
+  }
+
+  @Override
+  public BitSet thresholdBatch(FactBatch facts, JobScopedPrivacyParams privacyParams) {
+    double threshold = thresholdSupplier.get(privacyParams);
+    BitSet keptRows = new BitSet(facts.size());
+    for (int row = 0; row < facts.size(); row++) {
+      if (DoubleMath.fuzzyCompare(facts.getMetric(row), threshold, TOLERANCE) >= 0) {
+        keptRows.set(row);
+      }
+    }
+    return keptRows;
+  }
 }
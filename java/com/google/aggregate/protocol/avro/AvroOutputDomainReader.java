@@ -29,6 +29,16 @@ public final class AvroOutputDomainReader extends AvroRecordReader<AvroOutputDom
     super(streamReader);
   }
 
+  /**
+   * Returns true if the writer guaranteed that the buckets of this file are in strictly ascending
+   * order, see {@link AvroOutputDomainWriter#writeSortedRecords}.
+   */
+  public boolean hasSortedBuckets() {
+    return getMeta(AvroOutputDomainWriter.SORTED_BUCKETS_METADATA_KEY)
+        .map(Boolean::parseBoolean)
+        .orElse(false);
+  }
+
   AvroOutputDomainRecord deserializeRecordFromGeneric(GenericRecord record) {
     byte[] bucketBytes = ((ByteBuffer) record.get("bucket")).array();
     BigInteger bucket = NumericConversions.uInt128FromBytes(bucketBytes);
@@ -16,7 +16,11 @@
 
 package com.google.aggregate.protocol.avro;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
 import com.google.aggregate.adtech.worker.util.NumericConversions;
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import org.apache.avro.Schema;
@@ -33,6 +37,12 @@ import org.apache.avro.generic.GenericRecord;
  */
 public final class AvroOutputDomainWriter extends AvroRecordWriter<AvroOutputDomainRecord> {
 
+  /**
+   * Metadata key set to "true" on domain files whose buckets are stored in strictly ascending
+   * order. Readers may rely on the order only when this key is present.
+   */
+  public static final String SORTED_BUCKETS_METADATA_KEY = "sorted_buckets";
+
   /**
    * Creates a writer based on the given Avro writer and schema supplier (where Avro writer should
    * *NOT* be open, just initialized; check the Avro docs for details)
@@ -53,4 +63,26 @@ public final class AvroOutputDomainWriter extends AvroRecordWriter<AvroOutputDom
     record.put("bucket", bucketBytes);
     return record;
   }
+
+  /**
+   * Writes out the records sorted by bucket and without duplicates, and marks the file as sorted
+   * with {@link #SORTED_BUCKETS_METADATA_KEY}.
+   */
+  public void writeSortedRecords(
+      ImmutableList<MetadataElement> metadata, ImmutableList<AvroOutputDomainRecord> records)
+      throws IOException {
+    ImmutableList<AvroOutputDomainRecord> sortedRecords =
+        records.stream()
+            .map(AvroOutputDomainRecord::bucket)
+            .distinct()
+            .sorted()
+            .map(AvroOutputDomainRecord::create)
+            .collect(toImmutableList());
+    ImmutableList<MetadataElement> sortedMetadata =
+        ImmutableList.<MetadataElement>builder()
+            .addAll(metadata)
+            .add(MetadataElement.create(SORTED_BUCKETS_METADATA_KEY, "true"))
+            .build();
+    writeRecords(sortedMetadata, sortedRecords);
+  }
 }
@@ -0,0 +1,264 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.protocol.binary;
+
+import static com.google.aggregate.protocol.binary.BinaryOutputDomainWriter.BUCKET_SIZE_BYTES;
+import static com.google.aggregate.protocol.binary.BinaryOutputDomainWriter.HEADER_SIZE_BYTES;
+import static com.google.aggregate.protocol.binary.BinaryOutputDomainWriter.MAGIC;
+import static com.google.aggregate.protocol.binary.BinaryOutputDomainWriter.SORTED_BUCKETS_FLAG;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads output domain buckets written by {@link BinaryOutputDomainWriter}.
+ *
+ * <p>Files are memory-mapped and streams are read into a single buffer sized from the header, which
+ * is checked against the size of the stream when it is known.
+ * Buckets are decoded straight from the buffer, and large files are decoded in parallel by
+ * splitting the buffer into ranges of byte offsets.
+ */
+public final class BinaryOutputDomainReader {
+
+  // Below this number of buckets, decoding is not worth splitting across threads.
+  private static final int MIN_PARALLEL_DECODE_BUCKETS = 1 << 16;
+  private static final int MAX_BUCKET_COUNT =
+      (Integer.MAX_VALUE - HEADER_SIZE_BYTES) / BUCKET_SIZE_BYTES;
+
+  private final ByteBuffer buffer;
+  private final int flags;
+  private final int bucketCount;
+
+  private BinaryOutputDomainReader(ByteBuffer buffer, int flags, int bucketCount) {
+    this.buffer = buffer;
+    this.flags = flags;
+    this.bucketCount = bucketCount;
+  }
+
+  /** Memory-maps the file at {@code path}. */
+  public static BinaryOutputDomainReader fromPath(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      if (channel.size() < HEADER_SIZE_BYTES || channel.size() > Integer.MAX_VALUE) {
+        throw new IOException("Invalid size of binary output domain file: " + channel.size());
+      }
+      ByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+      int bucketCount = readBucketCount(buffer);
+      checkSize(channel.size(), bucketCount);
+      return new BinaryOutputDomainReader(buffer, buffer.getInt(Integer.BYTES), bucketCount);
+    }
+  }
+
+  /** Reads the whole stream into a buffer sized from the header of the stream. */
+  public static BinaryOutputDomainReader fromInputStream(InputStream inputStream)
+      throws IOException {
+    byte[] header = readFully(inputStream, HEADER_SIZE_BYTES);
+    return readBuckets(inputStream, header, readBucketCount(ByteBuffer.wrap(header)));
+  }
+
+  /**
+   * Reads the whole stream of {@code streamSizeBytes} bytes, e.g. the size of its blob. The header
+   * is checked against the size before the buffer is allocated, so that a corrupt or hostile
+   * header fails the read instead of allocating up to 2 GiB.
+   */
+  public static BinaryOutputDomainReader fromInputStream(
+      InputStream inputStream, long streamSizeBytes) throws IOException {
+    byte[] header = readFully(inputStream, HEADER_SIZE_BYTES);
+    int bucketCount = readBucketCount(ByteBuffer.wrap(header));
+    checkSize(streamSizeBytes, bucketCount);
+    return readBuckets(inputStream, header, bucketCount);
+  }
+
+  /**
+   * Reads only the header of the stream and, if the writer marked the buckets as sorted, returns
+   * them as a stream that decodes them from {@code inputStream} in blocks as it is consumed, so
+   * that an unsorted stream costs a header read and a sorted one is never held in memory at once.
+   * A read error while the stream is consumed is thrown as an {@link UncheckedIOException}.
+   *
+   * @return the buckets, in file order, or empty if the buckets are not marked as sorted.
+   */
+  public static Optional<Stream<BigInteger>> streamSortedBuckets(InputStream inputStream)
+      throws IOException {
+    ByteBuffer header = ByteBuffer.wrap(readFully(inputStream, HEADER_SIZE_BYTES));
+    int bucketCount = readBucketCount(header);
+    if ((header.getInt(Integer.BYTES) & SORTED_BUCKETS_FLAG) == 0) {
+      return Optional.empty();
+    }
+    Iterator<BigInteger> buckets = new StreamedBucketIterator(inputStream, bucketCount);
+    return Optional.of(
+        StreamSupport.stream(
+            Spliterators.spliterator(
+                buckets, bucketCount, Spliterator.ORDERED | Spliterator.NONNULL),
+            /* parallel= */ false));
+  }
+
+  /**
+   * Returns true if the writer guaranteed that the buckets are in strictly ascending order, see
+   * {@link BinaryOutputDomainWriter#writeSortedBuckets}.
+   */
+  public boolean hasSortedBuckets() {
+    return (flags & SORTED_BUCKETS_FLAG) != 0;
+  }
+
+  public int getBucketCount() {
+    return bucketCount;
+  }
+
+  /** Decodes all buckets, in file order. */
+  public BigInteger[] readBuckets() {
+    BigInteger[] buckets = new BigInteger[bucketCount];
+    IntStream indexes = IntStream.range(0, bucketCount);
+    if (bucketCount >= MIN_PARALLEL_DECODE_BUCKETS) {
+      // Absolute reads don't move the position of the buffer, so threads can share it.
+      indexes = indexes.parallel();
+    }
+    indexes.forEach(index -> buckets[index] = decodeBucket(index));
+    return buckets;
+  }
+
+  /** Streams all buckets, in file order. */
+  public Stream<BigInteger> streamBuckets() {
+    return Arrays.stream(readBuckets());
+  }
+
+  private BigInteger decodeBucket(int index) {
+    return decodeBucket(buffer, HEADER_SIZE_BYTES + index * BUCKET_SIZE_BYTES);
+  }
+
+  private static BigInteger decodeBucket(ByteBuffer buffer, int offset) {
+    long high = buffer.getLong(offset);
+    long low = buffer.getLong(offset + Long.BYTES);
+    if (high == 0 && low >= 0) {
+      return BigInteger.valueOf(low);
+    }
+    byte[] bytes = new byte[BUCKET_SIZE_BYTES];
+    ByteBuffer.wrap(bytes).putLong(high).putLong(low);
+    return new BigInteger(/* signum= */ 1, bytes);
+  }
+
+  /** Reads the buckets following the header straight into the buffer of the reader. */
+  private static BinaryOutputDomainReader readBuckets(
+      InputStream inputStream, byte[] header, int bucketCount) throws IOException {
+    int bucketBytes = bucketCount * BUCKET_SIZE_BYTES;
+    ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE_BYTES + bucketBytes);
+    buffer.put(header);
+    if (inputStream.readNBytes(buffer.array(), HEADER_SIZE_BYTES, bucketBytes) != bucketBytes) {
+      throw new IOException("Binary output domain is truncated.");
+    }
+    if (inputStream.read() != -1) {
+      throw new IOException("Binary output domain has more bytes than its bucket count.");
+    }
+    return new BinaryOutputDomainReader(buffer, buffer.getInt(Integer.BYTES), bucketCount);
+  }
+
+  private static void checkSize(long sizeBytes, int bucketCount) throws IOException {
+    if (sizeBytes != HEADER_SIZE_BYTES + (long) bucketCount * BUCKET_SIZE_BYTES) {
+      throw new IOException(
+          String.format(
+              "Binary output domain of %d bytes doesn't match its bucket count %d.",
+              sizeBytes, bucketCount));
+    }
+  }
+
+  private static int readBucketCount(ByteBuffer header) throws IOException {
+    if (header.getInt(0) != MAGIC) {
+      throw new IOException("Not a binary output domain file.");
+    }
+    long bucketCount = header.getLong(2 * Integer.BYTES);
+    if (bucketCount < 0 || bucketCount > MAX_BUCKET_COUNT) {
+      throw new IOException("Invalid bucket count in binary output domain: " + bucketCount);
+    }
+    return (int) bucketCount;
+  }
+
+  private static byte[] readFully(InputStream inputStream, int length) throws IOException {
+    byte[] bytes = inputStream.readNBytes(length);
+    if (bytes.length != length) {
+      throw new IOException("Binary output domain is truncated.");
+    }
+    return bytes;
+  }
+
+  /** Decodes the buckets following the header of a stream, one block of buckets at a time. */
+  private static final class StreamedBucketIterator implements Iterator<BigInteger> {
+
+    private static final int BLOCK_SIZE_BUCKETS = 4096;
+
+    private final InputStream inputStream;
+    private final ByteBuffer block;
+    private int remainingBuckets;
+    private int blockOffset = 0;
+    private int blockLength = 0;
+
+    StreamedBucketIterator(InputStream inputStream, int bucketCount) {
+      this.inputStream = inputStream;
+      this.block =
+          ByteBuffer.allocate(Math.min(bucketCount, BLOCK_SIZE_BUCKETS) * BUCKET_SIZE_BYTES);
+      this.remainingBuckets = bucketCount;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return remainingBuckets > 0;
+    }
+
+    @Override
+    public BigInteger next() {
+      if (remainingBuckets == 0) {
+        throw new NoSuchElementException();
+      }
+      if (blockOffset == blockLength) {
+        readBlock();
+      }
+      BigInteger bucket = decodeBucket(block, blockOffset);
+      blockOffset += BUCKET_SIZE_BYTES;
+      remainingBuckets--;
+      return bucket;
+    }
+
+    private void readBlock() {
+      try {
+        long remainingBytes = (long) remainingBuckets * BUCKET_SIZE_BYTES;
+        blockLength = (int) Math.min(remainingBytes, block.capacity());
+        blockOffset = 0;
+        if (inputStream.readNBytes(block.array(), 0, blockLength) != blockLength) {
+          throw new IOException("Binary output domain is truncated.");
+        }
+        if (blockLength == remainingBytes && inputStream.read() != -1) {
+          throw new IOException("Binary output domain has more bytes than its bucket count.");
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+}
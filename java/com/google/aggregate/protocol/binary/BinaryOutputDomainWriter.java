@@ -0,0 +1,92 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.protocol.binary;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.collect.ImmutableList;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+
+/**
+ * Writes output domain buckets in the fixed-width binary format.
+ *
+ * <p>A file starts with a {@link #HEADER_SIZE_BYTES} byte header holding {@link #MAGIC}, the flags
+ * and the number of buckets, followed by every bucket as a {@link #BUCKET_SIZE_BYTES} byte unsigned
+ * big-endian integer. All integers in the header are big-endian as well.
+ */
+public final class BinaryOutputDomainWriter implements AutoCloseable {
+
+  /** Identifies the format, the ASCII bytes "AGDK". */
+  public static final int MAGIC = 0x4147444B;
+
+  public static final int HEADER_SIZE_BYTES = 16;
+  public static final int BUCKET_SIZE_BYTES = 16;
+
+  /**
+   * Flag set on files whose buckets are stored in strictly ascending order, i.e. sorted and
+   * without duplicates. Readers may rely on the order only when this flag is set.
+   */
+  public static final int SORTED_BUCKETS_FLAG = 1;
+
+  private static final BigInteger UINT_128_MAX =
+      BigInteger.ONE.shiftLeft(128).subtract(BigInteger.ONE);
+
+  private final DataOutputStream outputStream;
+
+  public BinaryOutputDomainWriter(OutputStream outputStream) {
+    this.outputStream = new DataOutputStream(new BufferedOutputStream(outputStream));
+  }
+
+  /** Writes out the buckets in the given order. */
+  public void writeBuckets(ImmutableList<BigInteger> buckets) throws IOException {
+    write(buckets, /* flags= */ 0);
+  }
+
+  /**
+   * Writes out the buckets sorted and without duplicates, and marks the file with {@link
+   * #SORTED_BUCKETS_FLAG}.
+   */
+  public void writeSortedBuckets(ImmutableList<BigInteger> buckets) throws IOException {
+    write(
+        buckets.stream().distinct().sorted().collect(ImmutableList.toImmutableList()),
+        SORTED_BUCKETS_FLAG);
+  }
+
+  private void write(ImmutableList<BigInteger> buckets, int flags) throws IOException {
+    outputStream.writeInt(MAGIC);
+    outputStream.writeInt(flags);
+    outputStream.writeLong(buckets.size());
+    for (BigInteger bucket : buckets) {
+      checkArgument(
+          bucket.signum() >= 0 && bucket.compareTo(UINT_128_MAX) <= 0,
+          "Bucket outside of valid range. Valid range is 0 to %s",
+          UINT_128_MAX);
+      outputStream.writeLong(bucket.shiftRight(Long.SIZE).longValue());
+      outputStream.writeLong(bucket.longValue());
+    }
+    outputStream.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    outputStream.close();
+  }
+}
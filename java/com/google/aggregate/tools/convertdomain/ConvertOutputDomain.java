@@ -0,0 +1,124 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.tools.convertdomain;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameter;
+import com.google.aggregate.adtech.worker.util.NumericConversions;
+import com.google.aggregate.protocol.avro.AvroOutputDomainReader;
+import com.google.aggregate.protocol.avro.AvroOutputDomainReaderFactory;
+import com.google.aggregate.protocol.avro.AvroOutputDomainRecord;
+import com.google.aggregate.protocol.binary.BinaryOutputDomainWriter;
+import com.google.common.collect.ImmutableList;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+
+/*
+ * This tool converts an Avro or text output domain file to the fixed-width binary domain format
+ * read with --domain_file_format BINARY.
+ * bazel run //java/com/google/aggregate/tools/convertdomain:ConvertOutputDomain \
+ *  --input $PWD/domain.avro \
+ *  --output $PWD/domain.bin \
+ *  --sort
+ * Text domains with one bucket per line can be converted with --input_format TEXT_FILE.
+ */
+final class ConvertOutputDomain {
+
+  static Injector injector = Guice.createInjector(new Env());
+
+  public static void main(String[] args) throws IOException {
+    Args cliArgs = new Args();
+    JCommander.newBuilder().addObject(cliArgs).build().parse(args);
+
+    Path inputPath = Paths.get(cliArgs.input);
+    Path outputPath = Paths.get(cliArgs.output);
+
+    ImmutableList<BigInteger> buckets = readBuckets(inputPath, cliArgs.inputFormat);
+    System.out.printf("Read %d domain buckets from %s\n", buckets.size(), inputPath);
+
+    try (OutputStream outputStream = Files.newOutputStream(outputPath);
+        BinaryOutputDomainWriter writer = new BinaryOutputDomainWriter(outputStream)) {
+      if (cliArgs.sort) {
+        writer.writeSortedBuckets(buckets);
+      } else {
+        writer.writeBuckets(buckets);
+      }
+    }
+    System.out.printf("Binary domain written at %s\n", outputPath.toAbsolutePath());
+  }
+
+  static ImmutableList<BigInteger> readBuckets(Path inputPath, InputFormat inputFormat)
+      throws IOException {
+    switch (inputFormat) {
+      case AVRO:
+        AvroOutputDomainReaderFactory domainReaderFactory =
+            injector.getInstance(AvroOutputDomainReaderFactory.class);
+        try (InputStream avroStream = Files.newInputStream(inputPath)) {
+          AvroOutputDomainReader reader = domainReaderFactory.create(avroStream);
+          try (Stream<AvroOutputDomainRecord> records = reader.streamRecords()) {
+            return records.map(AvroOutputDomainRecord::bucket).collect(toImmutableList());
+          }
+        }
+      case TEXT_FILE:
+        try (Stream<String> lines = Files.lines(inputPath)) {
+          return lines
+              .filter(line -> !line.isBlank())
+              .map(line -> NumericConversions.createBucketFromString(line.trim()))
+              .collect(toImmutableList());
+        }
+    }
+    throw new IllegalArgumentException("Unsupported input format " + inputFormat);
+  }
+
+  /** Formats that can be converted, named after the matching --domain_file_format values. */
+  enum InputFormat {
+    AVRO,
+    TEXT_FILE
+  }
+
+  private static final class Env extends AbstractModule {}
+
+  private static final class Args {
+
+    @Parameter(names = "--input", description = "The domain file to convert.", required = true)
+    private String input;
+
+    @Parameter(names = "--input_format", description = "Format of the input domain file.")
+    private InputFormat inputFormat = InputFormat.AVRO;
+
+    @Parameter(names = "--output", description = "Path of the binary domain file.", required = true)
+    private String output;
+
+    @Parameter(
+        names = "--sort",
+        description =
+            "Sort and dedupe the buckets, and mark the file as sorted so that the worker can"
+                + " conflate it with a merge join.")
+    private boolean sort = false;
+  }
+}
@@ -195,7 +195,7 @@ public final class GenerateInputs {
           aggregatedBuckets.keySet().stream()
               .map(AvroOutputDomainRecord::create)
               .collect(toImmutableList());
-      outputDomainWriter.writeRecords(ImmutableList.of(), outputDomainRecords);
+      outputDomainWriter.writeSortedRecords(ImmutableList.of(), outputDomainRecords);
     }
     System.out.println("Wrote " + domainOutputPath);
 
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.tools.loadtestinputs;
+
+import static com.google.aggregate.tools.loadtestinputs.LoadTestInputGenerator.bucketOf;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameter;
+import com.google.aggregate.adtech.worker.aggregation.engine.AggregationEngine;
+import com.google.aggregate.adtech.worker.aggregation.engine.AggregationEngineFactory;
+import com.google.aggregate.adtech.worker.model.Fact;
+import com.google.aggregate.adtech.worker.model.Payload;
+import com.google.aggregate.adtech.worker.model.Report;
+import com.google.aggregate.adtech.worker.model.SharedInfo;
+import com.google.aggregate.privacy.budgeting.budgetkeygenerator.PrivacyBudgetKeyGeneratorModule;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.primitives.UnsignedLong;
+import com.google.inject.Guice;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of the aggregation engine when many threads aggregate reports whose
+ * buckets follow a Zipf distribution, with and without thread-confined aggregation.
+ *
+ * <p>The reports are generated in memory before the measurements, so only the aggregation is
+ * timed. Each iteration aggregates all reports into a new engine, once per report as the worker
+ * does by default and once per batch as with {@code --thread_confined_aggregation_max_buckets}.
+ *
+ * <p>Run the following for command line usage:
+ *
+ * <p>bazel run //java/com/google/aggregate/tools/loadtestinputs:AggregationContentionBenchmark --
+ * --help
+ */
+public final class AggregationContentionBenchmark {
+
+  private static final Instant BASE_REPORT_TIME = Instant.parse("2025-01-01T00:00:00Z");
+  private static final ImmutableSet<UnsignedLong> FILTERING_IDS =
+      ImmutableSet.of(UnsignedLong.ZERO);
+
+  public static void main(String[] args) throws Exception {
+    BenchmarkArgs benchmarkArgs = new BenchmarkArgs();
+    JCommander jCommander = JCommander.newBuilder().addObject(benchmarkArgs).build();
+    jCommander.parse(args);
+    if (benchmarkArgs.help) {
+      jCommander.setProgramName(AggregationContentionBenchmark.class.getName());
+      jCommander.usage();
+      return;
+    }
+
+    AggregationEngineFactory aggregationEngineFactory =
+        Guice.createInjector(new PrivacyBudgetKeyGeneratorModule())
+            .getInstance(AggregationEngineFactory.class);
+    List<List<Report>> batches =
+        Lists.partition(generateReports(benchmarkArgs), benchmarkArgs.batchSize);
+    System.out.printf(
+        "Aggregating %d reports with %d contributions over %d buckets (Zipf exponent %.2f) on %d"
+            + " threads\n",
+        benchmarkArgs.reportCount,
+        benchmarkArgs.contributionsPerReport,
+        benchmarkArgs.bucketCardinality,
+        benchmarkArgs.bucketZipfExponent,
+        benchmarkArgs.threads);
+
+    ExecutorService executor = Executors.newFixedThreadPool(benchmarkArgs.threads);
+    try {
+      for (int i = 0; i < benchmarkArgs.warmupIterations + benchmarkArgs.iterations; i++) {
+        boolean warmup = i < benchmarkArgs.warmupIterations;
+        long perReportNanos =
+            aggregate(aggregationEngineFactory, batches, executor, /* maxBufferedBuckets= */ 0);
+        long threadConfinedNanos =
+            aggregate(
+                aggregationEngineFactory, batches, executor, benchmarkArgs.maxBufferedBuckets);
+        System.out.printf(
+            "%s %d: per report %.0f reports/s, thread-confined %.0f reports/s (%.2fx)\n",
+            warmup ? "Warm-up" : "Iteration",
+            warmup ? i + 1 : i - benchmarkArgs.warmupIterations + 1,
+            reportsPerSecond(benchmarkArgs.reportCount, perReportNanos),
+            reportsPerSecond(benchmarkArgs.reportCount, threadConfinedNanos),
+            (double) perReportNanos / threadConfinedNanos);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Aggregates all batches into a new engine and returns the elapsed time in nanoseconds. Each
+   * report is accepted on its own if {@code maxBufferedBuckets} is 0.
+   */
+  private static long aggregate(
+      AggregationEngineFactory aggregationEngineFactory,
+      List<List<Report>> batches,
+      ExecutorService executor,
+      int maxBufferedBuckets)
+      throws Exception {
+    AggregationEngine engine = aggregationEngineFactory.createKeyAggregationEngine(FILTERING_IDS);
+    List<Future<?>> futures = new ArrayList<>(batches.size());
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    for (List<Report> batch : batches) {
+      futures.add(
+          executor.submit(
+              () -> {
+                if (maxBufferedBuckets > 0) {
+                  engine.accept(batch, maxBufferedBuckets);
+                } else {
+                  for (Report report : batch) {
+                    engine.accept(report);
+                  }
+                }
+              }));
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    return stopwatch.elapsed(TimeUnit.NANOSECONDS);
+  }
+
+  private static ImmutableList<Report> generateReports(BenchmarkArgs benchmarkArgs) {
+    ZipfSampler bucketSampler =
+        new ZipfSampler(benchmarkArgs.bucketCardinality, benchmarkArgs.bucketZipfExponent);
+    SplittableRandom random = new SplittableRandom(benchmarkArgs.seed);
+    ImmutableList.Builder<Report> reports = ImmutableList.builder();
+    for (int i = 0; i < benchmarkArgs.reportCount; i++) {
+      Payload.Builder payload = Payload.builder().setOperation(Payload.HISTOGRAM_OPERATION);
+      for (int j = 0; j < benchmarkArgs.contributionsPerReport; j++) {
+        payload.addFact(
+            Fact.builder()
+                .setBucket(bucketOf(bucketSampler.sample(random)))
+                .setValue(random.nextInt(1, 1 << 16))
+                .build());
+      }
+      Instant reportTime =
+          BASE_REPORT_TIME.minus(
+              random.nextInt(benchmarkArgs.sharedInfoCardinality), ChronoUnit.MINUTES);
+      SharedInfo sharedInfo =
+          SharedInfo.builder()
+              .setVersion(SharedInfo.LATEST_VERSION)
+              .setApi(SharedInfo.ATTRIBUTION_REPORTING_API)
+              .setScheduledReportTime(reportTime)
+              .setSourceRegistrationTime(reportTime.truncatedTo(ChronoUnit.DAYS))
+              .setReportingOrigin("https://example.com")
+              .setDestination("https://destination.example")
+              .setReportId(new UUID(random.nextLong(), random.nextLong()).toString())
+              .build();
+      reports.add(Report.builder().setSharedInfo(sharedInfo).setPayload(payload.build()).build());
+    }
+    return reports.build();
+  }
+
+  private static double reportsPerSecond(long reportCount, long elapsedNanos) {
+    return reportCount * 1e9 / elapsedNanos;
+  }
+
+  private static final class BenchmarkArgs {
+
+    @Parameter(names = "--report_count", description = "Number of reports to aggregate.")
+    private int reportCount = 500_000;
+
+    @Parameter(
+        names = "--contributions_per_report",
+        description = "Number of contributions of each report.")
+    private int contributionsPerReport = 20;
+
+    @Parameter(names = "--bucket_cardinality", description = "Number of distinct buckets.")
+    private long bucketCardinality = 100_000;
+
+    @Parameter(
+        names = "--bucket_zipf_exponent",
+        description =
+            "Exponent of the Zipf distribution of the buckets. Higher values concentrate the"
+                + " contributions on fewer buckets, 0 spreads them uniformly.")
+    private double bucketZipfExponent = 1.1;
+
+    @Parameter(
+        names = "--shared_info_cardinality",
+        description = "Number of distinct scheduled report times, i.e. of privacy budget units.")
+    private int sharedInfoCardinality = 60;
+
+    @Parameter(
+        names = "--batch_size",
+        description = "Number of reports aggregated per task, like the batches of the worker.")
+    private int batchSize = 1000;
+
+    @Parameter(
+        names = "--max_buffered_buckets",
+        description =
+            "Maximum number of buckets buffered per batch with thread-confined aggregation.")
+    private int maxBufferedBuckets = 4096;
+
+    @Parameter(names = "--threads", description = "Number of aggregating threads.")
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    @Parameter(names = "--warmup_iterations", description = "Number of warm-up iterations.")
+    private int warmupIterations = 2;
+
+    @Parameter(names = "--iterations", description = "Number of measured iterations.")
+    private int iterations = 5;
+
+    @Parameter(names = "--seed", description = "Seed of the generated reports.")
+    private long seed = 1;
+
+    @Parameter(names = "--help", help = true, description = "Print help dialog and exit.")
+    private boolean help = false;
+  }
+}
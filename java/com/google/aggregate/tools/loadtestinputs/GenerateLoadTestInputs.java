@@ -0,0 +1,133 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.tools.loadtestinputs;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameter;
+import com.google.aggregate.shared.mapper.GuavaObjectMapper;
+import com.google.common.base.Stopwatch;
+import com.google.crypto.tink.BinaryKeysetReader;
+import com.google.crypto.tink.BinaryKeysetWriter;
+import com.google.crypto.tink.CleartextKeysetHandle;
+import com.google.crypto.tink.KeysetHandle;
+import com.google.crypto.tink.hybrid.EciesAeadHkdfPrivateKeyManager;
+import com.google.crypto.tink.hybrid.HybridConfig;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates encrypted reports and an output domain for load testing the worker.
+ *
+ * <p>The reports are described by a JSON {@link LoadTestInputSpec} and encrypted with the private
+ * keyset in {@code --key_file}. A new keyset is generated and written to {@code --key_file} if it
+ * does not exist. The same file can be passed to a local worker through {@code
+ * --local_file_decryption_key_path} to decrypt the reports.
+ *
+ * <p>Run the following for command line usage:
+ *
+ * <p>bazel run //java/com/google/aggregate/tools/loadtestinputs:GenerateLoadTestInputs -- --help
+ */
+public final class GenerateLoadTestInputs {
+
+  public static void main(String[] args) throws Exception {
+    InputArgs inputArgs = new InputArgs();
+    JCommander jCommander = JCommander.newBuilder().addObject(inputArgs).build();
+    jCommander.parse(args);
+    if (inputArgs.help) {
+      jCommander.setProgramName(GenerateLoadTestInputs.class.getName());
+      jCommander.usage();
+      return;
+    }
+
+    Injector injector = Guice.createInjector(new AbstractModule() {});
+    LoadTestInputSpec spec =
+        injector
+            .getInstance(GuavaObjectMapper.class)
+            .readValue(Path.of(inputArgs.spec).toFile(), LoadTestInputSpec.class);
+    KeysetHandle privateKeysetHandle = readOrCreateKeyset(Path.of(inputArgs.keyFile));
+
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    long invalidReports =
+        injector
+            .getInstance(LoadTestInputGenerator.class)
+            .generate(
+                spec,
+                Path.of(inputArgs.outputDir),
+                privateKeysetHandle.getPublicKeysetHandle(),
+                inputArgs.parallelism);
+    System.out.printf(
+        "Wrote %d reports (%d invalid) in %d shards and %d domain buckets in %d s\n",
+        spec.reportCount(),
+        invalidReports,
+        spec.shardCount(),
+        spec.bucketCardinality(),
+        stopwatch.elapsed(TimeUnit.SECONDS));
+  }
+
+  private static KeysetHandle readOrCreateKeyset(Path keyFile) throws Exception {
+    HybridConfig.register();
+    if (Files.exists(keyFile)) {
+      try (InputStream inputStream = Files.newInputStream(keyFile)) {
+        return CleartextKeysetHandle.read(BinaryKeysetReader.withInputStream(inputStream));
+      }
+    }
+    KeysetHandle keysetHandle =
+        KeysetHandle.generateNew(
+            EciesAeadHkdfPrivateKeyManager.eciesP256HkdfHmacSha256Aes128GcmTemplate());
+    try (OutputStream outputStream = Files.newOutputStream(keyFile)) {
+      CleartextKeysetHandle.write(keysetHandle, BinaryKeysetWriter.withOutputStream(outputStream));
+    }
+    return keysetHandle;
+  }
+
+  private static final class InputArgs {
+
+    @Parameter(
+        names = "--spec",
+        description = "Path of the JSON file describing the reports to generate.",
+        required = true)
+    private String spec;
+
+    @Parameter(
+        names = "--output_dir",
+        description = "The directory to write the report shards and output domain to.",
+        required = true)
+    private String outputDir;
+
+    @Parameter(
+        names = "--key_file",
+        description =
+            "Path of the cleartext binary private keyset to encrypt the reports with. A new keyset"
+                + " is written to this path if it does not exist.",
+        required = true)
+    private String keyFile;
+
+    @Parameter(
+        names = "--parallelism",
+        description = "Number of shards generated concurrently. Defaults to the number of cores.")
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    @Parameter(names = "--help", help = true, description = "Print help dialog and exit.")
+    private boolean help = false;
+  }
+}
@@ -0,0 +1,310 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.tools.loadtestinputs;
+
+import static com.google.aggregate.adtech.worker.decryption.hybrid.HybridDecryptionCipher.ASSOCIATED_DATA_PREFIX;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.aggregate.adtech.worker.model.Fact;
+import com.google.aggregate.adtech.worker.model.Payload;
+import com.google.aggregate.adtech.worker.model.SharedInfo;
+import com.google.aggregate.adtech.worker.model.serdes.SharedInfoSerdes;
+import com.google.aggregate.adtech.worker.model.serdes.cbor.CborPayloadSerdes;
+import com.google.aggregate.protocol.avro.AvroOutputDomainRecord;
+import com.google.aggregate.protocol.avro.AvroOutputDomainWriter;
+import com.google.aggregate.protocol.avro.AvroOutputDomainWriterFactory;
+import com.google.aggregate.protocol.avro.AvroReportRecord;
+import com.google.aggregate.protocol.avro.AvroReportWriter;
+import com.google.aggregate.protocol.avro.AvroReportWriterFactory;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteSource;
+import com.google.common.primitives.UnsignedLong;
+import com.google.crypto.tink.HybridEncrypt;
+import com.google.crypto.tink.KeysetHandle;
+import com.google.errorprone.annotations.Var;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import javax.inject.Inject;
+
+/**
+ * Generates encrypted report shards and the matching output domain described by a {@link
+ * LoadTestInputSpec}.
+ *
+ * <p>Every shard is generated and written by its own task from its own seeded random source, so the
+ * shards are written in parallel and the reports do not depend on the parallelism. Reports are
+ * encrypted with the given public keyset, so the worker can decrypt them with the matching private
+ * keyset, e.g. through {@code --local_file_decryption_key_path}.
+ *
+ * <p>Outputs are written to {@code <output_dir>/reports/shard-NNNNN.avro} and {@code
+ * <output_dir>/domain/domain.avro}.
+ */
+public final class LoadTestInputGenerator {
+
+  static final String REPORTS_DIR = "reports";
+  static final String DOMAIN_DIR = "domain";
+  static final String DOMAIN_FILE = "domain.avro";
+
+  private static final Instant BASE_REPORT_TIME = Instant.parse("2025-01-01T00:00:00Z");
+  private static final String REPORT_ID_PLACEHOLDER = "00000000-0000-0000-0000-000000000000";
+
+  private final CborPayloadSerdes payloadSerdes;
+  private final SharedInfoSerdes sharedInfoSerdes;
+  private final AvroReportWriterFactory reportWriterFactory;
+  private final AvroOutputDomainWriterFactory outputDomainWriterFactory;
+
+  @Inject
+  LoadTestInputGenerator(
+      CborPayloadSerdes payloadSerdes,
+      SharedInfoSerdes sharedInfoSerdes,
+      AvroReportWriterFactory reportWriterFactory,
+      AvroOutputDomainWriterFactory outputDomainWriterFactory) {
+    this.payloadSerdes = payloadSerdes;
+    this.sharedInfoSerdes = sharedInfoSerdes;
+    this.reportWriterFactory = reportWriterFactory;
+    this.outputDomainWriterFactory = outputDomainWriterFactory;
+  }
+
+  /**
+   * Writes the shards and output domain of {@code spec} to {@code outputDir}.
+   *
+   * @param publicKeysetHandle public hybrid keyset the reports are encrypted with.
+   * @param parallelism number of shards generated concurrently.
+   * @return number of reports written with a corrupted payload.
+   */
+  public long generate(
+      LoadTestInputSpec spec, Path outputDir, KeysetHandle publicKeysetHandle, int parallelism)
+      throws IOException, InterruptedException {
+    Path reportsDir = Files.createDirectories(outputDir.resolve(REPORTS_DIR));
+    Path domainDir = Files.createDirectories(outputDir.resolve(DOMAIN_DIR));
+    ImmutableList<String> sharedInfos = createSharedInfoTemplates(spec);
+    FilteringIdSampler filteringIdSampler = new FilteringIdSampler(spec.filteringIdWeights());
+
+    List<Callable<Long>> tasks = new ArrayList<>();
+    tasks.add(() -> writeOutputDomain(spec, domainDir.resolve(DOMAIN_FILE)));
+    for (int shard = 0; shard < spec.shardCount(); shard++) {
+      ShardWriter shardWriter =
+          new ShardWriter(spec, shard, sharedInfos, filteringIdSampler, publicKeysetHandle);
+      Path shardPath = reportsDir.resolve(String.format("shard-%05d.avro", shard));
+      tasks.add(() -> shardWriter.write(shardPath));
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+    try {
+      @Var long invalidReports = 0;
+      // The first task writes the output domain and returns no invalid reports.
+      for (Future<Long> future : executor.invokeAll(tasks)) {
+        invalidReports += getUnchecked(future);
+      }
+      return invalidReports;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /** Returns the bucket of a rank, spreading ranks over the whole 128-bit bucket space. */
+  static BigInteger bucketOf(long rank) {
+    return UnsignedLong.fromLongBits(mix64(rank))
+        .bigIntegerValue()
+        .shiftLeft(64)
+        .or(BigInteger.valueOf(rank));
+  }
+
+  private long writeOutputDomain(LoadTestInputSpec spec, Path path) throws IOException {
+    try (OutputStream outputStream = Files.newOutputStream(path);
+        AvroOutputDomainWriter writer = outputDomainWriterFactory.create(outputStream)) {
+      writer.writeRecordsFromStream(
+          ImmutableList.of(),
+          LongStream.rangeClosed(1, spec.bucketCardinality())
+              .mapToObj(rank -> AvroOutputDomainRecord.create(bucketOf(rank))));
+    }
+    return 0;
+  }
+
+  /**
+   * Serializes the distinct shared_info values of the reports. The report ID is the only field
+   * that differs between reports built from the same template.
+   */
+  private ImmutableList<String> createSharedInfoTemplates(LoadTestInputSpec spec) {
+    ImmutableList.Builder<String> sharedInfos = ImmutableList.builder();
+    for (int i = 0; i < spec.sharedInfoCardinality(); i++) {
+      Instant reportTime = BASE_REPORT_TIME.minus(i, ChronoUnit.MINUTES);
+      sharedInfos.add(
+          sharedInfoSerdes
+              .reverse()
+              .convert(
+                  Optional.of(
+                      SharedInfo.builder()
+                          .setVersion(SharedInfo.LATEST_VERSION)
+                          .setApi(SharedInfo.ATTRIBUTION_REPORTING_API)
+                          .setScheduledReportTime(reportTime)
+                          .setSourceRegistrationTime(reportTime.truncatedTo(ChronoUnit.DAYS))
+                          .setReportingOrigin(spec.reportingOrigin())
+                          .setDestination(String.format("https://destination-%d.example", i))
+                          .setReportId(REPORT_ID_PLACEHOLDER)
+                          .build())));
+    }
+    return sharedInfos.build();
+  }
+
+  /** Generates and writes the reports of one shard. Not thread-safe. */
+  private final class ShardWriter {
+
+    private final LoadTestInputSpec spec;
+    private final long reportCount;
+    private final ImmutableList<String> sharedInfos;
+    private final FilteringIdSampler filteringIdSampler;
+    private final KeysetHandle publicKeysetHandle;
+    private final ZipfSampler bucketSampler;
+    private final SplittableRandom random;
+    private long invalidReports = 0;
+
+    ShardWriter(
+        LoadTestInputSpec spec,
+        int shard,
+        ImmutableList<String> sharedInfos,
+        FilteringIdSampler filteringIdSampler,
+        KeysetHandle publicKeysetHandle) {
+      this.spec = spec;
+      this.reportCount =
+          spec.reportCount() / spec.shardCount()
+              + (shard < spec.reportCount() % spec.shardCount() ? 1 : 0);
+      this.sharedInfos = sharedInfos;
+      this.filteringIdSampler = filteringIdSampler;
+      this.publicKeysetHandle = publicKeysetHandle;
+      this.bucketSampler = new ZipfSampler(spec.bucketCardinality(), spec.bucketZipfExponent());
+      this.random = new SplittableRandom(mix64(spec.seed() + shard));
+    }
+
+    long write(Path path) throws IOException, GeneralSecurityException {
+      HybridEncrypt hybridEncrypt = publicKeysetHandle.getPrimitive(HybridEncrypt.class);
+      try (OutputStream outputStream = Files.newOutputStream(path);
+          AvroReportWriter writer = reportWriterFactory.create(outputStream)) {
+        writer.writeRecordsFromStream(
+            ImmutableList.of(),
+            Stream.generate(() -> createReport(hybridEncrypt)).limit(reportCount));
+      }
+      return invalidReports;
+    }
+
+    private AvroReportRecord createReport(HybridEncrypt hybridEncrypt) {
+      Payload.Builder payload = Payload.builder().setOperation(Payload.HISTOGRAM_OPERATION);
+      for (int i = 0; i < spec.contributionsPerReport(); i++) {
+        Fact.Builder fact =
+            Fact.builder()
+                .setBucket(bucketOf(bucketSampler.sample(random)))
+                .setValue(random.nextInt(1, 1 << 16));
+        filteringIdSampler.sample(random).ifPresent(fact::setId);
+        payload.addFact(fact.build());
+      }
+      String reportId = new UUID(random.nextLong(), random.nextLong()).toString();
+      String sharedInfo =
+          sharedInfos
+              .get(random.nextInt(sharedInfos.size()))
+              .replace(REPORT_ID_PLACEHOLDER, reportId);
+      String keyId = spec.keyIds().get(random.nextInt(spec.keyIds().size()));
+
+      byte[] encryptedPayload;
+      try {
+        byte[] serializedPayload =
+            payloadSerdes.reverse().convert(Optional.of(payload.build())).read();
+        encryptedPayload =
+            hybridEncrypt.encrypt(
+                serializedPayload, (ASSOCIATED_DATA_PREFIX + sharedInfo).getBytes(UTF_8));
+      } catch (IOException | GeneralSecurityException e) {
+        throw new IllegalStateException("Failed to encrypt a load test report.", e);
+      }
+      if (random.nextDouble() < spec.invalidReportFraction()) {
+        // Flipping a bit of the authentication tag makes decryption of the report fail.
+        encryptedPayload[encryptedPayload.length - 1] ^= 1;
+        invalidReports++;
+      }
+      return AvroReportRecord.create(ByteSource.wrap(encryptedPayload), keyId, sharedInfo);
+    }
+  }
+
+  /** Samples filtering IDs according to their relative weights. Thread-safe. */
+  private static final class FilteringIdSampler {
+
+    private final long[] ids;
+    private final double[] cumulativeWeights;
+
+    FilteringIdSampler(ImmutableMap<Long, Double> weights) {
+      ids = new long[weights.size()];
+      cumulativeWeights = new double[weights.size()];
+      @Var double total = 0;
+      @Var int i = 0;
+      for (Map.Entry<Long, Double> entry : weights.entrySet()) {
+        total += entry.getValue();
+        ids[i] = entry.getKey();
+        cumulativeWeights[i] = total;
+        i++;
+      }
+    }
+
+    Optional<UnsignedLong> sample(SplittableRandom random) {
+      if (ids.length == 0) {
+        return Optional.empty();
+      }
+      double u = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+      for (int i = 0; i < ids.length - 1; i++) {
+        if (u < cumulativeWeights[i]) {
+          return Optional.of(UnsignedLong.fromLongBits(ids[i]));
+        }
+      }
+      return Optional.of(UnsignedLong.fromLongBits(ids[ids.length - 1]));
+    }
+  }
+
+  private static long getUnchecked(Future<Long> future) throws IOException, InterruptedException {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException("Failed to generate load test inputs.", e.getCause());
+    }
+  }
+
+  /** Finalizer of the SplitMix64 generator, mapping consecutive values to well-spread ones. */
+  private static long mix64(long value) {
+    @Var long z = value + 0x9e3779b97f4a7c15L;
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+}
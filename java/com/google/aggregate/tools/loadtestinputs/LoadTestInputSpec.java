@@ -0,0 +1,190 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.tools.loadtestinputs;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Describes the encrypted reports and output domain generated for a load test.
+ *
+ * <p>Example spec of a billion reports over a million buckets:
+ *
+ * <pre>{@code
+ * {
+ *   "report_count": 1000000000,
+ *   "shard_count": 1000,
+ *   "bucket_cardinality": 1000000,
+ *   "bucket_zipf_exponent": 1.1,
+ *   "shared_info_cardinality": 10000,
+ *   "filtering_id_weights": {"0": 0.9, "1": 0.1},
+ *   "invalid_report_fraction": 0.001,
+ *   "key_ids": ["key-1", "key-2"]
+ * }
+ * }</pre>
+ */
+@AutoValue
+@JsonDeserialize(builder = LoadTestInputSpec.Builder.class)
+@JsonSerialize(as = LoadTestInputSpec.class)
+public abstract class LoadTestInputSpec {
+
+  public static Builder builder() {
+    return Builder.builder();
+  }
+
+  /** Total number of reports, spread evenly over the shards. */
+  @JsonProperty("report_count")
+  public abstract long reportCount();
+
+  /** Number of report shards, which are generated in parallel. */
+  @JsonProperty("shard_count")
+  public abstract int shardCount();
+
+  /** Number of contributions in the payload of each report. */
+  @JsonProperty("contributions_per_report")
+  public abstract int contributionsPerReport();
+
+  /** Number of distinct buckets, all of which are written to the output domain. */
+  @JsonProperty("bucket_cardinality")
+  public abstract long bucketCardinality();
+
+  /**
+   * Exponent of the Zipf distribution of the contributions over the buckets. Contributions are
+   * spread uniformly when set to 0.
+   */
+  @JsonProperty("bucket_zipf_exponent")
+  public abstract double bucketZipfExponent();
+
+  /** Number of distinct shared_info values apart from the report ID. */
+  @JsonProperty("shared_info_cardinality")
+  public abstract int sharedInfoCardinality();
+
+  /**
+   * Relative weights of the filtering IDs of the contributions. Contributions have the default
+   * filtering ID if empty.
+   */
+  @JsonProperty("filtering_id_weights")
+  public abstract ImmutableMap<Long, Double> filteringIdWeights();
+
+  /** Fraction of reports whose payload is corrupted, so that they fail decryption. */
+  @JsonProperty("invalid_report_fraction")
+  public abstract double invalidReportFraction();
+
+  /** Key IDs set on the reports, chosen uniformly per report. */
+  @JsonProperty("key_ids")
+  public abstract ImmutableList<String> keyIds();
+
+  @JsonProperty("reporting_origin")
+  public abstract String reportingOrigin();
+
+  /** Seed of the generator; the same spec and seed generate the same reports apart from IDs. */
+  @JsonProperty("seed")
+  public abstract long seed();
+
+  @AutoValue.Builder
+  @JsonIgnoreProperties(ignoreUnknown = true)
+  public abstract static class Builder {
+
+    @JsonCreator
+    public static Builder builder() {
+      return new AutoValue_LoadTestInputSpec.Builder()
+          .setShardCount(1)
+          .setContributionsPerReport(1)
+          .setBucketZipfExponent(0)
+          .setSharedInfoCardinality(1)
+          .setFilteringIdWeights(ImmutableMap.of())
+          .setInvalidReportFraction(0)
+          .setKeyIds(ImmutableList.of("load-test-key"))
+          .setReportingOrigin("https://load-test.example")
+          .setSeed(0);
+    }
+
+    @JsonProperty("report_count")
+    public abstract Builder setReportCount(long value);
+
+    @JsonProperty("shard_count")
+    public abstract Builder setShardCount(int value);
+
+    @JsonProperty("contributions_per_report")
+    public abstract Builder setContributionsPerReport(int value);
+
+    @JsonProperty("bucket_cardinality")
+    public abstract Builder setBucketCardinality(long value);
+
+    @JsonProperty("bucket_zipf_exponent")
+    public abstract Builder setBucketZipfExponent(double value);
+
+    @JsonProperty("shared_info_cardinality")
+    public abstract Builder setSharedInfoCardinality(int value);
+
+    @JsonProperty("filtering_id_weights")
+    public abstract Builder setFilteringIdWeights(ImmutableMap<Long, Double> value);
+
+    @JsonProperty("invalid_report_fraction")
+    public abstract Builder setInvalidReportFraction(double value);
+
+    @JsonProperty("key_ids")
+    public abstract Builder setKeyIds(ImmutableList<String> value);
+
+    @JsonProperty("reporting_origin")
+    public abstract Builder setReportingOrigin(String value);
+
+    @JsonProperty("seed")
+    public abstract Builder setSeed(long value);
+
+    abstract LoadTestInputSpec autoBuild();
+
+    /**
+     * Builds the spec.
+     *
+     * @throws IllegalArgumentException if a count is not positive or a fraction is out of range.
+     */
+    public LoadTestInputSpec build() {
+      LoadTestInputSpec spec = autoBuild();
+      checkPositive(spec.reportCount(), "report_count");
+      checkPositive(spec.shardCount(), "shard_count");
+      checkPositive(spec.contributionsPerReport(), "contributions_per_report");
+      checkPositive(spec.bucketCardinality(), "bucket_cardinality");
+      checkPositive(spec.sharedInfoCardinality(), "shared_info_cardinality");
+      if (spec.bucketZipfExponent() < 0) {
+        throw new IllegalArgumentException("bucket_zipf_exponent must not be negative.");
+      }
+      if (spec.invalidReportFraction() < 0 || spec.invalidReportFraction() > 1) {
+        throw new IllegalArgumentException("invalid_report_fraction must be between 0 and 1.");
+      }
+      if (spec.keyIds().isEmpty()) {
+        throw new IllegalArgumentException("key_ids must not be empty.");
+      }
+      if (spec.filteringIdWeights().values().stream().anyMatch(weight -> weight <= 0)) {
+        throw new IllegalArgumentException("filtering_id_weights must be positive.");
+      }
+      return spec;
+    }
+
+    private static void checkPositive(long value, String name) {
+      if (value <= 0) {
+        throw new IllegalArgumentException(name + " must be positive.");
+      }
+    }
+  }
+}
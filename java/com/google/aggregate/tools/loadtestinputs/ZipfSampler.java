@@ -0,0 +1,98 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.tools.loadtestinputs;
+
+import java.util.SplittableRandom;
+
+/**
+ * Samples ranks in {@code [1, n]} with probability proportional to {@code 1 / rank^exponent}.
+ *
+ * <p>Uses rejection-inversion sampling (Hormann and Derflinger, 1996), which needs constant memory
+ * and constant expected time per sample regardless of {@code n}, so billions of ranks can be
+ * sampled without tabulating the distribution. An exponent of 0 samples ranks uniformly.
+ */
+final class ZipfSampler {
+
+  private final long n;
+  private final double exponent;
+  private final double hIntegralX1;
+  private final double hIntegralN;
+  private final double s;
+
+  /**
+   * @param n number of ranks, must be positive.
+   * @param exponent exponent of the distribution, must not be negative.
+   */
+  ZipfSampler(long n, double exponent) {
+    if (n <= 0) {
+      throw new IllegalArgumentException("Number of ranks must be positive.");
+    }
+    if (exponent < 0) {
+      throw new IllegalArgumentException("Exponent must not be negative.");
+    }
+    this.n = n;
+    this.exponent = exponent;
+    this.hIntegralX1 = hIntegral(1.5) - 1;
+    this.hIntegralN = hIntegral(n + 0.5);
+    this.s = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+  }
+
+  /** Returns the next rank in {@code [1, n]}. */
+  long sample(SplittableRandom random) {
+    if (exponent == 0) {
+      return random.nextLong(n) + 1;
+    }
+    while (true) {
+      double u = hIntegralN + random.nextDouble() * (hIntegralX1 - hIntegralN);
+      double x = hIntegralInverse(u);
+      long k = Math.max(1, Math.min(n, (long) (x + 0.5)));
+      if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) {
+        return k;
+      }
+    }
+  }
+
+  private double h(double x) {
+    return Math.exp(-exponent * Math.log(x));
+  }
+
+  private double hIntegral(double x) {
+    double logX = Math.log(x);
+    return expm1OverX((1 - exponent) * logX) * logX;
+  }
+
+  private double hIntegralInverse(double x) {
+    double t = Math.max(-1, x * (1 - exponent));
+    return Math.exp(log1pOverX(t) * x);
+  }
+
+  /** Returns {@code log(1 + x) / x}, which stays accurate for {@code x} close to 0. */
+  private static double log1pOverX(double x) {
+    if (Math.abs(x) > 1e-8) {
+      return Math.log1p(x) / x;
+    }
+    return 1 - x * (0.5 - x * (1.0 / 3 - 0.25 * x));
+  }
+
+  /** Returns {@code (exp(x) - 1) / x}, which stays accurate for {@code x} close to 0. */
+  private static double expm1OverX(double x) {
+    if (Math.abs(x) > 1e-8) {
+      return Math.expm1(x) / x;
+    }
+    return 1 + x * 0.5 * (1 + x / 3 * (1 + 0.25 * x));
+  }
+}
@@ -240,14 +240,14 @@ public final class GcpOTelTest {
       }
     }
 
-    // decryption_time_per_report is a debug trace which won't be generated when using prod binary.
+    // pbs_latency is a debug trace which won't be generated when using prod binary.
     try (TraceServiceClient traceServiceClient = TraceServiceClient.create()) {
       ListTracesRequest request =
           ListTracesRequest.newBuilder()
               .setProjectId(projectName.getProject())
               .setStartTime(Timestamps.fromMillis(startMillis))
               .setEndTime(Timestamps.fromMillis(System.currentTimeMillis()))
-              .setFilter("+root:decryption_time_per_report" + " " + "job-id:" + jobId)
+              .setFilter("+root:pbs_latency" + " " + "job-id:" + jobId)
               .build();
 
       for (Trace element : traceServiceClient.listTraces(request).iterateAll()) {
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.google.aggregate.adtech.worker.JobAdmissionController.Decision;
+import com.google.aggregate.adtech.worker.JobAdmissionController.JobAdmission;
+import com.google.aggregate.adtech.worker.JobCostEstimator.JobCostEstimationException;
+import com.google.aggregate.adtech.worker.jobclient.model.Job;
+import com.google.aggregate.adtech.worker.jobclient.testing.FakeJobGenerator;
+import com.google.aggregate.adtech.worker.model.JobCostEstimate;
+import com.google.privacysandbox.otel.OTelConfiguration;
+import io.opentelemetry.api.logs.Severity;
+import java.util.Optional;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class JobAdmissionControllerTest {
+
+  private static final long MIB = 1024 * 1024;
+  // Jobs may use 80% of the heap, i.e. 800 MiB.
+  private static final long MAX_HEAP_BYTES = 1000 * MIB;
+
+  private OTelConfiguration oTelConfiguration;
+  private Job job;
+
+  @Before
+  public void setUp() {
+    oTelConfiguration = mock(OTelConfiguration.class);
+    job = FakeJobGenerator.generate("foo");
+  }
+
+  @Test
+  public void admit_noEstimator_accepts() {
+    JobAdmissionController controller =
+        new JobAdmissionController(Optional.empty(), oTelConfiguration, () -> MAX_HEAP_BYTES);
+
+    JobAdmission admission = controller.admit(job);
+
+    assertThat(admission.decision()).isEqualTo(Decision.ACCEPT);
+    verify(oTelConfiguration, never()).writeProdLog(any(), any());
+  }
+
+  @Test
+  public void admit_fitsInHeap_acceptsAndPublishesEstimate() {
+    JobAdmissionController controller =
+        createController(estimateBuilder().setEstimatedPeakHeapBytes(700 * MIB).build());
+
+    JobAdmission admission = controller.admit(job);
+
+    assertThat(admission.decision()).isEqualTo(Decision.ACCEPT);
+    verify(oTelConfiguration).writeProdLog(contains("peak heap ~700 MiB"), eq(Severity.INFO));
+    verify(oTelConfiguration).createProdGauge(eq("job_estimated_peak_heap"), eq("MiB"), any());
+  }
+
+  @Test
+  public void admit_fitsOnlyInReducedMemoryMode_acceptsReducedMemory() {
+    JobAdmissionController controller =
+        createController(
+            estimateBuilder()
+                .setEstimatedPeakHeapBytes(1200 * MIB)
+                .setEstimatedReducedMemoryPeakHeapBytes(600 * MIB)
+                .build());
+
+    JobAdmission admission = controller.admit(job);
+
+    assertThat(admission.decision()).isEqualTo(Decision.ACCEPT_REDUCED_MEMORY);
+  }
+
+  @Test
+  public void admit_exceedsHeapWithoutReducedMemoryMode_rejects() {
+    JobAdmissionController controller =
+        createController(estimateBuilder().setEstimatedPeakHeapBytes(1200 * MIB).build());
+
+    JobAdmission admission = controller.admit(job);
+
+    assertThat(admission.decision()).isEqualTo(Decision.REJECT);
+    assertThat(admission.message()).contains("1200 MiB");
+    assertThat(admission.message()).contains("800 MiB");
+  }
+
+  @Test
+  public void admit_exceedsHeapInReducedMemoryMode_rejects() {
+    JobAdmissionController controller =
+        createController(
+            estimateBuilder()
+                .setEstimatedPeakHeapBytes(3000 * MIB)
+                .setEstimatedReducedMemoryPeakHeapBytes(900 * MIB)
+                .build());
+
+    JobAdmission admission = controller.admit(job);
+
+    assertThat(admission.decision()).isEqualTo(Decision.REJECT);
+    assertThat(admission.message()).contains("900 MiB");
+  }
+
+  @Test
+  public void admit_estimationFails_accepts() {
+    JobCostEstimator failingEstimator =
+        unused -> {
+          throw new JobCostEstimationException(new IllegalStateException("no access"));
+        };
+    JobAdmissionController controller =
+        new JobAdmissionController(
+            Optional.of(failingEstimator), oTelConfiguration, () -> MAX_HEAP_BYTES);
+
+    JobAdmission admission = controller.admit(job);
+
+    assertThat(admission.decision()).isEqualTo(Decision.ACCEPT);
+  }
+
+  private JobAdmissionController createController(JobCostEstimate estimate) {
+    return new JobAdmissionController(
+        Optional.of(unused -> estimate), oTelConfiguration, () -> MAX_HEAP_BYTES);
+  }
+
+  private static JobCostEstimate.Builder estimateBuilder() {
+    return JobCostEstimate.builder()
+        .setInputShardCount(4)
+        .setInputBytes(4096)
+        .setEstimatedReportCount(4)
+        .setDomainShardCount(1)
+        .setDomainBytes(24)
+        .setEstimatedDistinctKeys(5);
+  }
+}
@@ -21,6 +21,7 @@ import static com.google.common.truth.Truth.assertThat;
 
 import com.google.acai.Acai;
 import com.google.acai.TestScoped;
+import com.google.aggregate.adtech.worker.Annotations.StopReportValidationAtFirstError;
 import com.google.aggregate.adtech.worker.decryption.DecryptionCipher;
 import com.google.aggregate.adtech.worker.decryption.DecryptionCipher.PayloadDecryptionException;
 import com.google.aggregate.adtech.worker.decryption.DecryptionCipher.PayloadParsingException;
@@ -40,7 +41,9 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.io.ByteSource;
 import com.google.inject.AbstractModule;
 import com.google.inject.Inject;
+import com.google.inject.Key;
 import com.google.inject.multibindings.Multibinder;
+import com.google.inject.multibindings.OptionalBinder;
 import com.google.scp.operator.cpio.cryptoclient.model.ErrorReason;
 import com.google.aggregate.adtech.worker.jobclient.model.Job;
 import com.google.aggregate.adtech.worker.jobclient.testing.FakeJobGenerator;
@@ -229,6 +232,8 @@ public class ReportDecrypterAndValidatorTest {
       Multibinder<ReportValidator> reportValidatorMultibinder =
           Multibinder.newSetBinder(binder(), ReportValidator.class);
       reportValidatorMultibinder.addBinding().to(FakeValidator.class);
+      OptionalBinder.newOptionalBinder(
+          binder(), Key.get(Boolean.class, StopReportValidationAtFirstError.class));
     }
   }
 }
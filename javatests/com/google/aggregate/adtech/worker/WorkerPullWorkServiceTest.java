@@ -36,6 +36,8 @@ import com.google.aggregate.adtech.worker.Annotations.InstanceId;
 import com.google.aggregate.adtech.worker.Annotations.MaxDepthOfStackTrace;
 import com.google.aggregate.adtech.worker.Annotations.NonBlockingThreadPool;
 import com.google.aggregate.adtech.worker.Annotations.OutputShardFileSizeBytes;
+import com.google.aggregate.adtech.worker.Annotations.RejectJobsExceedingMemoryEstimate;
+import com.google.aggregate.adtech.worker.model.JobCostEstimate;
 import com.google.aggregate.adtech.worker.selector.MetricClientSelector;
 import com.google.aggregate.adtech.worker.testing.NoopJobProcessor;
 import com.google.aggregate.adtech.worker.testing.NoopJobProcessor.ExceptionToThrow;
@@ -46,12 +48,15 @@ import com.google.common.base.Ticker;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.inject.AbstractModule;
 import com.google.inject.Inject;
+import com.google.inject.Key;
 import com.google.inject.Provides;
+import com.google.inject.multibindings.OptionalBinder;
 import com.google.privacysandbox.otel.Annotations.EnableOTelLogs;
 import com.google.privacysandbox.otel.OtlpJsonLoggingOTelConfigurationModule;
 import com.google.aggregate.adtech.worker.jobclient.JobClient;
 import com.google.aggregate.adtech.worker.jobclient.model.Job;
 import com.google.aggregate.adtech.worker.jobclient.model.JobResult;
+import com.google.aggregate.adtech.worker.jobclient.model.JobRetryRequest;
 import com.google.aggregate.adtech.worker.jobclient.testing.ConstantJobClient;
 import com.google.aggregate.protos.shared.backend.JobKeyProto.JobKey;
 import com.google.aggregate.protos.shared.backend.JobStatusProto.JobStatus;
@@ -77,6 +82,7 @@ public class WorkerPullWorkServiceTest {
       AggregationWorkerReturnCode.INVALID_JOB.name();
   @Inject private ConstantJobClient jobClient;
   @Inject private NoopJobProcessor jobProcessor;
+  @Inject private FakeJobCostEstimator jobCostEstimator;
   @Rule public final Acai acai = new Acai(TestEnv.class);
   private ArgumentCaptor<JobResult> jobResultCaptor;
   private ArgumentCaptor<JobKey> jobKeyCaptor;
@@ -106,6 +112,31 @@ public class WorkerPullWorkServiceTest {
         .isEqualTo(RETURN_CODE_SUCCESS);
   }
 
+  @Test
+  public void pullJob_estimatedToExceedHeap_releasesJobForRetry() throws Exception {
+    Job job = createJob("test job");
+    jobClient.setReturnConstant(job);
+    jobCostEstimator.setEstimate(
+        JobCostEstimate.builder()
+            .setInputShardCount(1)
+            .setInputBytes(1)
+            .setEstimatedReportCount(1)
+            .setDomainShardCount(0)
+            .setDomainBytes(0)
+            .setEstimatedDistinctKeys(1)
+            .setEstimatedPeakHeapBytes(Long.MAX_VALUE)
+            .build());
+    ArgumentCaptor<JobRetryRequest> jobRetryRequestCaptor =
+        ArgumentCaptor.forClass(JobRetryRequest.class);
+
+    service.run();
+
+    verify(jobClient, never()).markJobCompleted(any());
+    verify(jobClient).returnJobForRetry(jobRetryRequestCaptor.capture());
+    assertThat(jobRetryRequestCaptor.getValue().getJobKey()).isEqualTo(job.jobKey());
+    assertThat(jobRetryRequestCaptor.getValue().getDelay()).isPresent();
+  }
+
   @Test
   public void withInvalidFilteringIds_returnsInvalidJobCode() throws Exception {
     RequestInfo requestInfo =
@@ -258,6 +289,24 @@ public class WorkerPullWorkServiceTest {
         .build();
   }
 
+  /** Returns the estimate set by the test, or fails so that the job is accepted. */
+  static final class FakeJobCostEstimator implements JobCostEstimator {
+
+    private Optional<JobCostEstimate> estimate = Optional.empty();
+
+    void setEstimate(JobCostEstimate estimate) {
+      this.estimate = Optional.of(estimate);
+    }
+
+    @Override
+    public JobCostEstimate estimate(Job job) throws JobCostEstimationException {
+      if (estimate.isEmpty()) {
+        throw new JobCostEstimationException(new IllegalStateException("No estimate set."));
+      }
+      return estimate.get();
+    }
+  }
+
   private static final class TestEnv extends AbstractModule {
 
     @Override
@@ -271,6 +320,16 @@ public class WorkerPullWorkServiceTest {
       bind(NoopJobProcessor.class).in(TestScoped.class);
       bind(JobProcessor.class).to(NoopJobProcessor.class);
 
+      // Job costs are not estimated unless a test sets an estimate, and warm-up is disabled
+      bind(FakeJobCostEstimator.class).in(TestScoped.class);
+      OptionalBinder.newOptionalBinder(binder(), JobCostEstimator.class)
+          .setBinding()
+          .to(FakeJobCostEstimator.class);
+      OptionalBinder.newOptionalBinder(
+          binder(), Key.get(Boolean.class, RejectJobsExceedingMemoryEstimate.class));
+      OptionalBinder.newOptionalBinder(binder(), WorkerWarmup.class);
+      OptionalBinder.newOptionalBinder(binder(), DistributedAggregationConfig.class);
+
       // JobResultHelper
       bind(Boolean.class).annotatedWith(EnableStackTraceInResponse.class).toInstance(true);
       bind(Integer.class).annotatedWith(MaxDepthOfStackTrace.class).toInstance(3);
@@ -0,0 +1,387 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.aggregation.concurrent;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.aggregate.adtech.worker.AggregationCheckpointConfig;
+import com.google.aggregate.adtech.worker.ErrorSummaryAggregator;
+import com.google.aggregate.adtech.worker.aggregation.engine.AggregationEngine;
+import com.google.aggregate.adtech.worker.aggregation.engine.AggregationEngine.AggregationKey;
+import com.google.aggregate.adtech.worker.aggregation.engine.AggregationEngineFactory;
+import com.google.aggregate.adtech.worker.jobclient.model.Job;
+import com.google.aggregate.adtech.worker.jobclient.testing.FakeJobGenerator;
+import com.google.aggregate.adtech.worker.model.ErrorCounter;
+import com.google.aggregate.adtech.worker.model.PrivacyBudgetUnit;
+import com.google.aggregate.adtech.worker.model.SharedInfo;
+import com.google.aggregate.adtech.worker.model.serdes.SharedInfoSerdes;
+import com.google.aggregate.privacy.budgeting.budgetkeygenerator.PrivacyBudgetKeyGenerator.PrivacyBudgetKeyInput;
+import com.google.aggregate.privacy.budgeting.budgetkeygenerator.PrivacyBudgetKeyGeneratorModule;
+import com.google.aggregate.protos.shared.backend.ErrorCountProto.ErrorCount;
+import com.google.aggregate.protos.shared.backend.ErrorSummaryProto.ErrorSummary;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.primitives.UnsignedLong;
+import com.google.crypto.tink.Aead;
+import com.google.crypto.tink.KeysetHandle;
+import com.google.crypto.tink.aead.AeadConfig;
+import com.google.crypto.tink.aead.PredefinedAeadParameters;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.scp.operator.cpio.blobstorageclient.testing.FSBlobStorageClient;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class AggregationCheckpointStoreTest {
+
+  private static final ImmutableSet<UnsignedLong> FILTERING_IDS =
+      ImmutableSet.of(UnsignedLong.ZERO);
+  private static final UUID REPORT_ID = UUID.randomUUID();
+  private static final SharedInfo SHARED_INFO =
+      SharedInfo.builder()
+          .setApi(SharedInfo.ATTRIBUTION_REPORTING_API)
+          .setDestination("dest.com")
+          .setVersion(SharedInfo.LATEST_VERSION)
+          .setReportId(REPORT_ID.toString())
+          .setReportingOrigin("adtech.com")
+          .setScheduledReportTime(Instant.EPOCH)
+          .setSourceRegistrationTime(Instant.EPOCH)
+          .build();
+  private static final PrivacyBudgetUnit PRIVACY_BUDGET_UNIT =
+      PrivacyBudgetUnit.createHourTruncatedUnit("budget_key", Instant.EPOCH, "adtech.com");
+
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private SharedInfoSerdes sharedInfoSerdes;
+  private AggregationEngineFactory aggregationEngineFactory;
+  private AggregationCheckpointStore checkpointStore;
+  private Path bucket;
+  private Aead keyAead;
+  private Job job;
+
+  @Before
+  public void setUp() throws Exception {
+    Injector injector = Guice.createInjector(new PrivacyBudgetKeyGeneratorModule());
+    sharedInfoSerdes = injector.getInstance(SharedInfoSerdes.class);
+    aggregationEngineFactory = injector.getInstance(AggregationEngineFactory.class);
+    checkpointStore =
+        createCheckpointStore("checkpoints", /* bucket= */ Optional.empty(), Optional.empty());
+    bucket = temporaryFolder.newFolder("bucket").toPath();
+    keyAead = createKeyAead();
+    job = FakeJobGenerator.generate("job_id").toBuilder().setNumAttempts(1).build();
+  }
+
+  @Test
+  public void restore_withoutCheckpoint_returnsEmpty() throws Exception {
+    AggregationEngine engine = aggregationEngineFactory.createKeyAggregationEngine(FILTERING_IDS);
+
+    Optional<AggregationCheckpoint> checkpoint =
+        checkpointStore.restore(job, ImmutableList.of(engine), createErrorAggregator());
+
+    assertThat(checkpoint).isEmpty();
+    assertThat(engine.getEntries().count()).isEqualTo(0);
+  }
+
+  @Test
+  public void saveAndRestore_roundTripsAggregationState() throws Exception {
+    AggregationEngine engine = aggregationEngineFactory.createKeyAggregationEngine(FILTERING_IDS);
+    engine.restoreAggregatedValue(AggregationKey.create(BigInteger.ONE), 10);
+    engine.restoreAggregatedValue(AggregationKey.create(BigInteger.TWO.pow(100)), 20);
+    engine.restoreReportId(REPORT_ID);
+    PrivacyBudgetKeyInput privacyBudgetKeyInput =
+        PrivacyBudgetKeyInput.builder()
+            .setSharedInfo(SHARED_INFO)
+            .setFilteringId(UnsignedLong.valueOf(5))
+            .build();
+    engine.restorePrivacyBudgetUnit(PRIVACY_BUDGET_UNIT, privacyBudgetKeyInput);
+    ErrorSummaryAggregator errorAggregator = createErrorAggregator();
+    errorAggregator.restore(createErrorSummary(/* decryptionErrors= */ 3));
+
+    checkpointStore.save(
+        job,
+        ImmutableList.of(engine),
+        errorAggregator,
+        AggregationCheckpoint.create(ImmutableSet.of("shard_1", "shard_2"), 42));
+    AggregationEngine restoredEngine =
+        aggregationEngineFactory.createKeyAggregationEngine(FILTERING_IDS);
+    ErrorSummaryAggregator restoredErrorAggregator = createErrorAggregator();
+    Optional<AggregationCheckpoint> checkpoint =
+        checkpointStore.restore(job, ImmutableList.of(restoredEngine), restoredErrorAggregator);
+
+    assertThat(checkpoint)
+        .hasValue(AggregationCheckpoint.create(ImmutableSet.of("shard_1", "shard_2"), 42));
+    assertThat(restoredEngine.makeAggregation()).isEqualTo(engine.makeAggregation());
+    assertThat(restoredEngine.getReportIds().collect(ImmutableSet.toImmutableSet()))
+        .containsExactly(REPORT_ID);
+    assertThat(restoredEngine.getPrivacyBudgetKeyInputs())
+        .containsExactly(PRIVACY_BUDGET_UNIT, privacyBudgetKeyInput);
+    assertThat(restoredErrorAggregator.createErrorSummary())
+        .isEqualTo(errorAggregator.createErrorSummary());
+  }
+
+  @Test
+  public void saveAndRestore_multipleEngines_restoresEachEngine() throws Exception {
+    AggregationEngine firstEngine =
+        aggregationEngineFactory.createKeyAggregationEngine(FILTERING_IDS);
+    firstEngine.restoreAggregatedValue(AggregationKey.create(BigInteger.ONE), 10);
+    firstEngine.restoreReportId(REPORT_ID);
+    AggregationEngine secondEngine =
+        aggregationEngineFactory.createKeyAggregationEngine(
+            ImmutableSet.of(UnsignedLong.valueOf(5)));
+    secondEngine.restoreAggregatedValue(AggregationKey.create(BigInteger.TWO), 20);
+    secondEngine.restoreReportId(REPORT_ID);
+
+    checkpointStore.save(
+        job,
+        ImmutableList.of(firstEngine, secondEngine),
+        createErrorAggregator(),
+        AggregationCheckpoint.create(ImmutableSet.of("shard_1"), 1));
+    AggregationEngine restoredFirstEngine =
+        aggregationEngineFactory.createKeyAggregationEngine(FILTERING_IDS);
+    AggregationEngine restoredSecondEngine =
+        aggregationEngineFactory.createKeyAggregationEngine(
+            ImmutableSet.of(UnsignedLong.valueOf(5)));
+    checkpointStore.restore(
+        job, ImmutableList.of(restoredFirstEngine, restoredSecondEngine), createErrorAggregator());
+
+    assertThat(restoredFirstEngine.makeAggregation()).isEqualTo(firstEngine.makeAggregation());
+    assertThat(restoredSecondEngine.makeAggregation()).isEqualTo(secondEngine.makeAggregation());
+    assertThat(restoredSecondEngine.getReportIds().collect(ImmutableSet.toImmutableSet()))
+        .containsExactly(REPORT_ID);
+  }
+
+  @Test
+  public void restore_differentNumberOfEngines_throwsIOException() {
+    AggregationEngine engine = aggregationEngineFactory.createKeyAggregationEngine(FILTERING_IDS);
+    checkpointStore.save(
+        job,
+        ImmutableList.of(engine),
+        createErrorAggregator(),
+        AggregationCheckpoint.create(ImmutableSet.of(), 1));
+
+    assertThrows(
+        IOException.class,
+        () ->
+            checkpointStore.restore(
+                job,
+                ImmutableList.of(
+                    aggregationEngineFactory.createKeyAggregationEngine(FILTERING_IDS),
+                    aggregationEngineFactory.createKeyAggregationEngine(FILTERING_IDS)),
+                createErrorAggregator()));
+  }
+
+  @Test
+  public void restore_checkpointOfEarlierJobWithSameKey_returnsEmpty() throws Exception {
+    AggregationEngine engine = aggregationEngineFactory.createKeyAggregationEngine(FILTERING_IDS);
+    engine.restoreAggregatedValue(AggregationKey.create(BigInteger.ONE), 10);
+    checkpointStore.save(
+        job,
+        ImmutableList.of(engine),
+        createErrorAggregator(),
+        AggregationCheckpoint.create(ImmutableSet.of(), 1));
+    Job resubmittedJob = job.toBuilder().setCreateTime(job.createTime().plusSeconds(60)).build();
+
+    AggregationEngine restoredEngine =
+        aggregationEngineFactory.createKeyAggregationEngine(FILTERING_IDS);
+    Optional<AggregationCheckpoint> checkpoint =
+        checkpointStore.restore(
+            resubmittedJob, ImmutableList.of(restoredEngine), createErrorAggregator());
+
+    assertThat(checkpoint).isEmpty();
+    assertThat(restoredEngine.getEntries().count()).isEqualTo(0);
+  }
+
+  @Test
+  public void restore_afterDelete_returnsEmpty() throws Exception {
+    AggregationEngine engine = aggregationEngineFactory.createKeyAggregationEngine(FILTERING_IDS);
+    checkpointStore.save(
+        job,
+        ImmutableList.of(engine),
+        createErrorAggregator(),
+        AggregationCheckpoint.create(ImmutableSet.of(), 1));
+
+    checkpointStore.delete(job);
+    AggregationEngine restoredEngine =
+        aggregationEngineFactory.createKeyAggregationEngine(FILTERING_IDS);
+
+    assertThat(
+            checkpointStore.restore(
+                job, ImmutableList.of(restoredEngine), createErrorAggregator()))
+        .isEmpty();
+  }
+
+  @Test
+  public void restore_onAnotherWorker_restoresCopyFromBucket() throws Exception {
+    AggregationEngine engine = aggregationEngineFactory.createKeyAggregationEngine(FILTERING_IDS);
+    engine.restoreAggregatedValue(AggregationKey.create(BigInteger.ONE), 10);
+    engine.restoreReportId(REPORT_ID);
+    createCheckpointStore("first_worker", Optional.of(bucket), Optional.of(keyAead))
+        .save(
+            job,
+            ImmutableList.of(engine),
+            createErrorAggregator(),
+            AggregationCheckpoint.create(ImmutableSet.of("shard_1"), 1));
+    Job retriedJob = job.toBuilder().setNumAttempts(2).build();
+
+    AggregationEngine restoredEngine =
+        aggregationEngineFactory.createKeyAggregationEngine(FILTERING_IDS);
+    Optional<AggregationCheckpoint> checkpoint =
+        createCheckpointStore("second_worker", Optional.of(bucket), Optional.of(keyAead))
+            .restore(retriedJob, ImmutableList.of(restoredEngine), createErrorAggregator());
+
+    assertThat(checkpoint).hasValue(AggregationCheckpoint.create(ImmutableSet.of("shard_1"), 1));
+    assertThat(restoredEngine.makeAggregation()).isEqualTo(engine.makeAggregation());
+    assertThat(restoredEngine.getReportIds().collect(ImmutableSet.toImmutableSet()))
+        .containsExactly(REPORT_ID);
+  }
+
+  @Test
+  public void save_withoutKey_doesNotCopyToBucket() throws Exception {
+    createCheckpointStore("first_worker", Optional.of(bucket), /* keyAead= */ Optional.empty())
+        .save(
+            job,
+            createEngines(),
+            createErrorAggregator(),
+            AggregationCheckpoint.create(ImmutableSet.of(), 1));
+
+    assertThat(listBucket()).isEmpty();
+  }
+
+  @Test
+  public void restore_copyOfSameAttempt_returnsEmpty() throws Exception {
+    createCheckpointStore("first_worker", Optional.of(bucket), Optional.of(keyAead))
+        .save(
+            job,
+            createEngines(),
+            createErrorAggregator(),
+            AggregationCheckpoint.create(ImmutableSet.of(), 1));
+
+    Optional<AggregationCheckpoint> checkpoint =
+        createCheckpointStore("second_worker", Optional.of(bucket), Optional.of(keyAead))
+            .restore(job, createEngines(), createErrorAggregator());
+
+    assertThat(checkpoint).isEmpty();
+  }
+
+  @Test
+  public void restore_copySealedWithAnotherKey_throwsIOException() throws Exception {
+    createCheckpointStore("first_worker", Optional.of(bucket), Optional.of(createKeyAead()))
+        .save(
+            job,
+            createEngines(),
+            createErrorAggregator(),
+            AggregationCheckpoint.create(ImmutableSet.of(), 1));
+    AggregationCheckpointStore otherWorkerStore =
+        createCheckpointStore("second_worker", Optional.of(bucket), Optional.of(keyAead));
+
+    assertThrows(
+        IOException.class,
+        () ->
+            otherWorkerStore.restore(
+                job.toBuilder().setNumAttempts(2).build(),
+                createEngines(),
+                createErrorAggregator()));
+  }
+
+  @Test
+  public void restore_tamperedCopy_throwsIOException() throws Exception {
+    createCheckpointStore("first_worker", Optional.of(bucket), Optional.of(keyAead))
+        .save(
+            job,
+            createEngines(),
+            createErrorAggregator(),
+            AggregationCheckpoint.create(ImmutableSet.of(), 1));
+    Path copy = listBucket().get(0);
+    byte[] content = Files.readAllBytes(copy);
+    content[content.length - 1] ^= 1;
+    Files.write(copy, content);
+    AggregationCheckpointStore otherWorkerStore =
+        createCheckpointStore("second_worker", Optional.of(bucket), Optional.of(keyAead));
+
+    assertThrows(
+        IOException.class,
+        () ->
+            otherWorkerStore.restore(
+                job.toBuilder().setNumAttempts(2).build(),
+                createEngines(),
+                createErrorAggregator()));
+  }
+
+  private AggregationCheckpointStore createCheckpointStore(
+      String localDirectory, Optional<Path> bucket, Optional<Aead> keyAead) {
+    AggregationCheckpointConfig.Builder config =
+        AggregationCheckpointConfig.builder()
+            .setInterval(Duration.ZERO)
+            .setLocalDirectory(temporaryFolder.getRoot().toPath().resolve(localDirectory));
+    bucket.ifPresent(path -> config.setBucket(path.toString()));
+    return new AggregationCheckpointStore(
+        Optional.of(config.build()),
+        new FSBlobStorageClient(FileSystems.getDefault()),
+        keyAead,
+        sharedInfoSerdes);
+  }
+
+  private ImmutableList<AggregationEngine> createEngines() {
+    return ImmutableList.of(aggregationEngineFactory.createKeyAggregationEngine(FILTERING_IDS));
+  }
+
+  private ImmutableList<Path> listBucket() throws IOException {
+    try (Stream<Path> files = Files.walk(bucket)) {
+      return files.filter(Files::isRegularFile).collect(ImmutableList.toImmutableList());
+    }
+  }
+
+  private static Aead createKeyAead() throws GeneralSecurityException {
+    AeadConfig.register();
+    return KeysetHandle.generateNew(PredefinedAeadParameters.AES256_GCM).getPrimitive(Aead.class);
+  }
+
+  private static ErrorSummaryAggregator createErrorAggregator() {
+    return ErrorSummaryAggregator.createErrorSummaryAggregator(
+        /* totalReportCountsOptional= */ Optional.empty(), /* errorThresholdPercentage= */ 100);
+  }
+
+  private static ErrorSummary createErrorSummary(long decryptionErrors) {
+    return ErrorSummary.newBuilder()
+        .addErrorCounts(
+            ErrorCount.newBuilder()
+                .setCategory(ErrorCounter.DECRYPTION_ERROR.name())
+                .setCount(decryptionErrors))
+        .addErrorCounts(
+            ErrorCount.newBuilder()
+                .setCategory(ErrorCounter.NUM_REPORTS_WITH_ERRORS.name())
+                .setCount(decryptionErrors))
+        .build();
+  }
+}
@@ -30,6 +30,7 @@ import static com.google.aggregate.adtech.worker.aggregation.concurrent.Concurre
 import static com.google.aggregate.adtech.worker.aggregation.concurrent.ConcurrentAggregationProcessor.JOB_PARAM_REPORTING_SITE;
 import static com.google.aggregate.adtech.worker.aggregation.concurrent.ConcurrentAggregationProcessor.PRIVACY_BUDGET_EXHAUSTED_DEBUGGING_INFO_FILENAME_PREFIX;
 import static com.google.aggregate.adtech.worker.aggregation.concurrent.ConcurrentAggregationProcessor.PRIVACY_BUDGET_EXHAUSTED_ERROR_MESSAGE;
+import static com.google.aggregate.adtech.worker.aggregation.concurrent.ConcurrentAggregationProcessor.RESULT_VALIDATION_ONLY_MESSAGE;
 import static com.google.aggregate.adtech.worker.model.ErrorCounter.NUM_REPORTS_WITH_ERRORS;
 import static com.google.aggregate.adtech.worker.model.SharedInfo.LATEST_VERSION;
 import static com.google.aggregate.adtech.worker.model.SharedInfo.VERSION_0_1;
@@ -39,10 +40,14 @@ import static com.google.aggregate.adtech.worker.util.JobResultHelper.RESULT_SUC
 import static com.google.aggregate.adtech.worker.util.JobResultHelper.RESULT_SUCCESS_WITH_ERRORS_MESSAGE;
 import static com.google.aggregate.adtech.worker.util.JobUtils.JOB_PARAM_DEBUG_PRIVACY_EPSILON;
 import static com.google.aggregate.adtech.worker.util.JobUtils.JOB_PARAM_FILTERING_IDS;
+import static com.google.aggregate.adtech.worker.util.JobUtils.JOB_PARAM_FILTERING_ID_SETS;
+import static com.google.aggregate.adtech.worker.util.JobUtils.getOutputDataBlobPrefixForFilteringIdSet;
 import static com.google.aggregate.adtech.worker.util.JobUtils.JOB_PARAM_INPUT_REPORT_COUNT;
 import static com.google.aggregate.adtech.worker.util.JobUtils.JOB_PARAM_OUTPUT_DOMAIN_BLOB_PREFIX;
 import static com.google.aggregate.adtech.worker.util.JobUtils.JOB_PARAM_OUTPUT_DOMAIN_BUCKET_NAME;
 import static com.google.aggregate.adtech.worker.util.JobUtils.JOB_PARAM_REPORT_ERROR_THRESHOLD_PERCENTAGE;
+import static com.google.aggregate.adtech.worker.util.JobUtils.JOB_PARAM_VALIDATION_ONLY;
+import static com.google.aggregate.adtech.worker.util.JobUtils.JOB_PARAM_WINDOW_CLOSE_TIME;
 import static com.google.aggregate.adtech.worker.util.NumericConversions.createBucketFromInt;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.truth.Truth.assertThat;
@@ -57,18 +62,28 @@ import static org.junit.Assert.assertThrows;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.acai.Acai;
 import com.google.acai.TestScoped;
+import com.google.aggregate.adtech.worker.AggregationCheckpointConfig;
 import com.google.aggregate.adtech.worker.AggregationWorkerReturnCode;
 import com.google.aggregate.adtech.worker.Annotations.BlockingThreadPool;
 import com.google.aggregate.adtech.worker.Annotations.CustomForkJoinThreadPool;
+import com.google.aggregate.adtech.worker.Annotations.DecryptionKeyPrefetchReportsPerShard;
+import com.google.aggregate.adtech.worker.Annotations.DistributedAggregationKeyAead;
 import com.google.aggregate.adtech.worker.Annotations.DomainOptional;
 import com.google.aggregate.adtech.worker.Annotations.DontConsumeBudgetInDebugRunEnabled;
 import com.google.aggregate.adtech.worker.Annotations.EnableStackTraceInResponse;
 import com.google.aggregate.adtech.worker.Annotations.EnableThresholding;
+import com.google.aggregate.adtech.worker.Annotations.InputSampleValidationReportsPerShard;
 import com.google.aggregate.adtech.worker.Annotations.MaxDepthOfStackTrace;
 import com.google.aggregate.adtech.worker.Annotations.NonBlockingThreadPool;
 import com.google.aggregate.adtech.worker.Annotations.ParallelAggregatedFactNoising;
 import com.google.aggregate.adtech.worker.Annotations.ReportErrorThresholdPercentage;
+import com.google.aggregate.adtech.worker.Annotations.OpenWindowPollInterval;
+import com.google.aggregate.adtech.worker.Annotations.ShardReadStallTimeout;
+import com.google.aggregate.adtech.worker.Annotations.StopReportValidationAtFirstError;
 import com.google.aggregate.adtech.worker.Annotations.StreamingOutputDomainProcessing;
+import com.google.aggregate.adtech.worker.Annotations.ThreadConfinedAggregationMaxBuckets;
+import com.google.aggregate.adtech.worker.DistributedAggregationConfig;
+import com.google.aggregate.adtech.worker.JobFlightRecordingConfig;
 import com.google.aggregate.adtech.worker.ResultLogger;
 import com.google.aggregate.adtech.worker.aggregation.domain.AvroOutputDomainProcessor;
 import com.google.aggregate.adtech.worker.aggregation.domain.OutputDomainProcessor;
@@ -91,8 +106,7 @@ import com.google.aggregate.adtech.worker.model.Fact;
 import com.google.aggregate.adtech.worker.model.PrivacyBudgetUnit;
 import com.google.aggregate.adtech.worker.model.Report;
 import com.google.aggregate.adtech.worker.model.SharedInfo;
-import com.google.aggregate.adtech.worker.model.serdes.AvroDebugResultsSerdes;
-import com.google.aggregate.adtech.worker.model.serdes.AvroResultsSerdes;
+import com.google.aggregate.adtech.worker.model.serdes.AvroSummaryAndDebugResultsEncoder;
 import com.google.aggregate.adtech.worker.model.serdes.PayloadSerdes;
 import com.google.aggregate.adtech.worker.model.serdes.SharedInfoSerdes;
 import com.google.aggregate.adtech.worker.model.serdes.cbor.CborPayloadSerdes;
@@ -105,6 +119,7 @@ import com.google.aggregate.adtech.worker.util.NumericConversions;
 import com.google.aggregate.adtech.worker.util.ReportingOriginUtils;
 import com.google.aggregate.adtech.worker.validation.ReportValidator;
 import com.google.aggregate.adtech.worker.validation.ReportVersionValidator;
+import com.google.aggregate.perf.StageMetricsRegistry;
 import com.google.aggregate.perf.StopwatchExporter;
 import com.google.aggregate.perf.export.NoOpStopwatchExporter;
 import com.google.aggregate.privacy.budgeting.bridge.FakePrivacyBudgetingServiceBridge;
@@ -140,12 +155,15 @@ import com.google.common.collect.Maps;
 import com.google.common.io.ByteSource;
 import com.google.common.primitives.UnsignedLong;
 import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.crypto.tink.Aead;
 import com.google.inject.AbstractModule;
 import com.google.inject.Inject;
+import com.google.inject.Key;
 import com.google.inject.Provider;
 import com.google.inject.Provides;
 import com.google.inject.Singleton;
 import com.google.inject.multibindings.Multibinder;
+import com.google.inject.multibindings.OptionalBinder;
 import com.google.privacysandbox.otel.Annotations.EnableOTelLogs;
 import com.google.privacysandbox.otel.OtlpJsonLoggingOTelConfigurationModule;
 import com.google.scp.operator.cpio.blobstorageclient.BlobStorageClient;
@@ -155,6 +173,7 @@ import com.google.scp.operator.cpio.blobstorageclient.testing.FSBlobStorageClien
 import com.google.scp.operator.cpio.cryptoclient.DecryptionKeyService;
 import com.google.scp.operator.cpio.cryptoclient.model.ErrorReason;
 import com.google.scp.operator.cpio.distributedprivacybudgetclient.StatusCode;
+import com.google.aggregate.adtech.worker.jobclient.SubtaskDispatcher;
 import com.google.aggregate.adtech.worker.jobclient.model.Job;
 import com.google.aggregate.adtech.worker.jobclient.model.JobResult;
 import com.google.aggregate.protos.shared.backend.ErrorCountProto.ErrorCount;
@@ -382,6 +401,28 @@ public class ConcurrentAggregationProcessorTest {
         .containsExactlyElementsIn(expectedFacts);
   }
 
+  @Test
+  public void aggregate_openWindowJobWithClosedWindow_aggregatesAllShards() throws Exception {
+    ctx =
+        getJobWithGivenJobParams(
+            ImmutableMap.of(
+                JOB_PARAM_WINDOW_CLOSE_TIME, FIXED_TIME.minus(Duration.ofHours(1)).toString()));
+
+    JobResult jobResultProcessor = processor.get().process(ctx);
+
+    ImmutableList<AggregatedFact> expectedFacts =
+        ImmutableList.of(
+            AggregatedFact.create(/* bucket= */ createBucketFromInt(1), /* metric= */ 2, 2L),
+            AggregatedFact.create(/* bucket= */ createBucketFromInt(2), /* metric= */ 8, 8L));
+    if (streamingOutputDomainTestParam) {
+      expectedFacts.forEach(expectedFact -> expectedFact.setUnnoisedMetric(Optional.empty()));
+    }
+    assertThat(jobResultProcessor.resultInfo().getReturnCode())
+        .isEqualTo(AggregationWorkerReturnCode.SUCCESS.name());
+    assertThat(resultLogger.getMaterializedAggregationResults().getMaterializedAggregations())
+        .containsExactlyElementsIn(expectedFacts);
+  }
+
   @Test
   public void aggregate_skipZeroSizedBlobs() throws Exception {
     // Write an empty report.
@@ -1279,6 +1320,59 @@ public class ConcurrentAggregationProcessorTest {
     assertThat(fakePrivacyBudgetingServiceBridge.getLastAttributionReportToSent()).isEmpty();
   }
 
+  @Test
+  public void process_validationOnly_returnsProjectedErrorsWithoutAggregating() throws Exception {
+    FakePrivacyBudgetingServiceBridge fakePrivacyBudgetingServiceBridge =
+        new FakePrivacyBudgetingServiceBridge();
+    privacyBudgetingServiceBridge.setPrivacyBudgetingServiceBridgeImpl(
+        fakePrivacyBudgetingServiceBridge);
+    fakeValidator.setReportIdShouldReturnError(ImmutableSet.of(reportId1));
+    ImmutableMap<String, String> jobParams = ImmutableMap.of(JOB_PARAM_VALIDATION_ONLY, "true");
+    ctx =
+        ctx.toBuilder()
+            .setRequestInfo(
+                ctx.requestInfo().toBuilder()
+                    .putAllJobParameters(
+                        combineJobParams(ctx.requestInfo().getJobParametersMap(), jobParams))
+                    .build())
+            .build();
+
+    JobResult actualJobResult = processor.get().process(ctx);
+
+    // All 4 reports fit in the sample, so the projected counts are the counts of the sample.
+    JobResult expectedJobResult =
+        this.expectedJobResult.toBuilder()
+            .setResultInfo(
+                resultInfoBuilder
+                    .setReturnCode(AggregationWorkerReturnCode.SUCCESS_WITH_ERRORS.name())
+                    .setReturnMessage(
+                        String.format(
+                            RESULT_VALIDATION_ONLY_MESSAGE,
+                            /* sampledReportCount= */ 4,
+                            /* estimatedReportCount= */ 4))
+                    .setErrorSummary(
+                        ErrorSummary.newBuilder()
+                            .addAllErrorCounts(
+                                ImmutableList.of(
+                                    ErrorCount.newBuilder()
+                                        .setCategory(ErrorCounter.DECRYPTION_ERROR.name())
+                                        .setDescription(
+                                            ErrorCounter.DECRYPTION_ERROR.getDescription())
+                                        .setCount(1L)
+                                        .build(),
+                                    ErrorCount.newBuilder()
+                                        .setCategory(ErrorCounter.NUM_REPORTS_WITH_ERRORS.name())
+                                        .setDescription(NUM_REPORTS_WITH_ERRORS.getDescription())
+                                        .setCount(1L)
+                                        .build()))
+                            .build())
+                    .build())
+            .build();
+    assertThat(actualJobResult).isEqualTo(expectedJobResult);
+    assertThat(fakePrivacyBudgetingServiceBridge.getLastBudgetsToConsumeSent()).isEmpty();
+    assertFalse(resultLogger.hasLogged());
+  }
+
   @Test
   public void process_inputReadFailedCodeWhenBadShardThrows() throws Exception {
     Path badDataShard = reportsDirectory.resolve("reports_bad.avro");
@@ -1809,6 +1903,87 @@ public class ConcurrentAggregationProcessorTest {
         .containsExactlyElementsIn(expectedPrivacyBudgetUnits);
   }
 
+  @Test
+  public void process_withFilteringIdSets_aggregatesEachSetInOnePass() throws Exception {
+    Fact factWithDefaultId =
+        Fact.builder()
+            .setBucket(new BigInteger("11111"))
+            .setValue(11)
+            .setId(UnsignedLong.ZERO)
+            .build();
+    Fact factWithId12 =
+        Fact.builder()
+            .setBucket(new BigInteger("33333"))
+            .setValue(33)
+            .setId(UnsignedLong.valueOf(12))
+            .build();
+    Fact factWithId13 =
+        Fact.builder()
+            .setBucket(new BigInteger("44444"))
+            .setValue(44)
+            .setId(UnsignedLong.valueOf(13))
+            .build();
+    Report report =
+        FakeReportGenerator.generateWithFactList(
+            ImmutableList.of(factWithDefaultId, factWithId12, factWithId13), VERSION_1_0);
+    fakeReportWriter.writeReports(
+        reportsDirectory.resolve("reports_1.avro"), ImmutableList.of(report));
+    ImmutableSet<PrivacyBudgetUnit> expectedPrivacyBudgetUnits =
+        ImmutableSet.of(
+            getPrivacyBudgetUnit(report, /* filteringIds= */ UnsignedLong.ZERO),
+            getPrivacyBudgetUnit(report, /* filteringIds= */ UnsignedLong.valueOf(12)),
+            getPrivacyBudgetUnit(report, /* filteringIds= */ UnsignedLong.valueOf(13)));
+    FakePrivacyBudgetingServiceBridge fakePrivacyBudgetingServiceBridge =
+        new FakePrivacyBudgetingServiceBridge();
+    expectedPrivacyBudgetUnits.forEach(
+        pbu -> fakePrivacyBudgetingServiceBridge.setPrivacyBudget(pbu, /* budget= */ 1));
+    privacyBudgetingServiceBridge.setPrivacyBudgetingServiceBridgeImpl(
+        fakePrivacyBudgetingServiceBridge);
+
+    ImmutableMap<String, String> jobParams =
+        ImmutableMap.of(JOB_PARAM_FILTERING_ID_SETS, "0;12,13");
+    ctx =
+        ctx.toBuilder()
+            .setRequestInfo(
+                ctx.requestInfo().toBuilder()
+                    .putAllJobParameters(
+                        combineJobParams(ctx.requestInfo().getJobParametersMap(), jobParams))
+                    .build())
+            .build();
+    processor.get().process(ctx);
+
+    AggregatedFact expectedDefaultIdFact =
+        AggregatedFact.create(
+            /* bucket= */ new BigInteger("11111"), /* metric= */ 11, /* unnoisedMetric= */ 11L);
+    AggregatedFact expectedFact12 =
+        AggregatedFact.create(
+            /* bucket= */ new BigInteger("33333"), /* metric= */ 33, /* unnoisedMetric= */ 33L);
+    AggregatedFact expectedFact13 =
+        AggregatedFact.create(
+            /* bucket= */ new BigInteger("44444"), /* metric= */ 44, /* unnoisedMetric= */ 44L);
+    if (streamingOutputDomainTestParam) {
+      expectedDefaultIdFact.setUnnoisedMetric(Optional.empty());
+      expectedFact12.setUnnoisedMetric(Optional.empty());
+      expectedFact13.setUnnoisedMetric(Optional.empty());
+    }
+    String outputDataBlobPrefix = ctx.requestInfo().getOutputDataBlobPrefix();
+    assertThat(
+            resultLogger
+                .getMaterializedAggregationResults(
+                    getOutputDataBlobPrefixForFilteringIdSet(outputDataBlobPrefix, 0))
+                .getMaterializedAggregations())
+        .containsExactly(expectedDefaultIdFact);
+    assertThat(
+            resultLogger
+                .getMaterializedAggregationResults(
+                    getOutputDataBlobPrefixForFilteringIdSet(outputDataBlobPrefix, 1))
+                .getMaterializedAggregations())
+        .containsExactly(expectedFact12, expectedFact13);
+    // The budget of both sets is consumed in a single request.
+    assertThat(fakePrivacyBudgetingServiceBridge.getLastBudgetsToConsumeSent().get())
+        .containsExactlyElementsIn(expectedPrivacyBudgetUnits);
+  }
+
   @Test
   public void process_withConsecutiveJobsAndSameFilteringIds_throwsPrivacyExhausted()
       throws Exception {
@@ -2646,6 +2821,24 @@ public class ConcurrentAggregationProcessorTest {
     @Override
     protected void configure() {
       bind(ObjectMapper.class).to(TimeObjectMapper.class);
+      OptionalBinder.newOptionalBinder(binder(), AggregationCheckpointConfig.class);
+      OptionalBinder.newOptionalBinder(binder(), JobFlightRecordingConfig.class);
+      OptionalBinder.newOptionalBinder(binder(), DistributedAggregationConfig.class);
+      OptionalBinder.newOptionalBinder(binder(), SubtaskDispatcher.class);
+      OptionalBinder.newOptionalBinder(
+          binder(), Key.get(Aead.class, DistributedAggregationKeyAead.class));
+      OptionalBinder.newOptionalBinder(
+          binder(), Key.get(Duration.class, ShardReadStallTimeout.class));
+      OptionalBinder.newOptionalBinder(
+          binder(), Key.get(Integer.class, DecryptionKeyPrefetchReportsPerShard.class));
+      OptionalBinder.newOptionalBinder(
+          binder(), Key.get(Integer.class, ThreadConfinedAggregationMaxBuckets.class));
+      OptionalBinder.newOptionalBinder(
+          binder(), Key.get(Boolean.class, StopReportValidationAtFirstError.class));
+      OptionalBinder.newOptionalBinder(
+          binder(), Key.get(Duration.class, OpenWindowPollInterval.class));
+      OptionalBinder.newOptionalBinder(
+          binder(), Key.get(Integer.class, InputSampleValidationReportsPerShard.class));
 
       // Report reading
       install(new FSBlobStorageClientModule());
@@ -2728,8 +2921,8 @@ public class ConcurrentAggregationProcessorTest {
         @NonBlockingThreadPool ListeningExecutorService nonBlockingThreadPool,
         BlobStorageClient blobStorageClient,
         AvroOutputDomainReaderFactory avroOutputDomainReaderFactory,
-        AvroResultsSerdes resultsSerdes,
-        AvroDebugResultsSerdes debugResultsSerdes,
+        AvroSummaryAndDebugResultsEncoder summaryAndDebugResultsEncoder,
+        StageMetricsRegistry stageMetrics,
         @EnableThresholding Boolean enableThresholding,
         @DomainOptional Boolean domainOptional) {
       return helper.isAvroOutputDomainProcessor()
@@ -2738,16 +2931,17 @@ public class ConcurrentAggregationProcessorTest {
               nonBlockingThreadPool,
               blobStorageClient,
               avroOutputDomainReaderFactory,
-              resultsSerdes,
-              debugResultsSerdes,
+              summaryAndDebugResultsEncoder,
+              stageMetrics,
               domainOptional,
-              enableThresholding)
+              enableThresholding,
+              /* disableSortedDomainMergeJoin= */ Optional.empty())
           : new TextOutputDomainProcessor(
               blockingThreadPool,
               nonBlockingThreadPool,
               blobStorageClient,
-              resultsSerdes,
-              debugResultsSerdes,
+              summaryAndDebugResultsEncoder,
+              stageMetrics,
               domainOptional,
               enableThresholding);
     }
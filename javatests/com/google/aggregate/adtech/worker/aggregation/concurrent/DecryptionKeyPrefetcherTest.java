@@ -0,0 +1,189 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.aggregation.concurrent;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
+
+import com.google.acai.Acai;
+import com.google.acai.TestScoped;
+import com.google.aggregate.adtech.worker.Annotations.BlockingThreadPool;
+import com.google.aggregate.adtech.worker.Annotations.DecryptionKeyPrefetchReportsPerShard;
+import com.google.aggregate.adtech.worker.Annotations.ShardReadStallTimeout;
+import com.google.aggregate.adtech.worker.decryption.DeserializingReportDecrypter;
+import com.google.aggregate.adtech.worker.decryption.RecordDecrypter;
+import com.google.aggregate.adtech.worker.decryption.hybrid.HybridDecryptionModule;
+import com.google.aggregate.adtech.worker.model.EncryptedReport;
+import com.google.aggregate.adtech.worker.model.Report;
+import com.google.aggregate.adtech.worker.model.serdes.PayloadSerdes;
+import com.google.aggregate.adtech.worker.model.serdes.cbor.CborPayloadSerdes;
+import com.google.aggregate.adtech.worker.testing.FakeDecryptionKeyService;
+import com.google.aggregate.adtech.worker.testing.FakeReportGenerator;
+import com.google.aggregate.adtech.worker.testing.FakeReportWriter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.inject.AbstractModule;
+import com.google.inject.Inject;
+import com.google.inject.Key;
+import com.google.inject.Provides;
+import com.google.inject.Singleton;
+import com.google.inject.multibindings.OptionalBinder;
+import com.google.scp.operator.cpio.blobstorageclient.model.DataLocation;
+import com.google.scp.operator.cpio.blobstorageclient.model.DataLocation.BlobStoreDataLocation;
+import com.google.scp.operator.cpio.blobstorageclient.testing.FSBlobStorageClientModule;
+import com.google.scp.operator.cpio.cryptoclient.DecryptionKeyService;
+import com.google.scp.operator.cpio.cryptoclient.model.ErrorReason;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class DecryptionKeyPrefetcherTest {
+
+  private static final int REPORTS_PER_SHARD = 2;
+
+  @Rule public final Acai acai = new Acai(TestEnv.class);
+  @Rule public final TemporaryFolder testWorkingDir = new TemporaryFolder();
+
+  @Inject private FakeDecryptionKeyService decryptionKeyService;
+  @Inject private FakeReportWriter fakeReportWriter;
+  @Inject private ReportReader reportReader;
+
+  // Under test
+  @Inject private DecryptionKeyPrefetcher decryptionKeyPrefetcher;
+
+  private Path reportsDirectory;
+  private ImmutableList<DataLocation> shards;
+  private ImmutableMap<DataLocation, Long> shardSizes;
+
+  @Before
+  public void setUp() throws Exception {
+    reportsDirectory = testWorkingDir.getRoot().toPath().resolve("reports");
+    Files.createDirectory(reportsDirectory);
+    Report nullReport = FakeReportGenerator.generateNullReport();
+    // Every report written by the fake writer is encrypted with its own key.
+    fakeReportWriter.writeReports(
+        reportsDirectory.resolve("reports_1.avro"),
+        ImmutableList.of(nullReport, nullReport, nullReport));
+    fakeReportWriter.writeReports(
+        reportsDirectory.resolve("reports_2.avro"), ImmutableList.of(nullReport));
+    fakeReportWriter.writeReports(reportsDirectory.resolve("reports_3.avro"), ImmutableList.of());
+    shards =
+        ImmutableList.of(
+            createShard("reports_1.avro"),
+            createShard("reports_2.avro"),
+            createShard("reports_3.avro"));
+    shardSizes = reportReader.getShardSizes(shards);
+  }
+
+  @Test
+  public void sampleKeyIds_readsKeyIdsOfFirstReportsOfEachShard() {
+    ImmutableSet<String> expectedKeyIds =
+        ImmutableSet.<String>builder()
+            .addAll(readKeyIds(shards.get(0)).subList(0, REPORTS_PER_SHARD))
+            .addAll(readKeyIds(shards.get(1)))
+            .build();
+
+    ImmutableSet<String> keyIds = decryptionKeyPrefetcher.sampleKeyIds(shards, shardSizes);
+
+    assertThat(keyIds).containsExactlyElementsIn(expectedKeyIds);
+  }
+
+  @Test
+  public void sampleKeyIds_withMissingShard_skipsShard() {
+    DataLocation missingShard = createShard("reports_4.avro");
+
+    ImmutableSet<String> keyIds =
+        decryptionKeyPrefetcher.sampleKeyIds(
+            ImmutableList.of(shards.get(1), missingShard),
+            ImmutableMap.of(shards.get(1), shardSizes.get(shards.get(1)), missingShard, 1L));
+
+    assertThat(keyIds).containsExactlyElementsIn(readKeyIds(shards.get(1)));
+  }
+
+  @Test
+  public void prefetch_fetchesSampledKeys() {
+    ImmutableMap<String, ErrorReason> failedKeys =
+        decryptionKeyPrefetcher.prefetch(shards, shardSizes);
+
+    assertThat(failedKeys).isEmpty();
+    assertThat(decryptionKeyService.getLastKeyIdUsed())
+        .isIn(decryptionKeyPrefetcher.sampleKeyIds(shards, shardSizes));
+  }
+
+  @Test
+  public void prefetch_keyFetchFails_returnsFailedKeys() {
+    decryptionKeyService.setShouldThrow(true, ErrorReason.KEY_NOT_FOUND);
+
+    ImmutableMap<String, ErrorReason> failedKeys =
+        decryptionKeyPrefetcher.prefetch(shards, shardSizes);
+
+    assertThat(failedKeys.keySet())
+        .containsExactlyElementsIn(decryptionKeyPrefetcher.sampleKeyIds(shards, shardSizes));
+    assertThat(ImmutableSet.copyOf(failedKeys.values())).containsExactly(ErrorReason.KEY_NOT_FOUND);
+  }
+
+  private DataLocation createShard(String key) {
+    return DataLocation.ofBlobStoreDataLocation(
+        BlobStoreDataLocation.create(reportsDirectory.toAbsolutePath().toString(), key));
+  }
+
+  private ImmutableList<String> readKeyIds(DataLocation shard) {
+    return ImmutableList.copyOf(
+        reportReader.getEncryptedReports(shard).map(EncryptedReport::keyId).toList().blockingGet());
+  }
+
+  private static final class TestEnv extends AbstractModule {
+
+    @Override
+    protected void configure() {
+      // Report reading
+      install(new FSBlobStorageClientModule());
+      bind(FileSystem.class).toInstance(FileSystems.getDefault());
+      OptionalBinder.newOptionalBinder(
+          binder(), Key.get(Duration.class, ShardReadStallTimeout.class));
+      OptionalBinder.newOptionalBinder(
+              binder(), Key.get(Integer.class, DecryptionKeyPrefetchReportsPerShard.class))
+          .setBinding()
+          .toInstance(REPORTS_PER_SHARD);
+
+      // decryption
+      bind(FakeDecryptionKeyService.class).in(TestScoped.class);
+      bind(DecryptionKeyService.class).to(FakeDecryptionKeyService.class);
+      install(new HybridDecryptionModule());
+      bind(RecordDecrypter.class).to(DeserializingReportDecrypter.class);
+      bind(PayloadSerdes.class).to(CborPayloadSerdes.class);
+    }
+
+    @Provides
+    @Singleton
+    @BlockingThreadPool
+    ListeningExecutorService provideBlockingThreadPool() {
+      return newDirectExecutorService();
+    }
+  }
+}
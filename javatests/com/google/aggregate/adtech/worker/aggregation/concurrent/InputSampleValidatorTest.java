@@ -0,0 +1,141 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.aggregation.concurrent;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.aggregate.adtech.worker.aggregation.concurrent.InputSampleValidator.InputSample;
+import com.google.aggregate.adtech.worker.model.EncryptedReport;
+import com.google.aggregate.protos.shared.backend.ErrorCountProto.ErrorCount;
+import com.google.aggregate.protos.shared.backend.ErrorSummaryProto.ErrorSummary;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteSource;
+import java.util.Collections;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class InputSampleValidatorTest {
+
+  // 94 payload bytes, plus 6 bytes of key ID and shared info and 6 bytes of overhead.
+  private static final EncryptedReport REPORT =
+      EncryptedReport.builder()
+          .setPayload(ByteSource.wrap(new byte[94]))
+          .setKeyId("key")
+          .setSharedInfo("{ }")
+          .build();
+
+  @Test
+  public void estimateReportCount_shardReadToTheEnd_countsReports() {
+    ImmutableList<EncryptedReport> reports = ImmutableList.of(REPORT, REPORT, REPORT);
+
+    long estimate =
+        InputSampleValidator.estimateReportCount(
+            reports, /* sampleSize= */ 10, /* shardSizeBytes= */ 1_000_000);
+
+    assertThat(estimate).isEqualTo(3);
+  }
+
+  @Test
+  public void estimateReportCount_partiallyReadShard_extrapolatesFromReportSize() {
+    ImmutableList<EncryptedReport> reports =
+        ImmutableList.copyOf(Collections.nCopies(10, REPORT));
+
+    long estimate =
+        InputSampleValidator.estimateReportCount(
+            reports, /* sampleSize= */ 10, /* shardSizeBytes= */ 53_000);
+
+    assertThat(estimate).isEqualTo(500);
+  }
+
+  @Test
+  public void inputSample_projectsErrorsToEstimatedReportCount() {
+    InputSample inputSample =
+        InputSample.create(
+            /* sampledReportCount= */ 100,
+            /* sampledErrorCount= */ 30,
+            /* estimatedReportCount= */ 10_000,
+            /* sampledDomainKeyCount= */ 0,
+            ErrorSummary.newBuilder()
+                .addErrorCounts(
+                    ErrorCount.newBuilder().setCategory("DECRYPTION_KEY_NOT_FOUND").setCount(30))
+                .addErrorCounts(
+                    ErrorCount.newBuilder().setCategory("NUM_REPORTS_WITH_ERRORS").setCount(30))
+                .build());
+
+    assertThat(inputSample.projectedErrorCount()).isEqualTo(3_000);
+    assertThat(inputSample.projectedErrorSummary().getErrorCountsList())
+        .containsExactly(
+            ErrorCount.newBuilder().setCategory("DECRYPTION_KEY_NOT_FOUND").setCount(3_000).build(),
+            ErrorCount.newBuilder().setCategory("NUM_REPORTS_WITH_ERRORS").setCount(3_000).build())
+        .inOrder();
+    assertThat(inputSample.projectedErrorsAboveThreshold(/* errorThresholdPercentage= */ 10))
+        .isTrue();
+    assertThat(inputSample.projectedErrorsAboveThreshold(/* errorThresholdPercentage= */ 50))
+        .isFalse();
+  }
+
+  @Test
+  public void inputSample_tooFewSampledReports_isNotConclusivelyAboveThreshold() {
+    InputSample inputSample =
+        InputSample.create(
+            /* sampledReportCount= */ 100,
+            /* sampledErrorCount= */ 90,
+            /* estimatedReportCount= */ 10_000,
+            /* sampledDomainKeyCount= */ 0,
+            ErrorSummary.getDefaultInstance());
+
+    assertThat(inputSample.projectedErrorsAboveThreshold(/* errorThresholdPercentage= */ 10))
+        .isTrue();
+    assertThat(inputSample.errorsAboveThreshold(/* errorThresholdPercentage= */ 10)).isFalse();
+  }
+
+  @Test
+  public void inputSample_largeSample_isAboveThresholdOnlyBelowLowerConfidenceBound() {
+    InputSample inputSample =
+        InputSample.create(
+            /* sampledReportCount= */ 10_000,
+            /* sampledErrorCount= */ 3_000,
+            /* estimatedReportCount= */ 1_000_000,
+            /* sampledDomainKeyCount= */ 0,
+            ErrorSummary.getDefaultInstance());
+
+    // The projected error rate is 30%, and its lower confidence bound is about 28.8%.
+    assertThat(inputSample.errorRateLowerBound()).isWithin(0.001).of(0.288);
+    assertThat(inputSample.errorsAboveThreshold(/* errorThresholdPercentage= */ 10)).isTrue();
+    assertThat(inputSample.errorsAboveThreshold(/* errorThresholdPercentage= */ 29)).isFalse();
+    assertThat(inputSample.projectedErrorsAboveThreshold(/* errorThresholdPercentage= */ 29))
+        .isTrue();
+  }
+
+  @Test
+  public void inputSample_withoutSampledReports_isNeverAboveThreshold() {
+    InputSample inputSample =
+        InputSample.create(
+            /* sampledReportCount= */ 0,
+            /* sampledErrorCount= */ 0,
+            /* estimatedReportCount= */ 0,
+            /* sampledDomainKeyCount= */ 0,
+            ErrorSummary.getDefaultInstance());
+
+    assertThat(inputSample.projectedErrorCount()).isEqualTo(0);
+    assertThat(inputSample.errorsAboveThreshold(/* errorThresholdPercentage= */ 0)).isFalse();
+    assertThat(inputSample.projectedErrorsAboveThreshold(/* errorThresholdPercentage= */ 0))
+        .isFalse();
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.aggregation.concurrent;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.util.Collections;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class InputSizeJobCostEstimatorTest {
+
+  @Test
+  public void estimateDistinctCount_wholePopulationSampled_countsSampledValues() {
+    long estimate =
+        InputSizeJobCostEstimator.estimateDistinctCount(
+            ImmutableList.of(1L, 2L, 7L), /* sampleCount= */ 10, /* populationCount= */ 10);
+
+    assertThat(estimate).isEqualTo(3);
+  }
+
+  @Test
+  public void estimateDistinctCount_repeatedValues_doesNotScaleWithPopulation() {
+    long estimate =
+        InputSizeJobCostEstimator.estimateDistinctCount(
+            ImmutableList.of(500L, 500L),
+            /* sampleCount= */ 1_000,
+            /* populationCount= */ 1_000_000);
+
+    assertThat(estimate).isEqualTo(2);
+  }
+
+  @Test
+  public void estimateDistinctCount_uniqueValues_scalesWithSquareRootOfSamplingRatio() {
+    long estimate =
+        InputSizeJobCostEstimator.estimateDistinctCount(
+            Collections.nCopies(1_000, 1L),
+            /* sampleCount= */ 1_000,
+            /* populationCount= */ 100_000);
+
+    assertThat(estimate).isEqualTo(10_000);
+  }
+
+  @Test
+  public void estimateDistinctCount_neverExceedsPopulation() {
+    long estimate =
+        InputSizeJobCostEstimator.estimateDistinctCount(
+            Collections.nCopies(10, 1L), /* sampleCount= */ 10, /* populationCount= */ 11);
+
+    assertThat(estimate).isAtMost(11);
+  }
+}
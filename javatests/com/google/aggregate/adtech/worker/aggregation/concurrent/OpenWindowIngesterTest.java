@@ -0,0 +1,317 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.aggregation.concurrent;
+
+import static com.google.aggregate.adtech.worker.model.SharedInfo.LATEST_VERSION;
+import static com.google.aggregate.adtech.worker.util.JobUtils.JOB_PARAM_WINDOW_CLOSE_TIME;
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+
+import com.google.acai.Acai;
+import com.google.acai.TestScoped;
+import com.google.aggregate.adtech.worker.AggregationCheckpointConfig;
+import com.google.aggregate.adtech.worker.Annotations.DistributedAggregationKeyAead;
+import com.google.aggregate.adtech.worker.Annotations;
+import com.google.aggregate.adtech.worker.Annotations.DecryptionKeyPrefetchReportsPerShard;
+import com.google.aggregate.adtech.worker.Annotations.OpenWindowPollInterval;
+import com.google.aggregate.adtech.worker.Annotations.ShardReadStallTimeout;
+import com.google.aggregate.adtech.worker.Annotations.StopReportValidationAtFirstError;
+import com.google.aggregate.adtech.worker.Annotations.ThreadConfinedAggregationMaxBuckets;
+import com.google.aggregate.adtech.worker.ErrorSummaryAggregator;
+import com.google.aggregate.adtech.worker.aggregation.engine.AggregationEngine;
+import com.google.aggregate.adtech.worker.aggregation.engine.AggregationEngineFactory;
+import com.google.aggregate.adtech.worker.decryption.DeserializingReportDecrypter;
+import com.google.aggregate.adtech.worker.decryption.RecordDecrypter;
+import com.google.aggregate.adtech.worker.decryption.hybrid.HybridDecryptionModule;
+import com.google.aggregate.adtech.worker.jobclient.model.Job;
+import com.google.aggregate.adtech.worker.jobclient.testing.FakeJobGenerator;
+import com.google.aggregate.adtech.worker.model.AggregatedFact;
+import com.google.aggregate.adtech.worker.model.Fact;
+import com.google.aggregate.adtech.worker.model.Report;
+import com.google.aggregate.adtech.worker.model.serdes.PayloadSerdes;
+import com.google.aggregate.adtech.worker.model.serdes.cbor.CborPayloadSerdes;
+import com.google.aggregate.adtech.worker.shared.testing.FakeClock;
+import com.google.aggregate.adtech.worker.testing.FakeDecryptionKeyService;
+import com.google.aggregate.adtech.worker.testing.FakeReportGenerator;
+import com.google.aggregate.adtech.worker.testing.FakeReportWriter;
+import com.google.aggregate.adtech.worker.validation.ReportValidator;
+import com.google.aggregate.adtech.worker.validation.ReportVersionValidator;
+import com.google.aggregate.perf.StopwatchExporter;
+import com.google.aggregate.perf.export.NoOpStopwatchExporter;
+import com.google.aggregate.privacy.budgeting.budgetkeygenerator.PrivacyBudgetKeyGeneratorModule;
+import com.google.aggregate.protos.shared.backend.RequestInfoProto.RequestInfo;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.primitives.UnsignedLong;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.crypto.tink.Aead;
+import com.google.inject.AbstractModule;
+import com.google.inject.Inject;
+import com.google.inject.Key;
+import com.google.inject.Provides;
+import com.google.inject.Singleton;
+import com.google.inject.multibindings.Multibinder;
+import com.google.inject.multibindings.OptionalBinder;
+import com.google.privacysandbox.otel.OtlpJsonLoggingOTelConfigurationModule;
+import com.google.scp.operator.cpio.blobstorageclient.testing.FSBlobStorageClientModule;
+import com.google.scp.operator.cpio.cryptoclient.DecryptionKeyService;
+import java.math.BigInteger;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class OpenWindowIngesterTest {
+
+  private static final Instant WINDOW_OPEN_TIME = Instant.parse("2025-01-01T00:00:00Z");
+  private static final Instant WINDOW_CLOSE_TIME = Instant.parse("2025-01-01T01:00:00Z");
+
+  @Rule public final Acai acai = new Acai(TestEnv.class);
+  @Rule public final TemporaryFolder testWorkingDir = new TemporaryFolder();
+
+  @Inject private FakeReportWriter fakeReportWriter;
+  @Inject private AggregationEngineFactory aggregationEngineFactory;
+  @Inject private FakeClock fakeClock;
+  @Inject private OpenWindowIngester openWindowIngester;
+  private Path reportsDirectory;
+  private Path stagingDirectory;
+  private AggregationEngine aggregationEngine;
+  private ErrorSummaryAggregator errorAggregator;
+  private ExecutorService executor;
+
+  @Before
+  public void before() throws Exception {
+    reportsDirectory = Files.createDirectory(testWorkingDir.getRoot().toPath().resolve("reports"));
+    stagingDirectory = Files.createDirectory(testWorkingDir.getRoot().toPath().resolve("staging"));
+    aggregationEngine =
+        aggregationEngineFactory.createKeyAggregationEngine(ImmutableSet.of(UnsignedLong.ZERO));
+    errorAggregator =
+        ErrorSummaryAggregator.createErrorSummaryAggregator(
+            /* totalReportCount= */ Optional.empty(), /* errorPercentageThreshold= */ 100);
+    executor = Executors.newSingleThreadExecutor();
+    fakeClock.setTime(WINDOW_OPEN_TIME);
+  }
+
+  @After
+  public void after() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void ingestUntilClosed_aggregatesShardsAsTheyLand() throws Exception {
+    landShard("reports_1.avro", /* bucket= */ 11, /* value= */ 5);
+    AtomicLong totalReportCount = new AtomicLong();
+
+    Future<AggregationCheckpoint> progress =
+        executor.submit(
+            () ->
+                openWindowIngester.ingestUntilClosed(
+                    createJob(WINDOW_CLOSE_TIME),
+                    totalReportCount,
+                    ImmutableList.of(aggregationEngine),
+                    errorAggregator,
+                    AggregationCheckpoint.empty()));
+    awaitBucket(11);
+    landShard("reports_2.avro", /* bucket= */ 22, /* value= */ 7);
+    awaitBucket(22);
+    fakeClock.setTime(WINDOW_CLOSE_TIME);
+
+    AggregationCheckpoint checkpoint = progress.get(10, TimeUnit.SECONDS);
+    assertThat(checkpoint.completedShards()).hasSize(2);
+    assertThat(checkpoint.reportCount()).isEqualTo(2);
+    assertThat(aggregationEngine.makeAggregation().values())
+        .containsExactly(
+            AggregatedFact.create(BigInteger.valueOf(11), /* metric= */ 5),
+            AggregatedFact.create(BigInteger.valueOf(22), /* metric= */ 7));
+  }
+
+  @Test
+  public void ingestUntilClosed_windowAlreadyClosed_readsNothing() throws Exception {
+    landShard("reports_1.avro", /* bucket= */ 11, /* value= */ 5);
+    fakeClock.setTime(WINDOW_CLOSE_TIME.plusSeconds(1));
+    AggregationCheckpoint checkpoint =
+        AggregationCheckpoint.create(ImmutableSet.of("previous_shard.avro"), /* reportCount= */ 3);
+
+    AggregationCheckpoint progress =
+        openWindowIngester.ingestUntilClosed(
+            createJob(WINDOW_CLOSE_TIME),
+            new AtomicLong(3),
+            ImmutableList.of(aggregationEngine),
+            errorAggregator,
+            checkpoint);
+
+    assertThat(progress).isEqualTo(checkpoint);
+    assertThat(aggregationEngine.makeAggregation()).isEmpty();
+  }
+
+  @Test
+  public void ingestUntilClosed_windowLongerThanProcessingTimeout_closesBeforeTimeout()
+      throws Exception {
+    landShard("reports_1.avro", /* bucket= */ 11, /* value= */ 5);
+    // The job has a processing timeout of one hour, so its window is closed after 45 minutes.
+    fakeClock.setTime(WINDOW_OPEN_TIME.plus(Duration.ofMinutes(45)));
+
+    AggregationCheckpoint progress =
+        openWindowIngester.ingestUntilClosed(
+            createJob(WINDOW_OPEN_TIME.plus(Duration.ofDays(365))),
+            new AtomicLong(),
+            ImmutableList.of(aggregationEngine),
+            errorAggregator,
+            AggregationCheckpoint.empty());
+
+    assertThat(progress).isEqualTo(AggregationCheckpoint.empty());
+    assertThat(aggregationEngine.makeAggregation()).isEmpty();
+  }
+
+  @Test
+  public void isOpenWindowJob() {
+    assertThat(OpenWindowIngester.isOpenWindowJob(createJob(WINDOW_CLOSE_TIME))).isTrue();
+    assertThat(OpenWindowIngester.isOpenWindowJob(FakeJobGenerator.generate("job_id"))).isFalse();
+  }
+
+  /** Writes a shard with a single report and moves it to the input prefix as a whole. */
+  private void landShard(String name, int bucket, long value) throws Exception {
+    Report report =
+        FakeReportGenerator.generateWithFactList(
+            ImmutableList.of(
+                Fact.builder().setBucket(BigInteger.valueOf(bucket)).setValue(value).build()),
+            LATEST_VERSION);
+    fakeReportWriter.writeReports(stagingDirectory.resolve(name), ImmutableList.of(report));
+    Files.move(stagingDirectory.resolve(name), reportsDirectory.resolve(name), ATOMIC_MOVE);
+  }
+
+  private void awaitBucket(int bucket) throws InterruptedException {
+    AggregationEngine.AggregationKey key =
+        AggregationEngine.AggregationKey.create(BigInteger.valueOf(bucket));
+    for (int i = 0; i < 1000 && !aggregationEngine.containsKey(key); i++) {
+      Thread.sleep(10);
+    }
+    assertThat(aggregationEngine.containsKey(key)).isTrue();
+  }
+
+  private Job createJob(Instant windowCloseTime) {
+    return FakeJobGenerator.generate("job_id").toBuilder()
+        .setCreateTime(WINDOW_OPEN_TIME)
+        .setJobProcessingTimeout(Duration.ofHours(1))
+        .setRequestInfo(
+            RequestInfo.newBuilder()
+                .putJobParameters("report_error_threshold_percentage", "100")
+                .putJobParameters(JOB_PARAM_WINDOW_CLOSE_TIME, windowCloseTime.toString())
+                .setInputDataBucketName(reportsDirectory.toAbsolutePath().toString())
+                .setInputDataBlobPrefix("")
+                .build())
+        .build();
+  }
+
+  private static final class TestEnv extends AbstractModule {
+
+    @Override
+    protected void configure() {
+      // Report reading
+      install(new FSBlobStorageClientModule());
+      bind(FileSystem.class).toInstance(FileSystems.getDefault());
+      OptionalBinder.newOptionalBinder(binder(), AggregationCheckpointConfig.class);
+      OptionalBinder.newOptionalBinder(
+          binder(), Key.get(Aead.class, DistributedAggregationKeyAead.class));
+      OptionalBinder.newOptionalBinder(
+          binder(), Key.get(Duration.class, ShardReadStallTimeout.class));
+      OptionalBinder.newOptionalBinder(
+          binder(), Key.get(Integer.class, DecryptionKeyPrefetchReportsPerShard.class));
+      OptionalBinder.newOptionalBinder(
+          binder(), Key.get(Integer.class, ThreadConfinedAggregationMaxBuckets.class));
+      OptionalBinder.newOptionalBinder(
+          binder(), Key.get(Boolean.class, StopReportValidationAtFirstError.class));
+      OptionalBinder.newOptionalBinder(
+              binder(), Key.get(Duration.class, OpenWindowPollInterval.class))
+          .setBinding()
+          .toInstance(Duration.ofMillis(10));
+      bind(FakeClock.class).in(TestScoped.class);
+      bind(Clock.class).to(FakeClock.class);
+
+      // decryption
+      bind(FakeDecryptionKeyService.class).in(TestScoped.class);
+      bind(DecryptionKeyService.class).to(FakeDecryptionKeyService.class);
+      install(new HybridDecryptionModule());
+      bind(RecordDecrypter.class).to(DeserializingReportDecrypter.class);
+      bind(PayloadSerdes.class).to(CborPayloadSerdes.class);
+
+      // report validation.
+      Multibinder<ReportValidator> reportValidatorMultibinder =
+          Multibinder.newSetBinder(binder(), ReportValidator.class);
+      reportValidatorMultibinder.addBinding().to(ReportVersionValidator.class);
+
+      // Stopwatches
+      bind(StopwatchExporter.class).to(NoOpStopwatchExporter.class);
+
+      // Otel collector
+      install(new OtlpJsonLoggingOTelConfigurationModule());
+      bind(boolean.class)
+          .annotatedWith(com.google.privacysandbox.otel.Annotations.EnableOTelLogs.class)
+          .toInstance(false);
+      bind(double.class)
+          .annotatedWith(Annotations.ReportErrorThresholdPercentage.class)
+          .toInstance(10.0);
+
+      install(new PrivacyBudgetKeyGeneratorModule());
+    }
+
+    @Provides
+    Ticker provideTimingTicker() {
+      return Ticker.systemTicker();
+    }
+
+    @Provides
+    @Singleton
+    @Annotations.NonBlockingThreadPool
+    ListeningExecutorService provideNonBlockingThreadPool() {
+      return newDirectExecutorService();
+    }
+
+    @Provides
+    @Singleton
+    @Annotations.BlockingThreadPool
+    ListeningExecutorService provideBlockingThreadPool() {
+      return newDirectExecutorService();
+    }
+
+    @Provides
+    @Singleton
+    @Annotations.CustomForkJoinThreadPool
+    ListeningExecutorService provideCustomForkJoinThreadPool() {
+      return newDirectExecutorService();
+    }
+  }
+}
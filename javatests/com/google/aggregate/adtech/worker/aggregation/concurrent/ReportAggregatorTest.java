@@ -23,7 +23,13 @@ import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorS
 
 import com.google.acai.Acai;
 import com.google.acai.TestScoped;
+import com.google.aggregate.adtech.worker.AggregationCheckpointConfig;
+import com.google.aggregate.adtech.worker.Annotations.DistributedAggregationKeyAead;
 import com.google.aggregate.adtech.worker.Annotations;
+import com.google.aggregate.adtech.worker.Annotations.DecryptionKeyPrefetchReportsPerShard;
+import com.google.aggregate.adtech.worker.Annotations.ShardReadStallTimeout;
+import com.google.aggregate.adtech.worker.Annotations.StopReportValidationAtFirstError;
+import com.google.aggregate.adtech.worker.Annotations.ThreadConfinedAggregationMaxBuckets;
 import com.google.aggregate.adtech.worker.ErrorSummaryAggregator;
 import com.google.aggregate.adtech.worker.aggregation.engine.AggregationEngine;
 import com.google.aggregate.adtech.worker.aggregation.engine.AggregationEngineFactory;
@@ -49,11 +55,14 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.primitives.UnsignedLong;
 import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.crypto.tink.Aead;
 import com.google.inject.AbstractModule;
 import com.google.inject.Inject;
+import com.google.inject.Key;
 import com.google.inject.Provides;
 import com.google.inject.Singleton;
 import com.google.inject.multibindings.Multibinder;
+import com.google.inject.multibindings.OptionalBinder;
 import com.google.privacysandbox.otel.OtlpJsonLoggingOTelConfigurationModule;
 import com.google.scp.operator.cpio.blobstorageclient.testing.FSBlobStorageClientModule;
 import com.google.scp.operator.cpio.cryptoclient.DecryptionKeyService;
@@ -68,6 +77,7 @@ import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.util.HashMap;
@@ -289,6 +299,17 @@ public class ReportAggregatorTest {
       // Report reading
       install(new FSBlobStorageClientModule());
       bind(FileSystem.class).toInstance(FileSystems.getDefault());
+      OptionalBinder.newOptionalBinder(binder(), AggregationCheckpointConfig.class);
+      OptionalBinder.newOptionalBinder(
+          binder(), Key.get(Aead.class, DistributedAggregationKeyAead.class));
+      OptionalBinder.newOptionalBinder(
+          binder(), Key.get(Duration.class, ShardReadStallTimeout.class));
+      OptionalBinder.newOptionalBinder(
+          binder(), Key.get(Integer.class, DecryptionKeyPrefetchReportsPerShard.class));
+      OptionalBinder.newOptionalBinder(
+          binder(), Key.get(Integer.class, ThreadConfinedAggregationMaxBuckets.class));
+      OptionalBinder.newOptionalBinder(
+          binder(), Key.get(Boolean.class, StopReportValidationAtFirstError.class));
 
       // decryption
       bind(FakeDecryptionKeyService.class).in(TestScoped.class);
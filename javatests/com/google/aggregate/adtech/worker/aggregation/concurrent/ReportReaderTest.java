@@ -16,12 +16,14 @@
 
 package com.google.aggregate.adtech.worker.aggregation.concurrent;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.assertThrows;
 
 import com.google.acai.Acai;
 import com.google.acai.TestScoped;
 import com.google.aggregate.adtech.worker.AggregationWorkerReturnCode;
+import com.google.aggregate.adtech.worker.Annotations.ShardReadStallTimeout;
 import com.google.aggregate.adtech.worker.decryption.DeserializingReportDecrypter;
 import com.google.aggregate.adtech.worker.decryption.RecordDecrypter;
 import com.google.aggregate.adtech.worker.decryption.hybrid.HybridDecryptionModule;
@@ -36,8 +38,11 @@ import com.google.aggregate.adtech.worker.testing.FakeDecryptionKeyService;
 import com.google.aggregate.adtech.worker.testing.FakeReportGenerator;
 import com.google.aggregate.adtech.worker.testing.FakeReportWriter;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.inject.AbstractModule;
 import com.google.inject.Inject;
+import com.google.inject.Key;
+import com.google.inject.multibindings.OptionalBinder;
 import com.google.scp.operator.cpio.blobstorageclient.model.DataLocation;
 import com.google.scp.operator.cpio.blobstorageclient.testing.FSBlobStorageClientModule;
 import com.google.scp.operator.cpio.cryptoclient.DecryptionKeyService;
@@ -46,6 +51,7 @@ import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
 import org.junit.Before;
 import org.junit.Rule;
@@ -147,6 +153,35 @@ public class ReportReaderTest {
     assertThat(shardLocations).hasSize(3);
   }
 
+  @Test
+  public void getShardSizes_sortLargestFirst() throws Exception {
+    RequestInfo requestInfo =
+        RequestInfo.newBuilder()
+            .setInputDataBucketName(reportsDirectory.toAbsolutePath().toString())
+            .setInputDataBlobPrefix("")
+            .build();
+    Report nullReport = FakeReportGenerator.generateNullReport();
+    fakeReportWriter.writeReports(
+        reportsDirectory.resolve("reports_1.avro"), ImmutableList.of(nullReport));
+    fakeReportWriter.writeReports(
+        reportsDirectory.resolve("reports_2.avro"),
+        ImmutableList.of(nullReport, nullReport, nullReport));
+    fakeReportWriter.writeReports(
+        reportsDirectory.resolve("reports_3.avro"), ImmutableList.of(nullReport, nullReport));
+    ImmutableList<DataLocation> shards = reportReader.getInputReportsShards(requestInfo);
+
+    ImmutableMap<DataLocation, Long> shardSizes = reportReader.getShardSizes(shards);
+    ImmutableList<DataLocation> sortedShards = ReportReader.sortLargestFirst(shards, shardSizes);
+
+    assertThat(shardSizes.keySet()).containsExactlyElementsIn(shards);
+    assertThat(
+            sortedShards.stream()
+                .map(shard -> shard.blobStoreDataLocation().key())
+                .collect(toImmutableList()))
+        .containsExactly("reports_2.avro", "reports_3.avro", "reports_1.avro")
+        .inOrder();
+  }
+
   @Test
   public void getEncryptedReports() throws Exception {
     Report nullReport = FakeReportGenerator.generateNullReport();
@@ -208,6 +243,8 @@ public class ReportReaderTest {
       // Report reading
       install(new FSBlobStorageClientModule());
       bind(FileSystem.class).toInstance(FileSystems.getDefault());
+      OptionalBinder.newOptionalBinder(
+          binder(), Key.get(Duration.class, ShardReadStallTimeout.class));
 
       // decryption
       bind(FakeDecryptionKeyService.class).in(TestScoped.class);
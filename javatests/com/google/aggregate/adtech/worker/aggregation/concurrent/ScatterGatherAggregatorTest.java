@@ -0,0 +1,543 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.aggregation.concurrent;
+
+import static com.google.aggregate.adtech.worker.model.SharedInfo.VERSION_0_1;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
+import static org.junit.Assert.assertThrows;
+
+import com.google.acai.Acai;
+import com.google.acai.TestScoped;
+import com.google.aggregate.adtech.worker.AggregationCheckpointConfig;
+import com.google.aggregate.adtech.worker.AggregationWorkerReturnCode;
+import com.google.aggregate.adtech.worker.Annotations;
+import com.google.aggregate.adtech.worker.Annotations.DecryptionKeyPrefetchReportsPerShard;
+import com.google.aggregate.adtech.worker.Annotations.DistributedAggregationKeyAead;
+import com.google.aggregate.adtech.worker.Annotations.ShardReadStallTimeout;
+import com.google.aggregate.adtech.worker.Annotations.StopReportValidationAtFirstError;
+import com.google.aggregate.adtech.worker.Annotations.ThreadConfinedAggregationMaxBuckets;
+import com.google.aggregate.adtech.worker.DistributedAggregationConfig;
+import com.google.aggregate.adtech.worker.ErrorSummaryAggregator;
+import com.google.aggregate.adtech.worker.aggregation.concurrent.ScatterGatherAggregator.SubtaskManifest;
+import com.google.aggregate.adtech.worker.aggregation.engine.AggregationEngine;
+import com.google.aggregate.adtech.worker.aggregation.engine.AggregationEngineFactory;
+import com.google.aggregate.adtech.worker.decryption.DeserializingReportDecrypter;
+import com.google.aggregate.adtech.worker.decryption.RecordDecrypter;
+import com.google.aggregate.adtech.worker.decryption.hybrid.HybridDecryptionModule;
+import com.google.aggregate.adtech.worker.exceptions.AggregationJobProcessException;
+import com.google.aggregate.adtech.worker.jobclient.SubtaskDispatcher;
+import com.google.aggregate.adtech.worker.jobclient.model.Job;
+import com.google.aggregate.adtech.worker.jobclient.testing.FakeJobGenerator;
+import com.google.aggregate.adtech.worker.model.AggregatedFact;
+import com.google.aggregate.adtech.worker.model.Fact;
+import com.google.aggregate.adtech.worker.model.Report;
+import com.google.aggregate.adtech.worker.model.serdes.PayloadSerdes;
+import com.google.aggregate.adtech.worker.model.serdes.cbor.CborPayloadSerdes;
+import com.google.aggregate.adtech.worker.testing.FakeDecryptionKeyService;
+import com.google.aggregate.adtech.worker.testing.FakeReportGenerator;
+import com.google.aggregate.adtech.worker.testing.FakeReportWriter;
+import com.google.aggregate.adtech.worker.validation.ReportValidator;
+import com.google.aggregate.adtech.worker.validation.ReportVersionValidator;
+import com.google.aggregate.perf.StopwatchExporter;
+import com.google.aggregate.perf.export.NoOpStopwatchExporter;
+import com.google.aggregate.privacy.budgeting.budgetkeygenerator.PrivacyBudgetKeyGeneratorModule;
+import com.google.aggregate.protos.shared.backend.JobKeyProto.JobKey;
+import com.google.aggregate.protos.shared.backend.RequestInfoProto.RequestInfo;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.primitives.UnsignedLong;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.crypto.tink.Aead;
+import com.google.crypto.tink.KeysetHandle;
+import com.google.crypto.tink.aead.AeadConfig;
+import com.google.crypto.tink.aead.PredefinedAeadParameters;
+import com.google.inject.AbstractModule;
+import com.google.inject.Inject;
+import com.google.inject.Key;
+import com.google.inject.Provider;
+import com.google.inject.Provides;
+import com.google.inject.Singleton;
+import com.google.inject.multibindings.Multibinder;
+import com.google.inject.multibindings.OptionalBinder;
+import com.google.privacysandbox.otel.OtlpJsonLoggingOTelConfigurationModule;
+import com.google.scp.operator.cpio.blobstorageclient.model.DataLocation;
+import com.google.scp.operator.cpio.blobstorageclient.model.DataLocation.BlobStoreDataLocation;
+import com.google.scp.operator.cpio.blobstorageclient.testing.FSBlobStorageClientModule;
+import com.google.scp.operator.cpio.cryptoclient.DecryptionKeyService;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ScatterGatherAggregatorTest {
+
+  private static final Instant FIXED_TIME = Instant.parse("2021-01-01T00:00:00Z");
+  private static final ImmutableSet<UnsignedLong> FILTERING_IDS =
+      ImmutableSet.of(UnsignedLong.ZERO);
+
+  @Rule public final Acai acai = new Acai(TestEnv.class);
+  @Rule public final TemporaryFolder testWorkingDir = new TemporaryFolder();
+
+  @Inject private FakeReportWriter fakeReportWriter;
+  @Inject private AggregationEngineFactory aggregationEngineFactory;
+  @Inject private ScatterGatherAggregator scatterGatherAggregator;
+  @Inject private InlineSubtaskDispatcher subtaskDispatcher;
+  @Inject private DistributedAggregationConfig distributedAggregationConfig;
+  private Path reportsDirectory;
+
+  @Before
+  public void before() throws Exception {
+    reportsDirectory = testWorkingDir.getRoot().toPath().resolve("reports");
+    Files.createDirectory(reportsDirectory);
+  }
+
+  @Test
+  public void splitShards_balancesBytesAcrossSubtasks() {
+    DataLocation large = createShard("large");
+    DataLocation medium = createShard("medium");
+    DataLocation small = createShard("small");
+    DataLocation tiny = createShard("tiny");
+    ImmutableMap<DataLocation, Long> shardSizes =
+        ImmutableMap.of(large, 100L, medium, 60L, small, 50L, tiny, 10L);
+
+    ImmutableList<ImmutableList<DataLocation>> subtasks =
+        ScatterGatherAggregator.splitShards(
+            ImmutableList.of(large, medium, small, tiny), shardSizes, /* subtaskCount= */ 2);
+
+    assertThat(subtasks)
+        .containsExactly(ImmutableList.of(large, tiny), ImmutableList.of(medium, small))
+        .inOrder();
+  }
+
+  @Test
+  public void getPartition_splitsBucketSpaceEvenly() {
+    BigInteger maxBucket = BigInteger.ONE.shiftLeft(128).subtract(BigInteger.ONE);
+
+    assertThat(ScatterGatherAggregator.getPartition(BigInteger.ZERO, 4)).isEqualTo(0);
+    assertThat(ScatterGatherAggregator.getPartition(BigInteger.ONE.shiftLeft(126), 4))
+        .isEqualTo(1);
+    assertThat(ScatterGatherAggregator.getPartition(BigInteger.ONE.shiftLeft(127), 4))
+        .isEqualTo(2);
+    assertThat(ScatterGatherAggregator.getPartition(maxBucket, 4)).isEqualTo(3);
+  }
+
+  @Test
+  public void planSubtasks_singleShard_returnsEmpty() throws Exception {
+    writeReport("reports_1.avro", createReport(/* bucket= */ 1, /* value= */ 10));
+
+    assertThat(scatterGatherAggregator.planSubtasks(createJob())).isEmpty();
+  }
+
+  @Test
+  public void aggregate_mergesPartialAggregatesOfSubtasks() throws Exception {
+    writeReport("reports_1.avro", createReport(/* bucket= */ 1, /* value= */ 10));
+    writeReport("reports_2.avro", createReport(/* bucket= */ 1, /* value= */ 20));
+    writeReport("reports_3.avro", createReport(/* bucket= */ 2, /* value= */ 30));
+    Job job = createJob();
+    AtomicLong reportCount = new AtomicLong();
+    AggregationEngine engine = aggregationEngineFactory.createKeyAggregationEngine(FILTERING_IDS);
+
+    boolean aggregated =
+        scatterGatherAggregator.aggregate(
+            job,
+            scatterGatherAggregator.planSubtasks(job).get(),
+            reportCount,
+            ImmutableList.of(engine),
+            createErrorAggregator());
+
+    assertThat(aggregated).isTrue();
+    assertThat(subtaskDispatcher.dispatchedSubtasks).hasSize(2);
+    assertThat(engine.makeAggregation().values())
+        .containsExactly(
+            AggregatedFact.create(BigInteger.ONE, 30), AggregatedFact.create(BigInteger.TWO, 30));
+    assertThat(engine.getReportIds().count()).isEqualTo(3);
+    assertThat(reportCount.get()).isEqualTo(3);
+  }
+
+  @Test
+  public void aggregate_writesOnlyEncryptedBlobs() throws Exception {
+    writeReport("reports_1.avro", createReport(/* bucket= */ 1, /* value= */ 10));
+    writeReport("reports_2.avro", createReport(/* bucket= */ 2, /* value= */ 20));
+    Job job = createJob();
+
+    scatterGatherAggregator.aggregate(
+        job,
+        scatterGatherAggregator.planSubtasks(job).get(),
+        new AtomicLong(),
+        ImmutableList.of(aggregationEngineFactory.createKeyAggregationEngine(FILTERING_IDS)),
+        createErrorAggregator());
+
+    ImmutableList<Path> blobs;
+    try (Stream<Path> files = Files.walk(Path.of(distributedAggregationConfig.workBucket()))) {
+      blobs = files.filter(Files::isRegularFile).collect(toImmutableList());
+    }
+    assertThat(blobs).isNotEmpty();
+    for (Path blob : blobs) {
+      assertThrows(IOException.class, () -> new GZIPInputStream(Files.newInputStream(blob)));
+    }
+  }
+
+  @Test
+  public void aggregate_reportInTwoSubtasks_returnsFalse() throws Exception {
+    Report report = createReport(/* bucket= */ 1, /* value= */ 10);
+    writeReport("reports_1.avro", report);
+    writeReport("reports_2.avro", report);
+    Job job = createJob();
+
+    boolean aggregated =
+        scatterGatherAggregator.aggregate(
+            job,
+            scatterGatherAggregator.planSubtasks(job).get(),
+            new AtomicLong(),
+            ImmutableList.of(aggregationEngineFactory.createKeyAggregationEngine(FILTERING_IDS)),
+            createErrorAggregator());
+
+    assertThat(aggregated).isFalse();
+  }
+
+  @Test
+  public void aggregate_subtaskFails_throwsWithCodeOfSubtask() throws Exception {
+    writeReport("reports_1.avro", createReport(/* bucket= */ 1, /* value= */ 10));
+    writeReport("reports_2.avro", createReport(/* bucket= */ 2, /* value= */ 20));
+    Job job = createJob();
+    subtaskDispatcher.failSubtasks = true;
+
+    AggregationJobProcessException exception =
+        assertThrows(
+            AggregationJobProcessException.class,
+            () ->
+                scatterGatherAggregator.aggregate(
+                    job,
+                    scatterGatherAggregator.planSubtasks(job).get(),
+                    new AtomicLong(),
+                    ImmutableList.of(
+                        aggregationEngineFactory.createKeyAggregationEngine(FILTERING_IDS)),
+                    createErrorAggregator()));
+
+    assertThat(exception.getCode()).isEqualTo(AggregationWorkerReturnCode.INPUT_DATA_READ_FAILED);
+  }
+
+  @Test
+  public void aggregate_dispatchFails_aggregatesAllShardsLocally() throws Exception {
+    writeReport("reports_1.avro", createReport(/* bucket= */ 1, /* value= */ 10));
+    writeReport("reports_2.avro", createReport(/* bucket= */ 2, /* value= */ 20));
+    Job job = createJob();
+    subtaskDispatcher.failDispatch = true;
+    AtomicLong reportCount = new AtomicLong();
+    AggregationEngine engine = aggregationEngineFactory.createKeyAggregationEngine(FILTERING_IDS);
+
+    boolean aggregated =
+        scatterGatherAggregator.aggregate(
+            job,
+            scatterGatherAggregator.planSubtasks(job).get(),
+            reportCount,
+            ImmutableList.of(engine),
+            createErrorAggregator());
+
+    assertThat(aggregated).isTrue();
+    assertThat(engine.makeAggregation().values())
+        .containsExactly(
+            AggregatedFact.create(BigInteger.ONE, 10), AggregatedFact.create(BigInteger.TWO, 20));
+    assertThat(reportCount.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void readManifest_unsealedManifestKey_throwsInvalidJob() {
+    Job job =
+        FakeJobGenerator.generate("subtask").toBuilder()
+            .setRequestInfo(
+                RequestInfo.newBuilder()
+                    .putJobParameters(
+                        "distributed_subtask_manifest", "scatter_gather/job/attempt/manifest")
+                    .build())
+            .build();
+
+    AggregationJobProcessException exception =
+        assertThrows(
+            AggregationJobProcessException.class, () -> scatterGatherAggregator.readManifest(job));
+
+    assertThat(exception.getCode()).isEqualTo(AggregationWorkerReturnCode.INVALID_JOB);
+  }
+
+  @Test
+  public void readManifest_tokenOfOtherSubtask_throwsInvalidJob() throws Exception {
+    writeReport("reports_1.avro", createReport(/* bucket= */ 1, /* value= */ 10));
+    writeReport("reports_2.avro", createReport(/* bucket= */ 2, /* value= */ 20));
+    Job job = createJob();
+    subtaskDispatcher.failDispatch = true;
+    scatterGatherAggregator.aggregate(
+        job,
+        scatterGatherAggregator.planSubtasks(job).get(),
+        new AtomicLong(),
+        ImmutableList.of(aggregationEngineFactory.createKeyAggregationEngine(FILTERING_IDS)),
+        createErrorAggregator());
+    // The token is replayed on a job of another caller that reads its own input.
+    Job replayedJob =
+        FakeJobGenerator.generate("other_job").toBuilder()
+            .setRequestInfo(subtaskDispatcher.dispatchedSubtasks.get(0))
+            .build();
+
+    AggregationJobProcessException exception =
+        assertThrows(
+            AggregationJobProcessException.class,
+            () -> scatterGatherAggregator.readManifest(replayedJob));
+
+    assertThat(exception.getCode()).isEqualTo(AggregationWorkerReturnCode.INVALID_JOB);
+  }
+
+  private void writeReport(String shardName, Report report) throws IOException {
+    fakeReportWriter.writeReports(reportsDirectory.resolve(shardName), ImmutableList.of(report));
+  }
+
+  private static Report createReport(int bucket, int value) {
+    Fact fact = Fact.builder().setBucket(BigInteger.valueOf(bucket)).setValue(value).build();
+    return FakeReportGenerator.generateWithFactList(ImmutableList.of(fact), VERSION_0_1);
+  }
+
+  private static DataLocation createShard(String key) {
+    return DataLocation.ofBlobStoreDataLocation(BlobStoreDataLocation.create("bucket", key));
+  }
+
+  private static ErrorSummaryAggregator createErrorAggregator() {
+    return ErrorSummaryAggregator.createErrorSummaryAggregator(
+        /* totalReportCountsOptional= */ Optional.empty(), /* errorThresholdPercentage= */ 100);
+  }
+
+  private Job createJob() {
+    return FakeJobGenerator.generate("job_id").toBuilder()
+        .setRequestInfo(
+            RequestInfo.newBuilder()
+                .putJobParameters("report_error_threshold_percentage", "100")
+                .setInputDataBucketName(reportsDirectory.toAbsolutePath().toString())
+                .setInputDataBlobPrefix("")
+                .build())
+        .build();
+  }
+
+  /** Aggregates dispatched sub-tasks in place, like a peer worker that pulls them at once. */
+  static final class InlineSubtaskDispatcher implements SubtaskDispatcher {
+
+    private final Provider<ScatterGatherAggregator> scatterGatherAggregator;
+    private final ReportAggregator reportAggregator;
+    private final AggregationEngineFactory aggregationEngineFactory;
+    private final List<RequestInfo> dispatchedSubtasks = new ArrayList<>();
+    private boolean failSubtasks = false;
+    private boolean failDispatch = false;
+
+    @Inject
+    InlineSubtaskDispatcher(
+        Provider<ScatterGatherAggregator> scatterGatherAggregator,
+        ReportAggregator reportAggregator,
+        AggregationEngineFactory aggregationEngineFactory) {
+      this.scatterGatherAggregator = scatterGatherAggregator;
+      this.reportAggregator = reportAggregator;
+      this.aggregationEngineFactory = aggregationEngineFactory;
+    }
+
+    @Override
+    public void dispatch(ImmutableMap<JobKey, RequestInfo> subtasks)
+        throws SubtaskDispatchException {
+      if (failDispatch) {
+        dispatchedSubtasks.addAll(subtasks.values());
+        throw new SubtaskDispatchException("Job queue unavailable.");
+      }
+      for (Entry<JobKey, RequestInfo> subtask : subtasks.entrySet()) {
+        dispatchedSubtasks.add(subtask.getValue());
+        Job job =
+            FakeJobGenerator.generate(subtask.getKey().getJobRequestId()).toBuilder()
+                .setJobKey(subtask.getKey())
+                .setRequestInfo(subtask.getValue())
+                .build();
+        try {
+          if (failSubtasks) {
+            scatterGatherAggregator
+                .get()
+                .writeSubtaskFailure(
+                    job,
+                    new AggregationJobProcessException(
+                        AggregationWorkerReturnCode.INPUT_DATA_READ_FAILED, "Shard not found."));
+          } else {
+            runSubtask(job);
+          }
+        } catch (AggregationJobProcessException e) {
+          throw new SubtaskDispatchException(e);
+        }
+      }
+    }
+
+    private void runSubtask(Job job) throws AggregationJobProcessException {
+      SubtaskManifest manifest = scatterGatherAggregator.get().readManifest(job);
+      AtomicLong reportCount = new AtomicLong();
+      ImmutableList<AggregationEngine> engines =
+          ImmutableList.of(aggregationEngineFactory.createKeyAggregationEngine(FILTERING_IDS));
+      ErrorSummaryAggregator errorAggregator = createErrorAggregator();
+      reportAggregator.processReports(
+          reportCount,
+          job,
+          manifest.shards(),
+          engines,
+          errorAggregator,
+          AggregationCheckpoint.empty());
+      scatterGatherAggregator
+          .get()
+          .writeSubtaskResult(job, manifest, reportCount.get(), engines, errorAggregator);
+    }
+  }
+
+  private static final class TestEnv extends AbstractModule {
+
+    @Override
+    protected void configure() {
+      // Report reading
+      install(new FSBlobStorageClientModule());
+      bind(FileSystem.class).toInstance(FileSystems.getDefault());
+      OptionalBinder.newOptionalBinder(binder(), AggregationCheckpointConfig.class);
+      OptionalBinder.newOptionalBinder(
+          binder(), Key.get(Duration.class, ShardReadStallTimeout.class));
+      OptionalBinder.newOptionalBinder(
+          binder(), Key.get(Integer.class, DecryptionKeyPrefetchReportsPerShard.class));
+      OptionalBinder.newOptionalBinder(
+          binder(), Key.get(Integer.class, ThreadConfinedAggregationMaxBuckets.class));
+      OptionalBinder.newOptionalBinder(
+          binder(), Key.get(Boolean.class, StopReportValidationAtFirstError.class));
+
+      // Distributed aggregation
+      bind(InlineSubtaskDispatcher.class).in(TestScoped.class);
+      OptionalBinder.newOptionalBinder(binder(), SubtaskDispatcher.class)
+          .setBinding()
+          .to(InlineSubtaskDispatcher.class);
+      OptionalBinder.newOptionalBinder(
+              binder(), Key.get(Aead.class, DistributedAggregationKeyAead.class))
+          .setBinding()
+          .toInstance(createKeyAead());
+
+      // decryption
+      bind(FakeDecryptionKeyService.class).in(TestScoped.class);
+      bind(DecryptionKeyService.class).to(FakeDecryptionKeyService.class);
+      install(new HybridDecryptionModule());
+      bind(RecordDecrypter.class).to(DeserializingReportDecrypter.class);
+      bind(PayloadSerdes.class).to(CborPayloadSerdes.class);
+
+      // report validation.
+      Multibinder<ReportValidator> reportValidatorMultibinder =
+          Multibinder.newSetBinder(binder(), ReportValidator.class);
+      reportValidatorMultibinder.addBinding().to(ReportVersionValidator.class);
+
+      // Stopwatches
+      bind(StopwatchExporter.class).to(NoOpStopwatchExporter.class);
+
+      // Otel collector
+      install(new OtlpJsonLoggingOTelConfigurationModule());
+      bind(boolean.class)
+          .annotatedWith(com.google.privacysandbox.otel.Annotations.EnableOTelLogs.class)
+          .toInstance(false);
+      bind(double.class)
+          .annotatedWith(Annotations.ReportErrorThresholdPercentage.class)
+          .toInstance(100.0);
+
+      install(new PrivacyBudgetKeyGeneratorModule());
+    }
+
+    @Provides
+    @TestScoped
+    DistributedAggregationConfig provideDistributedAggregationConfig() {
+      try {
+        return DistributedAggregationConfig.builder()
+            .setShardsPerSubtask(1)
+            .setWorkBucket(Files.createTempDirectory("work").toString())
+            .setPartitionCount(4)
+            .setSubtaskTimeout(Duration.ofSeconds(10))
+            .build();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    @Provides
+    Optional<DistributedAggregationConfig> provideOptionalDistributedAggregationConfig(
+        DistributedAggregationConfig config) {
+      return Optional.of(config);
+    }
+
+    private static Aead createKeyAead() {
+      try {
+        AeadConfig.register();
+        return KeysetHandle.generateNew(PredefinedAeadParameters.AES256_GCM)
+            .getPrimitive(Aead.class);
+      } catch (GeneralSecurityException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    @Provides
+    Clock provideClock() {
+      return Clock.fixed(FIXED_TIME, ZoneId.systemDefault());
+    }
+
+    @Provides
+    Ticker provideTimingTicker() {
+      return Ticker.systemTicker();
+    }
+
+    @Provides
+    @Singleton
+    @Annotations.NonBlockingThreadPool
+    ListeningExecutorService provideNonBlockingThreadPool() {
+      return newDirectExecutorService();
+    }
+
+    @Provides
+    @Singleton
+    @Annotations.BlockingThreadPool
+    ListeningExecutorService provideBlockingThreadPool() {
+      return newDirectExecutorService();
+    }
+
+    @Provides
+    @Singleton
+    @Annotations.CustomForkJoinThreadPool
+    ListeningExecutorService provideCustomForkJoinThreadPool() {
+      return newDirectExecutorService();
+    }
+  }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.aggregation.concurrent;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.testing.FakeTicker;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import software.amazon.awssdk.http.Abortable;
+
+@RunWith(JUnit4.class)
+public class ShardReadWatchdogTest {
+
+  private static final byte[] SHARD_BYTES =
+      "0123456789abcdefghijklmnopqrstuvwxyz".getBytes(StandardCharsets.UTF_8);
+  private static final Duration STALL_TIMEOUT = Duration.ofSeconds(30);
+
+  private FakeTicker fakeTicker;
+  private AtomicInteger opens;
+
+  // Under test
+  private ShardReadWatchdog watchdog;
+
+  @Before
+  public void setUp() {
+    fakeTicker = new FakeTicker();
+    opens = new AtomicInteger();
+    watchdog = new ShardReadWatchdog(Optional.of(STALL_TIMEOUT), fakeTicker);
+  }
+
+  @Test
+  public void open_withoutStallTimeout_returnsShardStream() throws Exception {
+    InputStream shardStream = new ByteArrayInputStream(SHARD_BYTES);
+    ShardReadWatchdog disabledWatchdog = new ShardReadWatchdog(Optional.empty(), fakeTicker);
+
+    assertThat(disabledWatchdog.open("shard", () -> shardStream)).isSameInstanceAs(shardStream);
+  }
+
+  @Test
+  public void read_failedRead_reopensAtPosition() throws Exception {
+    InputStream stream =
+        watchdog.open(
+            "shard",
+            () ->
+                opens.getAndIncrement() == 0
+                    ? new InterruptedStream(SHARD_BYTES, 10, /* stall= */ false)
+                    : new ByteArrayInputStream(SHARD_BYTES));
+
+    byte[] readBytes = ByteStreams.toByteArray(stream);
+
+    assertThat(readBytes).isEqualTo(SHARD_BYTES);
+    assertThat(opens.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void read_stalledRead_reopensAtPosition() throws Exception {
+    InputStream stream =
+        watchdog.open(
+            "shard",
+            () ->
+                opens.getAndIncrement() == 0
+                    ? new InterruptedStream(SHARD_BYTES, 10, /* stall= */ true)
+                    : new ByteArrayInputStream(SHARD_BYTES));
+
+    byte[] readBytes = ByteStreams.toByteArray(stream);
+
+    assertThat(readBytes).isEqualTo(SHARD_BYTES);
+    assertThat(opens.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void read_stalledAbortableRead_abortsInsteadOfClosing() throws Exception {
+    AbortableStream stalledStream =
+        new AbortableStream(new InterruptedStream(SHARD_BYTES, 10, /* stall= */ true));
+    InputStream stream =
+        watchdog.open(
+            "shard",
+            () ->
+                opens.getAndIncrement() == 0
+                    ? stalledStream
+                    : new ByteArrayInputStream(SHARD_BYTES));
+
+    byte[] readBytes = ByteStreams.toByteArray(stream);
+
+    assertThat(readBytes).isEqualTo(SHARD_BYTES);
+    assertThat(stalledStream.aborted).isTrue();
+    assertThat(stalledStream.closed).isFalse();
+  }
+
+  @Test
+  public void read_notStalled_isNotReopened() throws Exception {
+    InputStream stream = watchdog.open("shard", () -> new ByteArrayInputStream(SHARD_BYTES));
+    stream.read(new byte[10]);
+
+    // No read is in progress, e.g. because the reports read so far are still being processed.
+    fakeTicker.advance(STALL_TIMEOUT.multipliedBy(2));
+    watchdog.closeStalledStreams();
+
+    assertThat(ByteStreams.toByteArray(stream)).hasLength(SHARD_BYTES.length - 10);
+  }
+
+  @Test
+  public void read_alwaysFailing_throwsAfterReopens() throws Exception {
+    InputStream stream =
+        watchdog.open("shard", () -> new InterruptedStream(SHARD_BYTES, 0, /* stall= */ false));
+
+    assertThrows(IOException.class, () -> ByteStreams.toByteArray(stream));
+  }
+
+  /**
+   * Stream of the shard that is interrupted after {@code interruptAt} bytes, either by failing the
+   * read or by blocking until the watchdog closes it.
+   */
+  private final class InterruptedStream extends InputStream {
+
+    private final ByteArrayInputStream bytes;
+    private final int interruptAt;
+    private final boolean stall;
+    private int position = 0;
+
+    InterruptedStream(byte[] bytes, int interruptAt, boolean stall) {
+      this.bytes = new ByteArrayInputStream(bytes);
+      this.interruptAt = interruptAt;
+      this.stall = stall;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] buffer = new byte[1];
+      return read(buffer, 0, 1) < 0 ? -1 : buffer[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      if (position < interruptAt) {
+        int bytesRead = bytes.read(buffer, offset, Math.min(length, interruptAt - position));
+        position += bytesRead;
+        return bytesRead;
+      }
+      if (!stall) {
+        throw new IOException("Connection reset.");
+      }
+      // Simulates the watchdog firing while this read is blocked. The closed connection then
+      // signals the end of the stream.
+      fakeTicker.advance(STALL_TIMEOUT);
+      watchdog.closeStalledStreams();
+      return -1;
+    }
+  }
+
+  /** HTTP response stream of the shard that records whether it was aborted or closed. */
+  private static final class AbortableStream extends FilterInputStream implements Abortable {
+
+    private boolean aborted = false;
+    private boolean closed = false;
+
+    AbortableStream(InputStream inputStream) {
+      super(inputStream);
+    }
+
+    @Override
+    public void abort() {
+      aborted = true;
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+}
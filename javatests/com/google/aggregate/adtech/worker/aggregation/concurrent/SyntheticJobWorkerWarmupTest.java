@@ -0,0 +1,141 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.aggregation.concurrent;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.acai.Acai;
+import com.google.acai.TestScoped;
+import com.google.aggregate.adtech.worker.Annotations.WarmUpDecryptionKeyIds;
+import com.google.aggregate.adtech.worker.WorkerWarmup.WorkerWarmupException;
+import com.google.aggregate.adtech.worker.jobclient.model.Job;
+import com.google.aggregate.adtech.worker.model.ErrorCounter;
+import com.google.aggregate.adtech.worker.model.ErrorMessage;
+import com.google.aggregate.adtech.worker.model.Report;
+import com.google.aggregate.adtech.worker.model.serdes.PayloadSerdes;
+import com.google.aggregate.adtech.worker.model.serdes.cbor.CborPayloadSerdes;
+import com.google.aggregate.adtech.worker.testing.FakeDecryptionKeyService;
+import com.google.aggregate.adtech.worker.validation.ReportNotTooOldValidator;
+import com.google.aggregate.adtech.worker.validation.ReportValidator;
+import com.google.aggregate.adtech.worker.validation.ReportVersionValidator;
+import com.google.aggregate.adtech.worker.validation.ReportingOriginMatchesRequestValidator;
+import com.google.aggregate.privacy.budgeting.budgetkeygenerator.PrivacyBudgetKeyGeneratorModule;
+import com.google.common.collect.ImmutableList;
+import com.google.inject.AbstractModule;
+import com.google.inject.Inject;
+import com.google.inject.Provides;
+import com.google.inject.TypeLiteral;
+import com.google.inject.multibindings.Multibinder;
+import com.google.scp.operator.cpio.cryptoclient.DecryptionKeyService;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Optional;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class SyntheticJobWorkerWarmupTest {
+
+  private static final Instant FIXED_TIME = Instant.parse("2025-01-01T00:00:00Z");
+
+  @Rule public final Acai acai = new Acai(TestEnv.class);
+
+  @Inject private FakeDecryptionKeyService decryptionKeyService;
+  @Inject private RejectingReportValidator rejectingReportValidator;
+
+  // Under test
+  @Inject private SyntheticJobWorkerWarmup workerWarmup;
+
+  @Test
+  public void warmUp_syntheticReportsPassValidation() throws Exception {
+    workerWarmup.warmUp();
+  }
+
+  @Test
+  public void warmUp_fetchesConfiguredDecryptionKeys() throws Exception {
+    workerWarmup.warmUp();
+
+    assertThat(decryptionKeyService.getLastKeyIdUsed()).isEqualTo("key-b");
+  }
+
+  @Test
+  public void warmUp_decryptionKeyFetchFails_completes() throws Exception {
+    decryptionKeyService.setShouldThrow(true);
+
+    workerWarmup.warmUp();
+  }
+
+  @Test
+  public void warmUp_syntheticReportsRejected_throws() {
+    rejectingReportValidator.rejectReports = true;
+
+    WorkerWarmupException exception =
+        assertThrows(WorkerWarmupException.class, () -> workerWarmup.warmUp());
+
+    assertThat(exception)
+        .hasCauseThat()
+        .hasMessageThat()
+        .isEqualTo(
+            String.format(
+                "%d of the synthetic reports were invalid.",
+                SyntheticJobWorkerWarmup.REPORTS_PER_JOB));
+  }
+
+  static final class RejectingReportValidator implements ReportValidator {
+
+    private boolean rejectReports = false;
+
+    @Override
+    public Optional<ErrorMessage> validate(Report report, Job ctx) {
+      return rejectReports
+          ? Optional.of(ErrorMessage.builder().setCategory(ErrorCounter.INTERNAL_ERROR).build())
+          : Optional.empty();
+    }
+  }
+
+  private static final class TestEnv extends AbstractModule {
+
+    @Override
+    protected void configure() {
+      bind(FakeDecryptionKeyService.class).in(TestScoped.class);
+      bind(DecryptionKeyService.class).to(FakeDecryptionKeyService.class);
+      bind(PayloadSerdes.class).to(CborPayloadSerdes.class);
+      bind(new TypeLiteral<ImmutableList<String>>() {})
+          .annotatedWith(WarmUpDecryptionKeyIds.class)
+          .toInstance(ImmutableList.of("key-a", "key-b"));
+
+      bind(RejectingReportValidator.class).in(TestScoped.class);
+      Multibinder<ReportValidator> reportValidatorMultibinder =
+          Multibinder.newSetBinder(binder(), ReportValidator.class);
+      reportValidatorMultibinder.addBinding().to(ReportVersionValidator.class);
+      reportValidatorMultibinder.addBinding().to(ReportingOriginMatchesRequestValidator.class);
+      reportValidatorMultibinder.addBinding().to(ReportNotTooOldValidator.class);
+      reportValidatorMultibinder.addBinding().to(RejectingReportValidator.class);
+
+      install(new PrivacyBudgetKeyGeneratorModule());
+    }
+
+    @Provides
+    Clock provideClock() {
+      return Clock.fixed(FIXED_TIME, ZoneId.systemDefault());
+    }
+  }
+}
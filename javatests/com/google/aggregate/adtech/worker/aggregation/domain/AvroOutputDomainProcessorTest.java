@@ -17,6 +17,7 @@
 package com.google.aggregate.adtech.worker.aggregation.domain;
 
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
 import static com.google.common.truth.Truth.assertThat;
 import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
 import static java.nio.charset.StandardCharsets.US_ASCII;
@@ -28,6 +29,7 @@ import com.google.acai.Acai;
 import com.google.acai.TestScoped;
 import com.google.aggregate.adtech.worker.Annotations.BlockingThreadPool;
 import com.google.aggregate.adtech.worker.Annotations.CustomForkJoinThreadPool;
+import com.google.aggregate.adtech.worker.Annotations.DisableSortedDomainMergeJoin;
 import com.google.aggregate.adtech.worker.Annotations.DomainOptional;
 import com.google.aggregate.adtech.worker.Annotations.EnableThresholding;
 import com.google.aggregate.adtech.worker.Annotations.NonBlockingThreadPool;
@@ -41,6 +43,7 @@ import com.google.aggregate.adtech.worker.configs.PrivacyParametersSupplier.Nois
 import com.google.aggregate.adtech.worker.configs.PrivacyParametersSupplier.NoisingL1Sensitivity;
 import com.google.aggregate.adtech.worker.exceptions.DomainReadException;
 import com.google.aggregate.adtech.worker.model.AggregatedFact;
+import com.google.aggregate.adtech.worker.model.DebugBucketAnnotation;
 import com.google.aggregate.adtech.worker.model.serdes.AvroDebugResultsSerdes;
 import com.google.aggregate.adtech.worker.model.serdes.AvroResultsSerdes;
 import com.google.aggregate.privacy.budgeting.budgetkeygenerator.PrivacyBudgetKeyGeneratorModule;
@@ -60,14 +63,18 @@ import com.google.aggregate.privacy.noise.testing.FakeThresholdSupplier;
 import com.google.aggregate.protocol.avro.AvroOutputDomainRecord;
 import com.google.aggregate.protocol.avro.AvroOutputDomainWriter;
 import com.google.aggregate.protocol.avro.AvroOutputDomainWriterFactory;
+import com.google.aggregate.protocol.avro.AvroRecordWriter.MetadataElement;
 import com.google.common.base.Ticker;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.primitives.UnsignedLong;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.inject.AbstractModule;
+import com.google.inject.Key;
 import com.google.inject.Provides;
 import com.google.inject.Singleton;
+import com.google.inject.multibindings.OptionalBinder;
 import com.google.scp.operator.cpio.blobstorageclient.model.DataLocation;
 import com.google.scp.operator.cpio.blobstorageclient.model.DataLocation.BlobStoreDataLocation;
 import com.google.scp.operator.cpio.blobstorageclient.testing.FSBlobStorageClientModule;
@@ -75,6 +82,7 @@ import com.google.testing.junit.testparameterinjector.TestParameter;
 import com.google.testing.junit.testparameterinjector.TestParameterInjector;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.math.BigInteger;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
@@ -271,6 +279,112 @@ public class AvroOutputDomainProcessorTest {
             BigInteger.valueOf(44));
   }
 
+  @Test
+  public void readSortedShards_mergeJoinDeduplicates() throws Exception {
+    writeSortedOutputDomain(outputDomainDirectory.resolve("domain_1.avro"), Stream.of(22, 11));
+    writeSortedOutputDomain(outputDomainDirectory.resolve("domain_2.avro"), Stream.of(33, 11, 55));
+    writeSortedOutputDomain(outputDomainDirectory.resolve("domain_3.avro"), Stream.of());
+
+    ImmutableSet<BigInteger> keys = readOutputDomainStreaming();
+
+    assertThat(keys)
+        .containsExactly(
+            BigInteger.valueOf(11),
+            BigInteger.valueOf(22),
+            BigInteger.valueOf(33),
+            BigInteger.valueOf(55));
+  }
+
+  @Test
+  public void readSortedShards_debugRun_annotatesLikeStreamingPath() throws Exception {
+    aggregationEngine.accept(AggregationEngine.AggregationKey.create(BigInteger.valueOf(5)));
+    writeSortedOutputDomain(outputDomainDirectory.resolve("domain_1.avro"), Stream.of(11, 33));
+    writeSortedOutputDomain(outputDomainDirectory.resolve("domain_2.avro"), Stream.of(22));
+
+    SummaryReportAvroSet summaryReportAvroSet =
+        outputDomainProcessor
+            .adjustAggregationWithDomainAndNoiseStreaming(
+                aggregationEngine,
+                Optional.of(outputDomainLocation),
+                outputDomainProcessor.listShards(outputDomainLocation),
+                noisedAggregationRunner,
+                DEFAULT_PRIVACY_PARAMS,
+                /* debugRun= */ true)
+            .summaryReportAvroSet()
+            .get();
+
+    // Domain and report-only keys are still written to separate summary reports.
+    assertThat(summaryReportAvroSet.debugSummaryReport().get()).hasSize(2);
+    ImmutableMap<BigInteger, List<DebugBucketAnnotation>> annotations =
+        summaryReportAvroSet.debugSummaryReport().get().stream()
+            .flatMap(
+                debugSummaryReportAvro ->
+                    debugResultsSerdes
+                        .reverse()
+                        .convert(debugSummaryReportAvro.reportBytes())
+                        .stream())
+            .collect(
+                toImmutableMap(
+                    AggregatedFact::getBucket,
+                    fact -> (List<DebugBucketAnnotation>) fact.getDebugAnnotations().get()));
+    assertThat(annotations)
+        .containsExactly(
+            BigInteger.valueOf(5),
+            List.of(DebugBucketAnnotation.IN_REPORTS),
+            BigInteger.valueOf(11),
+            List.of(DebugBucketAnnotation.IN_DOMAIN),
+            BigInteger.valueOf(22),
+            List.of(DebugBucketAnnotation.IN_DOMAIN),
+            BigInteger.valueOf(33),
+            List.of(DebugBucketAnnotation.IN_REPORTS, DebugBucketAnnotation.IN_DOMAIN),
+            BigInteger.valueOf(44),
+            List.of(DebugBucketAnnotation.IN_REPORTS));
+    // Report-only keys are not included in the summary report without domain optional.
+    ImmutableSet<BigInteger> summaryKeys =
+        summaryReportAvroSet.summaryReports().stream()
+            .flatMap(
+                summaryReportAvro ->
+                    resultsSerdes.reverse().convert(summaryReportAvro.reportBytes()).stream())
+            .map(AggregatedFact::getBucket)
+            .collect(ImmutableSet.toImmutableSet());
+    assertThat(summaryKeys)
+        .containsExactly(BigInteger.valueOf(11), BigInteger.valueOf(22), BigInteger.valueOf(33));
+  }
+
+  @Test
+  public void readSortedShards_unsortedShardMarkedAsSorted_throwsException() throws Exception {
+    try (OutputStream outputStream =
+            Files.newOutputStream(outputDomainDirectory.resolve("domain_1.avro"));
+        AvroOutputDomainWriter writer = avroOutputDomainWriterFactory.create(outputStream)) {
+      writer.writeRecords(
+          ImmutableList.of(
+              MetadataElement.create(AvroOutputDomainWriter.SORTED_BUCKETS_METADATA_KEY, "true")),
+          ImmutableList.of(
+              AvroOutputDomainRecord.create(BigInteger.valueOf(22)),
+              AvroOutputDomainRecord.create(BigInteger.valueOf(11))));
+    }
+
+    DomainReadException error =
+        assertThrows(DomainReadException.class, this::readOutputDomainStreaming);
+
+    assertThat(error).hasCauseThat().isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  public void readSortedAndUnsortedShards_fallsBackToHashConflation() throws Exception {
+    writeSortedOutputDomain(outputDomainDirectory.resolve("domain_1.avro"), Stream.of(11, 22));
+    writeOutputDomain(outputDomainDirectory.resolve("domain_2.avro"), Stream.of(33, 22, 44));
+
+    ImmutableSet<BigInteger> keys = readOutputDomainStreaming();
+
+    assertThat(keys)
+        .containsExactly(
+            BigInteger.valueOf(11),
+            BigInteger.valueOf(22),
+            BigInteger.valueOf(33),
+            BigInteger.valueOf(44));
+  }
+
   private ImmutableSet<BigInteger> readOutputDomain() {
     NoisedAggregatedResultSet noisedResultset =
         outputDomainProcessor
@@ -320,6 +434,17 @@ public class AvroOutputDomainProcessorTest {
     writer.writeRecords(ImmutableList.of(), records);
   }
 
+  private void writeSortedOutputDomain(Path path, Stream<Integer> keys) throws IOException {
+    try (OutputStream outputStream = Files.newOutputStream(path);
+        AvroOutputDomainWriter writer = avroOutputDomainWriterFactory.create(outputStream)) {
+      writer.writeSortedRecords(
+          ImmutableList.of(),
+          keys.map(BigInteger::valueOf)
+              .map(AvroOutputDomainRecord::create)
+              .collect(toImmutableList()));
+    }
+  }
+
   private void writeOutputDomainTextFile(Path outputDomainPath, String... keys) throws IOException {
     Files.write(outputDomainPath, ImmutableList.copyOf(keys), US_ASCII, WRITE, CREATE);
   }
@@ -335,6 +460,8 @@ public class AvroOutputDomainProcessorTest {
       bind(OutputDomainProcessor.class).to(AvroOutputDomainProcessor.class);
       bind(Boolean.class).annotatedWith(DomainOptional.class).toInstance(false);
       bind(Boolean.class).annotatedWith(EnableThresholding.class).toInstance(true);
+      OptionalBinder.newOptionalBinder(
+          binder(), Key.get(Boolean.class, DisableSortedDomainMergeJoin.class));
 
       bind(FakeNoiseApplierSupplier.class).in(TestScoped.class);
       bind(NoisedAggregationRunner.class).to(NoisedAggregationRunnerImpl.class);
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.aggregation.engine;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class BucketSumBufferTest {
+
+  @Test
+  public void add_sameBucket_sumsValues() {
+    BucketSumBuffer buffer = new BucketSumBuffer(/* expectedBuckets= */ 4);
+
+    buffer.add(BigInteger.valueOf(7), 3);
+    buffer.add(BigInteger.valueOf(7), 4);
+    buffer.add(BigInteger.valueOf(8), 1);
+
+    assertThat(buffer.size()).isEqualTo(2);
+    assertThat(drain(buffer))
+        .containsExactly(BigInteger.valueOf(7), 7L, BigInteger.valueOf(8), 1L);
+  }
+
+  @Test
+  public void add_moreBucketsThanExpected_keepsAllSums() {
+    BucketSumBuffer buffer = new BucketSumBuffer(/* expectedBuckets= */ 1);
+    Map<BigInteger, Long> expected = new HashMap<>();
+    for (int i = 0; i < 1000; i++) {
+      // 128-bit buckets that only differ in their high bits.
+      BigInteger bucket = BigInteger.valueOf(i).shiftLeft(100);
+      buffer.add(bucket, i);
+      buffer.add(bucket, 1);
+      expected.put(bucket, i + 1L);
+    }
+
+    assertThat(buffer.size()).isEqualTo(1000);
+    assertThat(drain(buffer)).containsExactlyEntriesIn(expected);
+  }
+
+  @Test
+  public void drainTo_emptiesBuffer() {
+    BucketSumBuffer buffer = new BucketSumBuffer(/* expectedBuckets= */ 4);
+    buffer.add(BigInteger.ONE, 5);
+    drain(buffer);
+
+    buffer.add(BigInteger.ONE, 2);
+
+    assertThat(buffer.size()).isEqualTo(1);
+    assertThat(drain(buffer)).containsExactly(BigInteger.ONE, 2L);
+    assertThat(buffer.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void create_nonPositiveExpectedBuckets_throws() {
+    assertThrows(
+        IllegalArgumentException.class, () -> new BucketSumBuffer(/* expectedBuckets= */ 0));
+  }
+
+  private static Map<BigInteger, Long> drain(BucketSumBuffer buffer) {
+    Map<BigInteger, Long> sums = new HashMap<>();
+    buffer.drainTo(sums::put);
+    return sums;
+  }
+}
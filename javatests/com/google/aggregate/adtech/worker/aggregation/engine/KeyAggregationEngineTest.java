@@ -473,6 +473,64 @@ public class KeyAggregationEngineTest {
     assertThat(privacyBudgetUnits).hasSize(8);
   }
 
+  @Test
+  public void acceptBatch_flushesWhenBufferIsFull_sumsAllFacts() {
+    Report firstReport =
+        FakeReportGenerator.generateWithFactList(
+            ImmutableList.of(
+                FakeFactGenerator.generate(/* bucket= */ 1, /* value= */ 2),
+                FakeFactGenerator.generate(/* bucket= */ 2, /* value= */ 1),
+                FakeFactGenerator.generate(/* bucket= */ 3, /* value= */ 10)),
+            SharedInfo.LATEST_VERSION);
+    Report secondReport =
+        FakeReportGenerator.generateWithFactList(
+            ImmutableList.of(
+                FakeFactGenerator.generate(/* bucket= */ 1, /* value= */ 4),
+                FakeFactGenerator.generate(/* bucket= */ 2, /* value= */ 6),
+                FakeFactGenerator.generate(/* bucket= */ 4, /* value= */ 0)),
+            SharedInfo.LATEST_VERSION);
+
+    engine.accept(ImmutableList.of(firstReport, secondReport), /* maxBufferedBuckets= */ 2);
+    ImmutableMap<AggregationKey, AggregatedFact> aggregation = engine.makeAggregation();
+
+    assertThat(aggregation)
+        .containsExactly(
+            AggregationKey.create(createBucketFromInt(1)),
+            AggregatedFact.create(createBucketFromInt(1), /* value= */ 6),
+            AggregationKey.create(createBucketFromInt(2)),
+            AggregatedFact.create(createBucketFromInt(2), /* value= */ 7),
+            AggregationKey.create(createBucketFromInt(3)),
+            AggregatedFact.create(createBucketFromInt(3), /* value= */ 10),
+            AggregationKey.create(createBucketFromInt(4)),
+            AggregatedFact.create(createBucketFromInt(4), /* value= */ 0));
+  }
+
+  @Test
+  public void acceptBatch_dedupesReportsAndSkipsNullFacts() {
+    Report report =
+        FakeReportGenerator.generateWithParam(
+            /* bucket= */ 1, /* reportVersion */ SharedInfo.VERSION_0_1, "https://origin1.foo.com");
+    Report reportDuplicate =
+        FakeReportGenerator.generateWithParam(
+            /* bucket= */ 1, /* reportVersion */ SharedInfo.VERSION_0_1, "https://origin1.foo.com");
+    Report nullReport = FakeReportGenerator.generateNullReport();
+
+    engine.accept(
+        ImmutableList.of(report, reportDuplicate, nullReport), /* maxBufferedBuckets= */ 1000);
+    ImmutableMap<AggregationKey, AggregatedFact> aggregation = engine.makeAggregation();
+
+    assertThat(aggregation)
+        .containsExactly(
+            AggregationKey.create(createBucketFromInt(1)),
+            AggregatedFact.create(createBucketFromInt(1), /* value= */ 1));
+    assertThat(engine.getPrivacyBudgetUnits())
+        .contains(
+            budgetUnit(
+                "686f11a611747492b911f8de3dc514c502246e78cc9d7a82e99d0b5af1cc2594",
+                Instant.parse("1970-01-01T00:00:00Z"),
+                /* reportingOrigin= */ "https://origin1.foo.com"));
+  }
+
   private static PrivacyBudgetUnit budgetUnit(
       String key, Instant scheduledTime, String reportingOrigin) {
     return PrivacyBudgetUnit.createHourTruncatedUnit(key, scheduledTime, reportingOrigin);
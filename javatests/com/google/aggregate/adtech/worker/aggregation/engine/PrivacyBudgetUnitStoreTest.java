@@ -0,0 +1,133 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.aggregation.engine;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.aggregate.adtech.worker.model.PrivacyBudgetUnit;
+import com.google.aggregate.adtech.worker.model.SharedInfo;
+import com.google.aggregate.privacy.budgeting.budgetkeygenerator.PrivacyBudgetKeyGenerator.PrivacyBudgetKeyInput;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.UnsignedLong;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class PrivacyBudgetUnitStoreTest {
+
+  private static final String BUDGET_KEY =
+      "686f11a611747492b911f8de3dc514c502246e78cc9d7a82e99d0b5af1cc2594";
+  private static final String REPORTING_ORIGIN = "https://origin.foo.com";
+  private static final Instant SCHEDULED_REPORT_TIME = Instant.parse("2024-01-01T10:15:30Z");
+  private static final UnsignedLong FILTERING_ID = UnsignedLong.valueOf(5);
+
+  private PrivacyBudgetUnitStore store;
+
+  @Before
+  public void setUp() {
+    store = new PrivacyBudgetUnitStore(new ConcurrentHashMap<>());
+  }
+
+  @Test
+  public void getPrivacyBudgetUnits_returnsDistinctHourTruncatedUnits() {
+    SharedInfo sharedInfo = createSharedInfo("report-1");
+    SharedInfo laterSharedInfo =
+        createSharedInfo("report-2").toBuilder()
+            .setScheduledReportTime(SCHEDULED_REPORT_TIME.plusSeconds(60))
+            .build();
+
+    store.add(createUnit(BUDGET_KEY, sharedInfo), sharedInfo, Optional.of(FILTERING_ID));
+    store.add(createUnit(BUDGET_KEY, laterSharedInfo), laterSharedInfo, Optional.of(FILTERING_ID));
+
+    assertThat(store.getPrivacyBudgetUnits())
+        .containsExactly(
+            PrivacyBudgetUnit.createHourTruncatedUnit(
+                BUDGET_KEY, SCHEDULED_REPORT_TIME, REPORTING_ORIGIN));
+  }
+
+  @Test
+  public void getPrivacyBudgetUnits_keepsKeysThatAreNotHex() {
+    SharedInfo sharedInfo = createSharedInfo("report-1");
+    PrivacyBudgetUnit unit = createUnit("budget_key", sharedInfo);
+
+    store.add(unit, sharedInfo, Optional.of(FILTERING_ID));
+
+    assertThat(store.getPrivacyBudgetUnits()).containsExactly(unit);
+  }
+
+  @Test
+  public void getPrivacyBudgetKeyInputs_rebuildsInputOfFirstReport() {
+    SharedInfo sharedInfo = createSharedInfo("report-1");
+    SharedInfo otherSharedInfo =
+        createSharedInfo("report-2").toBuilder()
+            .setScheduledReportTime(SCHEDULED_REPORT_TIME.plusSeconds(60))
+            .build();
+    PrivacyBudgetUnit unit = createUnit(BUDGET_KEY, sharedInfo);
+    store.add(unit, sharedInfo, Optional.of(FILTERING_ID));
+    store.add(createUnit(BUDGET_KEY, otherSharedInfo), otherSharedInfo, Optional.of(FILTERING_ID));
+
+    ImmutableList<PrivacyBudgetKeyInput> privacyBudgetKeyInputs =
+        store.getPrivacyBudgetKeyInputs(ImmutableList.of(unit));
+
+    PrivacyBudgetKeyInput expected =
+        PrivacyBudgetKeyInput.builder()
+            .setSharedInfo(sharedInfo)
+            .setFilteringId(FILTERING_ID)
+            .build();
+    assertThat(privacyBudgetKeyInputs).containsExactly(expected);
+    SharedInfo rebuiltSharedInfo = privacyBudgetKeyInputs.get(0).sharedInfo();
+    assertThat(rebuiltSharedInfo.scheduledReportTime()).isEqualTo(SCHEDULED_REPORT_TIME);
+    assertThat(rebuiltSharedInfo.reportId().isPresent()).isFalse();
+    assertThat(store.getPrivacyBudgetKeyInputs()).containsExactly(unit, expected);
+  }
+
+  @Test
+  public void getPrivacyBudgetKeyInputs_skipsUnknownUnits() {
+    SharedInfo sharedInfo = createSharedInfo("report-1");
+    store.add(createUnit(BUDGET_KEY, sharedInfo), sharedInfo, Optional.empty());
+
+    ImmutableList<PrivacyBudgetKeyInput> privacyBudgetKeyInputs =
+        store.getPrivacyBudgetKeyInputs(
+            ImmutableList.of(
+                PrivacyBudgetUnit.createHourTruncatedUnit(
+                    BUDGET_KEY, SCHEDULED_REPORT_TIME.plusSeconds(3600), REPORTING_ORIGIN)));
+
+    assertThat(privacyBudgetKeyInputs).isEmpty();
+  }
+
+  private static SharedInfo createSharedInfo(String reportId) {
+    return SharedInfo.builder()
+        .setApi(SharedInfo.ATTRIBUTION_REPORTING_API)
+        .setVersion(SharedInfo.LATEST_VERSION)
+        .setReportingOrigin(REPORTING_ORIGIN)
+        .setScheduledReportTime(SCHEDULED_REPORT_TIME)
+        .setDestination("https://destination.foo.com")
+        .setSourceRegistrationTime(Instant.parse("2024-01-01T00:00:00Z"))
+        .setReportId(reportId)
+        .build();
+  }
+
+  private static PrivacyBudgetUnit createUnit(String budgetKey, SharedInfo sharedInfo) {
+    return PrivacyBudgetUnit.createHourTruncatedUnit(
+        budgetKey, sharedInfo.scheduledReportTime(), sharedInfo.reportingOrigin());
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.encryption.kms;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.io.BaseEncoding;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.kms.KmsClient;
+import software.amazon.awssdk.services.kms.model.DecryptRequest;
+import software.amazon.awssdk.services.kms.model.DecryptResponse;
+import software.amazon.awssdk.services.kms.model.EncryptRequest;
+import software.amazon.awssdk.services.kms.model.EncryptResponse;
+import software.amazon.awssdk.services.kms.model.KmsException;
+
+@RunWith(JUnit4.class)
+public class AwsKmsAeadTest {
+
+  private static final String KEY_ARN = "arn:aws:kms:us-east-1:123456789012:key/subtasks";
+  private static final String WORKER_IMAGE_SHA384 = "worker-image";
+  private static final byte[] PLAINTEXT = "sub-task token".getBytes(UTF_8);
+  private static final byte[] ASSOCIATED_DATA = "request-1/bucket".getBytes(UTF_8);
+
+  private FakeKms kms;
+  private AwsKmsAead attestedAead;
+
+  @Before
+  public void setUp() {
+    kms = new FakeKms();
+    attestedAead =
+        new AwsKmsAead(
+            kms, KEY_ARN, wrappedKey -> kms.decryptForRecipient(wrappedKey, WORKER_IMAGE_SHA384));
+  }
+
+  @Test
+  public void decrypt_attestedWorkerImage_returnsPlaintext() throws Exception {
+    byte[] ciphertext = attestedAead.encrypt(PLAINTEXT, ASSOCIATED_DATA);
+
+    assertThat(attestedAead.decrypt(ciphertext, ASSOCIATED_DATA)).isEqualTo(PLAINTEXT);
+  }
+
+  @Test
+  public void decrypt_otherAssociatedData_throws() throws Exception {
+    byte[] ciphertext = attestedAead.encrypt(PLAINTEXT, ASSOCIATED_DATA);
+
+    assertThrows(
+        GeneralSecurityException.class,
+        () -> attestedAead.decrypt(ciphertext, "request-2/bucket".getBytes(UTF_8)));
+  }
+
+  @Test
+  public void decrypt_unattestedClient_cannotUnseal() throws Exception {
+    byte[] ciphertext = attestedAead.encrypt(PLAINTEXT, ASSOCIATED_DATA);
+    // A client holding the worker's credentials but no attestation document, decrypting the
+    // wrapped key with a plain KMS Decrypt request.
+    AwsKmsAead unattestedAead =
+        new AwsKmsAead(
+            kms,
+            KEY_ARN,
+            wrappedKey ->
+                kms.decrypt(
+                        DecryptRequest.builder()
+                            .keyId(KEY_ARN)
+                            .ciphertextBlob(SdkBytes.fromByteArray(wrappedKey))
+                            .build())
+                    .plaintext()
+                    .asByteArray());
+
+    assertThrows(KmsException.class, () -> unattestedAead.decrypt(ciphertext, ASSOCIATED_DATA));
+  }
+
+  @Test
+  public void decrypt_otherEnclaveImage_cannotUnseal() throws Exception {
+    byte[] ciphertext = attestedAead.encrypt(PLAINTEXT, ASSOCIATED_DATA);
+    AwsKmsAead otherImageAead =
+        new AwsKmsAead(
+            kms, KEY_ARN, wrappedKey -> kms.decryptForRecipient(wrappedKey, "other-image"));
+
+    assertThrows(KmsException.class, () -> otherImageAead.decrypt(ciphertext, ASSOCIATED_DATA));
+  }
+
+  @Test
+  public void decrypt_truncatedCiphertext_throws() {
+    assertThrows(
+        GeneralSecurityException.class,
+        () -> attestedAead.decrypt(new byte[] {0, 0}, ASSOCIATED_DATA));
+  }
+
+  /**
+   * KMS key whose policy only allows kms:Decrypt with a recipient attestation of the worker image,
+   * i.e. with the {@code kms:RecipientAttestation:ImageSha384} condition.
+   */
+  private static final class FakeKms implements KmsClient {
+
+    private final SecureRandom random = new SecureRandom();
+    private final Map<String, byte[]> plaintexts = new HashMap<>();
+
+    @Override
+    public EncryptResponse encrypt(EncryptRequest request) {
+      byte[] ciphertextBlob = new byte[32];
+      random.nextBytes(ciphertextBlob);
+      plaintexts.put(
+          BaseEncoding.base64().encode(ciphertextBlob), request.plaintext().asByteArray());
+      return EncryptResponse.builder()
+          .keyId(request.keyId())
+          .ciphertextBlob(SdkBytes.fromByteArray(ciphertextBlob))
+          .build();
+    }
+
+    /** Decrypt requests without a recipient attestation are denied by the key policy. */
+    @Override
+    public DecryptResponse decrypt(DecryptRequest request) {
+      throw accessDenied();
+    }
+
+    /**
+     * Decrypts for an enclave attested to run the given image, standing in for a decrypt request
+     * with a recipient whose ciphertext is then decrypted with the enclave key.
+     */
+    byte[] decryptForRecipient(byte[] ciphertextBlob, String imageSha384) {
+      if (!imageSha384.equals(WORKER_IMAGE_SHA384)) {
+        throw accessDenied();
+      }
+      return plaintexts.get(BaseEncoding.base64().encode(ciphertextBlob));
+    }
+
+    private static KmsException accessDenied() {
+      return (KmsException)
+          KmsException.builder()
+              .message("kms:Decrypt requires kms:RecipientAttestation:ImageSha384.")
+              .build();
+    }
+
+    @Override
+    public String serviceName() {
+      return "kms";
+    }
+
+    @Override
+    public void close() {}
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.frontend.service.aws.changehandler;
+
+import static com.google.aggregate.protos.shared.backend.JobStatusProto.JobStatus.RECEIVED;
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.aggregate.adtech.worker.frontend.service.aws.changehandler.JobMetadataChangeHandler.BatchChangeHandlerException;
+import com.google.aggregate.adtech.worker.shared.dao.jobqueue.testing.FakeJobQueue;
+import com.google.aggregate.protos.shared.backend.JobKeyProto.JobKey;
+import com.google.aggregate.protos.shared.backend.metadatadb.JobMetadataProto.JobMetadata;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class JobQueueWriteHandlerTest {
+
+  private final JobMetadata firstJob = createJobMetadata("job-1");
+  private final JobMetadata secondJob = createJobMetadata("job-2");
+  private final JobMetadata thirdJob = createJobMetadata("job-3");
+
+  private FakeJobQueue jobQueue;
+  // Under test
+  private JobQueueWriteHandler handler;
+
+  @Before
+  public void setUp() {
+    jobQueue = new FakeJobQueue();
+    handler = new JobQueueWriteHandler(jobQueue);
+  }
+
+  @Test
+  public void handleAll_sendsBatchInOneCall() {
+    handler.handleAll(ImmutableList.of(firstJob, secondJob, thirdJob));
+
+    assertThat(jobQueue.getJobKeyBatchesSent())
+        .containsExactly(
+            ImmutableList.of(firstJob.getJobKey(), secondJob.getJobKey(), thirdJob.getJobKey()));
+  }
+
+  @Test
+  public void handleAll_someJobsFail_throwsWithFailedJobKeys() {
+    jobQueue.setJobKeysToFail(ImmutableSet.of(secondJob.getJobKey()));
+
+    BatchChangeHandlerException exception =
+        assertThrows(
+            BatchChangeHandlerException.class,
+            () -> handler.handleAll(ImmutableList.of(firstJob, secondJob, thirdJob)));
+
+    assertThat(exception.getFailedJobKeys()).containsExactly(secondJob.getJobKey());
+    assertThat(jobQueue.getLastJobKeySent()).isEqualTo(thirdJob.getJobKey());
+  }
+
+  @Test
+  public void handle_sendsSingleJob() {
+    handler.handle(firstJob);
+
+    assertThat(jobQueue.getLastJobKeySent()).isEqualTo(firstJob.getJobKey());
+    assertThat(jobQueue.getLastServerJobIdSent()).isEqualTo(firstJob.getServerJobId());
+  }
+
+  private static JobMetadata createJobMetadata(String jobRequestId) {
+    return JobMetadata.newBuilder()
+        .setJobKey(JobKey.newBuilder().setJobRequestId(jobRequestId))
+        .setServerJobId("server-" + jobRequestId)
+        .setJobStatus(RECEIVED)
+        .build();
+  }
+}
@@ -19,11 +19,15 @@ package com.google.aggregate.adtech.worker.frontend.tasks;
 import static com.google.common.truth.Truth.assertThat;
 import static com.google.aggregate.adtech.worker.frontend.tasks.ErrorMessages.DB_ERROR_MESSAGE;
 import static com.google.aggregate.adtech.worker.frontend.tasks.ErrorMessages.JOB_NOT_FOUND_MESSAGE;
+import static com.google.aggregate.protos.shared.backend.JobStatusProto.JobStatus.FINISHED;
+import static com.google.aggregate.protos.shared.backend.JobStatusProto.JobStatus.IN_PROGRESS;
 import static com.google.aggregate.protos.shared.backend.JobStatusProto.JobStatus.RECEIVED;
 import static com.google.scp.shared.api.exception.testing.ServiceExceptionAssertions.assertThatServiceExceptionMatches;
 import static org.junit.Assert.assertThrows;
 
 import com.google.acai.Acai;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.inject.AbstractModule;
 import com.google.inject.Inject;
 import com.google.aggregate.adtech.worker.frontend.injection.modules.testing.FakeFrontendModule;
@@ -35,8 +39,12 @@ import com.google.scp.shared.api.exception.ServiceException;
 import com.google.scp.shared.api.model.Code;
 import com.google.scp.shared.proto.ProtoUtil;
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -116,6 +124,79 @@ public class GetJobTaskTest {
     assertThatServiceExceptionMatches(serviceException, expectedServiceException);
   }
 
+  @Test
+  public void getJobs_returnsFoundJobsWithSingleBatchLookup() throws Exception {
+    fakeMetadataDb.putJobMetadataToReturn(jobMetadata);
+
+    ImmutableMap<String, JobMetadata> jobs =
+        getJobTask.getJobs(ImmutableSet.of(jobRequestId, "missing"));
+
+    assertThat(jobs).containsExactly(jobRequestId, jobMetadata);
+    assertThat(fakeMetadataDb.getBatchLookupCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void getJobs_throwsException_whenDbThrowsException() {
+    fakeMetadataDb.setShouldThrowJobMetadataDbException(true);
+
+    ServiceException serviceException =
+        assertThrows(
+            ServiceException.class, () -> getJobTask.getJobs(ImmutableSet.of(jobRequestId)));
+
+    ServiceException expectedServiceException =
+        new ServiceException(Code.INTERNAL, ErrorReasons.SERVER_ERROR.toString(), DB_ERROR_MESSAGE);
+    assertThatServiceExceptionMatches(serviceException, expectedServiceException);
+  }
+
+  @Test
+  public void watchJobs_returnsImmediately_whenLastKnownStatusIsStale() throws Exception {
+    fakeMetadataDb.putJobMetadataToReturn(jobMetadata);
+
+    ImmutableMap<String, JobMetadata> jobs =
+        getJobTask.watchJobs(
+            ImmutableSet.of(jobRequestId),
+            ImmutableMap.of(jobRequestId, IN_PROGRESS),
+            Duration.ofSeconds(10));
+
+    assertThat(jobs).containsExactly(jobRequestId, jobMetadata);
+    assertThat(fakeMetadataDb.getBatchLookupCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void watchJobs_returnsOnStatusChange() throws Exception {
+    fakeMetadataDb.putJobMetadataToReturn(jobMetadata);
+    JobMetadata finishedJobMetadata = jobMetadata.toBuilder().setJobStatus(FINISHED).build();
+    ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+    try {
+      executor.schedule(
+          () -> fakeMetadataDb.putJobMetadataToReturn(finishedJobMetadata),
+          500,
+          TimeUnit.MILLISECONDS);
+      ImmutableMap<String, JobMetadata> jobs =
+          getJobTask.watchJobs(
+              ImmutableSet.of(jobRequestId),
+              ImmutableMap.of(jobRequestId, RECEIVED),
+              Duration.ofSeconds(10));
+
+      assertThat(jobs).containsExactly(jobRequestId, finishedJobMetadata);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void watchJobs_returnsUnchangedJobs_whenWaitTimeElapses() throws Exception {
+    fakeMetadataDb.putJobMetadataToReturn(jobMetadata);
+
+    ImmutableMap<String, JobMetadata> jobs =
+        getJobTask.watchJobs(
+            ImmutableSet.of(jobRequestId), ImmutableMap.of(), Duration.ofMillis(1500));
+
+    assertThat(jobs).containsExactly(jobRequestId, jobMetadata);
+    assertThat(fakeMetadataDb.getBatchLookupCount()).isAtLeast(2);
+  }
+
   static class TestEnv extends AbstractModule {
 
     @Override
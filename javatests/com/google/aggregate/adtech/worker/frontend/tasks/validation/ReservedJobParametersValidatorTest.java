@@ -0,0 +1,64 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.frontend.tasks.validation;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.aggregate.adtech.worker.shared.dao.metadatadb.testing.JobGenerator;
+import com.google.aggregate.protos.shared.backend.RequestInfoProto.RequestInfo;
+import java.util.Optional;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ReservedJobParametersValidatorTest {
+
+  // Under test
+  ReservedJobParametersValidator validator;
+
+  RequestInfo.Builder requestInfoBuilder;
+
+  @Before
+  public void setUp() {
+    validator = new ReservedJobParametersValidator();
+    requestInfoBuilder = JobGenerator.createFakeRequestInfo("foo").toBuilder();
+  }
+
+  @Test
+  public void validate_withoutReservedParameters_passes() {
+    RequestInfo requestInfo = requestInfoBuilder.putJobParameters("debug_run", "true").build();
+
+    Optional<String> errorMessage = validator.validate(requestInfo);
+
+    assertThat(errorMessage).isEmpty();
+  }
+
+  @Test
+  public void validate_withSubtaskManifest_fails() {
+    RequestInfo requestInfo =
+        requestInfoBuilder
+            .putJobParameters("distributed_subtask_manifest", "scatter_gather/manifest")
+            .build();
+
+    Optional<String> errorMessage = validator.validate(requestInfo);
+
+    assertThat(errorMessage)
+        .hasValue("Job parameter 'distributed_subtask_manifest' is reserved and can't be set.");
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.jobclient;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.time.Duration;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class AdaptiveJobPullBackoffTest {
+
+  // Under test
+  private final AdaptiveJobPullBackoff backoff = new AdaptiveJobPullBackoff();
+
+  @Test
+  public void nextDelay_doublesUpToMaxDelay() {
+    assertThat(backoff.nextDelay()).isEqualTo(Duration.ofMillis(50));
+    assertThat(backoff.nextDelay()).isEqualTo(Duration.ofMillis(100));
+    assertThat(backoff.nextDelay()).isEqualTo(Duration.ofMillis(200));
+    assertThat(backoff.nextDelay()).isEqualTo(Duration.ofMillis(400));
+    assertThat(backoff.nextDelay()).isEqualTo(Duration.ofMillis(800));
+    assertThat(backoff.nextDelay()).isEqualTo(AdaptiveJobPullBackoff.MAX_DELAY);
+    assertThat(backoff.nextDelay()).isEqualTo(AdaptiveJobPullBackoff.MAX_DELAY);
+  }
+
+  @Test
+  public void reset_startsOverFromMinDelay() {
+    backoff.nextDelay();
+    backoff.nextDelay();
+    backoff.nextDelay();
+
+    backoff.reset();
+
+    assertThat(backoff.nextDelay()).isEqualTo(AdaptiveJobPullBackoff.MIN_DELAY);
+  }
+
+  @Test
+  public void get_signalsRetry() {
+    assertThat(backoff.get()).isTrue();
+  }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.jobclient;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.acai.Acai;
+import com.google.acai.TestScoped;
+import com.google.aggregate.adtech.worker.jobclient.JobHandlerModule.JobClientJobMaxNumAttemptsBinding;
+import com.google.aggregate.adtech.worker.jobclient.model.Job;
+import com.google.aggregate.adtech.worker.lifecycleclient.LifecycleClient;
+import com.google.aggregate.adtech.worker.lifecycleclient.local.LocalLifecycleClient;
+import com.google.aggregate.adtech.worker.lifecycleclient.local.LocalLifecycleModule;
+import com.google.aggregate.adtech.worker.shared.dao.jobqueue.common.JobQueue;
+import com.google.aggregate.adtech.worker.shared.dao.jobqueue.testing.InMemoryJobQueue;
+import com.google.aggregate.adtech.worker.shared.dao.metadatadb.common.JobMetadataDb;
+import com.google.aggregate.adtech.worker.shared.dao.metadatadb.testing.FakeMetadataDb;
+import com.google.aggregate.protos.shared.backend.JobKeyProto.JobKey;
+import com.google.aggregate.protos.shared.backend.JobStatusProto.JobStatus;
+import com.google.aggregate.protos.shared.backend.RequestInfoProto.RequestInfo;
+import com.google.aggregate.protos.shared.backend.metadatadb.JobMetadataProto.JobMetadata;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.AbstractModule;
+import com.google.inject.Key;
+import com.google.inject.Provides;
+import com.google.inject.Singleton;
+import com.google.inject.TypeLiteral;
+import com.google.inject.multibindings.OptionalBinder;
+import com.google.scp.operator.cpio.metricclient.MetricClient;
+import com.google.scp.operator.cpio.metricclient.local.LocalMetricClient;
+import com.google.scp.operator.cpio.notificationclient.NotificationClient;
+import com.google.scp.shared.clients.configclient.ParameterClient;
+import com.google.scp.shared.clients.configclient.local.Annotations.ParameterValues;
+import com.google.scp.shared.clients.configclient.local.LocalParameterClient;
+import com.google.scp.shared.proto.ProtoUtil;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Measures the time from sending a job to the queue until an idle worker starts it. */
+@RunWith(JUnit4.class)
+public final class JobPickupLatencyTest {
+
+  // Time the in-memory queue holds a receive request open, like an SQS long poll.
+  private static final Duration QUEUE_MAX_WAIT_TIME = Duration.ofMillis(500);
+  private static final Duration MAX_PICKUP_LATENCY = Duration.ofSeconds(2);
+
+  @Rule public final Acai acai = new Acai(TestEnv.class);
+
+  @Inject InMemoryJobQueue jobQueue;
+  @Inject FakeMetadataDb jobMetadataDb;
+
+  // Under test
+  @Inject JobClientImpl jobClient;
+
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() {
+    executor = Executors.newSingleThreadExecutor();
+    jobMetadataDb.setJobMetadataToReturn(
+        Optional.of(
+            JobMetadata.newBuilder()
+                .setJobKey(JobKey.newBuilder().setJobRequestId("request").build())
+                .setServerJobId("123")
+                .setJobStatus(JobStatus.RECEIVED)
+                .setRequestReceivedAt(ProtoUtil.toProtoTimestamp(Instant.ofEpochSecond(100)))
+                .setRequestUpdatedAt(ProtoUtil.toProtoTimestamp(Instant.ofEpochSecond(200)))
+                .setRequestInfo(
+                    RequestInfo.newBuilder()
+                        .setJobRequestId("request")
+                        .setInputDataBlobPrefix("bar")
+                        .setInputDataBucketName("foo")
+                        .setOutputDataBlobPrefix("bar")
+                        .setOutputDataBucketName("foo")
+                        .putAllJobParameters(
+                            ImmutableMap.of(
+                                "attribution_report_to",
+                                "abc.com",
+                                "output_domain_blob_prefix",
+                                "bar",
+                                "output_domain_bucket_name",
+                                "foo"))
+                        .build())
+                .build()));
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void getJob_jobSentDuringLongPoll_isPickedUpRightAway() throws Exception {
+    Future<Optional<Job>> pulledJob = executor.submit(() -> jobClient.getJob());
+    // Let the worker wait for a job in the middle of a long poll.
+    Thread.sleep(QUEUE_MAX_WAIT_TIME.toMillis() / 2);
+
+    Duration latency = sendJobAndAwaitPickup(pulledJob);
+
+    assertThat(latency).isLessThan(QUEUE_MAX_WAIT_TIME);
+  }
+
+  @Test
+  public void getJob_jobSentAfterIdlePolls_isPickedUpWithinMaxBackoff() throws Exception {
+    Future<Optional<Job>> pulledJob = executor.submit(() -> jobClient.getJob());
+    // Let the worker go through several empty polls, so that its backoff has grown.
+    Thread.sleep(QUEUE_MAX_WAIT_TIME.multipliedBy(5).toMillis());
+
+    Duration latency = sendJobAndAwaitPickup(pulledJob);
+
+    assertThat(latency).isLessThan(MAX_PICKUP_LATENCY);
+    assertThat(jobQueue.getReceivedJobCount()).isEqualTo(1);
+  }
+
+  private Duration sendJobAndAwaitPickup(Future<Optional<Job>> pulledJob) throws Exception {
+    Stopwatch submitToStart = Stopwatch.createStarted();
+    jobQueue.sendJob(JobKey.newBuilder().setJobRequestId("request").build(), "123");
+    Optional<Job> job = pulledJob.get(MAX_PICKUP_LATENCY.toMillis() * 5, TimeUnit.MILLISECONDS);
+    Duration latency = submitToStart.elapsed();
+
+    assertThat(job).isPresent();
+    assertThat(jobMetadataDb.getLastJobMetadataUpdated().getJobStatus())
+        .isEqualTo(JobStatus.IN_PROGRESS);
+    return latency;
+  }
+
+  private static final class TestEnv extends AbstractModule {
+
+    @Override
+    protected void configure() {
+      bind(FakeMetadataDb.class).in(TestScoped.class);
+      bind(JobQueue.class).to(InMemoryJobQueue.class);
+      bind(JobMetadataDb.class).to(FakeMetadataDb.class);
+      bind(JobPullBackoff.class).to(AdaptiveJobPullBackoff.class);
+      bind(Integer.class).annotatedWith(JobClientJobMaxNumAttemptsBinding.class).toInstance(1);
+      install(new JobValidatorModule());
+      install(new LocalLifecycleModule());
+      bind(LifecycleClient.class).to(LocalLifecycleClient.class);
+      bind(MetricClient.class).to(LocalMetricClient.class);
+      bind(new TypeLiteral<ImmutableMap<String, String>>() {})
+          .annotatedWith(ParameterValues.class)
+          .toInstance(ImmutableMap.of());
+      bind(ParameterClient.class).to(LocalParameterClient.class);
+      OptionalBinder.newOptionalBinder(binder(), Key.get(NotificationClient.class));
+    }
+
+    @Provides
+    @TestScoped
+    InMemoryJobQueue provideJobQueue() {
+      return new InMemoryJobQueue(QUEUE_MAX_WAIT_TIME, Duration.ofHours(1));
+    }
+
+    @Provides
+    @Singleton
+    Clock provideClock() {
+      return Clock.systemUTC();
+    }
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.local;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.scp.operator.cpio.blobstorageclient.BlobStorageClient.BlobStorageClientException;
+import com.google.scp.operator.cpio.blobstorageclient.model.DataLocation;
+import com.google.scp.operator.cpio.blobstorageclient.model.DataLocation.BlobStoreDataLocation;
+import com.google.scp.operator.cpio.blobstorageclient.testing.FSBlobStorageClient;
+import java.io.InputStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class LatencyInjectingBlobStorageClientTest {
+
+  @Rule public final TemporaryFolder testWorkingDir = new TemporaryFolder();
+
+  private final FileSystem fileSystem = FileSystems.getDefault();
+  private Path blobDirectory;
+  private DataLocation blobLocation;
+
+  @Before
+  public void setUp() throws Exception {
+    blobDirectory = testWorkingDir.getRoot().toPath();
+    Files.write(blobDirectory.resolve("blob"), new byte[200_000]);
+    blobLocation =
+        DataLocation.ofBlobStoreDataLocation(
+            BlobStoreDataLocation.create(blobDirectory.toAbsolutePath().toString(), "blob"));
+  }
+
+  @Test
+  public void getBlob_returnsBlobContents() throws Exception {
+    LatencyInjectingBlobStorageClient client =
+        createClient(BlobStorageLatencyProfile.builder().build());
+
+    byte[] contents;
+    try (InputStream blob = client.getBlob(blobLocation)) {
+      contents = blob.readAllBytes();
+    }
+
+    assertThat(contents).isEqualTo(Files.readAllBytes(blobDirectory.resolve("blob")));
+  }
+
+  @Test
+  public void getBlobSize_waitsForFirstByteLatency() throws Exception {
+    LatencyInjectingBlobStorageClient client =
+        createClient(BlobStorageLatencyProfile.builder().setFirstByteLatencyMillis(100).build());
+
+    long startNanos = System.nanoTime();
+    long size = client.getBlobSize(blobLocation);
+
+    assertThat(size).isEqualTo(200_000);
+    assertThat(Duration.ofNanos(System.nanoTime() - startNanos))
+        .isAtLeast(Duration.ofMillis(100));
+  }
+
+  @Test
+  public void getBlob_limitsBandwidth() throws Exception {
+    // 200 KB at 400 KB/s take about half a second after the first permits.
+    LatencyInjectingBlobStorageClient client =
+        createClient(
+            BlobStorageLatencyProfile.builder().setPerStreamBytesPerSecond(400_000).build());
+
+    long startNanos = System.nanoTime();
+    try (InputStream blob = client.getBlob(blobLocation)) {
+      blob.readAllBytes();
+    }
+
+    assertThat(Duration.ofNanos(System.nanoTime() - startNanos))
+        .isAtLeast(Duration.ofMillis(300));
+  }
+
+  @Test
+  public void getBlob_withThrottling_throwsBlobStorageClientException() {
+    LatencyInjectingBlobStorageClient client =
+        createClient(BlobStorageLatencyProfile.builder().setThrottlingErrorRate(1).build());
+
+    assertThrows(BlobStorageClientException.class, () -> client.getBlob(blobLocation));
+  }
+
+  @Test
+  public void fromFile_readsProfile() throws Exception {
+    Path profilePath = blobDirectory.resolve("profile.json");
+    Files.writeString(
+        profilePath,
+        "{\"first_byte_latency_millis\": 40, \"per_stream_bytes_per_second\": 1000,"
+            + " \"throttling_error_rate\": 0.01}");
+
+    BlobStorageLatencyProfile profile = BlobStorageLatencyProfile.fromFile(profilePath);
+
+    assertThat(profile)
+        .isEqualTo(
+            BlobStorageLatencyProfile.builder()
+                .setFirstByteLatencyMillis(40)
+                .setPerStreamBytesPerSecond(1000)
+                .setThrottlingErrorRate(0.01)
+                .build());
+  }
+
+  @Test
+  public void build_withInvalidRate_throwsIllegalArgumentException() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> BlobStorageLatencyProfile.builder().setTailLatencyRate(1.5).build());
+  }
+
+  private LatencyInjectingBlobStorageClient createClient(BlobStorageLatencyProfile profile) {
+    return new LatencyInjectingBlobStorageClient(
+        fileSystem, new FSBlobStorageClient(fileSystem), profile);
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.model;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.collect.ImmutableList;
+import java.math.BigInteger;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class FactBatchTest {
+
+  private static final BigInteger MAX_BUCKET =
+      BigInteger.ONE.shiftLeft(128).subtract(BigInteger.ONE);
+
+  @Test
+  public void add_growsAndKeepsColumns() {
+    FactBatch facts = new FactBatch(/* initialCapacity= */ 1);
+
+    for (int i = 0; i < 100; i++) {
+      facts.add(BigInteger.valueOf(i), i * 10L, /* annotationMask= */ 0);
+    }
+
+    assertThat(facts.size()).isEqualTo(100);
+    assertThat(facts.getBucket(99)).isEqualTo(BigInteger.valueOf(99));
+    assertThat(facts.getMetric(99)).isEqualTo(990L);
+    assertThat(facts.getUnnoisedMetric(99)).isEqualTo(990L);
+  }
+
+  @Test
+  public void add_splitsBucketIntoHalves() {
+    FactBatch facts = new FactBatch();
+
+    facts.add(MAX_BUCKET, 1, 0);
+    facts.add(BigInteger.ONE.shiftLeft(64), 2, 0);
+
+    assertThat(facts.getBucketHi(0)).isEqualTo(-1L);
+    assertThat(facts.getBucketLo(0)).isEqualTo(-1L);
+    assertThat(facts.getBucket(0)).isEqualTo(MAX_BUCKET);
+    assertThat(facts.getBucketHi(1)).isEqualTo(1L);
+    assertThat(facts.getBucketLo(1)).isEqualTo(0L);
+    assertThat(facts.getBucket(1)).isEqualTo(BigInteger.ONE.shiftLeft(64));
+  }
+
+  @Test
+  public void add_outOfRangeBucket_throws() {
+    FactBatch facts = new FactBatch();
+
+    assertThrows(IllegalArgumentException.class, () -> facts.add(BigInteger.valueOf(-1), 1, 0));
+    assertThrows(
+        IllegalArgumentException.class, () -> facts.add(MAX_BUCKET.add(BigInteger.ONE), 1, 0));
+  }
+
+  @Test
+  public void toAggregatedFacts_matchesNoisedFacts() {
+    FactBatch facts =
+        FactBatch.fromAggregatedFacts(
+            ImmutableList.of(
+                AggregatedFact.create(BigInteger.ONE, 5),
+                AggregatedFact.create(
+                    BigInteger.TWO,
+                    7,
+                    7L,
+                    List.of(DebugBucketAnnotation.IN_REPORTS, DebugBucketAnnotation.IN_DOMAIN))));
+
+    facts.setNoisedMetric(0, 8);
+    facts.setNoisedMetric(1, 4);
+
+    assertThat(facts.toAggregatedFacts())
+        .containsExactly(
+            AggregatedFact.create(BigInteger.ONE, 8, 5L),
+            AggregatedFact.create(
+                BigInteger.TWO,
+                4,
+                7L,
+                List.of(DebugBucketAnnotation.IN_REPORTS, DebugBucketAnnotation.IN_DOMAIN)))
+        .inOrder();
+  }
+
+  @Test
+  public void annotationMask_roundTrips() {
+    int mask = FactBatch.annotationMask(DebugBucketAnnotation.IN_DOMAIN);
+
+    assertThat(FactBatch.hasAnnotation(mask, DebugBucketAnnotation.IN_DOMAIN)).isTrue();
+    assertThat(FactBatch.hasAnnotation(mask, DebugBucketAnnotation.IN_REPORTS)).isFalse();
+  }
+
+  @Test
+  public void getMetric_rowOutOfRange_throws() {
+    FactBatch facts = new FactBatch();
+    facts.add(BigInteger.ONE, 1, 0);
+
+    assertThrows(IndexOutOfBoundsException.class, () -> facts.getMetric(1));
+  }
+}
@@ -219,4 +219,29 @@ public class SharedInfoTest {
 
     assertEquals(sharedInfoSharedStorage.api().get(), SHARED_STORAGE_API);
   }
+
+  @Test
+  public void parsedReportId_validReportId_returnsUuid() {
+    SharedInfo sharedInfo = createSharedInfoBuilder().setReportId(RANDOM_UUID).build();
+
+    assertThat(sharedInfo.parsedReportId()).hasValue(UUID.fromString(RANDOM_UUID));
+  }
+
+  @Test
+  public void parsedReportId_invalidOrMissingReportId_returnsEmpty() {
+    assertThat(createSharedInfoBuilder().setReportId("not-a-uuid").build().parsedReportId())
+        .isEmpty();
+    assertThat(createSharedInfoBuilder().setReportId("").build().parsedReportId()).isEmpty();
+    assertThat(createSharedInfoBuilder().build().parsedReportId()).isEmpty();
+  }
+
+  private static SharedInfo.Builder createSharedInfoBuilder() {
+    return SharedInfo.builder()
+        .setVersion(VERSION_1_0)
+        .setApi(ATTRIBUTION_REPORTING_API)
+        .setScheduledReportTime(FIXED_TIME)
+        .setReportingOrigin(REPORTING_ORIGIN)
+        .setDestination(DESTINATION)
+        .setSourceRegistrationTime(FIXED_TIME);
+  }
 }
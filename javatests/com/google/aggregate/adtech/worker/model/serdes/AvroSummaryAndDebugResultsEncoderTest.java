@@ -0,0 +1,157 @@
+/*
+ * Copyright 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.model.serdes;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.acai.Acai;
+import com.google.aggregate.adtech.worker.model.AggregatedFact;
+import com.google.aggregate.adtech.worker.model.DebugBucketAnnotation;
+import com.google.aggregate.adtech.worker.model.FactBatch;
+import com.google.aggregate.adtech.worker.model.serdes.AvroSummaryAndDebugResultsEncoder.EncodedResults;
+import com.google.aggregate.adtech.worker.util.NumericConversions;
+import com.google.common.collect.ImmutableList;
+import com.google.inject.AbstractModule;
+import com.google.inject.Inject;
+import java.math.BigInteger;
+import java.util.BitSet;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class AvroSummaryAndDebugResultsEncoderTest {
+  @Rule public final Acai acai = new Acai(AvroSummaryAndDebugResultsEncoderTest.TestEnv.class);
+
+  @Inject AvroSummaryAndDebugResultsEncoder encoder;
+  @Inject AvroResultsSerdes resultsSerdes;
+  @Inject AvroDebugResultsSerdes debugResultsSerdes;
+
+  private final AggregatedFact fact1 =
+      AggregatedFact.create(
+          NumericConversions.createBucketFromInt(1),
+          10,
+          5L,
+          List.of(DebugBucketAnnotation.IN_REPORTS, DebugBucketAnnotation.IN_DOMAIN));
+  private final AggregatedFact fact2 =
+      AggregatedFact.create(
+          NumericConversions.createBucketFromInt(2),
+          20,
+          15L,
+          List.of(DebugBucketAnnotation.IN_REPORTS));
+  private final AggregatedFact fact3 =
+      AggregatedFact.create(
+          NumericConversions.createBucketFromInt(3),
+          -3,
+          0L,
+          List.of(DebugBucketAnnotation.IN_DOMAIN));
+
+  @Test
+  public void encode_sameFacts_matchesSeparateSerdes() {
+    ImmutableList<AggregatedFact> facts = ImmutableList.of(fact1, fact2, fact3);
+
+    EncodedResults encodedResults = encoder.encode(facts, facts);
+
+    assertThat(resultsSerdes.reverse().convert(encodedResults.summaryBytes()))
+        .containsExactly(
+            AggregatedFact.create(NumericConversions.createBucketFromInt(1), 10),
+            AggregatedFact.create(NumericConversions.createBucketFromInt(2), 20),
+            AggregatedFact.create(NumericConversions.createBucketFromInt(3), -3))
+        .inOrder();
+    assertThat(debugResultsSerdes.reverse().convert(encodedResults.debugBytes()))
+        .containsExactly(fact1, fact2, fact3)
+        .inOrder();
+  }
+
+  @Test
+  public void encode_thresholdedSummaryFacts_writesSubsetToSummary() {
+    ImmutableList<AggregatedFact> facts = ImmutableList.of(fact1, fact2, fact3);
+
+    EncodedResults encodedResults = encoder.encode(facts, ImmutableList.of(fact2));
+
+    assertThat(resultsSerdes.reverse().convert(encodedResults.summaryBytes()))
+        .containsExactly(AggregatedFact.create(NumericConversions.createBucketFromInt(2), 20));
+    assertThat(debugResultsSerdes.reverse().convert(encodedResults.debugBytes())).hasSize(3);
+  }
+
+  @Test
+  public void encode_noFacts_writesEmptyFiles() {
+    EncodedResults encodedResults = encoder.encode(ImmutableList.of(), ImmutableList.of());
+
+    assertThat(resultsSerdes.reverse().convert(encodedResults.summaryBytes())).isEmpty();
+    assertThat(debugResultsSerdes.reverse().convert(encodedResults.debugBytes())).isEmpty();
+  }
+
+  @Test
+  public void encode_summaryFactsNotSubsequence_throws() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> encoder.encode(ImmutableList.of(fact1, fact2), ImmutableList.of(fact2, fact1)));
+  }
+
+  @Test
+  public void encode_factBatch_matchesSeparateSerdes() {
+    FactBatch facts = new FactBatch(/* initialCapacity= */ 1);
+    for (AggregatedFact fact : ImmutableList.of(fact1, fact2, fact3)) {
+      facts.add(
+          fact.getBucket(),
+          fact.getUnnoisedMetric().get(),
+          FactBatch.annotationMask(
+              ((List<DebugBucketAnnotation>) fact.getDebugAnnotations().get())
+                  .toArray(new DebugBucketAnnotation[0])));
+      facts.setNoisedMetric(facts.size() - 1, fact.getMetric());
+    }
+    BitSet summaryRows = new BitSet();
+    summaryRows.set(0);
+    summaryRows.set(2);
+
+    EncodedResults encodedResults = encoder.encode(facts, summaryRows);
+
+    assertThat(resultsSerdes.reverse().convert(encodedResults.summaryBytes()))
+        .containsExactly(
+            AggregatedFact.create(NumericConversions.createBucketFromInt(1), 10),
+            AggregatedFact.create(NumericConversions.createBucketFromInt(3), -3))
+        .inOrder();
+    assertThat(debugResultsSerdes.reverse().convert(encodedResults.debugBytes()))
+        .containsExactly(fact1, fact2, fact3)
+        .inOrder();
+  }
+
+  @Test
+  public void encodeSummary_factBatchEdgeBuckets_matchesObjectEncoding() {
+    ImmutableList<AggregatedFact> facts =
+        ImmutableList.of(
+            AggregatedFact.create(BigInteger.ZERO, 1),
+            AggregatedFact.create(BigInteger.valueOf(255), 2),
+            AggregatedFact.create(BigInteger.ONE.shiftLeft(64), 3),
+            AggregatedFact.create(BigInteger.ONE.shiftLeft(128).subtract(BigInteger.ONE), 4));
+    FactBatch factBatch = FactBatch.fromAggregatedFacts(facts);
+    BitSet allRows = new BitSet();
+    allRows.set(0, facts.size());
+
+    byte[] batchBytes = encoder.encodeSummary(factBatch, allRows);
+
+    assertThat(resultsSerdes.reverse().convert(batchBytes))
+        .containsExactlyElementsIn(facts)
+        .inOrder();
+  }
+
+  private static final class TestEnv extends AbstractModule {}
+}
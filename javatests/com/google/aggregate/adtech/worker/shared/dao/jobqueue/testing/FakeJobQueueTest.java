@@ -19,6 +19,9 @@ package com.google.aggregate.adtech.worker.shared.dao.jobqueue.testing;
 import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.assertThrows;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.protobuf.util.Durations;
 import com.google.aggregate.protos.shared.backend.JobKeyProto.JobKey;
 import com.google.aggregate.protos.shared.backend.jobqueue.JobQueueProto.JobQueueItem;
@@ -75,6 +78,20 @@ public class FakeJobQueueTest {
     assertThrows(JobQueueException.class, () -> fakeJobQueue.sendJob(jobKey, serverJobId));
   }
 
+  @Test
+  public void testSendJobs_reportsFailuresPerJob() {
+    JobKey failingJobKey = JobKey.newBuilder().setJobRequestId("job-def-456").build();
+    fakeJobQueue.setJobKeysToFail(ImmutableSet.of(failingJobKey));
+
+    ImmutableMap<JobKey, JobQueueException> failures =
+        fakeJobQueue.sendJobs(ImmutableMap.of(jobKey, serverJobId, failingJobKey, "server-2"));
+
+    assertThat(failures.keySet()).containsExactly(failingJobKey);
+    assertThat(fakeJobQueue.getLastJobKeySent()).isEqualTo(jobKey);
+    assertThat(fakeJobQueue.getJobKeyBatchesSent())
+        .containsExactly(ImmutableList.of(jobKey, failingJobKey));
+  }
+
   @Test
   public void testReceiveJob_present() throws Exception {
     fakeJobQueue.setJobQueueItemToBeReceived(Optional.of(jobQueueItem));
@@ -0,0 +1,302 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.shared.dao.jobqueue.testing;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.aggregate.adtech.worker.shared.dao.jobqueue.common.JobLaneSelector;
+import com.google.aggregate.adtech.worker.shared.dao.jobqueue.common.JobQueue;
+import com.google.aggregate.adtech.worker.shared.dao.jobqueue.common.JobQueue.JobQueueException;
+import com.google.aggregate.adtech.worker.shared.dao.jobqueue.common.JobQueueLane;
+import com.google.aggregate.adtech.worker.shared.dao.jobqueue.common.JobQueueLaneConfig;
+import com.google.aggregate.adtech.worker.shared.dao.jobqueue.common.LanedJobQueue;
+import com.google.aggregate.protos.shared.backend.JobKeyProto.JobKey;
+import com.google.aggregate.protos.shared.backend.RequestInfoProto.RequestInfo;
+import com.google.aggregate.protos.shared.backend.jobqueue.JobQueueProto.JobQueueItem;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Simulates workers pulling a backfill burst followed by a steady stream of small jobs, from a
+ * {@link LanedJobQueue} and from a single FIFO queue, and reports the wait time of each lane.
+ */
+@RunWith(JUnit4.class)
+public class LanedJobQueueSimulationTest {
+
+  private static final Duration MESSAGE_LEASE = Duration.ofMinutes(10);
+  private static final ImmutableMap<JobQueueLane, Integer> WEIGHTS =
+      ImmutableMap.of(JobQueueLane.HIGH, 6, JobQueueLane.NORMAL, 3, JobQueueLane.LOW, 1);
+  private static final JobLaneSelector LANE_SELECTOR =
+      new JobLaneSelector(
+          /* highLaneMaxReports= */ 1_000_000, /* lowLaneMinReports= */ 100_000_000);
+
+  private static final int WORKERS = 16;
+  private static final int BACKFILL_JOBS = 60;
+  private static final int BACKFILL_MINUTES = 120;
+  private static final int SMALL_JOB_MINUTES = 10;
+  private static final int SMALL_JOBS_PER_ARRIVAL = 5;
+  private static final int SMALL_JOB_INTERVAL_MINUTES = 15;
+  private static final int SMALL_JOB_STREAM_END_MINUTE = 600;
+
+  @Test
+  public void simulate_smallJobsAreNotStuckBehindBackfill() throws Exception {
+    ImmutableList<SimulatedJob> workload = createWorkload();
+
+    Map<JobQueueLane, WaitStats> fifoWaits =
+        simulate(new InMemoryJobQueue(Duration.ZERO, MESSAGE_LEASE), workload);
+    Map<JobQueueLane, WaitStats> lanedWaits =
+        simulate(
+            InMemoryJobQueue.createLaned(Duration.ZERO, MESSAGE_LEASE, WEIGHTS, LANE_SELECTOR),
+            workload);
+
+    System.out.println("FIFO queue wait minutes by lane: " + fifoWaits);
+    System.out.println("Laned queue wait minutes by lane: " + lanedWaits);
+    WaitStats fifoHigh = fifoWaits.get(JobQueueLane.HIGH);
+    WaitStats lanedHigh = lanedWaits.get(JobQueueLane.HIGH);
+    WaitStats lanedLow = lanedWaits.get(JobQueueLane.LOW);
+    assertThat(lanedHigh.count).isEqualTo(fifoHigh.count);
+    // Small jobs still wait for the backfill jobs that hold every worker when they first arrive,
+    // but no longer wait for the whole backfill.
+    assertThat(lanedHigh.max * 2).isLessThan(fifoHigh.max);
+    assertThat(lanedHigh.mean() * 4).isLessThan(fifoHigh.mean());
+    // The backfill is not starved while small jobs keep arriving.
+    assertThat(lanedLow.startedBefore(SMALL_JOB_STREAM_END_MINUTE)).isEqualTo(BACKFILL_JOBS);
+  }
+
+  @Test
+  public void selectLane_usesExplicitLaneThenDeclaredSize() {
+    assertThat(LANE_SELECTOR.selectLane(requestInfo(Optional.of("low"), Optional.of(10L))))
+        .isEqualTo(JobQueueLane.LOW);
+    assertThat(LANE_SELECTOR.selectLane(requestInfo(Optional.of("bogus"), Optional.of(10L))))
+        .isEqualTo(JobQueueLane.HIGH);
+    assertThat(LANE_SELECTOR.selectLane(requestInfo(Optional.empty(), Optional.of(5_000_000L))))
+        .isEqualTo(JobQueueLane.NORMAL);
+    assertThat(
+            LANE_SELECTOR.selectLane(requestInfo(Optional.empty(), Optional.of(500_000_000L))))
+        .isEqualTo(JobQueueLane.LOW);
+    assertThat(LANE_SELECTOR.selectLane(requestInfo(Optional.empty(), Optional.empty())))
+        .isEqualTo(JobQueueLane.NORMAL);
+  }
+
+  @Test
+  public void receiveJob_routesReceiptsBackToLane() throws Exception {
+    LanedJobQueue jobQueue =
+        InMemoryJobQueue.createLaned(Duration.ZERO, MESSAGE_LEASE, WEIGHTS, LANE_SELECTOR);
+    JobKey jobKey = JobKey.newBuilder().setJobRequestId("small-job").build();
+    jobQueue
+        .selectLane(requestInfo(Optional.empty(), Optional.of(10L)))
+        .sendJob(jobKey, "server-job-id");
+
+    JobQueueItem item = jobQueue.receiveJob().get();
+    jobQueue.modifyJobProcessingTime(item, Duration.ZERO);
+    JobQueueItem redelivered = jobQueue.receiveJob().get();
+    jobQueue.acknowledgeJobCompletion(redelivered);
+
+    assertThat(redelivered.getJobKeyString()).isEqualTo("small-job");
+    assertThat(redelivered.getReceiptInfo()).startsWith(JobQueueLane.HIGH.name());
+    assertThat(jobQueue.receiveJob()).isEmpty();
+    assertThrows(
+        JobQueueException.class,
+        () -> jobQueue.acknowledgeJobCompletion(item.toBuilder().setReceiptInfo("none").build()));
+  }
+
+  @Test
+  public void create_fromParameters_placesJobsOnConfiguredLanes() throws Exception {
+    ImmutableMap<String, String> parameters =
+        ImmutableMap.of(
+            JobQueueLaneConfig.LOW_LANE_QUEUE_PARAMETER, "low-queue",
+            JobQueueLaneConfig.LOW_LANE_MIN_REPORTS_PARAMETER, "1000");
+    InMemoryJobQueue normalQueue = new InMemoryJobQueue(Duration.ZERO, MESSAGE_LEASE);
+    InMemoryJobQueue lowQueue = new InMemoryJobQueue(Duration.ZERO, MESSAGE_LEASE);
+    LanedJobQueue jobQueue =
+        LanedJobQueue.create(
+            normalQueue,
+            JobQueueLaneConfig.fromParameters(
+                    parameter -> Optional.ofNullable(parameters.get(parameter)))
+                .get(),
+            laneQueue -> laneQueue.equals("low-queue") ? lowQueue : null);
+
+    jobQueue
+        .selectLane(requestInfo(Optional.empty(), Optional.of(5000L)))
+        .sendJob(JobKey.newBuilder().setJobRequestId("large-job").build(), "server-job-id");
+    // Small jobs stay in the normal lane, since the high lane has no queue.
+    jobQueue
+        .selectLane(requestInfo(Optional.empty(), Optional.of(10L)))
+        .sendJob(JobKey.newBuilder().setJobRequestId("small-job").build(), "server-job-id");
+
+    assertThat(lowQueue.receiveJob().get().getJobKeyString()).isEqualTo("large-job");
+    assertThat(normalQueue.receiveJob().get().getJobKeyString()).isEqualTo("small-job");
+  }
+
+  @Test
+  public void fromParameters_withoutLaneQueues_isEmpty() {
+    assertThat(JobQueueLaneConfig.fromParameters(parameter -> Optional.empty())).isEmpty();
+  }
+
+  private static ImmutableList<SimulatedJob> createWorkload() {
+    ImmutableList.Builder<SimulatedJob> workload = ImmutableList.builder();
+    for (int i = 0; i < BACKFILL_JOBS; i++) {
+      workload.add(
+          new SimulatedJob(
+              "backfill-" + i,
+              /* arrivalMinute= */ 0,
+              BACKFILL_MINUTES,
+              requestInfo(Optional.empty(), Optional.of(1_000_000_000L))));
+    }
+    for (int minute = 1;
+        minute < SMALL_JOB_STREAM_END_MINUTE;
+        minute += SMALL_JOB_INTERVAL_MINUTES) {
+      for (int i = 0; i < SMALL_JOBS_PER_ARRIVAL; i++) {
+        workload.add(
+            new SimulatedJob(
+                "hourly-" + minute + "-" + i,
+                minute,
+                SMALL_JOB_MINUTES,
+                requestInfo(Optional.empty(), Optional.of(10_000L))));
+      }
+    }
+    return workload.build();
+  }
+
+  /**
+   * Runs {@code workload} on {@link #WORKERS} simulated workers that each pull a job from {@code
+   * jobQueue} whenever they are idle, one simulated minute at a time.
+   */
+  private static Map<JobQueueLane, WaitStats> simulate(
+      JobQueue jobQueue, ImmutableList<SimulatedJob> workload) throws JobQueueException {
+    Map<String, SimulatedJob> jobsById = new HashMap<>();
+    workload.forEach(job -> jobsById.put(job.jobId, job));
+    Map<JobQueueLane, WaitStats> waits = new EnumMap<>(JobQueueLane.class);
+    List<RunningJob> runningJobs = new ArrayList<>();
+    Iterator<SimulatedJob> arrivals =
+        workload.stream()
+            .sorted((a, b) -> Integer.compare(a.arrivalMinute, b.arrivalMinute))
+            .iterator();
+    SimulatedJob nextArrival = arrivals.next();
+    int completedJobs = 0;
+
+    for (int minute = 0; completedJobs < workload.size(); minute++) {
+      assertThat(minute).isLessThan(100_000);
+      Iterator<RunningJob> running = runningJobs.iterator();
+      while (running.hasNext()) {
+        RunningJob runningJob = running.next();
+        if (runningJob.finishMinute <= minute) {
+          jobQueue.acknowledgeJobCompletion(runningJob.item);
+          running.remove();
+          completedJobs++;
+        }
+      }
+      while (nextArrival != null && nextArrival.arrivalMinute == minute) {
+        jobQueue
+            .selectLane(nextArrival.requestInfo)
+            .sendJob(
+                JobKey.newBuilder().setJobRequestId(nextArrival.jobId).build(), "server-job-id");
+        nextArrival = arrivals.hasNext() ? arrivals.next() : null;
+      }
+      while (runningJobs.size() < WORKERS) {
+        Optional<JobQueueItem> item = jobQueue.receiveJob();
+        if (item.isEmpty()) {
+          break;
+        }
+        SimulatedJob job = jobsById.get(item.get().getJobKeyString());
+        waits
+            .computeIfAbsent(LANE_SELECTOR.selectLane(job.requestInfo), lane -> new WaitStats())
+            .add(job.arrivalMinute, minute);
+        runningJobs.add(new RunningJob(item.get(), minute + job.durationMinutes));
+      }
+    }
+    return waits;
+  }
+
+  private static RequestInfo requestInfo(Optional<String> lane, Optional<Long> reportCount) {
+    RequestInfo.Builder requestInfo = RequestInfo.newBuilder().setJobRequestId("job");
+    lane.ifPresent(
+        value -> requestInfo.putJobParameters(JobLaneSelector.JOB_PARAM_PRIORITY_LANE, value));
+    reportCount.ifPresent(
+        value ->
+            requestInfo.putJobParameters(
+                JobLaneSelector.JOB_PARAM_INPUT_REPORT_COUNT, String.valueOf(value)));
+    return requestInfo.build();
+  }
+
+  private static final class SimulatedJob {
+    final String jobId;
+    final int arrivalMinute;
+    final int durationMinutes;
+    final RequestInfo requestInfo;
+
+    SimulatedJob(String jobId, int arrivalMinute, int durationMinutes, RequestInfo requestInfo) {
+      this.jobId = jobId;
+      this.arrivalMinute = arrivalMinute;
+      this.durationMinutes = durationMinutes;
+      this.requestInfo = requestInfo;
+    }
+  }
+
+  private static final class RunningJob {
+    final JobQueueItem item;
+    final int finishMinute;
+
+    RunningJob(JobQueueItem item, int finishMinute) {
+      this.item = item;
+      this.finishMinute = finishMinute;
+    }
+  }
+
+  private static final class WaitStats {
+    final List<Integer> startMinutes = new ArrayList<>();
+    int count;
+    long total;
+    int max;
+
+    void add(int arrivalMinute, int startMinute) {
+      int wait = startMinute - arrivalMinute;
+      startMinutes.add(startMinute);
+      count++;
+      total += wait;
+      max = Math.max(max, wait);
+    }
+
+    double mean() {
+      return count == 0 ? 0 : (double) total / count;
+    }
+
+    long startedBefore(int minute) {
+      return startMinutes.stream().filter(start -> start < minute).count();
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "{jobs=%d, mean=%.1f, max=%d, last start=%d}",
+          count, mean(), max, startMinutes.isEmpty() ? 0 : Collections.max(startMinutes));
+    }
+  }
+}
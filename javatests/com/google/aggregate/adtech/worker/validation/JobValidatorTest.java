@@ -23,6 +23,8 @@ import com.google.common.collect.ImmutableMap;
 import com.google.aggregate.adtech.worker.jobclient.model.Job;
 import com.google.aggregate.adtech.worker.jobclient.testing.FakeJobGenerator;
 import com.google.aggregate.protos.shared.backend.RequestInfoProto.RequestInfo;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Optional;
 import org.junit.Before;
 import org.junit.Test;
@@ -347,6 +349,136 @@ public class JobValidatorTest {
         () -> JobValidator.validate(Optional.of(jobWithNonNumberIds), /* domainOptional= */ true));
   }
 
+  @Test
+  public void validate_validFilteringIdSets_succeeds() {
+    Job job =
+        buildJob(
+                ImmutableMap.of(
+                    "attribution_report_to", "foo.com", "filtering_id_sets", " 1, 2 ; 3;  ; 4,5"))
+            .build();
+
+    JobValidator.validate(Optional.of(job), /* domainOptional= */ true);
+  }
+
+  @Test
+  public void validate_overlappingFilteringIdSets_throws() {
+    Job job =
+        buildJob(
+                ImmutableMap.of(
+                    "attribution_report_to", "foo.com", "filtering_id_sets", "1,2;2,3"))
+            .build();
+
+    IllegalArgumentException exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> JobValidator.validate(Optional.of(job), /* domainOptional= */ true));
+
+    assertThat(exception).hasMessageThat().contains("filtering ID 2 is in several sets");
+  }
+
+  @Test
+  public void validate_filteringIdSetsWithFilteringIds_throws() {
+    Job job =
+        buildJob(
+                ImmutableMap.of(
+                    "attribution_report_to",
+                    "foo.com",
+                    "filtering_ids",
+                    "1",
+                    "filtering_id_sets",
+                    "1;2"))
+            .build();
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> JobValidator.validate(Optional.of(job), /* domainOptional= */ true));
+  }
+
+  @Test
+  public void validate_invalidFilteringIdSets_throws() {
+    Job job =
+        buildJob(ImmutableMap.of("attribution_report_to", "foo.com", "filtering_id_sets", "1;x"))
+            .build();
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> JobValidator.validate(Optional.of(job), /* domainOptional= */ true));
+  }
+
+  @Test
+  public void validate_validWindowCloseTime_succeeds() {
+    Job job =
+        buildJob(
+                ImmutableMap.of(
+                    "attribution_report_to",
+                    "foo.com",
+                    "window_close_time",
+                    "2025-01-01T00:45:00Z"))
+            .setCreateTime(Instant.parse("2025-01-01T00:00:00Z"))
+            .setJobProcessingTimeout(Duration.ofHours(1))
+            .build();
+
+    JobValidator.validate(Optional.of(job), /* domainOptional= */ true);
+  }
+
+  @Test
+  public void validate_windowCloseTimeTooCloseToProcessingTimeout_throws() {
+    Job job =
+        buildJob(
+                ImmutableMap.of(
+                    "attribution_report_to",
+                    "foo.com",
+                    "window_close_time",
+                    "2025-01-01T00:50:00Z"))
+            .setCreateTime(Instant.parse("2025-01-01T00:00:00Z"))
+            .setJobProcessingTimeout(Duration.ofHours(1))
+            .build();
+
+    IllegalArgumentException exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> JobValidator.validate(Optional.of(job), /* domainOptional= */ true));
+
+    assertThat(exception).hasMessageThat().contains("no later than 2025-01-01T00:45:00Z");
+  }
+
+  @Test
+  public void validate_windowLongerThanMaxWindowLength_throws() {
+    Job job =
+        buildJob(
+                ImmutableMap.of(
+                    "attribution_report_to",
+                    "foo.com",
+                    "window_close_time",
+                    "2025-01-02T00:00:01Z"))
+            .setCreateTime(Instant.parse("2025-01-01T00:00:00Z"))
+            .setJobProcessingTimeout(Duration.ofDays(7))
+            .build();
+
+    IllegalArgumentException exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> JobValidator.validate(Optional.of(job), /* domainOptional= */ true));
+
+    assertThat(exception).hasMessageThat().contains("no later than 2025-01-02T00:00:00Z");
+  }
+
+  @Test
+  public void validate_invalidWindowCloseTime_throws() {
+    Job job =
+        buildJob(
+                ImmutableMap.of(
+                    "attribution_report_to", "foo.com", "window_close_time", "2025-01-01 01:00"))
+            .build();
+
+    IllegalArgumentException exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> JobValidator.validate(Optional.of(job), /* domainOptional= */ true));
+
+    assertThat(exception).hasMessageThat().contains("window_close_time");
+  }
+
   @Test
   public void validate_noReportingSite_fails() {
     ImmutableMap<String, String> jobParams = ImmutableMap.of("reporting_site", "");
@@ -380,6 +512,40 @@ public class JobValidatorTest {
                 + " for the Job");
   }
 
+  @Test
+  public void validate_subtaskManifestOnWorkerWithoutSubtasks_fails() {
+    ImmutableMap<String, String> jobParams =
+        ImmutableMap.of(
+            "reporting_site",
+            "someSite",
+            "distributed_subtask_manifest",
+            "scatter_gather/manifest");
+    Job job = buildJob(jobParams).build();
+
+    IllegalArgumentException exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> JobValidator.validate(Optional.of(job), /* domainOptional= */ true));
+
+    assertThat(exception)
+        .hasMessageThat()
+        .containsMatch("should not have the reserved 'distributed_subtask_manifest' parameter");
+  }
+
+  @Test
+  public void validate_subtaskManifestOnWorkerWithSubtasks_passes() {
+    ImmutableMap<String, String> jobParams =
+        ImmutableMap.of(
+            "reporting_site",
+            "someSite",
+            "distributed_subtask_manifest",
+            "scatter_gather/manifest");
+    Job job = buildJob(jobParams).build();
+
+    JobValidator.validate(
+        Optional.of(job), /* domainOptional= */ true, /* subtasksAllowed= */ true);
+  }
+
   private Job.Builder buildJob(ImmutableMap jobParams) {
     return jobBuilder.setRequestInfo(requestInfoBuilder.putAllJobParameters(jobParams).build());
   }
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.adtech.worker.validation;
+
+import static com.google.aggregate.adtech.worker.model.ErrorCounter.DEBUG_NOT_ENABLED;
+import static com.google.aggregate.adtech.worker.model.ErrorCounter.INVALID_REPORT_ID;
+import static com.google.aggregate.adtech.worker.model.ErrorCounter.UNSUPPORTED_OPERATION;
+import static com.google.aggregate.adtech.worker.model.SharedInfo.LATEST_VERSION;
+import static com.google.aggregate.adtech.worker.validation.ValidatorHelper.createErrorMessage;
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.aggregate.adtech.worker.jobclient.model.Job;
+import com.google.aggregate.adtech.worker.jobclient.testing.FakeJobGenerator;
+import com.google.aggregate.adtech.worker.model.ErrorCounter;
+import com.google.aggregate.adtech.worker.model.ErrorMessage;
+import com.google.aggregate.adtech.worker.model.Payload;
+import com.google.aggregate.adtech.worker.model.Report;
+import com.google.aggregate.adtech.worker.model.SharedInfo;
+import com.google.common.collect.ImmutableList;
+import java.time.Instant;
+import java.util.Optional;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ReportValidationPlanTest {
+
+  private static final Job JOB = FakeJobGenerator.generate("job_id");
+
+  private static final Report REPORT =
+      Report.builder()
+          .setPayload(Payload.builder().build())
+          .setSharedInfo(
+              SharedInfo.builder()
+                  .setVersion(LATEST_VERSION)
+                  .setReportingOrigin("https://example.com")
+                  .setScheduledReportTime(Instant.parse("2025-01-01T00:00:00Z"))
+                  .build())
+          .build();
+
+  @Test
+  public void validate_validReport_returnsNoErrors() {
+    CountingValidator validator = new CountingValidator(Optional.empty());
+    ReportValidationPlan plan =
+        ReportValidationPlan.compile(
+            ImmutableList.of(validator, validator), JOB, /* stopAtFirstError= */ false);
+
+    assertThat(plan.validate(REPORT)).isEmpty();
+    assertThat(plan.job()).isSameInstanceAs(JOB);
+  }
+
+  @Test
+  public void validate_collectsErrorsOfAllValidatorsInOrder() {
+    ReportValidationPlan plan =
+        ReportValidationPlan.compile(
+            ImmutableList.of(
+                new CountingValidator(Optional.of(INVALID_REPORT_ID)),
+                new CountingValidator(Optional.empty()),
+                new CountingValidator(Optional.of(DEBUG_NOT_ENABLED)),
+                new CountingValidator(Optional.of(UNSUPPORTED_OPERATION))),
+            JOB,
+            /* stopAtFirstError= */ false);
+
+    assertThat(plan.validate(REPORT).stream().map(ErrorMessage::category))
+        .containsExactly(INVALID_REPORT_ID, DEBUG_NOT_ENABLED, UNSUPPORTED_OPERATION)
+        .inOrder();
+  }
+
+  @Test
+  public void validate_stopAtFirstError_skipsRemainingValidators() {
+    CountingValidator skippedValidator = new CountingValidator(Optional.of(UNSUPPORTED_OPERATION));
+    ReportValidationPlan plan =
+        ReportValidationPlan.compile(
+            ImmutableList.of(
+                new CountingValidator(Optional.empty()),
+                new CountingValidator(Optional.of(INVALID_REPORT_ID)),
+                skippedValidator),
+            JOB,
+            /* stopAtFirstError= */ true);
+
+    assertThat(plan.validate(REPORT).stream().map(ErrorMessage::category))
+        .containsExactly(INVALID_REPORT_ID);
+    assertThat(skippedValidator.validateCount).isEqualTo(0);
+  }
+
+  @Test
+  public void compile_bindsEachValidatorToTheJobOnce() {
+    CountingValidator validator = new CountingValidator(Optional.empty());
+    ReportValidationPlan plan =
+        ReportValidationPlan.compile(
+            ImmutableList.of(validator), JOB, /* stopAtFirstError= */ false);
+
+    plan.validate(REPORT);
+    plan.validate(REPORT);
+    plan.validate(REPORT);
+
+    assertThat(validator.forJobCount).isEqualTo(1);
+    assertThat(validator.validateCount).isEqualTo(3);
+  }
+
+  /** Returns the same result for every report and counts how it is called. */
+  private static final class CountingValidator implements ReportValidator {
+
+    private final Optional<ErrorCounter> error;
+    private int forJobCount = 0;
+    private int validateCount = 0;
+
+    CountingValidator(Optional<ErrorCounter> error) {
+      this.error = error;
+    }
+
+    @Override
+    public Optional<ErrorMessage> validate(Report report, Job job) {
+      return forJob(job).validate(report);
+    }
+
+    @Override
+    public JobReportValidator forJob(Job job) {
+      forJobCount++;
+      return report -> {
+        validateCount++;
+        return error.isPresent() ? createErrorMessage(error.get()) : Optional.empty();
+      };
+    }
+  }
+}
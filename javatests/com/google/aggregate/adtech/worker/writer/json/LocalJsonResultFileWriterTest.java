@@ -16,6 +16,7 @@
 
 package com.google.aggregate.adtech.worker.writer.json;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.assertThrows;
 
@@ -38,6 +39,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.LongStream;
 import javax.inject.Inject;
 import org.junit.Before;
 import org.junit.Rule;
@@ -90,6 +92,21 @@ public class LocalJsonResultFileWriterTest {
     assertJsonResults();
   }
 
+  @Test
+  public void testWriteFileBytes_manyBlocks_matchesStreamedResults() throws Exception {
+    results =
+        LongStream.range(0, 3 * AbstractLocalJsonResultFileWriter.RECORDS_PER_BLOCK + 1)
+            .mapToObj(i -> AggregatedFact.create(BigInteger.valueOf(i), i))
+            .collect(toImmutableList());
+    Path streamedJsonFile = filesystem.getPath("streamed_results.json");
+
+    localJsonResultFileWriter.writeLocalFile(avroResultsSerdes.convert(results), jsonFile);
+    localJsonResultFileWriter.writeLocalFile(results.stream(), streamedJsonFile);
+
+    assertJsonResults();
+    assertThat(Files.readAllBytes(jsonFile)).isEqualTo(Files.readAllBytes(streamedJsonFile));
+  }
+
   @Test
   public void testExceptionOnFailedWrite() throws Exception {
     Path nonExistentDirectory =
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.perf;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import java.time.Duration;
+import java.util.stream.IntStream;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class LatencyHistogramTest {
+
+  @Test
+  public void empty_percentileIsZero() {
+    LatencyHistogram histogram = LatencyHistogram.empty();
+
+    assertThat(histogram.count()).isEqualTo(0);
+    assertThat(histogram.percentile(50)).isEqualTo(Duration.ZERO);
+    assertThat(histogram.percentile(99)).isEqualTo(Duration.ZERO);
+  }
+
+  @Test
+  public void percentile_withinBucketPrecision() {
+    LatencyHistogram histogram =
+        LatencyHistogram.of(
+            IntStream.rangeClosed(1, 100).mapToObj(Duration::ofMillis).toArray(Duration[]::new));
+
+    assertThat(histogram.count()).isEqualTo(100);
+    assertThat(histogram.total()).isEqualTo(Duration.ofMillis(5050));
+    assertThat(histogram.max()).isEqualTo(Duration.ofMillis(100));
+    assertThat(histogram.percentile(50)).isAtLeast(Duration.ofNanos(43_750_000));
+    assertThat(histogram.percentile(50)).isAtMost(Duration.ofNanos(56_250_000));
+    assertThat(histogram.percentile(99)).isAtLeast(Duration.ofNanos(86_625_000));
+    assertThat(histogram.percentile(99)).isAtMost(Duration.ofMillis(100));
+  }
+
+  @Test
+  public void percentile_cappedByMax() {
+    LatencyHistogram histogram = LatencyHistogram.of(Duration.ofMillis(1));
+
+    assertThat(histogram.percentile(99)).isEqualTo(Duration.ofMillis(1));
+  }
+
+  @Test
+  public void percentile_outOfRange_throws() {
+    LatencyHistogram histogram = LatencyHistogram.of(Duration.ofMillis(1));
+
+    assertThrows(IllegalArgumentException.class, () -> histogram.percentile(0));
+    assertThrows(IllegalArgumentException.class, () -> histogram.percentile(101));
+  }
+
+  @Test
+  public void merge_combinesCountsTotalsAndMax() {
+    LatencyHistogram first = LatencyHistogram.of(Duration.ofMillis(1), Duration.ofMillis(2));
+    LatencyHistogram second = LatencyHistogram.of(Duration.ofMillis(7));
+
+    LatencyHistogram merged = first.merge(second);
+
+    assertThat(merged.count()).isEqualTo(3);
+    assertThat(merged.total()).isEqualTo(Duration.ofMillis(10));
+    assertThat(merged.max()).isEqualTo(Duration.ofMillis(7));
+    assertThat(merged.percentile(100)).isEqualTo(Duration.ofMillis(7));
+  }
+
+  @Test
+  public void minus_returnsIntervalDelta() {
+    LatencyHistogram earlier = LatencyHistogram.of(Duration.ofMillis(1));
+    LatencyHistogram later = earlier.merge(LatencyHistogram.of(Duration.ofSeconds(3)));
+
+    LatencyHistogram delta = later.minus(earlier);
+
+    assertThat(delta.count()).isEqualTo(1);
+    assertThat(delta.total()).isEqualTo(Duration.ofSeconds(3));
+    assertThat(delta.percentile(50)).isAtLeast(Duration.ofMillis(2625));
+    assertThat(delta.percentile(50)).isAtMost(Duration.ofMillis(3375));
+  }
+
+  @Test
+  public void bucketIndex_coversAllValues() {
+    for (int nanos = 0; nanos < 8; nanos++) {
+      assertThat(LatencyHistogram.bucketIndex(nanos)).isEqualTo(nanos);
+    }
+    assertThat(LatencyHistogram.bucketIndex(Long.MAX_VALUE))
+        .isEqualTo(LatencyHistogram.BUCKET_COUNT - 1);
+  }
+
+  @Test
+  public void bucketIndex_isMonotonic() {
+    int previous = 0;
+    for (long nanos = 1; nanos > 0 && nanos < Long.MAX_VALUE / 3; nanos = nanos * 3 + 1) {
+      int index = LatencyHistogram.bucketIndex(nanos);
+      assertThat(index).isAtLeast(previous);
+      previous = index;
+    }
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.perf;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.aggregate.perf.PipelineEvents.DecryptBatchEvent;
+import com.google.aggregate.perf.PipelineEvents.ShardReadEvent;
+import com.google.common.collect.ImmutableList;
+import java.nio.file.Path;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class PipelineEventsTest {
+
+  @Rule public final TemporaryFolder testWorkingDir = new TemporaryFolder();
+
+  @After
+  public void tearDown() {
+    PipelineEvents.clearCurrentJobKey();
+  }
+
+  @Test
+  public void events_taggedWithCurrentJobKey() throws Exception {
+    ImmutableList<RecordedEvent> events;
+    try (Recording recording = new Recording()) {
+      PipelineEvents.eventClasses().forEach(recording::enable);
+      recording.start();
+
+      PipelineEvents.setCurrentJobKey("job-a");
+      ShardReadEvent shardReadEvent = new ShardReadEvent();
+      shardReadEvent.begin();
+      shardReadEvent.setShard("shard-1.avro", 1024);
+      shardReadEvent.commit();
+      PipelineEvents.setCurrentJobKey("job-b");
+      DecryptBatchEvent decryptBatchEvent = new DecryptBatchEvent();
+      decryptBatchEvent.begin();
+      decryptBatchEvent.setReports(1000, 3);
+      decryptBatchEvent.commit();
+
+      recording.stop();
+      Path recordingFile = testWorkingDir.getRoot().toPath().resolve("recording.jfr");
+      recording.dump(recordingFile);
+      events =
+          RecordingFile.readAllEvents(recordingFile).stream()
+              .filter(event -> event.getEventType().getName().startsWith("com.google.aggregate."))
+              .collect(toImmutableList());
+    }
+
+    assertThat(events).hasSize(2);
+    assertThat(events.get(0).getEventType().getName()).isEqualTo("com.google.aggregate.ShardRead");
+    assertThat(events.get(0).getString("jobKey")).isEqualTo("job-a");
+    assertThat(events.get(0).getString("shard")).isEqualTo("shard-1.avro");
+    assertThat(events.get(0).getLong("shardBytes")).isEqualTo(1024);
+    assertThat(events.get(1).getEventType().getName())
+        .isEqualTo("com.google.aggregate.DecryptBatch");
+    assertThat(events.get(1).getString("jobKey")).isEqualTo("job-b");
+    assertThat(events.get(1).getInt("failedReports")).isEqualTo(3);
+  }
+
+  @Test
+  public void events_notRecordedWithoutRecording() {
+    ShardReadEvent shardReadEvent = new ShardReadEvent();
+
+    assertThat(shardReadEvent.shouldCommit()).isFalse();
+  }
+
+  @Test
+  public void jobAllocationTracker_countsAllocatedBytes() {
+    JobAllocationTracker allocationTracker = JobAllocationTracker.start();
+
+    byte[][] allocations = new byte[16][];
+    for (int i = 0; i < allocations.length; i++) {
+      allocations[i] = new byte[1024 * 1024];
+    }
+
+    assertThat(allocations[15]).hasLength(1024 * 1024);
+    assertThat(allocationTracker.allocatedBytes()).isAtLeast(16L * 1024 * 1024);
+    assertThat(allocationTracker.peakHeapBytes()).isGreaterThan(0L);
+  }
+}
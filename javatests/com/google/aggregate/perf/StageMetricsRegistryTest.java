@@ -0,0 +1,115 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.perf;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.acai.Acai;
+import com.google.acai.TestScoped;
+import com.google.common.collect.ImmutableList;
+import com.google.common.testing.FakeTicker;
+import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.inject.Inject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class StageMetricsRegistryTest {
+
+  @Rule public final Acai acai = new Acai(TestEnv.class);
+
+  @Inject FakeTicker fakeTicker;
+
+  // Under test
+  @Inject StageMetricsRegistry stageMetrics;
+
+  @Test
+  public void recordSince_usesTicker() {
+    long startNanos = stageMetrics.startNanos();
+    fakeTicker.advance(Duration.ofMillis(5));
+    stageMetrics.recordSince(PipelineStage.DECRYPT, startNanos);
+
+    LatencyHistogram decrypt = stageMetrics.snapshotLatencies().get(PipelineStage.DECRYPT);
+    assertThat(decrypt.count()).isEqualTo(1);
+    assertThat(decrypt.total()).isEqualTo(Duration.ofMillis(5));
+    assertThat(decrypt.max()).isEqualTo(Duration.ofMillis(5));
+    assertThat(stageMetrics.snapshotLatencies().get(PipelineStage.READ).count()).isEqualTo(0);
+  }
+
+  @Test
+  public void record_mergesAcrossThreads() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    ImmutableList.Builder<Future<?>> futures = ImmutableList.builder();
+    for (int thread = 0; thread < 4; thread++) {
+      futures.add(
+          executor.submit(
+              () -> {
+                for (int i = 0; i < 250; i++) {
+                  stageMetrics.record(PipelineStage.AGGREGATE, Duration.ofMicros(10).toNanos());
+                  stageMetrics.addItems(PipelineStage.AGGREGATE, 1);
+                }
+              }));
+    }
+    for (Future<?> future : futures.build()) {
+      future.get();
+    }
+    executor.shutdown();
+
+    LatencyHistogram aggregate = stageMetrics.snapshotLatencies().get(PipelineStage.AGGREGATE);
+    assertThat(aggregate.count()).isEqualTo(1000);
+    assertThat(aggregate.total()).isEqualTo(Duration.ofMillis(10));
+    assertThat(stageMetrics.snapshotItemCounts().get(PipelineStage.AGGREGATE)).isEqualTo(1000);
+  }
+
+  @Test
+  public void record_negativeElapsedClampedToZero() {
+    stageMetrics.record(PipelineStage.UPLOAD, -10);
+
+    LatencyHistogram upload = stageMetrics.snapshotLatencies().get(PipelineStage.UPLOAD);
+    assertThat(upload.count()).isEqualTo(1);
+    assertThat(upload.total()).isEqualTo(Duration.ZERO);
+  }
+
+  @Test
+  public void collectStagePercentiles_onlyRecordedStages() {
+    stageMetrics.record(PipelineStage.PBS, Duration.ofMillis(2).toNanos());
+
+    assertThat(stageMetrics.collectStagePercentiles())
+        .containsExactly(
+            "stage_pbs_p50", Duration.ofMillis(2), "stage_pbs_p99", Duration.ofMillis(2));
+  }
+
+  private static final class TestEnv extends AbstractModule {
+
+    @Override
+    protected void configure() {
+      bind(FakeTicker.class).in(TestScoped.class);
+    }
+
+    @Provides
+    StageMetricsRegistry provideStageMetricsRegistry(FakeTicker fakeTicker) {
+      return new StageMetricsRegistry(fakeTicker);
+    }
+  }
+}
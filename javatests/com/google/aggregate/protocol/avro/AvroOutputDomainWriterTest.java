@@ -157,6 +157,46 @@ public class AvroOutputDomainWriterTest {
     assertThat(records).hasSize(2);
   }
 
+  @Test
+  public void writeSortedRecords_sortsDedupesAndMarksFileAsSorted() throws Exception {
+    try (OutputStream outputAvroStream = Files.newOutputStream(avroFile, CREATE);
+        AvroOutputDomainWriter writer = writerFactory.create(outputAvroStream)) {
+      writer.writeSortedRecords(
+          metadata,
+          ImmutableList.of(
+              createAvroOutputDomainRecord(BigInteger.TEN),
+              createAvroOutputDomainRecord(BigInteger.ONE),
+              createAvroOutputDomainRecord(BigInteger.TEN),
+              createAvroOutputDomainRecord(BigInteger.TWO)));
+    }
+
+    ImmutableList<BigInteger> buckets;
+    boolean sorted;
+    Optional<String> metaFoo;
+    try (AvroOutputDomainReader reader = getReader()) {
+      sorted = reader.hasSortedBuckets();
+      metaFoo = reader.getMeta("foo");
+      buckets =
+          reader.streamRecords().map(AvroOutputDomainRecord::bucket).collect(toImmutableList());
+    }
+
+    assertThat(sorted).isTrue();
+    assertThat(metaFoo).hasValue("bar");
+    assertThat(buckets).containsExactly(BigInteger.ONE, BigInteger.TWO, BigInteger.TEN).inOrder();
+  }
+
+  @Test
+  public void writeRecords_notMarkedAsSorted() throws Exception {
+    writeRecords(ImmutableList.of(createAvroOutputDomainRecord(BigInteger.ONE)));
+
+    boolean sorted;
+    try (AvroOutputDomainReader reader = getReader()) {
+      sorted = reader.hasSortedBuckets();
+    }
+
+    assertThat(sorted).isFalse();
+  }
+
   private AvroOutputDomainReader getReader() throws Exception {
     return readerFactory.create(Files.newInputStream(avroFile));
   }
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.protocol.binary;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.collect.ImmutableList;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class BinaryOutputDomainReaderTest {
+
+  private static final BigInteger UINT_128_MAX =
+      BigInteger.ONE.shiftLeft(128).subtract(BigInteger.ONE);
+
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void fromInputStream_readsBucketsInFileOrder() throws Exception {
+    ImmutableList<BigInteger> buckets =
+        ImmutableList.of(
+            BigInteger.valueOf(5),
+            UINT_128_MAX,
+            BigInteger.ZERO,
+            BigInteger.ONE.shiftLeft(64),
+            BigInteger.valueOf(Long.MAX_VALUE).add(BigInteger.ONE));
+
+    BinaryOutputDomainReader reader =
+        BinaryOutputDomainReader.fromInputStream(
+            new ByteArrayInputStream(write(buckets, /* sorted= */ false)));
+
+    assertThat(reader.hasSortedBuckets()).isFalse();
+    assertThat(reader.getBucketCount()).isEqualTo(5);
+    assertThat(reader.streamBuckets().collect(toImmutableList()))
+        .containsExactlyElementsIn(buckets)
+        .inOrder();
+  }
+
+  @Test
+  public void writeSortedBuckets_sortsDedupesAndSetsFlag() throws Exception {
+    ImmutableList<BigInteger> buckets =
+        ImmutableList.of(BigInteger.valueOf(3), BigInteger.ONE, BigInteger.valueOf(3));
+
+    BinaryOutputDomainReader reader =
+        BinaryOutputDomainReader.fromInputStream(
+            new ByteArrayInputStream(write(buckets, /* sorted= */ true)));
+
+    assertThat(reader.hasSortedBuckets()).isTrue();
+    assertThat(reader.streamBuckets().collect(toImmutableList()))
+        .containsExactly(BigInteger.ONE, BigInteger.valueOf(3))
+        .inOrder();
+  }
+
+  @Test
+  public void streamSortedBuckets_sortedStream_decodesBlocksInOrder() throws Exception {
+    ImmutableList<BigInteger> buckets =
+        IntStream.range(0, 10_000)
+            .mapToObj(i -> BigInteger.valueOf(i).shiftLeft(100))
+            .collect(toImmutableList());
+
+    Optional<Stream<BigInteger>> sortedBuckets =
+        BinaryOutputDomainReader.streamSortedBuckets(
+            new ByteArrayInputStream(write(buckets, /* sorted= */ true)));
+
+    assertThat(sortedBuckets.get().collect(toImmutableList()))
+        .containsExactlyElementsIn(buckets)
+        .inOrder();
+  }
+
+  @Test
+  public void streamSortedBuckets_unsortedStream_readsOnlyHeader() throws Exception {
+    ByteArrayInputStream inputStream =
+        new ByteArrayInputStream(
+            write(ImmutableList.of(BigInteger.TWO, BigInteger.ONE), /* sorted= */ false));
+
+    Optional<Stream<BigInteger>> sortedBuckets =
+        BinaryOutputDomainReader.streamSortedBuckets(inputStream);
+
+    assertThat(sortedBuckets.isPresent()).isFalse();
+    assertThat(inputStream.available()).isEqualTo(2 * BinaryOutputDomainWriter.BUCKET_SIZE_BYTES);
+  }
+
+  @Test
+  public void streamSortedBuckets_truncatedStream_throwsWhenConsumed() throws Exception {
+    byte[] bytes = write(ImmutableList.of(BigInteger.ONE, BigInteger.TWO), /* sorted= */ true);
+
+    Stream<BigInteger> sortedBuckets =
+        BinaryOutputDomainReader.streamSortedBuckets(
+                new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 1)))
+            .get();
+
+    assertThrows(UncheckedIOException.class, () -> sortedBuckets.forEach(bucket -> {}));
+  }
+
+  @Test
+  public void fromPath_decodesLargeFileInOrder() throws Exception {
+    ImmutableList<BigInteger> buckets =
+        IntStream.range(0, 200_000)
+            .mapToObj(i -> BigInteger.valueOf(i).shiftLeft(i % 100))
+            .collect(toImmutableList());
+    Path domainFile = temporaryFolder.newFile("domain.bin").toPath();
+    try (OutputStream outputStream = Files.newOutputStream(domainFile);
+        BinaryOutputDomainWriter writer = new BinaryOutputDomainWriter(outputStream)) {
+      writer.writeBuckets(buckets);
+    }
+
+    BinaryOutputDomainReader reader = BinaryOutputDomainReader.fromPath(domainFile);
+
+    assertThat(Arrays.asList(reader.readBuckets())).containsExactlyElementsIn(buckets).inOrder();
+  }
+
+  @Test
+  public void fromInputStream_truncatedFile_throws() throws Exception {
+    byte[] bytes = write(ImmutableList.of(BigInteger.ONE, BigInteger.TWO), /* sorted= */ false);
+
+    assertThrows(
+        IOException.class,
+        () ->
+            BinaryOutputDomainReader.fromInputStream(
+                new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 1))));
+  }
+
+  @Test
+  public void fromInputStream_headerDoesNotMatchStreamSize_throwsBeforeReading() throws Exception {
+    byte[] bytes = write(ImmutableList.of(BigInteger.ONE, BigInteger.TWO), /* sorted= */ false);
+    // Claims the largest bucket count allowed, which would need a buffer of almost 2 GiB.
+    ByteBuffer.wrap(bytes).putLong(2 * Integer.BYTES, Integer.MAX_VALUE / 16 - 1);
+    ByteArrayInputStream inputStream = new ByteArrayInputStream(bytes);
+
+    assertThrows(
+        IOException.class,
+        () -> BinaryOutputDomainReader.fromInputStream(inputStream, bytes.length));
+    assertThat(inputStream.available())
+        .isEqualTo(bytes.length - BinaryOutputDomainWriter.HEADER_SIZE_BYTES);
+  }
+
+  @Test
+  public void fromInputStream_notBinaryDomain_throws() {
+    byte[] bytes = "not a binary domain file".getBytes();
+
+    assertThrows(
+        IOException.class,
+        () -> BinaryOutputDomainReader.fromInputStream(new ByteArrayInputStream(bytes)));
+  }
+
+  @Test
+  public void writeBuckets_bucketOutOfRange_throws() {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    BinaryOutputDomainWriter writer = new BinaryOutputDomainWriter(outputStream);
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> writer.writeBuckets(ImmutableList.of(UINT_128_MAX.add(BigInteger.ONE))));
+  }
+
+  private static byte[] write(ImmutableList<BigInteger> buckets, boolean sorted)
+      throws IOException {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    try (BinaryOutputDomainWriter writer = new BinaryOutputDomainWriter(outputStream)) {
+      if (sorted) {
+        writer.writeSortedBuckets(buckets);
+      } else {
+        writer.writeBuckets(buckets);
+      }
+    }
+    return outputStream.toByteArray();
+  }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.tools.loadtestinputs;
+
+import static com.google.aggregate.adtech.worker.decryption.hybrid.HybridDecryptionCipher.ASSOCIATED_DATA_PREFIX;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertThrows;
+
+import com.google.aggregate.adtech.worker.model.Fact;
+import com.google.aggregate.adtech.worker.model.Payload;
+import com.google.aggregate.adtech.worker.model.serdes.cbor.CborPayloadSerdes;
+import com.google.aggregate.protocol.avro.AvroOutputDomainReader;
+import com.google.aggregate.protocol.avro.AvroOutputDomainReaderFactory;
+import com.google.aggregate.protocol.avro.AvroOutputDomainRecord;
+import com.google.aggregate.protocol.avro.AvroReportRecord;
+import com.google.aggregate.protocol.avro.AvroReportsReader;
+import com.google.aggregate.protocol.avro.AvroReportsReaderFactory;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.ByteSource;
+import com.google.common.primitives.UnsignedLong;
+import com.google.crypto.tink.HybridDecrypt;
+import com.google.crypto.tink.KeysetHandle;
+import com.google.crypto.tink.hybrid.EciesAeadHkdfPrivateKeyManager;
+import com.google.crypto.tink.hybrid.HybridConfig;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class LoadTestInputGeneratorTest {
+
+  @Rule public final TemporaryFolder testWorkingDir = new TemporaryFolder();
+
+  private final Injector injector = Guice.createInjector(new AbstractModule() {});
+  private final LoadTestInputSpec spec =
+      LoadTestInputSpec.builder()
+          .setReportCount(200)
+          .setShardCount(3)
+          .setContributionsPerReport(2)
+          .setBucketCardinality(50)
+          .setBucketZipfExponent(1.1)
+          .setSharedInfoCardinality(4)
+          .setFilteringIdWeights(ImmutableMap.of(0L, 3.0, 7L, 1.0))
+          .setInvalidReportFraction(0.1)
+          .setKeyIds(ImmutableList.of("key-1", "key-2"))
+          .setSeed(42)
+          .build();
+
+  private LoadTestInputGenerator generator;
+  private KeysetHandle privateKeysetHandle;
+
+  @Before
+  public void setUp() throws GeneralSecurityException {
+    HybridConfig.register();
+    generator = injector.getInstance(LoadTestInputGenerator.class);
+    privateKeysetHandle =
+        KeysetHandle.generateNew(
+            EciesAeadHkdfPrivateKeyManager.eciesP256HkdfHmacSha256Aes128GcmTemplate());
+  }
+
+  @Test
+  public void generate_writesDecryptableReportsInEveryShard() throws Exception {
+    Path outputDir = testWorkingDir.getRoot().toPath();
+
+    long invalidReports =
+        generator.generate(
+            spec, outputDir, privateKeysetHandle.getPublicKeysetHandle(), /* parallelism= */ 2);
+
+    ImmutableList<Path> shards = listShards(outputDir);
+    assertThat(shards).hasSize(3);
+    ImmutableList<AvroReportRecord> reports =
+        shards.stream().flatMap(this::readReports).collect(toImmutableList());
+    assertThat(reports).hasSize(200);
+    assertThat(reports.stream().map(AvroReportRecord::keyId).collect(toImmutableSet()))
+        .containsExactly("key-1", "key-2");
+    assertThat(reports.stream().map(AvroReportRecord::sharedInfo).distinct().count())
+        .isEqualTo(200);
+
+    HybridDecrypt hybridDecrypt = privateKeysetHandle.getPrimitive(HybridDecrypt.class);
+    CborPayloadSerdes payloadSerdes = injector.getInstance(CborPayloadSerdes.class);
+    ImmutableSet<BigInteger> domain = readDomain(outputDir);
+    List<Fact> facts = new ArrayList<>();
+    long undecryptableReports = 0;
+    for (AvroReportRecord report : reports) {
+      Optional<byte[]> decrypted = decrypt(hybridDecrypt, report);
+      if (decrypted.isEmpty()) {
+        undecryptableReports++;
+        continue;
+      }
+      Payload payload = payloadSerdes.convert(ByteSource.wrap(decrypted.get())).get();
+      facts.addAll(payload.data());
+    }
+    assertThat(invalidReports).isGreaterThan(0);
+    assertThat(undecryptableReports).isEqualTo(invalidReports);
+    assertThat(facts).hasSize(2 * (200 - (int) invalidReports));
+    assertThat(domain).hasSize(50);
+    assertThat(domain)
+        .containsAtLeastElementsIn(facts.stream().map(Fact::bucket).collect(toImmutableSet()));
+    assertThat(facts.stream().map(fact -> fact.id().get()).collect(toImmutableSet()))
+        .containsExactly(UnsignedLong.valueOf(0), UnsignedLong.valueOf(7));
+  }
+
+  @Test
+  public void generate_sameSeed_writesSameBuckets() throws Exception {
+    Path firstDir = testWorkingDir.newFolder("first").toPath();
+    Path secondDir = testWorkingDir.newFolder("second").toPath();
+    KeysetHandle publicKeysetHandle = privateKeysetHandle.getPublicKeysetHandle();
+
+    generator.generate(spec, firstDir, publicKeysetHandle, /* parallelism= */ 1);
+    generator.generate(spec, secondDir, publicKeysetHandle, /* parallelism= */ 3);
+
+    assertThat(readSharedInfos(secondDir)).isEqualTo(readSharedInfos(firstDir));
+  }
+
+  @Test
+  public void build_invalidFraction_throws() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            LoadTestInputSpec.builder()
+                .setReportCount(1)
+                .setBucketCardinality(1)
+                .setInvalidReportFraction(1.5)
+                .build());
+  }
+
+  private ImmutableList<String> readSharedInfos(Path outputDir) throws IOException {
+    return listShards(outputDir).stream()
+        .flatMap(this::readReports)
+        .map(AvroReportRecord::sharedInfo)
+        .collect(toImmutableList());
+  }
+
+  private static Optional<byte[]> decrypt(HybridDecrypt hybridDecrypt, AvroReportRecord report)
+      throws IOException {
+    try {
+      return Optional.of(
+          hybridDecrypt.decrypt(
+              report.payload().read(),
+              (ASSOCIATED_DATA_PREFIX + report.sharedInfo()).getBytes(UTF_8)));
+    } catch (GeneralSecurityException e) {
+      return Optional.empty();
+    }
+  }
+
+  private static ImmutableList<Path> listShards(Path outputDir) throws IOException {
+    try (Stream<Path> shards = Files.list(outputDir.resolve(LoadTestInputGenerator.REPORTS_DIR))) {
+      return shards.sorted().collect(toImmutableList());
+    }
+  }
+
+  private Stream<AvroReportRecord> readReports(Path shard) {
+    AvroReportsReaderFactory readerFactory = injector.getInstance(AvroReportsReaderFactory.class);
+    try (InputStream avroStream = Files.newInputStream(shard);
+        AvroReportsReader reader = readerFactory.create(avroStream)) {
+      return reader.streamRecords().collect(toImmutableList()).stream();
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private ImmutableSet<BigInteger> readDomain(Path outputDir) throws IOException {
+    AvroOutputDomainReaderFactory readerFactory =
+        injector.getInstance(AvroOutputDomainReaderFactory.class);
+    Path domainPath =
+        outputDir
+            .resolve(LoadTestInputGenerator.DOMAIN_DIR)
+            .resolve(LoadTestInputGenerator.DOMAIN_FILE);
+    try (InputStream avroStream = Files.newInputStream(domainPath);
+        AvroOutputDomainReader reader = readerFactory.create(avroStream)) {
+      return reader.streamRecords().map(AvroOutputDomainRecord::bucket).collect(toImmutableSet());
+    }
+  }
+}
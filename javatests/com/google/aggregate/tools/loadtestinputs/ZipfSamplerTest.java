@@ -0,0 +1,76 @@
+/*
+ * Copyright 2025 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.aggregate.tools.loadtestinputs;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.collect.Range;
+import java.util.SplittableRandom;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ZipfSamplerTest {
+
+  private static final int SAMPLES = 100_000;
+
+  private final SplittableRandom random = new SplittableRandom(7);
+
+  @Test
+  public void sample_zeroExponent_isUniform() {
+    long[] counts = sample(new ZipfSampler(4, 0));
+
+    for (long count : counts) {
+      assertThat((double) count / SAMPLES).isWithin(0.01).of(0.25);
+    }
+  }
+
+  @Test
+  public void sample_exponentOne_matchesZipfProbabilities() {
+    long[] counts = sample(new ZipfSampler(4, 1));
+
+    // 1 / (1 + 1/2 + 1/3 + 1/4)
+    double normalization = 12.0 / 25;
+    for (int rank = 1; rank <= 4; rank++) {
+      assertThat((double) counts[rank - 1] / SAMPLES).isWithin(0.01).of(normalization / rank);
+    }
+  }
+
+  @Test
+  public void sample_largeCardinality_staysInRange() {
+    ZipfSampler sampler = new ZipfSampler(1_000_000_000_000L, 1.2);
+
+    for (int i = 0; i < SAMPLES; i++) {
+      assertThat(sampler.sample(random)).isIn(Range.closed(1L, 1_000_000_000_000L));
+    }
+  }
+
+  @Test
+  public void create_negativeExponent_throws() {
+    assertThrows(IllegalArgumentException.class, () -> new ZipfSampler(4, -1));
+  }
+
+  private long[] sample(ZipfSampler sampler) {
+    long[] counts = new long[4];
+    for (int i = 0; i < SAMPLES; i++) {
+      counts[(int) sampler.sample(random) - 1]++;
+    }
+    return counts;
+  }
+}
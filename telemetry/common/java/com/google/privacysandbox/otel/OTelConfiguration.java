@@ -21,6 +21,7 @@ import io.opentelemetry.api.OpenTelemetry;
 import io.opentelemetry.api.logs.Severity;
 import io.opentelemetry.api.metrics.LongCounter;
 import java.util.Map;
+import java.util.function.DoubleSupplier;
 
 /**
  * Interface for management of {@link OpenTelemetry} resources.
@@ -38,6 +39,16 @@ public interface OTelConfiguration {
   /** Creates a gauge meter that periodically exports CPU utilization */
   void createProdCPUUtilizationGauge();
 
+  /**
+   * Creates a gauge meter in debug and prod environments that periodically exports the value of
+   * the supplier
+   *
+   * @param name {@link String}
+   * @param unit {@link String}
+   * @param valueSupplier {@link DoubleSupplier}
+   */
+  void createProdGauge(String name, String unit, DoubleSupplier valueSupplier);
+
   /**
    * Creates a counter meter in debug and prod environments
    *
@@ -30,6 +30,7 @@ import io.opentelemetry.api.trace.Tracer;
 import java.lang.management.ManagementFactory;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
 
 /** Implements helper methods for {@link OTelConfiguration} implementations */
 public class OTelConfigurationImplHelper {
@@ -96,6 +97,20 @@ public class OTelConfigurationImplHelper {
             });
   }
 
+  /**
+   * Creates a gauge meter that periodically exports the value of the supplier
+   *
+   * @param name {@link String}
+   * @param unit {@link String}
+   * @param valueSupplier {@link DoubleSupplier}
+   */
+  public void createGauge(String name, String unit, DoubleSupplier valueSupplier) {
+    meter
+        .gaugeBuilder(name)
+        .setUnit(unit)
+        .buildWithCallback(measurement -> measurement.record(valueSupplier.getAsDouble()));
+  }
+
   /**
    * Creates a {@link LongCounter} meter
    *
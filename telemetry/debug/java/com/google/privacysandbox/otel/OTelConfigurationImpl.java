@@ -22,6 +22,7 @@ import io.opentelemetry.api.OpenTelemetry;
 import io.opentelemetry.api.logs.Severity;
 import io.opentelemetry.api.metrics.LongCounter;
 import java.util.Map;
+import java.util.function.DoubleSupplier;
 
 /**
  * Implements {@link OTelConfiguration} for debug use. Provides concrete implementations for both
@@ -59,6 +60,11 @@ public final class OTelConfigurationImpl implements OTelConfiguration {
     oTelConfigurationImplHelper.createCPUUtilizationGauge();
   }
 
+  @Override
+  public void createProdGauge(String name, String unit, DoubleSupplier valueSupplier) {
+    oTelConfigurationImplHelper.createGauge(name, unit, valueSupplier);
+  }
+
   @Override
   public LongCounter createProdCounter(String name) {
     return oTelConfigurationImplHelper.createCounter(name);
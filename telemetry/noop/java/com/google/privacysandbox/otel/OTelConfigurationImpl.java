@@ -20,6 +20,7 @@ import com.google.errorprone.annotations.MustBeClosed;
 import io.opentelemetry.api.logs.Severity;
 import io.opentelemetry.api.metrics.LongCounter;
 import java.util.Map;
+import java.util.function.DoubleSupplier;
 
 /**
  * Implements {@link OTelConfiguration} for production use. Provides concrete implementations for
@@ -39,6 +40,9 @@ public final class OTelConfigurationImpl implements OTelConfiguration {
   @Override
   public void createProdCPUUtilizationGauge() {}
 
+  @Override
+  public void createProdGauge(String name, String unit, DoubleSupplier valueSupplier) {}
+
   @Override
   public LongCounter createProdCounter(String name) {
     return NOOP_LONG_COUNTER;